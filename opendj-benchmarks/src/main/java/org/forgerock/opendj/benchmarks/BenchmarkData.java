@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.adapter.server3x.Converters;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldif.EntryGenerator;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Entry;
+
+/**
+ * Generates the fixture data shared by the benchmarks.
+ * <p>
+ * Entries are generated from the default {@code example.template} of {@link EntryGenerator} with a
+ * fixed random seed, so that two builds are always measured against exactly the same data.
+ */
+public final class BenchmarkData
+{
+  /** The suffix of the generated entries. */
+  public static final String SUFFIX = "dc=example,dc=com";
+  /** The random seed used to generate the entries. */
+  private static final int RANDOM_SEED = 1;
+  /** Whether the server structures have been bootstrapped. */
+  private static boolean bootstrapped;
+
+  private BenchmarkData()
+  {
+    // Utility class.
+  }
+
+  /**
+   * Bootstraps the server structures, including the default schema, needed to use the server
+   * classes outside of a running server. Can be called several times.
+   */
+  public static synchronized void bootstrap()
+  {
+    if (!bootstrapped)
+    {
+      DirectoryServer.bootstrapClient();
+      bootstrapped = true;
+    }
+  }
+
+  /**
+   * Generates user entries, without the branch entries above them.
+   *
+   * @param nbEntries
+   *          the number of user entries to generate
+   * @return the generated entries, always the same for a given number of entries
+   * @throws IOException
+   *           if the template cannot be read
+   */
+  public static List<Entry> generateEntries(int nbEntries) throws IOException
+  {
+    bootstrap();
+    final List<Entry> entries = new ArrayList<>(nbEntries);
+    try (EntryGenerator generator = newGenerator(nbEntries))
+    {
+      while (generator.hasNext())
+      {
+        final org.forgerock.opendj.ldap.Entry entry = generator.readEntry();
+        if (entry.getAttribute("uid") != null)
+        {
+          entries.add(Converters.to(entry));
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Generates the DNs of user entries.
+   *
+   * @param nbEntries
+   *          the number of DNs to generate
+   * @return the generated DNs, always the same for a given number of entries
+   * @throws IOException
+   *           if the template cannot be read
+   */
+  public static List<DN> generateDNs(int nbEntries) throws IOException
+  {
+    final List<DN> dns = new ArrayList<>(nbEntries);
+    for (Entry entry : generateEntries(nbEntries))
+    {
+      dns.add(entry.getName());
+    }
+    return dns;
+  }
+
+  private static EntryGenerator newGenerator(int nbEntries)
+  {
+    return new EntryGenerator()
+        .setRandomSeed(RANDOM_SEED)
+        .setConstant("suffix", SUFFIX)
+        .setConstant("numusers", nbEntries);
+  }
+}
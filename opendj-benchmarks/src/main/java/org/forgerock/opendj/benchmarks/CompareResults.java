@@ -0,0 +1,228 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the results of two benchmark runs, as written by JMH with the {@code -rf csv} option,
+ * typically run on two builds of the server.
+ * <p>
+ * For each benchmark present in both runs, the tool prints the scores and their relative change,
+ * where a positive change is always an improvement, whatever the benchmark mode. A change is
+ * reported as a regression when the score got worse by more than the threshold and the difference
+ * exceeds the sum of the error margins of both scores. The tool exits with status 1 when any
+ * regression is found, so that it can be used to gate a build.
+ * <p>
+ * Usage: {@code CompareResults <baseline.csv> <candidate.csv> [threshold-percent]}, the threshold
+ * defaulting to 5 percent.
+ */
+public final class CompareResults
+{
+  private static final double DEFAULT_THRESHOLD_PERCENT = 5;
+
+  /** A benchmark score, with its error margin. */
+  private static final class Score
+  {
+    private final String mode;
+    private final double value;
+    private final double error;
+    private final String unit;
+
+    private Score(String mode, double value, double error, String unit)
+    {
+      this.mode = mode;
+      this.value = value;
+      this.error = Double.isNaN(error) ? 0 : error;
+      this.unit = unit;
+    }
+
+    /** Throughput scores are better when higher, the scores of the other modes are times. */
+    private boolean higherIsBetter()
+    {
+      return "thrpt".equals(mode);
+    }
+  }
+
+  private CompareResults()
+  {
+    // Command line tool.
+  }
+
+  /**
+   * Compares two result files.
+   *
+   * @param args
+   *          the baseline results file, the candidate results file and the optional threshold
+   * @throws IOException
+   *           if a results file cannot be read
+   */
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2 || args.length > 3)
+    {
+      System.err.println("Usage: CompareResults <baseline.csv> <candidate.csv> [threshold-percent]");
+      System.exit(2);
+    }
+    final Map<String, Score> baseline = readResults(args[0]);
+    final Map<String, Score> candidate = readResults(args[1]);
+    final double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+    int nbRegressions = 0;
+    System.out.println(
+        String.format("%-90s %14s %14s %9s  %s", "Benchmark", "Baseline", "Candidate", "Change", "Unit"));
+    for (Map.Entry<String, Score> result : candidate.entrySet())
+    {
+      final Score before = baseline.get(result.getKey());
+      final Score after = result.getValue();
+      if (before == null || !before.unit.equals(after.unit))
+      {
+        System.out.println(String.format("%-90s %14s %14.3f %9s  %s", result.getKey(), "-", after.value, "new",
+            after.unit));
+        continue;
+      }
+
+      final double improvement = after.higherIsBetter() ? after.value - before.value : before.value - after.value;
+      final double changePercent = 100 * improvement / before.value;
+      final boolean regression = changePercent < -threshold && -improvement > before.error + after.error;
+      if (regression)
+      {
+        nbRegressions++;
+      }
+      System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%  %s%s", result.getKey(), before.value,
+          after.value, changePercent, after.unit, regression ? "  REGRESSION" : ""));
+    }
+
+    System.out.println();
+    System.out.println(nbRegressions + " regression(s) beyond " + threshold + "%");
+    System.exit(nbRegressions == 0 ? 0 : 1);
+  }
+
+  /** Reads the scores of a JMH CSV results file, by benchmark name followed by its parameters. */
+  private static Map<String, Score> readResults(String path) throws IOException
+  {
+    final Map<String, Score> results = new LinkedHashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8))
+    {
+      final List<String> header = parseLine(reader.readLine());
+      final int benchmarkIndex = header.indexOf("Benchmark");
+      final int modeIndex = header.indexOf("Mode");
+      final int scoreIndex = header.indexOf("Score");
+      final int unitIndex = header.indexOf("Unit");
+      final int errorIndex = findErrorColumn(header);
+      if (benchmarkIndex < 0 || modeIndex < 0 || scoreIndex < 0 || unitIndex < 0)
+      {
+        throw new IOException(path + " is not a JMH CSV results file");
+      }
+
+      for (String line = reader.readLine(); line != null; line = reader.readLine())
+      {
+        if (line.trim().isEmpty())
+        {
+          continue;
+        }
+        final List<String> fields = parseLine(line);
+        final StringBuilder key = new StringBuilder(shortName(fields.get(benchmarkIndex)));
+        for (int i = 0; i < header.size(); i++)
+        {
+          if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty())
+          {
+            key.append(' ').append(header.get(i).substring("Param: ".length())).append('=').append(fields.get(i));
+          }
+        }
+        final double error = errorIndex >= 0 ? Double.parseDouble(fields.get(errorIndex)) : 0;
+        results.put(key.toString(), new Score(fields.get(modeIndex), Double.parseDouble(fields.get(scoreIndex)),
+            error, fields.get(unitIndex)));
+      }
+    }
+    return results;
+  }
+
+  private static int findErrorColumn(List<String> header)
+  {
+    for (int i = 0; i < header.size(); i++)
+    {
+      if (header.get(i).startsWith("Score Error"))
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Removes the package name of the benchmarks, which only makes the output wider. */
+  private static String shortName(String benchmark)
+  {
+    final int methodIndex = benchmark.lastIndexOf('.');
+    final int classIndex = methodIndex > 0 ? benchmark.lastIndexOf('.', methodIndex - 1) : -1;
+    return benchmark.substring(classIndex + 1);
+  }
+
+  /** Splits a CSV line, where fields may be quoted and quotes are escaped by doubling them. */
+  private static List<String> parseLine(String line) throws IOException
+  {
+    if (line == null)
+    {
+      throw new IOException("Empty results file");
+    }
+    final List<String> fields = new ArrayList<>();
+    final StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++)
+    {
+      final char c = line.charAt(i);
+      if (quoted)
+      {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"')
+        {
+          field.append('"');
+          i++;
+        }
+        else if (c == '"')
+        {
+          quoted = false;
+        }
+        else
+        {
+          field.append(c);
+        }
+      }
+      else if (c == '"')
+      {
+        quoted = true;
+      }
+      else if (c == ',')
+      {
+        fields.add(field.toString());
+        field.setLength(0);
+      }
+      else
+      {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
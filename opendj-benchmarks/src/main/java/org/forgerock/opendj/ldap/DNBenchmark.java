@@ -0,0 +1,112 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.ldap;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures the parsing, normalization and comparison of DNs. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DNBenchmark
+{
+  private static final int NB_DNS = 1024;
+
+  private String[] dnStrings;
+  private DN[] dns;
+  private int next;
+
+  /**
+   * Generates the DNs, and their string representations.
+   *
+   * @throws IOException
+   *           if the DNs cannot be generated
+   */
+  @Setup
+  public void setUp() throws IOException
+  {
+    final List<DN> generated = BenchmarkData.generateDNs(NB_DNS);
+    dns = generated.toArray(new DN[NB_DNS]);
+    dnStrings = new String[NB_DNS];
+    for (int i = 0; i < NB_DNS; i++)
+    {
+      // Mixed case and spaces make the DNs go through the full normalization
+      dnStrings[i] = dns[i].toString().toUpperCase().replace(",", ", ");
+    }
+  }
+
+  private int nextIndex()
+  {
+    next = (next + 1) & (NB_DNS - 1);
+    return next;
+  }
+
+  /**
+   * Parses a DN, as done for every DN received from the clients. There are more DNs than the
+   * thread local cache of parsed DNs can hold, so only their common parent DNs hit the cache.
+   *
+   * @return the parsed DN
+   */
+  @Benchmark
+  public DN valueOf()
+  {
+    return DN.valueOf(dnStrings[nextIndex()]);
+  }
+
+  /**
+   * Parses a DN then computes its normalized byte string, as done to look up an entry.
+   *
+   * @return the normalized DN
+   */
+  @Benchmark
+  public ByteString valueOfAndNormalize()
+  {
+    return DN.valueOf(dnStrings[nextIndex()]).toNormalizedByteString();
+  }
+
+  /**
+   * Compares two DNs, then checks whether the first one is subordinate to the parent of the other.
+   *
+   * @param blackhole
+   *          consumes the results
+   */
+  @Benchmark
+  public void compareAndScope(Blackhole blackhole)
+  {
+    final DN dn1 = dns[nextIndex()];
+    final DN dn2 = dns[nextIndex()];
+    blackhole.consume(dn1.compareTo(dn2));
+    blackhole.consume(dn1.isSubordinateOrEqualTo(dn2.parent()));
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.opends.server.authorization.dseecompat.Aci.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DereferenceAliasesPolicy;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.SearchOperationBasis;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.types.AuthenticationInfo;
+import org.opends.server.types.Control;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Operation;
+import org.opends.server.types.SearchFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the evaluation of access controls by {@link AciHandler}, which is performed for every
+ * entry returned by a search.
+ * <p>
+ * The ACIs are the global ACIs of the default server configuration, plus ACIs with user DN
+ * patterns, target filters and deny rules on the suffix and the people branch. Group based bind
+ * rules are not used, as they need a running group manager.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AciHandlerBenchmark
+{
+  private static final int NB_ENTRIES = 256;
+
+  private static final String[] GLOBAL_ACIS = {
+    "(targetattr!=\"userPassword||authPassword||debugsearchindex||changes||changeNumber||changeType||changeTime"
+        + "||targetDN||newRDN||newSuperior||deleteOldRDN\")(version 3.0; acl \"Anonymous read access\";"
+        + " allow (read,search,compare) userdn=\"ldap:///anyone\";)",
+    "(targetattr=\"audio||authPassword||description||displayName||givenName||homePhone||homePostalAddress"
+        + "||initials||jpegPhoto||labeledURI||mobile||pager||postalAddress||postalCode||preferredLanguage"
+        + "||telephoneNumber||userPassword\")(version 3.0; acl \"Self entry modification\";"
+        + " allow (write) userdn=\"ldap:///self\";)",
+    "(targetattr=\"userPassword||authPassword\")(version 3.0; acl \"Self entry read\";"
+        + " allow (read,search,compare) userdn=\"ldap:///self\";)",
+    "(target=\"ldap:///cn=schema\")(targetscope=\"base\")(targetattr=\"objectClass||attributeTypes"
+        + "||ldapSyntaxes||matchingRules||objectClasses\")"
+        + "(version 3.0; acl \"User-Visible Schema Operational Attributes\";"
+        + " allow (read,search,compare) userdn=\"ldap:///anyone\";)",
+    "(targetattr=\"createTimestamp||creatorsName||modifiersName||modifyTimestamp||entryDN||entryUUID"
+        + "||subschemaSubentry||etag||hasSubordinates||numSubordinates||isMemberOf\")(version 3.0;"
+        + " acl \"User-Visible Operational Attributes\"; allow (read,search,compare) userdn=\"ldap:///anyone\";)",
+  };
+
+  private static final String[] SUFFIX_ACIS = {
+    "(targetattr=\"homePhone||pager\")(version 3.0; acl \"Hide private phones\";"
+        + " deny (read,search) userdn!=\"ldap:///self\";)",
+    "(targetattr=\"mail||telephoneNumber\")(version 3.0; acl \"Operators read\";"
+        + " allow (read,search,compare) userdn=\"ldap:///uid=user.0,ou=People," + BenchmarkData.SUFFIX + "\";)",
+  };
+
+  private static final String[] PEOPLE_ACIS = {
+    "(targetfilter=\"(objectClass=inetOrgPerson)\")(targetattr=\"cn||sn||uid||mail\")(version 3.0;"
+        + " acl \"People read\"; allow (read,search) userdn=\"ldap:///uid=*,ou=People," + BenchmarkData.SUFFIX + "\";)",
+    "(targetattr=\"description\")(version 3.0; acl \"Self description\"; allow (write) userdn=\"ldap:///self\";)",
+  };
+
+  private AciHandler aciHandler;
+  private AttributeType mailType;
+  private Operation operation;
+  private Entry[] entries;
+  private int next;
+
+  /**
+   * Decodes the ACIs and authenticates the client as one of the generated users.
+   *
+   * @throws Exception
+   *           if the entries cannot be generated or the ACIs cannot be decoded
+   */
+  @Setup
+  public void setUp() throws Exception
+  {
+    final List<Entry> generated = BenchmarkData.generateEntries(NB_ENTRIES);
+    entries = generated.toArray(new Entry[NB_ENTRIES]);
+
+    final AciList aciList = new AciList(DN.valueOf("cn=Access Control Handler,cn=config"));
+    final DN suffixDN = DN.valueOf(BenchmarkData.SUFFIX);
+    aciList.addAci(DN.rootDN(), decode(DN.rootDN(), GLOBAL_ACIS));
+    aciList.addAci(suffixDN, decode(suffixDN, SUFFIX_ACIS));
+    aciList.addAci(suffixDN.child("ou", "People"), decode(suffixDN.child("ou", "People"), PEOPLE_ACIS));
+    aciHandler = new AciHandler(aciList);
+    mailType = DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("mail");
+
+    final InternalClientConnection connection =
+        new InternalClientConnection(new AuthenticationInfo(entries[1], false));
+    operation = new SearchOperationBasis(connection, InternalClientConnection.nextOperationID(),
+        InternalClientConnection.nextMessageID(), new ArrayList<Control>(),
+        suffixDN, SearchScope.WHOLE_SUBTREE, DereferenceAliasesPolicy.NEVER, 0, 0, false,
+        SearchFilter.objectClassPresent(), null);
+  }
+
+  private static SortedSet<Aci> decode(DN dn, String... acis) throws AciException
+  {
+    final SortedSet<Aci> decoded = new TreeSet<>();
+    for (String aci : acis)
+    {
+      decoded.add(Aci.decode(ByteString.valueOfUtf8(aci), dn));
+    }
+    return decoded;
+  }
+
+  private Entry nextEntry()
+  {
+    next = (next + 1) & (NB_ENTRIES - 1);
+    return entries[next];
+  }
+
+  /**
+   * Checks whether the client can read the mail attribute of an entry.
+   *
+   * @return whether access is allowed
+   */
+  @Benchmark
+  public boolean accessAllowedAttribute()
+  {
+    final AciContainer container = new AciLDAPOperationContainer(operation, ACI_READ, nextEntry());
+    container.setCurrentAttributeType(mailType);
+    return aciHandler.accessAllowed(container);
+  }
+
+  /**
+   * Checks whether the client can see an entry, as done before returning a search result entry.
+   *
+   * @return whether access is allowed
+   */
+  @Benchmark
+  public boolean accessAllowedEntry()
+  {
+    final AciContainer container = new AciLDAPOperationContainer(operation, ACI_SEARCH | ACI_READ, nextEntry());
+    return aciHandler.accessAllowedEntry(container);
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the operations on entry ID sets performed while evaluating indexed searches: decoding
+ * the index values, intersecting and merging the sets, and encoding them back when indexes are
+ * updated.
+ * <p>
+ * The sets are drawn from a fixed random seed. The first set contains about half of the IDs of
+ * the ID range, the second one about a tenth, as for the candidates of an AND filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntryIDSetBenchmark
+{
+  /** The number of entry IDs in the ID range the sets are drawn from. */
+  @Param({ "1000", "100000" })
+  public int idRange;
+
+  /** Whether the sets are stored as sorted arrays or as compressed bitmaps. */
+  @Param({ "false", "true" })
+  public boolean bitmap;
+
+  private long[] ids1;
+  private long[] ids2;
+  private EntryIDSet set1;
+  private EntryIDSet set2;
+  private ByteString encodedV2;
+  private ByteString encodedV4;
+  private EntryID[] probes;
+  private int next;
+
+  /** Draws the sets of IDs. */
+  @Setup
+  public void setUp()
+  {
+    final Random random = new Random(1);
+    ids1 = randomIDs(random, 2);
+    ids2 = randomIDs(random, 10);
+    set1 = newSet(ids1);
+    set2 = newSet(ids2);
+    encodedV2 = EntryIDSet.CODEC_V2.encode(set1);
+    encodedV4 = EntryIDSet.CODEC_V4.encode(set1);
+    probes = new EntryID[1024];
+    for (int i = 0; i < probes.length; i++)
+    {
+      probes[i] = new EntryID(1 + random.nextInt(idRange));
+    }
+  }
+
+  private long[] randomIDs(Random random, int oneIn)
+  {
+    final long[] ids = new long[idRange];
+    int size = 0;
+    for (long id = 1; id <= idRange; id++)
+    {
+      if (random.nextInt(oneIn) == 0)
+      {
+        ids[size++] = id;
+      }
+    }
+    return Arrays.copyOf(ids, size);
+  }
+
+  private EntryIDSet newSet(long[] ids)
+  {
+    return bitmap ? EntryIDSet.newBitmapSet(ids) : EntryIDSet.newDefinedSet(ids.clone());
+  }
+
+  /**
+   * Copies the first set, which is the baseline cost of the benchmarks updating a set.
+   *
+   * @return the copy of the set
+   */
+  @Benchmark
+  public EntryIDSet copy()
+  {
+    return newSet(ids1);
+  }
+
+  /**
+   * Intersects a copy of the first set with the second set, as done for AND filters.
+   *
+   * @return the intersection
+   */
+  @Benchmark
+  public EntryIDSet retainAll()
+  {
+    final EntryIDSet intersection = newSet(ids1);
+    intersection.retainAll(set2);
+    return intersection;
+  }
+
+  /**
+   * Merges the two sets, as done for OR filters and range index lookups.
+   *
+   * @return the union
+   */
+  @Benchmark
+  public EntryIDSet union()
+  {
+    return EntryIDSet.newSetFromUnion(Arrays.asList(set1, set2));
+  }
+
+  /**
+   * Checks whether an ID belongs to the first set, as done when checking the candidates.
+   *
+   * @return whether the ID belongs to the set
+   */
+  @Benchmark
+  public boolean contains()
+  {
+    next = (next + 1) & (probes.length - 1);
+    return set1.contains(probes[next]);
+  }
+
+  /**
+   * Encodes the first set with the sorted array codec.
+   *
+   * @return the encoded set
+   */
+  @Benchmark
+  public ByteString encodeV2()
+  {
+    return EntryIDSet.CODEC_V2.encode(set1);
+  }
+
+  /**
+   * Decodes the first set encoded with the sorted array codec.
+   *
+   * @return the decoded set
+   */
+  @Benchmark
+  public EntryIDSet decodeV2()
+  {
+    return EntryIDSet.CODEC_V2.decode(ByteString.empty(), encodedV2);
+  }
+
+  /**
+   * Encodes the first set with the compressed bitmap codec.
+   *
+   * @return the encoded set
+   */
+  @Benchmark
+  public ByteString encodeV4()
+  {
+    return EntryIDSet.CODEC_V4.encode(set1);
+  }
+
+  /**
+   * Decodes the first set encoded with the compressed bitmap codec.
+   *
+   * @return the decoded set
+   */
+  @Benchmark
+  public EntryIDSet decodeV4()
+  {
+    return EntryIDSet.CODEC_V4.decode(ByteString.empty(), encodedV4);
+  }
+}
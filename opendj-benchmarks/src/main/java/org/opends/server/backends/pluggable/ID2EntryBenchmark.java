@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of entries to their id2entry representation and their decoding, which are
+ * performed for every entry written to or read from a pluggable backend.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ID2EntryBenchmark
+{
+  private static final int NB_ENTRIES = 1024;
+
+  /** Whether the entries are compressed, as with the entries-compressed backend property. */
+  @Param({ "false", "true" })
+  public boolean compressed;
+
+  private ID2Entry id2entry;
+  private DataConfig dataConfig;
+  private Entry[] entries;
+  private ByteString[] encodedEntries;
+  private int next;
+
+  /**
+   * Generates and encodes the entries.
+   *
+   * @throws Exception
+   *           if the entries cannot be generated or encoded
+   */
+  @Setup
+  public void setUp() throws Exception
+  {
+    dataConfig = new DataConfig.Builder().compress(compressed).build();
+    id2entry = new ID2Entry(new TreeName(BenchmarkData.SUFFIX, "id2entry"), dataConfig);
+
+    final List<Entry> generated = BenchmarkData.generateEntries(NB_ENTRIES);
+    entries = generated.toArray(new Entry[NB_ENTRIES]);
+    encodedEntries = new ByteString[NB_ENTRIES];
+    for (int i = 0; i < NB_ENTRIES; i++)
+    {
+      encodedEntries[i] = id2entry.entryToDatabase(entries[i], dataConfig);
+    }
+  }
+
+  private int nextIndex()
+  {
+    next = (next + 1) & (NB_ENTRIES - 1);
+    return next;
+  }
+
+  /**
+   * Encodes an entry, as done when adding or modifying an entry.
+   *
+   * @return the encoded entry
+   * @throws Exception
+   *           if the entry cannot be encoded
+   */
+  @Benchmark
+  public ByteString encode() throws Exception
+  {
+    return id2entry.entryToDatabase(entries[nextIndex()], dataConfig);
+  }
+
+  /**
+   * Decodes an entry, as done when reading an entry or evaluating a search.
+   *
+   * @return the decoded entry
+   * @throws Exception
+   *           if the entry cannot be decoded
+   */
+  @Benchmark
+  public Entry decode() throws Exception
+  {
+    return id2entry.entryFromDatabase(encodedEntries[nextIndex()], null);
+  }
+}
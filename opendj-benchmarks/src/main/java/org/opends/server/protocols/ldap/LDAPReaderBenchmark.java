@@ -0,0 +1,144 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DereferenceAliasesPolicy;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDAPException;
+import org.opends.server.types.RawFilter;
+import org.opends.server.types.SearchResultEntry;
+import org.opends.server.util.CollectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the ASN.1 decoding of LDAP messages by {@link LDAPReader}, which is performed for every
+ * request received by the server, and the encoding of the search result entries sent back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LDAPReaderBenchmark
+{
+  private static final int NB_ENTRIES = 256;
+
+  private ByteString searchRequest;
+  private ByteString[] searchResultEntries;
+  private LDAPMessage[] searchResultEntryMessages;
+  private final ByteStringBuilder buffer = new ByteStringBuilder();
+  private final ASN1Writer writer = ASN1.getWriter(buffer);
+  private int next;
+
+  /**
+   * Generates the entries and encodes the messages.
+   *
+   * @throws Exception
+   *           if the entries cannot be generated or the messages cannot be encoded
+   */
+  @Setup
+  public void setUp() throws Exception
+  {
+    final SearchRequestProtocolOp searchOp = new SearchRequestProtocolOp(
+        ByteString.valueOfUtf8("ou=People," + BenchmarkData.SUFFIX), SearchScope.WHOLE_SUBTREE,
+        DereferenceAliasesPolicy.NEVER, 0, 0, false,
+        RawFilter.create("(&(objectClass=inetOrgPerson)(uid=user.1234))"),
+        CollectionUtils.newLinkedHashSet("cn", "sn", "mail", "telephoneNumber"));
+    searchRequest = encode(new LDAPMessage(2, searchOp));
+
+    final List<Entry> entries = BenchmarkData.generateEntries(NB_ENTRIES);
+    searchResultEntries = new ByteString[NB_ENTRIES];
+    searchResultEntryMessages = new LDAPMessage[NB_ENTRIES];
+    for (int i = 0; i < NB_ENTRIES; i++)
+    {
+      searchResultEntryMessages[i] =
+          new LDAPMessage(2, new SearchResultEntryProtocolOp(new SearchResultEntry(entries.get(i))));
+      searchResultEntries[i] = encode(searchResultEntryMessages[i]);
+    }
+  }
+
+  private ByteString encode(LDAPMessage message) throws IOException
+  {
+    buffer.clear();
+    message.write(writer);
+    return buffer.toByteString();
+  }
+
+  private int nextIndex()
+  {
+    next = (next + 1) & (NB_ENTRIES - 1);
+    return next;
+  }
+
+  /**
+   * Decodes a search request, as received from the clients.
+   *
+   * @return the decoded message
+   * @throws LDAPException
+   *           if the message cannot be decoded
+   */
+  @Benchmark
+  public LDAPMessage readSearchRequest() throws LDAPException
+  {
+    return LDAPReader.readMessage(ASN1.getReader(searchRequest));
+  }
+
+  /**
+   * Decodes a search result entry, as received by the replication and proxy components.
+   *
+   * @return the decoded message
+   * @throws LDAPException
+   *           if the message cannot be decoded
+   */
+  @Benchmark
+  public LDAPMessage readSearchResultEntry() throws LDAPException
+  {
+    return LDAPReader.readMessage(ASN1.getReader(searchResultEntries[nextIndex()]));
+  }
+
+  /**
+   * Encodes a search result entry, as sent to the clients.
+   *
+   * @return the encoded message
+   * @throws IOException
+   *           if the message cannot be encoded
+   */
+  @Benchmark
+  public ByteString writeSearchResultEntry() throws IOException
+  {
+    return encode(searchResultEntryMessages[nextIndex()]);
+  }
+}
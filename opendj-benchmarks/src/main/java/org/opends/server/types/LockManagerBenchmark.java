@@ -0,0 +1,156 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.LockManager.DNLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the acquisition and release of entry locks, which is performed at least once for every
+ * operation. The locks are taken on a fixed set of DNs by several threads, so that the lock table
+ * is under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockManagerBenchmark
+{
+  private static final int NB_DNS = 4096;
+
+  /** The lock table implementation. */
+  @Param({ "BUCKETS", "STRIPED" })
+  public LockManager.Implementation implementation;
+
+  private LockManager lockManager;
+  private DN[] dns;
+
+  /** The DN locked next by each thread, which threads walk through from different positions. */
+  @State(Scope.Thread)
+  public static class Cursor
+  {
+    private int next = (int) (Thread.currentThread().getId() * 7919);
+
+    DN next(DN[] dns)
+    {
+      next = (next + 1) & (NB_DNS - 1);
+      return dns[next];
+    }
+  }
+
+  /**
+   * Creates the lock manager and generates the DNs to lock.
+   *
+   * @throws IOException
+   *           if the DNs cannot be generated
+   */
+  @Setup
+  public void setUp() throws IOException
+  {
+    lockManager = new LockManager(implementation);
+    final List<DN> generated = BenchmarkData.generateDNs(NB_DNS);
+    dns = generated.toArray(new DN[NB_DNS]);
+  }
+
+  /**
+   * Locks an entry for reading then releases the lock, as done for searches and compares.
+   *
+   * @param cursor
+   *          the DN to lock
+   * @return whether the lock was acquired
+   */
+  @Benchmark
+  @Threads(4)
+  public boolean readLock(Cursor cursor)
+  {
+    return lockAndUnlock(lockManager.tryReadLockEntry(cursor.next(dns)));
+  }
+
+  /**
+   * Locks an entry for writing then releases the lock, as done for updates.
+   *
+   * @param cursor
+   *          the DN to lock
+   * @return whether the lock was acquired
+   */
+  @Benchmark
+  @Threads(4)
+  public boolean writeLock(Cursor cursor)
+  {
+    return lockAndUnlock(lockManager.tryWriteLockEntry(cursor.next(dns)));
+  }
+
+  /**
+   * Locks entries for reading, concurrently with {@link #mixedWrite(Cursor)}.
+   *
+   * @param cursor
+   *          the DN to lock
+   * @return whether the lock was acquired
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public boolean mixedRead(Cursor cursor)
+  {
+    return lockAndUnlock(lockManager.tryReadLockEntry(cursor.next(dns)));
+  }
+
+  /**
+   * Locks entries for writing, concurrently with {@link #mixedRead(Cursor)}.
+   *
+   * @param cursor
+   *          the DN to lock
+   * @return whether the lock was acquired
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public boolean mixedWrite(Cursor cursor)
+  {
+    return lockAndUnlock(lockManager.tryWriteLockEntry(cursor.next(dns)));
+  }
+
+  private static boolean lockAndUnlock(DNLock lock)
+  {
+    if (lock == null)
+    {
+      return false;
+    }
+    lock.unlock();
+    return true;
+  }
+}
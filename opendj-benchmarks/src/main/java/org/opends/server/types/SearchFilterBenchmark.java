@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the parsing of search filters and their evaluation against entries, which is performed
+ * for every candidate entry of a search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchFilterBenchmark
+{
+  private static final int NB_ENTRIES = 1024;
+
+  /** The evaluated filter, covering the most common filter types. */
+  @Param({
+    "(objectClass=*)",
+    "(uid=user.500)",
+    "(&(objectClass=inetOrgPerson)(mail=user.5*))",
+    "(|(sn=Smith)(givenName=John)(cn=*Doe))",
+    "(&(employeeNumber>=100)(employeeNumber<=200))",
+    "(!(l=Austin))" })
+  public String filterString;
+
+  private SearchFilter filter;
+  private Entry[] entries;
+  private int next;
+
+  /**
+   * Generates the entries and parses the filter.
+   *
+   * @throws Exception
+   *           if the entries cannot be generated or the filter cannot be parsed
+   */
+  @Setup
+  public void setUp() throws Exception
+  {
+    final List<Entry> generated = BenchmarkData.generateEntries(NB_ENTRIES);
+    entries = generated.toArray(new Entry[NB_ENTRIES]);
+    filter = SearchFilter.createFilterFromString(filterString);
+  }
+
+  /**
+   * Parses the filter, as done for every search request.
+   *
+   * @return the parsed filter
+   * @throws DirectoryException
+   *           if the filter cannot be parsed
+   */
+  @Benchmark
+  public SearchFilter parse() throws DirectoryException
+  {
+    return SearchFilter.createFilterFromString(filterString);
+  }
+
+  /**
+   * Evaluates the filter against an entry, as done for every candidate entry of a search.
+   *
+   * @return whether the entry matches the filter
+   * @throws DirectoryException
+   *           if the filter cannot be evaluated
+   */
+  @Benchmark
+  public boolean matchesEntry() throws DirectoryException
+  {
+    next = (next + 1) & (NB_ENTRIES - 1);
+    return filter.matchesEntry(entries[next]);
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.reactive;
 
@@ -275,6 +276,9 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
         if (currentConfig.isAllowLDAPV2() != config.isAllowLDAPV2() && config.isAllowLDAPV2()) {
             statTracker.clearStatistics();
         }
+        if (currentConfig.getLatencyHistogramResetInterval() != config.getLatencyHistogramResetInterval()) {
+            statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
+        }
 
         // Apply the changes.
         currentConfig = config;
@@ -540,6 +544,7 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
 
         // Create and register monitors.
         statTracker = new LDAPStatistics(handlerName + " Statistics");
+        statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
         DirectoryServer.registerMonitorProvider(statTracker);
 
         connMonitor = new ClientConnectionMonitorProvider(this);
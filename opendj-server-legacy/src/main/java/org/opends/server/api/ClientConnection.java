@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -47,6 +48,7 @@ import org.opends.server.types.CancelResult;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.IntermediateResponse;
 import org.opends.server.types.Operation;
@@ -471,6 +473,49 @@ public abstract class ClientConnection
 
 
 
+  /**
+   * Indicates whether this client connection can send entries straight
+   * from their encoding with
+   * {@link #sendEncodedSearchEntry(SearchOperation, EncodedEntry)}.
+   *
+   * @return  {@code true} if this client connection can send encoded
+   *          entries, or {@code false} if not.
+   */
+  public boolean canSendEncodedSearchEntries()
+  {
+    return false;
+  }
+
+
+
+  /**
+   * Sends the objectClass and the real user attributes of the provided
+   * encoded entry to the client, without decoding them. This is only
+   * called when {@link #canSendEncodedSearchEntries()} returns
+   * {@code true}. The default implementation decodes the entry and
+   * sends its objectClass and user attributes with
+   * {@link #sendSearchEntry(SearchOperation, SearchResultEntry)}.
+   *
+   * @param  searchOperation  The search operation with which the
+   *                          entry is associated.
+   * @param  encodedEntry     The encoded entry to be sent to the
+   *                          client.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting
+   *                              to send the entry to the client and
+   *                              the search should be terminated.
+   */
+  public void sendEncodedSearchEntry(SearchOperation searchOperation,
+                                     EncodedEntry encodedEntry)
+         throws DirectoryException
+  {
+    final Entry entry = encodedEntry.decodeEntry();
+    sendSearchEntry(searchOperation, new SearchResultEntry(
+        entry.filterEntry(Collections.<String> emptySet(), false, false, false)));
+  }
+
+
+
   /**
    * Sends the provided search result reference to the client.
    *
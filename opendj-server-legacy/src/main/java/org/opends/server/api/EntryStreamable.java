@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDIFImportResult;
+
+/**
+ * Represents a backend whose entries can be read by ranges of entry IDs, and
+ * imported from several streams of entries in parallel.
+ * <p>
+ * This is used by replication to initialize a replica without going through
+ * LDIF: the exporter reads each range concurrently with
+ * {@link #readEntries(DN, long, long, EntryHandler)}, and the importer imports
+ * all the received streams at once with
+ * {@link #importEntries(DN, List, ServerContext)}.
+ * <p>
+ * Entry IDs are only meaningful to the backend which assigned them: the
+ * importer assigns its own IDs to the imported entries.
+ */
+public interface EntryStreamable
+{
+  /** Receives the entries read from a range of entry IDs, in increasing entry ID order. */
+  interface EntryHandler
+  {
+    /**
+     * Handles an entry read from the backend.
+     *
+     * @param entryID
+     *          the ID of the entry in the backend
+     * @param entry
+     *          the entry
+     * @return {@code true} to continue reading the range, {@code false} to stop
+     * @throws DirectoryException
+     *           If the entry could not be handled. Reading the range stops.
+     */
+    boolean handleEntry(long entryID, Entry entry) throws DirectoryException;
+  }
+
+  /** A stream of entries to import. */
+  interface EntryStream extends Closeable
+  {
+    /**
+     * Reads the next entry of this stream.
+     *
+     * @return the next entry, or {@code null} when the end of the stream is reached
+     * @throws IOException
+     *           If the entry could not be read
+     */
+    Entry readEntry() throws IOException;
+  }
+
+  /**
+   * Indicates whether the entries of the provided base DN can be read by range
+   * and imported from streams. This requires the base DN to be one of the base
+   * DNs of this backend, and the backend to be online.
+   *
+   * @param baseDN
+   *          the base DN
+   * @return {@code true} if the entries of the base DN can be read by range and imported from streams
+   */
+  boolean isEntryStreamingSupported(DN baseDN);
+
+  /**
+   * Splits the entry IDs used by the entries of the provided base DN into
+   * contiguous ranges of similar widths. The first range starts at the lowest
+   * possible entry ID and the last one is unbounded, so that the ranges cover
+   * the entries added while they are read.
+   *
+   * @param baseDN
+   *          the base DN
+   * @param maxRanges
+   *          the maximum number of ranges to return
+   * @return the lowest (inclusive) entry ID of each range, in increasing order.
+   *         Each range ends where the next one starts, and the last one ends at
+   *         {@link Long#MAX_VALUE}.
+   * @throws DirectoryException
+   *           If the entry IDs could not be read
+   */
+  long[] getEntryIDRanges(DN baseDN, int maxRanges) throws DirectoryException;
+
+  /**
+   * Reads the entries of the provided base DN whose entry ID is within the provided range.
+   *
+   * @param baseDN
+   *          the base DN
+   * @param lowestID
+   *          the lowest (inclusive) entry ID of the range
+   * @param highestID
+   *          the highest (exclusive) entry ID of the range
+   * @param handler
+   *          the handler receiving the entries, in increasing entry ID order
+   * @throws DirectoryException
+   *           If the entries could not be read, or if the handler failed
+   */
+  void readEntries(DN baseDN, long lowestID, long highestID, EntryHandler handler) throws DirectoryException;
+
+  /**
+   * Replaces the entries of the provided base DN with the entries of the
+   * provided streams. The streams are read concurrently, and the backend must
+   * be offline, as for {@link LocalBackend#importLDIF}.
+   *
+   * @param baseDN
+   *          the base DN whose entries are replaced
+   * @param streams
+   *          the streams of entries to import. Their entries must be within the base DN.
+   * @param serverContext
+   *          the server context
+   * @return information about the result of the import processing
+   * @throws DirectoryException
+   *           If a problem occurs while performing the import
+   */
+  LDIFImportResult importEntries(DN baseDN, List<? extends EntryStream> streams, ServerContext serverContext)
+      throws DirectoryException;
+}
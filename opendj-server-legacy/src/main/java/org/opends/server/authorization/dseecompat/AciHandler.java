@@ -14,6 +14,7 @@
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -155,6 +156,19 @@ public final class AciHandler extends
     // the intializeAccessControlHandler method.
   }
 
+  /**
+   * Creates a DSEE-compatible access control handler evaluating the provided
+   * ACIs, without registering it with the server. This allows to evaluate
+   * access controls outside of a running server, for example to measure them.
+   *
+   * @param aciList
+   *          The ACIs to evaluate.
+   */
+  AciHandler(AciList aciList)
+  {
+    this.aciList = aciList;
+  }
+
   @Override
   public void filterEntry(Operation operation,
       SearchResultEntry unfilteredEntry, SearchResultEntry filteredEntry)
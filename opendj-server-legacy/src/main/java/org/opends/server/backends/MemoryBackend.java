@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends;
 
@@ -21,23 +22,32 @@ import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationAddListener;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.config.server.ConfigurationDeleteListener;
 import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.server.config.server.BackendIndexCfg;
 import org.forgerock.opendj.server.config.server.MemoryBackendCfg;
+import org.forgerock.opendj.server.config.server.MemoryBackendIndexCfg;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.controls.SubtreeDeleteControl;
 import org.opends.server.core.AddOperation;
@@ -52,6 +62,7 @@ import org.opends.server.types.BackupDirectory;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
+import org.opends.server.types.ExistingFileBehavior;
 import org.opends.server.types.IndexType;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.LDIFExportConfig;
@@ -65,31 +76,32 @@ import org.opends.server.util.LDIFReader;
 import org.opends.server.util.LDIFWriter;
 
 /**
- * This class defines a very simple backend that stores its information in
- * memory.  This is primarily intended for testing purposes with small data
- * sets, as it does not have any indexing mechanism such as would be required to
- * achieve high performance with large data sets.  It is also heavily
- * synchronized for simplicity at the expense of performance, rather than
- * providing a more fine-grained locking mechanism.
+ * This class defines a backend that stores its information in memory, which
+ * is intended for small and frequently read data sets, as well as for testing
+ * purposes.
  * <BR><BR>
- * Entries stored in this backend are held in a
- * <CODE>LinkedHashMap&lt;DN,Entry&gt;</CODE> object, which ensures that the
- * order in which you iterate over the entries is the same as the order in which
- * they were inserted.  By combining this with the constraint that no entry can
- * be added before its parent, you can ensure that iterating through the entries
- * will always process the parent entries before their children, which is
- * important for both search result processing and LDIF exports.
+ * The contents of the backend are held in an immutable
+ * {@link MemoryBackendSnapshot}.  Read operations, including searches, work on
+ * the current snapshot without any locking, while update operations are
+ * serialized and replace the current snapshot with an updated copy.  This makes
+ * reads very cheap and consistent, at the expense of copying the entry map on
+ * each update.
  * <BR><BR>
- * As mentioned above, no data indexing is performed, so all non-baseObject
- * searches require iteration through the entire data set.  If this is to become
- * a more general-purpose backend, then additional
- * <CODE>HashMap&lt;ByteString,Set&lt;DN&gt;&gt;</CODE> objects could be used
- * to provide that capability.
+ * Entries stored in this backend are held in insertion order.  By combining
+ * this with the constraint that no entry can be added before its parent, you
+ * can ensure that iterating through the entries will always process the parent
+ * entries before their children, which is important for both search result
+ * processing and LDIF exports.
  * <BR><BR>
- * There is actually one index that does get maintained within this backend,
- * which is a mapping between the DN of an entry and the DNs of any immediate
- * children of that entry.  This is needed to efficiently determine whether an
- * entry has any children (which must not be the case for delete operations).
+ * Searches use the attribute indexes defined with the backend index
+ * configuration entries below the backend configuration entry, and fall back
+ * to iterating through the entire data set when the indexes cannot help.  The
+ * mapping between the DN of an entry and the DNs of its immediate children is
+ * always maintained, which is needed to efficiently determine whether an entry
+ * has any children (which must not be the case for delete operations).
+ * <BR><BR>
+ * If an LDIF file is configured, the contents of the backend are read from
+ * this file when the backend is opened and written to it after each update.
  */
 public class MemoryBackend
        extends LocalBackend<MemoryBackendCfg>
@@ -101,13 +113,94 @@ public class MemoryBackend
 
   /** The base DNs for this backend. */
   private Set<DN> baseDNs;
-  /** The mapping between parent DNs and their immediate children. */
-  private Map<DN, HashSet<DN>> childDNs;
-  /** The mapping between entry DNs and the corresponding entries. */
-  private LinkedHashMap<DN,Entry> entryMap;
+  /** The current configuration, or null if the backend was configured without a configuration object. */
+  private MemoryBackendCfg currentConfig;
+  /** The path to the LDIF file where the backend contents are persisted, or null if they are not persisted. */
+  private String ldifFilePath;
+  /** The current contents of this backend, which are replaced as a whole by each update. */
+  private volatile MemoryBackendSnapshot snapshot;
+  /** The listener rebuilding the attribute indexes when their configuration changes. */
+  private final IndexCfgManager indexCfgManager = new IndexCfgManager();
   /** The server context. */
   private ServerContext serverContext;
 
+  /** Rebuilds the attribute indexes when their configuration changes. */
+  private class IndexCfgManager implements
+      ConfigurationAddListener<MemoryBackendIndexCfg>,
+      ConfigurationDeleteListener<MemoryBackendIndexCfg>,
+      ConfigurationChangeListener<BackendIndexCfg>
+  {
+    @Override
+    public boolean isConfigurationAddAcceptable(MemoryBackendIndexCfg cfg, List<LocalizableMessage> unacceptableReasons)
+    {
+      return isIndexAcceptable(cfg, unacceptableReasons);
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationAdd(MemoryBackendIndexCfg cfg)
+    {
+      final ConfigChangeResult ccr = applyIndexConfiguration(cfg);
+      cfg.addChangeListener(this);
+      return ccr;
+    }
+
+    @Override
+    public boolean isConfigurationDeleteAcceptable(MemoryBackendIndexCfg cfg,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      return true;
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationDelete(MemoryBackendIndexCfg cfg)
+    {
+      cfg.removeChangeListener(this);
+      replaceIndex(cfg.getAttribute(), null);
+      return new ConfigChangeResult();
+    }
+
+    @Override
+    public boolean isConfigurationChangeAcceptable(BackendIndexCfg cfg, List<LocalizableMessage> unacceptableReasons)
+    {
+      return isIndexAcceptable(cfg, unacceptableReasons);
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationChange(BackendIndexCfg cfg)
+    {
+      return applyIndexConfiguration(cfg);
+    }
+
+    private boolean isIndexAcceptable(BackendIndexCfg cfg, List<LocalizableMessage> unacceptableReasons)
+    {
+      try
+      {
+        new MemoryBackendIndex(cfg);
+        return true;
+      }
+      catch (ConfigException e)
+      {
+        unacceptableReasons.add(e.getMessageObject());
+        return false;
+      }
+    }
+
+    private ConfigChangeResult applyIndexConfiguration(BackendIndexCfg cfg)
+    {
+      final ConfigChangeResult ccr = new ConfigChangeResult();
+      try
+      {
+        replaceIndex(cfg.getAttribute(), new MemoryBackendIndex(cfg));
+      }
+      catch (ConfigException e)
+      {
+        ccr.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+        ccr.addMessage(e.getMessageObject());
+      }
+      return ccr;
+    }
+  }
+
   /**
    * Creates a new backend with the provided information.  All backend
    * implementations must implement a default constructor that use
@@ -137,7 +230,9 @@ public class MemoryBackend
     this.serverContext = serverContext;
     if (config != null)
     {
+      this.currentConfig = config;
       this.baseDNs = config.getBaseDN();
+      this.ldifFilePath = config.getLDIFFile();
     }
   }
 
@@ -153,8 +248,15 @@ public class MemoryBackend
       throw new ConfigException(ERR_MEMORYBACKEND_REQUIRE_EXACTLY_ONE_BASE.get());
     }
 
-    entryMap = new LinkedHashMap<>();
-    childDNs = new HashMap<>();
+    final List<MemoryBackendIndex> indexes = new ArrayList<>();
+    if (currentConfig != null)
+    {
+      for (String indexName : currentConfig.listBackendIndexes())
+      {
+        indexes.add(new MemoryBackendIndex(currentConfig.getBackendIndex(indexName)));
+      }
+    }
+    snapshot = MemoryBackendSnapshot.empty(indexes);
 
     for (DN dn : baseDNs)
     {
@@ -171,18 +273,52 @@ public class MemoryBackend
         throw new InitializationException(message, e);
       }
     }
+
+    if (ldifFilePath != null)
+    {
+      snapshot = readLDIFFile(snapshot);
+    }
+
+    if (currentConfig != null)
+    {
+      for (String indexName : currentConfig.listBackendIndexes())
+      {
+        currentConfig.getBackendIndex(indexName).addChangeListener(indexCfgManager);
+      }
+      currentConfig.addBackendIndexAddListener(indexCfgManager);
+      currentConfig.addBackendIndexDeleteListener(indexCfgManager);
+    }
   }
 
-  /** Removes any data that may have been stored in this backend. */
+  /**
+   * Removes any data that may have been stored in this backend.  The LDIF
+   * file where the backend contents are persisted, if any, is not modified.
+   */
   public synchronized void clearMemoryBackend()
   {
-    entryMap.clear();
-    childDNs.clear();
+    snapshot = MemoryBackendSnapshot.empty(snapshot.getIndexes());
   }
 
   @Override
   public synchronized void closeBackend()
   {
+    if (currentConfig != null)
+    {
+      currentConfig.removeBackendIndexAddListener(indexCfgManager);
+      currentConfig.removeBackendIndexDeleteListener(indexCfgManager);
+      for (String indexName : currentConfig.listBackendIndexes())
+      {
+        try
+        {
+          currentConfig.getBackendIndex(indexName).removeChangeListener(indexCfgManager);
+        }
+        catch (ConfigException e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+
     clearMemoryBackend();
 
     for (DN dn : baseDNs)
@@ -198,6 +334,31 @@ public class MemoryBackend
     }
   }
 
+  /**
+   * Replaces the definition of an attribute index, then rebuilds the
+   * attribute indexes from the current contents of this backend.
+   *
+   * @param  attributeType  The indexed attribute type.
+   * @param  newIndex       The new definition of the index, or {@code null}
+   *                        if the index is removed.
+   */
+  private synchronized void replaceIndex(AttributeType attributeType, MemoryBackendIndex newIndex)
+  {
+    final List<MemoryBackendIndex> indexes = new ArrayList<>();
+    for (MemoryBackendIndex index : snapshot.getIndexes())
+    {
+      if (!index.getAttributeType().equals(attributeType))
+      {
+        indexes.add(index);
+      }
+    }
+    if (newIndex != null)
+    {
+      indexes.add(newIndex);
+    }
+    snapshot = snapshot.withIndexes(indexes);
+  }
+
   @Override
   public Set<DN> getBaseDNs()
   {
@@ -205,11 +366,12 @@ public class MemoryBackend
   }
 
   @Override
-  public synchronized long getEntryCount()
+  public long getEntryCount()
   {
-    if (entryMap != null)
+    final MemoryBackendSnapshot contents = snapshot;
+    if (contents != null)
     {
-      return entryMap.size();
+      return contents.getEntryCount();
     }
 
     return -1;
@@ -223,10 +385,10 @@ public class MemoryBackend
   }
 
   @Override
-  public synchronized ConditionResult hasSubordinates(DN entryDN)
+  public ConditionResult hasSubordinates(DN entryDN)
          throws DirectoryException
   {
-    long ret = getNumberOfSubordinates(entryDN, false);
+    long ret = getNumberOfSubordinates(snapshot, entryDN, false);
     if(ret < 0)
     {
       return ConditionResult.UNDEFINED;
@@ -237,22 +399,22 @@ public class MemoryBackend
   @Override
   public long getNumberOfEntriesInBaseDN(DN baseDN) throws DirectoryException {
     checkNotNull(baseDN, "baseDN must not be null");
-    return getNumberOfSubordinates(baseDN, true) + 1;
+    return getNumberOfSubordinates(snapshot, baseDN, true) + 1;
   }
 
   @Override
   public long getNumberOfChildren(DN parentDN) throws DirectoryException {
     checkNotNull(parentDN, "parentDN must not be null");
-    return getNumberOfSubordinates(parentDN, false);
+    return getNumberOfSubordinates(snapshot, parentDN, false);
   }
 
-  private synchronized long getNumberOfSubordinates(DN entryDN, boolean includeSubtree) throws DirectoryException
+  private long getNumberOfSubordinates(MemoryBackendSnapshot contents, DN entryDN, boolean includeSubtree)
   {
     // Try to look up the immediate children for the DN
-    final Set<DN> children = childDNs.get(entryDN);
+    final Set<DN> children = contents.getChildren(entryDN);
     if (children == null)
     {
-      if(entryMap.get(entryDN) != null)
+      if (contents.containsEntry(entryDN))
       {
         // The entry does exist but just no children.
         return 0;
@@ -267,16 +429,16 @@ public class MemoryBackend
     long count = 0;
     for (DN child : children)
     {
-      count += getNumberOfSubordinates(child, true);
+      count += getNumberOfSubordinates(contents, child, true);
       count++;
     }
     return count;
   }
 
   @Override
-  public synchronized Entry getEntry(DN entryDN)
+  public Entry getEntry(DN entryDN)
   {
-    Entry entry = entryMap.get(entryDN);
+    Entry entry = snapshot.getEntry(entryDN);
     if (entry != null)
     {
       entry = entry.duplicate(true);
@@ -286,20 +448,26 @@ public class MemoryBackend
   }
 
   @Override
-  public synchronized boolean entryExists(DN entryDN)
+  public boolean entryExists(DN entryDN)
   {
-    return entryMap.containsKey(entryDN);
+    return snapshot.containsEntry(entryDN);
   }
 
   @Override
   public synchronized void addEntry(Entry entry, AddOperation addOperation)
          throws DirectoryException
   {
-    Entry e = entry.duplicate(false);
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    addEntry(builder, entry.duplicate(false));
+    commit(builder);
+  }
 
+  private void addEntry(MemoryBackendSnapshot.Builder builder, Entry e)
+         throws DirectoryException
+  {
     // See if the target entry already exists.  If so, then fail.
     DN entryDN = e.getName();
-    if (entryMap.containsKey(entryDN))
+    if (builder.containsEntry(entryDN))
     {
       throw new DirectoryException(ResultCode.ENTRY_ALREADY_EXISTS,
           ERR_MEMORYBACKEND_ENTRY_ALREADY_EXISTS.get(entryDN));
@@ -308,7 +476,7 @@ public class MemoryBackend
     // If the entry is one of the base DNs, then add it.
     if (baseDNs.contains(entryDN))
     {
-      entryMap.put(entryDN, e);
+      builder.add(null, e);
       return;
     }
 
@@ -319,21 +487,13 @@ public class MemoryBackend
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_MEMORYBACKEND_ENTRY_DOESNT_BELONG.get(entryDN));
     }
-    else if (! entryMap.containsKey(parentDN))
+    else if (! builder.containsEntry(parentDN))
     {
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_MEMORYBACKEND_PARENT_DOESNT_EXIST.get(entryDN, parentDN));
     }
 
-    entryMap.put(entryDN, e);
-    HashSet<DN> children = childDNs.get(parentDN);
-    if (children == null)
-    {
-      children = new HashSet<>();
-      childDNs.put(parentDN, children);
-    }
-
-    children.add(entryDN);
+    builder.add(parentDN, e);
   }
 
   @Override
@@ -342,7 +502,7 @@ public class MemoryBackend
          throws DirectoryException
   {
     // Make sure the entry exists.  If not, then throw an exception.
-    if (! entryMap.containsKey(entryDN))
+    if (! snapshot.containsEntry(entryDN))
     {
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_BACKEND_ENTRY_DOESNT_EXIST.get(entryDN, getBackendID()));
@@ -352,51 +512,29 @@ public class MemoryBackend
     boolean subtreeDelete = deleteOperation != null
         && deleteOperation.getRequestControl(SubtreeDeleteControl.DECODER) != null;
 
-    Set<DN> children = childDNs.get(entryDN);
-    if (children != null && !children.isEmpty())
+    Set<DN> children = snapshot.getChildren(entryDN);
+    if (children != null && !children.isEmpty() && !subtreeDelete)
     {
-      // children exist
-      if (!subtreeDelete)
-      {
-        throw new DirectoryException(ResultCode.NOT_ALLOWED_ON_NONLEAF,
-            ERR_MEMORYBACKEND_CANNOT_DELETE_ENTRY_WITH_CHILDREN.get(entryDN));
-      }
-
-      Set<DN> childrenCopy = new HashSet<>(children);
-      for (DN childDN : childrenCopy)
-      {
-        try
-        {
-          deleteEntry(childDN, null);
-        }
-        catch (Exception ignore)
-        {
-          // This shouldn't happen, but we want the delete to continue anyway
-          // so just ignore it if it does for some reason.
-          logger.traceException(ignore);
-        }
-      }
+      throw new DirectoryException(ResultCode.NOT_ALLOWED_ON_NONLEAF,
+          ERR_MEMORYBACKEND_CANNOT_DELETE_ENTRY_WITH_CHILDREN.get(entryDN));
     }
 
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    deleteSubtree(builder, entryDN);
+    commit(builder);
+  }
 
-    // Remove the entry from the backend.  Also remove the reference to it from
-    // its parent, if applicable.
-    childDNs.remove(entryDN);
-    entryMap.remove(entryDN);
-
-    DN parentDN = serverContext.getBackendConfigManager().getParentDNInSuffix(entryDN);
-    if (parentDN != null)
+  /** Removes an entry and all its subordinates, children first. */
+  private void deleteSubtree(MemoryBackendSnapshot.Builder builder, DN entryDN)
+  {
+    for (DN childDN : builder.getChildren(entryDN))
     {
-      HashSet<DN> parentsChildren = childDNs.get(parentDN);
-      if (parentsChildren != null)
-      {
-        parentsChildren.remove(entryDN);
-        if (parentsChildren.isEmpty())
-        {
-          childDNs.remove(parentDN);
-        }
-      }
+      deleteSubtree(builder, childDN);
     }
+
+    // Remove the entry from the backend.  Also remove the reference to it from
+    // its parent, if applicable.
+    builder.remove(serverContext.getBackendConfigManager().getParentDNInSuffix(entryDN), entryDN);
   }
 
   @Override
@@ -407,14 +545,16 @@ public class MemoryBackend
 
     // Make sure the entry exists.  If not, then throw an exception.
     DN entryDN = e.getName();
-    if (! entryMap.containsKey(entryDN))
+    if (! snapshot.containsEntry(entryDN))
     {
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_BACKEND_ENTRY_DOESNT_EXIST.get(entryDN, getBackendID()));
     }
 
     // Replace the old entry with the new one.
-    entryMap.put(entryDN, e);
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    builder.replace(e);
+    commit(builder);
   }
 
   @Override
@@ -425,29 +565,22 @@ public class MemoryBackend
     Entry e = entry.duplicate(false);
 
     // Make sure that the target entry exists.
-    if (! entryMap.containsKey(currentDN))
+    if (! snapshot.containsEntry(currentDN))
     {
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_BACKEND_ENTRY_DOESNT_EXIST.get(currentDN, getBackendID()));
     }
 
     // Make sure that the target entry doesn't have any children.
-    Set<DN> children = childDNs.get(currentDN);
-    if (children != null)
+    Set<DN> children = snapshot.getChildren(currentDN);
+    if (children != null && !children.isEmpty())
     {
-      if (children.isEmpty())
-      {
-        childDNs.remove(currentDN);
-      }
-      else
-      {
-        throw new DirectoryException(ResultCode.NOT_ALLOWED_ON_NONLEAF,
-            ERR_MEMORYBACKEND_CANNOT_RENAME_ENRY_WITH_CHILDREN.get(currentDN));
-      }
+      throw new DirectoryException(ResultCode.NOT_ALLOWED_ON_NONLEAF,
+          ERR_MEMORYBACKEND_CANNOT_RENAME_ENRY_WITH_CHILDREN.get(currentDN));
     }
 
     // Make sure that no entry exists with the new DN.
-    if (entryMap.containsKey(e.getName()))
+    if (snapshot.containsEntry(e.getName()))
     {
       throw new DirectoryException(ResultCode.ENTRY_ALREADY_EXISTS,
           ERR_MEMORYBACKEND_ENTRY_ALREADY_EXISTS.get(e.getName()));
@@ -462,15 +595,17 @@ public class MemoryBackend
 
     // Make sure that the parent of the new entry exists.
     DN parentDN = serverContext.getBackendConfigManager().getParentDNInSuffix(e.getName());
-    if (parentDN == null || !entryMap.containsKey(parentDN))
+    if (parentDN == null || !snapshot.containsEntry(parentDN))
     {
       throw new DirectoryException(ResultCode.NO_SUCH_OBJECT,
           ERR_MEMORYBACKEND_RENAME_PARENT_DOESNT_EXIST.get(currentDN, parentDN));
     }
 
     // Delete the current entry and add the new one.
-    deleteEntry(currentDN, null);
-    addEntry(e, null);
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    deleteSubtree(builder, currentDN);
+    addEntry(builder, e);
+    commit(builder);
   }
 
   private boolean superiorExistsInBackend(DN dnToFind)
@@ -485,23 +620,47 @@ public class MemoryBackend
     return false;
   }
 
+  /**
+   * Makes the updated contents of this backend visible, after persisting them
+   * if an LDIF file is configured.  The caller must hold the lock of this
+   * backend.
+   *
+   * @param  builder  The builder holding the updated contents.
+   *
+   * @throws  DirectoryException  If the updated contents cannot be persisted,
+   *                              in which case they are discarded.
+   */
+  private void commit(MemoryBackendSnapshot.Builder builder)
+          throws DirectoryException
+  {
+    MemoryBackendSnapshot newSnapshot = builder.build();
+    if (ldifFilePath != null)
+    {
+      writeLDIFFile(newSnapshot);
+    }
+    snapshot = newSnapshot;
+  }
+
   @Override
-  public synchronized void search(SearchOperation searchOperation)
+  public void search(SearchOperation searchOperation)
          throws DirectoryException
   {
+    // All the search is processed against the same contents.
+    final MemoryBackendSnapshot contents = snapshot;
+
     // Get the base DN, scope, and filter for the search.
     DN           baseDN = searchOperation.getBaseDN();
     SearchScope  scope  = searchOperation.getScope();
     SearchFilter filter = searchOperation.getFilter();
 
     // Make sure the base entry exists if it's supposed to be in this backend.
-    Entry baseEntry = entryMap.get(baseDN);
+    Entry baseEntry = contents.getEntry(baseDN);
     if (baseEntry == null && handlesEntry(baseDN))
     {
       DN matchedDN = serverContext.getBackendConfigManager().getParentDNInSuffix(baseDN);
       while (matchedDN != null)
       {
-        if (entryMap.containsKey(matchedDN))
+        if (contents.containsEntry(matchedDN))
         {
           break;
         }
@@ -528,21 +687,66 @@ public class MemoryBackend
       {
         searchOperation.returnEntry(baseEntry, new LinkedList<Control>());
       }
+      return;
     }
-    else
+
+    // Use the indexes and the children of the base entry to restrict the
+    // entries to walk through.
+    Set<DN> candidates = contents.getCandidates(filter);
+    if (scope == SearchScope.SINGLE_LEVEL)
+    {
+      Set<DN> children = contents.getChildren(baseDN);
+      if (children == null)
+      {
+        return;
+      }
+      candidates = candidates != null ? MemoryBackendIndex.intersect(Arrays.asList(candidates, children)) : children;
+    }
+
+    if (candidates == null)
     {
       // Walk through all entries and send the ones that match.
-      for (Entry e : entryMap.values())
+      for (Entry e : contents.getEntries())
+      {
+        if (!returnEntryIfMatches(searchOperation, e))
+        {
+          return;
+        }
+      }
+    }
+    else
+    {
+      // Sorting the DNs returns the parent entries before their children.
+      DN[] candidateDNs = candidates.toArray(new DN[candidates.size()]);
+      Arrays.sort(candidateDNs);
+      for (DN dn : candidateDNs)
       {
-        e = e.duplicate(true);
-        if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
+        if (!returnEntryIfMatches(searchOperation, contents.getEntry(dn)))
         {
-          searchOperation.returnEntry(e, new LinkedList<Control>());
+          return;
         }
       }
     }
   }
 
+  /**
+   * Returns an entry to the client if it matches the search request.
+   *
+   * @return  {@code false} if the search must stop, for example because the
+   *          size limit has been reached.
+   */
+  private boolean returnEntryIfMatches(SearchOperation searchOperation, Entry e)
+          throws DirectoryException
+  {
+    if (!e.matchesBaseAndScope(searchOperation.getBaseDN(), searchOperation.getScope()))
+    {
+      return true;
+    }
+    Entry entry = e.duplicate(true);
+    return !searchOperation.getFilter().matchesEntry(entry)
+        || searchOperation.returnEntry(entry, new LinkedList<Control>());
+  }
+
   @Override
   public Set<String> getSupportedControls()
   {
@@ -570,7 +774,7 @@ public class MemoryBackend
   }
 
   @Override
-  public synchronized void exportLDIF(LDIFExportConfig exportConfig)
+  public void exportLDIF(LDIFExportConfig exportConfig)
          throws DirectoryException
   {
     // Create the LDIF writer.
@@ -591,7 +795,7 @@ public class MemoryBackend
     DN entryDN = null;
     try
     {
-      for (Entry entry : entryMap.values())
+      for (Entry entry : snapshot.getEntries())
       {
         entryDN = entry.getName();
         ldifWriter.writeEntry(entry);
@@ -612,8 +816,7 @@ public class MemoryBackend
   public synchronized LDIFImportResult importLDIF(LDIFImportConfig importConfig, ServerContext serverContext)
       throws DirectoryException
   {
-    clearMemoryBackend();
-
+    MemoryBackendSnapshot.Builder builder = MemoryBackendSnapshot.empty(snapshot.getIndexes()).builder();
 
     try (LDIFReader reader = newLDIFReader(importConfig))
     {
@@ -640,7 +843,7 @@ public class MemoryBackend
 
         try
         {
-          addEntry(e, null);
+          addEntry(builder, e);
         }
         catch (DirectoryException de)
         {
@@ -648,6 +851,7 @@ public class MemoryBackend
         }
       }
 
+      commit(builder);
       return new LDIFImportResult(reader.getEntriesRead(),
                                   reader.getEntriesRejected(),
                                   reader.getEntriesIgnored());
@@ -676,6 +880,84 @@ public class MemoryBackend
     }
   }
 
+  /**
+   * Reads the persisted contents of this backend from its LDIF file.
+   *
+   * @param  emptySnapshot  An empty snapshot with the attribute indexes to
+   *                        maintain.
+   *
+   * @return  The persisted contents, which are empty if the LDIF file does not
+   *          exist yet.
+   *
+   * @throws  InitializationException  If the LDIF file cannot be read, or
+   *                                   contains an invalid entry.
+   */
+  private MemoryBackendSnapshot readLDIFFile(MemoryBackendSnapshot emptySnapshot)
+          throws InitializationException
+  {
+    File ldifFile = getFileForPath(ldifFilePath);
+    if (! ldifFile.exists())
+    {
+      // This is fine.  We will just start with an empty backend.
+      return emptySnapshot;
+    }
+
+    MemoryBackendSnapshot.Builder builder = emptySnapshot.builder();
+    try (LDIFReader reader = new LDIFReader(new LDIFImportConfig(ldifFile.getAbsolutePath())))
+    {
+      for (Entry e = reader.readEntry(); e != null; e = reader.readEntry())
+      {
+        addEntry(builder, e);
+      }
+      return builder.build();
+    }
+    catch (IOException | LDIFException | DirectoryException e)
+    {
+      logger.traceException(e);
+
+      throw new InitializationException(ERR_MEMORYBACKEND_CANNOT_READ_LDIF_FILE.get(
+          getBackendID(), ldifFile.getAbsolutePath(), stackTraceToSingleLineString(e)), e);
+    }
+  }
+
+  /**
+   * Writes the provided contents of this backend to its LDIF file.  The new
+   * LDIF is first written to a temporary file, which then atomically replaces
+   * the LDIF file.
+   *
+   * @param  contents  The contents to persist.
+   *
+   * @throws  DirectoryException  If the LDIF file cannot be written.
+   */
+  private void writeLDIFFile(MemoryBackendSnapshot contents)
+          throws DirectoryException
+  {
+    File ldifFile = getFileForPath(ldifFilePath);
+    File tempFile = new File(ldifFile.getAbsolutePath() + ".new");
+    try
+    {
+      try (LDIFWriter writer = new LDIFWriter(
+          new LDIFExportConfig(tempFile.getAbsolutePath(), ExistingFileBehavior.OVERWRITE)))
+      {
+        for (Entry entry : contents.getEntries())
+        {
+          writer.writeEntry(entry);
+        }
+      }
+      Files.move(tempFile.toPath(), ldifFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException | LDIFException e)
+    {
+      logger.traceException(e);
+      tempFile.delete();
+
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_MEMORYBACKEND_CANNOT_WRITE_LDIF_FILE.get(
+              getBackendID(), ldifFile.getAbsolutePath(), stackTraceToSingleLineString(e)), e);
+    }
+  }
+
   @Override
   public void createBackup(BackupConfig backupConfig)
          throws DirectoryException
@@ -0,0 +1,455 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import static org.opends.messages.BackendMessages.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.Assertion;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
+import org.forgerock.opendj.ldap.spi.IndexQueryFactory;
+import org.forgerock.opendj.ldap.spi.Indexer;
+import org.forgerock.opendj.ldap.spi.IndexingOptions;
+import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
+import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * The definition of an attribute index of the {@link MemoryBackend}, built from the same backend index configuration
+ * as the attribute indexes of the pluggable backends.
+ * <p>
+ * An index definition generates the keys of the entries with the indexers of the matching rules of the configured
+ * index types, and evaluates search filters against the index contents, which are held by the backend as a map from
+ * index ID to a sorted map from key to the DNs of the entries having this key.
+ */
+final class MemoryBackendIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The single key of the presence index. */
+  private static final ByteString PRESENCE_KEY = ByteString.valueOfUtf8("+");
+
+  /** A special indexer for generating presence indexes. */
+  private static final Indexer PRESENCE_INDEXER = new Indexer()
+  {
+    @Override
+    public void createKeys(Schema schema, ByteSequence value, Collection<ByteString> keys)
+    {
+      keys.add(PRESENCE_KEY);
+    }
+
+    @Override
+    public String keyToHumanReadableString(ByteSequence key)
+    {
+      return "PRESENCE";
+    }
+
+    @Override
+    public String getIndexID()
+    {
+      return IndexType.PRESENCE.toString();
+    }
+  };
+
+  private final AttributeType attributeType;
+  private final int indexEntryLimit;
+  private final IndexingOptions indexingOptions;
+  /** The indexers of this index, by index ID. */
+  private final Map<String, Indexer> indexers;
+
+  /**
+   * Creates the definition of an attribute index.
+   *
+   * @param config
+   *          the configuration of the index
+   * @throws ConfigException
+   *           If a configured index type cannot be used for the indexed attribute.
+   */
+  MemoryBackendIndex(BackendIndexCfg config) throws ConfigException
+  {
+    this.attributeType = config.getAttribute();
+    this.indexEntryLimit = config.getIndexEntryLimit();
+    final int substringKeySize = config.getSubstringLength();
+    this.indexingOptions = new IndexingOptions()
+    {
+      @Override
+      public int substringKeySize()
+      {
+        return substringKeySize;
+      }
+    };
+
+    final Map<String, Indexer> indexersByID = new HashMap<>();
+    for (IndexType indexType : config.getIndexType())
+    {
+      for (MatchingRule rule : getMatchingRules(indexType, config.getIndexExtensibleMatchingRule()))
+      {
+        for (Indexer indexer : rule.createIndexers(indexingOptions))
+        {
+          indexersByID.put(indexer.getIndexID(), indexer);
+        }
+      }
+      if (indexType == IndexType.PRESENCE)
+      {
+        indexersByID.put(PRESENCE_INDEXER.getIndexID(), PRESENCE_INDEXER);
+      }
+    }
+    this.indexers = Collections.unmodifiableMap(indexersByID);
+  }
+
+  private List<MatchingRule> getMatchingRules(IndexType indexType, Set<String> extensibleRules) throws ConfigException
+  {
+    final List<MatchingRule> rules = new ArrayList<>();
+    switch (indexType)
+    {
+    case PRESENCE:
+      return rules;
+    case EQUALITY:
+      rules.add(attributeType.getEqualityMatchingRule());
+      break;
+    case ORDERING:
+      rules.add(attributeType.getOrderingMatchingRule());
+      break;
+    case SUBSTRING:
+      rules.add(attributeType.getSubstringMatchingRule());
+      break;
+    case APPROXIMATE:
+      rules.add(attributeType.getApproximateMatchingRule());
+      break;
+    case EXTENSIBLE:
+      for (String ruleName : extensibleRules)
+      {
+        try
+        {
+          rules.add(getSchema().getMatchingRule(ruleName));
+        }
+        catch (UnknownSchemaElementException e)
+        {
+          throw new ConfigException(ERR_CONFIG_INDEX_TYPE_NEEDS_MATCHING_RULE.get(attributeType, indexType), e);
+        }
+      }
+      break;
+    default:
+      break;
+    }
+    if (rules.isEmpty() || rules.contains(null))
+    {
+      throw new ConfigException(ERR_CONFIG_INDEX_TYPE_NEEDS_MATCHING_RULE.get(attributeType, indexType));
+    }
+    return rules;
+  }
+
+  private static Schema getSchema()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema();
+  }
+
+  /**
+   * Returns the indexed attribute type.
+   *
+   * @return the indexed attribute type
+   */
+  AttributeType getAttributeType()
+  {
+    return attributeType;
+  }
+
+  /**
+   * Returns the IDs of the indexes maintained for the indexed attribute.
+   *
+   * @return the IDs of the indexes maintained for the indexed attribute
+   */
+  Set<String> getIndexIDs()
+  {
+    return indexers.keySet();
+  }
+
+  /**
+   * Returns the keys of an entry in each index maintained for the indexed attribute.
+   *
+   * @param entry
+   *          the entry to index
+   * @return the keys of the entry, by index ID, which only contains the indexes where the entry has keys
+   */
+  Map<String, Set<ByteString>> createKeys(Entry entry)
+  {
+    final Map<String, Set<ByteString>> keysByIndexID = new HashMap<>();
+    final List<Attribute> attributes = entry.getAllAttributes(attributeType);
+    if (attributes.isEmpty())
+    {
+      return keysByIndexID;
+    }
+    for (Map.Entry<String, Indexer> indexer : indexers.entrySet())
+    {
+      final Set<ByteString> keys = new HashSet<>();
+      for (Attribute attribute : attributes)
+      {
+        if (attribute.isVirtual())
+        {
+          continue;
+        }
+        for (ByteString value : attribute)
+        {
+          try
+          {
+            indexer.getValue().createKeys(Schema.getDefaultSchema(), value, keys);
+          }
+          catch (DecodeException e)
+          {
+            logger.traceException(e);
+          }
+        }
+      }
+      if (!keys.isEmpty())
+      {
+        keysByIndexID.put(indexer.getKey(), keys);
+      }
+    }
+    return keysByIndexID;
+  }
+
+  /**
+   * Returns the DNs of the entries which may match a search filter on the indexed attribute.
+   *
+   * @param filter
+   *          a search filter on the indexed attribute
+   * @param indexContents
+   *          the contents of the indexes maintained for the indexed attribute, by index ID
+   * @return the DNs of the entries which may match the filter, or {@code null} if the indexes cannot tell which
+   *         entries may match it
+   */
+  Set<DN> evaluate(SearchFilter filter, Map<String, NavigableMap<ByteString, Set<DN>>> indexContents)
+  {
+    final MatchingRule rule;
+    try
+    {
+      final Assertion assertion;
+      switch (filter.getFilterType())
+      {
+      case PRESENT:
+        return new QueryFactory(indexContents).createMatchAllQuery();
+      case EQUALITY:
+        rule = attributeType.getEqualityMatchingRule();
+        assertion = rule != null ? rule.getAssertion(filter.getAssertionValue()) : null;
+        break;
+      case GREATER_OR_EQUAL:
+        rule = attributeType.getOrderingMatchingRule();
+        assertion = rule != null ? rule.getGreaterOrEqualAssertion(filter.getAssertionValue()) : null;
+        break;
+      case LESS_OR_EQUAL:
+        rule = attributeType.getOrderingMatchingRule();
+        assertion = rule != null ? rule.getLessOrEqualAssertion(filter.getAssertionValue()) : null;
+        break;
+      case SUBSTRING:
+        rule = attributeType.getSubstringMatchingRule();
+        assertion = rule != null ? rule.getSubstringAssertion(
+            filter.getSubInitialElement(), filter.getSubAnyElements(), filter.getSubFinalElement()) : null;
+        break;
+      case APPROXIMATE_MATCH:
+        rule = attributeType.getApproximateMatchingRule();
+        assertion = rule != null ? rule.getAssertion(filter.getAssertionValue()) : null;
+        break;
+      case EXTENSIBLE_MATCH:
+        if (filter.getDNAttributes())
+        {
+          // The values of the DN components are not indexed
+          return null;
+        }
+        rule = filter.getMatchingRuleID() != null
+            ? getSchema().getMatchingRule(filter.getMatchingRuleID())
+            : attributeType.getEqualityMatchingRule();
+        assertion = rule != null ? rule.getAssertion(filter.getAssertionValue()) : null;
+        break;
+      default:
+        return null;
+      }
+      return assertion != null ? assertion.createIndexQuery(new QueryFactory(indexContents)) : null;
+    }
+    catch (DecodeException | UnknownSchemaElementException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Evaluates the index queries of the assertions eagerly, against the index contents. A {@code null} result means
+   * that the indexes cannot tell which entries match the query.
+   */
+  private final class QueryFactory implements IndexQueryFactory<Set<DN>>
+  {
+    private final Map<String, NavigableMap<ByteString, Set<DN>>> indexContents;
+
+    private QueryFactory(Map<String, NavigableMap<ByteString, Set<DN>>> indexContents)
+    {
+      this.indexContents = indexContents;
+    }
+
+    @Override
+    public Set<DN> createExactMatchQuery(String indexID, ByteSequence key)
+    {
+      final NavigableMap<ByteString, Set<DN>> index = indexContents.get(indexID);
+      if (index == null)
+      {
+        return null;
+      }
+      final Set<DN> dns = index.get(key.toByteString());
+      return dns != null ? withinLimit(dns) : Collections.<DN> emptySet();
+    }
+
+    @Override
+    public Set<DN> createMatchAllQuery()
+    {
+      return createExactMatchQuery(PRESENCE_INDEXER.getIndexID(), PRESENCE_KEY);
+    }
+
+    @Override
+    public Set<DN> createRangeMatchQuery(String indexID, ByteSequence lower, ByteSequence upper,
+        boolean lowerIncluded, boolean upperIncluded)
+    {
+      NavigableMap<ByteString, Set<DN>> index = indexContents.get(indexID);
+      if (index == null)
+      {
+        return null;
+      }
+      if (lower.length() > 0)
+      {
+        index = index.tailMap(lower.toByteString(), lowerIncluded);
+      }
+      if (upper.length() > 0)
+      {
+        index = index.headMap(upper.toByteString(), upperIncluded);
+      }
+      final Set<DN> dns = new HashSet<>();
+      for (Set<DN> keyDNs : index.values())
+      {
+        dns.addAll(keyDNs);
+        if (withinLimit(dns) == null)
+        {
+          return null;
+        }
+      }
+      return dns;
+    }
+
+    @Override
+    public Set<DN> createIntersectionQuery(Collection<Set<DN>> subqueries)
+    {
+      final List<Set<DN>> definedSubqueries = new ArrayList<>(subqueries.size());
+      for (Set<DN> dns : subqueries)
+      {
+        if (dns != null)
+        {
+          definedSubqueries.add(dns);
+        }
+      }
+      return intersect(definedSubqueries);
+    }
+
+    @Override
+    public Set<DN> createUnionQuery(Collection<Set<DN>> subqueries)
+    {
+      return subqueries.contains(null) ? null : withinLimit(union(subqueries));
+    }
+
+    @Override
+    public IndexingOptions getIndexingOptions()
+    {
+      return indexingOptions;
+    }
+
+    private Set<DN> withinLimit(Set<DN> dns)
+    {
+      return indexEntryLimit > 0 && dns.size() > indexEntryLimit ? null : dns;
+    }
+  }
+
+  /**
+   * Returns the intersection of sets of DNs.
+   *
+   * @param sets
+   *          the sets of DNs to intersect, which are not modified
+   * @return the intersection of the sets, or {@code null} if there are no sets to intersect
+   */
+  static Set<DN> intersect(Collection<Set<DN>> sets)
+  {
+    Set<DN> smallest = null;
+    for (Set<DN> dns : sets)
+    {
+      if (smallest == null || dns.size() < smallest.size())
+      {
+        smallest = dns;
+      }
+    }
+    if (smallest == null || smallest.isEmpty() || sets.size() == 1)
+    {
+      return smallest;
+    }
+    final Set<DN> intersection = new HashSet<>(smallest);
+    for (Set<DN> dns : sets)
+    {
+      if (dns != smallest)
+      {
+        intersection.retainAll(dns);
+      }
+    }
+    return intersection;
+  }
+
+  /**
+   * Returns the union of sets of DNs.
+   *
+   * @param sets
+   *          the sets of DNs to merge, which are not modified
+   * @return the union of the sets
+   */
+  static Set<DN> union(Collection<Set<DN>> sets)
+  {
+    final Set<DN> union = new HashSet<>();
+    for (Set<DN> dns : sets)
+    {
+      union.addAll(dns);
+    }
+    return union;
+  }
+
+  @Override
+  public String toString()
+  {
+    return attributeType.getNameOrOID() + indexers.keySet();
+  }
+}
@@ -0,0 +1,484 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * An immutable view of the contents of a {@link MemoryBackend}: its entries, the mapping from parent DNs to the DNs
+ * of their immediate children, and the contents of its attribute indexes.
+ * <p>
+ * A snapshot is never modified once it has been built, so it can be read by any number of threads without locking.
+ * Updates are applied by a {@link Builder}, which copies the parts of the snapshot it modifies, and whose result
+ * replaces the current snapshot of the backend. This makes each update cost a copy of the entry map, which is
+ * intended for small and frequently read suffixes.
+ * <p>
+ * As in the original memory backend, the entries are kept in insertion order. Since no entry can be added before
+ * its parent, iterating through the entries always processes the parent entries before their children.
+ */
+final class MemoryBackendSnapshot
+{
+  /** The mapping between entry DNs and the corresponding entries. */
+  private final Map<DN, Entry> entries;
+  /** The mapping between parent DNs and their immediate children. */
+  private final Map<DN, Set<DN>> childDNs;
+  /** The definitions of the attribute indexes. */
+  private final Map<AttributeType, MemoryBackendIndex> indexes;
+  /** The contents of the attribute indexes, by attribute type, then by index ID, then by key. */
+  private final Map<AttributeType, Map<String, NavigableMap<ByteString, Set<DN>>>> indexContents;
+
+  private MemoryBackendSnapshot(Map<DN, Entry> entries, Map<DN, Set<DN>> childDNs,
+      Map<AttributeType, MemoryBackendIndex> indexes,
+      Map<AttributeType, Map<String, NavigableMap<ByteString, Set<DN>>>> indexContents)
+  {
+    this.entries = entries;
+    this.childDNs = childDNs;
+    this.indexes = indexes;
+    this.indexContents = indexContents;
+  }
+
+  /**
+   * Returns a snapshot without any entries.
+   *
+   * @param indexes
+   *          the definitions of the attribute indexes to maintain
+   * @return a snapshot without any entries
+   */
+  static MemoryBackendSnapshot empty(Collection<MemoryBackendIndex> indexes)
+  {
+    final Map<AttributeType, MemoryBackendIndex> indexesByType = new HashMap<>();
+    for (MemoryBackendIndex index : indexes)
+    {
+      indexesByType.put(index.getAttributeType(), index);
+    }
+    return new MemoryBackendSnapshot(new LinkedHashMap<DN, Entry>(), new HashMap<DN, Set<DN>>(),
+        Collections.unmodifiableMap(indexesByType), emptyIndexContents(indexesByType.values()));
+  }
+
+  private static Map<AttributeType, Map<String, NavigableMap<ByteString, Set<DN>>>> emptyIndexContents(
+      Collection<MemoryBackendIndex> indexes)
+  {
+    final Map<AttributeType, Map<String, NavigableMap<ByteString, Set<DN>>>> indexContents = new HashMap<>();
+    for (MemoryBackendIndex index : indexes)
+    {
+      final Map<String, NavigableMap<ByteString, Set<DN>>> contents = new HashMap<>();
+      for (String indexID : index.getIndexIDs())
+      {
+        contents.put(indexID, new TreeMap<ByteString, Set<DN>>());
+      }
+      indexContents.put(index.getAttributeType(), contents);
+    }
+    return indexContents;
+  }
+
+  /**
+   * Returns a snapshot with the same entries as this snapshot, but with different attribute indexes.
+   *
+   * @param newIndexes
+   *          the definitions of the attribute indexes to maintain
+   * @return a snapshot with the same entries, where the new attribute indexes have been built
+   */
+  MemoryBackendSnapshot withIndexes(Collection<MemoryBackendIndex> newIndexes)
+  {
+    final MemoryBackendSnapshot emptySnapshot = empty(newIndexes);
+    final Builder builder = new Builder(new MemoryBackendSnapshot(
+        entries, childDNs, emptySnapshot.indexes, emptySnapshot.indexContents));
+    for (Entry entry : entries.values())
+    {
+      builder.updateIndexes(null, entry);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a builder applying updates to a copy of this snapshot.
+   *
+   * @return a builder applying updates to a copy of this snapshot
+   */
+  Builder builder()
+  {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns the definitions of the attribute indexes maintained in this snapshot.
+   *
+   * @return the definitions of the attribute indexes maintained in this snapshot
+   */
+  Collection<MemoryBackendIndex> getIndexes()
+  {
+    return indexes.values();
+  }
+
+  /**
+   * Returns the entry with the provided DN. The returned entry is shared and must not be modified.
+   *
+   * @param entryDN
+   *          the DN of the entry
+   * @return the entry with the provided DN, or {@code null} if there is no such entry
+   */
+  Entry getEntry(DN entryDN)
+  {
+    return entries.get(entryDN);
+  }
+
+  boolean containsEntry(DN entryDN)
+  {
+    return entries.containsKey(entryDN);
+  }
+
+  /**
+   * Returns all the entries, parent entries first. The returned entries are shared and must not be modified.
+   *
+   * @return all the entries, parent entries first
+   */
+  Collection<Entry> getEntries()
+  {
+    return Collections.unmodifiableCollection(entries.values());
+  }
+
+  int getEntryCount()
+  {
+    return entries.size();
+  }
+
+  /**
+   * Returns the DNs of the immediate children of an entry.
+   *
+   * @param parentDN
+   *          the DN of the parent entry
+   * @return the DNs of the immediate children of the entry, or {@code null} if the entry has no children
+   */
+  Set<DN> getChildren(DN parentDN)
+  {
+    final Set<DN> children = childDNs.get(parentDN);
+    return children != null ? Collections.unmodifiableSet(children) : null;
+  }
+
+  /**
+   * Returns the DNs of the entries which may match a search filter, according to the attribute indexes.
+   *
+   * @param filter
+   *          the search filter
+   * @return the DNs of the entries which may match the filter, or {@code null} if the attribute indexes cannot tell
+   *         which entries may match it
+   */
+  Set<DN> getCandidates(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+      final List<Set<DN>> andCandidates = new ArrayList<>();
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        final Set<DN> candidates = getCandidates(component);
+        if (candidates != null)
+        {
+          andCandidates.add(candidates);
+        }
+      }
+      return MemoryBackendIndex.intersect(andCandidates);
+
+    case OR:
+      final List<Set<DN>> orCandidates = new ArrayList<>();
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        final Set<DN> candidates = getCandidates(component);
+        if (candidates == null)
+        {
+          return null;
+        }
+        orCandidates.add(candidates);
+      }
+      return MemoryBackendIndex.union(orCandidates);
+
+    case NOT:
+      return null;
+
+    default:
+      final AttributeType attributeType = filter.getAttributeType();
+      final MemoryBackendIndex index = attributeType != null ? indexes.get(attributeType) : null;
+      return index != null ? index.evaluate(filter, indexContents.get(attributeType)) : null;
+    }
+  }
+
+  /**
+   * Applies updates to a copy of a snapshot, then builds the updated snapshot. The collections of the original
+   * snapshot are only copied when they are modified for the first time, so that several updates can be applied at
+   * the cost of a single copy. A builder must not be used once it has built its snapshot.
+   * <p>
+   * The builder does not check that the updates are valid, which is the responsibility of the backend.
+   */
+  static final class Builder
+  {
+    private final Map<DN, Entry> entries;
+    private final Map<DN, Set<DN>> childDNs;
+    private final Map<AttributeType, MemoryBackendIndex> indexes;
+    private final Map<AttributeType, Map<String, NavigableMap<ByteString, Set<DN>>>> indexContents;
+    /** The collections created by this builder, which can be modified in place. */
+    private final Set<Object> ownCollections = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    private Builder(MemoryBackendSnapshot base)
+    {
+      this.entries = new LinkedHashMap<>(base.entries);
+      this.childDNs = new HashMap<>(base.childDNs);
+      this.indexes = base.indexes;
+      this.indexContents = new HashMap<>(base.indexContents);
+    }
+
+    Entry getEntry(DN entryDN)
+    {
+      return entries.get(entryDN);
+    }
+
+    boolean containsEntry(DN entryDN)
+    {
+      return entries.containsKey(entryDN);
+    }
+
+    /**
+     * Returns the DNs of the immediate children of an entry.
+     *
+     * @param parentDN
+     *          the DN of the parent entry
+     * @return a copy of the DNs of the immediate children of the entry, which is empty if the entry has no children
+     */
+    Set<DN> getChildren(DN parentDN)
+    {
+      final Set<DN> children = childDNs.get(parentDN);
+      return children != null ? new HashSet<>(children) : Collections.<DN> emptySet();
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param parentDN
+     *          the DN of the parent of the entry, or {@code null} if the entry is a base entry of the backend
+     * @param entry
+     *          the entry to add, which must not be modified afterwards
+     */
+    void add(DN parentDN, Entry entry)
+    {
+      final DN entryDN = entry.getName();
+      entries.put(entryDN, entry);
+      if (parentDN != null)
+      {
+        Set<DN> children = childDNs.get(parentDN);
+        if (children == null)
+        {
+          children = newOwnSet();
+          childDNs.put(parentDN, children);
+        }
+        else if (!ownCollections.contains(children))
+        {
+          children = newOwnSet(children);
+          childDNs.put(parentDN, children);
+        }
+        children.add(entryDN);
+      }
+      updateIndexes(null, entry);
+    }
+
+    /**
+     * Removes an entry, which must not have children.
+     *
+     * @param parentDN
+     *          the DN of the parent of the entry, or {@code null} if the entry is a base entry of the backend
+     * @param entryDN
+     *          the DN of the entry to remove
+     */
+    void remove(DN parentDN, DN entryDN)
+    {
+      final Entry entry = entries.remove(entryDN);
+      childDNs.remove(entryDN);
+      if (parentDN != null)
+      {
+        final Set<DN> children = childDNs.get(parentDN);
+        if (children != null && children.contains(entryDN))
+        {
+          if (children.size() == 1)
+          {
+            childDNs.remove(parentDN);
+          }
+          else
+          {
+            final Set<DN> newChildren = ownCollections.contains(children) ? children : newOwnSet(children);
+            newChildren.remove(entryDN);
+            childDNs.put(parentDN, newChildren);
+          }
+        }
+      }
+      if (entry != null)
+      {
+        updateIndexes(entry, null);
+      }
+    }
+
+    /**
+     * Replaces an existing entry.
+     *
+     * @param newEntry
+     *          the new version of the entry, which must not be modified afterwards
+     */
+    void replace(Entry newEntry)
+    {
+      final Entry oldEntry = entries.put(newEntry.getName(), newEntry);
+      updateIndexes(oldEntry, newEntry);
+    }
+
+    private void updateIndexes(Entry oldEntry, Entry newEntry)
+    {
+      final DN entryDN = oldEntry != null ? oldEntry.getName() : newEntry.getName();
+      for (MemoryBackendIndex index : indexes.values())
+      {
+        final Map<String, Set<ByteString>> oldKeys =
+            oldEntry != null ? index.createKeys(oldEntry) : Collections.<String, Set<ByteString>> emptyMap();
+        final Map<String, Set<ByteString>> newKeys =
+            newEntry != null ? index.createKeys(newEntry) : Collections.<String, Set<ByteString>> emptyMap();
+        if (oldKeys.equals(newKeys))
+        {
+          continue;
+        }
+        for (String indexID : index.getIndexIDs())
+        {
+          final Set<ByteString> removedKeys = getKeys(oldKeys, indexID);
+          final Set<ByteString> addedKeys = getKeys(newKeys, indexID);
+          if (removedKeys.equals(addedKeys))
+          {
+            continue;
+          }
+          final NavigableMap<ByteString, Set<DN>> contents = getOwnIndexContents(index.getAttributeType(), indexID);
+          for (ByteString key : removedKeys)
+          {
+            if (!addedKeys.contains(key))
+            {
+              removeKey(contents, key, entryDN);
+            }
+          }
+          for (ByteString key : addedKeys)
+          {
+            if (!removedKeys.contains(key))
+            {
+              addKey(contents, key, entryDN);
+            }
+          }
+        }
+      }
+    }
+
+    private static Set<ByteString> getKeys(Map<String, Set<ByteString>> keysByIndexID, String indexID)
+    {
+      final Set<ByteString> keys = keysByIndexID.get(indexID);
+      return keys != null ? keys : Collections.<ByteString> emptySet();
+    }
+
+    private NavigableMap<ByteString, Set<DN>> getOwnIndexContents(AttributeType attributeType, String indexID)
+    {
+      Map<String, NavigableMap<ByteString, Set<DN>>> contentsByIndexID = indexContents.get(attributeType);
+      if (!ownCollections.contains(contentsByIndexID))
+      {
+        contentsByIndexID = new HashMap<>(contentsByIndexID);
+        ownCollections.add(contentsByIndexID);
+        indexContents.put(attributeType, contentsByIndexID);
+      }
+      NavigableMap<ByteString, Set<DN>> contents = contentsByIndexID.get(indexID);
+      if (!ownCollections.contains(contents))
+      {
+        contents = new TreeMap<>(contents);
+        ownCollections.add(contents);
+        contentsByIndexID.put(indexID, contents);
+      }
+      return contents;
+    }
+
+    private void addKey(NavigableMap<ByteString, Set<DN>> contents, ByteString key, DN entryDN)
+    {
+      Set<DN> entryDNs = contents.get(key);
+      if (entryDNs == null)
+      {
+        entryDNs = newOwnSet();
+        contents.put(key, entryDNs);
+      }
+      else if (!ownCollections.contains(entryDNs))
+      {
+        entryDNs = newOwnSet(entryDNs);
+        contents.put(key, entryDNs);
+      }
+      entryDNs.add(entryDN);
+    }
+
+    private void removeKey(NavigableMap<ByteString, Set<DN>> contents, ByteString key, DN entryDN)
+    {
+      Set<DN> entryDNs = contents.get(key);
+      if (entryDNs == null || !entryDNs.contains(entryDN))
+      {
+        return;
+      }
+      if (entryDNs.size() == 1)
+      {
+        contents.remove(key);
+        return;
+      }
+      if (!ownCollections.contains(entryDNs))
+      {
+        entryDNs = newOwnSet(entryDNs);
+        contents.put(key, entryDNs);
+      }
+      entryDNs.remove(entryDN);
+    }
+
+    private Set<DN> newOwnSet()
+    {
+      final Set<DN> set = new HashSet<>();
+      ownCollections.add(set);
+      return set;
+    }
+
+    private Set<DN> newOwnSet(Set<DN> elements)
+    {
+      final Set<DN> set = new HashSet<>(elements);
+      ownCollections.add(set);
+      return set;
+    }
+
+    /**
+     * Builds the updated snapshot.
+     *
+     * @return the updated snapshot
+     */
+    MemoryBackendSnapshot build()
+    {
+      return new MemoryBackendSnapshot(entries, childDNs, indexes, indexContents);
+    }
+  }
+}
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2014 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -118,6 +119,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   {
     private final AttributeType attributeType;
     private final Indexer indexer;
+    /** Whether this index is an equality index, whose keys are looked up one by one. */
+    private boolean equality;
 
     private MatchingRuleIndex(EntryContainer entryContainer, AttributeType attributeType, State state, Indexer indexer,
         int indexEntryLimit, CryptoSuite cryptoSuite)
@@ -128,6 +131,11 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
       this.indexer = indexer;
     }
 
+    boolean isEquality()
+    {
+      return equality;
+    }
+
     Set<ByteString> indexEntry(Entry entry)
     {
       final Set<ByteString> keys = new HashSet<>();
@@ -311,6 +319,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     final IndexingOptions indexingOptions = new IndexingOptionsImpl(config.getSubstringLength());
 
     Map<Indexer, Boolean> indexers = new HashMap<>();
+    final Set<String> equalityIndexIDs = new HashSet<>();
     for(IndexType indexType : config.getIndexType()) {
       switch (indexType)
       {
@@ -322,8 +331,13 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
             getExtensibleIndexers(config.getAttribute(), config.getIndexExtensibleMatchingRule(), indexingOptions));
         break;
       case EQUALITY:
-        indexers.putAll(buildBaseIndexers(config.isConfidentialityEnabled(), false, indexType, attributeType,
-            indexingOptions));
+        final Map<Indexer, Boolean> equalityIndexers = buildBaseIndexers(config.isConfidentialityEnabled(), false,
+            indexType, attributeType, indexingOptions);
+        for (Indexer indexer : equalityIndexers.keySet())
+        {
+          equalityIndexIDs.add(indexer.getIndexID());
+        }
+        indexers.putAll(equalityIndexers);
         break;
       case SUBSTRING:
         indexers.putAll(buildBaseIndexers(false, config.isConfidentialityEnabled(), indexType, attributeType,
@@ -337,7 +351,13 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
         throw noMatchingRuleForIndexType(attributeType, indexType);
       }
     }
-    return buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers, cryptoSuite);
+    final Map<String, MatchingRuleIndex> indexes =
+        buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers, cryptoSuite);
+    for (String indexID : equalityIndexIDs)
+    {
+      indexes.get(indexID).equality = true;
+    }
+    return indexes;
   }
 
   private Map<Indexer, Boolean> buildBaseIndexers(boolean protectIndexKeys, boolean protectIndexValues,
@@ -765,6 +785,31 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     }
   }
 
+  /**
+   * Estimates the number of entry IDs that might match a filter, without reading the indexes.
+   *
+   * @param indexQueryFactory the index query factory to use for the estimation
+   * @param indexFilterType the index type filter
+   * @param filter The filter.
+   * @return The estimated number of entry IDs, {@link IndexStatistics#LIMIT_EXCEEDED_SIZE} if the
+   *         filter is expected to return an undefined set, or {@link IndexStatistics#UNKNOWN_SIZE}
+   *         if it cannot be estimated.
+   */
+  static long getEstimatedSize(IndexQueryFactory<IndexQuery> indexQueryFactory, IndexFilterType indexFilterType,
+      SearchFilter filter)
+  {
+    try
+    {
+      return getIndexQuery(indexQueryFactory, indexFilterType, filter).getEstimatedSize();
+    }
+    catch (DecodeException e)
+    {
+      // Evaluating the filter returns an empty set
+      logger.traceException(e);
+      return 0;
+    }
+  }
+
   private static IndexQuery getIndexQuery(IndexQueryFactory<IndexQuery> indexQueryFactory,
       IndexFilterType indexFilterType, SearchFilter filter) throws DecodeException
   {
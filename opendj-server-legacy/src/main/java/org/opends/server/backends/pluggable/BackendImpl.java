@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -36,17 +37,22 @@ import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
 import org.forgerock.util.Reject;
+import org.opends.server.api.EntryStreamable;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.MonitorProvider;
 import org.opends.server.backends.RebuildConfig;
 import org.opends.server.backends.VerifyConfig;
 import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
 import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.StorageInUseException;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
@@ -83,7 +89,7 @@ import org.opends.server.util.RuntimeInformation;
  *          the type of the BackendCfg for the current backend
  */
 public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBackend<C> implements
-    ConfigurationChangeListener<PluggableBackendCfg>
+    ConfigurationChangeListener<PluggableBackendCfg>, EntryStreamable
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -665,24 +671,152 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
     }
     finally
     {
-      try
+      closeImportRootContainer();
+    }
+  }
+
+  private void closeImportRootContainer()
+  {
+    try
+    {
+      if (rootContainer != null)
+      {
+        long startTime = System.currentTimeMillis();
+        rootContainer.close();
+        long finishTime = System.currentTimeMillis();
+        long closeTime = (finishTime - startTime) / 1000;
+        logger.info(NOTE_IMPORT_LDIF_ROOTCONTAINER_CLOSE, closeTime);
+        rootContainer = null;
+      }
+
+      logger.info(NOTE_IMPORT_CLOSING_DATABASE);
+    }
+    catch (StorageRuntimeException de)
+    {
+      logger.traceException(de);
+    }
+  }
+
+  @Override
+  public boolean isEntryStreamingSupported(DN baseDN)
+  {
+    return rootContainer != null && baseDNs.contains(baseDN);
+  }
+
+  @Override
+  public long[] getEntryIDRanges(DN baseDN, int maxRanges) throws DirectoryException
+  {
+    final EntryContainer ec = accessBegin(null, baseDN);
+    ec.sharedLock.lock();
+    try
+    {
+      final long highestID = rootContainer.getStorage().read(new ReadOperation<Long>()
       {
-        if (rootContainer != null)
+        @Override
+        public Long run(ReadableTransaction txn) throws Exception
         {
-          long startTime = System.currentTimeMillis();
-          rootContainer.close();
-          long finishTime = System.currentTimeMillis();
-          long closeTime = (finishTime - startTime) / 1000;
-          logger.info(NOTE_IMPORT_LDIF_ROOTCONTAINER_CLOSE, closeTime);
-          rootContainer = null;
+          return ec.getHighestEntryID(txn).longValue();
         }
-
-        logger.info(NOTE_IMPORT_CLOSING_DATABASE);
-      }
-      catch (StorageRuntimeException de)
+      });
+      // Ranges of similar widths, the last one being unbounded
+      final int nbRanges = (int) Math.max(1, Math.min(maxRanges, highestID));
+      final long[] rangeStarts = new long[nbRanges];
+      for (int i = 0; i < nbRanges; i++)
       {
-        logger.traceException(de);
+        rangeStarts[i] = 1 + i * highestID / nbRanges;
       }
+      return rangeStarts;
+    }
+    catch (Exception e)
+    {
+      throw createDirectoryException(e);
+    }
+    finally
+    {
+      ec.sharedLock.unlock();
+      accessEnd();
+    }
+  }
+
+  @Override
+  public void readEntries(DN baseDN, final long lowestID, final long highestID, final EntryHandler handler)
+      throws DirectoryException
+  {
+    final EntryContainer ec = accessBegin(null, baseDN);
+    ec.sharedLock.lock();
+    try
+    {
+      rootContainer.getStorage().read(new ReadOperation<Void>()
+      {
+        @Override
+        public Void run(ReadableTransaction txn) throws Exception
+        {
+          final ID2Entry id2entry = ec.getID2Entry();
+          try (Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+          {
+            // Entry ID 0 holds the stored entry count
+            boolean found = cursor.positionToKeyOrNext(new EntryID(Math.max(lowestID, 1)).toByteString());
+            while (found)
+            {
+              final EntryID entryID = new EntryID(cursor.getKey());
+              if (entryID.longValue() >= highestID)
+              {
+                break;
+              }
+              final Entry entry = id2entry.entryFromDatabase(cursor.getValue(), rootContainer.getCompressedSchema());
+              if (!handler.handleEntry(entryID.longValue(), entry))
+              {
+                break;
+              }
+              found = cursor.next();
+            }
+          }
+          return null;
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      // The storage may wrap the exception thrown by the handler
+      throw createDirectoryException(e.getCause() instanceof DirectoryException ? e.getCause() : e);
+    }
+    finally
+    {
+      ec.sharedLock.unlock();
+      accessEnd();
+    }
+  }
+
+  @Override
+  public LDIFImportResult importEntries(DN baseDN, List<? extends EntryStream> streams, ServerContext serverContext)
+      throws DirectoryException
+  {
+    RuntimeInformation.logInfo();
+
+    // We can't do import while the backend is online.
+    if (rootContainer != null)
+    {
+      throw new DirectoryException(
+          serverContext.getCoreConfigManager().getServerErrorResultCode(), ERR_IMPORT_BACKEND_ONLINE.get());
+    }
+    if (!baseDNs.contains(baseDN))
+    {
+      throw new DirectoryException(ResultCode.UNDEFINED, ERR_BACKEND_ENTRY_DOESNT_EXIST.get(baseDN, getBackendID()));
+    }
+
+    try
+    {
+      rootContainer = newRootContainer(AccessMode.READ_WRITE);
+      rootContainer.getStorage().close();
+      return getImportStrategy(rootContainer).importEntries(baseDN, streams);
+    }
+    catch (Exception e)
+    {
+      throw createDirectoryException(e);
+    }
+    finally
+    {
+      closeImportRootContainer();
     }
   }
 
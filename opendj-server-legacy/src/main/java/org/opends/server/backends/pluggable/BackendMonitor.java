@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -23,6 +24,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
@@ -80,6 +82,8 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   private final HashMap<SearchFilter, FilterStats> filterToStats = new HashMap<>();
   private final AtomicInteger indexedSearchCount = new AtomicInteger();
   private final AtomicInteger unindexedSearchCount = new AtomicInteger();
+  private final AtomicLong parallelSearchCount = new AtomicLong();
+  private final AtomicLong parallelSearchCandidates = new AtomicLong();
 
   /**
    * Creates a new backend monitor.
@@ -102,7 +106,7 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData monitorAttrs = new MonitorData(5);
+    MonitorData monitorAttrs = new MonitorData(7);
 
     Collection<String> needReindexValues = createNeedReindexValues();
     if (!needReindexValues.isEmpty())
@@ -117,10 +121,47 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
       monitorAttrs.add("filter-use-indexed", indexedSearchCount);
       monitorAttrs.add("filter-use-unindexed", unindexedSearchCount);
     }
+    monitorAttrs.add("parallel-search-count", parallelSearchCount);
+    monitorAttrs.add("parallel-search-candidates", parallelSearchCandidates);
+    addBloomFilterValues(monitorAttrs);
 
     return monitorAttrs;
   }
 
+  private void addBloomFilterValues(MonitorData monitorAttrs)
+  {
+    List<String> values = new ArrayList<>();
+    long definiteMisses = 0;
+    long falsePositives = 0;
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      for (Tree tree : ec.listTrees())
+      {
+        if (!(tree instanceof BloomFilterStore.FilteredTree))
+        {
+          continue;
+        }
+        BloomFilter bloomFilter = ((BloomFilterStore.FilteredTree) tree).getBloomFilter();
+        if (bloomFilter != null)
+        {
+          definiteMisses += bloomFilter.getDefiniteMissCount();
+          falsePositives += bloomFilter.getFalsePositiveCount();
+          values.add(tree.getName()
+              + " keys:" + bloomFilter.getNbKeys()
+              + " bytes:" + bloomFilter.getSizeInBytes()
+              + " definitemisses:" + bloomFilter.getDefiniteMissCount()
+              + " falsepositives:" + bloomFilter.getFalsePositiveCount());
+        }
+      }
+    }
+    if (!values.isEmpty())
+    {
+      monitorAttrs.add("bloom-filter", values);
+      monitorAttrs.add("bloom-filter-definite-misses", definiteMisses);
+      monitorAttrs.add("bloom-filter-false-positives", falsePositives);
+    }
+  }
+
   private Collection<String> createNeedReindexValues()
   {
     Collection<String> values = new ArrayList<>();
@@ -283,6 +324,17 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
+  /**
+   * Updates the statistics counters to include a search processed by the parallel search pool.
+   *
+   * @param nbCandidates the number of candidate entries of the search
+   */
+  void incrementParallelSearchCount(long nbCandidates)
+  {
+    parallelSearchCount.getAndIncrement();
+    parallelSearchCandidates.getAndAdd(nbCandidates);
+  }
+
   private void removeLowestHit()
   {
     while (!filterToStats.isEmpty() && filterToStats.size() > maxEntries)
@@ -0,0 +1,353 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * In-memory Bloom filter of the keys of a tree, telling for sure that a key is not in the tree without reading it.
+ * <p>
+ * This is a blocked Bloom filter: all the bits of a key are in the same block of 512 bits, so a lookup reads a single
+ * cache line. Keys can only be added: keys removed from the tree are still reported as possibly present until the
+ * filter is rebuilt. The filter is made of segments: once a segment holds as many keys as it was sized for, a new
+ * segment is added, so the filter keeps an acceptable false positive rate when the tree grows. A key is possibly
+ * present if it is possibly present in one of the segments.
+ * <p>
+ * This class is thread safe.
+ */
+final class BloomFilter
+{
+  /** Number of bits of a block, the size of a cache line. */
+  private static final int BLOCK_BITS = 512;
+  private static final int LONGS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+  /** Number of bits set for each key. Each bit is selected by 9 bits of the hash of the key. */
+  private static final int NB_PROBES = 7;
+  /** Number of bits per key of the first segment, for a false positive rate around 1%. */
+  private static final int MIN_BITS_PER_KEY = 10;
+  /** Segments added later have more bits per key, so the false positive rate of the filter stays bounded. */
+  private static final int MAX_BITS_PER_KEY = 16;
+  private static final int MAX_NB_BLOCKS = Integer.MAX_VALUE / LONGS_PER_BLOCK;
+  /** Minimum number of keys a segment is sized for. */
+  static final int MIN_CAPACITY = 4096;
+  private static final byte FORMAT_VERSION = 0x01;
+
+  /** A fixed size blocked Bloom filter. */
+  private static final class Segment
+  {
+    private final long capacity;
+    private final int nbBlocks;
+    private final AtomicLongArray words;
+    /** The number of keys which have set at least one bit of this segment. */
+    private final AtomicLong nbKeys;
+
+    private Segment(long capacity, int bitsPerKey)
+    {
+      this.capacity = capacity;
+      this.nbBlocks = (int) Math.min(MAX_NB_BLOCKS, Math.max(1, (capacity * bitsPerKey + BLOCK_BITS - 1) / BLOCK_BITS));
+      this.words = new AtomicLongArray(nbBlocks * LONGS_PER_BLOCK);
+      this.nbKeys = new AtomicLong();
+    }
+
+    private Segment(long capacity, long nbKeys, long[] words)
+    {
+      this.capacity = capacity;
+      this.nbBlocks = words.length / LONGS_PER_BLOCK;
+      this.words = new AtomicLongArray(words);
+      this.nbKeys = new AtomicLong(nbKeys);
+    }
+
+    private int blockOffset(long hash)
+    {
+      // Unsigned multiply-shift of the upper half of the hash: uniform over the blocks
+      return (int) (((hash >>> 32) * nbBlocks) >>> 32) * LONGS_PER_BLOCK;
+    }
+
+    private boolean contains(long hash)
+    {
+      final int offset = blockOffset(hash);
+      long bits = mix(hash);
+      for (int i = 0; i < NB_PROBES; i++, bits >>>= 9)
+      {
+        final int bit = (int) bits & (BLOCK_BITS - 1);
+        if ((words.get(offset + (bit >>> 6)) & (1L << bit)) == 0)
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Returns whether at least one bit has been set. */
+    private boolean set(long hash)
+    {
+      final int offset = blockOffset(hash);
+      long bits = mix(hash);
+      boolean changed = false;
+      for (int i = 0; i < NB_PROBES; i++, bits >>>= 9)
+      {
+        final int bit = (int) bits & (BLOCK_BITS - 1);
+        final int index = offset + (bit >>> 6);
+        final long mask = 1L << bit;
+        long word = words.get(index);
+        while ((word & mask) == 0)
+        {
+          if (words.compareAndSet(index, word, word | mask))
+          {
+            changed = true;
+            break;
+          }
+          word = words.get(index);
+        }
+      }
+      return changed;
+    }
+  }
+
+  private volatile Segment[] segments;
+  /** Number of lookups of keys which were not in the filter. */
+  private final AtomicLong definiteMissCount = new AtomicLong();
+  /** Number of lookups of keys which were in the filter, but not in the tree. */
+  private final AtomicLong falsePositiveCount = new AtomicLong();
+
+  /** Creates an empty filter, for an empty tree. */
+  BloomFilter()
+  {
+    this(0);
+  }
+
+  /**
+   * Creates an empty filter sized for the provided number of keys, with room for a fourth more keys, for example before
+   * a tree is imported or scanned. Keys are added directly to the filter, and segments are added if there are more keys
+   * than expected.
+   *
+   * @param expectedNbKeys
+   *          the number of keys which will be added to the filter, or an upper bound of this number
+   */
+  BloomFilter(long expectedNbKeys)
+  {
+    this(new Segment[] { new Segment(Math.max(MIN_CAPACITY, expectedNbKeys + expectedNbKeys / 4), MIN_BITS_PER_KEY) });
+  }
+
+  private BloomFilter(Segment[] segments)
+  {
+    this.segments = segments;
+  }
+
+  /**
+   * Returns whether the provided key may be in the tree. Lookups of keys which are not in the filter are counted as
+   * definite misses.
+   *
+   * @param key
+   *          the key to look for
+   * @return {@code false} if the key is not in the tree, {@code true} if it may be in the tree
+   */
+  boolean mightContain(ByteSequence key)
+  {
+    final long hash = hash(key);
+    for (Segment segment : segments)
+    {
+      if (segment.contains(hash))
+      {
+        return true;
+      }
+    }
+    definiteMissCount.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Adds a key to this filter. Keys must be added before they are written to the tree, so that concurrent lookups never
+   * miss a key which is in the tree.
+   *
+   * @param key
+   *          the key to add
+   */
+  void add(ByteSequence key)
+  {
+    final long hash = hash(key);
+    final Segment[] currentSegments = segments;
+    for (Segment segment : currentSegments)
+    {
+      if (segment.contains(hash))
+      {
+        return;
+      }
+    }
+    final Segment last = currentSegments[currentSegments.length - 1];
+    if (last.set(hash) && last.nbKeys.incrementAndGet() >= last.capacity)
+    {
+      addSegment(last);
+    }
+  }
+
+  private synchronized void addSegment(Segment full)
+  {
+    final Segment[] currentSegments = segments;
+    if (currentSegments[currentSegments.length - 1] != full)
+    {
+      // Already done by another thread
+      return;
+    }
+    final int bitsPerKey = Math.min(MAX_BITS_PER_KEY, MIN_BITS_PER_KEY + 2 * currentSegments.length);
+    final Segment[] newSegments = Arrays.copyOf(currentSegments, currentSegments.length + 1);
+    newSegments[currentSegments.length] = new Segment(Math.max(MIN_CAPACITY, getNbKeys() / 2), bitsPerKey);
+    segments = newSegments;
+  }
+
+  /** Counts a lookup of a key which was possibly present according to this filter, but was not in the tree. */
+  void recordFalsePositive()
+  {
+    falsePositiveCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of lookups of keys which were not in this filter.
+   *
+   * @return the number of lookups of keys which were not in this filter
+   */
+  long getDefiniteMissCount()
+  {
+    return definiteMissCount.get();
+  }
+
+  /**
+   * Returns the number of lookups of keys which were in this filter, but not in the tree.
+   *
+   * @return the number of false positives of this filter
+   */
+  long getFalsePositiveCount()
+  {
+    return falsePositiveCount.get();
+  }
+
+  /**
+   * Returns the approximate number of distinct keys added to this filter.
+   *
+   * @return the approximate number of distinct keys added to this filter
+   */
+  long getNbKeys()
+  {
+    long nbKeys = 0;
+    for (Segment segment : segments)
+    {
+      nbKeys += segment.nbKeys.get();
+    }
+    return nbKeys;
+  }
+
+  /**
+   * Returns the memory used by the bits of this filter.
+   *
+   * @return the size in bytes of this filter
+   */
+  long getSizeInBytes()
+  {
+    long size = 0;
+    for (Segment segment : segments)
+    {
+      size += segment.words.length() * (long) (Long.SIZE / Byte.SIZE);
+    }
+    return size;
+  }
+
+  /**
+   * Encodes this filter. Keys added concurrently may or may not be part of the encoded filter.
+   *
+   * @param builder
+   *          the builder where to append the encoded filter
+   */
+  void encode(ByteStringBuilder builder)
+  {
+    final Segment[] currentSegments = segments;
+    builder.appendByte(FORMAT_VERSION);
+    builder.appendInt(currentSegments.length);
+    for (Segment segment : currentSegments)
+    {
+      builder.appendLong(segment.capacity);
+      builder.appendLong(segment.nbKeys.get());
+      builder.appendInt(segment.words.length());
+      for (int i = 0; i < segment.words.length(); i++)
+      {
+        builder.appendLong(segment.words.get(i));
+      }
+    }
+  }
+
+  /**
+   * Decodes a filter encoded by {@link #encode(ByteStringBuilder)}.
+   *
+   * @param reader
+   *          the reader of the encoded filter
+   * @return the decoded filter, or {@code null} if it was encoded in an unsupported format
+   */
+  static BloomFilter decode(ByteSequenceReader reader)
+  {
+    if (reader.readByte() != FORMAT_VERSION)
+    {
+      return null;
+    }
+    final Segment[] segments = new Segment[reader.readInt()];
+    for (int i = 0; i < segments.length; i++)
+    {
+      final long capacity = reader.readLong();
+      final long nbKeys = reader.readLong();
+      final long[] words = new long[reader.readInt()];
+      for (int j = 0; j < words.length; j++)
+      {
+        words[j] = reader.readLong();
+      }
+      segments[i] = new Segment(capacity, nbKeys, words);
+    }
+    return segments.length > 0 ? new BloomFilter(segments) : null;
+  }
+
+  /** 64 bits FNV-1a hash of the key, with a final avalanche so that all the bits depend on all the bytes. */
+  private static long hash(ByteSequence key)
+  {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++)
+    {
+      hash ^= key.byteAt(i) & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /** Finalizer of MurmurHash3. */
+  private static long mix(long value)
+  {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(segments=" + segments.length + ", keys=" + getNbKeys()
+        + ", bytes=" + getSizeInBytes() + ")";
+  }
+}
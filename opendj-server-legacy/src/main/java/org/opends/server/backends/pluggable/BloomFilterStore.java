@@ -0,0 +1,205 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+
+/**
+ * Stores the {@link BloomFilter}s of the trees of an entry container while the backend is closed.
+ * <p>
+ * The filters are saved when the backend is closed, or at the end of an import, and removed as soon as they have been
+ * loaded when the backend is opened: the filters are not maintained while the backend is closed, so a filter found in
+ * this tree is always up to date, even after a crash or when the filters have been disabled in the meantime. A filter
+ * which is not found is rebuilt by reading all the keys of its tree.
+ * <p>
+ * Each filter is split into several records whose key is the name of the filtered tree followed by the number of the
+ * record. The first record holds the number of records of the filter.
+ */
+final class BloomFilterStore extends AbstractTree
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum size of the records holding a filter. */
+  private static final int RECORD_SIZE = 16 * 1024;
+
+  /** A tree whose keys can be tracked by a {@link BloomFilter}. */
+  interface FilteredTree extends Tree
+  {
+    /**
+     * Returns the Bloom filter of the keys of this tree.
+     *
+     * @return the Bloom filter of the keys of this tree, or {@code null} if there is none
+     */
+    BloomFilter getBloomFilter();
+
+    /**
+     * Sets the Bloom filter of the keys of this tree. The provided filter must contain all the keys of this tree.
+     *
+     * @param bloomFilter
+     *          the Bloom filter of the keys of this tree, or {@code null} to stop using a Bloom filter
+     */
+    void setBloomFilter(BloomFilter bloomFilter);
+  }
+
+  /**
+   * Creates the tree storing the Bloom filters of an entry container.
+   *
+   * @param name
+   *          the name of the tree
+   */
+  BloomFilterStore(TreeName name)
+  {
+    super(name);
+  }
+
+  /**
+   * Loads the Bloom filter saved for the provided tree, or builds it by reading all the keys of the tree.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param tree
+   *          the tree whose filter must be loaded
+   * @param expectedNbKeys
+   *          the expected number of keys of the tree, used to size the filter when it must be rebuilt
+   * @return the Bloom filter of the keys of the provided tree
+   * @throws StorageRuntimeException
+   *           If an error occurs in the storage.
+   */
+  BloomFilter load(ReadableTransaction txn, Tree tree, long expectedNbKeys) throws StorageRuntimeException
+  {
+    final BloomFilter bloomFilter = read(txn, tree.getName());
+    if (bloomFilter != null)
+    {
+      return bloomFilter;
+    }
+    final BloomFilter newBloomFilter = new BloomFilter(expectedNbKeys);
+    try (final Cursor<ByteString, ByteString> cursor = txn.openCursor(tree.getName()))
+    {
+      while (cursor.next())
+      {
+        newBloomFilter.add(cursor.getKey());
+      }
+    }
+    return newBloomFilter;
+  }
+
+  private BloomFilter read(ReadableTransaction txn, TreeName treeName)
+  {
+    try
+    {
+      final ByteString header = txn.read(getName(), toKey(treeName, 0));
+      if (header == null)
+      {
+        return null;
+      }
+      final int nbRecords = header.toInt();
+      final ByteStringBuilder encodedFilter = new ByteStringBuilder();
+      for (int i = 1; i <= nbRecords; i++)
+      {
+        final ByteString record = txn.read(getName(), toKey(treeName, i));
+        if (record == null)
+        {
+          return null;
+        }
+        encodedFilter.appendBytes(record);
+      }
+      return BloomFilter.decode(encodedFilter.asReader());
+    }
+    catch (RuntimeException e)
+    {
+      // The filter will be rebuilt
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Saves the Bloom filter of the provided tree.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param tree
+   *          the tree whose filter must be saved
+   * @param bloomFilter
+   *          the Bloom filter of the keys of the tree
+   * @throws StorageRuntimeException
+   *           If an error occurs in the storage.
+   */
+  void save(WriteableTransaction txn, Tree tree, BloomFilter bloomFilter) throws StorageRuntimeException
+  {
+    final ByteStringBuilder encodedFilter = new ByteStringBuilder();
+    bloomFilter.encode(encodedFilter);
+    final ByteSequenceReader reader = encodedFilter.asReader();
+    int nbRecords = 0;
+    while (reader.remaining() > 0)
+    {
+      nbRecords++;
+      txn.put(getName(), toKey(tree.getName(), nbRecords),
+          reader.readByteSequence(Math.min(RECORD_SIZE, reader.remaining())));
+    }
+    // Written last, so that the filter is ignored if it could not be written completely
+    txn.put(getName(), toKey(tree.getName(), 0), new ByteStringBuilder(4).appendInt(nbRecords).toByteString());
+  }
+
+  /**
+   * Removes all the saved Bloom filters.
+   *
+   * @param txn
+   *          a non null transaction
+   * @throws StorageRuntimeException
+   *           If an error occurs in the storage.
+   */
+  void clear(WriteableTransaction txn) throws StorageRuntimeException
+  {
+    try (final Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      while (cursor.next())
+      {
+        cursor.delete();
+      }
+    }
+  }
+
+  private static ByteString toKey(TreeName treeName, int recordNumber)
+  {
+    return new ByteStringBuilder()
+        .appendUtf8(treeName.toString())
+        .appendByte(0)
+        .appendInt(recordNumber)
+        .toByteString();
+  }
+
+  @Override
+  public String keyToString(ByteString key)
+  {
+    final int separator = key.length() - 5;
+    return key.subSequence(0, separator).toString() + "#" + key.subSequence(separator + 1, key.length()).toInt();
+  }
+
+  @Override
+  public String valueToString(ByteString value)
+  {
+    return value.length() + " bytes";
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -48,7 +49,7 @@ import org.opends.server.types.Operation;
  * is the entry ID.
  */
 @SuppressWarnings("javadoc")
-class DN2ID extends AbstractTree
+class DN2ID extends AbstractTree implements BloomFilterStore.FilteredTree
 {
   private static final Function<ByteString, Void, NeverThrowsException> TO_VOID_KEY = Functions.returns(null);
 
@@ -64,6 +65,8 @@ class DN2ID extends AbstractTree
           };
 
   private final DN baseDN;
+  /** The filter of the DNs in this tree, or null if none. */
+  private volatile BloomFilter bloomFilter;
 
   /**
    * Create a DN2ID instance for in a given entryContainer.
@@ -88,7 +91,18 @@ class DN2ID extends AbstractTree
    */
   void put(final WriteableTransaction txn, DN dn, final EntryID entryID) throws StorageRuntimeException
   {
-    txn.put(getName(), toKey(dn), toValue(entryID));
+    final ByteString key = toKey(dn);
+    addToBloomFilter(key);
+    txn.put(getName(), key, toValue(entryID));
+  }
+
+  private void addToBloomFilter(ByteSequence key)
+  {
+    final BloomFilter filter = bloomFilter;
+    if (filter != null)
+    {
+      filter.add(key);
+    }
   }
 
   private ByteString toKey(DN dn)
@@ -124,10 +138,32 @@ class DN2ID extends AbstractTree
    */
   EntryID get(ReadableTransaction txn, DN dn) throws StorageRuntimeException
   {
-    final ByteString value = txn.read(getName(), toKey(dn));
+    final ByteString key = toKey(dn);
+    final BloomFilter filter = bloomFilter;
+    if (filter != null && !filter.mightContain(key))
+    {
+      return null;
+    }
+    final ByteString value = txn.read(getName(), key);
+    if (value == null && filter != null)
+    {
+      filter.recordFalsePositive();
+    }
     return value != null ? new EntryID(value) : null;
   }
 
+  @Override
+  public BloomFilter getBloomFilter()
+  {
+    return bloomFilter;
+  }
+
+  @Override
+  public void setBloomFilter(BloomFilter bloomFilter)
+  {
+    this.bloomFilter = bloomFilter;
+  }
+
   <V> SequentialCursor<ByteString, ByteString> openCursor(SequentialCursor<ByteString, ByteString> dn2IdCursor,
       TreeVisitor<V> treeVisitor)
   {
@@ -177,6 +213,7 @@ class DN2ID extends AbstractTree
         ByteString newDnKeySuffix = currentDnKey.subSequence(oldTargetDnKeyLength, currentDnKey.length());
         ByteSequence newDnKey = new ByteStringBuilder(newTargetDnKey).appendBytes(newDnKeySuffix);
         EntryID newID = renumberEntryIDs ? rootContainer.getNextEntryID() : oldID;
+        addToBloomFilter(newDnKey);
         txn.put(getName(), newDnKey, newID.toByteString());
 
         renamedEntryIDs.add(Pair.of(oldID.longValue(), newID.longValue()));
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -33,10 +34,12 @@ final class DataConfig
   static final class Builder
   {
     private boolean compressed;
+    private boolean compressedWithDictionary;
     private boolean encrypted;
     private boolean compactEncoding;
     private CompressedSchema compressedSchema;
     private CryptoSuite cryptoSuite;
+    private PersistentCompressionDictionary compressionDictionary;
 
     Builder()
     {
@@ -55,6 +58,18 @@ final class DataConfig
       return this;
     }
 
+    public Builder compressWithDictionary(boolean enabled)
+    {
+      this.compressedWithDictionary = enabled;
+      return this;
+    }
+
+    public Builder compressionDictionary(PersistentCompressionDictionary dictionary)
+    {
+      this.compressionDictionary = dictionary;
+      return this;
+    }
+
     public Builder encrypt(boolean enabled)
     {
       this.encrypted = enabled;
@@ -81,6 +96,12 @@ final class DataConfig
   /** Indicates whether data should be compressed before writing to the storage. */
   private final boolean compressed;
 
+  /** Indicates whether compressed data should use the trained compression dictionary, once available. */
+  private final boolean compressedWithDictionary;
+
+  /** The dictionaries used to compress the data, needed to read data compressed with a dictionary. */
+  private final PersistentCompressionDictionary compressionDictionary;
+
   /** The configuration to use when encoding entries in the tree. */
   private final EntryEncodeConfig encodeConfig;
 
@@ -95,6 +116,9 @@ final class DataConfig
   private DataConfig(Builder builder)
   {
     this.compressed = builder.compressed;
+    this.compressedWithDictionary = builder.compressed && builder.compressedWithDictionary
+        && builder.compressionDictionary != null;
+    this.compressionDictionary = builder.compressionDictionary;
     this.encrypted = builder.encrypted;
     this.cryptoSuite = builder.cryptoSuite;
 
@@ -115,6 +139,16 @@ final class DataConfig
     return compressed;
   }
 
+  boolean isCompressedWithDictionary()
+  {
+    return compressedWithDictionary;
+  }
+
+  PersistentCompressionDictionary getCompressionDictionary()
+  {
+    return compressionDictionary;
+  }
+
   boolean isEncrypted()
   {
     return encrypted;
@@ -136,6 +170,8 @@ final class DataConfig
     final StringBuilder builder = new StringBuilder();
     builder.append("DataConfig(compressed=");
     builder.append(compressed);
+    builder.append(", compressedWithDictionary=");
+    builder.append(compressedWithDictionary);
     builder.append(", encrypted=");
     builder.append(encrypted);
     builder.append(", ");
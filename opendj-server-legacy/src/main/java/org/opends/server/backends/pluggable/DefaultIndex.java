@@ -13,12 +13,14 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import static org.forgerock.util.Reject.*;
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
 import static org.opends.server.backends.pluggable.State.IndexFlag.*;
 
 import java.util.EnumSet;
@@ -43,7 +45,7 @@ import org.opends.server.crypto.CryptoSuite;
  * is a byte array, and is constructed from some normalized form of an attribute value (or fragment
  * of a value) appearing in the entry.
  */
-class DefaultIndex extends AbstractTree implements Index
+class DefaultIndex extends AbstractTree implements Index, BloomFilterStore.FilteredTree
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -54,6 +56,10 @@ class DefaultIndex extends AbstractTree implements Index
 
   private EntryIDSetCodec codec;
   private CryptoSuite cryptoSuite;
+  /** The key cardinality statistics used to estimate the cost of reading keys. */
+  private final IndexStatistics statistics = new IndexStatistics();
+  /** The filter of the keys of this index, or null if none. */
+  private volatile BloomFilter bloomFilter;
 
   /**
    * A flag to indicate if this index should be trusted to be consistent with the entries tree.
@@ -96,11 +102,7 @@ class DefaultIndex extends AbstractTree implements Index
   final void afterOpen(WriteableTransaction txn, boolean createOnDemand)
   {
     final EnumSet<IndexFlag> flags = state.getIndexFlags(txn, getName());
-    codec = flags.contains(COMPACTED) ? CODEC_V2 : CODEC_V1;
-    if (cryptoSuite.isEncrypted())
-    {
-      codec = new EntryIDSet.EntryIDSetCodecV3(codec, cryptoSuite);
-    }
+    codec = newCodec(flags);
     trusted = flags.contains(TRUSTED);
     if (createOnDemand && !trusted && entryContainer.isEmpty(txn))
     {
@@ -110,6 +112,33 @@ class DefaultIndex extends AbstractTree implements Index
     }
   }
 
+  @Override
+  final void beforeDelete(WriteableTransaction txn)
+  {
+    // The index is being emptied, for example because it is rebuilt: from now on store its values as bitmaps.
+    state.addFlagsToIndex(txn, getName(), BITMAP);
+    codec = newCodec(state.getIndexFlags(txn, getName()));
+    statistics.clear();
+  }
+
+  /**
+   * Returns the codec for the provided index flags. Indexes flagged with {@link IndexFlag#BITMAP} still decode the
+   * values written before they were flagged with the codec selected by {@link IndexFlag#COMPACTED}.
+   */
+  private EntryIDSetCodec newCodec(EnumSet<IndexFlag> flags)
+  {
+    EntryIDSetCodec newCodec = flags.contains(COMPACTED) ? CODEC_V2 : CODEC_V1;
+    if (flags.contains(BITMAP))
+    {
+      newCodec = new EntryIDSet.EntryIDSetCodecV4(newCodec);
+    }
+    if (cryptoSuite.isEncrypted())
+    {
+      newCodec = new EntryIDSet.EntryIDSetCodecV3(newCodec, cryptoSuite);
+    }
+    return newCodec;
+  }
+
   @Override
   public String valueToString(ByteString value)
   {
@@ -165,6 +194,17 @@ class DefaultIndex extends AbstractTree implements Index
     return cryptoSuite.isEncrypted() ? toValue(newDefinedSet(entryID.longValue())) : entryID.toByteString();
   }
 
+  /** Records the statistics of a record written to this index by an import or a rebuild. */
+  void importRecordStatistics(ByteSequence key, ByteString value)
+  {
+    recordSize(key, decodeValue(key, value));
+  }
+
+  private void recordSize(ByteSequence key, EntryIDSet entryIDSet)
+  {
+    statistics.recordSize(key, entryIDSet.isDefined() ? entryIDSet.size() : LIMIT_EXCEEDED_SIZE);
+  }
+
   @Override
   public final void update(final WriteableTransaction txn, final ByteString key, final EntryIDSet deletedIDs,
       final EntryIDSet addedIDs) throws StorageRuntimeException
@@ -193,6 +233,7 @@ class DefaultIndex extends AbstractTree implements Index
         if (oldValue != null)
         {
           EntryIDSet entryIDSet = computeEntryIDSet(key, oldValue.toByteString(), deletedIDs, addedIDs);
+          recordSize(key, entryIDSet);
           /*
            * If there are no more IDs then return null indicating that the record should be removed.
            * If index is not trusted then this will cause all subsequent reads for this key to
@@ -208,6 +249,8 @@ class DefaultIndex extends AbstractTree implements Index
           }
           if (isNotEmpty(addedIDs))
           {
+            recordSize(key, addedIDs);
+            addToBloomFilter(key);
             return toValue(addedIDs);
           }
         }
@@ -216,6 +259,15 @@ class DefaultIndex extends AbstractTree implements Index
     });
   }
 
+  private void addToBloomFilter(ByteSequence key)
+  {
+    final BloomFilter filter = bloomFilter;
+    if (filter != null)
+    {
+      filter.add(key);
+    }
+  }
+
   private static boolean isNullOrEmpty(EntryIDSet entryIDSet)
   {
     return entryIDSet == null || entryIDSet.size() == 0;
@@ -271,10 +323,22 @@ class DefaultIndex extends AbstractTree implements Index
   {
     try
     {
+      // Keys which are not in the index are undefined if the index is not trusted
+      final BloomFilter filter = trusted ? bloomFilter : null;
+      if (filter != null && !filter.mightContain(key))
+      {
+        return newDefinedSet();
+      }
       ByteString value = txn.read(getName(), key);
       if (value != null)
       {
-        return decodeValue(key, value);
+        final EntryIDSet entryIDSet = decodeValue(key, value);
+        recordSize(key, entryIDSet);
+        return entryIDSet;
+      }
+      if (filter != null)
+      {
+        filter.recordFalsePositive();
       }
       return trusted ? newDefinedSet() : newUndefinedSet();
     }
@@ -285,6 +349,22 @@ class DefaultIndex extends AbstractTree implements Index
     }
   }
 
+  @Override
+  public final long getEstimatedSize(ByteSequence key)
+  {
+    if (!trusted)
+    {
+      // Keys which do not exist are undefined
+      return UNKNOWN_SIZE;
+    }
+    final long size = statistics.getKeySize(key);
+    if (size == UNKNOWN_SIZE)
+    {
+      return statistics.getAverageSize();
+    }
+    return indexEntryLimit > 0 && size >= indexEntryLimit ? LIMIT_EXCEEDED_SIZE : size;
+  }
+
   @Override
   public final boolean setIndexEntryLimit(int indexEntryLimit)
   {
@@ -299,6 +379,18 @@ class DefaultIndex extends AbstractTree implements Index
     return cryptoSuite.isEncrypted() != indexConfidential;
   }
 
+  @Override
+  public final BloomFilter getBloomFilter()
+  {
+    return bloomFilter;
+  }
+
+  @Override
+  public final void setBloomFilter(BloomFilter bloomFilter)
+  {
+    this.bloomFilter = bloomFilter;
+  }
+
   @Override
   public final int getIndexEntryLimit()
   {
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -27,6 +28,8 @@ import static org.opends.server.protocols.ldap.LDAPResultCode.*;
 import static org.opends.server.types.AdditionalLogItem.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,7 +39,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -66,6 +75,7 @@ import org.opends.server.api.EntryCache;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.api.plugin.PluginResult.SubordinateDelete;
 import org.opends.server.api.plugin.PluginResult.SubordinateModifyDN;
+import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
 import org.opends.server.backends.pluggable.spi.AccessMode;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
@@ -95,6 +105,7 @@ import org.opends.server.types.Attributes;
 import org.opends.server.types.CanceledOperationException;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Modification;
 import org.opends.server.types.Operation;
@@ -124,6 +135,15 @@ public class EntryContainer
   private static final String REFERRAL_TREE_NAME = REFERRAL_INDEX_NAME;
   /** The name of the state tree. */
   private static final String STATE_TREE_NAME = STATE_INDEX_NAME;
+  /** The name of the tree storing the Bloom filters while the entry container is closed. */
+  private static final String BLOOM_FILTER_TREE_NAME = "bloomfilter";
+  /**
+   * The number of candidate entries fetched and filtered by each task of a parallel search.
+   * Package private for testing.
+   */
+  static int parallelSearchBatchSize = 256;
+  /** The directory where the sorts of large search results are spilled, below which each backend has its own. */
+  private static final String SORT_TMP_DIR = "sort-tmp";
 
   /** The attribute index configuration manager. */
   private final AttributeIndexCfgManager attributeIndexCfgManager;
@@ -151,6 +171,8 @@ public class EntryContainer
   private final DN2URI dn2uri;
   /** The state tree maps a config DN to config entries. */
   private final State state;
+  /** The Bloom filter tree maps a tree name to the Bloom filter of its keys, while the container is closed. */
+  private final BloomFilterStore bloomFilterStore;
 
   /** The set of attribute indexes. */
   private final Map<AttributeType, AttributeIndex> attrIndexMap = new HashMap<>();
@@ -361,6 +383,7 @@ public class EntryContainer
     this.dn2id = new DN2ID(getIndexName(DN2ID_TREE_NAME), baseDN);
     this.dn2uri = new DN2URI(getIndexName(REFERRAL_TREE_NAME), this);
     this.state = new State(getIndexName(STATE_TREE_NAME));
+    this.bloomFilterStore = new BloomFilterStore(getIndexName(BLOOM_FILTER_TREE_NAME));
 
     config.addPluggableChangeListener(this);
 
@@ -388,6 +411,8 @@ public class EntryContainer
   {
     return new DataConfig.Builder()
         .compress(config.isEntriesCompressed())
+        .compressWithDictionary(config.isEntriesCompressionDictionaryEnabled())
+        .compressionDictionary(rootContainer.getCompressionDictionary())
         .encode(config.isCompactEncoding())
         .encrypt(config.isConfidentialityEnabled())
         .cryptoSuite(serverContext.getCryptoManager().newCryptoSuite(config.getCipherTransformation(),
@@ -420,6 +445,7 @@ public class EntryContainer
       dn2id.open(txn, shouldCreate);
       state.open(txn, shouldCreate);
       dn2uri.open(txn, shouldCreate);
+      bloomFilterStore.open(txn, shouldCreate);
 
       final boolean isNotEmpty = !isEmpty(txn);
       for (String idx : config.listBackendIndexes())
@@ -450,6 +476,11 @@ public class EntryContainer
 
         vlvIndexMap.put(vlvIndexCfg.getName().toLowerCase(), vlvIndex);
       }
+
+      if (shouldCreate)
+      {
+        openBloomFilters(txn);
+      }
     }
     catch (StorageRuntimeException de)
     {
@@ -459,6 +490,72 @@ public class EntryContainer
     }
   }
 
+  /**
+   * Loads the Bloom filters saved when the entry container was closed, or rebuilds them, then removes the saved filters
+   * since they are not maintained by the writes done from now on.
+   */
+  private void openBloomFilters(WriteableTransaction txn)
+  {
+    if (config.isBloomFilterEnabled())
+    {
+      // Size the filters which must be rebuilt for the number of entries, the number of keys of dn2id
+      final long nbEntries = id2childrenCount.getTotalCount(txn);
+      for (BloomFilterStore.FilteredTree tree : listBloomFilteredTrees())
+      {
+        tree.setBloomFilter(bloomFilterStore.load(txn, tree, nbEntries));
+      }
+    }
+    bloomFilterStore.clear(txn);
+  }
+
+  /**
+   * Saves the Bloom filters of the trees of this entry container, and stops using them.
+   *
+   * @param txn a non null transaction
+   * @throws StorageRuntimeException If an error occurs in the storage.
+   */
+  void saveBloomFilters(WriteableTransaction txn) throws StorageRuntimeException
+  {
+    for (BloomFilterStore.FilteredTree tree : listBloomFilteredTrees())
+    {
+      final BloomFilter bloomFilter = tree.getBloomFilter();
+      if (bloomFilter != null)
+      {
+        bloomFilterStore.save(txn, tree, bloomFilter);
+        tree.setBloomFilter(null);
+      }
+    }
+  }
+
+  private boolean hasBloomFilters()
+  {
+    for (BloomFilterStore.FilteredTree tree : listBloomFilteredTrees())
+    {
+      if (tree.getBloomFilter() != null)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<BloomFilterStore.FilteredTree> listBloomFilteredTrees()
+  {
+    final List<BloomFilterStore.FilteredTree> trees = new ArrayList<>();
+    trees.add(dn2id);
+    for (AttributeIndex index : attrIndexMap.values())
+    {
+      for (MatchingRuleIndex matchingRuleIndex : index.getNameToIndexes().values())
+      {
+        if (matchingRuleIndex.isEquality())
+        {
+          trees.add(matchingRuleIndex);
+        }
+      }
+    }
+    return trees;
+  }
+
   boolean isEmpty(ReadableTransaction txn)
   {
     return getHighestEntryID(txn).longValue() == 0;
@@ -472,6 +569,25 @@ public class EntryContainer
   @Override
   public void close() throws StorageRuntimeException
   {
+    if (hasBloomFilters())
+    {
+      try
+      {
+        storage.write(new WriteOperation()
+        {
+          @Override
+          public void run(WriteableTransaction txn) throws Exception
+          {
+            saveBloomFilters(txn);
+          }
+        });
+      }
+      catch (Exception e)
+      {
+        // The filters will be rebuilt when the entry container is opened
+        logger.traceException(e);
+      }
+    }
     closeSilently(attrIndexMap.values());
     closeSilently(vlvIndexMap.values());
 
@@ -733,6 +849,10 @@ public class EntryContainer
             debugBuffer = new StringBuilder();
           }
 
+          // Combining server-side sort with paged result controls
+          // requires us to use an entryIDSet where the entryIDs are ordered
+          // so further paging can restart where it previously stopped
+          long[] reorderedCandidateEntryIDs = null;
           EntryIDSet candidateEntryIDs = null;
           boolean candidatesAreInScope = false;
           if (sortRequest != null)
@@ -741,8 +861,9 @@ public class EntryContainer
             {
               try
               {
-                candidateEntryIDs = vlvIndex.evaluate(txn, searchOperation, sortRequest, vlvRequest, debugBuffer);
-                if (candidateEntryIDs != null)
+                reorderedCandidateEntryIDs =
+                    vlvIndex.evaluate(txn, searchOperation, sortRequest, vlvRequest, debugBuffer);
+                if (reorderedCandidateEntryIDs != null)
                 {
                   addServerSideSortControl(searchOperation, SUCCESS);
                   candidatesAreInScope = true;
@@ -756,11 +877,7 @@ public class EntryContainer
             }
           }
 
-          // Combining server-side sort with paged result controls
-          // requires us to use an entryIDSet where the entryIDs are ordered
-          // so further paging can restart where it previously stopped
-          long[] reorderedCandidateEntryIDs;
-          if (candidateEntryIDs == null)
+          if (reorderedCandidateEntryIDs == null)
           {
             if (processSearchWithVirtualAttributeRule(searchOperation, true))
             {
@@ -833,17 +950,20 @@ public class EntryContainer
               reorderedCandidateEntryIDs = candidateEntryIDs.toLongArray();
             }
           }
-          else
-          {
-            reorderedCandidateEntryIDs = candidateEntryIDs.toLongArray();
-          }
 
           // If requested, construct and return a fictitious entry containing
           // debug information, and no other entries.
           if (debugBuffer != null)
           {
             debugBuffer.append(" final=");
-            candidateEntryIDs.toString(debugBuffer);
+            if (candidateEntryIDs != null)
+            {
+              candidateEntryIDs.toString(debugBuffer);
+            }
+            else
+            {
+              debugBuffer.append("[COUNT:").append(reorderedCandidateEntryIDs.length).append("]");
+            }
 
             Entry debugEntry = buildDebugSearchIndexEntry(debugBuffer);
             searchOperation.returnEntry(debugEntry, null);
@@ -1142,6 +1262,7 @@ public class EntryContainer
 
     int lookthroughCount = 0;
     int lookthroughLimit = searchOperation.getClientConnection().getLookthroughLimit();
+    final boolean returnEncodedEntries = searchOperation.canReturnEncodedEntries();
 
     try (final Cursor<ByteString, ByteString> cursor = txn.openCursor(dn2id.getName()))
     {
@@ -1165,7 +1286,26 @@ public class EntryContainer
             searchScope != SearchScope.SINGLE_LEVEL
                 // Check if this entry is an immediate child.
                 || findDNKeyParent(cursor.getKey()) == baseDNKey.length();
-        if (isInScope)
+        final EncodedEntry encodedEntry = isInScope && returnEncodedEntries ? getEncodedEntry(txn, entryID) : null;
+        if (encodedEntry != null)
+        {
+          // The filter matches all the entries
+          lookthroughCount++;
+
+          if (isPageFull(searchOperation, pageRequest))
+          {
+            // Set the cookie to remember where we were.
+            addPagedResultsControl(searchOperation, pageRequest, cursor.getKey());
+            return;
+          }
+
+          if (!searchOperation.returnEncodedEntry(encodedEntry))
+          {
+            // We have been told to discontinue processing of the search.
+            return;
+          }
+        }
+        else if (isInScope)
         {
           // Process the candidate entry.
           final Entry entry = getEntry(txn, entryID);
@@ -1251,6 +1391,34 @@ public class EntryContainer
     return entry;
   }
 
+  /**
+   * Returns the encoded form of the entry corresponding to the provided entryID, when it can be returned
+   * to the client without being decoded.
+   *
+   * @param txn a non null transaction
+   * @param entryID
+   *          the id of the entry to retrieve
+   * @return the encoded entry, or null if the entry must be retrieved with {@link #getEntry}
+   */
+  private EncodedEntry getEncodedEntry(ReadableTransaction txn, EntryID entryID)
+  {
+    try
+    {
+      final EncodedEntry encodedEntry = id2entry.getEncoded(txn, entryID);
+      // Referrals are checked on the decoded entry
+      if (encodedEntry != null && !encodedEntry.hasObjectClass(ServerConstants.OC_REFERRAL))
+      {
+        return encodedEntry;
+      }
+    }
+    catch (Exception e)
+    {
+      // Let the regular processing deal with it
+      logger.traceException(e);
+    }
+    return null;
+  }
+
   /**
    * We were able to obtain a set of candidate entry IDs for the search from the indexes.
    * <p>
@@ -1319,40 +1487,77 @@ public class EntryContainer
     if (continueSearch)
     {
       final SearchFilter filter = searchOperation.getFilter();
-      for (int i = findStartIndex(beginEntryID, entryIDReorderedSet); i < entryIDReorderedSet.length; i++)
+      final boolean returnEncodedEntries = searchOperation.canReturnEncodedEntries();
+      final int startIndex = findStartIndex(beginEntryID, entryIDReorderedSet);
+      final ForkJoinPool parallelSearchPool = returnEncodedEntries ? null : rootContainer.getParallelSearchPool();
+      if (parallelSearchPool != null
+          && entryIDReorderedSet.length - startIndex >= rootContainer.getParallelSearchThreshold())
       {
-        EntryID entryID = new EntryID(entryIDReorderedSet[i]);
-        Entry entry;
-        try
+        if (searchIndexedInParallel(parallelSearchPool, entryIDReorderedSet, startIndex, candidatesAreInScope,
+            searchOperation, pageRequest))
         {
-          entry = getEntry(txn, entryID);
+          return;
         }
-        catch (Exception e)
+      }
+      else
+      {
+        for (int i = startIndex; i < entryIDReorderedSet.length; i++)
         {
-          logger.traceException(e);
-          continue;
-        }
-
-        // Process the candidate entry.
-        if (entry != null
-              && isInScope(candidatesAreInScope, searchScope, aBaseDN, entry)
-              && (manageDsaIT || entry.getReferralURLs() == null)
-              && filter.matchesEntry(entry))
+          EntryID entryID = new EntryID(entryIDReorderedSet[i]);
+          final EncodedEntry encodedEntry = returnEncodedEntries ? getEncodedEntry(txn, entryID) : null;
+          if (encodedEntry != null)
           {
-            if (isPageFull(searchOperation, pageRequest))
+            // The filter matches all the entries
+            if (isInScope(candidatesAreInScope, searchScope, aBaseDN, encodedEntry.getName()))
             {
-              // Set the cookie to remember where we were.
-              addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
-              return;
+              if (isPageFull(searchOperation, pageRequest))
+              {
+                // Set the cookie to remember where we were.
+                addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
+                return;
+              }
+
+              if (!searchOperation.returnEncodedEntry(encodedEntry))
+              {
+                // We have been told to discontinue processing of the search.
+                break;
+              }
             }
+            continue;
+          }
 
-            if (!searchOperation.returnEntry(entry, null))
+          Entry entry;
+          try
+          {
+            entry = getEntry(txn, entryID);
+          }
+          catch (Exception e)
+          {
+            logger.traceException(e);
+            continue;
+          }
+
+          // Process the candidate entry.
+          if (entry != null
+                && isInScope(candidatesAreInScope, searchScope, aBaseDN, entry.getName())
+                && (manageDsaIT || entry.getReferralURLs() == null)
+                && filter.matchesEntry(entry))
             {
-              // We have been told to discontinue processing of the search.
-              // This could be due to size limit exceeded or operation cancelled
-              break;
+              if (isPageFull(searchOperation, pageRequest))
+              {
+                // Set the cookie to remember where we were.
+                addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
+                return;
+              }
+
+              if (!searchOperation.returnEntry(entry, null))
+              {
+                // We have been told to discontinue processing of the search.
+                // This could be due to size limit exceeded or operation cancelled
+                break;
+              }
             }
-          }
+        }
       }
       searchOperation.checkIfCanceled(false);
     }
@@ -1374,6 +1579,209 @@ public class EntryContainer
     addPagedResultsControl(searchOperation, pageRequest, null);
   }
 
+  /**
+   * Fetches the candidate entries of an indexed search and matches them against the search filter
+   * with the provided pool, and returns the matching entries in the order of the candidates.
+   * <p>
+   * The candidates are split in batches, each one processed in its own read transaction. A bounded
+   * number of batches is processed ahead of the entries being returned, so that the size limit,
+   * the time limit, the page size and the cancellation are still enforced by the current thread as
+   * for a sequential search. If the pool is shut down while the search is in progress, the remaining
+   * batches are processed by the current thread.
+   *
+   * @return true if the page is full and the search must stop, false if the search must complete
+   */
+  private boolean searchIndexedInParallel(ForkJoinPool pool, long[] entryIDReorderedSet, int startIndex,
+      boolean candidatesAreInScope, SearchOperation searchOperation, PagedResultsControl pageRequest)
+      throws DirectoryException, CanceledOperationException
+  {
+    rootContainer.getMonitorProvider().incrementParallelSearchCount(entryIDReorderedSet.length - startIndex);
+
+    final int maxPendingBatches = 2 * pool.getParallelism();
+    final AtomicBoolean stopped = new AtomicBoolean();
+    final ArrayDeque<Future<List<Pair<EntryID, Entry>>>> pendingBatches = new ArrayDeque<>(maxPendingBatches);
+    int nextIndex = startIndex;
+    try
+    {
+      while (nextIndex < entryIDReorderedSet.length || !pendingBatches.isEmpty())
+      {
+        while (nextIndex < entryIDReorderedSet.length && pendingBatches.size() < maxPendingBatches)
+        {
+          final int endIndex = Math.min(nextIndex + parallelSearchBatchSize, entryIDReorderedSet.length);
+          pendingBatches.add(submit(pool, new CandidateBatch(entryIDReorderedSet, nextIndex, endIndex,
+              candidatesAreInScope, searchOperation, stopped)));
+          nextIndex = endIndex;
+        }
+
+        for (Pair<EntryID, Entry> candidate : getMatchingEntries(pendingBatches.poll()))
+        {
+          if (isPageFull(searchOperation, pageRequest))
+          {
+            // Set the cookie to remember where we were.
+            addPagedResultsControl(searchOperation, pageRequest, candidate.getFirst().toByteString());
+            return true;
+          }
+
+          if (!searchOperation.returnEntry(candidate.getSecond(), null))
+          {
+            // We have been told to discontinue processing of the search.
+            // This could be due to size limit exceeded or operation cancelled
+            return false;
+          }
+        }
+        searchOperation.checkIfCanceled(false);
+      }
+      return false;
+    }
+    finally
+    {
+      // Wait for the batches in progress, so that no read happens once the search is over
+      stopped.set(true);
+      waitForCompletion(pendingBatches);
+    }
+  }
+
+  /**
+   * Submits the batch to the pool, or processes it in the current thread when the pool has been shut
+   * down, as after a configuration change, so that the searches in progress can still complete.
+   */
+  private Future<List<Pair<EntryID, Entry>>> submit(ForkJoinPool pool, CandidateBatch batch)
+  {
+    if (!pool.isShutdown())
+    {
+      try
+      {
+        return pool.submit(batch);
+      }
+      catch (RejectedExecutionException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    final FutureTask<List<Pair<EntryID, Entry>>> task = new FutureTask<>(batch);
+    task.run();
+    return task;
+  }
+
+  private void waitForCompletion(Collection<? extends Future<?>> batches)
+  {
+    for (Future<?> batch : batches)
+    {
+      try
+      {
+        batch.get();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch (Exception e)
+      {
+        // The search result has already been decided
+        logger.traceException(e);
+      }
+    }
+  }
+
+  private List<Pair<EntryID, Entry>> getMatchingEntries(Future<List<Pair<EntryID, Entry>>> batch)
+      throws DirectoryException
+  {
+    try
+    {
+      return batch.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new StorageRuntimeException(e);
+    }
+    catch (ExecutionException e)
+    {
+      final Throwable cause = e.getCause();
+      if (cause instanceof DirectoryException)
+      {
+        throw (DirectoryException) cause;
+      }
+      else if (cause instanceof RuntimeException)
+      {
+        throw (RuntimeException) cause;
+      }
+      throw new StorageRuntimeException(cause);
+    }
+  }
+
+  /**
+   * Batch of candidate entries of a parallel indexed search, fetched and matched against the search
+   * filter in its own read transaction.
+   */
+  private final class CandidateBatch implements Callable<List<Pair<EntryID, Entry>>>,
+      ReadOperation<List<Pair<EntryID, Entry>>>
+  {
+    private final long[] entryIDReorderedSet;
+    private final int startIndex;
+    private final int endIndex;
+    private final boolean candidatesAreInScope;
+    private final SearchScope searchScope;
+    private final DN aBaseDN;
+    private final boolean manageDsaIT;
+    private final SearchFilter filter;
+    private final AtomicBoolean stopped;
+
+    private CandidateBatch(long[] entryIDReorderedSet, int startIndex, int endIndex, boolean candidatesAreInScope,
+        SearchOperation searchOperation, AtomicBoolean stopped)
+    {
+      this.entryIDReorderedSet = entryIDReorderedSet;
+      this.startIndex = startIndex;
+      this.endIndex = endIndex;
+      this.candidatesAreInScope = candidatesAreInScope;
+      this.searchScope = searchOperation.getScope();
+      this.aBaseDN = searchOperation.getBaseDN();
+      this.manageDsaIT = isManageDsaITOperation(searchOperation);
+      this.filter = searchOperation.getFilter();
+      this.stopped = stopped;
+    }
+
+    @Override
+    public List<Pair<EntryID, Entry>> call() throws Exception
+    {
+      if (stopped.get())
+      {
+        return Collections.emptyList();
+      }
+      return storage.read(this);
+    }
+
+    @Override
+    public List<Pair<EntryID, Entry>> run(ReadableTransaction txn) throws Exception
+    {
+      final List<Pair<EntryID, Entry>> matchingEntries = new ArrayList<>();
+      for (int i = startIndex; i < endIndex && !stopped.get(); i++)
+      {
+        EntryID entryID = new EntryID(entryIDReorderedSet[i]);
+        Entry entry;
+        try
+        {
+          entry = getEntry(txn, entryID);
+        }
+        catch (Exception e)
+        {
+          logger.traceException(e);
+          continue;
+        }
+
+        if (entry != null
+            && isInScope(candidatesAreInScope, searchScope, aBaseDN, entry.getName())
+            && (manageDsaIT || entry.getReferralURLs() == null)
+            && filter.matchesEntry(entry))
+        {
+          matchingEntries.add(Pair.of(entryID, entry));
+        }
+      }
+      return matchingEntries;
+    }
+  }
+
   private int findStartIndex(Long beginEntryID, long[] entryIDReorderedSet)
   {
     if (beginEntryID == null)
@@ -1391,10 +1799,8 @@ public class EntryContainer
     return 0;
   }
 
-  private boolean isInScope(boolean candidatesAreInScope, SearchScope searchScope, DN aBaseDN, Entry entry)
+  private boolean isInScope(boolean candidatesAreInScope, SearchScope searchScope, DN aBaseDN, DN entryDN)
   {
-    DN entryDN = entry.getName();
-
     if (candidatesAreInScope)
     {
       return true;
@@ -2477,6 +2883,7 @@ public class EntryContainer
     allTrees.add(dn2uri);
     allTrees.add(id2childrenCount);
     allTrees.add(state);
+    allTrees.add(bloomFilterStore);
 
     for (AttributeIndex index : attrIndexMap.values())
     {
@@ -2544,11 +2951,41 @@ public class EntryContainer
       return null;
     }
 
+    // See if there is a VLV request to further pare down the set of results, and if there is where it should be
+    // processed by offset or assertion value.
+    if (vlvRequest == null)
+    {
+      try (final EntryIDSorter sorter = EntryIDSorter.newExternalSorter(getSortTempDir()))
+      {
+        addMatchingEntries(txn, entryIDSet, searchOperation, sortKeys, sorter);
+        return sorter.toLongArray();
+      }
+    }
+
+    if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
+    {
+      return sortByOffset(txn, entryIDSet, searchOperation, sortKeys, vlvRequest);
+    }
+    return sortByGreaterThanOrEqualAssertion(txn, entryIDSet, searchOperation, sortKeys, vlvRequest);
+  }
+
+  private File getSortTempDir()
+  {
+    return new File(getFileForPath(SORT_TMP_DIR), backendID);
+  }
+
+  /**
+   * Adds the entries matching the search to the provided sorter. When a second sorter is provided, the entries whose
+   * sort key is lower than the provided key are added to this second sorter instead.
+   */
+  private void addMatchingEntries(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, EntryIDSorter sorter, EntryIDSorter lowerKeysSorter, ByteSequence lowerThanKey)
+      throws DirectoryException
+  {
     final DN baseDN = searchOperation.getBaseDN();
     final SearchScope scope = searchOperation.getScope();
     final SearchFilter filter = searchOperation.getFilter();
 
-    final TreeMap<ByteString, EntryID> sortMap = new TreeMap<>();
     for (EntryID id : entryIDSet)
     {
       try
@@ -2556,7 +2993,15 @@ public class EntryContainer
         Entry e = getEntry(txn, id);
         if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
         {
-          sortMap.put(encodeVLVKey(sortKeys, e, id.longValue()), id);
+          final ByteString sortKey = encodeVLVKey(sortKeys, e, id.longValue());
+          if (lowerKeysSorter != null && sortKey.compareTo(lowerThanKey) < 0)
+          {
+            lowerKeysSorter.add(sortKey, id);
+          }
+          else
+          {
+            sorter.add(sortKey, id);
+          }
         }
       }
       catch (Exception e)
@@ -2565,155 +3010,130 @@ public class EntryContainer
         throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, e);
       }
     }
-
-    // See if there is a VLV request to further pare down the set of results, and if there is where it should be
-    // processed by offset or assertion value.
-    if (vlvRequest == null)
-    {
-      return toArray(sortMap.values());
-    }
-
-    if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
-    {
-      return sortByOffset(searchOperation, vlvRequest, sortMap);
-    }
-    return sortByGreaterThanOrEqualAssertion(searchOperation, vlvRequest, sortKeys, sortMap);
   }
 
-  private static final long[] toArray(Collection<EntryID> entryIDs)
+  private void addMatchingEntries(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, EntryIDSorter sorter) throws DirectoryException
   {
-    final long[] array = new long[entryIDs.size()];
-    int i = 0;
-    for (EntryID entryID : entryIDs)
-    {
-      array[i++] = entryID.longValue();
-    }
-    return array;
+    addMatchingEntries(txn, entryIDSet, searchOperation, sortKeys, sorter, null, null);
   }
 
-  private static final long[] sortByGreaterThanOrEqualAssertion(SearchOperation searchOperation,
-      VLVRequestControl vlvRequest, List<SortKey> sortKeys, final TreeMap<ByteString, EntryID> sortMap)
+  /**
+   * Only the entries before the target entry can be omitted: the entries with a sort key lower than the assertion
+   * are only counted, except for the before count entries just before the target, and only the target and the after
+   * count entries are kept from the entries with a greater or equal sort key.
+   */
+  private long[] sortByGreaterThanOrEqualAssertion(ReadableTransaction txn, EntryIDSet entryIDSet,
+      SearchOperation searchOperation, List<SortKey> sortKeys, VLVRequestControl vlvRequest)
       throws DirectoryException
   {
     ByteString assertionValue = vlvRequest.getGreaterThanOrEqualAssertion();
     ByteSequence encodedTargetAssertion =
-        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, sortMap.size());
+        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, (int) entryIDSet.size());
 
-    boolean targetFound = false;
-    int index = 0;
-    int targetIndex = 0;
-    int startIndex = 0;
-    int includedAfterCount = 0;
-    long[] idSet = new long[sortMap.size()];
-    for (Map.Entry<ByteString, EntryID> entry : sortMap.entrySet())
+    try (final EntryIDSorter beforeTarget = EntryIDSorter.newHighestKeysSorter(vlvRequest.getBeforeCount());
+         final EntryIDSorter fromTarget = EntryIDSorter.newLowestKeysSorter(1 + vlvRequest.getAfterCount()))
     {
-      ByteString vlvKey = entry.getKey();
-      EntryID id = entry.getValue();
-      idSet[index++] = id.longValue();
+      addMatchingEntries(txn, entryIDSet, searchOperation, sortKeys, fromTarget, beforeTarget, encodedTargetAssertion);
 
-      if (targetFound)
+      final int contentCount = beforeTarget.size() + fromTarget.size();
+      if (fromTarget.size() == 0)
       {
-        includedAfterCount++;
-        if (includedAfterCount >= vlvRequest.getAfterCount())
-        {
-          break;
-        }
+        /*
+         * No entry was found to be greater than or equal to the sort key, so the target offset will
+         * be one greater than the content count.
+         */
+        addVLVResponseControl(searchOperation, contentCount + 1, contentCount, SUCCESS);
+        return new long[0];
       }
-      else
-      {
-        targetFound = vlvKey.compareTo(encodedTargetAssertion) >= 0;
-        if (targetFound)
-        {
-          startIndex = Math.max(0, targetIndex - vlvRequest.getBeforeCount());
-        }
-        targetIndex++;
-      }
-    }
 
-    final long[] result;
-    if (targetFound)
-    {
-      final long[] array = new long[index - startIndex];
-      System.arraycopy(idSet, startIndex, array, 0, array.length);
-      result = array;
+      final long[] before = beforeTarget.toLongArray();
+      final long[] from = fromTarget.toLongArray();
+      final long[] result = Arrays.copyOf(before, before.length + from.length);
+      System.arraycopy(from, 0, result, before.length, from.length);
+      addVLVResponseControl(searchOperation, beforeTarget.size() + 1, contentCount, SUCCESS);
+      return result;
     }
-    else
-    {
-      /*
-       * No entry was found to be greater than or equal to the sort key, so the target offset will
-       * be one greater than the content count.
-       */
-      targetIndex = sortMap.size() + 1;
-      result = new long[0];
-    }
-    addVLVResponseControl(searchOperation, targetIndex, sortMap.size(), SUCCESS);
-    return result;
   }
 
-  private static final long[] sortByOffset(SearchOperation searchOperation, VLVRequestControl vlvRequest,
-      TreeMap<ByteString, EntryID> sortMap) throws DirectoryException
+  /**
+   * Only the entries up to the end of the requested window are kept, all the other entries are only counted.
+   */
+  private long[] sortByOffset(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, VLVRequestControl vlvRequest) throws DirectoryException
   {
     int targetOffset = vlvRequest.getOffset();
-    if (targetOffset < 0)
+    // The entries after the requested window are never returned
+    final long windowEnd = Math.max(targetOffset, 1) + (long) vlvRequest.getAfterCount();
+    final int maxSize = targetOffset < 0 ? 0 : (int) Math.min(windowEnd, Integer.MAX_VALUE);
+
+    try (final EntryIDSorter sorter = EntryIDSorter.newLowestKeysSorter(maxSize))
     {
-      // The client specified a negative target offset. This should never be allowed.
-      addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), OFFSET_RANGE_ERROR);
+      addMatchingEntries(txn, entryIDSet, searchOperation, sortKeys, sorter);
 
-      LocalizableMessage message = ERR_ENTRYIDSORTER_NEGATIVE_START_POS.get();
-      throw new DirectoryException(ResultCode.VIRTUAL_LIST_VIEW_ERROR, message);
-    }
+      final int contentCount = sorter.size();
+      if (targetOffset < 0)
+      {
+        // The client specified a negative target offset. This should never be allowed.
+        addVLVResponseControl(searchOperation, targetOffset, contentCount, OFFSET_RANGE_ERROR);
 
-    // This is an easy mistake to make, since VLV offsets start at 1 instead of 0. We'll assume the client meant
-    // to use 1.
-    targetOffset = (targetOffset == 0) ? 1 : targetOffset;
+        LocalizableMessage message = ERR_ENTRYIDSORTER_NEGATIVE_START_POS.get();
+        throw new DirectoryException(ResultCode.VIRTUAL_LIST_VIEW_ERROR, message);
+      }
 
-    int beforeCount = vlvRequest.getBeforeCount();
-    int afterCount = vlvRequest.getAfterCount();
-    int listOffset = targetOffset - 1; // VLV offsets start at 1, not 0.
-    int startPos = listOffset - beforeCount;
-    if (startPos < 0)
-    {
-      // This can happen if beforeCount >= offset, and in this case we'll just adjust the start position to ignore
-      // the range of beforeCount that doesn't exist.
-      startPos = 0;
-      beforeCount = listOffset;
-    }
-    else if (startPos >= sortMap.size())
-    {
-      // The start position is beyond the end of the list. In this case, we'll assume that the start position was
-      // one greater than the size of the list and will only return the beforeCount entries.
-      targetOffset = sortMap.size() + 1;
-      listOffset = sortMap.size();
-      startPos = listOffset - beforeCount;
-      afterCount = 0;
-    }
+      // This is an easy mistake to make, since VLV offsets start at 1 instead of 0. We'll assume the client meant
+      // to use 1.
+      targetOffset = (targetOffset == 0) ? 1 : targetOffset;
 
-    int count = 1 + beforeCount + afterCount;
-    long[] sortedIDs = new long[count];
-    int treePos = 0;
-    int arrayPos = 0;
-    for (EntryID id : sortMap.values())
-    {
-      if (treePos++ < startPos)
+      int beforeCount = vlvRequest.getBeforeCount();
+      int afterCount = vlvRequest.getAfterCount();
+      int listOffset = targetOffset - 1; // VLV offsets start at 1, not 0.
+      int startPos = listOffset - beforeCount;
+      if (startPos < 0)
+      {
+        // This can happen if beforeCount >= offset, and in this case we'll just adjust the start position to ignore
+        // the range of beforeCount that doesn't exist.
+        startPos = 0;
+        beforeCount = listOffset;
+      }
+      else if (startPos >= contentCount)
+      {
+        // The start position is beyond the end of the list. In this case, we'll assume that the start position was
+        // one greater than the size of the list and will only return the beforeCount entries.
+        // All the entries have been kept since the end of the window is beyond the end of the list.
+        targetOffset = contentCount + 1;
+        listOffset = contentCount;
+        startPos = listOffset - beforeCount;
+        afterCount = 0;
+      }
+
+      int count = 1 + beforeCount + afterCount;
+      long[] sortedIDs = new long[count];
+      int treePos = 0;
+      int arrayPos = 0;
+      for (Map.Entry<ByteString, EntryID> entry : sorter)
       {
-        continue;
+        if (treePos++ < startPos)
+        {
+          continue;
+        }
+
+        sortedIDs[arrayPos++] = entry.getValue().longValue();
+        if (arrayPos >= count)
+        {
+          break;
+        }
       }
 
-      sortedIDs[arrayPos++] = id.longValue();
-      if (arrayPos >= count)
+      if (arrayPos < count)
       {
-        break;
+        // We don't have enough entries in the set to meet the requested page size, so we'll need to shorten the array.
+        sortedIDs = Arrays.copyOf(sortedIDs, arrayPos);
       }
-    }
 
-    if (arrayPos < count)
-    {
-      // We don't have enough entries in the set to meet the requested page size, so we'll need to shorten the array.
-      sortedIDs = Arrays.copyOf(sortedIDs, arrayPos);
+      addVLVResponseControl(searchOperation, targetOffset, contentCount, SUCCESS);
+      return sortedIDs;
     }
-
-    addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), SUCCESS);
-    return sortedIDs;
   }
 
   private static void addVLVResponseControl(SearchOperation searchOp, int targetPosition, int contentCount,
@@ -0,0 +1,1219 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * Compressed bitmap of entry IDs, organized like a Roaring bitmap.
+ * <p>
+ * Entry IDs are partitioned in chunks of 65536 consecutive IDs sharing the same high order bits. Each non empty chunk
+ * is stored in a container holding the 16 low order bits of its IDs: sparse chunks are stored as a sorted array of
+ * chars while dense chunks are stored as a bitmap of 1024 longs. Unions, intersections and differences are computed
+ * container by container without expanding the IDs.
+ * <p>
+ * The binary operations never modify their operands and never share containers with them, so the result of an
+ * operation can be modified in place.
+ * <p>
+ * This class is not thread safe.
+ */
+final class EntryIDBitmap
+{
+  /** Maximum number of values held by an array container, above which a bitmap container is more compact. */
+  static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+
+  private static final int BITMAP_WORDS = 1024;
+  private static final int LOW_BITS = 16;
+  private static final int LOW_MASK = 0xFFFF;
+
+  private static final byte ARRAY_CONTAINER = 0;
+  private static final byte BITMAP_CONTAINER = 1;
+  private static final byte RUN_CONTAINER = 2;
+
+  /** The high order bits of the IDs of each container, in ascending order. */
+  private long[] keys;
+  private Container[] containers;
+  private int nbContainers;
+  private long cardinality;
+
+  /** Creates a new empty bitmap. */
+  EntryIDBitmap()
+  {
+    this(4);
+  }
+
+  private EntryIDBitmap(int capacity)
+  {
+    keys = new long[Math.max(capacity, 1)];
+    containers = new Container[keys.length];
+  }
+
+  /**
+   * Creates a new bitmap containing the provided entry IDs.
+   *
+   * @param entryIDs
+   *          the entry IDs, sorted in ascending order and without duplicates
+   * @return a new bitmap containing the provided entry IDs
+   */
+  static EntryIDBitmap valueOf(long[] entryIDs)
+  {
+    final EntryIDBitmap bitmap = new EntryIDBitmap();
+    int start = 0;
+    while (start < entryIDs.length)
+    {
+      final long key = high(entryIDs[start]);
+      int end = start + 1;
+      while (end < entryIDs.length && high(entryIDs[end]) == key)
+      {
+        end++;
+      }
+      final int count = end - start;
+      final Container container;
+      if (count > ARRAY_CONTAINER_MAX_SIZE)
+      {
+        final BitmapContainer bc = new BitmapContainer();
+        for (int i = start; i < end; i++)
+        {
+          bc.set(low(entryIDs[i]));
+        }
+        container = bc;
+      }
+      else
+      {
+        final char[] values = new char[count];
+        for (int i = start; i < end; i++)
+        {
+          values[i - start] = (char) low(entryIDs[i]);
+        }
+        container = new ArrayContainer(values, count);
+      }
+      bitmap.append(key, container);
+      start = end;
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns the number of entry IDs in this bitmap.
+   *
+   * @return the number of entry IDs in this bitmap
+   */
+  long getCardinality()
+  {
+    return cardinality;
+  }
+
+  /**
+   * Returns the lowest entry ID of this bitmap, which must not be empty.
+   *
+   * @return the lowest entry ID of this bitmap
+   */
+  long first()
+  {
+    return (keys[0] << LOW_BITS) | containers[0].first();
+  }
+
+  /**
+   * Returns the highest entry ID of this bitmap, which must not be empty.
+   *
+   * @return the highest entry ID of this bitmap
+   */
+  long last()
+  {
+    final int i = nbContainers - 1;
+    return (keys[i] << LOW_BITS) | containers[i].last();
+  }
+
+  boolean contains(long entryID)
+  {
+    final int i = indexOf(high(entryID));
+    return i >= 0 && containers[i].contains(low(entryID));
+  }
+
+  /**
+   * Adds an entry ID to this bitmap.
+   *
+   * @param entryID
+   *          the entry ID to add
+   * @return {@code true} if the entry ID was not already present
+   */
+  boolean add(long entryID)
+  {
+    final long key = high(entryID);
+    final int i = indexOf(key);
+    if (i < 0)
+    {
+      insert(-(i + 1), key, new ArrayContainer(new char[] { (char) low(entryID) }, 1));
+      return true;
+    }
+    final Container container = containers[i];
+    final int oldCardinality = container.cardinality();
+    containers[i] = container.add(low(entryID));
+    if (containers[i].cardinality() != oldCardinality)
+    {
+      cardinality++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Removes an entry ID from this bitmap.
+   *
+   * @param entryID
+   *          the entry ID to remove
+   * @return {@code true} if the entry ID was present
+   */
+  boolean remove(long entryID)
+  {
+    final int i = indexOf(high(entryID));
+    if (i < 0)
+    {
+      return false;
+    }
+    final Container container = containers[i];
+    final int oldCardinality = container.cardinality();
+    final Container updated = container.remove(low(entryID));
+    if (updated.cardinality() == oldCardinality)
+    {
+      return false;
+    }
+    cardinality--;
+    if (updated.cardinality() == 0)
+    {
+      removeContainerAt(i);
+    }
+    else
+    {
+      containers[i] = updated;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the union of this bitmap with the provided one.
+   *
+   * @param that
+   *          the other bitmap
+   * @return a new bitmap containing the entry IDs present in either bitmap
+   */
+  EntryIDBitmap or(EntryIDBitmap that)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap(nbContainers + that.nbContainers);
+    int i = 0, j = 0;
+    while (i < nbContainers && j < that.nbContainers)
+    {
+      if (keys[i] < that.keys[j])
+      {
+        result.append(keys[i], containers[i].copy());
+        i++;
+      }
+      else if (keys[i] > that.keys[j])
+      {
+        result.append(that.keys[j], that.containers[j].copy());
+        j++;
+      }
+      else
+      {
+        result.append(keys[i], or(containers[i], that.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    for (; i < nbContainers; i++)
+    {
+      result.append(keys[i], containers[i].copy());
+    }
+    for (; j < that.nbContainers; j++)
+    {
+      result.append(that.keys[j], that.containers[j].copy());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the intersection of this bitmap with the provided one.
+   *
+   * @param that
+   *          the other bitmap
+   * @return a new bitmap containing the entry IDs present in both bitmaps
+   */
+  EntryIDBitmap and(EntryIDBitmap that)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap(Math.min(nbContainers, that.nbContainers));
+    int i = 0, j = 0;
+    while (i < nbContainers && j < that.nbContainers)
+    {
+      if (keys[i] < that.keys[j])
+      {
+        i = advanceUntil(keys, i, nbContainers, that.keys[j]);
+      }
+      else if (keys[i] > that.keys[j])
+      {
+        j = advanceUntil(that.keys, j, that.nbContainers, keys[i]);
+      }
+      else
+      {
+        final Container container = and(containers[i], that.containers[j]);
+        if (container != null)
+        {
+          result.append(keys[i], container);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the difference of this bitmap with the provided one.
+   *
+   * @param that
+   *          the other bitmap
+   * @return a new bitmap containing the entry IDs of this bitmap which are not present in the provided one
+   */
+  EntryIDBitmap andNot(EntryIDBitmap that)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap(nbContainers);
+    int i = 0, j = 0;
+    while (i < nbContainers)
+    {
+      while (j < that.nbContainers && that.keys[j] < keys[i])
+      {
+        j++;
+      }
+      if (j < that.nbContainers && that.keys[j] == keys[i])
+      {
+        final Container container = andNot(containers[i], that.containers[j]);
+        if (container != null)
+        {
+          result.append(keys[i], container);
+        }
+      }
+      else
+      {
+        result.append(keys[i], containers[i].copy());
+      }
+      i++;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the entry IDs of this bitmap.
+   *
+   * @return a new array containing the entry IDs of this bitmap in ascending order
+   */
+  long[] toArray()
+  {
+    final long[] entryIDs = new long[(int) cardinality];
+    int offset = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      offset = containers[i].copyTo(keys[i] << LOW_BITS, entryIDs, offset);
+    }
+    return entryIDs;
+  }
+
+  /**
+   * Returns an iterator over the entry IDs of this bitmap, in ascending order.
+   *
+   * @return an iterator over the entry IDs of this bitmap
+   */
+  Iterator<EntryID> iterator()
+  {
+    return new BitmapIterator();
+  }
+
+  /**
+   * Appends the serialized form of this bitmap to the provided builder. Each container is written using the most
+   * compact of the array, bitmap or run length encodings, so that long runs of consecutive entry IDs only take a few
+   * bytes.
+   *
+   * @param builder
+   *          the builder where to write this bitmap
+   * @return the provided builder
+   */
+  ByteStringBuilder encode(ByteStringBuilder builder)
+  {
+    builder.appendCompactUnsigned(nbContainers);
+    long previousKey = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      builder.appendCompactUnsigned(keys[i] - previousKey);
+      previousKey = keys[i];
+      containers[i].encode(builder);
+    }
+    return builder;
+  }
+
+  /**
+   * Reads a bitmap previously written by {@link #encode(ByteStringBuilder)}.
+   *
+   * @param reader
+   *          the reader positioned at the beginning of the serialized bitmap
+   * @return the decoded bitmap
+   */
+  static EntryIDBitmap decode(ByteSequenceReader reader)
+  {
+    final int size = reader.readCompactUnsignedInt();
+    final EntryIDBitmap bitmap = new EntryIDBitmap(size);
+    long key = 0;
+    for (int i = 0; i < size; i++)
+    {
+      key += reader.readCompactUnsignedLong();
+      bitmap.append(key, decodeContainer(reader));
+    }
+    return bitmap;
+  }
+
+  private static Container decodeContainer(ByteSequenceReader reader)
+  {
+    final byte type = reader.readByte();
+    switch (type)
+    {
+    case ARRAY_CONTAINER:
+    {
+      final int size = reader.readCompactUnsignedInt() + 1;
+      final char[] values = new char[size];
+      int value = reader.readCompactUnsignedInt();
+      values[0] = (char) value;
+      for (int i = 1; i < size; i++)
+      {
+        value += reader.readCompactUnsignedInt() + 1;
+        values[i] = (char) value;
+      }
+      return new ArrayContainer(values, size);
+    }
+    case BITMAP_CONTAINER:
+    {
+      final BitmapContainer container = new BitmapContainer();
+      for (int i = 0; i < BITMAP_WORDS; i++)
+      {
+        container.words[i] = reader.readLong();
+      }
+      container.computeCardinality();
+      return container;
+    }
+    case RUN_CONTAINER:
+    {
+      final int nbRuns = reader.readCompactUnsignedInt() + 1;
+      final int[] runs = new int[nbRuns * 2];
+      int next = 0;
+      int size = 0;
+      for (int i = 0; i < nbRuns; i++)
+      {
+        final int start = next + reader.readCompactUnsignedInt();
+        final int length = reader.readCompactUnsignedInt() + 1;
+        runs[2 * i] = start;
+        runs[2 * i + 1] = length;
+        size += length;
+        next = start + length + 1;
+      }
+      return size > ARRAY_CONTAINER_MAX_SIZE ? BitmapContainer.fromRuns(runs) : ArrayContainer.fromRuns(runs, size);
+    }
+    default:
+      throw new IllegalArgumentException("Unknown entry ID bitmap container type " + type);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[COUNT:" + cardinality + "]";
+  }
+
+  private static long high(long entryID)
+  {
+    return entryID >>> LOW_BITS;
+  }
+
+  private static int low(long entryID)
+  {
+    return (int) entryID & LOW_MASK;
+  }
+
+  private int indexOf(long key)
+  {
+    // Fast path for appending IDs, which are usually increasing.
+    if (nbContainers > 0 && keys[nbContainers - 1] == key)
+    {
+      return nbContainers - 1;
+    }
+    return Arrays.binarySearch(keys, 0, nbContainers, key);
+  }
+
+  private static int advanceUntil(long[] keys, int from, int to, long key)
+  {
+    int i = from + 1;
+    while (i < to && keys[i] < key)
+    {
+      i++;
+    }
+    return i;
+  }
+
+  private void append(long key, Container container)
+  {
+    insert(nbContainers, key, container);
+  }
+
+  private void insert(int index, long key, Container container)
+  {
+    if (nbContainers == keys.length)
+    {
+      final int newCapacity = keys.length * 2;
+      keys = Arrays.copyOf(keys, newCapacity);
+      containers = Arrays.copyOf(containers, newCapacity);
+    }
+    System.arraycopy(keys, index, keys, index + 1, nbContainers - index);
+    System.arraycopy(containers, index, containers, index + 1, nbContainers - index);
+    keys[index] = key;
+    containers[index] = container;
+    nbContainers++;
+    cardinality += container.cardinality();
+  }
+
+  private void removeContainerAt(int index)
+  {
+    System.arraycopy(keys, index + 1, keys, index, nbContainers - index - 1);
+    System.arraycopy(containers, index + 1, containers, index, nbContainers - index - 1);
+    nbContainers--;
+    containers[nbContainers] = null;
+  }
+
+  private static Container or(Container c1, Container c2)
+  {
+    if (c1 instanceof ArrayContainer && c2 instanceof ArrayContainer)
+    {
+      return ((ArrayContainer) c1).or((ArrayContainer) c2);
+    }
+    final BitmapContainer result;
+    if (c1 instanceof BitmapContainer)
+    {
+      result = ((BitmapContainer) c1).copy();
+      result.orInPlace(c2);
+    }
+    else
+    {
+      result = ((BitmapContainer) c2).copy();
+      result.orInPlace(c1);
+    }
+    return result;
+  }
+
+  /** Returns {@code null} if the intersection is empty. */
+  private static Container and(Container c1, Container c2)
+  {
+    final Container result;
+    if (c1 instanceof ArrayContainer)
+    {
+      result = ((ArrayContainer) c1).and(c2);
+    }
+    else if (c2 instanceof ArrayContainer)
+    {
+      result = ((ArrayContainer) c2).and(c1);
+    }
+    else
+    {
+      result = ((BitmapContainer) c1).and((BitmapContainer) c2);
+    }
+    return result.cardinality() != 0 ? result : null;
+  }
+
+  /** Returns {@code null} if the difference is empty. */
+  private static Container andNot(Container c1, Container c2)
+  {
+    final Container result;
+    if (c1 instanceof ArrayContainer)
+    {
+      result = ((ArrayContainer) c1).andNot(c2);
+    }
+    else
+    {
+      result = ((BitmapContainer) c1).andNot(c2);
+    }
+    return result.cardinality() != 0 ? result : null;
+  }
+
+  /** Holds the 16 low order bits of the entry IDs sharing the same high order bits. */
+  private abstract static class Container
+  {
+    abstract int cardinality();
+
+    abstract boolean contains(int value);
+
+    /** Returns the container holding the result, which may be a new container. */
+    abstract Container add(int value);
+
+    /** Returns the container holding the result, which may be a new container. */
+    abstract Container remove(int value);
+
+    abstract int first();
+
+    abstract int last();
+
+    abstract Container copy();
+
+    abstract int copyTo(long base, long[] entryIDs, int offset);
+
+    /** Returns the number of runs of consecutive values. */
+    abstract int nbRuns();
+
+    /** Returns the runs of consecutive values as pairs of start value and length. */
+    abstract int[] toRuns(int nbRuns);
+
+    abstract void encodeValues(ByteStringBuilder builder);
+
+    void encode(ByteStringBuilder builder)
+    {
+      final int nbRuns = nbRuns();
+      // Run encoding takes at most six bytes per run, array encoding at most three bytes per value
+      if (nbRuns * 6 < Math.min(cardinality() * 3, BITMAP_WORDS * 8))
+      {
+        final int[] runs = toRuns(nbRuns);
+        builder.appendByte(RUN_CONTAINER);
+        builder.appendCompactUnsigned(nbRuns - 1);
+        int next = 0;
+        for (int i = 0; i < runs.length; i += 2)
+        {
+          builder.appendCompactUnsigned(runs[i] - next);
+          builder.appendCompactUnsigned(runs[i + 1] - 1);
+          next = runs[i] + runs[i + 1] + 1;
+        }
+      }
+      else
+      {
+        encodeValues(builder);
+      }
+    }
+  }
+
+  /** Container storing its values in a sorted array, used for sparse chunks of entry IDs. */
+  private static final class ArrayContainer extends Container
+  {
+    private char[] values;
+    private int size;
+
+    ArrayContainer(char[] values, int size)
+    {
+      this.values = values;
+      this.size = size;
+    }
+
+    static ArrayContainer fromRuns(int[] runs, int size)
+    {
+      final char[] values = new char[size];
+      int pos = 0;
+      for (int i = 0; i < runs.length; i += 2)
+      {
+        for (int value = runs[i], end = runs[i] + runs[i + 1]; value < end; value++)
+        {
+          values[pos++] = (char) value;
+        }
+      }
+      return new ArrayContainer(values, size);
+    }
+
+    @Override
+    int cardinality()
+    {
+      return size;
+    }
+
+    @Override
+    boolean contains(int value)
+    {
+      return Arrays.binarySearch(values, 0, size, (char) value) >= 0;
+    }
+
+    @Override
+    Container add(int value)
+    {
+      int pos = Arrays.binarySearch(values, 0, size, (char) value);
+      if (pos >= 0)
+      {
+        return this;
+      }
+      if (size == ARRAY_CONTAINER_MAX_SIZE)
+      {
+        final BitmapContainer bitmap = toBitmapContainer();
+        bitmap.set(value);
+        return bitmap;
+      }
+      pos = -(pos + 1);
+      if (size == values.length)
+      {
+        values = Arrays.copyOf(values, Math.min(Math.max(size * 2, 4), ARRAY_CONTAINER_MAX_SIZE));
+      }
+      System.arraycopy(values, pos, values, pos + 1, size - pos);
+      values[pos] = (char) value;
+      size++;
+      return this;
+    }
+
+    @Override
+    Container remove(int value)
+    {
+      final int pos = Arrays.binarySearch(values, 0, size, (char) value);
+      if (pos >= 0)
+      {
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+      }
+      return this;
+    }
+
+    @Override
+    int first()
+    {
+      return values[0];
+    }
+
+    @Override
+    int last()
+    {
+      return values[size - 1];
+    }
+
+    @Override
+    ArrayContainer copy()
+    {
+      return new ArrayContainer(Arrays.copyOf(values, size), size);
+    }
+
+    @Override
+    int copyTo(long base, long[] entryIDs, int offset)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        entryIDs[offset++] = base | values[i];
+      }
+      return offset;
+    }
+
+    @Override
+    int nbRuns()
+    {
+      int nbRuns = size > 0 ? 1 : 0;
+      for (int i = 1; i < size; i++)
+      {
+        if (values[i] != values[i - 1] + 1)
+        {
+          nbRuns++;
+        }
+      }
+      return nbRuns;
+    }
+
+    @Override
+    int[] toRuns(int nbRuns)
+    {
+      final int[] runs = new int[nbRuns * 2];
+      int run = -1;
+      for (int i = 0; i < size; i++)
+      {
+        if (i == 0 || values[i] != values[i - 1] + 1)
+        {
+          run++;
+          runs[2 * run] = values[i];
+        }
+        runs[2 * run + 1]++;
+      }
+      return runs;
+    }
+
+    @Override
+    void encodeValues(ByteStringBuilder builder)
+    {
+      builder.appendByte(ARRAY_CONTAINER);
+      builder.appendCompactUnsigned(size - 1);
+      builder.appendCompactUnsigned(values[0]);
+      for (int i = 1; i < size; i++)
+      {
+        builder.appendCompactUnsigned(values[i] - values[i - 1] - 1);
+      }
+    }
+
+    BitmapContainer toBitmapContainer()
+    {
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < size; i++)
+      {
+        bitmap.set(values[i]);
+      }
+      return bitmap;
+    }
+
+    Container or(ArrayContainer that)
+    {
+      if (size + that.size > ARRAY_CONTAINER_MAX_SIZE)
+      {
+        final BitmapContainer bitmap = toBitmapContainer();
+        bitmap.orInPlace(that);
+        return bitmap.cardinality() > ARRAY_CONTAINER_MAX_SIZE ? bitmap : bitmap.toArrayContainer();
+      }
+      final char[] result = new char[size + that.size];
+      int i = 0, j = 0, k = 0;
+      while (i < size && j < that.size)
+      {
+        if (values[i] < that.values[j])
+        {
+          result[k++] = values[i++];
+        }
+        else if (values[i] > that.values[j])
+        {
+          result[k++] = that.values[j++];
+        }
+        else
+        {
+          result[k++] = values[i++];
+          j++;
+        }
+      }
+      while (i < size)
+      {
+        result[k++] = values[i++];
+      }
+      while (j < that.size)
+      {
+        result[k++] = that.values[j++];
+      }
+      return new ArrayContainer(result, k);
+    }
+
+    ArrayContainer and(Container that)
+    {
+      final char[] result = new char[size];
+      int k = 0;
+      if (that instanceof ArrayContainer)
+      {
+        final ArrayContainer other = (ArrayContainer) that;
+        int i = 0, j = 0;
+        while (i < size && j < other.size)
+        {
+          if (values[i] < other.values[j])
+          {
+            i++;
+          }
+          else if (values[i] > other.values[j])
+          {
+            j++;
+          }
+          else
+          {
+            result[k++] = values[i++];
+            j++;
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i < size; i++)
+        {
+          if (that.contains(values[i]))
+          {
+            result[k++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, k);
+    }
+
+    ArrayContainer andNot(Container that)
+    {
+      final char[] result = new char[size];
+      int k = 0;
+      if (that instanceof ArrayContainer)
+      {
+        final ArrayContainer other = (ArrayContainer) that;
+        int i = 0, j = 0;
+        while (i < size)
+        {
+          if (j >= other.size || values[i] < other.values[j])
+          {
+            result[k++] = values[i++];
+          }
+          else if (values[i] > other.values[j])
+          {
+            j++;
+          }
+          else
+          {
+            i++;
+            j++;
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i < size; i++)
+        {
+          if (!that.contains(values[i]))
+          {
+            result[k++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, k);
+    }
+  }
+
+  /** Container storing its values in a bitmap, used for dense chunks of entry IDs. */
+  private static final class BitmapContainer extends Container
+  {
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer()
+    {
+      this(new long[BITMAP_WORDS], 0);
+    }
+
+    private BitmapContainer(long[] words, int cardinality)
+    {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    static BitmapContainer fromRuns(int[] runs)
+    {
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < runs.length; i += 2)
+      {
+        for (int value = runs[i], end = runs[i] + runs[i + 1]; value < end; value++)
+        {
+          bitmap.set(value);
+        }
+      }
+      return bitmap;
+    }
+
+    void set(int value)
+    {
+      final long mask = 1L << value;
+      final int w = value >>> 6;
+      if ((words[w] & mask) == 0)
+      {
+        words[w] |= mask;
+        cardinality++;
+      }
+    }
+
+    void computeCardinality()
+    {
+      int count = 0;
+      for (long word : words)
+      {
+        count += Long.bitCount(word);
+      }
+      cardinality = count;
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int value)
+    {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Container add(int value)
+    {
+      set(value);
+      return this;
+    }
+
+    @Override
+    Container remove(int value)
+    {
+      final long mask = 1L << value;
+      final int w = value >>> 6;
+      if ((words[w] & mask) != 0)
+      {
+        words[w] &= ~mask;
+        cardinality--;
+        if (cardinality <= ARRAY_CONTAINER_MAX_SIZE)
+        {
+          return toArrayContainer();
+        }
+      }
+      return this;
+    }
+
+    /** Returns the lowest value greater or equal to the provided one, or -1 if there is none. */
+    int nextValue(int from)
+    {
+      int w = from >>> 6;
+      if (w >= BITMAP_WORDS)
+      {
+        return -1;
+      }
+      long word = words[w] & (-1L << from);
+      while (word == 0)
+      {
+        if (++w == BITMAP_WORDS)
+        {
+          return -1;
+        }
+        word = words[w];
+      }
+      return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    int first()
+    {
+      return nextValue(0);
+    }
+
+    @Override
+    int last()
+    {
+      for (int w = BITMAP_WORDS - 1; w >= 0; w--)
+      {
+        if (words[w] != 0)
+        {
+          return (w << 6) + 63 - Long.numberOfLeadingZeros(words[w]);
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    BitmapContainer copy()
+    {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    int copyTo(long base, long[] entryIDs, int offset)
+    {
+      for (int w = 0; w < BITMAP_WORDS; w++)
+      {
+        long word = words[w];
+        while (word != 0)
+        {
+          entryIDs[offset++] = base | ((w << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return offset;
+    }
+
+    @Override
+    int nbRuns()
+    {
+      int nbRuns = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++)
+      {
+        final long word = words[w];
+        // Count the bits starting a run: set bits whose previous bit is not set
+        final long previous = (word << 1) | (w > 0 ? words[w - 1] >>> 63 : 0);
+        nbRuns += Long.bitCount(word & ~previous);
+      }
+      return nbRuns;
+    }
+
+    @Override
+    int[] toRuns(int nbRuns)
+    {
+      final int[] runs = new int[nbRuns * 2];
+      int run = 0;
+      int start = nextValue(0);
+      while (start >= 0)
+      {
+        int end = start + 1;
+        while (end < BITMAP_WORDS * 64 && contains(end))
+        {
+          end++;
+        }
+        runs[run++] = start;
+        runs[run++] = end - start;
+        start = end < BITMAP_WORDS * 64 ? nextValue(end) : -1;
+      }
+      return runs;
+    }
+
+    @Override
+    void encodeValues(ByteStringBuilder builder)
+    {
+      builder.appendByte(BITMAP_CONTAINER);
+      for (long word : words)
+      {
+        builder.appendLong(word);
+      }
+    }
+
+    ArrayContainer toArrayContainer()
+    {
+      final char[] values = new char[cardinality];
+      int k = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++)
+      {
+        long word = words[w];
+        while (word != 0)
+        {
+          values[k++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return new ArrayContainer(values, k);
+    }
+
+    void orInPlace(Container that)
+    {
+      if (that instanceof ArrayContainer)
+      {
+        final ArrayContainer array = (ArrayContainer) that;
+        for (int i = 0; i < array.size; i++)
+        {
+          set(array.values[i]);
+        }
+      }
+      else
+      {
+        final long[] other = ((BitmapContainer) that).words;
+        for (int w = 0; w < BITMAP_WORDS; w++)
+        {
+          words[w] |= other[w];
+        }
+        computeCardinality();
+      }
+    }
+
+    Container and(BitmapContainer that)
+    {
+      final long[] result = new long[BITMAP_WORDS];
+      int count = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++)
+      {
+        result[w] = words[w] & that.words[w];
+        count += Long.bitCount(result[w]);
+      }
+      final BitmapContainer bitmap = new BitmapContainer(result, count);
+      return count > ARRAY_CONTAINER_MAX_SIZE ? bitmap : bitmap.toArrayContainer();
+    }
+
+    Container andNot(Container that)
+    {
+      final BitmapContainer result = copy();
+      if (that instanceof ArrayContainer)
+      {
+        final ArrayContainer array = (ArrayContainer) that;
+        for (int i = 0; i < array.size; i++)
+        {
+          final int value = array.values[i];
+          final long mask = 1L << value;
+          if ((result.words[value >>> 6] & mask) != 0)
+          {
+            result.words[value >>> 6] &= ~mask;
+            result.cardinality--;
+          }
+        }
+      }
+      else
+      {
+        final long[] other = ((BitmapContainer) that).words;
+        for (int w = 0; w < BITMAP_WORDS; w++)
+        {
+          result.words[w] &= ~other[w];
+        }
+        result.computeCardinality();
+      }
+      return result.cardinality > ARRAY_CONTAINER_MAX_SIZE ? result : result.toArrayContainer();
+    }
+  }
+
+  /** Iterates over the entry IDs of the bitmap, container by container. */
+  private final class BitmapIterator implements Iterator<EntryID>
+  {
+    private int containerIndex;
+    /** Position within the current container: array index or bitmap value. */
+    private int position;
+    private long nextID = -1;
+
+    BitmapIterator()
+    {
+      advance();
+    }
+
+    private void advance()
+    {
+      nextID = -1;
+      while (containerIndex < nbContainers)
+      {
+        final Container container = containers[containerIndex];
+        if (container instanceof ArrayContainer)
+        {
+          final ArrayContainer array = (ArrayContainer) container;
+          if (position < array.size)
+          {
+            nextID = (keys[containerIndex] << LOW_BITS) | array.values[position++];
+            return;
+          }
+        }
+        else if (position < BITMAP_WORDS * 64)
+        {
+          final int value = ((BitmapContainer) container).nextValue(position);
+          if (value >= 0)
+          {
+            position = value + 1;
+            nextID = (keys[containerIndex] << LOW_BITS) | value;
+            return;
+          }
+        }
+        containerIndex++;
+        position = 0;
+      }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return nextID >= 0;
+    }
+
+    @Override
+    public EntryID next()
+    {
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+      final EntryID entryID = new EntryID(nextID);
+      advance();
+      return entryID;
+    }
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -43,10 +44,13 @@ final class EntryIDSet implements Iterable<EntryID>
 {
   public static final EntryIDSetCodec CODEC_V1 = new EntryIDSetCodecV1();
   public static final EntryIDSetCodec CODEC_V2 = new EntryIDSetCodecV2();
+  public static final EntryIDSetCodec CODEC_V4 = new EntryIDSetCodecV4(CODEC_V2);
 
   private static final ByteSequence NO_KEY = ByteString.valueOfUtf8("<none>");
   private static final long[] EMPTY_LONG_ARRAY = new long[0];
   private static final long[] NO_ENTRY_IDS_RANGE = new long[] { 0, 0 };
+  /** Number of IDs above which a set is merged into a bitmap with a single operation rather than ID by ID. */
+  private static final int BITMAP_BULK_UPDATE_THRESHOLD = 64;
 
   /** Interface for EntryIDSet concrete implementations. */
   private interface EntryIDSetImplementor extends Iterable<EntryID>
@@ -272,6 +276,136 @@ final class EntryIDSet implements Iterable<EntryID>
     }
   }
 
+  /**
+   * Concrete implementation representing a set of EntryIDs as a compressed bitmap. Unions, intersections and
+   * differences with other bitmap sets are computed directly on the bitmap containers.
+   */
+  private static final class BitmapImpl implements EntryIDSetImplementor
+  {
+    private EntryIDBitmap bitmap;
+    /** The IDs of the bitmap in ascending order, materialized on demand and reset when the bitmap is modified. */
+    private long[] entryIDs;
+
+    BitmapImpl(EntryIDBitmap bitmap)
+    {
+      this.bitmap = checkNotNull(bitmap, "bitmap must not be null");
+    }
+
+    @Override
+    public long size()
+    {
+      return bitmap.getCardinality();
+    }
+
+    @Override
+    public void toString(StringBuilder buffer)
+    {
+      buffer.append("[COUNT:").append(size()).append("]");
+    }
+
+    @Override
+    public boolean isDefined()
+    {
+      return true;
+    }
+
+    @Override
+    public boolean add(EntryID entryID)
+    {
+      if (bitmap.add(entryID.longValue()))
+      {
+        entryIDs = null;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean remove(EntryID entryID)
+    {
+      if (bitmap.remove(entryID.longValue()))
+      {
+        entryIDs = null;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean contains(EntryID entryID)
+    {
+      return bitmap.contains(entryID.longValue());
+    }
+
+    @Override
+    public void addAll(EntryIDSet that)
+    {
+      if (that.size() == 0)
+      {
+        return;
+      }
+      if (that.concreteImpl instanceof BitmapImpl || that.size() > BITMAP_BULK_UPDATE_THRESHOLD)
+      {
+        bitmap = bitmap.or(toBitmap(that));
+      }
+      else
+      {
+        for (long id : that.getIDs())
+        {
+          bitmap.add(id);
+        }
+      }
+      entryIDs = null;
+    }
+
+    @Override
+    public void removeAll(EntryIDSet that)
+    {
+      if (that.size() == 0 || compareForOverlap(getRange(), that.getRange()) != 0)
+      {
+        return;
+      }
+      if (that.concreteImpl instanceof BitmapImpl || that.size() > BITMAP_BULK_UPDATE_THRESHOLD)
+      {
+        bitmap = bitmap.andNot(toBitmap(that));
+      }
+      else
+      {
+        for (long id : that.getIDs())
+        {
+          bitmap.remove(id);
+        }
+      }
+      entryIDs = null;
+    }
+
+    @Override
+    public Iterator<EntryID> iterator()
+    {
+      return bitmap.iterator();
+    }
+
+    @Override
+    public long[] getRange()
+    {
+      if (bitmap.getCardinality() != 0)
+      {
+        return new long[] { bitmap.first(), bitmap.last() };
+      }
+      return NO_ENTRY_IDS_RANGE;
+    }
+
+    @Override
+    public long[] getIDs()
+    {
+      if (entryIDs == null)
+      {
+        entryIDs = bitmap.toArray();
+      }
+      return entryIDs;
+    }
+  }
+
   /**
    * Concrete implementation where the EntryIDs are not defined, for example when the index entry
    * limit has been exceeded.
@@ -539,7 +673,63 @@ final class EntryIDSet implements Iterable<EntryID>
   }
 
   /**
-   * Decorate a V1 or V2 codec with encryption. When writing EntryIDSets to disk,
+   * Compressed bitmap EntryIDSet codec implementation. The IDs are stored as a {@link EntryIDBitmap}, where each chunk
+   * of 65536 IDs is written as a sorted array, a bitmap or a list of runs of consecutive IDs, whichever is the most
+   * compact. Large sets of IDs therefore take a fraction of the space they take with the other codecs, and are decoded
+   * into a bitmap set on which intersections and unions are computed without expanding the IDs.
+   * <p>
+   * Encoded sets start with a tag which is never the first byte of a set encoded by the V1 or V2 codecs: values which
+   * do not start with this tag are decoded by the legacy codec, so that an index can switch to this codec without
+   * being rebuilt, its values being converted as they are updated.
+   */
+  static final class EntryIDSetCodecV4 implements EntryIDSetCodec
+  {
+    private static final byte BITMAP_SET = (byte) 0xFE;
+    private static final byte UNDEFINED_SET = (byte) 0xFF;
+    private final EntryIDSetCodec legacyCodec;
+
+    EntryIDSetCodecV4(EntryIDSetCodec legacyCodec)
+    {
+      this.legacyCodec = checkNotNull(legacyCodec, "legacyCodec must not be null");
+    }
+
+    @Override
+    public ByteString encode(EntryIDSet idSet)
+    {
+      checkNotNull(idSet, "idSet must not be null");
+      if (!idSet.isDefined())
+      {
+        return ByteString.valueOfBytes(new byte[] { UNDEFINED_SET });
+      }
+      final ByteStringBuilder builder = new ByteStringBuilder();
+      toBitmap(idSet).encode(builder.appendByte(BITMAP_SET));
+      return ByteString.wrap(builder.getBackingArray(), 0, builder.length());
+    }
+
+    @Override
+    public EntryIDSet decode(ByteSequence key, ByteString value)
+    {
+      checkNotNull(key, "key must not be null");
+      checkNotNull(value, "value must not be null");
+      if (!value.isEmpty())
+      {
+        if (value.byteAt(0) == BITMAP_SET)
+        {
+          final ByteSequenceReader reader = value.asReader();
+          reader.skip(1);
+          return new EntryIDSet(new BitmapImpl(EntryIDBitmap.decode(reader)));
+        }
+        else if (value.byteAt(0) == UNDEFINED_SET)
+        {
+          return newUndefinedSetWithKey(key);
+        }
+      }
+      return legacyCodec.decode(key, value);
+    }
+  }
+
+  /**
+   * Decorate a V1, V2 or V4 codec with encryption. When writing EntryIDSets to disk,
    * prepend two bytes, {0, 1} to mark them as encrypted.
    * The first is tag zero (unused in other encodings), followed by a byte
    * indicating version 1 of encryption.
@@ -628,6 +818,45 @@ final class EntryIDSet implements Iterable<EntryID>
     return new EntryIDSet(new DefinedImpl(entryIDs));
   }
 
+  /**
+   * Creates a new defined entry ID set with the specified sorted entryIDs, stored as a compressed bitmap.
+   *
+   * @param entryIDs
+   *          Sorted Entry IDs contained in the set.
+   * @return A new defined {@link EntryIDSet} containing the provided entryIDs
+   * @throws NullPointerException
+   *           if entryIDs is null
+   */
+  static EntryIDSet newBitmapSet(long... entryIDs)
+  {
+    checkNotNull(entryIDs, "ids must not be null");
+    return new EntryIDSet(new BitmapImpl(EntryIDBitmap.valueOf(entryIDs)));
+  }
+
+  private static EntryIDBitmap toBitmap(EntryIDSet set)
+  {
+    if (set.concreteImpl instanceof BitmapImpl)
+    {
+      return ((BitmapImpl) set.concreteImpl).bitmap;
+    }
+    return EntryIDBitmap.valueOf(set.getIDs());
+  }
+
+  /** Returns the IDs of the provided array which are contained in the provided bitmap set. */
+  private static long[] intersection(long[] set, BitmapImpl bitmapSet)
+  {
+    final long[] target = new long[set.length];
+    int ci = 0;
+    for (long id : set)
+    {
+      if (bitmapSet.bitmap.contains(id))
+      {
+        target[ci++] = id;
+      }
+    }
+    return ci < target.length ? Arrays.copyOf(target, ci) : target;
+  }
+
   private static long[] intersection(long[] set1, long[] set2)
   {
     long[] target = new long[Math.min(set1.length, set2.length)];
@@ -689,6 +918,14 @@ final class EntryIDSet implements Iterable<EntryID>
       return newUndefinedSet();
     }
 
+    for (EntryIDSet l : sets)
+    {
+      if (l.concreteImpl instanceof BitmapImpl)
+      {
+        return newSetFromBitmapUnion(sets);
+      }
+    }
+
     boolean needSort = false;
     long[] n = new long[count];
     int pos = 0;
@@ -723,6 +960,19 @@ final class EntryIDSet implements Iterable<EntryID>
     return newDefinedSet(Arrays.copyOf(n1, j));
   }
 
+  private static EntryIDSet newSetFromBitmapUnion(List<EntryIDSet> sets)
+  {
+    EntryIDBitmap union = new EntryIDBitmap();
+    for (EntryIDSet l : sets)
+    {
+      if (l.size() != 0)
+      {
+        union = union.or(toBitmap(l));
+      }
+    }
+    return new EntryIDSet(new BitmapImpl(union));
+  }
+
   private EntryIDSetImplementor concreteImpl;
 
   private EntryIDSet(EntryIDSetImplementor concreteImpl)
@@ -889,7 +1139,9 @@ final class EntryIDSet implements Iterable<EntryID>
     checkNotNull(that, "that must not be null");
     if (!concreteImpl.isDefined())
     {
-      if ( that.isDefined() ) {
+      if (that.concreteImpl instanceof BitmapImpl) {
+        concreteImpl = new BitmapImpl(new EntryIDBitmap().or(toBitmap(that)));
+      } else if ( that.isDefined() ) {
         // NOTE: It's ok to share the same array instance here thanks to the copy-on-write
         // performed by the implementation.
         concreteImpl = new DefinedImpl(that.getIDs());
@@ -906,7 +1158,22 @@ final class EntryIDSet implements Iterable<EntryID>
     final boolean thatSetOverlap = compareForOverlap(getRange(), that.getRange()) == 0;
     if (thatSetOverlap)
     {
-      concreteImpl = new DefinedImpl(intersection(concreteImpl.getIDs(), that.getIDs()));
+      if (concreteImpl instanceof BitmapImpl && that.concreteImpl instanceof BitmapImpl)
+      {
+        concreteImpl = new BitmapImpl(toBitmap(this).and(toBitmap(that)));
+      }
+      else if (that.concreteImpl instanceof BitmapImpl)
+      {
+        concreteImpl = new DefinedImpl(intersection(concreteImpl.getIDs(), (BitmapImpl) that.concreteImpl));
+      }
+      else if (concreteImpl instanceof BitmapImpl)
+      {
+        concreteImpl = new DefinedImpl(intersection(that.getIDs(), (BitmapImpl) concreteImpl));
+      }
+      else
+      {
+        concreteImpl = new DefinedImpl(intersection(concreteImpl.getIDs(), that.getIDs()));
+      }
     }
     else if (size() != 0)
     {
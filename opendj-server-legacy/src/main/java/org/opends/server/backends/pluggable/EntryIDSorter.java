@@ -0,0 +1,287 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.forgerock.util.Utils.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.pluggable.OnDiskMergeImporter.BufferPool;
+import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortChunk;
+import org.opends.server.backends.pluggable.OnDiskMergeImporter.MeteredCursor;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+
+/**
+ * Sorts entry IDs by the sort keys of their entries, for the server side sort requests which cannot be processed with
+ * a VLV index.
+ * <p>
+ * A bounded sorter only keeps the entries at one end of the sorted list, in a heap, which is enough when the request
+ * only returns a window of the sorted list. An unbounded sorter sorts the entries in memory while they fit in a sort
+ * buffer, then spills them to sorted runs in a temporary file which are merged when the entries are read, using the
+ * external sort of {@link OnDiskMergeImporter}.
+ * <p>
+ * In all cases, the sorted entries are read in ascending order of their sort keys. Sort keys must be unique, for example
+ * by ending with the entry ID. This class is not thread safe.
+ */
+final class EntryIDSorter implements Iterable<Map.Entry<ByteString, EntryID>>, Closeable
+{
+  /** The size of the memory used to sort the entries of an unbounded sorter before spilling them to disk. */
+  static final int SORT_BUFFER_SIZE = 16 * 1024 * 1024;
+  /** Approximate memory used by a sorted entry on top of its sort key. */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private static final Comparator<Map.Entry<ByteString, EntryID>> ASCENDING =
+      new Comparator<Map.Entry<ByteString, EntryID>>()
+      {
+        @Override
+        public int compare(Map.Entry<ByteString, EntryID> e1, Map.Entry<ByteString, EntryID> e2)
+        {
+          return e1.getKey().compareTo(e2.getKey());
+        }
+      };
+  private static final Comparator<Map.Entry<ByteString, EntryID>> DESCENDING = Collections.reverseOrder(ASCENDING);
+
+  /** The maximum number of entries kept by a bounded sorter, or -1 if the sorter is unbounded. */
+  private final int maxSize;
+  /** The entries kept by a bounded sorter. The head of the heap is the next entry to evict. */
+  private final PriorityQueue<Map.Entry<ByteString, EntryID>> heap;
+  /** The directory where the sorted runs of an unbounded sorter are spilled, null if the sorter is bounded. */
+  private final File spillDirectory;
+
+  /** The entries of an unbounded sorter until they are spilled to disk. */
+  private List<Map.Entry<ByteString, EntryID>> entries;
+  private long entriesSize;
+  private BufferPool bufferPool;
+  private ExternalSortChunk spilledEntries;
+  private MeteredCursor<ByteString, ByteString> spilledCursor;
+  /** The number of entries added to this sorter, including the evicted ones. */
+  private int size;
+
+  private EntryIDSorter(int maxSize, Comparator<Map.Entry<ByteString, EntryID>> evictionOrder, File spillDirectory)
+  {
+    this.maxSize = maxSize;
+    this.heap = maxSize >= 0 ? new PriorityQueue<>(Math.max(1, Math.min(maxSize, 1024)), evictionOrder) : null;
+    this.entries = maxSize >= 0 ? null : new ArrayList<Map.Entry<ByteString, EntryID>>();
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Returns a sorter keeping all the entries, which spills them to disk if they do not fit in memory.
+   *
+   * @param tempDir
+   *          the directory where the sorted runs can be spilled
+   * @return a new unbounded sorter
+   */
+  static EntryIDSorter newExternalSorter(File tempDir)
+  {
+    return new EntryIDSorter(-1, null, new File(tempDir, UUID.randomUUID().toString()));
+  }
+
+  /**
+   * Returns a sorter keeping the entries with the lowest sort keys.
+   *
+   * @param maxSize
+   *          the maximum number of entries to keep
+   * @return a new bounded sorter
+   */
+  static EntryIDSorter newLowestKeysSorter(int maxSize)
+  {
+    return new EntryIDSorter(maxSize, DESCENDING, null);
+  }
+
+  /**
+   * Returns a sorter keeping the entries with the highest sort keys.
+   *
+   * @param maxSize
+   *          the maximum number of entries to keep
+   * @return a new bounded sorter
+   */
+  static EntryIDSorter newHighestKeysSorter(int maxSize)
+  {
+    return new EntryIDSorter(maxSize, ASCENDING, null);
+  }
+
+  /**
+   * Adds an entry to this sorter.
+   *
+   * @param sortKey
+   *          the unique sort key of the entry
+   * @param entryID
+   *          the ID of the entry
+   * @throws StorageRuntimeException
+   *           If the entries cannot be spilled to disk.
+   */
+  void add(ByteString sortKey, EntryID entryID) throws StorageRuntimeException
+  {
+    size++;
+    final Map.Entry<ByteString, EntryID> entry = new SimpleImmutableEntry<>(sortKey, entryID);
+    if (heap != null)
+    {
+      if (heap.size() < maxSize)
+      {
+        heap.add(entry);
+      }
+      else if (maxSize > 0 && heap.comparator().compare(entry, heap.peek()) > 0)
+      {
+        heap.poll();
+        heap.add(entry);
+      }
+    }
+    else if (spilledEntries != null)
+    {
+      spilledEntries.put(sortKey, entryID.toByteString());
+    }
+    else
+    {
+      entries.add(entry);
+      entriesSize += sortKey.length() + ENTRY_OVERHEAD;
+      if (entriesSize > SORT_BUFFER_SIZE)
+      {
+        spill();
+      }
+    }
+  }
+
+  private void spill()
+  {
+    try
+    {
+      spillDirectory.mkdirs();
+      bufferPool = new BufferPool(1, SORT_BUFFER_SIZE, false);
+      spilledEntries = new ExternalSortChunk(
+          spillDirectory, "sort", bufferPool, null, null, OnDiskMergeImporter.sameThreadExecutor());
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    for (Map.Entry<ByteString, EntryID> entry : entries)
+    {
+      spilledEntries.put(entry.getKey(), entry.getValue().toByteString());
+    }
+    entries = null;
+  }
+
+  /**
+   * Returns the number of entries added to this sorter, including the entries which were not kept by a bounded sorter.
+   *
+   * @return the number of entries added to this sorter
+   */
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the entries kept by this sorter, in ascending order of their sort keys. No entries can be added once this
+   * method has been called, and it can only be called once.
+   *
+   * @return the entries kept by this sorter, in ascending order of their sort keys
+   */
+  @Override
+  public Iterator<Map.Entry<ByteString, EntryID>> iterator()
+  {
+    if (spilledEntries == null)
+    {
+      final List<Map.Entry<ByteString, EntryID>> sortedEntries = heap != null ? new ArrayList<>(heap) : entries;
+      Collections.sort(sortedEntries, ASCENDING);
+      return sortedEntries.iterator();
+    }
+
+    spilledCursor = spilledEntries.flip();
+    return new Iterator<Map.Entry<ByteString, EntryID>>()
+    {
+      private Map.Entry<ByteString, EntryID> next = readNext();
+
+      private Map.Entry<ByteString, EntryID> readNext()
+      {
+        return spilledCursor.next()
+            ? new SimpleImmutableEntry<>(spilledCursor.getKey(), new EntryID(spilledCursor.getValue()))
+            : null;
+      }
+
+      @Override
+      public boolean hasNext()
+      {
+        return next != null;
+      }
+
+      @Override
+      public Map.Entry<ByteString, EntryID> next()
+      {
+        if (next == null)
+        {
+          throw new NoSuchElementException();
+        }
+        final Map.Entry<ByteString, EntryID> current = next;
+        next = readNext();
+        return current;
+      }
+
+      @Override
+      public void remove()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Returns the IDs of the entries kept by this sorter, in ascending order of their sort keys.
+   *
+   * @return the IDs of the entries kept by this sorter
+   */
+  long[] toLongArray()
+  {
+    final long[] entryIDs = new long[heap != null ? heap.size() : size];
+    int i = 0;
+    for (Map.Entry<ByteString, EntryID> entry : this)
+    {
+      entryIDs[i++] = entry.getValue().longValue();
+    }
+    return i == entryIDs.length ? entryIDs : Arrays.copyOf(entryIDs, i);
+  }
+
+  @Override
+  public void close()
+  {
+    if (spilledEntries != null && spilledCursor == null)
+    {
+      // Closes the spill file
+      spilledCursor = spilledEntries.flip();
+    }
+    closeSilently(spilledCursor, bufferPool);
+    if (spillDirectory != null && spillDirectory.exists())
+    {
+      recursiveDelete(spillDirectory);
+    }
+  }
+}
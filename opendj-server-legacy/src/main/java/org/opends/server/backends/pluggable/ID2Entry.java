@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -27,7 +28,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 import java.util.zip.InflaterOutputStream;
 
@@ -50,6 +53,7 @@ import org.opends.server.backends.pluggable.spi.WriteableTransaction;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.types.CryptoManagerException;
 import org.opends.server.types.DirectoryException;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.LDAPException;
 
@@ -98,13 +102,17 @@ class ID2Entry extends AbstractTree
     if (codec.maxBufferSize != getCoreConfigManager().getMaxInternalBufferSize())
     {
       // Setting has changed, so recreate the codec.
+      codec.end();
       codec = new EntryCodec();
       ENTRY_CODEC_CACHE.set(codec);
     }
     return codec;
   }
 
-  /** A cached set of ByteStringBuilder buffers and ASN1Writer used to encode entries. */
+  /**
+   * A cached set of ByteStringBuilder buffers, ASN1Writer and compressors used to encode entries.
+   * The compressors are reset after each use rather than allocated for each entry.
+   */
   private static final class EntryCodec
   {
     /**
@@ -119,6 +127,7 @@ class ID2Entry extends AbstractTree
     private static final byte PLAIN_ENTRY = 0x00;
     private static final byte COMPRESS_ENTRY = 0x01;
     private static final byte ENCRYPT_ENTRY = 0x02;
+    private static final byte DICTIONARY_ENTRY = 0x04;
 
     /** The format version for entry encoding. */
     static final byte FORMAT_VERSION_V2 = 0x02;
@@ -126,6 +135,8 @@ class ID2Entry extends AbstractTree
     private final ByteStringBuilder encodedBuffer = new ByteStringBuilder();
     private final ByteStringBuilder entryBuffer = new ByteStringBuilder();
     private final ByteStringBuilder compressedEntryBuffer = new ByteStringBuilder();
+    private final Deflater deflater = new Deflater();
+    private final Inflater inflater = new Inflater();
     private final int maxBufferSize;
 
     private EntryCodec()
@@ -138,18 +149,41 @@ class ID2Entry extends AbstractTree
       encodedBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
       entryBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
       compressedEntryBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
+      deflater.reset();
+      inflater.reset();
+    }
+
+    private void end()
+    {
+      deflater.end();
+      inflater.end();
     }
 
-    private Entry decode(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decode(ByteString bytes, CompressedSchema compressedSchema, DataConfig dataConfig)
         throws DirectoryException, DecodeException, IOException
+    {
+      return Entry.decode(decodeEntryEncoding(bytes, dataConfig).asReader(), compressedSchema);
+    }
+
+    /**
+     * Decompresses and decrypts a tree value, without decoding the entry it contains.
+     *
+     * @param bytes A byte array containing the encoded tree value.
+     * @param dataConfig The configuration holding the compression dictionaries.
+     * @return The entry encoding, which may be one of the cached buffers.
+     * @throws DecodeException If the data is not in the expected format.
+     * @throws IOException if an error occurs while reading the ASN1 sequence.
+     */
+    private ByteSequence decodeEntryEncoding(ByteString bytes, DataConfig dataConfig)
+        throws DecodeException, IOException
     {
       final byte formatVersion = bytes.byteAt(0);
       switch(formatVersion)
       {
       case FORMAT_VERSION:
-        return decodeV1(bytes, compressedSchema);
+        return decodeV1(bytes);
       case FORMAT_VERSION_V2:
-        return decodeV2(bytes, compressedSchema);
+        return decodeV2(bytes, dataConfig);
       default:
         throw DecodeException.error(ERR_INCOMPATIBLE_ENTRY_VERSION.get(formatVersion));
       }
@@ -179,15 +213,12 @@ class ID2Entry extends AbstractTree
      * </pre>
      *
      * @param bytes A byte array containing the encoded tree value.
-     * @param compressedSchema The compressed schema manager to use when decoding.
-     * @return The decoded entry.
+     * @return The entry encoding.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format.
-     * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV1(ByteString bytes, CompressedSchema compressedSchema)
-        throws DirectoryException, DecodeException, IOException
+    private ByteSequence decodeV1(ByteString bytes) throws DecodeException, IOException
     {
       // Read the ASN1 sequence.
       ASN1Reader reader = ASN1.getReader(bytes.subSequence(1, bytes.length()));
@@ -214,59 +245,67 @@ class ID2Entry extends AbstractTree
         // Since we are used the cached buffers (ByteStringBuilders),
         // the decoded attribute values will not refer back to the
         // original buffer.
-        return Entry.decode(entryBuffer.asReader(), compressedSchema);
+        return entryBuffer;
       }
       else
       {
         // Since we don't have to do any decompression, we can just decode
         // the entry directly.
-        ByteString encodedEntry = reader.readOctetString();
-        return Entry.decode(encodedEntry.asReader(), compressedSchema);
+        return reader.readOctetString();
       }
     }
 
     /**
      * Decodes an entry in the new extensible format.
      * Enties are encoded according to the sequence
-     *   {VERSION_BYTE, FLAG_BYTE, COMPACT_INTEGER_LENGTH, ID2ENTRY_VALUE}
+     *   {VERSION_BYTE, FLAG_BYTE, COMPACT_INTEGER_LENGTH, [COMPACT_DICTIONARY_VERSION], ID2ENTRY_VALUE}
      * where
      *
      * ID2ENTRY_VALUE = encoding of Entry as in decodeV1()
      * VERSION_BYTE = 0x2
      * FLAG_BYTE = bit field of OR'ed values indicating post-encoding processing.
-     *     possible meaningful flags are COMPRESS_ENTRY and ENCRYPT_ENTRY.
+     *     possible meaningful flags are COMPRESS_ENTRY, ENCRYPT_ENTRY and DICTIONARY_ENTRY.
      * COMPACT_INTEGER_LENGTH = length of ID2ENTRY_VALUE
+     * COMPACT_DICTIONARY_VERSION = version of the dictionary used to compress ID2ENTRY_VALUE,
+     *     only present when the DICTIONARY_ENTRY flag is set.
      *
      * @param bytes A byte array containing the encoded tree value.
-     * @param compressedSchema The compressed schema manager to use when decoding.
-     * @return The decoded entry.
+     * @param dataConfig The configuration holding the compression dictionaries.
+     * @return The entry encoding.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format or a decryption error occurs.
-     * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV2(ByteString bytes, CompressedSchema compressedSchema)
-        throws DirectoryException, DecodeException, IOException
+    private ByteSequence decodeV2(ByteString bytes, DataConfig dataConfig) throws DecodeException, IOException
     {
       ByteSequenceReader reader = bytes.asReader();
       // skip version byte
       reader.position(1);
       int format = reader.readByte();
       int encodedEntryLen = reader.readCompactUnsignedInt();
+      byte[] dictionary = null;
+      if ((format & DICTIONARY_ENTRY) == DICTIONARY_ENTRY)
+      {
+        dictionary = getDictionary(reader.readCompactUnsignedInt(), dataConfig);
+      }
       try
       {
         if (format == PLAIN_ENTRY)
         {
-          return Entry.decode(reader, compressedSchema);
+          return bytes.subSequence(reader.position(), bytes.length());
         }
         InputStream is = reader.asInputStream();
         if ((format & ENCRYPT_ENTRY) == ENCRYPT_ENTRY)
         {
           is = getCryptoManager().getCipherInputStream(is);
         }
+        if (dictionary != null)
+        {
+          return inflate(is, dictionary, encodedEntryLen);
+        }
         if ((format & COMPRESS_ENTRY) == COMPRESS_ENTRY)
         {
-          is = new InflaterInputStream(is);
+          is = new InflaterInputStream(is, inflater);
         }
         byte[] data = new byte[encodedEntryLen];
         int readBytes;
@@ -282,7 +321,7 @@ class ID2Entry extends AbstractTree
           position += readBytes;
           leftToRead -= readBytes;
         } while (leftToRead > 0 && readBytes > 0);
-        return Entry.decode(ByteString.wrap(data).asReader(), compressedSchema);
+        return ByteString.wrap(data);
       }
       catch (CryptoManagerException cme)
       {
@@ -291,6 +330,56 @@ class ID2Entry extends AbstractTree
       }
     }
 
+    private byte[] getDictionary(int version, DataConfig dataConfig) throws DecodeException
+    {
+      final PersistentCompressionDictionary dictionaries = dataConfig.getCompressionDictionary();
+      final byte[] dictionary = dictionaries != null ? dictionaries.getDictionary(version) : null;
+      if (dictionary == null)
+      {
+        throw DecodeException.error(ERR_COMPRESSION_DICTIONARY_UNKNOWN_VERSION.get(version));
+      }
+      return dictionary;
+    }
+
+    /**
+     * Inflates data compressed with a dictionary. {@link InflaterInputStream} cannot be used here
+     * because it reports the end of the stream as soon as the inflater needs a dictionary.
+     */
+    private ByteString inflate(InputStream is, byte[] dictionary, int encodedEntryLen)
+        throws DecodeException, IOException
+    {
+      while (compressedEntryBuffer.appendBytes(is, BUFFER_INIT_SIZE) != -1)
+      {
+        // Read all the compressed bytes.
+      }
+      inflater.setInput(compressedEntryBuffer.getBackingArray(), 0, compressedEntryBuffer.length());
+      byte[] data = new byte[encodedEntryLen];
+      int position = 0;
+      try
+      {
+        while (position < encodedEntryLen)
+        {
+          final int inflatedBytes = inflater.inflate(data, position, encodedEntryLen - position);
+          if (inflatedBytes == 0)
+          {
+            if (!inflater.needsDictionary())
+            {
+              throw DecodeException.error(ERR_CANNOT_DECODE_ENTRY.get());
+            }
+            inflater.setDictionary(dictionary);
+          }
+          position += inflatedBytes;
+        }
+      }
+      catch (DataFormatException | IllegalArgumentException e)
+      {
+        // setDictionary() throws IllegalArgumentException when the dictionary does not match the stream
+        logger.traceException(e);
+        throw DecodeException.error(ERR_CANNOT_DECODE_ENTRY.get(), e);
+      }
+      return ByteString.wrap(data);
+    }
+
     private ByteString encode(Entry entry, DataConfig dataConfig) throws DirectoryException
     {
       encodeVolatile(entry, dataConfig);
@@ -301,15 +390,28 @@ class ID2Entry extends AbstractTree
     {
       entry.encode(entryBuffer, dataConfig.getEntryEncodeConfig());
 
+      PersistentCompressionDictionary.Dictionary dictionary = null;
+      if (dataConfig.isCompressedWithDictionary())
+      {
+        dataConfig.getCompressionDictionary().sample(entryBuffer);
+        dictionary = dataConfig.getCompressionDictionary().getCurrentDictionary();
+      }
+
       OutputStream os = encodedBuffer.asOutputStream();
       try
       {
         byte[] formatFlags = { FORMAT_VERSION_V2, 0};
         os.write(formatFlags);
         encodedBuffer.appendCompactUnsigned(entryBuffer.length());
-        if (dataConfig.isCompressed())
+        if (dictionary != null)
+        {
+          encodedBuffer.appendCompactUnsigned(dictionary.getVersion());
+          deflater.setDictionary(dictionary.getBytes());
+          formatFlags[1] = COMPRESS_ENTRY | DICTIONARY_ENTRY;
+        }
+        else if (dataConfig.isCompressed())
         {
-          os = new DeflaterOutputStream(os);
+          os = new DeflaterOutputStream(os, deflater);
           formatFlags[1] = COMPRESS_ENTRY;
         }
         if (dataConfig.isEncrypted())
@@ -317,6 +419,11 @@ class ID2Entry extends AbstractTree
           os = dataConfig.getCryptoSuite().getCipherOutputStream(os);
           formatFlags[1] |= ENCRYPT_ENTRY;
         }
+        if (dictionary != null)
+        {
+          // Compress before encrypting, as expected by decodeV2()
+          os = new DeflaterOutputStream(os, deflater);
+        }
         encodedBuffer.setByte(1, formatFlags[1]);
 
         entryBuffer.copyTo(os);
@@ -388,7 +495,7 @@ class ID2Entry extends AbstractTree
     EntryCodec codec = acquireEntryCodec();
     try
     {
-      return codec.decode(bytes, compressedSchema);
+      return codec.decode(bytes, compressedSchema, dataConfig);
     }
     finally
     {
@@ -423,6 +530,20 @@ class ID2Entry extends AbstractTree
     return entryToDatabase(entry, dataConfig);
   }
 
+  /**
+   * Encodes an entry without compressing nor encrypting it, as used to train compression dictionaries.
+   *
+   * @param entry The entry to encode.
+   * @return A ByteString containing the encoded entry.
+   * @throws DirectoryException If a problem occurs while attempting to encode the entry.
+   */
+  ByteString encodeUncompressed(Entry entry) throws DirectoryException
+  {
+    final ByteStringBuilder buffer = new ByteStringBuilder();
+    entry.encode(buffer, dataConfig.getEntryEncodeConfig());
+    return buffer.toByteString();
+  }
+
   /**
    * Write a record in the entry tree.
    *
@@ -469,6 +590,43 @@ class ID2Entry extends AbstractTree
     }
   }
 
+  /**
+   * Fetch a record from the entry tree without decoding the attributes of the entry.
+   *
+   * @param txn a non null transaction
+   * @param entryID The desired entry ID which forms the key.
+   * @return The requested entry in its encoded form, or null if there is no such record
+   * or if its encoding does not include the DN of the entry.
+   * @throws DirectoryException If a problem occurs while getting the entry.
+   * @throws StorageRuntimeException If an error occurs in the storage.
+   */
+  EncodedEntry getEncoded(ReadableTransaction txn, EntryID entryID)
+      throws DirectoryException, StorageRuntimeException
+  {
+    final ByteString value = txn.read(getName(), entryID.toByteString());
+    if (value == null)
+    {
+      return null;
+    }
+    EntryCodec codec = acquireEntryCodec();
+    try
+    {
+      // Copy the entry encoding out of the cached buffers, it is used after the codec has been released
+      final ByteString encodedEntry = codec.decodeEntryEncoding(value, dataConfig).toByteString();
+      return EncodedEntry.decode(encodedEntry, dataConfig.getEntryEncodeConfig().getCompressedSchema());
+    }
+    catch (DecodeException | IOException e)
+    {
+      logger.traceException(e);
+      throw new DirectoryException(
+          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_ENTRY_DATABASE_CORRUPT.get(entryID));
+    }
+    finally
+    {
+      codec.release();
+    }
+  }
+
   Cursor<EntryID, Entry> openCursor(ReadableTransaction txn)
   {
     return transformKeysAndValues(txn.openCursor(getName()), TO_ENTRY_ID, TO_ENTRY);
@@ -12,12 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.EntryStreamable.EntryStream;
 import org.opends.server.backends.RebuildConfig;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.LDIFImportConfig;
@@ -45,6 +49,27 @@ interface ImportStrategy
   LDIFImportResult importLDIF(LDIFImportConfig importConfig)
       throws InitializationException, ConfigException, InterruptedException, ExecutionException;
 
+  /**
+   * Imports the entries of a base DN from streams of entries read concurrently.
+   *
+   * @param baseDN
+   *          The base DN of the entry container whose entries are replaced
+   * @param streams
+   *          The streams of entries to import
+   * @return Information about the result of the import processing
+   * @throws InitializationException
+   *           If a problem occurs during initialization
+   * @throws ConfigException
+   *           If the configuration is invalid
+   * @throws InterruptedException
+   *           If the import process has been interrupted
+   * @throws ExecutionException
+   *           If a problem occurs while performing the import
+   * @see {@link org.opends.server.api.EntryStreamable#importEntries}
+   */
+  LDIFImportResult importEntries(DN baseDN, List<? extends EntryStream> streams)
+      throws InitializationException, ConfigException, InterruptedException, ExecutionException;
+
   /**
    * Rebuild indexes.
    *
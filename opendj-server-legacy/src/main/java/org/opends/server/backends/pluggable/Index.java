@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -31,6 +32,20 @@ interface Index extends Tree
 {
   EntryIDSet get(ReadableTransaction txn, ByteSequence key);
 
+  /**
+   * Returns the estimated number of entry IDs associated with a key, without reading it.
+   * <p>
+   * Estimates may be larger than the actual size of the key, so they must only be used to decide
+   * in which order to read the indexes, never to avoid reading them.
+   *
+   * @param key
+   *          The key of the index.
+   * @return The estimated number of entry IDs, {@link IndexStatistics#LIMIT_EXCEEDED_SIZE} if the
+   *         key probably exceeded the index entry limit, or {@link IndexStatistics#UNKNOWN_SIZE} if it cannot
+   *         be estimated.
+   */
+  long getEstimatedSize(ByteSequence key);
+
   int getIndexEntryLimit();
 
   boolean isTrusted();
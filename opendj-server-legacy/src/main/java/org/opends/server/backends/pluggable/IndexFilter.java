@@ -13,15 +13,19 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
@@ -33,9 +37,52 @@ import org.opends.server.types.SearchFilter;
 /**
  * An index filter is used to apply a search operation to a set of indexes
  * to generate a set of candidate entries.
+ * <p>
+ * The components of logical filters are evaluated according to a plan ordered by the estimated
+ * size of their candidate sets, as given by the key cardinality statistics of the indexes. The
+ * components whose size cannot be estimated keep a fixed order where the fast components
+ * (equality, presence, approx) come first and the slow range components come last.
  */
 class IndexFilter
 {
+  /** Rank of the equality, presence and approximate components in the fixed evaluation order. */
+  private static final int RANK_FAST = 0;
+  /** Rank of the components which are neither fast nor ranges in the fixed evaluation order. */
+  private static final int RANK_OTHER = 1;
+  /** Rank of the range component pairs like (cn>=A)(cn<=B) in the fixed evaluation order. */
+  private static final int RANK_BOUNDED_RANGE = 2;
+  /** Rank of the remaining range components in the fixed evaluation order. */
+  private static final int RANK_RANGE = 3;
+
+  /** Orders the steps of a plan by increasing estimated cost, then by their rank in the fixed order. */
+  private static final Comparator<PlanStep> PLAN_STEP_COMPARATOR = new Comparator<PlanStep>()
+  {
+    @Override
+    public int compare(PlanStep step1, PlanStep step2)
+    {
+      final int cmp = Long.compare(getCost(step1.estimatedSize), getCost(step2.estimatedSize));
+      return cmp != 0 ? cmp : Integer.compare(step1.rank, step2.rank);
+    }
+  };
+
+  /** A step of the evaluation plan of a logical filter. */
+  private static final class PlanStep
+  {
+    /** The filters evaluated by this step, two filters for a bounded range. */
+    private final List<SearchFilter> filters;
+    /** The rank of this step in the fixed evaluation order. */
+    private final int rank;
+    /** The estimated size of the candidate set of this step. */
+    private final long estimatedSize;
+
+    private PlanStep(List<SearchFilter> filters, int rank, long estimatedSize)
+    {
+      this.filters = filters;
+      this.rank = rank;
+      this.estimatedSize = estimatedSize;
+    }
+  }
+
   /**
    * Stop processing the filter against the indexes when the
    * number of candidates is smaller than this value.
@@ -171,11 +218,8 @@ class IndexFilter
   private EntryIDSet evaluateLogicalAndFilter(SearchFilter andFilter)
   {
     // Put the slow range filters (greater-or-equal, less-or-equal)
-    // into a hash map, the faster components (equality, presence, approx)
-    // into one list and the remainder into another list.
-
-    ArrayList<SearchFilter> fastComps = new ArrayList<>();
-    ArrayList<SearchFilter> otherComps = new ArrayList<>();
+    // into a hash map, and the other components into the plan.
+    List<PlanStep> plan = new ArrayList<>();
     HashMap<AttributeType, ArrayList<SearchFilter>> rangeComps = new HashMap<>();
 
     for (SearchFilter filter : andFilter.getFilterComponents())
@@ -197,77 +241,78 @@ class IndexFilter
            filterType == FilterType.PRESENT ||
            filterType == FilterType.APPROXIMATE_MATCH)
       {
-        fastComps.add(filter);
+        plan.add(newPlanStep(filter, RANK_FAST));
       }
       else
       {
-        otherComps.add(filter);
+        plan.add(newPlanStep(filter, RANK_OTHER));
       }
     }
 
-    EntryIDSet results = newUndefinedSet();
-    // First, process the fast components.
-    results = applyFiltersUntilThreshold(results, fastComps);
-    // Next, process the other (non-range) components.
-    results = applyFiltersUntilThreshold(results, otherComps);
-
-    if ( isBelowFilterThreshold(results) || rangeComps.isEmpty() ) {
-      return results;
-    }
-
-    // Next, process range component pairs like (cn>=A)(cn<=B).
-    ArrayList<SearchFilter> remainComps = new ArrayList<>();
-    for (Map.Entry<AttributeType, ArrayList<SearchFilter>> rangeEntry : rangeComps.entrySet())
+    // Range component pairs like (cn>=A)(cn<=B) are evaluated together.
+    for (ArrayList<SearchFilter> rangeList : rangeComps.values())
     {
-      ArrayList<SearchFilter> rangeList = rangeEntry.getValue();
       if (rangeList.size() == 2)
       {
-        SearchFilter filter1 = rangeList.get(0);
-        SearchFilter filter2 = rangeList.get(1);
-
-        AttributeIndex attributeIndex = entryContainer.getAttributeIndex(rangeEntry.getKey());
-        if (attributeIndex == null)
+        plan.add(new PlanStep(rangeList, RANK_BOUNDED_RANGE, UNKNOWN_SIZE));
+      }
+      else
+      {
+        for (SearchFilter filter : rangeList)
         {
-          if(monitor.isFilterUseEnabled())
-          {
-            monitor.updateStats(SearchFilter.createANDFilter(rangeList),
-                INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", rangeEntry.getKey().getNameOrOID()));
-          }
-          continue;
+          plan.add(new PlanStep(Collections.singletonList(filter), RANK_RANGE, UNKNOWN_SIZE));
         }
+      }
+    }
 
-        final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-        EntryIDSet set = attributeIndex.evaluateBoundedRange(indexQueryFactory, filter1, filter2, buffer, monitor);
-        if(monitor.isFilterUseEnabled() && set.isDefined())
-        {
-          monitor.updateStats(SearchFilter.createANDFilter(rangeList), set.size());
-        }
-        results.retainAll(set);
-        if (isBelowFilterThreshold(results))
-        {
-          return results;
-        }
+    // Evaluate the cheapest components first, stopping as soon as there are few enough candidates.
+    Collections.sort(plan, PLAN_STEP_COMPARATOR);
+    appendPlanToDebugBuffer(plan);
+
+    EntryIDSet results = newUndefinedSet();
+    for (PlanStep step : plan)
+    {
+      if (isBelowFilterThreshold(results))
+      {
+        return results;
+      }
+      // Estimates may overestimate a key sharing statistics with a larger one:
+      // they only order the plan, the index is always read.
+      if (step.rank == RANK_BOUNDED_RANGE)
+      {
+        results.retainAll(evaluateBoundedRange(step.filters));
       }
       else
       {
-        // Add to the remaining range components to be processed.
-        remainComps.addAll(rangeList);
+        results.retainAll(evaluateFilter(step.filters.get(0)));
       }
     }
-
-    // Finally, process the remaining slow range components.
-    return applyFiltersUntilThreshold(results, remainComps);
+    return results;
   }
 
-  private EntryIDSet applyFiltersUntilThreshold(EntryIDSet results, ArrayList<SearchFilter> filters)
+  private EntryIDSet evaluateBoundedRange(List<SearchFilter> rangeList)
   {
-    for(SearchFilter filter : filters) {
-      if (isBelowFilterThreshold(results)) {
-        return results;
+    SearchFilter filter1 = rangeList.get(0);
+    SearchFilter filter2 = rangeList.get(1);
+
+    AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter1.getAttributeType());
+    if (attributeIndex == null)
+    {
+      if(monitor.isFilterUseEnabled())
+      {
+        monitor.updateStats(SearchFilter.createANDFilter(rangeList),
+            INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", filter1.getAttributeType().getNameOrOID()));
       }
-      results.retainAll(evaluateFilter(filter));
+      return newUndefinedSet();
     }
-    return results;
+
+    final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
+    EntryIDSet set = attributeIndex.evaluateBoundedRange(indexQueryFactory, filter1, filter2, buffer, monitor);
+    if(monitor.isFilterUseEnabled() && set.isDefined())
+    {
+      monitor.updateStats(SearchFilter.createANDFilter(rangeList), set.size());
+    }
+    return set;
   }
 
   static boolean isBelowFilterThreshold(EntryIDSet set)
@@ -283,11 +328,23 @@ class IndexFilter
    */
   private EntryIDSet evaluateLogicalOrFilter(SearchFilter orFilter)
   {
-    ArrayList<EntryIDSet> candidateSets = new ArrayList<>(orFilter.getFilterComponents().size());
-
+    List<PlanStep> plan = new ArrayList<>(orFilter.getFilterComponents().size());
     for (SearchFilter filter : orFilter.getFilterComponents())
     {
-      EntryIDSet set = evaluateFilter(filter);
+      plan.add(newPlanStep(filter, RANK_FAST));
+    }
+
+    // The union is undefined as soon as one component is undefined:
+    // evaluate first the components which are the most likely to be undefined.
+    Collections.sort(plan, Collections.reverseOrder(PLAN_STEP_COMPARATOR));
+    appendPlanToDebugBuffer(plan);
+
+    ArrayList<EntryIDSet> candidateSets = new ArrayList<>(plan.size());
+    for (PlanStep step : plan)
+    {
+      // Estimates may overestimate a key sharing statistics with a larger one:
+      // they only order the plan, the index is always read.
+      EntryIDSet set = evaluateFilter(step.filters.get(0));
       if (!set.isDefined())
       {
         // There is no point continuing.
@@ -298,6 +355,75 @@ class IndexFilter
     return newSetFromUnion(candidateSets);
   }
 
+  private PlanStep newPlanStep(SearchFilter filter, int rank)
+  {
+    return new PlanStep(Collections.singletonList(filter), rank, estimateSize(filter));
+  }
+
+  /**
+   * Estimates the size of the candidate set of a filter from the statistics of the indexes,
+   * without reading them.
+   */
+  private long estimateSize(SearchFilter filter)
+  {
+    final IndexFilterType indexFilterType;
+    switch (filter.getFilterType())
+    {
+    case EQUALITY:
+      indexFilterType = IndexFilterType.EQUALITY;
+      break;
+    case PRESENT:
+      indexFilterType = IndexFilterType.PRESENCE;
+      break;
+    case APPROXIMATE_MATCH:
+      indexFilterType = IndexFilterType.APPROXIMATE;
+      break;
+    case SUBSTRING:
+      indexFilterType = IndexFilterType.SUBSTRING;
+      break;
+    default:
+      // Statistics are kept per key, they cannot estimate ranges and logical filters.
+      return UNKNOWN_SIZE;
+    }
+
+    AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter.getAttributeType());
+    if (attributeIndex == null)
+    {
+      return UNKNOWN_SIZE;
+    }
+    return AttributeIndex.getEstimatedSize(new IndexQueryFactoryImpl(txn, attributeIndex), indexFilterType, filter);
+  }
+
+  private void appendPlanToDebugBuffer(List<PlanStep> plan)
+  {
+    if (buffer != null)
+    {
+      buffer.append("[PLAN:");
+      for (PlanStep step : plan)
+      {
+        for (SearchFilter filter : step.filters)
+        {
+          filter.toString(buffer);
+        }
+        buffer.append("[ESTIMATE:");
+        if (step.estimatedSize == UNKNOWN_SIZE)
+        {
+          buffer.append("UNKNOWN");
+        }
+        else if (step.estimatedSize == LIMIT_EXCEEDED_SIZE)
+        {
+          buffer.append("LIMIT-EXCEEDED");
+        }
+        else
+        {
+          buffer.append(step.estimatedSize);
+        }
+        buffer.append("]");
+      }
+      buffer.append("]");
+    }
+  }
+
   private EntryIDSet evaluateFilterWithDiagnostic(IndexFilterType indexFilterType, SearchFilter filter)
   {
     if (buffer != null)
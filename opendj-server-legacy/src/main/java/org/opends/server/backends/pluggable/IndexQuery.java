@@ -13,13 +13,13 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import org.forgerock.i18n.LocalizableMessageBuilder;
 
 /** This interface represents a Backend Query. */
-// @FunctionalInterface
 interface IndexQuery
 {
   /**
@@ -33,4 +33,16 @@ interface IndexQuery
    * @return The non null EntryIDSet as a result of evaluating this query
    */
   EntryIDSet evaluate(LocalizableMessageBuilder debugMessage, StringBuilder indexNameOut);
+
+  /**
+   * Estimates the number of entry IDs returned by this query, without reading the index.
+   * <p>
+   * Estimates may be larger than the actual size, so they must only be used to order the
+   * evaluation of queries.
+   *
+   * @return The estimated number of entry IDs, {@link IndexStatistics#LIMIT_EXCEEDED_SIZE} if the
+   *         query is expected to return an undefined EntryIDSet, or
+   *         {@link IndexStatistics#UNKNOWN_SIZE} if it cannot be estimated.
+   */
+  long getEstimatedSize();
 }
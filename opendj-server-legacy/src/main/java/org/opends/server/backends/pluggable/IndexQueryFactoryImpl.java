@@ -13,16 +13,22 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
 import static org.opends.server.backends.pluggable.IndexFilter.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizableMessageBuilder;
@@ -59,6 +65,12 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
       return newUndefinedSet();
     }
 
+    @Override
+    public long getEstimatedSize()
+    {
+      return UNKNOWN_SIZE;
+    }
+
     @Override
     public String toString()
     {
@@ -87,7 +99,7 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
     public EntryIDSet evaluate(LocalizableMessageBuilder debugMessage, StringBuilder indexNameOut)
     {
       final EntryIDSet entryIDs = newUndefinedSet();
-      for (IndexQuery query : subIndexQueries)
+      for (IndexQuery query : sortByEstimatedCost(subIndexQueries))
       {
         entryIDs.retainAll(query.evaluate(debugMessage, indexNameOut));
         if (isBelowFilterThreshold(entryIDs))
@@ -98,6 +110,22 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
       return entryIDs;
     }
 
+    @Override
+    public long getEstimatedSize()
+    {
+      // The intersection is at most as large as its smallest estimated component
+      long estimatedSize = UNKNOWN_SIZE;
+      for (IndexQuery query : subIndexQueries)
+      {
+        final long size = query.getEstimatedSize();
+        if (size != UNKNOWN_SIZE && (estimatedSize == UNKNOWN_SIZE || size < estimatedSize))
+        {
+          estimatedSize = size;
+        }
+      }
+      return estimatedSize;
+    }
+
     @Override
     public String toString()
     {
@@ -139,6 +167,22 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
       return newSetFromUnion(candidateSets);
     }
 
+    @Override
+    public long getEstimatedSize()
+    {
+      long estimatedSize = 0;
+      for (final IndexQuery query : subIndexQueries)
+      {
+        final long size = query.getEstimatedSize();
+        if (size == UNKNOWN_SIZE || size == LIMIT_EXCEEDED_SIZE)
+        {
+          return size;
+        }
+        estimatedSize += size;
+      }
+      return estimatedSize;
+    }
+
     @Override
     public String toString()
     {
@@ -206,6 +250,30 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
           return entrySet;
         }
 
+        @Override
+        public long getEstimatedSize()
+        {
+          final Index index = attributeIndex.getNameToIndexes().get(indexID);
+          if (index != null)
+          {
+            return index.getEstimatedSize(key);
+          }
+          final Index protectedIndex =
+              attributeIndex.getNameToIndexes().get(indexID + AttributeIndex.PROTECTED_INDEX_ID);
+          if (protectedIndex != null)
+          {
+            try
+            {
+              return protectedIndex.getEstimatedSize(attributeIndex.getCryptoSuite().hash48(key));
+            }
+            catch (DecodeException de)
+            {
+              logger.traceException(de);
+            }
+          }
+          return UNKNOWN_SIZE;
+        }
+
         @Override
         public String toString()
         {
@@ -313,6 +381,13 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
         }
       }
 
+      @Override
+      public long getEstimatedSize()
+      {
+        // Statistics are kept per key, they cannot tell how many keys are in the range
+        return UNKNOWN_SIZE;
+      }
+
         @Override
         public String toString()
         {
@@ -371,6 +446,13 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
           return entrySet;
         }
 
+        @Override
+        public long getEstimatedSize()
+        {
+          final Index index = attributeIndex.getNameToIndexes().get(PRESENCE_INDEX_KEY);
+          return index != null ? index.getEstimatedSize(AttributeIndex.PRESENCE_KEY) : UNKNOWN_SIZE;
+        }
+
         @Override
         public String toString()
         {
@@ -379,6 +461,32 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
       };
   }
 
+  /**
+   * Returns the provided queries ordered by increasing estimated cost. The order of queries having
+   * the same cost, for example because their size cannot be estimated, is preserved.
+   */
+  private static List<IndexQuery> sortByEstimatedCost(Collection<IndexQuery> queries)
+  {
+    final List<IndexQuery> sortedQueries = new ArrayList<>(queries);
+    if (sortedQueries.size() > 1)
+    {
+      final Map<IndexQuery, Long> costs = new IdentityHashMap<>(sortedQueries.size());
+      for (IndexQuery query : sortedQueries)
+      {
+        costs.put(query, getCost(query.getEstimatedSize()));
+      }
+      Collections.sort(sortedQueries, new Comparator<IndexQuery>()
+      {
+        @Override
+        public int compare(IndexQuery query1, IndexQuery query2)
+        {
+          return Long.compare(costs.get(query1), costs.get(query2));
+        }
+      });
+    }
+    return sortedQueries;
+  }
+
   private static void appendExceptionError(LocalizableMessageBuilder debugMessage, LocalizableMessage msg)
   {
     if (debugMessage != null)
@@ -0,0 +1,169 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+
+/**
+ * Key cardinality statistics of an index, used to estimate the number of entry IDs a key maps to
+ * without reading it.
+ * <p>
+ * The statistics are a count-min sketch of the sizes of the entry ID sets observed for the keys of
+ * the index: when the index is imported or rebuilt, when its records are updated and when they are
+ * read. Each row of the sketch keeps the largest size observed for the keys hashed to a cell, so
+ * the estimate of a key, which is the smallest cell among the rows, never underestimates the
+ * largest size observed for this key. The statistics are only kept in memory: after a restart they
+ * are progressively rebuilt as the index is used.
+ */
+final class IndexStatistics
+{
+  /** Estimated size returned when nothing is known about a key. */
+  static final long UNKNOWN_SIZE = -1;
+  /** Estimated size returned for a key which exceeded the index entry limit. */
+  static final long LIMIT_EXCEEDED_SIZE = Long.MAX_VALUE;
+
+  /** Number of rows of the sketch, each using an independent hash of the keys. */
+  private static final int DEPTH = 4;
+  /** Number of cells in each row of the sketch, must be a power of 2. */
+  private static final int WIDTH = 1024;
+
+  private final AtomicIntegerArray sketch = new AtomicIntegerArray(DEPTH * WIDTH);
+  /** Number of defined sizes observed, used to compute the average size of the keys. */
+  private final AtomicLong nbSamples = new AtomicLong();
+  /** Sum of the defined sizes observed, used to compute the average size of the keys. */
+  private final AtomicLong sumOfSizes = new AtomicLong();
+
+  /**
+   * Records the size of the entry ID set currently associated with a key.
+   *
+   * @param key
+   *          The key of the index.
+   * @param size
+   *          The size of the entry ID set of the key, or {@link #LIMIT_EXCEEDED_SIZE} if the key
+   *          exceeded the index entry limit.
+   */
+  void recordSize(ByteSequence key, long size)
+  {
+    if (size <= 0)
+    {
+      return;
+    }
+    final int value = (int) Math.min(size, Integer.MAX_VALUE);
+    final long hash = hash(key);
+    for (int row = 0; row < DEPTH; row++)
+    {
+      final int cell = getCell(hash, row);
+      int current = sketch.get(cell);
+      while (current < value && !sketch.compareAndSet(cell, current, value))
+      {
+        current = sketch.get(cell);
+      }
+    }
+    if (size != LIMIT_EXCEEDED_SIZE)
+    {
+      nbSamples.incrementAndGet();
+      sumOfSizes.addAndGet(size);
+    }
+  }
+
+  /**
+   * Returns the estimated size of the entry ID set associated with a key.
+   *
+   * @param key
+   *          The key of the index.
+   * @return The estimated size, {@link #LIMIT_EXCEEDED_SIZE} if the key exceeded the index entry
+   *         limit, or {@link #UNKNOWN_SIZE} if no size was recorded for this key.
+   */
+  long getKeySize(ByteSequence key)
+  {
+    final long hash = hash(key);
+    int min = Integer.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++)
+    {
+      min = Math.min(min, sketch.get(getCell(hash, row)));
+    }
+    if (min == 0)
+    {
+      return UNKNOWN_SIZE;
+    }
+    return min == Integer.MAX_VALUE ? LIMIT_EXCEEDED_SIZE : min;
+  }
+
+  /**
+   * Returns the average size of the entry ID sets recorded in these statistics.
+   *
+   * @return The average size of the entry ID sets, or {@link #UNKNOWN_SIZE} if no size was
+   *         recorded.
+   */
+  long getAverageSize()
+  {
+    final long samples = nbSamples.get();
+    return samples > 0 ? Math.max(sumOfSizes.get() / samples, 1) : UNKNOWN_SIZE;
+  }
+
+  /** Forgets all the recorded sizes, for example because the index is emptied. */
+  void clear()
+  {
+    for (int i = 0; i < sketch.length(); i++)
+    {
+      sketch.set(i, 0);
+    }
+    nbSamples.set(0);
+    sumOfSizes.set(0);
+  }
+
+  /**
+   * Returns the cost of reading an entry ID set with the provided estimated size, where unknown
+   * sizes cost more than any known defined size but less than a set exceeding the index entry
+   * limit.
+   *
+   * @param estimatedSize
+   *          The estimated size of an entry ID set.
+   * @return The cost of reading the entry ID set.
+   */
+  static long getCost(long estimatedSize)
+  {
+    return estimatedSize == UNKNOWN_SIZE ? LIMIT_EXCEEDED_SIZE - 1 : estimatedSize;
+  }
+
+  private static int getCell(long hash, int row)
+  {
+    // Derives the hash functions of the rows from two halves of a 64 bits hash
+    final int hash1 = (int) hash;
+    final int hash2 = (int) (hash >>> 32);
+    return row * WIDTH + ((hash1 + row * hash2) & (WIDTH - 1));
+  }
+
+  private static long hash(ByteSequence key)
+  {
+    // FNV-1a followed by the finalizer of MurmurHash3 to spread the bits
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++)
+    {
+      hash ^= key.byteAt(i) & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Portions Copyright 2014 The Apache Software Foundation
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
  * this work for additional information regarding copyright ownership.
@@ -109,6 +110,7 @@ import org.forgerock.util.Reject;
 import org.forgerock.util.Utils;
 import org.forgerock.util.promise.PromiseImpl;
 import org.opends.server.api.CompressedSchema;
+import org.opends.server.api.EntryStreamable.EntryStream;
 import org.opends.server.backends.RebuildConfig;
 import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
 import org.opends.server.backends.pluggable.CursorTransformer.SequentialCursorAdapter;
@@ -260,6 +262,63 @@ final class OnDiskMergeImporter
       }
     }
 
+    @Override
+    public LDIFImportResult importEntries(DN baseDN, List<? extends EntryStream> streams)
+        throws InitializationException, ConfigException, InterruptedException, ExecutionException
+    {
+      logger.info(NOTE_IMPORT_STARTING, DirectoryServer.getVersionString(), BUILD_ID, REVISION);
+
+      final long startTime = System.currentTimeMillis();
+      final int nbBuffersPerThread = 2 * getIndexCount();
+      try (final BufferPool bufferPool = newBufferPool(getDefaultNumberOfThread(), nbBuffersPerThread))
+      {
+        final int threadCount = bufferPool.size() / nbBuffersPerThread;
+        logger.info(NOTE_IMPORT_THREAD_COUNT, threadCount);
+        final OnDiskMergeImporter importer;
+        final ExecutorService sorter =
+            Executors.newFixedThreadPool(threadCount, newThreadFactory(null, SORTER_THREAD_NAME, true));
+        try (final EntryStreamSource source = new EntryStreamSource(rootContainer,
+            rootContainer.getEntryContainer(baseDN), streams, PHASE1_IMPORTER_THREAD_NAME, threadCount))
+        {
+          final File tempDir = prepareTempDir(backendCfg, null);
+          try (final Importer dbStorage = rootContainer.getStorage().startImport())
+          {
+            final Collection<EntryContainer> entryContainers = rootContainer.getEntryContainers();
+            final AbstractTwoPhaseImportStrategy importStrategy =
+                new ExternalSortAndImportStrategy(entryContainers, dbStorage, tempDir, bufferPool, sorter);
+            importer = new OnDiskMergeImporter(PHASE2_IMPORTER_THREAD_NAME, importStrategy);
+            importer.doImport(source);
+          }
+          finally
+          {
+            sorter.shutdownNow();
+            if (OperatingSystem.isWindows())
+            {
+              // Try to force the JVM to close mmap()ed file so that they can be deleted.
+              // (see http://bugs.java.com/view_bug.do?bug_id=4715154)
+              System.gc();
+              Runtime.getRuntime().runFinalization();
+            }
+            recursiveDelete(tempDir);
+          }
+          logger.info(NOTE_IMPORT_PHASE_STATS,
+                      importer.getTotalTimeInMillis() / 1000,
+                      importer.getPhaseOneTimeInMillis() / 1000,
+                      importer.getPhaseTwoTimeInMillis() / 1000);
+
+          final long importTime = System.currentTimeMillis() - startTime;
+          final float rate = importTime > 0 ? 1000f * source.getEntriesRead() / importTime : 0;
+          logger.info(NOTE_IMPORT_FINAL_STATUS, source.getEntriesRead(), importer.getImportedCount(),
+              source.getEntriesIgnored(), 0, 0, importTime / 1000, rate);
+          return new LDIFImportResult(source.getEntriesRead(), 0, source.getEntriesIgnored());
+        }
+      }
+      catch (IOException e)
+      {
+        throw new ExecutionException(e);
+      }
+    }
+
     private static int getDefaultNumberOfThread()
     {
       final int nbProcessors = Runtime.getRuntime().availableProcessors();
@@ -655,8 +714,56 @@ final class OnDiskMergeImporter
     boolean isCancelled();
   }
 
+  /** {@link Source} of imported {@link Entry}s, counting the entries read for the progress reports. */
+  private interface ImportSource extends Source
+  {
+    long getEntriesRead();
+
+    long getEntriesIgnored();
+
+    long getEntriesRejected();
+  }
+
+  /** This class reports progress of first phase of import processing at fixed intervals. */
+  private static final class PhaseOneProgressReporter extends TimerTask
+  {
+    private final ImportSource source;
+    /** The number of entries that had been read at the time of the previous progress report. */
+    private long previousCount;
+    /** The time in milliseconds of the previous progress report. */
+    private long previousTime;
+
+    /** Create a new import progress task. */
+    PhaseOneProgressReporter(ImportSource source)
+    {
+      this.source = source;
+      previousTime = System.currentTimeMillis();
+    }
+
+    /** The action to be performed by this timer task. */
+    @Override
+    public void run()
+    {
+      long entriesRead = source.getEntriesRead();
+      long entriesIgnored = source.getEntriesIgnored();
+      long entriesRejected = source.getEntriesRejected();
+      long deltaCount = entriesRead - previousCount;
+
+      long latestTime = System.currentTimeMillis();
+      long deltaTime = latestTime - previousTime;
+      if (deltaTime == 0)
+      {
+        return;
+      }
+      float rate = 1000f * deltaCount / deltaTime;
+      logger.info(NOTE_IMPORT_PROGRESS_REPORT, entriesRead, entriesIgnored, entriesRejected, rate);
+      previousCount = entriesRead;
+      previousTime = latestTime;
+    }
+  }
+
   /** Extract LDAP {@link Entry}s from an LDIF file. */
-  private static final class LDIFReaderSource implements Source
+  private static final class LDIFReaderSource implements ImportSource
   {
     private static final String PHASE1_REPORTER_THREAD_NAME = "PHASE1-REPORTER-%d";
 
@@ -691,7 +798,7 @@ final class OnDiskMergeImporter
     {
       final ScheduledExecutorService scheduler =
           Executors.newSingleThreadScheduledExecutor(newThreadFactory(null, PHASE1_REPORTER_THREAD_NAME, true));
-      scheduler.scheduleAtFixedRate(new PhaseOneProgressReporter(), 10, 10, TimeUnit.SECONDS);
+      scheduler.scheduleAtFixedRate(new PhaseOneProgressReporter(this), 10, 10, TimeUnit.SECONDS);
       final CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
       try
       {
@@ -746,17 +853,20 @@ final class OnDiskMergeImporter
       }
     }
 
-    long getEntriesRead()
+    @Override
+    public long getEntriesRead()
     {
       return reader.getEntriesRead();
     }
 
-    long getEntriesIgnored()
+    @Override
+    public long getEntriesIgnored()
     {
       return reader.getEntriesIgnored();
     }
 
-    long getEntriesRejected()
+    @Override
+    public long getEntriesRejected()
     {
       return reader.getEntriesRejected();
     }
@@ -766,41 +876,115 @@ final class OnDiskMergeImporter
     {
       return importConfig.isCancelled();
     }
+  }
 
-    /** This class reports progress of first phase of import processing at fixed intervals. */
-    private final class PhaseOneProgressReporter extends TimerTask
+  /**
+   * Extract LDAP {@link Entry}s from {@link EntryStream}s read concurrently. The entries are assigned new entry IDs,
+   * and those outside of the imported entry container are ignored.
+   */
+  private static final class EntryStreamSource implements ImportSource
+  {
+    private static final String PHASE1_REPORTER_THREAD_NAME = "PHASE1-REPORTER-%d";
+
+    private final RootContainer rootContainer;
+    private final EntryContainer entryContainer;
+    private final List<? extends EntryStream> streams;
+    private final ExecutorService executor;
+    private final AtomicLong entriesRead = new AtomicLong();
+    private final AtomicLong entriesIgnored = new AtomicLong();
+    private volatile boolean interrupted;
+
+    EntryStreamSource(RootContainer rootContainer, EntryContainer entryContainer, List<? extends EntryStream> streams,
+        String threadNameTemplate, int nbThreads)
     {
-      /** The number of entries that had been read at the time of the previous progress report. */
-      private long previousCount;
-      /** The time in milliseconds of the previous progress report. */
-      private long previousTime;
+      this.rootContainer = rootContainer;
+      this.entryContainer = entryContainer;
+      this.streams = streams;
+      this.executor = Executors.newFixedThreadPool(nbThreads, newThreadFactory(null, threadNameTemplate, true));
+    }
 
-      /** Create a new import progress task. */
-      public PhaseOneProgressReporter()
+    @Override
+    public void close()
+    {
+      executor.shutdown();
+      for (EntryStream stream : streams)
       {
-        previousTime = System.currentTimeMillis();
+        closeSilently(stream);
       }
+    }
 
-      /** The action to be performed by this timer task. */
-      @Override
-      public void run()
+    @Override
+    public void processAllEntries(final EntryProcessor entryProcessor) throws InterruptedException, ExecutionException
+    {
+      final ScheduledExecutorService scheduler =
+          Executors.newSingleThreadScheduledExecutor(newThreadFactory(null, PHASE1_REPORTER_THREAD_NAME, true));
+      scheduler.scheduleAtFixedRate(new PhaseOneProgressReporter(this), 10, 10, TimeUnit.SECONDS);
+      final CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+      try
       {
-        long entriesRead = reader.getEntriesRead();
-        long entriesIgnored = reader.getEntriesIgnored();
-        long entriesRejected = reader.getEntriesRejected();
-        long deltaCount = entriesRead - previousCount;
-
-        long latestTime = System.currentTimeMillis();
-        long deltaTime = latestTime - previousTime;
-        if (deltaTime == 0)
+        for (final EntryStream stream : streams)
         {
-          return;
+          completion.submit(new Callable<Void>()
+          {
+            @Override
+            public Void call() throws Exception
+            {
+              checkThreadNotInterrupted();
+              Entry entry;
+              while (!interrupted && (entry = stream.readEntry()) != null)
+              {
+                entriesRead.incrementAndGet();
+                if (entry.getName().isSubordinateOrEqualTo(entryContainer.getBaseDN()))
+                {
+                  entryProcessor.processEntry(entryContainer, rootContainer.getNextEntryID(), entry);
+                }
+                else
+                {
+                  entriesIgnored.incrementAndGet();
+                }
+                checkThreadNotInterrupted();
+              }
+              return null;
+            }
+          });
         }
-        float rate = 1000f * deltaCount / deltaTime;
-        logger.info(NOTE_IMPORT_PROGRESS_REPORT, entriesRead, entriesIgnored, entriesRejected, rate);
-        previousCount = entriesRead;
-        previousTime = latestTime;
+        waitTasksTermination(completion, streams.size());
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+        // Stop the streams still being read
+        interrupted = true;
+        throw e;
       }
+      finally
+      {
+        scheduler.shutdown();
+        executor.shutdown();
+      }
+    }
+
+    @Override
+    public long getEntriesRead()
+    {
+      return entriesRead.get();
+    }
+
+    @Override
+    public long getEntriesIgnored()
+    {
+      return entriesIgnored.get();
+    }
+
+    @Override
+    public long getEntriesRejected()
+    {
+      return 0;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+      return interrupted;
     }
   }
 
@@ -1022,7 +1206,7 @@ final class OnDiskMergeImporter
       throw new InterruptedException("Import processing canceled.");
     }
 
-    importStrategy.afterPhaseOne();
+    importStrategy.afterPhaseOne(importedCount.get());
 
     // Start phase two
     final long phaseTwoStartTime = System.currentTimeMillis();
@@ -1080,6 +1264,8 @@ final class OnDiskMergeImporter
     protected final Importer importer;
     protected final BufferPool bufferPool;
     protected final File tempDir;
+    /** The number of entries imported in phase one, used to size the Bloom filters built in phase two. */
+    protected long nbImportedEntries;
 
     AbstractTwoPhaseImportStrategy(Collection<EntryContainer> entryContainers, Importer importer, File tempDir,
         BufferPool bufferPool, Executor sorter)
@@ -1101,8 +1287,9 @@ final class OnDiskMergeImporter
       visitIndexes(entryContainer, setTrust(false, importer));
     }
 
-    void afterPhaseOne()
+    void afterPhaseOne(long nbImportedEntries)
     {
+      this.nbImportedEntries = nbImportedEntries;
       closeSilently(bufferPool);
     }
 
@@ -1123,7 +1310,8 @@ final class OnDiskMergeImporter
     final Callable<Void> newChunkCopierTask(TreeName treeName, final Chunk source,
         PhaseTwoProgressReporter progressReporter)
     {
-      return new ChunkCopierTask(progressReporter, source, treeName, importer);
+      final DefaultIndex index = getIndex(entryContainers.get(treeName.getBaseDN()), treeName);
+      return new ChunkCopierTask(progressReporter, source, treeName, importer, index, nbImportedEntries);
     }
 
     final Callable<Void> newDN2IDImporterTask(TreeName treeName, final Chunk source,
@@ -1134,7 +1322,7 @@ final class OnDiskMergeImporter
       final ID2ChildrenCount id2count = entryContainer.getID2ChildrenCount();
 
       return new DN2IDImporterTask(progressReporter, importer, tempDir, bufferPool, id2entry, entryContainer.getDN2ID(),
-          source, id2count, newPhaseTwoCollector(entryContainer, id2count.getName()));
+          source, id2count, newPhaseTwoCollector(entryContainer, id2count.getName()), nbImportedEntries);
     }
 
     final Callable<Void> newVLVIndexImporterTask(VLVIndex vlvIndex, final Chunk source,
@@ -1175,6 +1363,13 @@ final class OnDiskMergeImporter
       super(entryContainers, importer, tempDir, bufferPool, sorter);
     }
 
+    @Override
+    void afterPhaseTwo(EntryContainer entryContainer)
+    {
+      super.afterPhaseTwo(entryContainer);
+      entryContainer.saveBloomFilters(asWriteableTransaction(importer));
+    }
+
     @Override
     public Chunk newChunk(TreeName treeName) throws Exception
     {
@@ -2245,13 +2440,20 @@ final class OnDiskMergeImporter
     private final TreeName treeName;
     private final Importer destination;
     private final Chunk source;
+    /** The index whose statistics are rebuilt from the copied records, null if the tree is not an index. */
+    private final DefaultIndex index;
+    /** The number of imported entries, an upper bound of the number of keys of most indexes. */
+    private final long nbImportedEntries;
 
-    ChunkCopierTask(PhaseTwoProgressReporter reporter, Chunk source, TreeName treeName, Importer destination)
+    ChunkCopierTask(PhaseTwoProgressReporter reporter, Chunk source, TreeName treeName, Importer destination,
+        DefaultIndex index, long nbImportedEntries)
     {
       this.source = source;
       this.treeName = treeName;
       this.destination = destination;
       this.reporter = reporter;
+      this.index = index;
+      this.nbImportedEntries = nbImportedEntries;
     }
 
     @Override
@@ -2260,12 +2462,102 @@ final class OnDiskMergeImporter
       checkThreadNotInterrupted();
       try (final SequentialCursor<ByteString, ByteString> sourceCursor = trackCursorProgress(reporter, source.flip()))
       {
-        copyIntoChunk(sourceCursor, asChunk(treeName, destination));
+        final Chunk destinationChunk = asChunk(treeName, destination);
+        if (index == null)
+        {
+          copyIntoChunk(sourceCursor, destinationChunk);
+        }
+        else if (index.getBloomFilter() == null)
+        {
+          copyIntoChunk(sourceCursor, new IndexStatisticsChunk(destinationChunk, index));
+        }
+        else
+        {
+          final BloomFilterChunk bloomFilterChunk =
+              new BloomFilterChunk(new IndexStatisticsChunk(destinationChunk, index), index, nbImportedEntries);
+          copyIntoChunk(sourceCursor, bloomFilterChunk);
+          bloomFilterChunk.publishBloomFilter();
+        }
       }
       return null;
     }
   }
 
+  /** Records the statistics of the index records put into the decorated {@link Chunk}. */
+  private static final class IndexStatisticsChunk implements Chunk
+  {
+    private final Chunk delegate;
+    private final DefaultIndex index;
+
+    IndexStatisticsChunk(Chunk delegate, DefaultIndex index)
+    {
+      this.delegate = delegate;
+      this.index = index;
+    }
+
+    @Override
+    public boolean put(ByteSequence key, ByteSequence value)
+    {
+      index.importRecordStatistics(key, value.toByteString());
+      return delegate.put(key, value);
+    }
+
+    @Override
+    public MeteredCursor<ByteString, ByteString> flip()
+    {
+      return delegate.flip();
+    }
+
+    @Override
+    public long size()
+    {
+      return delegate.size();
+    }
+  }
+
+  /**
+   * Builds the {@link BloomFilter} of the keys put into the decorated {@link Chunk}, replacing the filter of the tree
+   * once all the keys have been put. The storage is closed during imports, so the tree cannot be read or written
+   * concurrently.
+   */
+  private static final class BloomFilterChunk implements Chunk
+  {
+    private final Chunk delegate;
+    private final BloomFilterStore.FilteredTree tree;
+    private final BloomFilter bloomFilter;
+
+    BloomFilterChunk(Chunk delegate, BloomFilterStore.FilteredTree tree, long expectedNbKeys)
+    {
+      this.delegate = delegate;
+      this.tree = tree;
+      this.bloomFilter = new BloomFilter(expectedNbKeys);
+    }
+
+    @Override
+    public boolean put(ByteSequence key, ByteSequence value)
+    {
+      bloomFilter.add(key);
+      return delegate.put(key, value);
+    }
+
+    void publishBloomFilter()
+    {
+      tree.setBloomFilter(bloomFilter);
+    }
+
+    @Override
+    public MeteredCursor<ByteString, ByteString> flip()
+    {
+      return delegate.flip();
+    }
+
+    @Override
+    public long size()
+    {
+      return delegate.size();
+    }
+  }
+
   /** Task to copy VLV's counter chunks into a database tree. */
   private static final class VLVIndexImporterTask implements Callable<Void>
   {
@@ -2288,13 +2580,48 @@ final class OnDiskMergeImporter
       checkThreadNotInterrupted();
       try (final SequentialCursor<ByteString, ByteString> sourceCursor = trackCursorProgress(reporter, source.flip()))
       {
-        final long nbRecords = copyIntoChunk(sourceCursor, asChunk(vlvIndex.getName(), destination));
+        final VLVCheckpoints.RangeWriter checkpointsWriter = vlvIndex.newCheckpointsWriter(destination);
+        final long nbRecords = copyIntoChunk(sourceCursor,
+            new VLVCheckpointsChunk(asChunk(vlvIndex.getName(), destination), checkpointsWriter));
+        checkpointsWriter.close();
         vlvIndex.importCount(destination, nbRecords);
         return null;
       }
     }
   }
 
+  /** Records the checkpoints of the VLV keys put in ascending order into the decorated {@link Chunk}. */
+  private static final class VLVCheckpointsChunk implements Chunk
+  {
+    private final Chunk delegate;
+    private final VLVCheckpoints.RangeWriter checkpointsWriter;
+
+    VLVCheckpointsChunk(Chunk delegate, VLVCheckpoints.RangeWriter checkpointsWriter)
+    {
+      this.delegate = delegate;
+      this.checkpointsWriter = checkpointsWriter;
+    }
+
+    @Override
+    public boolean put(ByteSequence key, ByteSequence value)
+    {
+      checkpointsWriter.append(key);
+      return delegate.put(key, value);
+    }
+
+    @Override
+    public MeteredCursor<ByteString, ByteString> flip()
+    {
+      return delegate.flip();
+    }
+
+    @Override
+    public long size()
+    {
+      return delegate.size();
+    }
+  }
+
   private static long copyIntoChunk(SequentialCursor<ByteString, ByteString> source, Chunk destination)
       throws InterruptedException
   {
@@ -2328,10 +2655,12 @@ final class OnDiskMergeImporter
     private final Collector<?, ByteString> id2countCollector;
     private final Chunk dn2IdSourceChunk;
     private final Chunk dn2IdDestination;
+    /** The number of imported entries, the number of keys of dn2id. */
+    private final long nbImportedEntries;
 
     DN2IDImporterTask(PhaseTwoProgressReporter progressReporter, Importer importer, File tempDir, BufferPool bufferPool,
         ID2Entry id2Entry, DN2ID dn2id, Chunk dn2IdChunk, ID2ChildrenCount id2count,
-        Collector<?, ByteString> id2countCollector)
+        Collector<?, ByteString> id2countCollector, long nbImportedEntries)
     {
       this.reporter = progressReporter;
       this.importer = importer;
@@ -2343,6 +2672,7 @@ final class OnDiskMergeImporter
       this.id2count = id2count;
       this.id2countCollector = id2countCollector;
       this.dn2IdDestination = asChunk(dn2id.getName(), importer);
+      this.nbImportedEntries = nbImportedEntries;
     }
 
     @Override
@@ -2355,6 +2685,9 @@ final class OnDiskMergeImporter
 
       final TreeVisitor<ChildrenCount> childrenCountVisitor =
           new ID2CountTreeVisitorImporter(asImporter(id2CountChunk));
+      final BloomFilterChunk bloomFilterChunk =
+          dn2id.getBloomFilter() != null ? new BloomFilterChunk(dn2IdDestination, dn2id, nbImportedEntries) : null;
+      final Chunk destination = bloomFilterChunk != null ? bloomFilterChunk : dn2IdDestination;
       try (final SequentialCursor<ByteString, ByteString> chunkCursor =
                trackCursorProgress(reporter, dn2IdSourceChunk.flip());
            final DnValidationCursorDecorator validatorCursor =
@@ -2365,7 +2698,7 @@ final class OnDiskMergeImporter
         while (dn2idCursor.next())
         {
           checkThreadNotInterrupted();
-          dn2IdDestination.put(dn2idCursor.getKey(), dn2idCursor.getValue());
+          destination.put(dn2idCursor.getKey(), dn2idCursor.getValue());
           totalNumberOfEntries++;
         }
       }
@@ -2378,9 +2711,13 @@ final class OnDiskMergeImporter
         }
         throw e;
       }
+      if (bloomFilterChunk != null)
+      {
+        bloomFilterChunk.publishBloomFilter();
+      }
       id2count.importPutTotalCount(asImporter(id2CountChunk), Math.max(0, totalNumberOfEntries));
 
-      new ChunkCopierTask(reporter, id2CountChunk, id2count.getName(), importer).call();
+      new ChunkCopierTask(reporter, id2CountChunk, id2count.getName(), importer, null, 0).call();
       return null;
     }
 
@@ -2771,7 +3108,7 @@ final class OnDiskMergeImporter
   }
 
   /** Executor delegating the execution of task to the current thread. */
-  private static Executor sameThreadExecutor()
+  static Executor sameThreadExecutor()
   {
     return new Executor()
     {
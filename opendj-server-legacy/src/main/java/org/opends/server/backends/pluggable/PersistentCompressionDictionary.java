@@ -0,0 +1,408 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.messages.BackendMessages.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.DirectoryException;
+
+/**
+ * This class manages the deflate dictionaries used to compress the entries of a backend. The
+ * dictionaries are trained from a sample of the encoded entries and persisted in a tree, keyed by
+ * their version. Every version ever trained is kept so that entries compressed with an older
+ * dictionary can still be read, while new entries are always compressed with the latest one.
+ */
+final class PersistentCompressionDictionary
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The tree storing the dictionaries, keyed by their version. */
+  private static final TreeName dictionaryTreeName = new TreeName("compression_dictionary", "dictionaries");
+
+  /** The maximum size of a dictionary, which is also the size of the deflate window. */
+  static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+  /** The minimum number of entries needed to train a meaningful dictionary. */
+  static final int MIN_SAMPLES = 16;
+  /** The number of entries sampled before automatically training the first dictionary. */
+  static final int MAX_SAMPLES = 1000;
+  /** The maximum number of bytes sampled before automatically training the first dictionary. */
+  static final int MAX_SAMPLE_BYTES = 256 * 1024;
+  /** The length of the byte sequences counted while training. */
+  private static final int WINDOW_LENGTH = 8;
+
+  /** A versioned dictionary. */
+  static final class Dictionary
+  {
+    private final int version;
+    private final byte[] bytes;
+
+    Dictionary(int version, byte[] bytes)
+    {
+      this.version = version;
+      this.bytes = bytes;
+    }
+
+    int getVersion()
+    {
+      return version;
+    }
+
+    byte[] getBytes()
+    {
+      return bytes;
+    }
+  }
+
+  /** The storage in which the tree is held. */
+  private final Storage storage;
+  private final String backendID;
+  private final boolean isWriteable;
+  private final ConcurrentMap<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+  /** The latest dictionary, or {@code null} if none has been trained yet. */
+  private volatile Dictionary current;
+
+  /** Guarded by this. */
+  private final List<byte[]> samples = new ArrayList<>();
+  /** Guarded by this. */
+  private int sampledBytes;
+  /** Set once automatic training has failed, so that writes are not slowed down by further attempts. */
+  private volatile boolean samplingDisabled;
+
+  /**
+   * Creates a new instance of this compression dictionary manager.
+   *
+   * @param backendID the backend to which the dictionaries belong
+   * @param storage a reference to the storage in which the tree will be held
+   * @param txn a non null transaction
+   * @param accessMode specifies how the storage has been opened (read only or read/write)
+   * @throws StorageRuntimeException if a problem occurs while loading the dictionaries
+   */
+  PersistentCompressionDictionary(String backendID, Storage storage, WriteableTransaction txn, AccessMode accessMode)
+      throws StorageRuntimeException
+  {
+    this.backendID = backendID;
+    this.storage = storage;
+    this.isWriteable = accessMode.isWriteable();
+    load(txn, isWriteable);
+  }
+
+  private void load(WriteableTransaction txn, boolean shouldCreate) throws StorageRuntimeException
+  {
+    txn.openTree(dictionaryTreeName, shouldCreate);
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(dictionaryTreeName))
+    {
+      while (cursor.next())
+      {
+        register(cursor.getKey().toInt(), cursor.getValue().toByteArray());
+      }
+    }
+  }
+
+  private void register(int version, byte[] bytes)
+  {
+    dictionaries.put(version, bytes);
+    final Dictionary latest = current;
+    if (latest == null || latest.getVersion() < version)
+    {
+      current = new Dictionary(version, bytes);
+    }
+  }
+
+  /**
+   * Returns the dictionary that must be used to compress new entries.
+   *
+   * @return the latest dictionary, or {@code null} if none has been trained yet
+   */
+  Dictionary getCurrentDictionary()
+  {
+    return current;
+  }
+
+  /**
+   * Returns the dictionary having the provided version.
+   *
+   * @param version the version of the dictionary
+   * @return the dictionary bytes, or {@code null} if no such dictionary exists
+   */
+  byte[] getDictionary(int version)
+  {
+    return dictionaries.get(version);
+  }
+
+  /**
+   * Records an encoded entry as a training sample. Once enough samples have been collected, the
+   * first dictionary is trained and stored. This does nothing once a dictionary exists.
+   *
+   * @param encodedEntry the entry encoded before compression
+   */
+  void sample(ByteSequence encodedEntry)
+  {
+    if (current != null || samplingDisabled || !isWriteable)
+    {
+      return;
+    }
+    synchronized (this)
+    {
+      if (current != null || samplingDisabled)
+      {
+        return;
+      }
+      samples.add(encodedEntry.toByteArray());
+      sampledBytes += encodedEntry.length();
+      if (samples.size() < MAX_SAMPLES && sampledBytes < MAX_SAMPLE_BYTES)
+      {
+        return;
+      }
+      try
+      {
+        trainAndStore(samples);
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+        logger.error(e.getMessageObject());
+        samplingDisabled = true;
+      }
+      finally
+      {
+        samples.clear();
+        sampledBytes = 0;
+      }
+    }
+  }
+
+  /**
+   * Trains a new dictionary from the provided samples and stores it as the latest version.
+   *
+   * @param entries the encoded entries to train the dictionary from
+   * @return the new dictionary
+   * @throws DirectoryException if there are not enough samples or the dictionary cannot be stored
+   */
+  synchronized Dictionary trainAndStore(List<byte[]> entries) throws DirectoryException
+  {
+    if (entries.size() < MIN_SAMPLES)
+    {
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_COMPRESSION_DICTIONARY_NOT_ENOUGH_SAMPLES.get(backendID, entries.size(), MIN_SAMPLES));
+    }
+    final byte[] bytes = train(entries, MAX_DICTIONARY_SIZE);
+    if (bytes.length == 0)
+    {
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_COMPRESSION_DICTIONARY_NOTHING_IN_COMMON.get(backendID, entries.size()));
+    }
+    final Dictionary latest = current;
+    final int version = latest != null ? latest.getVersion() + 1 : 1;
+    store(version, bytes);
+    register(version, bytes);
+    logger.info(NOTE_COMPRESSION_DICTIONARY_TRAINED, version, bytes.length, backendID, entries.size());
+    return current;
+  }
+
+  private void store(final int version, final byte[] bytes) throws DirectoryException
+  {
+    try
+    {
+      storage.write(new WriteOperation()
+      {
+        @Override
+        public void run(WriteableTransaction txn) throws Exception
+        {
+          txn.put(dictionaryTreeName, new ByteStringBuilder(4).appendInt(version), ByteString.wrap(bytes));
+        }
+      });
+    }
+    catch (final Exception e)
+    {
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_COMPRESSION_DICTIONARY_CANNOT_STORE.get(version, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Builds a deflate dictionary from the byte sequences shared by many of the provided samples.
+   * <p>
+   * Every fixed length window of every sample is counted once per sample it appears in. Runs of
+   * windows appearing in enough samples are merged into segments, and the segments bringing the
+   * most savings are concatenated, the most valuable last since deflate encodes closer matches
+   * with shorter distances.
+   *
+   * @param samples the samples to train the dictionary from
+   * @param maxSize the maximum size of the dictionary
+   * @return the dictionary, which may be empty if the samples have nothing in common
+   */
+  static byte[] train(List<byte[]> samples, int maxSize)
+  {
+    // For each window: the number of samples containing it and the last sample it was seen in
+    final Map<Long, int[]> windows = new HashMap<>();
+    for (int i = 0; i < samples.size(); i++)
+    {
+      final byte[] sample = samples.get(i);
+      for (int pos = 0; pos + WINDOW_LENGTH <= sample.length; pos++)
+      {
+        final Long window = window(sample, pos);
+        final int[] stats = windows.get(window);
+        if (stats == null)
+        {
+          windows.put(window, new int[] { 1, i });
+        }
+        else if (stats[1] != i)
+        {
+          stats[0]++;
+          stats[1] = i;
+        }
+      }
+    }
+
+    final int threshold = Math.max(2, samples.size() / 20);
+    final Map<ByteBuffer, int[]> segments = new HashMap<>();
+    for (final byte[] sample : samples)
+    {
+      int start = -1;
+      for (int pos = 0; pos + WINDOW_LENGTH <= sample.length; pos++)
+      {
+        final boolean isFrequent = windows.get(window(sample, pos))[0] >= threshold;
+        if (isFrequent && start < 0)
+        {
+          start = pos;
+        }
+        else if (!isFrequent && start >= 0)
+        {
+          addSegment(segments, sample, start, pos - 1 + WINDOW_LENGTH);
+          start = -1;
+        }
+      }
+      if (start >= 0)
+      {
+        addSegment(segments, sample, start, sample.length);
+      }
+    }
+
+    final List<Map.Entry<ByteBuffer, int[]>> ranked = new ArrayList<>(segments.entrySet());
+    Collections.sort(ranked, new Comparator<Map.Entry<ByteBuffer, int[]>>()
+    {
+      @Override
+      public int compare(Map.Entry<ByteBuffer, int[]> e1, Map.Entry<ByteBuffer, int[]> e2)
+      {
+        return Long.compare(score(e2), score(e1));
+      }
+    });
+
+    final List<byte[]> selected = new ArrayList<>();
+    int size = 0;
+    for (final Map.Entry<ByteBuffer, int[]> segment : ranked)
+    {
+      final byte[] bytes = segment.getKey().array();
+      if (size + bytes.length > maxSize)
+      {
+        continue;
+      }
+      if (!isContainedIn(selected, bytes))
+      {
+        selected.add(bytes);
+        size += bytes.length;
+      }
+    }
+
+    final ByteStringBuilder dictionary = new ByteStringBuilder(size);
+    for (int i = selected.size() - 1; i >= 0; i--)
+    {
+      dictionary.appendBytes(selected.get(i));
+    }
+    return dictionary.toByteArray();
+  }
+
+  private static Long window(byte[] sample, int pos)
+  {
+    long window = 0;
+    for (int i = pos; i < pos + WINDOW_LENGTH; i++)
+    {
+      window = (window << 8) | (sample[i] & 0xFF);
+    }
+    return window;
+  }
+
+  private static void addSegment(Map<ByteBuffer, int[]> segments, byte[] sample, int start, int end)
+  {
+    final ByteBuffer segment = ByteBuffer.wrap(Arrays.copyOfRange(sample, start, end));
+    final int[] count = segments.get(segment);
+    if (count == null)
+    {
+      segments.put(segment, new int[] { 1 });
+    }
+    else
+    {
+      count[0]++;
+    }
+  }
+
+  private static long score(Map.Entry<ByteBuffer, int[]> segment)
+  {
+    return (long) segment.getValue()[0] * segment.getKey().capacity();
+  }
+
+  private static boolean isContainedIn(List<byte[]> selected, byte[] bytes)
+  {
+    for (final byte[] s : selected)
+    {
+      if (indexOf(s, bytes) >= 0)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int indexOf(byte[] source, byte[] target)
+  {
+    outer:
+    for (int i = 0; i <= source.length - target.length; i++)
+    {
+      for (int j = 0; j < target.length; j++)
+      {
+        if (source[i + j] != target[j])
+        {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+}
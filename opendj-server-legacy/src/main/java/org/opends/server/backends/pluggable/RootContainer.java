@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -26,6 +27,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -35,8 +38,10 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
+import org.forgerock.opendj.ldap.ByteString;
 import org.opends.server.api.CompressedSchema;
 import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
 import org.opends.server.backends.pluggable.spi.Storage;
@@ -80,8 +85,14 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
   /** The compressed schema manager for this backend. */
   private PersistentCompressedSchema compressedSchema;
 
+  /** The compression dictionaries for this backend. */
+  private PersistentCompressionDictionary compressionDictionary;
+
   private final ServerContext serverContext;
 
+  /** The pool evaluating the candidates of large indexed searches, created on first use. */
+  private ForkJoinPool parallelSearchPool;
+
   /**
    * Creates a new RootContainer object representing a storage.
    *
@@ -137,6 +148,7 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
         public void run(WriteableTransaction txn) throws Exception
         {
           compressedSchema = new PersistentCompressedSchema(serverContext, storage, txn, accessMode);
+          compressionDictionary = new PersistentCompressionDictionary(backendId, storage, txn, accessMode);
           openAndRegisterEntryContainers(txn, config.getBaseDN(), accessMode);
         }
       });
@@ -255,6 +267,82 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
     return compressedSchema;
   }
 
+  /**
+   * Retrieves the compression dictionaries for this backend.
+   *
+   * @return The compression dictionaries for this backend.
+   */
+  PersistentCompressionDictionary getCompressionDictionary()
+  {
+    return compressionDictionary;
+  }
+
+  /**
+   * Trains a new compression dictionary from a sample of the entries of this backend. Entries
+   * written afterwards are compressed with the new dictionary when dictionary compression is
+   * enabled, while entries written before remain readable with the dictionary they were compressed
+   * with.
+   *
+   * @throws DirectoryException
+   *           If the backend does not hold enough entries or the dictionary cannot be stored.
+   * @throws StorageRuntimeException
+   *           If an error occurs while sampling the entries.
+   */
+  public void trainCompressionDictionary() throws DirectoryException, StorageRuntimeException
+  {
+    final List<byte[]> samples;
+    try
+    {
+      samples = storage.read(new ReadOperation<List<byte[]>>()
+      {
+        @Override
+        public List<byte[]> run(ReadableTransaction txn) throws Exception
+        {
+          long entryCount = 0;
+          for (EntryContainer ec : entryContainers.values())
+          {
+            entryCount += ec.getID2Entry().getRecordCount(txn);
+          }
+          final long stride = Math.max(1, entryCount / PersistentCompressionDictionary.MAX_SAMPLES);
+          final List<byte[]> samples = new ArrayList<>();
+          int sampledBytes = 0;
+          for (EntryContainer ec : entryContainers.values())
+          {
+            ec.sharedLock.lock();
+            try (Cursor<ByteString, ByteString> cursor = txn.openCursor(ec.getID2Entry().getName()))
+            {
+              for (long i = 0; cursor.next() && sampledBytes < PersistentCompressionDictionary.MAX_SAMPLE_BYTES; i++)
+              {
+                if (i % stride == 0)
+                {
+                  final ID2Entry id2entry = ec.getID2Entry();
+                  final byte[] sample = id2entry.encodeUncompressed(
+                      id2entry.entryFromDatabase(cursor.getValue(), compressedSchema)).toByteArray();
+                  samples.add(sample);
+                  sampledBytes += sample.length;
+                }
+              }
+            }
+            finally
+            {
+              ec.sharedLock.unlock();
+            }
+          }
+          return samples;
+        }
+      });
+    }
+    catch (StorageRuntimeException e)
+    {
+      throw e;
+    }
+    catch (Exception e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    compressionDictionary.trainAndStore(samples);
+  }
+
   /**
    * Get the BackendMonitor object used by this root container.
    *
@@ -269,6 +357,54 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
     return monitor;
   }
 
+  /**
+   * Returns the pool used to retrieve and filter the candidate entries of large indexed searches.
+   *
+   * @return the parallel search pool, or {@code null} if parallel searches are disabled
+   */
+  synchronized ForkJoinPool getParallelSearchPool()
+  {
+    final int nbThreads = config.getParallelSearchThreads();
+    if (nbThreads <= 0)
+    {
+      return null;
+    }
+    if (parallelSearchPool == null)
+    {
+      parallelSearchPool = new ForkJoinPool(nbThreads, new ForkJoinPool.ForkJoinWorkerThreadFactory()
+      {
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+        {
+          final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("Parallel Search Worker " + thread.getPoolIndex() + " for backend " + backendId);
+          return thread;
+        }
+      }, null, false);
+    }
+    return parallelSearchPool;
+  }
+
+  /**
+   * Returns the minimum number of candidate entries of an indexed search to process it with the
+   * parallel search pool.
+   *
+   * @return the minimum number of candidate entries of a parallel search
+   */
+  int getParallelSearchThreshold()
+  {
+    return config.getParallelSearchThreshold();
+  }
+
+  private synchronized void shutdownParallelSearchPool()
+  {
+    if (parallelSearchPool != null)
+    {
+      parallelSearchPool.shutdown();
+      parallelSearchPool = null;
+    }
+  }
+
   /**
    * Preload the tree cache. There is no preload if the configured preload
    * time limit is zero.
@@ -333,6 +469,7 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
       }
     }
     config.removePluggableChangeListener(this);
+    shutdownParallelSearchPool();
     if (storage != null)
     {
       storage.close();
@@ -449,6 +586,12 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
   @Override
   public ConfigChangeResult applyConfigurationChange(PluggableBackendCfg configuration)
   {
+    if (configuration.getParallelSearchThreads() != config.getParallelSearchThreads())
+    {
+      // Batches already submitted to the old pool are allowed to complete,
+      // the searches in progress process their remaining batches in their own thread
+      shutdownParallelSearchPool();
+    }
     config = configuration;
     getMonitorProvider().enableFilterUseStats(config.isIndexFilterAnalyzerEnabled());
     getMonitorProvider().setMaxEntries(config.getIndexFilterAnalyzerMaxFilters());
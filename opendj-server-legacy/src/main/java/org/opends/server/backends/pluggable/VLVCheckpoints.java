@@ -0,0 +1,551 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+
+/**
+ * Counts of the keys of a {@link VLVIndex} stored at fixed key range checkpoints, allowing to locate the key at a given
+ * position, and the position of a given key, without reading all the keys preceding it.
+ * <p>
+ * The keys of the VLV index are partitioned into consecutive ranges at two levels. Each range is stored as one record
+ * whose key is the level followed by the upper bound (inclusive) of the range, and whose value is the number of VLV
+ * keys in the range followed by its lower bound (exclusive). The last range of each level has no upper bound, the
+ * first one has no lower bound. Ranges of the first level hold a few hundred VLV keys. Ranges of the second level group
+ * a few hundred ranges of the first level: their bounds are always bounds of the first level.
+ * <p>
+ * Ranges are split when they grow too large and are never merged: their bounds may be keys which have since been
+ * removed from the VLV index. Locating a position reads the ranges of the second level, the ranges of the first level
+ * within the selected range and at most a few hundred VLV keys.
+ */
+final class VLVCheckpoints extends AbstractTree
+{
+  private static final byte FIRST_LEVEL = 0x01;
+  private static final byte SECOND_LEVEL = 0x02;
+  /** Marker following the level of the ranges having an upper bound. */
+  private static final byte BOUNDED = 0x00;
+  /** Marker following the level of the last range, sorted after all the bounded ranges of the level. */
+  private static final byte UNBOUNDED = 0x01;
+
+  /** Number of VLV keys in the ranges of the first level created by a split or an import. */
+  static final int FIRST_LEVEL_SPLIT_SIZE = 256;
+  /** Number of VLV keys above which a range of the first level is split. */
+  static final int FIRST_LEVEL_MAX_SIZE = 2 * FIRST_LEVEL_SPLIT_SIZE;
+  /** Number of VLV keys in the ranges of the second level created by a split or an import. */
+  static final int SECOND_LEVEL_SPLIT_SIZE = 256 * FIRST_LEVEL_SPLIT_SIZE;
+  /** Number of VLV keys above which a range of the second level is split. */
+  static final int SECOND_LEVEL_MAX_SIZE = 2 * SECOND_LEVEL_SPLIT_SIZE;
+
+  /** A range of VLV keys. */
+  private static final class Range
+  {
+    /** The key of the record holding this range. */
+    private final ByteString key;
+    /** The upper bound of this range (inclusive), or {@code null} for the last range of a level. */
+    private final ByteString upperBound;
+    /** The lower bound of this range (exclusive), or {@code null} for the first range of a level. */
+    private final ByteString lowerBound;
+    private final long count;
+    /** Number of VLV keys in the ranges read before this one. */
+    private long position;
+
+    private Range(ByteString key, ByteString value)
+    {
+      this.key = key;
+      this.upperBound = key.byteAt(1) == BOUNDED ? key.subSequence(2, key.length()) : null;
+      if (value != null)
+      {
+        final ByteSequenceReader reader = value.asReader();
+        this.count = Math.max(reader.readLong(), 0);
+        this.lowerBound = reader.remaining() > 0 ? reader.readByteString(reader.remaining()) : null;
+      }
+      else
+      {
+        this.count = 0;
+        this.lowerBound = null;
+      }
+    }
+
+    /** Creates a placeholder for a range above all the existing ranges. */
+    private Range(long position)
+    {
+      this.key = null;
+      this.upperBound = null;
+      this.lowerBound = null;
+      this.count = 0;
+      this.position = position;
+    }
+
+    private boolean isBelow(ByteSequence vlvKey)
+    {
+      return upperBound != null && upperBound.compareTo(vlvKey) < 0;
+    }
+  }
+
+  VLVCheckpoints(TreeName name)
+  {
+    super(name);
+  }
+
+  /**
+   * Positions a cursor on the VLV keys to the key at the provided position.
+   *
+   * @param txn
+   *          The transaction.
+   * @param vlvCursor
+   *          A cursor on the keys of the VLV index.
+   * @param index
+   *          The position of the key, starting at 0.
+   * @return {@code true} if the cursor is positioned on the key at the provided position, {@code false} if the VLV
+   *         index does not have so many keys.
+   */
+  boolean positionToIndex(ReadableTransaction txn, Cursor<ByteString, ByteString> vlvCursor, long index)
+  {
+    if (index < 0)
+    {
+      return false;
+    }
+    final Range firstLevelRange;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      final Range secondLevelRange = findRangeAt(cursor, SECOND_LEVEL, null, index);
+      if (secondLevelRange == null)
+      {
+        return false;
+      }
+      firstLevelRange =
+          findRangeAt(cursor, FIRST_LEVEL, secondLevelRange.lowerBound, index - secondLevelRange.position);
+      if (firstLevelRange == null)
+      {
+        return false;
+      }
+      firstLevelRange.position += secondLevelRange.position;
+    }
+    if (!positionAfter(vlvCursor, firstLevelRange.lowerBound))
+    {
+      return false;
+    }
+    for (long i = firstLevelRange.position; i < index; i++)
+    {
+      if (!vlvCursor.next())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the position of a key in the VLV index, that is the number of VLV keys lower than the provided key.
+   *
+   * @param txn
+   *          The transaction.
+   * @param vlvCursor
+   *          A cursor on the keys of the VLV index.
+   * @param vlvKey
+   *          The key, which does not need to be present in the VLV index.
+   * @return The number of VLV keys lower than the provided key.
+   */
+  long getPosition(ReadableTransaction txn, Cursor<ByteString, ByteString> vlvCursor, ByteSequence vlvKey)
+  {
+    final Range firstLevelRange;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      final Range secondLevelRange = findRangeContaining(cursor, SECOND_LEVEL, null, vlvKey);
+      if (secondLevelRange.key == null)
+      {
+        return secondLevelRange.position;
+      }
+      firstLevelRange = findRangeContaining(cursor, FIRST_LEVEL, secondLevelRange.lowerBound, vlvKey);
+      firstLevelRange.position += secondLevelRange.position;
+      if (firstLevelRange.key == null)
+      {
+        return firstLevelRange.position;
+      }
+    }
+    long position = firstLevelRange.position;
+    if (positionAfter(vlvCursor, firstLevelRange.lowerBound))
+    {
+      do
+      {
+        if (vlvCursor.getKey().compareTo(vlvKey) >= 0)
+        {
+          break;
+        }
+        position++;
+      }
+      while (vlvCursor.next());
+    }
+    return position;
+  }
+
+  /**
+   * Updates the counts of the ranges holding the added and deleted VLV keys, splitting the ranges which grew too large.
+   *
+   * @param txn
+   *          The transaction.
+   * @param vlvTreeName
+   *          The name of the tree holding the keys of the VLV index, already updated with the added and deleted keys.
+   * @param addedKeys
+   *          The keys added to the VLV index.
+   * @param deletedKeys
+   *          The keys deleted from the VLV index.
+   * @throws StorageRuntimeException
+   *           If an error occurs in the storage.
+   */
+  void update(WriteableTransaction txn, TreeName vlvTreeName, Collection<ByteString> addedKeys,
+      Collection<ByteString> deletedKeys) throws StorageRuntimeException
+  {
+    // Updates the ranges in key order whatever the order of the VLV keys
+    final Map<ByteString, Long> deltas = new TreeMap<>();
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      addDeltas(cursor, deltas, addedKeys, 1);
+      addDeltas(cursor, deltas, deletedKeys, -1);
+    }
+
+    final List<Range> firstLevelRangesToSplit = new ArrayList<>();
+    final List<Range> secondLevelRangesToSplit = new ArrayList<>();
+    for (Map.Entry<ByteString, Long> delta : deltas.entrySet())
+    {
+      if (delta.getValue() != 0)
+      {
+        final Range range = addCount(txn, delta.getKey(), delta.getValue());
+        if (range.key.byteAt(0) == FIRST_LEVEL && range.count > FIRST_LEVEL_MAX_SIZE)
+        {
+          firstLevelRangesToSplit.add(range);
+        }
+        else if (range.key.byteAt(0) == SECOND_LEVEL && range.count > SECOND_LEVEL_MAX_SIZE)
+        {
+          secondLevelRangesToSplit.add(range);
+        }
+      }
+    }
+    // The bounds of the second level are selected among the bounds of the first level, split the first level first
+    for (Range range : firstLevelRangesToSplit)
+    {
+      splitFirstLevelRange(txn, vlvTreeName, range);
+    }
+    for (Range range : secondLevelRangesToSplit)
+    {
+      splitSecondLevelRange(txn, range);
+    }
+  }
+
+  private void addDeltas(Cursor<ByteString, ByteString> cursor, Map<ByteString, Long> deltas,
+      Collection<ByteString> vlvKeys, long delta)
+  {
+    if (vlvKeys == null)
+    {
+      return;
+    }
+    for (ByteString vlvKey : vlvKeys)
+    {
+      addDelta(deltas, findRangeKey(cursor, FIRST_LEVEL, vlvKey), delta);
+      addDelta(deltas, findRangeKey(cursor, SECOND_LEVEL, vlvKey), delta);
+    }
+  }
+
+  private static void addDelta(Map<ByteString, Long> deltas, ByteString rangeKey, long delta)
+  {
+    final Long current = deltas.get(rangeKey);
+    deltas.put(rangeKey, current != null ? current + delta : delta);
+  }
+
+  /** Returns the key of the range of the provided level holding the provided VLV key. */
+  private static ByteString findRangeKey(Cursor<ByteString, ByteString> cursor, byte level, ByteSequence vlvKey)
+  {
+    if (cursor.positionToKeyOrNext(toKey(level, vlvKey)) && cursor.getKey().byteAt(0) == level)
+    {
+      return cursor.getKey();
+    }
+    // The last range of a level is only missing when the level is empty
+    return toKey(level, null);
+  }
+
+  private Range addCount(WriteableTransaction txn, final ByteString rangeKey, final long delta)
+  {
+    final ByteString[] newValue = new ByteString[1];
+    txn.update(getName(), rangeKey, new UpdateFunction()
+    {
+      @Override
+      public ByteSequence computeNewValue(ByteSequence oldValue)
+      {
+        final Range range = new Range(rangeKey, oldValue != null ? oldValue.toByteString() : null);
+        newValue[0] = toValue(Math.max(range.count + delta, 0), range.lowerBound);
+        return newValue[0];
+      }
+    });
+    return new Range(rangeKey, newValue[0]);
+  }
+
+  /** Splits a range of the first level in ranges of {@link #FIRST_LEVEL_SPLIT_SIZE} VLV keys. */
+  private void splitFirstLevelRange(WriteableTransaction txn, TreeName vlvTreeName, Range range)
+  {
+    ByteString lowerBound = range.lowerBound;
+    ByteString previousKey = null;
+    long count = 0;
+    try (Cursor<ByteString, ByteString> vlvCursor = txn.openCursor(vlvTreeName))
+    {
+      if (positionAfter(vlvCursor, range.lowerBound))
+      {
+        do
+        {
+          final ByteString vlvKey = vlvCursor.getKey();
+          if (range.isBelow(vlvKey))
+          {
+            break;
+          }
+          if (count == FIRST_LEVEL_SPLIT_SIZE)
+          {
+            txn.put(getName(), toKey(FIRST_LEVEL, previousKey), toValue(count, lowerBound));
+            lowerBound = previousKey;
+            count = 0;
+          }
+          previousKey = vlvKey;
+          count++;
+        }
+        while (vlvCursor.next());
+      }
+    }
+    // Also fixes the count of the split range if it was wrong
+    txn.put(getName(), range.key, toValue(count, lowerBound));
+  }
+
+  /** Splits a range of the second level in ranges of about {@link #SECOND_LEVEL_SPLIT_SIZE} VLV keys. */
+  private void splitSecondLevelRange(WriteableTransaction txn, Range range)
+  {
+    ByteString lowerBound = range.lowerBound;
+    Range previousRange = null;
+    long count = 0;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      if (positionAfter(cursor, FIRST_LEVEL, range.lowerBound))
+      {
+        do
+        {
+          final Range firstLevelRange = new Range(cursor.getKey(), cursor.getValue());
+          if (range.upperBound != null
+              && (firstLevelRange.upperBound == null || range.isBelow(firstLevelRange.upperBound)))
+          {
+            break;
+          }
+          if (count >= SECOND_LEVEL_SPLIT_SIZE)
+          {
+            txn.put(getName(), toKey(SECOND_LEVEL, previousRange.upperBound), toValue(count, lowerBound));
+            lowerBound = previousRange.upperBound;
+            count = 0;
+          }
+          previousRange = firstLevelRange;
+          count += firstLevelRange.count;
+        }
+        while (nextInLevel(cursor, FIRST_LEVEL));
+      }
+    }
+    txn.put(getName(), range.key, toValue(count, lowerBound));
+  }
+
+  /**
+   * Returns the range of the provided level holding the VLV key at the provided position, counted from the provided
+   * lower bound, or {@code null} if there are not so many VLV keys.
+   */
+  private static Range findRangeAt(Cursor<ByteString, ByteString> cursor, byte level, ByteString lowerBound,
+      long index)
+  {
+    long position = 0;
+    if (positionAfter(cursor, level, lowerBound))
+    {
+      do
+      {
+        final Range range = new Range(cursor.getKey(), cursor.getValue());
+        if (index < position + range.count)
+        {
+          range.position = position;
+          return range;
+        }
+        position += range.count;
+      }
+      while (nextInLevel(cursor, level));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the range of the provided level which would hold the provided VLV key, from the provided lower bound. The
+   * returned range has a {@code null} key if all the ranges are below the VLV key.
+   */
+  private static Range findRangeContaining(Cursor<ByteString, ByteString> cursor, byte level, ByteString lowerBound,
+      ByteSequence vlvKey)
+  {
+    long position = 0;
+    if (positionAfter(cursor, level, lowerBound))
+    {
+      do
+      {
+        final Range range = new Range(cursor.getKey(), cursor.getValue());
+        if (!range.isBelow(vlvKey))
+        {
+          range.position = position;
+          return range;
+        }
+        position += range.count;
+      }
+      while (nextInLevel(cursor, level));
+    }
+    return new Range(position);
+  }
+
+  /** Positions the cursor on the first range of the provided level whose upper bound is above the lower bound. */
+  private static boolean positionAfter(Cursor<ByteString, ByteString> cursor, byte level, ByteString lowerBound)
+  {
+    final ByteString key =
+        lowerBound != null ? toKey(level, lowerBound) : ByteString.valueOfBytes(new byte[] { level });
+    if (!cursor.positionToKeyOrNext(key) || (lowerBound != null && key.equals(cursor.getKey()) && !cursor.next()))
+    {
+      return false;
+    }
+    return cursor.getKey().byteAt(0) == level;
+  }
+
+  private static boolean nextInLevel(Cursor<ByteString, ByteString> cursor, byte level)
+  {
+    return cursor.next() && cursor.getKey().byteAt(0) == level;
+  }
+
+  /** Positions the cursor on the first VLV key above the lower bound. */
+  private static boolean positionAfter(Cursor<ByteString, ByteString> vlvCursor, ByteString lowerBound)
+  {
+    if (lowerBound == null)
+    {
+      return vlvCursor.positionToIndex(0);
+    }
+    return vlvCursor.positionToKeyOrNext(lowerBound) && (!lowerBound.equals(vlvCursor.getKey()) || vlvCursor.next());
+  }
+
+  private static ByteString toKey(byte level, ByteSequence upperBound)
+  {
+    if (upperBound == null)
+    {
+      return ByteString.valueOfBytes(new byte[] { level, UNBOUNDED });
+    }
+    return new ByteStringBuilder(2 + upperBound.length())
+        .appendByte(level).appendByte(BOUNDED).appendBytes(upperBound).toByteString();
+  }
+
+  private static ByteString toValue(long count, ByteSequence lowerBound)
+  {
+    final ByteStringBuilder builder = new ByteStringBuilder(8 + (lowerBound != null ? lowerBound.length() : 0));
+    builder.appendLong(count);
+    if (lowerBound != null)
+    {
+      builder.appendBytes(lowerBound);
+    }
+    return builder.toByteString();
+  }
+
+  /**
+   * Returns a writer of the ranges of the VLV keys imported in ascending order.
+   *
+   * @param importer
+   *          The importer into which the ranges are written.
+   * @return A writer of the ranges of the VLV keys imported in ascending order.
+   */
+  RangeWriter newRangeWriter(Importer importer)
+  {
+    return new RangeWriter(importer);
+  }
+
+  /** Writes the ranges of VLV keys imported in ascending order into an empty tree. */
+  final class RangeWriter
+  {
+    private final Importer importer;
+    private ByteString previousKey;
+    private ByteString firstLevelLowerBound;
+    private long firstLevelCount;
+    private ByteString secondLevelLowerBound;
+    private long secondLevelCount;
+
+    private RangeWriter(Importer importer)
+    {
+      this.importer = importer;
+    }
+
+    /**
+     * Records a VLV key, which must be greater than the VLV keys previously recorded.
+     *
+     * @param vlvKey
+     *          The imported VLV key.
+     */
+    void append(ByteSequence vlvKey)
+    {
+      if (firstLevelCount == FIRST_LEVEL_SPLIT_SIZE)
+      {
+        importer.put(getName(), toKey(FIRST_LEVEL, previousKey), toValue(firstLevelCount, firstLevelLowerBound));
+        firstLevelLowerBound = previousKey;
+        secondLevelCount += firstLevelCount;
+        firstLevelCount = 0;
+        if (secondLevelCount == SECOND_LEVEL_SPLIT_SIZE)
+        {
+          importer.put(getName(), toKey(SECOND_LEVEL, previousKey), toValue(secondLevelCount, secondLevelLowerBound));
+          secondLevelLowerBound = previousKey;
+          secondLevelCount = 0;
+        }
+      }
+      previousKey = vlvKey.toByteString();
+      firstLevelCount++;
+    }
+
+    /** Writes the last range of each level once all the VLV keys have been recorded. */
+    void close()
+    {
+      if (previousKey != null)
+      {
+        importer.put(getName(), toKey(FIRST_LEVEL, null), toValue(firstLevelCount, firstLevelLowerBound));
+        importer.put(getName(), toKey(SECOND_LEVEL, null),
+            toValue(secondLevelCount + firstLevelCount, secondLevelLowerBound));
+      }
+    }
+  }
+
+  @Override
+  public String keyToString(ByteString key)
+  {
+    final Range range = new Range(key, null);
+    return "level " + key.byteAt(0) + " up to " + (range.upperBound != null ? range.upperBound.toHexString() : "end");
+  }
+
+  @Override
+  public String valueToString(ByteString value)
+  {
+    return String.valueOf(value.asReader().readLong());
+  }
+}
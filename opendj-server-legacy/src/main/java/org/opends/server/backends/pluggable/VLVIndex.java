@@ -13,12 +13,12 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.messages.ProtocolMessages.*;
-import static org.opends.server.backends.pluggable.EntryIDSet.*;
 import static org.opends.server.backends.pluggable.IndexFilter.*;
 import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.util.StaticUtils.*;
@@ -27,6 +27,7 @@ import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -83,6 +84,9 @@ import org.opends.server.util.StaticUtils;
  * Records do not have a "value" since all required information is held within the key.
  * The entry ID is included in the key as a "tie-breaker" and ensures that keys correspond to one and only one entry.
  * This ensures that all tree updates can be performed using lock-free operations.
+ * <p>
+ * Indexes flagged with {@link IndexFlag#COUNTED} also maintain the counts of their keys at fixed key range
+ * checkpoints, allowing to locate the target of a VLV request without reading all the keys preceding it.
  */
 class VLVIndex extends AbstractTree implements ConfigurationChangeListener<BackendVLVIndexCfg>, Closeable
 {
@@ -95,6 +99,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
 
   /** The count of entries in this index. */
   private final ShardedCounter counter;
+  /** The counts of entries at fixed key range checkpoints of this index. */
+  private final VLVCheckpoints checkpoints;
 
   private DN baseDN;
   private SearchScope scope;
@@ -109,6 +115,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
    * A flag to indicate if this vlvIndex should be trusted to be consistent with the entries tree.
    */
   private boolean trusted;
+  /** A flag to indicate if the checkpoints of this vlvIndex are maintained. */
+  private boolean counted;
 
   VLVIndex(final BackendVLVIndexCfg config, final State state, final Storage storage,
       final EntryContainer entryContainer, final WriteableTransaction txn) throws StorageRuntimeException,
@@ -116,6 +124,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   {
     super(new TreeName(entryContainer.getTreePrefix(), "vlv." + config.getName()));
     this.counter = new ShardedCounter(new TreeName(entryContainer.getTreePrefix(), "counter.vlv." + config.getName()));
+    this.checkpoints =
+        new VLVCheckpoints(new TreeName(entryContainer.getTreePrefix(), "checkpoint.vlv." + config.getName()));
     this.config = config;
     this.baseDN = config.getBaseDN();
     this.scope = convertScope(config.getScope());
@@ -130,14 +140,24 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     }
 
     this.state = state;
-    this.trusted = state.getIndexFlags(txn, getName()).contains(IndexFlag.TRUSTED);
-    if (!trusted && entryContainer.getHighestEntryID(txn).longValue() == 0)
+    final EnumSet<IndexFlag> flags = state.getIndexFlags(txn, getName());
+    this.trusted = flags.contains(IndexFlag.TRUSTED);
+    this.counted = flags.contains(IndexFlag.COUNTED);
+    if (entryContainer.getHighestEntryID(txn).longValue() == 0)
     {
       /*
        * If there are no entries in the entry container then there is no reason why this vlvIndex
-       * can't be upgraded to trusted.
+       * can't be upgraded to trusted, and its checkpoints can be maintained from now on.
        */
-      setTrusted(txn, true);
+      if (!trusted)
+      {
+        setTrusted(txn, true);
+      }
+      if (!counted)
+      {
+        state.addFlagsToIndex(txn, getName(), IndexFlag.COUNTED);
+        counted = true;
+      }
     }
 
     this.config.addChangeListener(this);
@@ -162,12 +182,17 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   void afterOpen(final WriteableTransaction txn, boolean createOnDemand) throws StorageRuntimeException
   {
     counter.open(txn, createOnDemand);
+    checkpoints.open(txn, createOnDemand);
   }
 
   @Override
   void beforeDelete(WriteableTransaction txn) throws StorageRuntimeException
   {
     counter.delete(txn);
+    checkpoints.delete(txn);
+    // The index is being emptied, for example because it is rebuilt: from now on maintain its checkpoints.
+    state.addFlagsToIndex(txn, getName(), IndexFlag.COUNTED);
+    counted = true;
   }
 
   void importCount(Importer importer, long count)
@@ -175,6 +200,18 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     counter.importPut(importer, COUNT_KEY, count);
   }
 
+  /**
+   * Returns a writer of the checkpoints of the keys imported in ascending order into this index.
+   *
+   * @param importer
+   *          The importer into which the checkpoints are written.
+   * @return A writer of the checkpoints of the keys imported in ascending order.
+   */
+  VLVCheckpoints.RangeWriter newCheckpointsWriter(Importer importer)
+  {
+    return checkpoints.newRangeWriter(importer);
+  }
+
   @Override
   public synchronized boolean isConfigurationChangeAcceptable(final BackendVLVIndexCfg cfg,
       final List<LocalizableMessage> unacceptableReasons)
@@ -463,6 +500,10 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
         counter.addCount(txn, COUNT_KEY, -1);
       }
     }
+    if (counted)
+    {
+      checkpoints.update(txn, getName(), addedkeys, deletedKeys);
+    }
   }
 
   private Iterator<ByteString> iteratorFor(final TreeSet<ByteString> sortValues)
@@ -475,7 +516,14 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     return i.hasNext() ? i.next() : null;
   }
 
-  EntryIDSet evaluate(final ReadableTransaction txn, final SearchOperation searchOperation,
+  /**
+   * Evaluates a search request with a server side sort control, and optionally a VLV request control, against this
+   * index.
+   *
+   * @return The IDs of the candidate entries, in the order of the sort control, or {@code null} if this index cannot
+   *         be used for the search request
+   */
+  long[] evaluate(final ReadableTransaction txn, final SearchOperation searchOperation,
       final ServerSideSortRequestControl sortControl, final VLVRequestControl vlvRequest,
       final StringBuilder debugBuilder) throws DirectoryException, StorageRuntimeException
   {
@@ -506,7 +554,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     return evaluateNonVLVRequest(txn, debugBuilder);
   }
 
-  private EntryIDSet evaluateNonVLVRequest(final ReadableTransaction txn, final StringBuilder debugBuilder)
+  private long[] evaluateNonVLVRequest(final ReadableTransaction txn, final StringBuilder debugBuilder)
   {
     // prevents creating a very large long array holding all the entries stored in the VLV index (see readRange())
     final int entryCount = getEntryCount(txn);
@@ -516,8 +564,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
       {
         if (cursor.next())
         {
-          // FIXME the array returned by readRange() is not ordered like a defined EntryIDSet expects
-          return newDefinedSet(readRange(cursor, entryCount, debugBuilder));
+          return readRange(cursor, entryCount, debugBuilder);
         }
       }
     }
@@ -535,7 +582,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
    * assertion, {@code beforeCount} entries leading up to the nearest entry, and {@code afterCount}
    * entries following the nearest entry.
    */
-  private EntryIDSet evaluateVLVRequestByAssertion(final ReadableTransaction txn,
+  private long[] evaluateVLVRequestByAssertion(final ReadableTransaction txn,
       final SearchOperation searchOperation, final VLVRequestControl vlvRequest)
       throws DirectoryException
   {
@@ -547,6 +594,23 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
         encodeTargetAssertion(sortKeys, assertion, searchOperation, currentCount);
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
+      if (counted)
+      {
+        if (!cursor.positionToKeyOrNext(encodedTargetAssertion))
+        {
+          // No key is at or above the assertion: the target is just beyond the end of the index.
+          addVLVResponseControl(searchOperation, currentCount + 1, currentCount, LDAPResultCode.SUCCESS);
+          return new long[0];
+        }
+        final int targetPosition = (int) checkpoints.getPosition(txn, cursor, encodedTargetAssertion);
+        final int startPos = Math.max(targetPosition - beforeCount, 0);
+        final long[] selectedIDs = checkpoints.positionToIndex(txn, cursor, startPos)
+            ? readRange(cursor, targetPosition - startPos + 1 + afterCount, null)
+            : new long[0];
+        addVLVResponseControl(searchOperation, targetPosition + 1, currentCount, LDAPResultCode.SUCCESS);
+        return selectedIDs;
+      }
+
       final LinkedList<Long> selectedIDs = new LinkedList<>();
       int targetPosition = 0;
 
@@ -597,7 +661,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
         targetPosition = currentCount;
       }
       addVLVResponseControl(searchOperation, targetPosition + 1, currentCount, LDAPResultCode.SUCCESS);
-      return newDefinedSet(toPrimitiveLongArray(selectedIDs)); // FIXME not ordered like a defined EntryIDSet expects
+      return toPrimitiveLongArray(selectedIDs);
     }
   }
 
@@ -638,7 +702,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     }
   }
 
-  private EntryIDSet evaluateVLVRequestByOffset(final ReadableTransaction txn, final SearchOperation searchOperation,
+  private long[] evaluateVLVRequestByOffset(final ReadableTransaction txn, final SearchOperation searchOperation,
       final VLVRequestControl vlvRequest, final StringBuilder debugBuilder) throws DirectoryException
   {
     final int currentCount = getEntryCount(txn);
@@ -692,7 +756,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     final int count = 1 + beforeCount + afterCount;
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
-      if (cursor.positionToIndex(startPos))
+      if (counted ? checkpoints.positionToIndex(txn, cursor, startPos) : cursor.positionToIndex(startPos))
       {
         selectedIDs = readRange(cursor, count, debugBuilder);
       }
@@ -702,7 +766,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
       }
     }
     addVLVResponseControl(searchOperation, targetOffset, currentCount, LDAPResultCode.SUCCESS);
-    return newDefinedSet(selectedIDs); // FIXME not ordered like a defined EntryIDSet expects
+    return selectedIDs;
   }
 
   private static void addVLVResponseControl(SearchOperation searchOp, int targetPosition, int contentCount,
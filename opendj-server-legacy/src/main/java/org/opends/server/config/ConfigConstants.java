@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.config;
 
@@ -4361,6 +4362,14 @@ public final class ConfigConstants
   public static final String ATTR_TASK_SET_GENERATION_ID_NEW_VALUE =
     OC_RESET_GENERATION_ID_TASK + "-new-value";
 
+  /**
+   * The name of the attribute indicating whether the generation ID of the
+   * replication domain to which applies the task should be computed again from
+   * its data.
+   */
+  public static final String ATTR_TASK_SET_GENERATION_ID_RECOMPUTE =
+    OC_RESET_GENERATION_ID_TASK + "-recompute";
+
   /**
    * The name of the attribute in an import task definition that specifies
    * whether the backend should be cleared before the import.
@@ -4421,5 +4430,12 @@ public final class ConfigConstants
 
   /** The name of the attribute in a reset change number task that specifies the basedn where the csn applies. */
   public static final String ATTR_TASK_RESET_CHANGE_NUMBER_BASE_DN = NAME_PREFIX_TASK + "reset-change-number-base-dn";
+
+  /** The name of the objectclass that will be used for a Directory Server train compression dictionary task. */
+  public static final String OC_TRAIN_COMPRESSION_DICTIONARY_TASK = NAME_PREFIX_TASK + "train-compression-dictionary";
+
+  /** The name of the attribute in a train compression dictionary task that specifies the backend ID. */
+  public static final String ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_BACKEND_ID =
+      NAME_PREFIX_TASK + "train-compression-dictionary-backend-id";
 }
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -130,6 +131,7 @@ import org.opends.server.loggers.RotationPolicy;
 import org.opends.server.loggers.TextErrorLogPublisher;
 import org.opends.server.loggers.TextWriter;
 import org.opends.server.monitors.ConnectionHandlerMonitor;
+import org.opends.server.monitors.LockManagerMonitor;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalConnectionHandler;
 import org.opends.server.schema.SchemaHandler;
@@ -532,7 +534,7 @@ public final class DirectoryServer
   private final DiskSpaceMonitor diskSpaceMonitor;
 
   /** The lock manager which will be used for coordinating access to LDAP entries. */
-  private final LockManager lockManager = new LockManager();
+  private LockManager lockManager = new LockManager();
 
   /** The default timeout used to start the server in detach mode. */
   public static final int DEFAULT_TIMEOUT = 200;
@@ -1403,6 +1405,8 @@ public final class DirectoryServer
       // The core Directory Server configuration.
       coreConfigManager.initializeCoreConfig();
 
+      initializeLockManager();
+
       initializeCryptoManager();
 
       rotationPolicyConfigManager = new LogRotationPolicyConfigManager(serverContext);
@@ -1586,6 +1590,18 @@ public final class DirectoryServer
     return directoryServer.authenticatedUsers;
   }
 
+  private void initializeLockManager()
+         throws ConfigException, InitializationException
+  {
+    LockManager.Implementation implementation = LockManager.Implementation.valueOf(
+        serverContext.getRootConfig().getGlobalConfiguration().getLockManagerImplementation().name());
+    lockManager = new LockManager(implementation);
+
+    LockManagerMonitor monitor = new LockManagerMonitor(lockManager);
+    monitor.initializeMonitorProvider(null);
+    registerMonitorProvider(monitor);
+  }
+
   private void initializeCryptoManager()
          throws ConfigException, InitializationException
   {
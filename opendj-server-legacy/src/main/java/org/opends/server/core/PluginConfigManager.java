@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -3994,6 +3995,20 @@ public class PluginConfigManager
     }
   }
 
+  /**
+   * Indicates whether any search result entry plugins are registered with the
+   * Directory Server.
+   *
+   * @return  {@code true} if at least one search result entry plugin is
+   *          registered, or {@code false} if not.
+   */
+  public boolean hasSearchResultEntryPlugins()
+  {
+    return searchResultEntryPlugins.length > 0;
+  }
+
+
+
   /**
    * Invokes the set of search result entry plugins that have been configured
    * in the Directory Server.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -26,6 +27,7 @@ import org.opends.server.controls.MatchedValuesControl;
 import org.opends.server.types.Control;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Operation;
 import org.opends.server.types.RawFilter;
@@ -262,6 +264,35 @@ public interface SearchOperation extends Operation
   boolean returnEntry(Entry entry, List<Control> controls,
                                       boolean evaluateAci);
 
+  /**
+   * Indicates whether the entries matching this search operation may be
+   * returned with {@link #returnEncodedEntry(EncodedEntry)}, without being
+   * decoded by the backend. This is the case when the filter matches every
+   * entry, when the entries are sent as stored, with all their user attributes
+   * and no operational attribute, and when neither access control nor plugins
+   * need to inspect them.
+   *
+   * @return  <CODE>true</CODE> if the backend may return encoded entries, or
+   *          <CODE>false</CODE> if it must call
+   *          {@link #returnEntry(Entry, List)}.
+   */
+  boolean canReturnEncodedEntries();
+
+  /**
+   * Used as a callback for backends to indicate that the provided encoded
+   * entry is in the scope of the search and should be sent back to the client.
+   * It may only be called when {@link #canReturnEncodedEntries()} returns
+   * <CODE>true</CODE>, for entries which are not referrals.
+   *
+   * @param  entry  The encoded entry to send to the client.
+   *
+   * @return  <CODE>true</CODE> if the caller should continue processing the
+   *          search request and sending additional entries and references, or
+   *          <CODE>false</CODE> if not for some reason (e.g., the size limit
+   *          has been reached or the search has been abandoned).
+   */
+  boolean returnEncodedEntry(EncodedEntry entry);
+
   /**
    * Used as a callback for backends to indicate that the provided search
    * reference was encountered during processing and that additional processing
@@ -13,10 +13,12 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -48,12 +50,16 @@ import org.opends.server.types.CancelResult;
 import org.opends.server.types.CanceledOperationException;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
+import org.opends.server.types.FilterType;
 import org.opends.server.types.OperationType;
+import org.opends.server.types.Privilege;
 import org.opends.server.types.RawFilter;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.types.SearchResultEntry;
 import org.opends.server.types.SearchResultReference;
+import org.opends.server.types.VirtualAttributeRule;
 import org.opends.server.types.operation.PostResponseSearchOperation;
 import org.opends.server.types.operation.PreParseSearchOperation;
 import org.opends.server.types.operation.SearchEntrySearchOperation;
@@ -169,6 +175,12 @@ public class SearchOperationBasis
   /** Indicates whether to send the search result done to the client or not. */
   private boolean sendResponse = true;
 
+  /**
+   * The virtual attribute rules which may add user attributes to the entries returned in their encoded form,
+   * set by {@link #canReturnEncodedEntries()}.
+   */
+  private List<VirtualAttributeRule> userVirtualAttributeRules = Collections.emptyList();
+
   /**
    * Creates a new search operation with the provided information.
    *
@@ -460,22 +472,8 @@ public class SearchOperationBasis
   {
     boolean typesOnly = getTypesOnly();
 
-    // See if the size limit has been exceeded.  If so, then don't send the
-    // entry and indicate that the search should end.
-    if (getSizeLimit() > 0 && getEntriesSent() >= getSizeLimit())
+    if (isSizeOrTimeLimitExceeded())
     {
-      setResultCode(ResultCode.SIZE_LIMIT_EXCEEDED);
-      appendErrorMessage(ERR_SEARCH_SIZE_LIMIT_EXCEEDED.get(getSizeLimit()));
-      return false;
-    }
-
-    // See if the time limit has expired.  If so, then don't send the entry and
-    // indicate that the search should end.
-    if (getTimeLimit() > 0
-        && TimeThread.getTime() >= getTimeLimitExpiration())
-    {
-      setResultCode(ResultCode.TIME_LIMIT_EXCEEDED);
-      appendErrorMessage(ERR_SEARCH_TIME_LIMIT_EXCEEDED.get(getTimeLimit()));
       return false;
     }
 
@@ -691,6 +689,202 @@ public class SearchOperationBasis
     return pluginResult.continueProcessing();
   }
 
+  /**
+   * Checks whether the size limit or the time limit prevents sending another
+   * entry, in which case the result of this operation is set accordingly.
+   *
+   * @return {@code true} if the search should end.
+   */
+  private boolean isSizeOrTimeLimitExceeded()
+  {
+    // See if the size limit has been exceeded.  If so, then don't send the
+    // entry and indicate that the search should end.
+    if (getSizeLimit() > 0 && getEntriesSent() >= getSizeLimit())
+    {
+      setResultCode(ResultCode.SIZE_LIMIT_EXCEEDED);
+      appendErrorMessage(ERR_SEARCH_SIZE_LIMIT_EXCEEDED.get(getSizeLimit()));
+      return true;
+    }
+
+    // See if the time limit has expired.  If so, then don't send the entry and
+    // indicate that the search should end.
+    if (getTimeLimit() > 0
+        && TimeThread.getTime() >= getTimeLimitExpiration())
+    {
+      setResultCode(ResultCode.TIME_LIMIT_EXCEEDED);
+      appendErrorMessage(ERR_SEARCH_TIME_LIMIT_EXCEEDED.get(getTimeLimit()));
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public final boolean canReturnEncodedEntries()
+  {
+    final ClientConnection clientConnection = getClientConnection();
+    if (!clientConnection.canSendEncodedSearchEntries()
+        || !isObjectClassPresenceFilter(getFilter())
+        || getTypesOnly()
+        || isRealAttributesOnly()
+        || isVirtualAttributesOnly()
+        || isReturnSubentriesOnly()
+        || isIncludeUsableControl()
+        || getMatchedValuesControl() != null
+        || !isAllUserAttributes(getAttributes())
+        || !hasOnlyEncodedEntriesControls()
+        // Plugins and collective attributes work on decoded entries
+        || getPluginConfigManager().hasSearchResultEntryPlugins()
+        || getSubentryManager().hasCollectiveSubentries()
+        // So does access control, unless the client bypasses it
+        || (AccessControlConfigManager.getInstance().isAccessControlEnabled()
+            && !clientConnection.hasPrivilege(Privilege.BYPASS_ACL, this)))
+    {
+      return false;
+    }
+
+    // Virtual user attributes are supported as long as the entries they apply to
+    // can be identified from their DN and their object classes.
+    final List<VirtualAttributeRule> rules = new ArrayList<>();
+    for (VirtualAttributeRule rule : getVirtualAttributes())
+    {
+      if (!rule.getAttributeType().isOperational())
+      {
+        if (!rule.getGroupDNs().isEmpty())
+        {
+          return false;
+        }
+        for (SearchFilter filter : rule.getFilters())
+        {
+          if (!isObjectClassFilter(filter))
+          {
+            return false;
+          }
+        }
+        rules.add(rule);
+      }
+    }
+    userVirtualAttributeRules = rules;
+    return true;
+  }
+
+  private static boolean isObjectClassPresenceFilter(SearchFilter filter)
+  {
+    return filter != null
+        && filter.getFilterType() == FilterType.PRESENT
+        && filter.getAttributeType().isObjectClass();
+  }
+
+  /** Returns whether the provided filter only depends on the object classes of the entries. */
+  private static boolean isObjectClassFilter(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+    case OR:
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        if (!isObjectClassFilter(component))
+        {
+          return false;
+        }
+      }
+      return true;
+    case NOT:
+      return isObjectClassFilter(filter.getNotComponent());
+    case EXTENSIBLE_MATCH:
+      return false;
+    default:
+      return filter.getAttributeType().isObjectClass();
+    }
+  }
+
+  private static boolean isAllUserAttributes(Set<String> attributes)
+  {
+    return attributes == null
+        || attributes.isEmpty()
+        || (attributes.size() == 1 && attributes.contains("*"));
+  }
+
+  /** Returns whether the request controls only affect how the backend selects the entries to return. */
+  private boolean hasOnlyEncodedEntriesControls()
+  {
+    for (Control control : getRequestControls())
+    {
+      switch (control.getOID())
+      {
+      case OID_PAGED_RESULTS_CONTROL:
+      case OID_MANAGE_DSAIT_CONTROL:
+      case OID_SERVER_SIDE_SORT_REQUEST_CONTROL:
+      case OID_VLV_REQUEST_CONTROL:
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public final boolean returnEncodedEntry(EncodedEntry entry)
+  {
+    if (entry.hasObjectClass(OC_SUBENTRY)
+        || entry.hasObjectClass(OC_LDAP_SUBENTRY_LC)
+        || hasVirtualUserAttributes(entry))
+    {
+      // Subentry visibility and virtual attributes need the decoded entry.
+      final Entry decodedEntry;
+      try
+      {
+        decodedEntry = entry.decodeEntry();
+      }
+      catch (DirectoryException de)
+      {
+        logger.traceException(de);
+
+        setResponseData(de);
+        return false;
+      }
+      return returnEntry(decodedEntry, null);
+    }
+
+    if (isSizeOrTimeLimitExceeded())
+    {
+      return false;
+    }
+
+    try
+    {
+      getClientConnection().sendEncodedSearchEntry(this, entry);
+
+      entriesSent++;
+    }
+    catch (DirectoryException de)
+    {
+      logger.traceException(de);
+
+      setResponseData(de);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean hasVirtualUserAttributes(EncodedEntry entry)
+  {
+    if (userVirtualAttributeRules.isEmpty())
+    {
+      return false;
+    }
+    final Entry objectClassesOnly = new Entry(entry.getName(), entry.getObjectClasses(), null, null);
+    for (VirtualAttributeRule rule : userVirtualAttributeRules)
+    {
+      if (rule.appliesToEntry(objectClassesOnly))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private AccessControlHandler<?> getACIHandler()
   {
     return AccessControlConfigManager.getInstance().getAccessControlHandler();
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -57,6 +58,18 @@ public abstract class SearchOperationWrapper extends
     return getOperation().returnEntry(entry, controls, evaluateAci);
   }
 
+  @Override
+  public boolean canReturnEncodedEntries()
+  {
+    return getOperation().canReturnEncodedEntries();
+  }
+
+  @Override
+  public boolean returnEncodedEntry(EncodedEntry entry)
+  {
+    return getOperation().returnEncodedEntry(entry);
+  }
+
   @Override
   public boolean returnReference(DN dn, SearchResultReference reference)
   {
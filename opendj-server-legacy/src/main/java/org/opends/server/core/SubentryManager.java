@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -504,6 +505,26 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Indicates whether any collective attribute subentries are registered, in
+   * which case collective attributes may be added to the entries.
+   *
+   * @return {@code true} if at least one collective subentry is registered,
+   *         {@code false} otherwise.
+   */
+  public boolean hasCollectiveSubentries()
+  {
+    lock.readLock().lock();
+    try
+    {
+      return !dn2CollectiveSubEntry.isEmpty();
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
   /**
    * Return collective subentries applicable to specific DN.
    * Note that this getter will skip any regular subentries,
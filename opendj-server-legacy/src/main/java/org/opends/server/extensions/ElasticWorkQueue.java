@@ -0,0 +1,502 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.ElasticWorkQueueCfg;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.ElasticWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+
+/**
+ * A work queue which dispatches each operation onto its own thread, taken
+ * from a pool which grows on demand up to a configurable concurrency limit and
+ * shrinks when threads stay idle.
+ * <p>
+ * With the fixed pools of the traditional and parallel work queues, a few
+ * operations blocked on a slow backend, a remote pass-through authentication
+ * server or a lock can hold every worker thread and starve unrelated fast
+ * operations. This work queue allows a much higher number of concurrent
+ * operations without paying for idle threads. Once the concurrency limit is
+ * reached, operations wait in a bounded queue, and new operations are then
+ * blocked or rejected in the same way as with the traditional work queue.
+ */
+public class ElasticWorkQueue extends WorkQueue<ElasticWorkQueueCfg>
+    implements ConfigurationChangeListener<ElasticWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The length of time in seconds after which an idle worker thread is stopped. */
+  private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+  /** A semaphore whose number of permits can be reduced when the configuration changes. */
+  private static final class AdmissionSemaphore extends Semaphore
+  {
+    private static final long serialVersionUID = 3717813867325446815L;
+
+    private AdmissionSemaphore(int permits)
+    {
+      super(permits);
+    }
+
+    private void resize(int delta)
+    {
+      if (delta > 0)
+      {
+        release(delta);
+      }
+      else if (delta < 0)
+      {
+        reducePermits(-delta);
+      }
+    }
+  }
+
+  /** Runs one operation on a pooled worker thread. */
+  private final class OperationTask implements Runnable
+  {
+    private final Operation operation;
+
+    private OperationTask(Operation operation)
+    {
+      this.operation = operation;
+    }
+
+    @Override
+    public void run()
+    {
+      inProgress.incrementAndGet();
+      runningOperations.add(operation);
+      try
+      {
+        operation.run();
+        operation.operationCompleted();
+      }
+      catch (Throwable t)
+      {
+        handleUncaughtException(operation, t);
+      }
+      finally
+      {
+        runningOperations.remove(operation);
+        inProgress.decrementAndGet();
+        opsCompleted.incrementAndGet();
+        admission.release();
+      }
+    }
+  }
+
+  /** The pool of worker threads processing the operations. */
+  private ThreadPoolExecutor executor;
+
+  /**
+   * Limits the number of operations accepted by this work queue, whether they
+   * are being processed or are waiting for a worker thread.
+   */
+  private AdmissionSemaphore admission;
+
+  /** The operations currently being processed, used to cancel them on shutdown. */
+  private final Set<Operation> runningOperations =
+      Collections.newSetFromMap(new ConcurrentHashMap<Operation, Boolean>());
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final AtomicLong opsSubmitted = new AtomicLong();
+
+  /** The number of operations for which processing has completed. */
+  private final AtomicLong opsCompleted = new AtomicLong();
+
+  /** The number of operations currently being processed by a worker thread. */
+  private final AtomicInteger inProgress = new AtomicInteger();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final AtomicLong queueFullRejects = new AtomicLong();
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The maximum number of operations processed concurrently. */
+  private int maxWorkerThreads;
+
+  /**
+   * The maximum number of pending requests waiting for a worker thread that
+   * this work queue will allow before it will start blocking or rejecting
+   * them.
+   */
+  private int maxCapacity;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public ElasticWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(ElasticWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addElasticChangeListener(this);
+
+    maxWorkerThreads = configuration.getMaxWorkerThreads();
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    admission = new AdmissionSemaphore(maxWorkerThreads + maxCapacity);
+
+    // Core and maximum pool sizes are equal so that a new thread is started
+    // for each operation until the limit is reached, and letting core threads
+    // time out allows the pool to shrink back when the load decreases.
+    executor = new ThreadPoolExecutor(maxWorkerThreads, maxWorkerThreads,
+        IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new DirectoryThread.Factory("Worker Thread"));
+    executor.allowCoreThreadTimeOut(true);
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      ElasticWorkQueueMonitor monitor = new ElasticWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, ElasticWorkQueueMonitor.class, e);
+    }
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+
+    // Send responses to any operations in the pending queue to indicate that
+    // they won't be processed because the server is shutting down.
+    List<Runnable> pendingTasks = new ArrayList<>();
+    executor.getQueue().drainTo(pendingTasks);
+    executor.shutdown();
+
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    for (Runnable task : pendingTasks)
+    {
+      Operation o = ((OperationTask) task).operation;
+      try
+      {
+        // The operation has no chance of responding to the cancel
+        // request so avoid waiting for a cancel response.
+        if (o.getCancelResult() == null)
+        {
+          o.abort(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+      }
+      finally
+      {
+        admission.release();
+      }
+    }
+
+    // Ask the operations in progress to stop as soon as possible.
+    CancelRequest shutdownCancelRequest = new CancelRequest(true, INFO_CANCELED_BY_SHUTDOWN.get());
+    for (Operation o : runningOperations)
+    {
+      try
+      {
+        o.cancel(shutdownCancelRequest);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation) throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation, boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    checkNotShuttingDown();
+
+    if (blockEnqueuingWhenFull)
+    {
+      try
+      {
+        // Periodically check whether the server is shutting down while waiting.
+        while (!admission.tryAcquire(1, TimeUnit.SECONDS))
+        {
+          checkNotShuttingDown();
+        }
+      }
+      catch (InterruptedException e)
+      {
+        // We cannot handle the interruption here. Reject the request and
+        // re-interrupt this thread.
+        Thread.currentThread().interrupt();
+
+        queueFullRejects.incrementAndGet();
+        throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get());
+      }
+    }
+    else if (!admission.tryAcquire())
+    {
+      queueFullRejects.incrementAndGet();
+      throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity));
+    }
+
+    try
+    {
+      executor.execute(new OperationTask(operation));
+    }
+    catch (RejectedExecutionException e)
+    {
+      // The executor has been shut down in the meantime.
+      admission.release();
+      throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+    }
+    opsSubmitted.incrementAndGet();
+  }
+
+  private void checkNotShuttingDown() throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+    }
+  }
+
+  private void handleUncaughtException(Operation operation, Throwable t)
+  {
+    String threadName = Thread.currentThread().getName();
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("Uncaught exception in worker thread while processing operation %s: %s", operation, t);
+      logger.traceException(t);
+    }
+
+    LocalizableMessage message =
+        ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(threadName, operation, stackTraceToSingleLineString(t));
+    try
+    {
+      logger.error(message);
+
+      // Ensure that the client receives some kind of result so that it does
+      // not hang.
+      operation.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+      operation.appendErrorMessage(message);
+      operation.getClientConnection().sendResponse(operation);
+    }
+    catch (Throwable t2)
+    {
+      logger.traceException(t2);
+    }
+
+    try
+    {
+      operation.disconnectClient(DisconnectReason.SERVER_ERROR, true, message);
+    }
+    catch (Throwable t2)
+    {
+      logger.traceException(t2);
+    }
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.get();
+  }
+
+  /**
+   * Retrieves the total number of operations whose processing has completed
+   * since server startup.
+   *
+   * @return The total number of operations whose processing has completed.
+   */
+  public long getOpsCompleted()
+  {
+    return opsCompleted.get();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.get();
+  }
+
+  /**
+   * Retrieves the number of operations currently being processed by a worker
+   * thread.
+   *
+   * @return The number of operations currently being processed.
+   */
+  public int getOpsInProgress()
+  {
+    return inProgress.get();
+  }
+
+  /**
+   * Retrieves the number of pending operations waiting for a worker thread
+   * because the maximum number of worker threads has been reached.
+   *
+   * @return The number of pending operations waiting for a worker thread.
+   */
+  public int size()
+  {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Retrieves the number of worker threads currently in the pool, whether busy
+   * or idle.
+   *
+   * @return The number of worker threads currently in the pool.
+   */
+  public int getCurrentWorkerThreads()
+  {
+    return executor.getPoolSize();
+  }
+
+  /**
+   * Retrieves the largest number of worker threads that have simultaneously
+   * been in the pool.
+   *
+   * @return The largest number of worker threads that have simultaneously been
+   *         in the pool.
+   */
+  public int getLargestWorkerThreads()
+  {
+    return executor.getLargestPoolSize();
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      ElasticWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public synchronized ConfigChangeResult applyConfigurationChange(ElasticWorkQueueCfg configuration)
+  {
+    int newMaxWorkerThreads = configuration.getMaxWorkerThreads();
+    int newMaxCapacity = configuration.getMaxWorkQueueCapacity();
+
+    if (newMaxWorkerThreads > maxWorkerThreads)
+    {
+      executor.setMaximumPoolSize(newMaxWorkerThreads);
+      executor.setCorePoolSize(newMaxWorkerThreads);
+    }
+    else if (newMaxWorkerThreads < maxWorkerThreads)
+    {
+      // Extra threads stop as soon as they complete their current operation.
+      executor.setCorePoolSize(newMaxWorkerThreads);
+      executor.setMaximumPoolSize(newMaxWorkerThreads);
+    }
+
+    admission.resize((newMaxWorkerThreads + newMaxCapacity) - (maxWorkerThreads + maxCapacity));
+    maxWorkerThreads = newMaxWorkerThreads;
+    maxCapacity = newMaxCapacity;
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public synchronized boolean isIdle()
+  {
+    // Permits are only given back once an operation has completed, so this
+    // also covers operations handed over to a thread which has not started yet.
+    return admission.availablePermits() >= maxWorkerThreads + maxCapacity;
+  }
+
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return maxWorkerThreads;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -352,6 +353,41 @@ public class EntryCacheCommon
     Long maxCacheSize,
     Long cacheCount,
     Long maxCacheCount)
+  {
+    return getGenericMonitorData(cacheHits, cacheMisses, cacheSize,
+        maxCacheSize, cacheCount, maxCacheCount, null, null);
+  }
+
+
+  /**
+   * Constructs a set of generic attributes containing entry cache
+   * monitor data, including the eviction and admission statistics of
+   * the caches which maintain them. Note that <code>null</code> can be
+   * passed in place of any argument to denote the argument is omitted.
+   *
+   * @param cacheHits      number of cache hits.
+   * @param cacheMisses    number of cache misses.
+   * @param cacheSize      size of the current cache, in bytes.
+   * @param maxCacheSize   maximum allowed cache size, in bytes.
+   * @param cacheCount     number of entries stored in the cache.
+   * @param maxCacheCount  maximum number of cache entries allowed.
+   * @param cacheEvictions number of entries evicted from the cache to
+   *                       make room for other entries.
+   * @param cacheAdmissionRejections
+   *                       number of entries which were not admitted in
+   *                       the cache by its admission policy.
+   *
+   * @return  A set of generic attributes containing monitor data.
+   */
+  public static MonitorData getGenericMonitorData(
+    Long cacheHits,
+    Long cacheMisses,
+    Long cacheSize,
+    Long maxCacheSize,
+    Long cacheCount,
+    Long maxCacheCount,
+    Long cacheEvictions,
+    Long cacheAdmissionRejections)
   {
     MonitorData attrs = new MonitorData();
 
@@ -376,6 +412,8 @@ public class EntryCacheCommon
     attrs.addIfNotNull("maxEntryCacheSize", maxCacheSize);
     attrs.addIfNotNull("currentEntryCacheCount", cacheCount);
     attrs.addIfNotNull("maxEntryCacheCount", maxCacheCount);
+    attrs.addIfNotNull("entryCacheEvictions", cacheEvictions);
+    attrs.addIfNotNull("entryCacheAdmissionRejections", cacheAdmissionRejections);
 
     return attrs;
   }
@@ -0,0 +1,1174 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.forgerock.opendj.server.config.server.OffHeapEntryCacheCfg;
+import org.forgerock.util.Utils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.EntryEncodeConfig;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
+import org.opends.server.util.ServerConstants;
+
+/**
+ * This class defines a Directory Server entry cache which stores the cached
+ * entries in their encoded form in direct memory, outside of the JVM heap.
+ * <BR><BR>
+ * Entries are encoded like the backends store them, using the compressed
+ * schema tokens of the server, and are only decoded when they are read from
+ * the cache. The encoded entries are appended to fixed size slabs of direct
+ * memory, which are reused in a circular fashion once all of them have been
+ * filled. When a slab is reused, the entries it holds which have been read
+ * since they were written are compacted at the start of the slab, and all the
+ * other entries are evicted. The amount of memory used to store entries is
+ * therefore exactly bounded by the configured maximum memory size.
+ * <BR><BR>
+ * Entries are found by DN or by backend and entry ID through two open
+ * addressing hash indexes, also held in direct memory, mapping respectively
+ * a 64-bit hash of the normalized DN and the backend and entry ID to the
+ * location of the encoded entry. Lookups by DN are verified against the
+ * normalized DN stored with the entry. Reads are performed under a shared
+ * lock and only copy the encoded entry, writes are performed under an
+ * exclusive lock.
+ */
+public class OffHeapEntryCache
+       extends EntryCache<OffHeapEntryCacheCfg>
+       implements ConfigurationChangeListener<OffHeapEntryCacheCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The smallest slab size, in bytes. */
+  private static final int MIN_SLAB_SIZE = 64 * 1024;
+  /** The largest slab size, in bytes. */
+  private static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+  /** The number of slabs the memory is split into, unless slabs would be too small or too large. */
+  private static final int TARGET_NUM_SLABS = 64;
+  /** The average record size used to compute the initial capacity of the indexes. */
+  private static final int ESTIMATED_RECORD_SIZE = 2048;
+
+  /**
+   * The layout of a record: the record length, the record flags, the hash of
+   * the normalized DN, the ID key, the length of the normalized DN, then the
+   * normalized DN followed by the encoded entry.
+   */
+  private static final int RECORD_LENGTH_OFFSET = 0;
+  private static final int RECORD_FLAGS_OFFSET = 4;
+  private static final int RECORD_DN_HASH_OFFSET = 5;
+  private static final int RECORD_ID_KEY_OFFSET = 13;
+  private static final int RECORD_DN_LENGTH_OFFSET = 21;
+  private static final int RECORD_HEADER_SIZE = 25;
+  /** Flag set on a record which has been read since it was written. */
+  private static final byte FLAG_ACCESSED = 0x01;
+
+  /** The number of bits of an ID key holding the entry ID, the remaining bits hold the backend index. */
+  private static final int ENTRY_ID_BITS = 48;
+  private static final long MAX_ENTRY_ID = (1L << ENTRY_ID_BITS) - 1;
+  private static final int MAX_BACKENDS = 0x7FFF;
+
+  private static final int BUFFER_INIT_SIZE = 512;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+  /** The buffers used to encode entries, one per thread. */
+  private static final ThreadLocal<ByteStringBuilder> ENCODE_BUFFER = new ThreadLocal<ByteStringBuilder>()
+  {
+    @Override
+    protected ByteStringBuilder initialValue()
+    {
+      return new ByteStringBuilder(BUFFER_INIT_SIZE);
+    }
+  };
+
+  /** The lock used to provide threadsafe access when changing the contents of the cache. */
+  private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
+  private final Lock cacheReadLock = cacheLock.readLock();
+  private final Lock cacheWriteLock = cacheLock.writeLock();
+
+  /** The slabs holding the records. All the fields below are guarded by the cache lock. */
+  private ByteBuffer[] slabs;
+  /** The number of bytes written to each slab. */
+  private int[] slabUsed;
+  private int slabSize;
+  /** The slab new records are written to. */
+  private int headSlab;
+  /** The index mapping the hash of the normalized DNs to the record locations. */
+  private OffHeapIndex dnIndex;
+  /** The index mapping the backend and entry IDs to the record locations. */
+  private OffHeapIndex idIndex;
+
+  /** The number of bytes used by the records of the entries currently cached. */
+  private volatile long cacheSize;
+  /** The number of entries currently cached. */
+  private volatile long cacheCount;
+  /** The number of entries evicted from the cache to make room for other entries. */
+  private final AtomicLong evictions = new AtomicLong();
+
+  /** The index of each backend, used in the ID keys. */
+  private final ConcurrentMap<String, Integer> backendIndexes = new ConcurrentHashMap<>();
+  /** The backend IDs, by index. */
+  private final List<String> backendIDs = new CopyOnWriteArrayList<>();
+
+  /** The configuration used to encode the entries. */
+  private EntryEncodeConfig encodeConfig;
+  /** The amount of memory used to store the records, in bytes. */
+  private long maxMemorySize;
+
+  /** Currently registered configuration object. */
+  private OffHeapEntryCacheCfg registeredConfiguration;
+
+  /** Creates a new instance of this off-heap entry cache. */
+  public OffHeapEntryCache()
+  {
+    super();
+    // All initialization should be performed in the initializeEntryCache.
+  }
+
+  @Override
+  public void initializeEntryCache(ServerContext serverContext, OffHeapEntryCacheCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    registeredConfiguration = configuration;
+    configuration.addOffHeapChangeListener(this);
+
+    // Read configuration and apply changes.
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_INIT, null, errorMessages
+          );
+    if (!processEntryCacheConfig(configuration, applyChanges, errorHandler)) {
+      String buffer = Utils.joinAsString(".  ", errorMessages);
+      throw new ConfigException(ERR_OFFHEAPCACHE_CANNOT_INITIALIZE.get(buffer));
+    }
+
+    // Encode entries like the backends, with compressed attribute descriptions and object classes.
+    encodeConfig = new EntryEncodeConfig(false, true, true, DirectoryServer.getDefaultCompressedSchema());
+
+    slabSize = getSlabSize(maxMemorySize);
+    int numSlabs = (int) Math.max(1, maxMemorySize / slabSize);
+    try
+    {
+      slabs = new ByteBuffer[numSlabs];
+      for (int i = 0; i < numSlabs; i++)
+      {
+        slabs[i] = ByteBuffer.allocateDirect(slabSize);
+      }
+      int expectedEntries = (int) Math.min(Integer.MAX_VALUE, maxMemorySize / ESTIMATED_RECORD_SIZE);
+      dnIndex = new OffHeapIndex(expectedEntries);
+      idIndex = new OffHeapIndex(expectedEntries);
+    }
+    catch (OutOfMemoryError e)
+    {
+      slabs = null;
+      throw new ConfigException(ERR_OFFHEAPCACHE_CANNOT_ALLOCATE.get(maxMemorySize, e.getMessage()), e);
+    }
+    slabUsed = new int[numSlabs];
+    headSlab = 0;
+  }
+
+  /**
+   * Returns the size of the slabs to use for the provided amount of memory.
+   *
+   * @param maxMemorySize
+   *          the amount of memory used to store the records, in bytes
+   * @return the size of the slabs, which is a power of two
+   */
+  static int getSlabSize(long maxMemorySize)
+  {
+    long size = Math.max(MIN_SLAB_SIZE, Math.min(MAX_SLAB_SIZE, maxMemorySize / TARGET_NUM_SLABS));
+    return Integer.highestOneBit((int) size);
+  }
+
+  @Override
+  public void finalizeEntryCache()
+  {
+    cacheWriteLock.lock();
+    try
+    {
+      registeredConfiguration.removeOffHeapChangeListener(this);
+
+      // Release all the direct memory currently in use by this cache.
+      slabs = null;
+      slabUsed = null;
+      dnIndex = null;
+      idIndex = null;
+      cacheSize = 0;
+      cacheCount = 0;
+    }
+    finally
+    {
+      cacheWriteLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean containsEntry(DN entryDN)
+  {
+    if (entryDN == null) {
+      return false;
+    }
+
+    ByteString normalizedDN = entryDN.toNormalizedByteString();
+    cacheReadLock.lock();
+    try
+    {
+      return slabs != null && findRecord(normalizedDN, hash(normalizedDN)) >= 0;
+    }
+    finally
+    {
+      cacheReadLock.unlock();
+    }
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN)
+  {
+    ByteString normalizedDN = entryDN.toNormalizedByteString();
+    byte[] encodedEntry = null;
+    cacheReadLock.lock();
+    try
+    {
+      if (slabs != null)
+      {
+        long location = findRecord(normalizedDN, hash(normalizedDN));
+        if (location >= 0)
+        {
+          markAccessed(location);
+          encodedEntry = readEncodedEntry(location);
+        }
+      }
+    }
+    finally
+    {
+      cacheReadLock.unlock();
+    }
+
+    // Decode the entry outside of the lock.
+    Entry entry = encodedEntry != null ? decodeEntry(encodedEntry) : null;
+    if (entry == null) {
+      // Indicate cache miss.
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    // Indicate cache hit.
+    cacheHits.getAndIncrement();
+    return entry;
+  }
+
+  @Override
+  public long getEntryID(DN entryDN)
+  {
+    ByteString normalizedDN = entryDN.toNormalizedByteString();
+    cacheReadLock.lock();
+    try
+    {
+      if (slabs != null)
+      {
+        long location = findRecord(normalizedDN, hash(normalizedDN));
+        if (location >= 0)
+        {
+          return getLong(location, RECORD_ID_KEY_OFFSET) & MAX_ENTRY_ID;
+        }
+      }
+      return -1;
+    }
+    finally
+    {
+      cacheReadLock.unlock();
+    }
+  }
+
+  @Override
+  public DN getEntryDN(String backendID, long entryID)
+  {
+    Integer backendIndex = backendIndexes.get(backendID);
+    if (backendIndex == null || entryID < 0 || entryID > MAX_ENTRY_ID)
+    {
+      return null;
+    }
+
+    byte[] encodedEntry = null;
+    cacheReadLock.lock();
+    try
+    {
+      if (slabs != null)
+      {
+        long location = idIndex.get(idKey(backendIndex, entryID));
+        if (location >= 0)
+        {
+          encodedEntry = readEncodedEntry(location);
+        }
+      }
+    }
+    finally
+    {
+      cacheReadLock.unlock();
+    }
+    return encodedEntry != null ? decodeDN(encodedEntry) : null;
+  }
+
+  @Override
+  public void putEntry(Entry entry, String backendID, long entryID)
+  {
+    put(entry, backendID, entryID, true);
+  }
+
+  @Override
+  public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
+  {
+    return put(entry, backendID, entryID, false);
+  }
+
+  /**
+   * Adds the provided entry to the cache.
+   *
+   * @return {@code false} if the entry could not be encoded, or if it was
+   *         already present and {@code replaceExisting} is {@code false}
+   */
+  private boolean put(Entry entry, String backendID, long entryID, boolean replaceExisting)
+  {
+    // Encode the entry before acquiring the lock.
+    ByteString normalizedDN = entry.getName().toNormalizedByteString();
+    ByteStringBuilder encodedEntry = ENCODE_BUFFER.get();
+    encodedEntry.clearAndTruncate(MAX_RETAINED_BUFFER_SIZE, BUFFER_INIT_SIZE);
+    try
+    {
+      entry.encode(encodedEntry, encodeConfig);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+    long dnHash = hash(normalizedDN);
+    int recordLength = RECORD_HEADER_SIZE + normalizedDN.length() + encodedEntry.length();
+
+    cacheWriteLock.lock();
+    try
+    {
+      if (slabs == null)
+      {
+        return false;
+      }
+      long existing = findRecord(normalizedDN, dnHash);
+      if (existing >= 0 && !replaceExisting)
+      {
+        return false;
+      }
+
+      // We'll always return true from here, even if we don't actually
+      // add the entry because it is too large.
+      int backendIndex = getBackendIndex(backendID);
+      if (recordLength > slabSize / 2 || backendIndex < 0 || entryID < 0 || entryID > MAX_ENTRY_ID)
+      {
+        if (existing >= 0)
+        {
+          unlinkRecord(existing);
+        }
+        return true;
+      }
+
+      // Remove the records of the previous entry with the same DN or ID.
+      long idKey = idKey(backendIndex, entryID);
+      if (existing >= 0)
+      {
+        unlinkRecord(existing);
+      }
+      long existingID = idIndex.get(idKey);
+      if (existingID >= 0)
+      {
+        unlinkRecord(existingID);
+      }
+      // The DN hash may collide with the hash of another cached entry.
+      long collision = dnIndex.get(dnHash);
+      if (collision >= 0)
+      {
+        unlinkRecord(collision);
+      }
+
+      if (slabUsed[headSlab] + recordLength > slabSize)
+      {
+        advanceHead();
+      }
+      long location = location(headSlab, slabUsed[headSlab]);
+      if (!dnIndex.put(dnHash, location))
+      {
+        return true;
+      }
+      if (!idIndex.put(idKey, location))
+      {
+        dnIndex.remove(dnHash, location);
+        return true;
+      }
+
+      ByteBuffer view = slabs[headSlab].duplicate();
+      view.position(slabUsed[headSlab]);
+      view.putInt(recordLength);
+      view.put((byte) 0);
+      view.putLong(dnHash);
+      view.putLong(idKey);
+      view.putInt(normalizedDN.length());
+      normalizedDN.copyTo(view);
+      encodedEntry.copyTo(view);
+      slabUsed[headSlab] += recordLength;
+      cacheSize += recordLength;
+      cacheCount++;
+      return true;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // We can't be sure there wasn't a conflict, so return false.
+      return false;
+    }
+    finally
+    {
+      cacheWriteLock.unlock();
+    }
+  }
+
+  /**
+   * Moves the head to the next slab, reusing it if needed. Must be called
+   * while holding the write lock.
+   */
+  private void advanceHead()
+  {
+    headSlab = (headSlab + 1) % slabs.length;
+    if (slabUsed[headSlab] > 0)
+    {
+      recycleSlab(headSlab, true);
+    }
+  }
+
+  /**
+   * Evicts the records of the provided slab, or compacts them at the start of
+   * the slab if they have been accessed since they were written and
+   * {@code retainAccessed} is true. At most half of the slab is retained, so
+   * that any record fits in the slab after it has been recycled. Must be
+   * called while holding the write lock.
+   */
+  private void recycleSlab(int slabIndex, boolean retainAccessed)
+  {
+    ByteBuffer slab = slabs[slabIndex];
+    int used = slabUsed[slabIndex];
+    int retained = 0;
+    for (int offset = 0; offset < used;)
+    {
+      int recordLength = slab.getInt(offset + RECORD_LENGTH_OFFSET);
+      long location = location(slabIndex, offset);
+      long dnHash = slab.getLong(offset + RECORD_DN_HASH_OFFSET);
+      if (dnIndex.get(dnHash) == location)
+      {
+        boolean accessed = (slab.get(offset + RECORD_FLAGS_OFFSET) & FLAG_ACCESSED) != 0;
+        if (retainAccessed && accessed && retained + recordLength <= slabSize / 2)
+        {
+          // Give the record a second chance: move it to the retained area.
+          long idKey = slab.getLong(offset + RECORD_ID_KEY_OFFSET);
+          if (retained != offset)
+          {
+            byte[] record = new byte[recordLength];
+            ByteBuffer view = slab.duplicate();
+            view.position(offset);
+            view.get(record);
+            view.position(retained);
+            view.put(record);
+          }
+          slab.put(retained + RECORD_FLAGS_OFFSET, (byte) 0);
+          long newLocation = location(slabIndex, retained);
+          dnIndex.put(dnHash, newLocation);
+          idIndex.put(idKey, newLocation);
+          retained += recordLength;
+        }
+        else
+        {
+          unlinkRecord(location);
+          evictions.getAndIncrement();
+        }
+      }
+      offset += recordLength;
+    }
+    slabUsed[slabIndex] = retained;
+  }
+
+  /**
+   * Removes the record at the provided location from the indexes. Must be
+   * called while holding the write lock, with the location of a cached record.
+   */
+  private void unlinkRecord(long location)
+  {
+    ByteBuffer slab = slabs[slabOf(location)];
+    int offset = offsetOf(location);
+    dnIndex.remove(slab.getLong(offset + RECORD_DN_HASH_OFFSET), location);
+    idIndex.remove(slab.getLong(offset + RECORD_ID_KEY_OFFSET), location);
+    cacheSize -= slab.getInt(offset + RECORD_LENGTH_OFFSET);
+    cacheCount--;
+  }
+
+  /**
+   * Returns the location of the record of the entry with the provided
+   * normalized DN, or -1 if it is not cached. Must be called while holding
+   * the read or the write lock.
+   */
+  private long findRecord(ByteSequence normalizedDN, long dnHash)
+  {
+    long location = dnIndex.get(dnHash);
+    if (location < 0)
+    {
+      return -1;
+    }
+    ByteBuffer slab = slabs[slabOf(location)];
+    int offset = offsetOf(location);
+    int dnLength = slab.getInt(offset + RECORD_DN_LENGTH_OFFSET);
+    if (dnLength != normalizedDN.length())
+    {
+      return -1;
+    }
+    int dnOffset = offset + RECORD_HEADER_SIZE;
+    for (int i = 0; i < dnLength; i++)
+    {
+      if (slab.get(dnOffset + i) != normalizedDN.byteAt(i))
+      {
+        return -1;
+      }
+    }
+    return location;
+  }
+
+  /** Must be called while holding the read or the write lock. */
+  private void markAccessed(long location)
+  {
+    ByteBuffer slab = slabs[slabOf(location)];
+    int flagsOffset = offsetOf(location) + RECORD_FLAGS_OFFSET;
+    if (slab.get(flagsOffset) != FLAG_ACCESSED)
+    {
+      // Racy but harmless: the flag is only read while holding the write lock.
+      slab.put(flagsOffset, FLAG_ACCESSED);
+    }
+  }
+
+  /** Must be called while holding the read or the write lock. */
+  private byte[] readEncodedEntry(long location)
+  {
+    ByteBuffer view = slabs[slabOf(location)].duplicate();
+    int offset = offsetOf(location);
+    int recordLength = view.getInt(offset + RECORD_LENGTH_OFFSET);
+    int dnLength = view.getInt(offset + RECORD_DN_LENGTH_OFFSET);
+    byte[] encodedEntry = new byte[recordLength - RECORD_HEADER_SIZE - dnLength];
+    view.position(offset + RECORD_HEADER_SIZE + dnLength);
+    view.get(encodedEntry);
+    return encodedEntry;
+  }
+
+  private long getLong(long location, int fieldOffset)
+  {
+    return slabs[slabOf(location)].getLong(offsetOf(location) + fieldOffset);
+  }
+
+  private Entry decodeEntry(byte[] encodedEntry)
+  {
+    try
+    {
+      return Entry.decode(ByteString.wrap(encodedEntry).asReader(), encodeConfig.getCompressedSchema());
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /** Decodes the DN at the start of the encoded entry without decoding its attributes. */
+  private static DN decodeDN(byte[] encodedEntry)
+  {
+    try
+    {
+      ByteSequenceReader reader = ByteString.wrap(encodedEntry).asReader();
+      // Skip the version and the encode configuration.
+      reader.readByte();
+      reader.skip(reader.readBERLength());
+      int dnLength = reader.readBERLength();
+      return DN.valueOf(reader.readByteSequence(dnLength).toByteString());
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /** Must be called while holding the write lock. */
+  private int getBackendIndex(String backendID)
+  {
+    Integer index = backendIndexes.get(backendID);
+    if (index == null)
+    {
+      if (backendIDs.size() >= MAX_BACKENDS)
+      {
+        return -1;
+      }
+      index = backendIDs.size();
+      backendIDs.add(backendID);
+      backendIndexes.put(backendID, index);
+    }
+    return index;
+  }
+
+  private static long idKey(int backendIndex, long entryID)
+  {
+    return ((long) backendIndex << ENTRY_ID_BITS) | entryID;
+  }
+
+  private static long location(int slabIndex, int offset)
+  {
+    return ((long) slabIndex << 32) | offset;
+  }
+
+  private static int slabOf(long location)
+  {
+    return (int) (location >>> 32);
+  }
+
+  private static int offsetOf(long location)
+  {
+    return (int) location;
+  }
+
+  /** Returns a 64-bit FNV-1a hash of the provided bytes. */
+  private static long hash(ByteSequence bytes)
+  {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < bytes.length(); i++)
+    {
+      h ^= bytes.byteAt(i) & 0xff;
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  @Override
+  public void removeEntry(DN entryDN)
+  {
+    ByteString normalizedDN = entryDN.toNormalizedByteString();
+    cacheWriteLock.lock();
+    try
+    {
+      if (slabs != null)
+      {
+        long location = findRecord(normalizedDN, hash(normalizedDN));
+        if (location >= 0)
+        {
+          unlinkRecord(location);
+        }
+      }
+    }
+    finally
+    {
+      cacheWriteLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear()
+  {
+    cacheWriteLock.lock();
+    try
+    {
+      if (slabs != null)
+      {
+        dnIndex.clear();
+        idIndex.clear();
+        Arrays.fill(slabUsed, 0);
+        headSlab = 0;
+        cacheSize = 0;
+        cacheCount = 0;
+      }
+    }
+    finally
+    {
+      cacheWriteLock.unlock();
+    }
+  }
+
+  @Override
+  public void clearBackend(String backendID)
+  {
+    Integer backendIndex = backendIndexes.get(backendID);
+    if (backendIndex == null)
+    {
+      // No entries were ever cached for this backend, so we can return
+      // without doing anything.
+      return;
+    }
+
+    // Scan the slabs one at a time, releasing the lock in between in case
+    // anyone else is waiting on it so this doesn't become a stop-the-world
+    // event as far as the cache is concerned.
+    for (int slabIndex = 0;; slabIndex++)
+    {
+      cacheWriteLock.lock();
+      try
+      {
+        if (slabs == null || slabIndex >= slabs.length)
+        {
+          return;
+        }
+        ByteBuffer slab = slabs[slabIndex];
+        for (int offset = 0; offset < slabUsed[slabIndex];)
+        {
+          long location = location(slabIndex, offset);
+          long idKey = slab.getLong(offset + RECORD_ID_KEY_OFFSET);
+          if ((idKey >>> ENTRY_ID_BITS) == backendIndex
+              && dnIndex.get(slab.getLong(offset + RECORD_DN_HASH_OFFSET)) == location)
+          {
+            unlinkRecord(location);
+          }
+          offset += slab.getInt(offset + RECORD_LENGTH_OFFSET);
+        }
+      }
+      finally
+      {
+        cacheWriteLock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public void handleLowMemory()
+  {
+    // The entries are not held in the heap, but follow the behavior of the
+    // other caches: if there are less than 1000 entries, then we'll dump all
+    // of them. Otherwise, we'll dump the oldest 10% of the slabs.
+    cacheWriteLock.lock();
+    try
+    {
+      if (slabs == null)
+      {
+        return;
+      }
+      if (cacheCount < 1000)
+      {
+        clear();
+        return;
+      }
+      int numToDrop = Math.max(1, slabs.length / 10);
+      for (int i = 1; i <= numToDrop; i++)
+      {
+        int slabIndex = (headSlab + i) % slabs.length;
+        if (slabIndex != headSlab)
+        {
+          recycleSlab(slabIndex, false);
+        }
+      }
+    }
+    finally
+    {
+      cacheWriteLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(EntryCacheCfg configuration,
+                                           List<LocalizableMessage> unacceptableReasons)
+  {
+    OffHeapEntryCacheCfg config = (OffHeapEntryCacheCfg) configuration;
+    return isConfigurationChangeAcceptable(config, unacceptableReasons);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      OffHeapEntryCacheCfg configuration,
+      List<LocalizableMessage> unacceptableReasons
+      )
+  {
+    boolean applyChanges = false;
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_ACCEPTABLE,
+          unacceptableReasons,
+          null
+        );
+    processEntryCacheConfig (configuration, applyChanges, errorHandler);
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(OffHeapEntryCacheCfg configuration)
+  {
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_APPLY, null, errorMessages
+          );
+
+    // Do not apply changes unless this cache is enabled.
+    if (configuration.isEnabled()) {
+      processEntryCacheConfig (configuration, applyChanges, errorHandler);
+    }
+
+    final ConfigChangeResult changeResult = new ConfigChangeResult();
+    changeResult.setResultCode(errorHandler.getResultCode());
+    changeResult.setAdminActionRequired(errorHandler.getIsAdminActionRequired());
+    changeResult.getMessages().addAll(errorHandler.getErrorMessages());
+    return changeResult;
+  }
+
+  /**
+   * Parses the provided configuration and configure the entry cache.
+   *
+   * @param configuration  The new configuration containing the changes.
+   * @param applyChanges   If true then take into account the new configuration.
+   * @param errorHandler   An handler used to report errors.
+   *
+   * @return  <CODE>true</CODE> if configuration is acceptable,
+   *          or <CODE>false</CODE> otherwise.
+   */
+  private boolean processEntryCacheConfig(
+      OffHeapEntryCacheCfg                configuration,
+      boolean                             applyChanges,
+      EntryCacheCommon.ConfigErrorHandler errorHandler
+      )
+  {
+    // Local variables to read configuration.
+    Set<SearchFilter> newIncludeFilters = null;
+    Set<SearchFilter> newExcludeFilters = null;
+
+    // Read configuration.
+    DN newConfigEntryDN = configuration.dn();
+    long newMaxMemorySize = configuration.getMaxMemorySize();
+
+    // Get include and exclude filters.
+    switch (errorHandler.getConfigPhase())
+    {
+    case PHASE_INIT:
+    case PHASE_ACCEPTABLE:
+    case PHASE_APPLY:
+      newIncludeFilters = EntryCacheCommon.getFilters (
+          configuration.getIncludeFilter(),
+          ERR_CACHE_INVALID_INCLUDE_FILTER,
+          errorHandler,
+          newConfigEntryDN
+          );
+      newExcludeFilters = EntryCacheCommon.getFilters (
+          configuration.getExcludeFilter(),
+          ERR_CACHE_INVALID_EXCLUDE_FILTER,
+          errorHandler,
+          newConfigEntryDN
+          );
+      break;
+    }
+
+    if (applyChanges && errorHandler.getIsAcceptable())
+    {
+      if (slabs == null)
+      {
+        maxMemorySize = newMaxMemorySize;
+      }
+      else if (newMaxMemorySize != maxMemorySize)
+      {
+        // The slabs are only allocated when the cache is initialized.
+        errorHandler.reportError(
+            INFO_OFFHEAPCACHE_MAX_MEMORY_SIZE_REQUIRES_RESTART.get(maxMemorySize, newMaxMemorySize),
+            true, ResultCode.SUCCESS, true);
+      }
+      setIncludeFilters(newIncludeFilters);
+      setExcludeFilters(newExcludeFilters);
+      registeredConfiguration = configuration;
+    }
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try {
+      return EntryCacheCommon.getGenericMonitorData(
+        cacheHits.longValue(),
+        // If cache misses is maintained by default cache
+        // get it from there and if not point to itself.
+        DirectoryServer.getEntryCache().getCacheMisses(),
+        cacheSize,
+        maxMemorySize,
+        cacheCount,
+        null,
+        evictions.longValue(),
+        null
+        );
+    } catch (Exception e) {
+      logger.traceException(e);
+      return new MonitorData(0);
+    }
+  }
+
+  @Override
+  public Long getCacheCount()
+  {
+    return cacheCount;
+  }
+
+  /**
+   * Returns the number of entries evicted from this cache to make room for
+   * other entries.
+   *
+   * @return the number of entries evicted from this cache
+   */
+  public long getEvictions()
+  {
+    return evictions.get();
+  }
+
+  @Override
+  public String toVerboseString()
+  {
+    // Take a snapshot of the cached records, then decode them without the lock.
+    List<byte[]> encodedEntries = new ArrayList<>();
+    List<Long> idKeys = new ArrayList<>();
+    cacheReadLock.lock();
+    try
+    {
+      if (slabs == null)
+      {
+        return null;
+      }
+      for (int slabIndex = 0; slabIndex < slabs.length; slabIndex++)
+      {
+        ByteBuffer slab = slabs[slabIndex];
+        for (int offset = 0; offset < slabUsed[slabIndex];)
+        {
+          long location = location(slabIndex, offset);
+          if (dnIndex.get(slab.getLong(offset + RECORD_DN_HASH_OFFSET)) == location)
+          {
+            encodedEntries.add(readEncodedEntry(location));
+            idKeys.add(slab.getLong(offset + RECORD_ID_KEY_OFFSET));
+          }
+          offset += slab.getInt(offset + RECORD_LENGTH_OFFSET);
+        }
+      }
+    }
+    finally
+    {
+      cacheReadLock.unlock();
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < encodedEntries.size(); i++)
+    {
+      long idKey = idKeys.get(i);
+      sb.append(decodeDN(encodedEntries.get(i)));
+      sb.append(":");
+      sb.append(idKey & MAX_ENTRY_ID);
+      sb.append(":");
+      sb.append(backendIDs.get((int) (idKey >>> ENTRY_ID_BITS)));
+      sb.append(ServerConstants.EOL);
+    }
+
+    String verboseString = sb.toString();
+    return verboseString.length() > 0 ? verboseString : null;
+  }
+
+  /**
+   * An open addressing hash index from longs to record locations, held in
+   * direct memory. Each slot holds the key and the location plus one, so that
+   * empty slots hold zero. This class is not thread safe: lookups can be
+   * performed concurrently, but updates require exclusive access.
+   */
+  private static final class OffHeapIndex
+  {
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_CAPACITY = 1024;
+    /** The largest capacity whose slots fit in a single buffer. */
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    private OffHeapIndex(int expectedSize)
+    {
+      int capacity = MIN_CAPACITY;
+      while (capacity < MAX_CAPACITY && capacity < expectedSize / 3 * 4)
+      {
+        capacity <<= 1;
+      }
+      allocate(capacity);
+    }
+
+    private void allocate(int capacity)
+    {
+      slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+      mask = capacity - 1;
+      size = 0;
+    }
+
+    private static int slotOf(long key, int mask)
+    {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /** Returns the location mapped to the provided key, or -1 if there is none. */
+    private long get(long key)
+    {
+      for (int i = slotOf(key, mask);; i = (i + 1) & mask)
+      {
+        long value = slots.getLong(i * SLOT_SIZE + 8);
+        if (value == 0)
+        {
+          return -1;
+        }
+        if (slots.getLong(i * SLOT_SIZE) == key)
+        {
+          return value - 1;
+        }
+      }
+    }
+
+    /**
+     * Maps the provided key to the provided location.
+     *
+     * @return {@code false} if the index is full and could not grow
+     */
+    private boolean put(long key, long location)
+    {
+      int i = slotOf(key, mask);
+      for (; slots.getLong(i * SLOT_SIZE + 8) != 0; i = (i + 1) & mask)
+      {
+        if (slots.getLong(i * SLOT_SIZE) == key)
+        {
+          slots.putLong(i * SLOT_SIZE + 8, location + 1);
+          return true;
+        }
+      }
+      if (size >= (mask + 1) / 4 * 3)
+      {
+        return grow() && put(key, location);
+      }
+      slots.putLong(i * SLOT_SIZE, key);
+      slots.putLong(i * SLOT_SIZE + 8, location + 1);
+      size++;
+      return true;
+    }
+
+    /** Removes the mapping of the provided key, if it maps to the provided location. */
+    private void remove(long key, long location)
+    {
+      int i = slotOf(key, mask);
+      for (;; i = (i + 1) & mask)
+      {
+        long value = slots.getLong(i * SLOT_SIZE + 8);
+        if (value == 0)
+        {
+          return;
+        }
+        if (slots.getLong(i * SLOT_SIZE) == key)
+        {
+          if (value - 1 != location)
+          {
+            return;
+          }
+          break;
+        }
+      }
+
+      // Shift back the following slots of the probe sequence.
+      int hole = i;
+      for (int j = (hole + 1) & mask; slots.getLong(j * SLOT_SIZE + 8) != 0; j = (j + 1) & mask)
+      {
+        long movedKey = slots.getLong(j * SLOT_SIZE);
+        int ideal = slotOf(movedKey, mask);
+        if (((j - ideal) & mask) >= ((j - hole) & mask))
+        {
+          slots.putLong(hole * SLOT_SIZE, movedKey);
+          slots.putLong(hole * SLOT_SIZE + 8, slots.getLong(j * SLOT_SIZE + 8));
+          hole = j;
+        }
+      }
+      slots.putLong(hole * SLOT_SIZE + 8, 0);
+      size--;
+    }
+
+    private boolean grow()
+    {
+      int capacity = mask + 1;
+      if (capacity >= MAX_CAPACITY)
+      {
+        return false;
+      }
+      ByteBuffer oldSlots = slots;
+      try
+      {
+        allocate(capacity << 1);
+      }
+      catch (OutOfMemoryError e)
+      {
+        // The direct memory is exhausted, keep using the current slots.
+        logger.traceException(e);
+        return false;
+      }
+      for (int i = 0; i < capacity; i++)
+      {
+        long value = oldSlots.getLong(i * SLOT_SIZE + 8);
+        if (value != 0)
+        {
+          put(oldSlots.getLong(i * SLOT_SIZE), value - 1);
+        }
+      }
+      return true;
+    }
+
+    private void clear()
+    {
+      for (int i = 0; i <= mask; i++)
+      {
+        slots.putLong(i * SLOT_SIZE + 8, 0);
+      }
+      size = 0;
+    }
+  }
+}
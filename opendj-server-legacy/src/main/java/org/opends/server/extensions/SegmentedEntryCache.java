@@ -0,0 +1,1180 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.forgerock.opendj.server.config.server.SegmentedEntryCacheCfg;
+import org.forgerock.util.Utils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.CacheEntry;
+import org.opends.server.types.Entry;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
+import org.opends.server.util.ServerConstants;
+
+/**
+ * This class defines a Directory Server entry cache which splits the cached
+ * entries across independently locked segments, and which uses the access
+ * frequency of the entries to decide which entries are kept in the cache.
+ * <BR><BR>
+ * Entries are assigned to a segment based on the hash code of their DN, so
+ * that concurrent operations on different entries rarely contend on the same
+ * lock. Each segment implements the W-TinyLFU eviction policy: newly cached
+ * entries are added to a small LRU admission window, and the entries evicted
+ * from the window compete with the least recently used entry of the main area
+ * of the segment. The main area is a segmented LRU split between probationary
+ * entries and protected entries, the latter being the entries which have been
+ * accessed again since they entered the main area. An entry leaving the window
+ * is only admitted into the main area if it has been accessed more frequently
+ * than the entry it would replace, as estimated by a count-min sketch of the
+ * recent accesses. This prevents one-off scans of many entries from flushing
+ * frequently accessed entries out of the cache.
+ * <BR><BR>
+ * The mapping between entry IDs and entries is kept per backend in maps keyed
+ * by primitive longs, which are themselves striped by entry ID. These maps are
+ * only updated while holding the lock of the segment owning the entry.
+ */
+public class SegmentedEntryCache
+       extends EntryCache<SegmentedEntryCacheCfg>
+       implements ConfigurationChangeListener<SegmentedEntryCacheCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The reference to the Java runtime used to determine the amount of memory currently in use. */
+  private static final Runtime runtime = Runtime.getRuntime();
+
+  /** The minimum number of entries each segment should be able to hold. */
+  private static final int MIN_ENTRIES_PER_SEGMENT = 64;
+  /** The percentage of the capacity of a segment used by its admission window. */
+  private static final int WINDOW_PERCENT = 1;
+  /** The percentage of the main area of a segment used by protected entries. */
+  private static final int PROTECTED_PERCENT = 80;
+  /** The number of stripes of each per-backend entry ID map. */
+  private static final int ID_MAP_STRIPES = 16;
+
+  /** The segments of this cache, whose number is a power of two. */
+  private Segment[] segments;
+  /** The number of bits to shift a DN hash to get the index of its segment. */
+  private int segmentShift;
+
+  /** The mapping between entry backends/IDs and entries. */
+  private final ConcurrentMap<String, BackendIdMap> idMaps = new ConcurrentHashMap<>();
+
+  /** The number of entries evicted from the cache to make room for other entries. */
+  private final AtomicLong evictions = new AtomicLong();
+  /** The number of entries rejected by the admission policy of the cache. */
+  private final AtomicLong admissionRejections = new AtomicLong();
+
+  /**
+   * The maximum amount of memory in bytes that the JVM will be allowed to use
+   * before we need to start purging entries.
+   */
+  private volatile long maxAllowedMemory;
+
+  /** The maximum number of entries that may be held in the cache. */
+  private long maxEntries;
+
+  /** Currently registered configuration object. */
+  private SegmentedEntryCacheCfg registeredConfiguration;
+
+  /** Creates a new instance of this segmented entry cache. */
+  public SegmentedEntryCache()
+  {
+    super();
+    // All initialization should be performed in the initializeEntryCache.
+  }
+
+  @Override
+  public void initializeEntryCache(ServerContext serverContext, SegmentedEntryCacheCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    registeredConfiguration = configuration;
+    configuration.addSegmentedChangeListener(this);
+
+    // Read configuration and apply changes.
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_INIT, null, errorMessages
+          );
+    if (!processEntryCacheConfig(configuration, applyChanges, errorHandler)) {
+      String buffer = Utils.joinAsString(".  ", errorMessages);
+      throw new ConfigException(ERR_SEGMENTEDCACHE_CANNOT_INITIALIZE.get(buffer));
+    }
+
+    // The number of segments is fixed for the lifetime of the cache.
+    int numSegments = getNumSegments(configuration.getNumSegments(), maxEntries);
+    segmentShift = 32 - Integer.numberOfTrailingZeros(numSegments);
+    segments = new Segment[numSegments];
+    for (int i = 0; i < numSegments; i++)
+    {
+      segments[i] = new Segment(getSegmentCapacity(maxEntries, numSegments, i));
+    }
+  }
+
+  /**
+   * Returns the number of segments to use for a cache holding the provided
+   * maximum number of entries.
+   *
+   * @param configuredSegments
+   *          the number of segments specified in the configuration
+   * @param maxEntries
+   *          the maximum number of entries of the cache
+   * @return the number of segments to use, which is a power of two
+   */
+  static int getNumSegments(int configuredSegments, long maxEntries)
+  {
+    long maxSegments = Math.max(1, maxEntries / MIN_ENTRIES_PER_SEGMENT);
+    return Integer.highestOneBit((int) Math.min(configuredSegments, maxSegments));
+  }
+
+  private static int getSegmentCapacity(long maxEntries, int numSegments, int segmentIndex)
+  {
+    long capacity = maxEntries / numSegments + (segmentIndex < maxEntries % numSegments ? 1 : 0);
+    return (int) Math.min(capacity, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void finalizeEntryCache()
+  {
+    registeredConfiguration.removeSegmentedChangeListener(this);
+
+    // Release all memory currently in use by this cache.
+    clear();
+  }
+
+  private Segment segmentFor(int hash)
+  {
+    // Use the high bits of the hash: the frequency sketches use the low bits.
+    return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+  }
+
+  private static int hash(DN dn)
+  {
+    int h = dn.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  @Override
+  public boolean containsEntry(DN entryDN)
+  {
+    if (entryDN == null) {
+      return false;
+    }
+    int hash = hash(entryDN);
+    return segmentFor(hash).contains(entryDN);
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN)
+  {
+    int hash = hash(entryDN);
+    CacheEntry e = segmentFor(hash).get(entryDN, hash);
+    if (e == null) {
+      // Indicate cache miss.
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    // Indicate cache hit.
+    cacheHits.getAndIncrement();
+    return e.getEntry();
+  }
+
+  @Override
+  public long getEntryID(DN entryDN)
+  {
+    int hash = hash(entryDN);
+    CacheEntry e = segmentFor(hash).get(entryDN, hash);
+    return e != null ? e.getEntryID() : -1;
+  }
+
+  @Override
+  public DN getEntryDN(String backendID, long entryID)
+  {
+    BackendIdMap backendMap = idMaps.get(backendID);
+    if (backendMap != null) {
+      CacheEntry e = backendMap.get(entryID);
+      if (e != null) {
+        return e.getDN();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void putEntry(Entry entry, String backendID, long entryID)
+  {
+    CacheEntry cacheEntry = new CacheEntry(entry, backendID, entryID);
+    int hash = hash(entry.getName());
+    segmentFor(hash).put(cacheEntry, hash, true);
+  }
+
+  @Override
+  public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
+  {
+    CacheEntry cacheEntry = new CacheEntry(entry, backendID, entryID);
+    int hash = hash(entry.getName());
+    // We'll always return true if the entry was absent, even if we didn't
+    // actually add the entry due to memory constraints or to the admission policy.
+    return segmentFor(hash).put(cacheEntry, hash, false);
+  }
+
+  @Override
+  public void removeEntry(DN entryDN)
+  {
+    int hash = hash(entryDN);
+    segmentFor(hash).remove(entryDN, null);
+  }
+
+  @Override
+  public void clear()
+  {
+    // Lock all the segments, so that the ID maps can be cleared consistently.
+    for (Segment segment : segments)
+    {
+      segment.lock.lock();
+    }
+    try
+    {
+      for (Segment segment : segments)
+      {
+        segment.clear();
+      }
+      idMaps.clear();
+    }
+    finally
+    {
+      for (Segment segment : segments)
+      {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public void clearBackend(String backendID)
+  {
+    // Remove all references to entries for this backend from the ID maps.
+    BackendIdMap backendMap = idMaps.remove(backendID);
+    if (backendMap == null)
+    {
+      // No entries were in the cache for this backend, so we can return
+      // without doing anything.
+      return;
+    }
+
+    // Then remove the entries from their segments, one segment lock at a time.
+    for (CacheEntry e : backendMap.values())
+    {
+      int hash = hash(e.getDN());
+      segmentFor(hash).remove(e.getDN(), e);
+    }
+  }
+
+  @Override
+  public void handleLowMemory()
+  {
+    // See how many entries are in the cache.  If there are less than 1000,
+    // then we'll dump all of them.  Otherwise, we'll dump 10% of the entries.
+    boolean dumpAll = getCacheCount() < 1000;
+    for (Segment segment : segments)
+    {
+      segment.shrink(dumpAll);
+    }
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(EntryCacheCfg configuration,
+                                           List<LocalizableMessage> unacceptableReasons)
+  {
+    SegmentedEntryCacheCfg config = (SegmentedEntryCacheCfg) configuration;
+    return isConfigurationChangeAcceptable(config, unacceptableReasons);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      SegmentedEntryCacheCfg configuration,
+      List<LocalizableMessage> unacceptableReasons
+      )
+  {
+    boolean applyChanges = false;
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_ACCEPTABLE,
+          unacceptableReasons,
+          null
+        );
+    processEntryCacheConfig (configuration, applyChanges, errorHandler);
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(SegmentedEntryCacheCfg configuration)
+  {
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler (
+          EntryCacheCommon.ConfigPhase.PHASE_APPLY, null, errorMessages
+          );
+
+    // Do not apply changes unless this cache is enabled.
+    if (configuration.isEnabled()) {
+      processEntryCacheConfig (configuration, applyChanges, errorHandler);
+    }
+
+    final ConfigChangeResult changeResult = new ConfigChangeResult();
+    changeResult.setResultCode(errorHandler.getResultCode());
+    changeResult.setAdminActionRequired(errorHandler.getIsAdminActionRequired());
+    changeResult.getMessages().addAll(errorHandler.getErrorMessages());
+    return changeResult;
+  }
+
+  /**
+   * Parses the provided configuration and configure the entry cache.
+   *
+   * @param configuration  The new configuration containing the changes.
+   * @param applyChanges   If true then take into account the new configuration.
+   * @param errorHandler   An handler used to report errors.
+   *
+   * @return  <CODE>true</CODE> if configuration is acceptable,
+   *          or <CODE>false</CODE> otherwise.
+   */
+  private boolean processEntryCacheConfig(
+      SegmentedEntryCacheCfg              configuration,
+      boolean                             applyChanges,
+      EntryCacheCommon.ConfigErrorHandler errorHandler
+      )
+  {
+    // Local variables to read configuration.
+    Set<SearchFilter> newIncludeFilters = null;
+    Set<SearchFilter> newExcludeFilters = null;
+
+    // Read configuration.
+    DN newConfigEntryDN = configuration.dn();
+    long newMaxEntries  = configuration.getMaxEntries();
+
+    // Maximum memory the cache can use.
+    int newMaxMemoryPercent  = configuration.getMaxMemoryPercent();
+    long maxJvmHeapSize      = Runtime.getRuntime().maxMemory();
+    long newMaxAllowedMemory = (maxJvmHeapSize / 100) * newMaxMemoryPercent;
+
+    // Get include and exclude filters.
+    switch (errorHandler.getConfigPhase())
+    {
+    case PHASE_INIT:
+    case PHASE_ACCEPTABLE:
+    case PHASE_APPLY:
+      newIncludeFilters = EntryCacheCommon.getFilters (
+          configuration.getIncludeFilter(),
+          ERR_CACHE_INVALID_INCLUDE_FILTER,
+          errorHandler,
+          newConfigEntryDN
+          );
+      newExcludeFilters = EntryCacheCommon.getFilters (
+          configuration.getExcludeFilter(),
+          ERR_CACHE_INVALID_EXCLUDE_FILTER,
+          errorHandler,
+          newConfigEntryDN
+          );
+      break;
+    }
+
+    if (applyChanges && errorHandler.getIsAcceptable())
+    {
+      if (segments != null)
+      {
+        // The number of segments cannot be changed while the cache is running.
+        int newNumSegments = getNumSegments(configuration.getNumSegments(), newMaxEntries);
+        if (newNumSegments != segments.length)
+        {
+          errorHandler.reportError(
+              INFO_SEGMENTEDCACHE_NUM_SEGMENTS_REQUIRES_RESTART.get(segments.length, newNumSegments),
+              true, ResultCode.SUCCESS, true);
+        }
+        if (newMaxEntries != maxEntries)
+        {
+          for (int i = 0; i < segments.length; i++)
+          {
+            segments[i].setCapacity(getSegmentCapacity(newMaxEntries, segments.length, i));
+          }
+        }
+      }
+      maxEntries       = newMaxEntries;
+      maxAllowedMemory = newMaxAllowedMemory;
+      setIncludeFilters(newIncludeFilters);
+      setExcludeFilters(newExcludeFilters);
+      registeredConfiguration = configuration;
+    }
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try {
+      return EntryCacheCommon.getGenericMonitorData(
+        cacheHits.longValue(),
+        // If cache misses is maintained by default cache
+        // get it from there and if not point to itself.
+        DirectoryServer.getEntryCache().getCacheMisses(),
+        null,
+        maxAllowedMemory,
+        getCacheCount(),
+        maxEntries,
+        evictions.longValue(),
+        admissionRejections.longValue()
+        );
+    } catch (Exception e) {
+      logger.traceException(e);
+      return new MonitorData(0);
+    }
+  }
+
+  @Override
+  public Long getCacheCount()
+  {
+    long count = 0;
+    for (Segment segment : segments)
+    {
+      count += segment.count;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of entries evicted from this cache to make room for
+   * other entries.
+   *
+   * @return the number of entries evicted from this cache
+   */
+  public long getEvictions()
+  {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the number of entries which were not admitted in the main area
+   * of this cache because they were accessed less frequently than the entries
+   * they would have replaced.
+   *
+   * @return the number of entries rejected by the admission policy
+   */
+  public long getAdmissionRejections()
+  {
+    return admissionRejections.get();
+  }
+
+  @Override
+  public String toVerboseString()
+  {
+    StringBuilder sb = new StringBuilder();
+
+    // Take a snapshot of each segment in turn.
+    Map<DN, CacheEntry> dnMapCopy = new LinkedHashMap<>();
+    for (Segment segment : segments)
+    {
+      segment.lock.lock();
+      try
+      {
+        dnMapCopy.putAll(segment.window);
+        dnMapCopy.putAll(segment.probation);
+        dnMapCopy.putAll(segment.protectedArea);
+      }
+      finally
+      {
+        segment.lock.unlock();
+      }
+    }
+
+    for (Map.Entry<DN, CacheEntry> mapEntry : dnMapCopy.entrySet()) {
+      final CacheEntry cacheEntry = mapEntry.getValue();
+      sb.append(mapEntry.getKey());
+      sb.append(":");
+      sb.append(cacheEntry.getEntryID());
+      sb.append(":");
+      sb.append(cacheEntry.getBackendID());
+      sb.append(ServerConstants.EOL);
+    }
+
+    // See if there is anything on the ID maps that is not reflected on
+    // the segments in case they went out of sync.
+    for (Map.Entry<String, BackendIdMap> backendCache : idMaps.entrySet()) {
+      for (CacheEntry cacheEntry : backendCache.getValue().values()) {
+        if (dnMapCopy.get(cacheEntry.getDN()) != cacheEntry) {
+          sb.append(cacheEntry.getDN());
+          sb.append(":");
+          sb.append(cacheEntry.getEntryID());
+          sb.append(":");
+          sb.append(backendCache.getKey());
+          sb.append(ServerConstants.EOL);
+        }
+      }
+    }
+
+    String verboseString = sb.toString();
+    return verboseString.length() > 0 ? verboseString : null;
+  }
+
+  /** Must be called while holding the lock of the segment owning the provided entry. */
+  private void mapEntryID(CacheEntry cacheEntry)
+  {
+    BackendIdMap backendMap = idMaps.get(cacheEntry.getBackendID());
+    if (backendMap == null)
+    {
+      BackendIdMap newMap = new BackendIdMap();
+      backendMap = idMaps.putIfAbsent(cacheEntry.getBackendID(), newMap);
+      if (backendMap == null)
+      {
+        backendMap = newMap;
+      }
+    }
+    backendMap.put(cacheEntry);
+  }
+
+  /** Must be called while holding the lock of the segment owning the provided entry. */
+  private void unmapEntryID(CacheEntry cacheEntry)
+  {
+    BackendIdMap backendMap = idMaps.get(cacheEntry.getBackendID());
+    if (backendMap != null)
+    {
+      backendMap.remove(cacheEntry);
+    }
+  }
+
+  /**
+   * A segment of the cache, holding the entries whose DN hashes to it.
+   * All the fields are guarded by the segment lock, except the entry count.
+   */
+  private final class Segment
+  {
+    private final ReentrantLock lock = new ReentrantLock();
+    /** The admission window, in access order. */
+    private final LinkedHashMap<DN, CacheEntry> window = new LinkedHashMap<>(16, 0.75f, true);
+    /** The entries of the main area which have not been accessed since they were admitted. */
+    private final LinkedHashMap<DN, CacheEntry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    /** The entries of the main area which have been accessed since they were admitted. */
+    private final LinkedHashMap<DN, CacheEntry> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+    private FrequencySketch sketch;
+    private int windowCapacity;
+    private int mainCapacity;
+    private int protectedCapacity;
+    /** The number of entries in this segment, readable without holding the lock. */
+    private volatile int count;
+
+    private Segment(int capacity)
+    {
+      setCapacity(capacity);
+    }
+
+    private void setCapacity(int capacity)
+    {
+      lock.lock();
+      try
+      {
+        windowCapacity = Math.max(1, (int) ((long) capacity * WINDOW_PERCENT / 100));
+        mainCapacity = Math.max(0, capacity - windowCapacity);
+        protectedCapacity = (int) ((long) mainCapacity * PROTECTED_PERCENT / 100);
+        sketch = new FrequencySketch(capacity);
+
+        // Shrink the segment down to its new capacity if needed.
+        while (protectedArea.size() > protectedCapacity)
+        {
+          demoteProtected();
+        }
+        while (probation.size() + protectedArea.size() > mainCapacity)
+        {
+          evict(probation.isEmpty() ? protectedArea : probation);
+        }
+        while (window.size() > windowCapacity)
+        {
+          evict(window);
+        }
+        updateCount();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    private boolean contains(DN dn)
+    {
+      lock.lock();
+      try
+      {
+        return window.containsKey(dn) || probation.containsKey(dn) || protectedArea.containsKey(dn);
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    private CacheEntry get(DN dn, int hash)
+    {
+      lock.lock();
+      try
+      {
+        sketch.increment(hash);
+        CacheEntry e = window.get(dn);
+        if (e == null)
+        {
+          e = protectedArea.get(dn);
+        }
+        if (e == null)
+        {
+          // Accessed again since admitted: promote the entry to the protected area.
+          e = probation.remove(dn);
+          if (e != null)
+          {
+            protectedArea.put(dn, e);
+            if (protectedArea.size() > protectedCapacity)
+            {
+              demoteProtected();
+            }
+          }
+        }
+        return e;
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Adds the provided entry to this segment.
+     *
+     * @return {@code true} if the entry was absent or has been replaced,
+     *         {@code false} if it was already present and was not replaced
+     */
+    private boolean put(CacheEntry cacheEntry, int hash, boolean replaceExisting)
+    {
+      DN dn = cacheEntry.getDN();
+      lock.lock();
+      try
+      {
+        LinkedHashMap<DN, CacheEntry> area = findArea(dn);
+        if (area != null && !replaceExisting)
+        {
+          return false;
+        }
+
+        // See if the current memory usage is within acceptable constraints.
+        // If not, then remove an existing entry and don't add the new entry.
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        if (usedMemory > maxAllowedMemory)
+        {
+          if (area != null)
+          {
+            unmapEntryID(area.remove(dn));
+          }
+          else if (!window.isEmpty() || !probation.isEmpty() || !protectedArea.isEmpty())
+          {
+            evict(!probation.isEmpty() ? probation : !window.isEmpty() ? window : protectedArea);
+          }
+          return true;
+        }
+
+        sketch.increment(hash);
+        if (area != null)
+        {
+          // Replace the existing entry where it is.
+          unmapEntryID(area.put(dn, cacheEntry));
+          mapEntryID(cacheEntry);
+          return true;
+        }
+
+        window.put(dn, cacheEntry);
+        mapEntryID(cacheEntry);
+        while (window.size() > windowCapacity)
+        {
+          Iterator<CacheEntry> iterator = window.values().iterator();
+          CacheEntry candidate = iterator.next();
+          iterator.remove();
+          admit(candidate);
+        }
+        return true;
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        // We can't be sure there wasn't a conflict, so return false.
+        return false;
+      }
+      finally
+      {
+        updateCount();
+        lock.unlock();
+      }
+    }
+
+    /** Moves an entry evicted from the window to the main area if the admission policy allows it. */
+    private void admit(CacheEntry candidate)
+    {
+      if (probation.size() + protectedArea.size() < mainCapacity)
+      {
+        probation.put(candidate.getDN(), candidate);
+        return;
+      }
+
+      LinkedHashMap<DN, CacheEntry> victimArea = !probation.isEmpty() ? probation : protectedArea;
+      if (!victimArea.isEmpty())
+      {
+        CacheEntry victim = victimArea.values().iterator().next();
+        if (sketch.frequency(hash(candidate.getDN())) > sketch.frequency(hash(victim.getDN())))
+        {
+          evict(victimArea);
+          probation.put(candidate.getDN(), candidate);
+          return;
+        }
+      }
+      unmapEntryID(candidate);
+      admissionRejections.getAndIncrement();
+    }
+
+    /** Moves the least recently used protected entry back to the probation area. */
+    private void demoteProtected()
+    {
+      Iterator<CacheEntry> iterator = protectedArea.values().iterator();
+      CacheEntry demoted = iterator.next();
+      iterator.remove();
+      probation.put(demoted.getDN(), demoted);
+    }
+
+    /** Evicts the least recently used entry of the provided non empty area. */
+    private void evict(LinkedHashMap<DN, CacheEntry> area)
+    {
+      Iterator<CacheEntry> iterator = area.values().iterator();
+      CacheEntry evicted = iterator.next();
+      iterator.remove();
+      unmapEntryID(evicted);
+      evictions.getAndIncrement();
+    }
+
+    private LinkedHashMap<DN, CacheEntry> findArea(DN dn)
+    {
+      if (window.containsKey(dn))
+      {
+        return window;
+      }
+      else if (probation.containsKey(dn))
+      {
+        return probation;
+      }
+      else if (protectedArea.containsKey(dn))
+      {
+        return protectedArea;
+      }
+      return null;
+    }
+
+    /**
+     * Removes the entry with the provided DN from this segment.
+     *
+     * @param expected
+     *          if not {@code null}, only remove the entry if it is the
+     *          provided cache entry
+     */
+    private void remove(DN dn, CacheEntry expected)
+    {
+      lock.lock();
+      try
+      {
+        LinkedHashMap<DN, CacheEntry> area = findArea(dn);
+        if (area != null && (expected == null || area.get(dn) == expected))
+        {
+          unmapEntryID(area.remove(dn));
+        }
+      }
+      finally
+      {
+        updateCount();
+        lock.unlock();
+      }
+    }
+
+    /** Drops all the entries if {@code dumpAll} is true, or 10% of them otherwise. */
+    private void shrink(boolean dumpAll)
+    {
+      lock.lock();
+      try
+      {
+        int numToDrop = dumpAll ? count : count / 10;
+        for (; numToDrop > 0 && !window.isEmpty(); numToDrop--)
+        {
+          unmapEntryID(removeEldest(window));
+        }
+        for (; numToDrop > 0 && !probation.isEmpty(); numToDrop--)
+        {
+          unmapEntryID(removeEldest(probation));
+        }
+        for (; numToDrop > 0 && !protectedArea.isEmpty(); numToDrop--)
+        {
+          unmapEntryID(removeEldest(protectedArea));
+        }
+      }
+      finally
+      {
+        updateCount();
+        lock.unlock();
+      }
+    }
+
+    private CacheEntry removeEldest(LinkedHashMap<DN, CacheEntry> area)
+    {
+      Iterator<CacheEntry> iterator = area.values().iterator();
+      CacheEntry eldest = iterator.next();
+      iterator.remove();
+      return eldest;
+    }
+
+    /** Must be called while holding the lock of all the segments. */
+    private void clear()
+    {
+      window.clear();
+      probation.clear();
+      protectedArea.clear();
+      sketch = new FrequencySketch(windowCapacity + mainCapacity);
+      count = 0;
+    }
+
+    private void updateCount()
+    {
+      count = window.size() + probation.size() + protectedArea.size();
+    }
+  }
+
+  /**
+   * A count-min sketch estimating the access frequency of the entries with
+   * four 4-bit counters per entry. The counters are halved periodically so
+   * that the sketch favors recent accesses. This class is not thread safe.
+   */
+  static final class FrequencySketch
+  {
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * Creates a sketch sized for the provided number of entries.
+     *
+     * @param maximumSize
+     *          the maximum number of entries of the cache using the sketch
+     */
+    FrequencySketch(int maximumSize)
+    {
+      int maximum = Math.min(Math.max(maximumSize, 1), 1 << 30);
+      int length = Integer.highestOneBit(maximum);
+      if (length < maximum)
+      {
+        length <<= 1;
+      }
+      table = new long[length];
+      tableMask = length - 1;
+      sampleSize = maximum <= Integer.MAX_VALUE / 10 ? 10 * maximum : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the estimated number of accesses of the element with the provided hash.
+     *
+     * @param hash
+     *          the hash of the element
+     * @return the estimated frequency, between 0 and 15
+     */
+    int frequency(int hash)
+    {
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++)
+      {
+        int index = indexOf(hash, i);
+        int counter = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, counter);
+      }
+      return frequency;
+    }
+
+    /**
+     * Records an access of the element with the provided hash.
+     *
+     * @param hash
+     *          the hash of the element
+     */
+    void increment(int hash)
+    {
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++)
+      {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size == sampleSize)
+      {
+        reset();
+      }
+    }
+
+    private boolean incrementAt(int index, int counterIndex)
+    {
+      int offset = counterIndex << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask)
+      {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private int indexOf(int hash, int i)
+    {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+    }
+
+    /** Halves all the counters. */
+    private void reset()
+    {
+      int oddCounters = 0;
+      for (int i = 0; i < table.length; i++)
+      {
+        oddCounters += Long.bitCount(table[i] & ONE_MASK);
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size = (size >>> 1) - (oddCounters >>> 2);
+    }
+  }
+
+  /**
+   * The mapping between entry IDs and entries of a backend, striped by entry
+   * ID. Each stripe is an open addressing hash map keyed by primitive longs
+   * and guarded by its own monitor.
+   */
+  private static final class BackendIdMap
+  {
+    private final LongObjectMap[] stripes = new LongObjectMap[ID_MAP_STRIPES];
+
+    private BackendIdMap()
+    {
+      for (int i = 0; i < stripes.length; i++)
+      {
+        stripes[i] = new LongObjectMap();
+      }
+    }
+
+    private LongObjectMap stripeFor(long entryID)
+    {
+      long h = entryID * 0x9E3779B97F4A7C15L;
+      return stripes[(int) (h >>> 60) & (ID_MAP_STRIPES - 1)];
+    }
+
+    private CacheEntry get(long entryID)
+    {
+      LongObjectMap stripe = stripeFor(entryID);
+      synchronized (stripe)
+      {
+        return stripe.get(entryID);
+      }
+    }
+
+    private void put(CacheEntry cacheEntry)
+    {
+      LongObjectMap stripe = stripeFor(cacheEntry.getEntryID());
+      synchronized (stripe)
+      {
+        stripe.put(cacheEntry.getEntryID(), cacheEntry);
+      }
+    }
+
+    /** Removes the provided entry, unless its entry ID has been remapped to another entry. */
+    private void remove(CacheEntry cacheEntry)
+    {
+      LongObjectMap stripe = stripeFor(cacheEntry.getEntryID());
+      synchronized (stripe)
+      {
+        if (stripe.get(cacheEntry.getEntryID()) == cacheEntry)
+        {
+          stripe.remove(cacheEntry.getEntryID());
+        }
+      }
+    }
+
+    private List<CacheEntry> values()
+    {
+      List<CacheEntry> values = new ArrayList<>();
+      for (LongObjectMap stripe : stripes)
+      {
+        synchronized (stripe)
+        {
+          stripe.addValuesTo(values);
+        }
+      }
+      return values;
+    }
+  }
+
+  /**
+   * An open addressing hash map from primitive longs to cache entries, using
+   * linear probing and backward shift deletion. This class is not thread safe.
+   */
+  private static final class LongObjectMap
+  {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private CacheEntry[] values = new CacheEntry[INITIAL_CAPACITY];
+    private int size;
+
+    private int indexOf(long key, int mask)
+    {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private CacheEntry get(long key)
+    {
+      int mask = keys.length - 1;
+      for (int i = indexOf(key, mask); values[i] != null; i = (i + 1) & mask)
+      {
+        if (keys[i] == key)
+        {
+          return values[i];
+        }
+      }
+      return null;
+    }
+
+    private void put(long key, CacheEntry value)
+    {
+      int mask = keys.length - 1;
+      int i = indexOf(key, mask);
+      for (; values[i] != null; i = (i + 1) & mask)
+      {
+        if (keys[i] == key)
+        {
+          values[i] = value;
+          return;
+        }
+      }
+      keys[i] = key;
+      values[i] = value;
+      if (++size > keys.length * 3 / 4)
+      {
+        resize(keys.length << 1);
+      }
+    }
+
+    private void remove(long key)
+    {
+      int mask = keys.length - 1;
+      int i = indexOf(key, mask);
+      for (; values[i] != null; i = (i + 1) & mask)
+      {
+        if (keys[i] == key)
+        {
+          break;
+        }
+      }
+      if (values[i] == null)
+      {
+        return;
+      }
+
+      // Shift back the following entries of the probe sequence.
+      int hole = i;
+      for (int j = (hole + 1) & mask; values[j] != null; j = (j + 1) & mask)
+      {
+        int ideal = indexOf(keys[j], mask);
+        if (((j - ideal) & mask) >= ((j - hole) & mask))
+        {
+          keys[hole] = keys[j];
+          values[hole] = values[j];
+          hole = j;
+        }
+      }
+      values[hole] = null;
+      size--;
+
+      if (size == 0 && keys.length > INITIAL_CAPACITY)
+      {
+        keys = new long[INITIAL_CAPACITY];
+        values = new CacheEntry[INITIAL_CAPACITY];
+      }
+    }
+
+    private void resize(int newCapacity)
+    {
+      long[] oldKeys = keys;
+      CacheEntry[] oldValues = values;
+      keys = new long[newCapacity];
+      values = new CacheEntry[newCapacity];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++)
+      {
+        if (oldValues[i] != null)
+        {
+          put(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+
+    private void addValuesTo(List<CacheEntry> list)
+    {
+      for (CacheEntry value : values)
+      {
+        if (value != null)
+        {
+          list.add(value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,664 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.StripedWorkQueueCfg;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.StripedWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+
+/**
+ * A work queue which partitions pending operations across one queue per
+ * worker thread rather than funnelling them all through a single shared
+ * queue.
+ * <p>
+ * Operations are routed to a shard based on their connection ID, so that
+ * concurrent clients rarely contend on the same queue. A worker thread first
+ * services its own shard and then attempts to steal work from the other
+ * shards before going idle, which keeps all threads busy when the load is
+ * unevenly spread across connections. The maximum work queue capacity is
+ * split evenly between the shards: an operation which does not fit in its
+ * home shard spills over into the next shard with available capacity, and is
+ * only blocked (or rejected) once every shard is full.
+ */
+public class StripedWorkQueue extends WorkQueue<StripedWorkQueueCfg>
+    implements ConfigurationChangeListener<StripedWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /**
+   * The maximum length of time in seconds that an idle worker thread will wait
+   * before checking again for work and for shutdown requests.
+   */
+  private static final long IDLE_WAIT_SECONDS = 5;
+
+  /** A single partition of the work queue, owned by exactly one worker thread. */
+  private static final class Shard
+  {
+    /** The index of this shard, which is also the index of its owner thread. */
+    private final int index;
+    /** The operations pending in this shard. */
+    private final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<>();
+    /** The number of operations pending in this shard, maintained for capacity checks. */
+    private final AtomicInteger size = new AtomicInteger();
+    /** The number of operations that have been submitted to this shard. */
+    private final AtomicLong opsSubmitted = new AtomicLong();
+    /** The number of operations that the owner thread has stolen from other shards. */
+    private final AtomicLong opsStolen = new AtomicLong();
+    /** Indicates whether the owner thread is waiting for work. */
+    private final AtomicBoolean parked = new AtomicBoolean();
+    /** Used by submitters to wake up the owner thread when it is waiting for work. */
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private Shard(int index)
+    {
+      this.index = index;
+    }
+
+    /**
+     * Attempts to reserve a slot in this shard without exceeding the provided
+     * capacity.
+     */
+    private boolean tryReserve(int capacity)
+    {
+      while (true)
+      {
+        int current = size.get();
+        if (current >= capacity)
+        {
+          return false;
+        }
+        if (size.compareAndSet(current, current + 1))
+        {
+          return true;
+        }
+      }
+    }
+
+    private Operation poll()
+    {
+      Operation operation = queue.poll();
+      if (operation != null)
+      {
+        size.decrementAndGet();
+      }
+      return operation;
+    }
+
+    /**
+     * Wakes up the owner thread if it is currently waiting for work.
+     *
+     * @return {@code true} if the owner thread was waiting and has been
+     *         signaled, or {@code false} if it is busy.
+     */
+    private boolean signalIfParked()
+    {
+      if (parked.compareAndSet(true, false))
+      {
+        wakeUp.release();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /** The set of worker threads that will be used to process this work queue. */
+  private StripedWorkerThread[] workerThreads;
+
+  /** The shards holding the pending operations, one per worker thread. */
+  private Shard[] shards;
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final AtomicLong queueFullRejects = new AtomicLong();
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /**
+   * The maximum number of pending requests that this work queue will allow
+   * before it will start blocking or rejecting them.
+   */
+  private volatile int maxCapacity;
+
+  /** The maximum number of pending requests in any given shard. */
+  private volatile int shardCapacity;
+
+  /** The number of worker threads, which is also the number of shards. */
+  private int numWorkerThreads;
+
+  /** The number of submitters currently blocked because every shard is full. */
+  private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+  /** The monitor used by blocked submitters to wait for available capacity. */
+  private final Object capacityLock = new Object();
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public StripedWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(StripedWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addStripedChangeListener(this);
+
+    // Get the necessary configuration from the provided entry.
+    numWorkerThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+    setMaxCapacity(configuration.getMaxWorkQueueCapacity());
+
+    // Create the shards before the threads so that a thread never sees a partially built set of shards.
+    shards = new Shard[numWorkerThreads];
+    for (int i = 0; i < numWorkerThreads; i++)
+    {
+      shards[i] = new Shard(i);
+    }
+
+    workerThreads = new StripedWorkerThread[numWorkerThreads];
+    for (int i = 0; i < numWorkerThreads; i++)
+    {
+      workerThreads[i] = new StripedWorkerThread(this, i);
+    }
+    for (StripedWorkerThread t : workerThreads)
+    {
+      t.start();
+    }
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      StripedWorkQueueMonitor monitor = new StripedWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, StripedWorkQueueMonitor.class, e);
+    }
+  }
+
+  private void setMaxCapacity(int newMaxCapacity)
+  {
+    maxCapacity = newMaxCapacity;
+    // Round up so that the sum of the shard capacities is never below the configured capacity.
+    shardCapacity = Math.max(1, (newMaxCapacity + numWorkerThreads - 1) / numWorkerThreads);
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+
+    // From now on no more operations can be enqueued. Wake up any submitter
+    // blocked on a full queue so that it can notice the shutdown.
+    synchronized (capacityLock)
+    {
+      capacityLock.notifyAll();
+    }
+
+    // Send responses to any operations in the pending queue to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    for (Shard shard : shards)
+    {
+      Operation o;
+      while ((o = shard.poll()) != null)
+      {
+        try
+        {
+          // The operation has no chance of responding to the cancel
+          // request so avoid waiting for a cancel response.
+          if (o.getCancelResult() == null)
+          {
+            o.abort(cancelRequest);
+          }
+        }
+        catch (Exception e)
+        {
+          logger.traceException(e);
+          logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+        }
+      }
+    }
+
+    // Notify all the worker threads of the shutdown.
+    for (StripedWorkerThread t : workerThreads)
+    {
+      try
+      {
+        t.shutDown();
+        shards[t.getShardIndex()].signalIfParked();
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_NOTIFY_THREAD, t.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has received a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation) throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation, boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    checkNotShuttingDown();
+
+    int homeIndex = (int) ((operation.getConnectionID() & Long.MAX_VALUE) % shards.length);
+    Shard shard = reserveSlot(homeIndex);
+    if (shard == null)
+    {
+      if (!blockEnqueuingWhenFull)
+      {
+        queueFullRejects.incrementAndGet();
+        throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity));
+      }
+      shard = waitForSlot(homeIndex);
+    }
+
+    shard.queue.offer(operation);
+    shard.opsSubmitted.incrementAndGet();
+
+    // Prefer waking up the owner of the shard. If it is busy then wake up any
+    // idle thread so that it can steal the operation.
+    if (!shard.signalIfParked())
+    {
+      signalAnyParkedThread(shard.index);
+    }
+  }
+
+  private void checkNotShuttingDown() throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+    }
+  }
+
+  /**
+   * Reserves a slot in the home shard, or in the next shard having available
+   * capacity.
+   *
+   * @return the shard in which a slot has been reserved, or {@code null} if
+   *         all the shards are full.
+   */
+  private Shard reserveSlot(int homeIndex)
+  {
+    final int capacity = shardCapacity;
+    final int nbShards = shards.length;
+    for (int i = 0; i < nbShards; i++)
+    {
+      Shard shard = shards[(homeIndex + i) % nbShards];
+      if (shard.tryReserve(capacity))
+      {
+        return shard;
+      }
+    }
+    return null;
+  }
+
+  /** Blocks the submitting thread until a slot becomes available in one of the shards. */
+  private Shard waitForSlot(int homeIndex) throws DirectoryException
+  {
+    blockedSubmitters.incrementAndGet();
+    try
+    {
+      synchronized (capacityLock)
+      {
+        while (true)
+        {
+          checkNotShuttingDown();
+          Shard shard = reserveSlot(homeIndex);
+          if (shard != null)
+          {
+            return shard;
+          }
+          capacityLock.wait(TimeUnit.SECONDS.toMillis(1));
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // We cannot handle the interruption here. Reject the request and
+      // re-interrupt this thread.
+      Thread.currentThread().interrupt();
+
+      queueFullRejects.incrementAndGet();
+      throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get());
+    }
+    finally
+    {
+      blockedSubmitters.decrementAndGet();
+    }
+  }
+
+  private void signalAnyParkedThread(int fromIndex)
+  {
+    final int nbShards = shards.length;
+    for (int i = 1; i < nbShards; i++)
+    {
+      if (shards[(fromIndex + i) % nbShards].signalIfParked())
+      {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Retrieves the next operation that should be processed by the provided
+   * worker thread, blocking if necessary until a new request arrives. This
+   * method should only be called by a worker thread associated with this work
+   * queue.
+   *
+   * @param workerThread
+   *          The worker thread that is requesting the operation.
+   * @return The next operation that should be processed, or <CODE>null</CODE>
+   *         if the server is shutting down and no more operations will be
+   *         processed.
+   */
+  Operation nextOperation(StripedWorkerThread workerThread)
+  {
+    final Shard shard = shards[workerThread.getShardIndex()];
+    while (!shutdownRequested)
+    {
+      Operation operation = pollOrSteal(shard);
+      if (operation != null)
+      {
+        return operation;
+      }
+
+      // Publish that this thread is idle, then check once more for work in
+      // order to avoid missing a signal sent in the meantime.
+      shard.parked.set(true);
+      operation = pollOrSteal(shard);
+      if (operation != null)
+      {
+        if (!shard.parked.compareAndSet(true, false))
+        {
+          // A submitter has already signaled this thread: consume the permit.
+          shard.wakeUp.tryAcquire();
+        }
+        return operation;
+      }
+
+      try
+      {
+        shard.wakeUp.tryAcquire(IDLE_WAIT_SECONDS, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException ie)
+      {
+        // If this occurs, then the worker thread must have been interrupted
+        // for some reason. This could be because the Directory Server is
+        // shutting down, in which case we should return null.
+        if (shutdownRequested)
+        {
+          return null;
+        }
+        logger.warn(WARN_WORKER_INTERRUPTED_WITHOUT_SHUTDOWN, Thread.currentThread().getName(), ie);
+      }
+      finally
+      {
+        shard.parked.set(false);
+      }
+    }
+    return null;
+  }
+
+  private Operation pollOrSteal(Shard shard)
+  {
+    Operation operation = shard.poll();
+    if (operation == null)
+    {
+      final int nbShards = shards.length;
+      for (int i = 1; i < nbShards && operation == null; i++)
+      {
+        operation = shards[(shard.index + i) % nbShards].poll();
+      }
+      if (operation == null)
+      {
+        return null;
+      }
+      shard.opsStolen.incrementAndGet();
+    }
+
+    if (blockedSubmitters.get() > 0)
+    {
+      synchronized (capacityLock)
+      {
+        capacityLock.notifyAll();
+      }
+    }
+    return operation;
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    long total = 0;
+    for (Shard shard : shards)
+    {
+      total += shard.opsSubmitted.get();
+    }
+    return total;
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.get();
+  }
+
+  /**
+   * Retrieves the total number of operations that worker threads have stolen
+   * from a shard other than their own.
+   *
+   * @return The total number of operations stolen from other shards.
+   */
+  public long getOpsStolen()
+  {
+    long total = 0;
+    for (Shard shard : shards)
+    {
+      total += shard.opsStolen.get();
+    }
+    return total;
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queue that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queue that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    int total = 0;
+    for (Shard shard : shards)
+    {
+      total += shard.size.get();
+    }
+    return total;
+  }
+
+  /**
+   * Retrieves the number of pending operations in each shard of this work
+   * queue.
+   *
+   * @return The number of pending operations in each shard, indexed by shard.
+   */
+  public int[] getShardSizes()
+  {
+    int[] sizes = new int[shards.length];
+    for (int i = 0; i < shards.length; i++)
+    {
+      sizes[i] = shards[i].size.get();
+    }
+    return sizes;
+  }
+
+  /**
+   * Retrieves the number of operations that the owner of each shard has stolen
+   * from the other shards.
+   *
+   * @return The number of operations stolen by the owner of each shard,
+   *         indexed by shard.
+   */
+  public long[] getShardOpsStolen()
+  {
+    long[] stolen = new long[shards.length];
+    for (int i = 0; i < shards.length; i++)
+    {
+      stolen[i] = shards[i].opsStolen.get();
+    }
+    return stolen;
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      StripedWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(StripedWorkQueueCfg configuration)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+
+    // The shards are bound to the worker threads, so the number of threads cannot be changed on the fly.
+    int newNumThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+    if (newNumThreads != numWorkerThreads)
+    {
+      ccr.setAdminActionRequired(true);
+      ccr.addMessage(INFO_CONFIG_STRIPED_WORK_QUEUE_NUM_THREADS_REQUIRES_RESTART.get(
+          numWorkerThreads, newNumThreads));
+    }
+
+    int newMaxCapacity = configuration.getMaxWorkQueueCapacity();
+    if (newMaxCapacity != maxCapacity)
+    {
+      setMaxCapacity(newMaxCapacity);
+      synchronized (capacityLock)
+      {
+        capacityLock.notifyAll();
+      }
+    }
+    return ccr;
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    if (size() > 0)
+    {
+      return false;
+    }
+
+    for (StripedWorkerThread t : workerThreads)
+    {
+      if (t.isActive())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return numWorkerThreads;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.Map;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.Operation;
+
+/**
+ * A Directory Server worker thread servicing one shard of a
+ * {@link StripedWorkQueue}, and stealing work from the other shards when its
+ * own shard is empty.
+ */
+public class StripedWorkerThread extends DirectoryThread
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /**
+   * Indicates whether the Directory Server is shutting down and this thread
+   * should stop running.
+   */
+  private volatile boolean shutdownRequested;
+
+  /** Indicates whether this thread is currently waiting for work. */
+  private volatile boolean waitingForWork;
+
+  /** The operation that this worker thread is currently processing. */
+  private volatile Operation operation;
+
+  /** The index of the shard owned by this worker thread. */
+  private final int shardIndex;
+
+  /** The work queue that this worker thread will service. */
+  private final StripedWorkQueue workQueue;
+
+  /**
+   * Creates a new worker thread that will service the provided shard of the
+   * provided work queue.
+   *
+   * @param workQueue
+   *          The work queue with which this worker thread is associated.
+   * @param shardIndex
+   *          The index of the shard owned by this worker thread, also used as
+   *          the thread ID.
+   */
+  public StripedWorkerThread(StripedWorkQueue workQueue, int shardIndex)
+  {
+    super("Worker Thread " + shardIndex);
+    this.workQueue = workQueue;
+    this.shardIndex = shardIndex;
+  }
+
+  /**
+   * Retrieves the index of the shard owned by this worker thread.
+   *
+   * @return The index of the shard owned by this worker thread.
+   */
+  int getShardIndex()
+  {
+    return shardIndex;
+  }
+
+  /**
+   * Indicates whether this worker thread is actively processing a request.
+   * Note that this is a point-in-time determination and if a reliable answer is
+   * expected then the server should impose some external constraint to ensure
+   * that no new requests are enqueued.
+   *
+   * @return {@code true} if this worker thread is actively processing a
+   *         request, or {@code false} if it is idle.
+   */
+  public boolean isActive()
+  {
+    return isAlive() && operation != null;
+  }
+
+  /**
+   * Operates in a loop, retrieving the next request from the work queue,
+   * processing it, and then going back to the queue for more.
+   */
+  @Override
+  public void run()
+  {
+    while (!shutdownRequested)
+    {
+      try
+      {
+        waitingForWork = true;
+        operation = null; // this line is necessary because next line can block
+        operation = workQueue.nextOperation(this);
+        waitingForWork = false;
+
+        if (operation == null)
+        {
+          // The operation may be null if the server is shutting down. If that
+          // is the case, then break out of the while loop.
+          break;
+        }
+
+        operation.run();
+        operation.operationCompleted();
+      }
+      catch (Throwable t)
+      {
+        handleUncaughtException(t);
+      }
+    }
+
+    // If we have gotten here, then we presume that the server thread is
+    // shutting down. However, if that's not the case then that is a problem
+    // and we will want to log a message.
+    if (!workQueue.shutdownRequested())
+    {
+      logger.warn(WARN_UNEXPECTED_WORKER_THREAD_EXIT, getName());
+    }
+
+    if (logger.isTraceEnabled())
+    {
+      logger.trace(getName() + " exiting.");
+    }
+  }
+
+  private void handleUncaughtException(Throwable t)
+  {
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("Uncaught exception in worker thread while processing operation %s: %s", operation, t);
+      logger.traceException(t);
+    }
+
+    try
+    {
+      LocalizableMessage message =
+          ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(getName(), operation, stackTraceToSingleLineString(t));
+      logger.error(message);
+
+      // Ensure that the client receives some kind of result so that it does
+      // not hang.
+      operation.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+      operation.appendErrorMessage(message);
+      operation.getClientConnection().sendResponse(operation);
+    }
+    catch (Throwable t2)
+    {
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("Exception in worker thread while trying to log a message about an uncaught exception %s: %s",
+            t, t2);
+        logger.traceException(t2);
+      }
+    }
+
+    try
+    {
+      LocalizableMessage message =
+          ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(getName(), operation, stackTraceToSingleLineString(t));
+      operation.disconnectClient(DisconnectReason.SERVER_ERROR, true, message);
+    }
+    catch (Throwable t2)
+    {
+      logger.traceException(t2);
+    }
+  }
+
+  /**
+   * Indicates that the Directory Server has received a request to stop running
+   * and that this thread should stop running as soon as possible.
+   */
+  public void shutDown()
+  {
+    if (logger.isTraceEnabled())
+    {
+      logger.trace(getName() + " being signaled to shut down.");
+    }
+
+    // Set a flag that indicates that the thread should stop running.
+    shutdownRequested = true;
+
+    // Check to see if the thread is waiting for work. If so, then interrupt it.
+    if (waitingForWork)
+    {
+      try
+      {
+        interrupt();
+      }
+      catch (Exception e)
+      {
+        if (logger.isTraceEnabled())
+        {
+          logger.trace("Caught an exception while trying to interrupt the worker thread waiting for work: %s", e);
+          logger.traceException(e);
+        }
+      }
+    }
+    else
+    {
+      try
+      {
+        final Operation localOperation = operation;
+        if (localOperation != null)
+        {
+          CancelRequest cancelRequest = new CancelRequest(true, INFO_CANCELED_BY_SHUTDOWN.get());
+          localOperation.cancel(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        if (logger.isTraceEnabled())
+        {
+          logger.trace("Caught an exception while trying to abandon the operation in progress for the worker "
+              + "thread: %s", e);
+          logger.traceException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<String, String> getDebugProperties()
+  {
+    Map<String, String> properties = super.getDebugProperties();
+    properties.put("clientConnection", operation != null
+        ? String.valueOf(operation.getClientConnection()) : "none");
+    properties.put("operation", String.valueOf(operation));
+    properties.put("shard", String.valueOf(shardIndex));
+    return properties;
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.loggers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.api.ServerShutdownListener;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.InitializationException;
+
+/**
+ * A bounded ring buffer of log events, formatted into log records and written to a
+ * {@link MultifileTextWriter} by a dedicated writer thread.
+ * <p>
+ * The events are pre-allocated slots holding the type of the record, the time at which the event
+ * occurred and references to the objects describing it, e.g. the operation. Publishing an event
+ * does not allocate nor format anything: the publishing thread claims the next slot, fills it and
+ * publishes it. When the writer thread cannot keep up, for example because the disk stalls, the
+ * event is dropped and counted instead of blocking the publishing thread.
+ * <p>
+ * The writer thread formats all the available events into a single buffer and writes them to the
+ * underlying writer as one batch.
+ */
+final class LogEventRingBuffer implements ServerShutdownListener
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Formats the events of the ring buffer into log records. */
+  interface EventFormatter
+  {
+    /**
+     * Appends the log record for the provided event to the buffer, without any line separator.
+     *
+     * @param type
+     *          The type of the record, as provided when the event was published.
+     * @param time
+     *          The time at which the event occurred, in milliseconds.
+     * @param source
+     *          The object describing the event, e.g. the operation.
+     * @param arg1
+     *          The first additional argument of the event, may be {@code null}.
+     * @param arg2
+     *          The second additional argument of the event, may be {@code null}.
+     * @param buffer
+     *          The buffer to which the record must be appended.
+     */
+    void appendRecord(int type, long time, Object source, Object arg1, Object arg2, StringBuilder buffer);
+  }
+
+  /** A slot of the ring buffer. */
+  private static final class Event
+  {
+    /** The sequence number of the event held by this slot, set once the event is fully written. */
+    private volatile long sequence = -1;
+    private int type;
+    private long time;
+    private Object source;
+    private Object arg1;
+    private Object arg2;
+  }
+
+  /** Number of formatted characters above which a batch is written without waiting for more events. */
+  private static final int MAX_BATCH_LENGTH = 64 * 1024;
+  /** Maximum time the writer thread sleeps before checking for new events. */
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final String name;
+  private final MultifileTextWriter writer;
+  private final EventFormatter formatter;
+  private final Event[] events;
+  private final int mask;
+
+  /** The sequence number of the next event to be published. */
+  private final AtomicLong claimedSequence = new AtomicLong();
+  /** The sequence number of the next event to be written, only advanced by the writer thread. */
+  private final AtomicLong writtenSequence = new AtomicLong();
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private volatile long batchesWritten;
+
+  private volatile boolean autoFlush;
+  private volatile boolean stopRequested;
+  /** Whether the writer thread is parked and must be woken up when an event is published. */
+  private volatile boolean writerParked;
+  private final WriterThread writerThread;
+  private final RingBufferMonitor monitor;
+
+  /**
+   * Creates a new ring buffer and starts its writer thread.
+   *
+   * @param name
+   *          The name of the writer thread.
+   * @param monitorName
+   *          The name of the monitor entry exposing the state of the ring buffer.
+   * @param capacity
+   *          The minimum number of events that can be stored in the ring buffer. The actual
+   *          capacity is the next power of two.
+   * @param autoFlush
+   *          Whether the underlying writer should be flushed after each batch.
+   * @param writer
+   *          The writer to which the log records are written.
+   * @param formatter
+   *          The formatter of the events.
+   */
+  LogEventRingBuffer(String name, String monitorName, int capacity, boolean autoFlush,
+      MultifileTextWriter writer, EventFormatter formatter)
+  {
+    int powerOf2 = 1;
+    while (powerOf2 < capacity)
+    {
+      powerOf2 <<= 1;
+    }
+    this.name = name;
+    this.events = new Event[powerOf2];
+    for (int i = 0; i < powerOf2; i++)
+    {
+      this.events[i] = new Event();
+    }
+    this.mask = powerOf2 - 1;
+    this.autoFlush = autoFlush;
+    this.writer = writer;
+    this.formatter = formatter;
+
+    writerThread = new WriterThread();
+    writerThread.start();
+
+    monitor = new RingBufferMonitor(monitorName);
+    DirectoryServer.registerMonitorProvider(monitor);
+    DirectoryServer.registerShutdownListener(this);
+  }
+
+  /**
+   * Publishes an event to the ring buffer.
+   *
+   * @param type
+   *          The type of the record to format for the event.
+   * @param time
+   *          The time at which the event occurred, in milliseconds.
+   * @param source
+   *          The object describing the event, e.g. the operation.
+   * @param arg1
+   *          The first additional argument of the event, may be {@code null}.
+   * @param arg2
+   *          The second additional argument of the event, may be {@code null}.
+   * @return {@code true} if the event was published, {@code false} if it was dropped because the
+   *         ring buffer is full or stopped
+   */
+  boolean publish(int type, long time, Object source, Object arg1, Object arg2)
+  {
+    if (stopRequested)
+    {
+      return false;
+    }
+
+    long sequence;
+    do
+    {
+      sequence = claimedSequence.get();
+      if (sequence - writtenSequence.get() >= events.length)
+      {
+        droppedEvents.incrementAndGet();
+        return false;
+      }
+    }
+    while (!claimedSequence.compareAndSet(sequence, sequence + 1));
+
+    final Event event = events[(int) sequence & mask];
+    event.type = type;
+    event.time = time;
+    event.source = source;
+    event.arg1 = arg1;
+    event.arg2 = arg2;
+    event.sequence = sequence;
+
+    if (writerParked)
+    {
+      LockSupport.unpark(writerThread);
+    }
+    return true;
+  }
+
+  /**
+   * Sets whether the underlying writer should be flushed after each batch.
+   *
+   * @param autoFlush
+   *          Whether the underlying writer should be flushed after each batch.
+   */
+  void setAutoFlush(boolean autoFlush)
+  {
+    this.autoFlush = autoFlush;
+  }
+
+  /**
+   * Returns the number of events which could be stored in this ring buffer.
+   *
+   * @return The number of events which could be stored in this ring buffer.
+   */
+  int getCapacity()
+  {
+    return events.length;
+  }
+
+  /**
+   * Returns the number of events published and not written yet.
+   *
+   * @return The number of events published and not written yet.
+   */
+  long getBacklog()
+  {
+    return Math.max(claimedSequence.get() - writtenSequence.get(), 0);
+  }
+
+  /**
+   * Returns the number of events published to this ring buffer.
+   *
+   * @return The number of events published to this ring buffer.
+   */
+  long getPublishedCount()
+  {
+    return claimedSequence.get();
+  }
+
+  /**
+   * Returns the number of events dropped because this ring buffer was full.
+   *
+   * @return The number of events dropped because this ring buffer was full.
+   */
+  long getDroppedCount()
+  {
+    return droppedEvents.get();
+  }
+
+  /** The writer thread formats and writes the published events. */
+  private class WriterThread extends DirectoryThread
+  {
+    private final StringBuilder batch = new StringBuilder(MAX_BATCH_LENGTH + 1024);
+    private char[] chars = new char[MAX_BATCH_LENGTH + 1024];
+    /** The sequence number of the next event to format. */
+    private long nextSequence;
+
+    WriterThread()
+    {
+      super(name);
+    }
+
+    @Override
+    public void run()
+    {
+      while (true)
+      {
+        if (appendAvailableEvents())
+        {
+          writeBatch();
+        }
+        else if (stopRequested && nextSequence == claimedSequence.get())
+        {
+          return;
+        }
+        else
+        {
+          writerParked = true;
+          // Check again, a publisher may have missed the flag
+          if (!isAvailable())
+          {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+          }
+          writerParked = false;
+        }
+      }
+    }
+
+    private boolean isAvailable()
+    {
+      return events[(int) nextSequence & mask].sequence == nextSequence;
+    }
+
+    /** Formats the available events into the batch, returns whether some events were formatted. */
+    private boolean appendAvailableEvents()
+    {
+      boolean found = false;
+      while (batch.length() < MAX_BATCH_LENGTH && isAvailable())
+      {
+        final Event event = events[(int) nextSequence & mask];
+        final int length = batch.length();
+        try
+        {
+          formatter.appendRecord(event.type, event.time, event.source, event.arg1, event.arg2, batch);
+          batch.append(LINE_SEPARATOR);
+        }
+        catch (RuntimeException e)
+        {
+          logger.traceException(e);
+          batch.setLength(length);
+        }
+        event.source = null;
+        event.arg1 = null;
+        event.arg2 = null;
+        nextSequence++;
+        writtenSequence.lazySet(nextSequence);
+        found = true;
+      }
+      return found;
+    }
+
+    private void writeBatch()
+    {
+      final int length = batch.length();
+      if (length > 0)
+      {
+        if (chars.length < length)
+        {
+          chars = new char[length];
+        }
+        batch.getChars(0, length, chars, 0);
+        writer.writeRecords(chars, length);
+        if (autoFlush)
+        {
+          writer.flush();
+        }
+        batch.setLength(0);
+        batchesWritten++;
+      }
+    }
+  }
+
+  @Override
+  public String getShutdownListenerName()
+  {
+    return "LogEventRingBuffer Thread " + name;
+  }
+
+  @Override
+  public void processServerShutdown(LocalizableMessage reason)
+  {
+    // Don't shutdown the wrapped writer on server shutdown as it
+    // might get more write requests before the log publishers are
+    // manually shutdown just before the server process exists.
+    shutdown();
+  }
+
+  /** Stops the writer thread once all the published events have been written. */
+  void shutdown()
+  {
+    stopRequested = true;
+    LockSupport.unpark(writerThread);
+
+    while (writerThread.isAlive())
+    {
+      try
+      {
+        writerThread.join();
+      }
+      catch (InterruptedException e)
+      {
+        // Ignore; we gotta wait..
+      }
+    }
+    writer.flush();
+
+    DirectoryServer.deregisterMonitorProvider(monitor);
+    DirectoryServer.deregisterShutdownListener(this);
+  }
+
+  /** Monitor exposing the state of the ring buffer, including the number of dropped events. */
+  private final class RingBufferMonitor extends MonitorProvider<MonitorProviderCfg>
+  {
+    private final String monitorName;
+
+    RingBufferMonitor(String monitorName)
+    {
+      this.monitorName = monitorName;
+    }
+
+    @Override
+    public void initializeMonitorProvider(MonitorProviderCfg configuration)
+        throws ConfigException, InitializationException
+    {
+      // No initialization is required.
+    }
+
+    @Override
+    public String getMonitorInstanceName()
+    {
+      return monitorName;
+    }
+
+    @Override
+    public MonitorData getMonitorData()
+    {
+      final MonitorData monitorAttrs = new MonitorData(5);
+      monitorAttrs.add("capacity", getCapacity());
+      monitorAttrs.add("currentEventBacklog", getBacklog());
+      monitorAttrs.add("eventsPublished", getPublishedCount());
+      monitorAttrs.add("eventsDropped", getDroppedCount());
+      monitorAttrs.add("batchesWritten", batchesWritten);
+      return monitorAttrs;
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.loggers;
 
@@ -562,6 +563,49 @@ class MultifileTextWriter
     }
   }
 
+  /**
+   * Write a batch of log records to the file at once. Each record of the
+   * batch must be terminated by a line separator.
+   *
+   * @param records the characters of the log records to write.
+   * @param length the number of characters to write.
+   */
+  void writeRecords(char[] records, int length)
+  {
+    // Assume each character is 1 byte ASCII
+    int size = length;
+    for (int i = 0; i < length; i++)
+    {
+      char c = records[i];
+      if (c > 0x7F)
+      {
+        size += c > 0x7FF ? 2 : 1;
+      }
+    }
+
+    synchronized(this)
+    {
+      if(sizeLimit > 0 && outputStream.written + size >= sizeLimit)
+      {
+        rotate();
+      }
+
+      try
+      {
+        writer.write(records, 0, length);
+      }
+      catch(Exception e)
+      {
+        errorHandler.handleWriteError(new String(records, 0, length), e);
+      }
+
+      if(autoFlush)
+      {
+        flush();
+      }
+    }
+  }
+
   @Override
   public void flush()
   {
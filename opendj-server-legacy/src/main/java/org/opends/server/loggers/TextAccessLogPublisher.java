@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.loggers;
 
@@ -23,6 +24,7 @@ import static org.opends.server.util.StaticUtils.*;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -35,6 +37,7 @@ import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.util.Utils;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.server.config.meta.FileBasedAccessLogPublisherCfgDefn.AsynchronousMode;
 import org.forgerock.opendj.server.config.meta.FileBasedAccessLogPublisherCfgDefn.LogFormat;
 import org.forgerock.opendj.server.config.server.FileBasedAccessLogPublisherCfg;
 import org.opends.server.api.ClientConnection;
@@ -73,6 +76,71 @@ public final class TextAccessLogPublisher extends
   /** The category to use when logging requests. */
   private static final String CATEGORY_REQUEST = "REQ";
 
+  /** The types of the access log records. */
+  private enum RecordType
+  {
+    ABANDON_REQUEST(100), ABANDON_RESULT(100),
+    ADD_REQUEST(100), ADD_RESPONSE(100),
+    BIND_REQUEST(100), BIND_RESPONSE(100),
+    COMPARE_REQUEST(100), COMPARE_RESPONSE(100),
+    CONNECT(100),
+    DELETE_REQUEST(100), DELETE_RESPONSE(100),
+    DISCONNECT(100),
+    EXTENDED_REQUEST(100), EXTENDED_RESPONSE(100),
+    MODIFY_DN_REQUEST(100), MODIFY_DN_RESPONSE(100),
+    MODIFY_REQUEST(100), MODIFY_RESPONSE(100),
+    SEARCH_REQUEST(192), SEARCH_RESULT_DONE(128),
+    UNBIND(100);
+
+    private static final RecordType[] VALUES = values();
+
+    /** The initial capacity of the buffer used to format a record of this type. */
+    private final int initialCapacity;
+
+    private RecordType(final int initialCapacity)
+    {
+      this.initialCapacity = initialCapacity;
+    }
+  }
+
+  /**
+   * Formats the events published to the event ring buffer. It is only used by the writer thread of
+   * the ring buffer, which formats the time stamps itself since they are not the current time.
+   */
+  private final class RingBufferEventFormatter implements LogEventRingBuffer.EventFormatter
+  {
+    private String format;
+    private SimpleDateFormat dateFormat;
+    private long lastTime = -1;
+    private String lastTimeStamp;
+
+    @Override
+    public void appendRecord(final int type, final long time, final Object source, final Object arg1,
+        final Object arg2, final StringBuilder buffer)
+    {
+      TextAccessLogPublisher.this.appendRecord(RecordType.VALUES[type], getTimeStamp(time), source, arg1, arg2,
+          buffer);
+    }
+
+    private String getTimeStamp(final long time)
+    {
+      final String currentFormat = timeStampFormat;
+      if (!currentFormat.equals(format))
+      {
+        format = currentFormat;
+        dateFormat = new SimpleDateFormat(currentFormat);
+        lastTime = -1;
+      }
+      // The time is provided by the time thread, so consecutive events usually share the same time
+      if (time != lastTime)
+      {
+        lastTime = time;
+        lastTimeStamp = dateFormat.format(new Date(time));
+      }
+      return lastTimeStamp;
+    }
+  }
+
   /**
    * Returns an instance of the text access log publisher that will print all
    * messages to the provided writer. This is used to print the messages to the
@@ -95,6 +163,8 @@ public final class TextAccessLogPublisher extends
   }
 
   private TextWriter writer;
+  /** The event ring buffer, only used when the ring buffer asynchronous mode is configured. */
+  private LogEventRingBuffer eventRingBuffer;
   private FileBasedAccessLogPublisherCfg cfg;
   private boolean isCombinedMode;
   private boolean includeControlOIDs;
@@ -125,7 +195,20 @@ public final class TextAccessLogPublisher extends
         final MultifileTextWriter mfWriter = (MultifileTextWriter) currentWriter;
         configure(mfWriter, config);
 
-        if (config.isAsynchronous())
+        if (eventRingBuffer != null)
+        {
+          // The ring buffer is only created or removed when the publisher is restarted
+          eventRingBuffer.setAutoFlush(config.isAutoFlush());
+          if (!isRingBufferMode(config) || cfg.getQueueSize() != config.getQueueSize())
+          {
+            ccr.setAdminActionRequired(true);
+          }
+        }
+        else if (isRingBufferMode(config))
+        {
+          ccr.setAdminActionRequired(true);
+        }
+        else if (config.isAsynchronous())
         {
           if (writer instanceof AsynchronousTextWriter)
           {
@@ -242,7 +325,14 @@ public final class TextAccessLogPublisher extends
         theWriter.addRetentionPolicy(DirectoryServer.getRetentionPolicy(dn));
       }
 
-      if (cfg.isAsynchronous())
+      if (isRingBufferMode(cfg))
+      {
+        this.writer = theWriter;
+        this.eventRingBuffer = new LogEventRingBuffer("Event Ring Buffer Writer for " + cfg.dn(),
+            cfg.dn().rdn().getFirstAVA().getAttributeValue() + " Event Ring Buffer",
+            cfg.getQueueSize(), cfg.isAutoFlush(), theWriter, new RingBufferEventFormatter());
+      }
+      else if (cfg.isAsynchronous())
       {
         this.writer = newAsyncWriter(theWriter, cfg);
       }
@@ -282,6 +372,11 @@ public final class TextAccessLogPublisher extends
     return !cfg.dn().equals(newConfig.dn()) && cfg.isAutoFlush() != newConfig.isAutoFlush();
   }
 
+  private boolean isRingBufferMode(FileBasedAccessLogPublisherCfg config)
+  {
+    return config.isAsynchronous() && config.getAsynchronousMode() == AsynchronousMode.RING_BUFFER;
+  }
+
   private AsynchronousTextWriter newAsyncWriter(MultifileTextWriter mfWriter, FileBasedAccessLogPublisherCfg config)
   {
     String name = "Asynchronous Text Writer for " + config.dn();
@@ -343,10 +438,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(abandonOperation, "ABANDON", CATEGORY_REQUEST, buffer);
-    appendAbandonRequest(abandonOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.ABANDON_REQUEST, abandonOperation, null, null);
   }
 
   @Override
@@ -357,16 +449,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(abandonOperation, "ABANDON", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendAbandonRequest(abandonOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, abandonOperation);
-    logAdditionalLogItems(abandonOperation, buffer);
-    appendEtime(buffer, abandonOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.ABANDON_RESULT, abandonOperation, null, null);
   }
 
   @Override
@@ -377,10 +460,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(addOperation, "ADD", CATEGORY_REQUEST, buffer);
-    appendAddRequest(addOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.ADD_REQUEST, addOperation, null, null);
   }
 
   @Override
@@ -391,17 +471,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(addOperation, "ADD", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendAddRequest(addOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, addOperation);
-    logAdditionalLogItems(addOperation, buffer);
-    appendLabelIfNotNull(buffer, "authzDN", addOperation.getProxiedAuthorizationDN());
-    appendEtime(buffer, addOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.ADD_RESPONSE, addOperation, null, null);
   }
 
   @Override
@@ -412,10 +482,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(bindOperation, "BIND", CATEGORY_REQUEST, buffer);
-    appendBindRequest(bindOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.BIND_REQUEST, bindOperation, null, null);
   }
 
   @Override
@@ -426,59 +493,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(bindOperation, "BIND", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendBindRequest(bindOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, bindOperation);
-
-    final LocalizableMessage failureMessage = bindOperation.getAuthFailureReason();
-    if (failureMessage != null)
-    {
-      // this code path is mutually exclusive with the if result code is success down below
-      appendLabel(buffer, "authFailureReason", failureMessage);
-      if (bindOperation.getSASLMechanism() != null
-          && bindOperation.getSASLAuthUserEntry() != null)
-      { // SASL bind and we have successfully found a user entry for auth
-        appendLabel(buffer, "authDN", bindOperation.getSASLAuthUserEntry().getName());
-      }
-      else
-      { // SASL bind failed to find user entry for auth or simple bind
-        appendLabel(buffer, "authDN", bindOperation.getRawBindDN());
-      }
-    }
-
-    logAdditionalLogItems(bindOperation, buffer);
-
-    if (bindOperation.getResultCode() == ResultCode.SUCCESS)
-    {
-      // this code path is mutually exclusive with the if failure message that exists just above
-      final AuthenticationInfo authInfo = bindOperation.getAuthenticationInfo();
-      if (authInfo != null)
-      {
-        final DN authDN = authInfo.getAuthenticationDN();
-        if (authDN != null)
-        {
-          appendLabel(buffer, "authDN", authDN);
-
-          final DN authzDN = authInfo.getAuthorizationDN();
-          if (!authDN.equals(authzDN))
-          {
-            appendLabel(buffer, "authzDN", authzDN);
-          }
-        }
-        else
-        {
-          buffer.append(" authDN=\"\"");
-        }
-      }
-    }
-
-    appendEtime(buffer, bindOperation);
-
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.BIND_RESPONSE, bindOperation, null, null);
   }
 
   @Override
@@ -489,10 +504,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(compareOperation, "COMPARE", CATEGORY_REQUEST, buffer);
-    appendCompareRequest(compareOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.COMPARE_REQUEST, compareOperation, null, null);
   }
 
   @Override
@@ -503,17 +515,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(compareOperation, "COMPARE", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendCompareRequest(compareOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, compareOperation);
-    logAdditionalLogItems(compareOperation, buffer);
-    appendLabelIfNotNull(buffer, "authzDN", compareOperation.getProxiedAuthorizationDN());
-    appendEtime(buffer, compareOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.COMPARE_RESPONSE, compareOperation, null, null);
   }
 
   @Override
@@ -524,15 +526,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final long connectionID = clientConnection.getConnectionID();
-    final StringBuilder buffer = new StringBuilder(100);
-    buffer.append('[').append(TimeThread.getUserDefinedTime(timeStampFormat)).append(']');
-    buffer.append(" CONNECT conn=").append(connectionID);
-    buffer.append(" from=").append(clientConnection.getClientHostPort());
-    buffer.append(" to=").append(clientConnection.getServerHostPort());
-    buffer.append(" protocol=").append(clientConnection.getProtocol());
-
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.CONNECT, clientConnection, null, null);
   }
 
   @Override
@@ -543,10 +537,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(deleteOperation, "DELETE", CATEGORY_REQUEST, buffer);
-    appendDeleteRequest(deleteOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.DELETE_REQUEST, deleteOperation, null, null);
   }
 
   @Override
@@ -557,17 +548,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(deleteOperation, "DELETE", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendDeleteRequest(deleteOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, deleteOperation);
-    logAdditionalLogItems(deleteOperation, buffer);
-    appendLabelIfNotNull(buffer, "authzDN", deleteOperation.getProxiedAuthorizationDN());
-    appendEtime(buffer, deleteOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.DELETE_RESPONSE, deleteOperation, null, null);
   }
 
   @Override
@@ -579,14 +560,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final long connectionID = clientConnection.getConnectionID();
-    final StringBuilder buffer = new StringBuilder(100);
-    buffer.append('[').append(TimeThread.getUserDefinedTime(timeStampFormat)).append(']');
-    buffer.append(" DISCONNECT conn=").append(connectionID);
-    appendLabel(buffer, "reason", disconnectReason);
-    appendLabelIfNotNull(buffer, "msg", message);
-
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.DISCONNECT, clientConnection, disconnectReason, message);
   }
 
   @Override
@@ -597,10 +571,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(extendedOperation, "EXTENDED", CATEGORY_REQUEST, buffer);
-    appendExtendedRequest(extendedOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.EXTENDED_REQUEST, extendedOperation, null, null);
   }
 
   @Override
@@ -611,30 +582,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(extendedOperation, "EXTENDED", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendExtendedRequest(extendedOperation, buffer);
-    }
-
-    final String oid = extendedOperation.getResponseOID();
-    if (oid != null)
-    {
-      final ExtendedOperationHandler<?> extOpHandler = DirectoryServer
-          .getExtendedOperationHandler(oid);
-      if (extOpHandler != null)
-      {
-        String name = extOpHandler.getExtendedOperationName();
-        appendLabelIfNotNull(buffer, "name", name);
-      }
-      appendLabel(buffer, "oid", oid);
-    }
-    appendResultCodeAndMessage(buffer, extendedOperation);
-    logAdditionalLogItems(extendedOperation, buffer);
-    appendEtime(buffer, extendedOperation);
-
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.EXTENDED_RESPONSE, extendedOperation, null, null);
   }
 
   @Override
@@ -645,10 +593,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(modifyDNOperation, "MODIFYDN", CATEGORY_REQUEST, buffer);
-    appendModifyDNRequest(modifyDNOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.MODIFY_DN_REQUEST, modifyDNOperation, null, null);
   }
 
   @Override
@@ -659,17 +604,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(modifyDNOperation, "MODIFYDN", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendModifyDNRequest(modifyDNOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, modifyDNOperation);
-    logAdditionalLogItems(modifyDNOperation, buffer);
-    appendLabelIfNotNull(buffer, "authzDN", modifyDNOperation.getProxiedAuthorizationDN());
-    appendEtime(buffer, modifyDNOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.MODIFY_DN_RESPONSE, modifyDNOperation, null, null);
   }
 
   @Override
@@ -680,10 +615,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(modifyOperation, "MODIFY", CATEGORY_REQUEST, buffer);
-    appendModifyRequest(modifyOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.MODIFY_REQUEST, modifyOperation, null, null);
   }
 
   @Override
@@ -694,17 +626,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(modifyOperation, "MODIFY", CATEGORY_RESPONSE, buffer);
-    if (isCombinedMode)
-    {
-      appendModifyRequest(modifyOperation, buffer);
-    }
-    appendResultCodeAndMessage(buffer, modifyOperation);
-    logAdditionalLogItems(modifyOperation, buffer);
-    appendLabelIfNotNull(buffer, "authzDN", modifyOperation.getProxiedAuthorizationDN());
-    appendEtime(buffer, modifyOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.MODIFY_RESPONSE, modifyOperation, null, null);
   }
 
   @Override
@@ -715,10 +637,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(192);
-    appendHeader(searchOperation, "SEARCH", CATEGORY_REQUEST, buffer);
-    appendSearchRequest(searchOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(RecordType.SEARCH_REQUEST, searchOperation, null, null);
   }
 
   @Override
@@ -729,8 +648,309 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(128);
-    appendHeader(searchOperation, "SEARCH", CATEGORY_RESPONSE, buffer);
+    writeRecord(RecordType.SEARCH_RESULT_DONE, searchOperation, null, null);
+  }
+
+  @Override
+  public void logUnbind(final UnbindOperation unbindOperation)
+  {
+    if (!isRequestLoggable(unbindOperation))
+    {
+      return;
+    }
+
+    writeRecord(RecordType.UNBIND, unbindOperation, null, null);
+  }
+
+  /**
+   * Writes the record for an event. When the event ring buffer is used, the formatting of the
+   * record is deferred to the writer thread of the ring buffer.
+   */
+  private void writeRecord(final RecordType type, final Object source, final Object arg1, final Object arg2)
+  {
+    final LogEventRingBuffer ringBuffer = eventRingBuffer;
+    if (ringBuffer != null)
+    {
+      ringBuffer.publish(type.ordinal(), TimeThread.getTime(), source, arg1, arg2);
+      return;
+    }
+
+    final StringBuilder buffer = new StringBuilder(type.initialCapacity);
+    appendRecord(type, TimeThread.getUserDefinedTime(timeStampFormat), source, arg1, arg2, buffer);
+    writer.writeRecord(buffer.toString());
+  }
+
+  private void appendRecord(final RecordType type, final String timeStamp, final Object source,
+      final Object arg1, final Object arg2, final StringBuilder buffer)
+  {
+    switch (type)
+    {
+    case ABANDON_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "ABANDON", CATEGORY_REQUEST, buffer);
+      appendAbandonRequest((AbandonOperation) source, buffer);
+      break;
+    case ABANDON_RESULT:
+      appendAbandonResult(timeStamp, (AbandonOperation) source, buffer);
+      break;
+    case ADD_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "ADD", CATEGORY_REQUEST, buffer);
+      appendAddRequest((AddOperation) source, buffer);
+      break;
+    case ADD_RESPONSE:
+      appendAddResponse(timeStamp, (AddOperation) source, buffer);
+      break;
+    case BIND_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "BIND", CATEGORY_REQUEST, buffer);
+      appendBindRequest((BindOperation) source, buffer);
+      break;
+    case BIND_RESPONSE:
+      appendBindResponse(timeStamp, (BindOperation) source, buffer);
+      break;
+    case COMPARE_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "COMPARE", CATEGORY_REQUEST, buffer);
+      appendCompareRequest((CompareOperation) source, buffer);
+      break;
+    case COMPARE_RESPONSE:
+      appendCompareResponse(timeStamp, (CompareOperation) source, buffer);
+      break;
+    case CONNECT:
+      appendConnect(timeStamp, (ClientConnection) source, buffer);
+      break;
+    case DELETE_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "DELETE", CATEGORY_REQUEST, buffer);
+      appendDeleteRequest((DeleteOperation) source, buffer);
+      break;
+    case DELETE_RESPONSE:
+      appendDeleteResponse(timeStamp, (DeleteOperation) source, buffer);
+      break;
+    case DISCONNECT:
+      appendDisconnect(timeStamp, (ClientConnection) source, (DisconnectReason) arg1, (LocalizableMessage) arg2,
+          buffer);
+      break;
+    case EXTENDED_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "EXTENDED", CATEGORY_REQUEST, buffer);
+      appendExtendedRequest((ExtendedOperation) source, buffer);
+      break;
+    case EXTENDED_RESPONSE:
+      appendExtendedResponse(timeStamp, (ExtendedOperation) source, buffer);
+      break;
+    case MODIFY_DN_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "MODIFYDN", CATEGORY_REQUEST, buffer);
+      appendModifyDNRequest((ModifyDNOperation) source, buffer);
+      break;
+    case MODIFY_DN_RESPONSE:
+      appendModifyDNResponse(timeStamp, (ModifyDNOperation) source, buffer);
+      break;
+    case MODIFY_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "MODIFY", CATEGORY_REQUEST, buffer);
+      appendModifyRequest((ModifyOperation) source, buffer);
+      break;
+    case MODIFY_RESPONSE:
+      appendModifyResponse(timeStamp, (ModifyOperation) source, buffer);
+      break;
+    case SEARCH_REQUEST:
+      appendHeader(timeStamp, (Operation) source, "SEARCH", CATEGORY_REQUEST, buffer);
+      appendSearchRequest((SearchOperation) source, buffer);
+      break;
+    case SEARCH_RESULT_DONE:
+      appendSearchResultDone(timeStamp, (SearchOperation) source, buffer);
+      break;
+    case UNBIND:
+      appendUnbind(timeStamp, (UnbindOperation) source, buffer);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown record type " + type);
+    }
+  }
+
+  private void appendAbandonResult(final String timeStamp, final AbandonOperation abandonOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, abandonOperation, "ABANDON", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendAbandonRequest(abandonOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, abandonOperation);
+    logAdditionalLogItems(abandonOperation, buffer);
+    appendEtime(buffer, abandonOperation);
+  }
+
+  private void appendAddResponse(final String timeStamp, final AddOperation addOperation, final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, addOperation, "ADD", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendAddRequest(addOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, addOperation);
+    logAdditionalLogItems(addOperation, buffer);
+    appendLabelIfNotNull(buffer, "authzDN", addOperation.getProxiedAuthorizationDN());
+    appendEtime(buffer, addOperation);
+  }
+
+  private void appendBindResponse(final String timeStamp, final BindOperation bindOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, bindOperation, "BIND", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendBindRequest(bindOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, bindOperation);
+
+    final LocalizableMessage failureMessage = bindOperation.getAuthFailureReason();
+    if (failureMessage != null)
+    {
+      // this code path is mutually exclusive with the if result code is success down below
+      appendLabel(buffer, "authFailureReason", failureMessage);
+      if (bindOperation.getSASLMechanism() != null
+          && bindOperation.getSASLAuthUserEntry() != null)
+      { // SASL bind and we have successfully found a user entry for auth
+        appendLabel(buffer, "authDN", bindOperation.getSASLAuthUserEntry().getName());
+      }
+      else
+      { // SASL bind failed to find user entry for auth or simple bind
+        appendLabel(buffer, "authDN", bindOperation.getRawBindDN());
+      }
+    }
+
+    logAdditionalLogItems(bindOperation, buffer);
+
+    if (bindOperation.getResultCode() == ResultCode.SUCCESS)
+    {
+      // this code path is mutually exclusive with the if failure message that exists just above
+      final AuthenticationInfo authInfo = bindOperation.getAuthenticationInfo();
+      if (authInfo != null)
+      {
+        final DN authDN = authInfo.getAuthenticationDN();
+        if (authDN != null)
+        {
+          appendLabel(buffer, "authDN", authDN);
+
+          final DN authzDN = authInfo.getAuthorizationDN();
+          if (!authDN.equals(authzDN))
+          {
+            appendLabel(buffer, "authzDN", authzDN);
+          }
+        }
+        else
+        {
+          buffer.append(" authDN=\"\"");
+        }
+      }
+    }
+
+    appendEtime(buffer, bindOperation);
+  }
+
+  private void appendCompareResponse(final String timeStamp, final CompareOperation compareOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, compareOperation, "COMPARE", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendCompareRequest(compareOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, compareOperation);
+    logAdditionalLogItems(compareOperation, buffer);
+    appendLabelIfNotNull(buffer, "authzDN", compareOperation.getProxiedAuthorizationDN());
+    appendEtime(buffer, compareOperation);
+  }
+
+  private void appendConnect(final String timeStamp, final ClientConnection clientConnection,
+      final StringBuilder buffer)
+  {
+    final long connectionID = clientConnection.getConnectionID();
+    buffer.append('[').append(timeStamp).append(']');
+    buffer.append(" CONNECT conn=").append(connectionID);
+    buffer.append(" from=").append(clientConnection.getClientHostPort());
+    buffer.append(" to=").append(clientConnection.getServerHostPort());
+    buffer.append(" protocol=").append(clientConnection.getProtocol());
+  }
+
+  private void appendDeleteResponse(final String timeStamp, final DeleteOperation deleteOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, deleteOperation, "DELETE", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendDeleteRequest(deleteOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, deleteOperation);
+    logAdditionalLogItems(deleteOperation, buffer);
+    appendLabelIfNotNull(buffer, "authzDN", deleteOperation.getProxiedAuthorizationDN());
+    appendEtime(buffer, deleteOperation);
+  }
+
+  private void appendDisconnect(final String timeStamp, final ClientConnection clientConnection,
+      final DisconnectReason disconnectReason, final LocalizableMessage message, final StringBuilder buffer)
+  {
+    final long connectionID = clientConnection.getConnectionID();
+    buffer.append('[').append(timeStamp).append(']');
+    buffer.append(" DISCONNECT conn=").append(connectionID);
+    appendLabel(buffer, "reason", disconnectReason);
+    appendLabelIfNotNull(buffer, "msg", message);
+  }
+
+  private void appendExtendedResponse(final String timeStamp, final ExtendedOperation extendedOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, extendedOperation, "EXTENDED", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendExtendedRequest(extendedOperation, buffer);
+    }
+
+    final String oid = extendedOperation.getResponseOID();
+    if (oid != null)
+    {
+      final ExtendedOperationHandler<?> extOpHandler = DirectoryServer
+          .getExtendedOperationHandler(oid);
+      if (extOpHandler != null)
+      {
+        String name = extOpHandler.getExtendedOperationName();
+        appendLabelIfNotNull(buffer, "name", name);
+      }
+      appendLabel(buffer, "oid", oid);
+    }
+    appendResultCodeAndMessage(buffer, extendedOperation);
+    logAdditionalLogItems(extendedOperation, buffer);
+    appendEtime(buffer, extendedOperation);
+  }
+
+  private void appendModifyDNResponse(final String timeStamp, final ModifyDNOperation modifyDNOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, modifyDNOperation, "MODIFYDN", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendModifyDNRequest(modifyDNOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, modifyDNOperation);
+    logAdditionalLogItems(modifyDNOperation, buffer);
+    appendLabelIfNotNull(buffer, "authzDN", modifyDNOperation.getProxiedAuthorizationDN());
+    appendEtime(buffer, modifyDNOperation);
+  }
+
+  private void appendModifyResponse(final String timeStamp, final ModifyOperation modifyOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, modifyOperation, "MODIFY", CATEGORY_RESPONSE, buffer);
+    if (isCombinedMode)
+    {
+      appendModifyRequest(modifyOperation, buffer);
+    }
+    appendResultCodeAndMessage(buffer, modifyOperation);
+    logAdditionalLogItems(modifyOperation, buffer);
+    appendLabelIfNotNull(buffer, "authzDN", modifyOperation.getProxiedAuthorizationDN());
+    appendEtime(buffer, modifyOperation);
+  }
+
+  private void appendSearchResultDone(final String timeStamp, final SearchOperation searchOperation,
+      final StringBuilder buffer)
+  {
+    appendHeader(timeStamp, searchOperation, "SEARCH", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
       appendSearchRequest(searchOperation, buffer);
@@ -740,30 +960,25 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(searchOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", searchOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, searchOperation);
-    writer.writeRecord(buffer.toString());
   }
 
-  @Override
-  public void logUnbind(final UnbindOperation unbindOperation)
+  private void appendUnbind(final String timeStamp, final UnbindOperation unbindOperation,
+      final StringBuilder buffer)
   {
-    if (!isRequestLoggable(unbindOperation))
-    {
-      return;
-    }
-
-    final StringBuilder buffer = new StringBuilder(100);
-    appendHeader(unbindOperation, "UNBIND", CATEGORY_REQUEST, buffer);
+    appendHeader(timeStamp, unbindOperation, "UNBIND", CATEGORY_REQUEST, buffer);
     if (unbindOperation.isSynchronizationOperation())
     {
       buffer.append(" type=synchronization");
     }
-
-    writer.writeRecord(buffer.toString());
   }
 
   @Override
   protected void close0()
   {
+    if (eventRingBuffer != null)
+    {
+      eventRingBuffer.shutdown();
+    }
     writer.shutdown();
     TimeThread.removeUserDefinedFormatter(timeStampFormat);
     if (cfg != null)
@@ -918,10 +1133,10 @@ public final class TextAccessLogPublisher extends
   }
 
   /** Appends the common log header information to the provided buffer. */
-  private void appendHeader(final Operation operation, final String opType,
+  private void appendHeader(final String timeStamp, final Operation operation, final String opType,
       final String category, final StringBuilder buffer)
   {
-    buffer.append('[').append(TimeThread.getUserDefinedTime(timeStampFormat)).append("] ");
+    buffer.append('[').append(timeStamp).append("] ");
     buffer.append(opType);
     if (!isCombinedMode)
     {
@@ -0,0 +1,80 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.monitors;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.LockManager;
+
+/**
+ * This class defines a Directory Server monitor that provides information about the contention
+ * observed by the lock manager used for locking entries and subtrees.
+ */
+public class LockManagerMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  /** The name of the attribute used to provide the lock table implementation. */
+  public static final String ATTR_IMPLEMENTATION = "implementation";
+  /** The name of the attribute used to provide the number of lock attempts which had to wait. */
+  public static final String ATTR_LOCK_WAITS = "lockWaits";
+  /** The name of the attribute used to provide the number of lock attempts which timed out. */
+  public static final String ATTR_LOCK_TIMEOUTS = "lockTimeouts";
+  /** The name of the attribute used to provide the maximum lock table chain length. */
+  public static final String ATTR_MAX_CHAIN_LENGTH = "maxLockChainLength";
+  /** The name of the attribute used to provide the current number of locks in the lock table. */
+  public static final String ATTR_LOCK_TABLE_SIZE = "currentLockTableSize";
+
+  /** The lock manager with which this monitor is associated. */
+  private final LockManager lockManager;
+
+  /**
+   * Creates a new monitor for the provided lock manager.
+   *
+   * @param lockManager
+   *          The lock manager with which this monitor is associated.
+   */
+  public LockManagerMonitor(LockManager lockManager)
+  {
+    this.lockManager = lockManager;
+  }
+
+  @Override
+  public void initializeMonitorProvider(MonitorProviderCfg configuration)
+         throws ConfigException, InitializationException
+  {
+    // No initialization is required.
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Lock Manager";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final MonitorData monitorAttrs = new MonitorData(5);
+    monitorAttrs.add(ATTR_IMPLEMENTATION, lockManager.getImplementation().name().toLowerCase());
+    monitorAttrs.add(ATTR_LOCK_WAITS, lockManager.getLockWaitCount());
+    monitorAttrs.add(ATTR_LOCK_TIMEOUTS, lockManager.getLockTimeoutCount());
+    monitorAttrs.add(ATTR_MAX_CHAIN_LENGTH, lockManager.getMaxChainLength());
+    monitorAttrs.add(ATTR_LOCK_TABLE_SIZE, lockManager.getLockTableSize());
+    return monitorAttrs;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.monitors;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.extensions.StripedWorkQueue;
+import org.opends.server.types.InitializationException;
+
+/**
+ * This class defines a Directory Server monitor that can be used to provide
+ * information about the state of the striped work queue, including the
+ * backlog and the number of stolen requests of each of its shards.
+ */
+public class StripedWorkQueueMonitor
+       extends MonitorProvider<MonitorProviderCfg>
+       implements Runnable
+{
+  /** The name to use for the monitor attribute that provides the current request backlog. */
+  public static final String ATTR_CURRENT_BACKLOG = TraditionalWorkQueueMonitor.ATTR_CURRENT_BACKLOG;
+  /** The name to use for the monitor attribute that provides the average request backlog. */
+  public static final String ATTR_AVERAGE_BACKLOG = TraditionalWorkQueueMonitor.ATTR_AVERAGE_BACKLOG;
+  /**
+   * The name to use for the monitor attribute that provides the maximum
+   * observed request backlog.
+   */
+  public static final String ATTR_MAX_BACKLOG = TraditionalWorkQueueMonitor.ATTR_MAX_BACKLOG;
+  /**
+   * The name to use for the monitor attribute that provides the total number of
+   * operations submitted.
+   */
+  public static final String ATTR_OPS_SUBMITTED = TraditionalWorkQueueMonitor.ATTR_OPS_SUBMITTED;
+  /**
+   * The name to use for the monitor attribute that provides the total number of
+   * requests that have been rejected because the work queue was full.
+   */
+  public static final String ATTR_OPS_REJECTED_QUEUE_FULL = TraditionalWorkQueueMonitor.ATTR_OPS_REJECTED_QUEUE_FULL;
+  /**
+   * The name to use for the monitor attribute that provides the total number of
+   * requests which have been stolen by a worker thread from another shard.
+   */
+  public static final String ATTR_OPS_STOLEN = "requestsStolen";
+  /**
+   * The prefix of the monitor attributes providing the current request backlog
+   * of each shard. The shard index is appended to the prefix.
+   */
+  public static final String ATTR_SHARD_BACKLOG_PREFIX = "currentRequestBacklogShard";
+  /**
+   * The prefix of the monitor attributes providing the number of requests stolen
+   * by the worker thread of each shard. The shard index is appended to the prefix.
+   */
+  public static final String ATTR_SHARD_OPS_STOLEN_PREFIX = "requestsStolenShard";
+
+  /** The maximum backlog observed by polling the queue. */
+  private int maxBacklog;
+  /** The total number of times the backlog has been polled. */
+  private long numPolls;
+  /** The total backlog observed from periodic polling. */
+  private long totalBacklog;
+  /** The striped work queue instance with which this monitor is associated. */
+  private final StripedWorkQueue workQueue;
+
+  /**
+   * Initializes this monitor provider. Note that no initialization should be
+   * done here, since it should be performed in the
+   * <CODE>initializeMonitorProvider</CODE> class.
+   *
+   * @param workQueue
+   *          The work queue with which this monitor is associated.
+   */
+  public StripedWorkQueueMonitor(StripedWorkQueue workQueue)
+  {
+    this.workQueue = workQueue;
+  }
+
+  @Override
+  public void initializeMonitorProvider(MonitorProviderCfg configuration)
+         throws ConfigException, InitializationException
+  {
+    maxBacklog   = 0;
+    totalBacklog = 0;
+    numPolls     = 0;
+    scheduleUpdate(this, 0, 10, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Work Queue";
+  }
+
+  @Override
+  public synchronized void run()
+  {
+    pollBacklog();
+  }
+
+  private int pollBacklog()
+  {
+    int backlog = workQueue.size();
+    totalBacklog += backlog;
+    numPolls++;
+    if (backlog > maxBacklog)
+    {
+      maxBacklog = backlog;
+    }
+    return backlog;
+  }
+
+  @Override
+  public synchronized MonitorData getMonitorData()
+  {
+    int backlog = pollBacklog();
+    long averageBacklog = (long) (1.0 * totalBacklog / numPolls);
+    int[] shardSizes = workQueue.getShardSizes();
+    long[] shardOpsStolen = workQueue.getShardOpsStolen();
+
+    final MonitorData monitorAttrs = new MonitorData(6 + 2 * shardSizes.length);
+    monitorAttrs.add(ATTR_CURRENT_BACKLOG, backlog);
+    monitorAttrs.add(ATTR_AVERAGE_BACKLOG, averageBacklog);
+    monitorAttrs.add(ATTR_MAX_BACKLOG, maxBacklog);
+    monitorAttrs.add(ATTR_OPS_SUBMITTED, workQueue.getOpsSubmitted());
+    monitorAttrs.add(ATTR_OPS_REJECTED_QUEUE_FULL, workQueue.getOpsRejectedDueToQueueFull());
+    monitorAttrs.add(ATTR_OPS_STOLEN, workQueue.getOpsStolen());
+    for (int i = 0; i < shardSizes.length; i++)
+    {
+      monitorAttrs.add(ATTR_SHARD_BACKLOG_PREFIX + i, shardSizes[i]);
+      monitorAttrs.add(ATTR_SHARD_OPS_STOLEN_PREFIX + i, shardOpsStolen[i]);
+    }
+    return monitorAttrs;
+  }
+}
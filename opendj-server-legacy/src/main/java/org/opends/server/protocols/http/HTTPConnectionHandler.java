@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.http;
 
@@ -231,6 +232,11 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
       }
     }
 
+    if (this.currentConfig.getLatencyHistogramResetInterval() != config.getLatencyHistogramResetInterval())
+    {
+      statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
+    }
+
     this.initConfig = config;
     this.currentConfig = config;
     this.enabled = this.currentConfig.isEnabled();
@@ -439,6 +445,7 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
 
     // Create and register monitors.
     statTracker = new HTTPStatistics(handlerName + " Statistics");
+    statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
     DirectoryServer.registerMonitorProvider(statTracker);
 
     connMonitor = new ClientConnectionMonitorProvider(this);
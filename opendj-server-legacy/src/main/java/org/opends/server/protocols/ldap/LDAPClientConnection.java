@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -28,10 +29,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
-import java.nio.ByteBuffer;
-import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
-import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.security.cert.Certificate;
@@ -42,8 +40,6 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import javax.net.ssl.SSLException;
 
@@ -82,6 +78,7 @@ import org.opends.server.types.CancelResult;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.IntermediateResponse;
 import org.opends.server.types.Operation;
 import org.opends.server.types.OperationType;
@@ -146,166 +143,6 @@ public final class LDAPClientConnection extends ClientConnection implements
     }
   }
 
-  /**
-   * Channel that writes the contents of the provided buffer to the client,
-   * throwing an exception if the write is unsuccessful for too
-   * long (e.g., if the client is unresponsive or there is a network
-   * problem). If possible, it will attempt to use the selector returned
-   * by the {@code ClientConnection.getWriteSelector} method, but it is
-   * capable of working even if that method returns {@code null}. <BR>
-   *
-   * Note that the original position and limit values will not be
-   * preserved, so if that is important to the caller, then it should
-   * record them before calling this method and restore them after it
-   * returns.
-   */
-  private class TimeoutWriteByteChannel implements ByteChannel
-  {
-    /** Synchronize concurrent writes to the same connection. */
-    private final Lock writeLock = new ReentrantLock();
-
-    @Override
-    public int read(ByteBuffer byteBuffer) throws IOException
-    {
-      int bytesRead = clientChannel.read(byteBuffer);
-      if (bytesRead > 0 && keepStats)
-      {
-        statTracker.updateBytesRead(bytesRead);
-      }
-      return bytesRead;
-    }
-
-    @Override
-    public boolean isOpen()
-    {
-      return clientChannel.isOpen();
-    }
-
-    @Override
-    public void close() throws IOException
-    {
-      clientChannel.close();
-    }
-
-    @Override
-    public int write(ByteBuffer byteBuffer) throws IOException
-    {
-      writeLock.lock();
-      try
-      {
-        int bytesToWrite = byteBuffer.remaining();
-        int bytesWritten = clientChannel.write(byteBuffer);
-        if (bytesWritten > 0 && keepStats)
-        {
-          statTracker.updateBytesWritten(bytesWritten);
-        }
-        if (!byteBuffer.hasRemaining())
-        {
-          return bytesToWrite;
-        }
-
-        long startTime = System.currentTimeMillis();
-        long waitTime = getMaxBlockedWriteTimeLimit();
-        if (waitTime <= 0)
-        {
-          // We won't support an infinite time limit, so fall back to using
-          // five minutes, which is a very long timeout given that we're
-          // blocking a worker thread.
-          waitTime = 300000L;
-        }
-        long stopTime = startTime + waitTime;
-
-        Selector selector = getWriteSelector();
-        if (selector == null)
-        {
-          // The client connection does not provide a selector, so we'll
-          // fall back to a more inefficient way that will work without a
-          // selector.
-          while (byteBuffer.hasRemaining()
-              && System.currentTimeMillis() < stopTime)
-          {
-            bytesWritten = clientChannel.write(byteBuffer);
-            if (bytesWritten < 0)
-            {
-              // The client connection has been closed.
-              throw new ClosedChannelException();
-            }
-            if (bytesWritten > 0 && keepStats)
-            {
-              statTracker.updateBytesWritten(bytesWritten);
-            }
-          }
-
-          if (byteBuffer.hasRemaining())
-          {
-            // If we've gotten here, then the write timed out.
-            throw new ClosedChannelException();
-          }
-
-          return bytesToWrite;
-        }
-
-        // Register with the selector for handling write operations.
-        SelectionKey key = clientChannel.register(selector,
-            SelectionKey.OP_WRITE);
-        try
-        {
-          selector.select(waitTime);
-          while (byteBuffer.hasRemaining())
-          {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime >= stopTime)
-            {
-              // We've been blocked for too long.
-              throw new ClosedChannelException();
-            }
-            waitTime = stopTime - currentTime;
-
-            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
-            while (iterator.hasNext())
-            {
-              SelectionKey k = iterator.next();
-              if (k.isWritable())
-              {
-                bytesWritten = clientChannel.write(byteBuffer);
-                if (bytesWritten < 0)
-                {
-                  // The client connection has been closed.
-                  throw new ClosedChannelException();
-                }
-                if (bytesWritten > 0 && keepStats)
-                {
-                  statTracker.updateBytesWritten(bytesWritten);
-                }
-
-                iterator.remove();
-              }
-            }
-
-            if (byteBuffer.hasRemaining())
-            {
-              selector.select(waitTime);
-            }
-          }
-
-          return bytesToWrite;
-        }
-        finally
-        {
-          if (key.isValid())
-          {
-            key.cancel();
-            selector.selectNow();
-          }
-        }
-      }
-      finally
-      {
-        writeLock.unlock();
-      }
-    }
-  }
-
   /** The tracer object for the debug logger. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -409,8 +246,10 @@ public final class LDAPClientConnection extends ClientConnection implements
 
   /** The socket channel with which this client connection is associated. */
   private final SocketChannel clientChannel;
-  /** The byte channel used for blocking writes with time out. */
-  private final ByteChannel timeoutClientChannel;
+  /** The byte channel used for queued writes, blocking with time out when too much data is queued. */
+  private final TimeoutWriteByteChannel timeoutClientChannel;
+  /** The request handler with which the socket channel is registered, if any. */
+  private volatile LDAPRequestHandler requestHandler;
 
   /** The string representation of the address of the client. */
   private final String clientAddress;
@@ -444,7 +283,6 @@ public final class LDAPClientConnection extends ClientConnection implements
   {
     this.connectionHandler = connectionHandler;
     this.clientChannel = clientChannel;
-    timeoutClientChannel = new TimeoutWriteByteChannel();
     opsInProgressLock = new Object();
     ldapVersion = 3;
     lastCompletionTime = new AtomicLong(TimeThread.getTime());
@@ -473,6 +311,38 @@ public final class LDAPClientConnection extends ClientConnection implements
     {
       this.useNanoTime = false;
     }
+    timeoutClientChannel = new TimeoutWriteByteChannel(clientChannel, keepStats ? statTracker : null)
+    {
+      @Override
+      boolean canScheduleFlush()
+      {
+        return requestHandler != null;
+      }
+
+      @Override
+      void scheduleFlush()
+      {
+        requestHandler.registerWriteInterest(LDAPClientConnection.this);
+      }
+
+      @Override
+      long getMaxQueuedWriteSize()
+      {
+        return LDAPClientConnection.this.getMaxQueuedWriteSize();
+      }
+
+      @Override
+      long getMaxBlockedWriteTimeLimit()
+      {
+        return LDAPClientConnection.this.getMaxBlockedWriteTimeLimit();
+      }
+
+      @Override
+      Selector getWriteSelector()
+      {
+        return LDAPClientConnection.this.getWriteSelector();
+      }
+    };
 
     bufferSize = connectionHandler.getBufferSize();
 
@@ -844,6 +714,20 @@ public final class LDAPClientConnection extends ClientConnection implements
         protocolOp, searchEntry.getControls()));
   }
 
+  @Override
+  public boolean canSendEncodedSearchEntries()
+  {
+    // LDAPv2 clients need the attributes with options to be merged
+    return ldapVersion == 3;
+  }
+
+  @Override
+  public void sendEncodedSearchEntry(SearchOperation searchOperation, EncodedEntry encodedEntry)
+  {
+    sendLDAPMessage(new LDAPMessage(searchOperation.getMessageID(),
+        new SearchResultEntryProtocolOp(encodedEntry), null));
+  }
+
   /**
    * Sends the provided search result reference to the client.
    *
@@ -1021,6 +905,10 @@ public final class LDAPClientConnection extends ClientConnection implements
     cancelAllOperations(new CancelRequest(true, cancelMessage));
     finalizeConnectionInternal();
 
+    // From now on, do not block this thread, which may be a request handler,
+    // waiting for the client to read its responses.
+    timeoutClientChannel.startClosing();
+
     // If there is a write selector for this connection, then close it.
     Selector selector = writeSelector.get();
     close(selector);
@@ -1049,6 +937,13 @@ public final class LDAPClientConnection extends ClientConnection implements
       }
     }
 
+    // Write what the client accepts right away, the rest is lost with the connection.
+    final long discardedBytes = timeoutClientChannel.discardQueue();
+    if (discardedBytes > 0)
+    {
+      logger.warn(WARN_LDAP_CLIENT_DISCARDED_QUEUED_DATA, discardedBytes, connectionID, clientAddress);
+    }
+
     // Enqueue the connection channels for closing by the finalizer.
     Runnable r = new ConnectionFinalizerJob(asn1Reader, clientChannel);
     connectionHandler.registerConnectionFinalizer(r);
@@ -1413,6 +1308,11 @@ public final class LDAPClientConnection extends ClientConnection implements
     return connectionHandler.getMaxBlockedWriteTimeLimit();
   }
 
+  private long getMaxQueuedWriteSize()
+  {
+    return connectionHandler.getMaxQueuedWriteSize();
+  }
+
   /**
    * Returns the total number of operations initiated on this
    * connection.
@@ -1487,6 +1387,42 @@ public final class LDAPClientConnection extends ClientConnection implements
     }
   }
 
+  /**
+   * Process the client channel becoming writable, by writing the
+   * responses queued for this connection.
+   *
+   * @return {@code true} if the request handler no longer needs to watch
+   *         the client channel for writability, or {@code false} if
+   *         some responses are still queued.
+   */
+  boolean processDataWrite()
+  {
+    try
+    {
+      return timeoutClientChannel.flushQueue();
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      disconnect(DisconnectReason.IO_ERROR, false,
+          ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
+      return true;
+    }
+  }
+
+  /**
+   * Sets the request handler with which the socket channel of this
+   * connection has been registered, and which flushes the responses
+   * queued for this connection.
+   *
+   * @param requestHandler
+   *          The request handler of this connection.
+   */
+  void setRequestHandler(LDAPRequestHandler requestHandler)
+  {
+    this.requestHandler = requestHandler;
+  }
+
   /**
    * Processes the provided LDAP message read from the client and takes
    * whatever action is appropriate. For most requests, this will
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -284,6 +285,10 @@ public final class LDAPConnectionHandler extends
     {
       statTracker.clearStatistics();
     }
+    if (currentConfig.getLatencyHistogramResetInterval() != config.getLatencyHistogramResetInterval())
+    {
+      statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
+    }
 
     // Apply the changes.
     currentConfig = config;
@@ -504,6 +509,19 @@ public final class LDAPConnectionHandler extends
     return currentConfig.getMaxBlockedWriteTimeLimit();
   }
 
+  /**
+   * Retrieves the maximum number of bytes of LDAP response messages that can be
+   * queued for a client connection before the threads sending responses to this
+   * client are blocked.
+   *
+   * @return The maximum number of bytes of LDAP response messages that can be
+   *         queued for a client connection.
+   */
+  public long getMaxQueuedWriteSize()
+  {
+    return currentConfig.getMaxQueuedWriteSize();
+  }
+
   /**
    * Retrieves the maximum ASN.1 element value length that will be allowed by
    * this connection handler.
@@ -672,6 +690,7 @@ public final class LDAPConnectionHandler extends
 
     // Create and register monitors.
     statTracker = new LDAPStatistics(handlerName + " Statistics");
+    statTracker.setLatencyHistogramResetInterval(config.getLatencyHistogramResetInterval());
     DirectoryServer.registerMonitorProvider(statTracker);
 
     connMonitor = new ClientConnectionMonitorProvider(this);
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -30,6 +31,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -68,6 +71,8 @@ public class LDAPRequestHandler
 
   /** Lock object for synchronizing access to the pending connections queue. */
   private final Object pendingConnectionsLock = new Object();
+  /** The connections with queued responses that need to be watched for writability. */
+  private final Queue<LDAPClientConnection> pendingWriteConnections = new ConcurrentLinkedQueue<>();
   /** The list of connections ready for request processing. */
   private final LinkedList<LDAPClientConnection> readyConnections = new LinkedList<>();
   /** The selector that will be used to monitor the client connections. */
@@ -221,6 +226,7 @@ public class LDAPRequestHandler
             SocketChannel socketChannel = c.getSocketChannel();
             socketChannel.configureBlocking(false);
             socketChannel.register(selector, SelectionKey.OP_READ, c);
+            c.setRequestHandler(this);
             logConnect(c);
           }
           catch (Exception e)
@@ -233,6 +239,25 @@ public class LDAPRequestHandler
         }
       }
 
+      // Watch for writability the connections which have queued responses.
+      LDAPClientConnection writeConnection;
+      while ((writeConnection = pendingWriteConnections.poll()) != null)
+      {
+        SelectionKey key = writeConnection.getSocketChannel().keyFor(selector);
+        try
+        {
+          if (key != null && key.isValid())
+          {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+          }
+        }
+        catch (CancelledKeyException cke)
+        {
+          // The connection has been closed in the meantime.
+          logger.traceException(cke);
+        }
+      }
+
       // Create a copy of the selection keys which can be used in a
       // thread-safe manner by getClientConnections. This copy is only
       // updated once per loop, so may not be accurate.
@@ -266,6 +291,15 @@ public class LDAPRequestHandler
 
           try
           {
+            if (key.isWritable())
+            {
+              LDAPClientConnection clientConnection = (LDAPClientConnection) key.attachment();
+              if (clientConnection.processDataWrite() && key.isValid())
+              {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+              }
+            }
+
             if (key.isReadable())
             {
               LDAPClientConnection clientConnection = null;
@@ -430,6 +464,21 @@ public class LDAPRequestHandler
 
 
 
+  /**
+   * Asks this request handler to flush the responses queued for the provided
+   * client connection as soon as its channel becomes writable.
+   *
+   * @param clientConnection
+   *          The client connection with queued responses.
+   */
+  void registerWriteInterest(LDAPClientConnection clientConnection)
+  {
+    pendingWriteConnections.add(clientConnection);
+    selector.wakeup();
+  }
+
+
+
   /**
    * Retrieves the set of all client connections that are currently registered
    * with this request handler.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -30,6 +31,7 @@ import org.opends.server.api.MonitorData;
 import org.opends.server.api.MonitorProvider;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.types.OperationType;
+import org.opends.server.util.TimeThread;
 
 /**
  * This class defines a data structure that will be used to keep track
@@ -46,6 +48,8 @@ import org.opends.server.types.OperationType;
  * broken down by message type.</LI>
  * <LI>The total number of bytes read from LDAP clients.</LI>
  * <LI>The total number of bytes written to LDAP clients.</LI>
+ * <LI>The number, total time and latency percentiles of the operations
+ * processed, broken down by operation type.</LI>
  * </UL>
  * <BR>
  * <BR>
@@ -116,6 +120,23 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
   private AtomicLong extOperationCount = new AtomicLong(0);
   private AtomicLong extOperationTime = new AtomicLong(0);
 
+  // Monitor Objects : for Operations (latency histograms)
+  private final LatencyHistogram addOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram searchOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram delOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram bindOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram unbindOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram compOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram modOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram moddnOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram abandonOperationLatencies = new LatencyHistogram();
+  private final LatencyHistogram extOperationLatencies = new LatencyHistogram();
+
+  /** Interval in milliseconds between two resets of the latency histograms, 0 to never reset them. */
+  private volatile long latencyHistogramResetInterval;
+  /** Time in milliseconds of the next reset of the latency histograms. */
+  private final AtomicLong nextLatencyHistogramReset = new AtomicLong(Long.MAX_VALUE);
+
   /**
    * Creates a new instance of this class with the specified parent.
    *
@@ -167,7 +188,8 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
      *        and associated with their objectclass
      *        OC_MONITOR_CONNHANDLERSTATS
      */
-    final MonitorData attrs = new MonitorData(31 + 10 * 2);
+    resetLatencyHistogramsIfExpired();
+    final MonitorData attrs = new MonitorData(31 + 10 * 7);
     attrs.add("connectionsEstablished", connectionsEstablished);
     attrs.add("connectionsClosed", connectionsClosed);
     attrs.add("bytesRead", bytesRead);
@@ -203,42 +225,52 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
     // adds
     attrs.add("ds-mon-add-operations-total-count", addOperationCount);
     attrs.add("ds-mon-resident-time-add-operations-total-time", addOperationTime);
+    addLatencyPercentiles(attrs, "add", addOperationLatencies);
 
     // search
     attrs.add("ds-mon-search-operations-total-count", searchOperationCount);
     attrs.add("ds-mon-resident-time-search-operations-total-time", searchOperationTime);
+    addLatencyPercentiles(attrs, "search", searchOperationLatencies);
 
     // bind
     attrs.add("ds-mon-bind-operations-total-count", bindOperationCount);
     attrs.add("ds-mon-resident-time-bind-operations-total-time", bindOperationTime);
+    addLatencyPercentiles(attrs, "bind", bindOperationLatencies);
 
     // unbind
     attrs.add("ds-mon-unbind-operations-total-count", unbindOperationCount);
     attrs.add("ds-mon-resident-time-unbind-operations-total-time", unbindOperationTime);
+    addLatencyPercentiles(attrs, "unbind", unbindOperationLatencies);
 
     // compare
     attrs.add("ds-mon-compare-operations-total-count", compOperationCount);
     attrs.add("ds-mon-resident-time-compare-operations-total-time", compOperationTime);
+    addLatencyPercentiles(attrs, "compare", compOperationLatencies);
 
     // del
     attrs.add("ds-mon-delete-operations-total-count", delOperationCount);
     attrs.add("ds-mon-resident-time-delete-operations-total-time", delOperationTime);
+    addLatencyPercentiles(attrs, "delete", delOperationLatencies);
 
     // mod
     attrs.add("ds-mon-mod-operations-total-count", modOperationCount);
     attrs.add("ds-mon-resident-time-mod-operations-total-time", modOperationTime);
+    addLatencyPercentiles(attrs, "mod", modOperationLatencies);
 
     // moddn
     attrs.add("ds-mon-moddn-operations-total-count", moddnOperationCount);
     attrs.add("ds-mon-resident-time-moddn-operations-total-time", moddnOperationTime);
+    addLatencyPercentiles(attrs, "moddn", moddnOperationLatencies);
 
     // abandon
     attrs.add("ds-mon-abandon-operations-total-count", abandonOperationCount);
     attrs.add("ds-mon-resident-time-abandon-operations-total-time", abandonOperationTime);
+    addLatencyPercentiles(attrs, "abandon", abandonOperationLatencies);
 
     // extended
     attrs.add("ds-mon-extended-operations-total-count", extOperationCount);
     attrs.add("ds-mon-resident-time-extended-operations-total-time", extOperationTime);
+    addLatencyPercentiles(attrs, "extended", extOperationLatencies);
 
     return attrs;
   }
@@ -298,6 +330,63 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
       abandonOperationTime.set(0);
       extOperationCount.set(0);
       extOperationTime.set(0);
+
+      resetLatencyHistograms();
+  }
+
+  /**
+   * Sets the interval between two resets of the latency histograms, so the
+   * published percentiles reflect the recent latencies rather than the whole
+   * life of the connection handler.
+   *
+   * @param interval
+   *          The interval in milliseconds, or 0 to never reset the latency
+   *          histograms.
+   */
+  public void setLatencyHistogramResetInterval(long interval)
+  {
+    latencyHistogramResetInterval = interval;
+    nextLatencyHistogramReset.set(interval > 0 ? TimeThread.getTime() + interval : Long.MAX_VALUE);
+  }
+
+  private void resetLatencyHistogramsIfExpired()
+  {
+    final long nextReset = nextLatencyHistogramReset.get();
+    if (nextReset == Long.MAX_VALUE)
+    {
+      return;
+    }
+    final long now = TimeThread.getTime();
+    if (now >= nextReset
+        && nextLatencyHistogramReset.compareAndSet(nextReset, now + latencyHistogramResetInterval))
+    {
+      resetLatencyHistograms();
+    }
+  }
+
+  private void resetLatencyHistograms()
+  {
+      addOperationLatencies.reset();
+      searchOperationLatencies.reset();
+      delOperationLatencies.reset();
+      bindOperationLatencies.reset();
+      unbindOperationLatencies.reset();
+      compOperationLatencies.reset();
+      modOperationLatencies.reset();
+      moddnOperationLatencies.reset();
+      abandonOperationLatencies.reset();
+      extOperationLatencies.reset();
+  }
+
+  private static void addLatencyPercentiles(MonitorData attrs, String operationName, LatencyHistogram latencies)
+  {
+    final long[] percentiles = latencies.getPercentiles(0.5, 0.9, 0.99, 0.999);
+    final String prefix = "ds-mon-resident-time-" + operationName + "-operations-";
+    attrs.add(prefix + "p50", percentiles[0]);
+    attrs.add(prefix + "p90", percentiles[1]);
+    attrs.add(prefix + "p99", percentiles[2]);
+    attrs.add(prefix + "p999", percentiles[3]);
+    attrs.add(prefix + "max", latencies.getMax());
   }
 
   /**
@@ -810,51 +899,63 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
   }
 
   /**
-   * Update the operation counters and times depending on the OperationType.
+   * Update the operation counters, times and latency histograms depending on
+   * the OperationType.
    * @param type of the operation.
    * @param time of the operation execution.
    */
 
   public void updateOperationMonitoringData(OperationType type, long time) {
+      resetLatencyHistogramsIfExpired();
       if (type.equals(OperationType.ADD)) {
           addOperationCount.getAndIncrement();
           addOperationTime.getAndAdd(time);
+          addOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.SEARCH)) {
           searchOperationCount.getAndIncrement();
           searchOperationTime.getAndAdd(time);
+          searchOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.ABANDON)) {
           abandonOperationCount.getAndIncrement();
           abandonOperationTime.getAndAdd(time);
+          abandonOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.BIND)) {
           bindOperationCount.getAndIncrement();
           bindOperationTime.getAndAdd(time);
+          bindOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.UNBIND)) {
           unbindOperationCount.getAndIncrement();
           unbindOperationTime.getAndAdd(time);
+          unbindOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.COMPARE)) {
           compOperationCount.getAndIncrement();
           compOperationTime.getAndAdd(time);
+          compOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.DELETE)) {
           delOperationCount.getAndIncrement();
           delOperationTime.getAndAdd(time);
+          delOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.EXTENDED)) {
           extOperationCount.getAndIncrement();
           extOperationTime.getAndAdd(time);
+          extOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.MODIFY)) {
           modOperationCount.getAndIncrement();
           modOperationTime.getAndAdd(time);
+          modOperationLatencies.record(time);
       }
       else if (type.equals(OperationType.MODIFY_DN)) {
           moddnOperationCount.getAndIncrement();
           moddnOperationTime.getAndAdd(time);
+          moddnOperationLatencies.record(time);
       }
   }
 }
@@ -0,0 +1,156 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of operation latencies with logarithmic buckets, used to compute latency percentiles.
+ * <p>
+ * Each power of 2 is split into {@value #SUB_BUCKETS} linear sub-buckets, so a recorded value is
+ * known with a relative error below 1/{@value #SUB_BUCKETS} whatever its magnitude, and values
+ * lower than {@value #SUB_BUCKETS} are exact. The buckets are counted in several stripes selected
+ * by the recording thread, which keeps the worker threads from contending on the same counters.
+ * Percentiles are computed from the sum of the stripes when the monitor data is read.
+ */
+final class LatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** Largest exponent tracked, larger values are counted in the last bucket. */
+  private static final int MAX_EXPONENT = 40;
+  private static final long MAX_TRACKED_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int NB_BUCKETS = getBucket(MAX_TRACKED_VALUE) + 1;
+  private static final int MAX_STRIPES = 8;
+
+  private final int stripeMask;
+  /** Bucket counts, laid out stripe after stripe. */
+  private final AtomicLongArray counts;
+  private final AtomicLong max = new AtomicLong();
+
+  /** Creates an empty histogram. */
+  LatencyHistogram()
+  {
+    final int nbCpus = Runtime.getRuntime().availableProcessors();
+    final int nbStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(nbCpus, 1) * 2 - 1));
+    stripeMask = nbStripes - 1;
+    counts = new AtomicLongArray(nbStripes * NB_BUCKETS);
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param value
+   *          The latency to record, negative values are recorded as 0.
+   */
+  void record(long value)
+  {
+    final long v = Math.max(value, 0);
+    final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+    counts.incrementAndGet(stripe * NB_BUCKETS + getBucket(Math.min(v, MAX_TRACKED_VALUE)));
+    long current = max.get();
+    while (v > current && !max.compareAndSet(current, v))
+    {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the latencies below which the provided fractions of the recorded latencies fall.
+   * <p>
+   * The returned latencies are the highest value of the bucket containing the percentile, bounded
+   * by the largest recorded latency, so they never underestimate the actual percentile by more
+   * than the precision of the histogram.
+   *
+   * @param fractions
+   *          The fractions of the recorded latencies, in increasing order, between 0 and 1.
+   * @return The latencies for each of the provided fractions, or zeros if nothing was recorded.
+   */
+  long[] getPercentiles(double... fractions)
+  {
+    final long[] buckets = new long[NB_BUCKETS];
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++)
+    {
+      final long count = counts.get(i);
+      buckets[i % NB_BUCKETS] += count;
+      total += count;
+    }
+    final long[] results = new long[fractions.length];
+    if (total == 0)
+    {
+      return results;
+    }
+    final long maxValue = max.get();
+    long cumulated = 0;
+    int bucket = 0;
+    for (int i = 0; i < fractions.length; i++)
+    {
+      final long rank = Math.max((long) Math.ceil(fractions[i] * total), 1);
+      while (bucket < NB_BUCKETS - 1 && cumulated + buckets[bucket] < rank)
+      {
+        cumulated += buckets[bucket];
+        bucket++;
+      }
+      // The last bucket also counts the values larger than the tracked ones
+      results[i] = bucket < NB_BUCKETS - 1 ? Math.min(getHighestValue(bucket), maxValue) : maxValue;
+    }
+    return results;
+  }
+
+  /**
+   * Returns the largest latency recorded.
+   *
+   * @return The largest latency recorded, or 0 if nothing was recorded.
+   */
+  long getMax()
+  {
+    return max.get();
+  }
+
+  /** Forgets all the recorded latencies. */
+  void reset()
+  {
+    for (int i = 0; i < counts.length(); i++)
+    {
+      counts.set(i, 0);
+    }
+    max.set(0);
+  }
+
+  private static int getBucket(long value)
+  {
+    if (value < SUB_BUCKETS)
+    {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  private static long getHighestValue(int bucket)
+  {
+    if (bucket < SUB_BUCKETS)
+    {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long lowestValue = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+    return lowestValue + (1L << shift) - 1;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -23,12 +24,14 @@ import static org.opends.server.util.StaticUtils.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.io.ASN1Writer;
 import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.Base64;
@@ -39,6 +42,8 @@ import org.forgerock.opendj.ldap.schema.ObjectClass;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.AttributeBuilder;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.EncodedEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.LDAPException;
 import org.opends.server.types.SearchResultEntry;
@@ -51,15 +56,20 @@ import org.opends.server.types.SearchResultEntry;
 public class SearchResultEntryProtocolOp
        extends ProtocolOp
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
   /** The set of attributes for this search entry. */
   private LinkedList<LDAPAttribute> attributes;
 
   /** The DN for this search entry. */
-  private final DN dn;
+  private DN dn;
 
   /** The underlying search result entry. */
   private SearchResultEntry entry;
 
+  /** The underlying encoded entry, written without being decoded. */
+  private EncodedEntry encodedEntry;
+
   /** The LDAP version (determines how attribute options are handled). */
   private final int ldapVersion;
 
@@ -123,6 +133,23 @@ public class SearchResultEntryProtocolOp
 
 
 
+  /**
+   * Creates a new LDAPv3 search result entry protocol op returning the
+   * objectClass and the real user attributes of the provided encoded entry.
+   * The entry is not decoded, unless the attributes of this protocol op are
+   * retrieved.
+   *
+   * @param  encodedEntry  The encoded entry to use to create this search
+   *                       result entry protocol op.
+   */
+  public SearchResultEntryProtocolOp(EncodedEntry encodedEntry)
+  {
+    this(null, null, null, 3);
+    this.encodedEntry = encodedEntry;
+  }
+
+
+
   /** Generic constructor. */
   private SearchResultEntryProtocolOp(DN dn,
       LinkedList<LDAPAttribute> attributes, SearchResultEntry searchEntry,
@@ -143,6 +170,10 @@ public class SearchResultEntryProtocolOp
    */
   public DN getDN()
   {
+    if (dn == null && encodedEntry != null)
+    {
+      dn = encodedEntry.getName();
+    }
     return dn;
   }
 
@@ -159,6 +190,21 @@ public class SearchResultEntryProtocolOp
     if (tmp == null)
     {
       tmp = new LinkedList<>();
+      if (encodedEntry != null)
+      {
+        // Decode the DN before releasing the encoded entry
+        getDN();
+        try
+        {
+          entry = new SearchResultEntry(encodedEntry.decodeEntry().filterEntry(
+              Collections.<String> emptySet(), false, false, true));
+        }
+        catch (DirectoryException e)
+        {
+          logger.traceException(e);
+        }
+        encodedEntry = null;
+      }
       if (entry != null)
       {
         if (ldapVersion == 2)
@@ -252,6 +298,12 @@ public class SearchResultEntryProtocolOp
   @Override
   public void write(ASN1Writer stream) throws IOException
   {
+    if (encodedEntry != null)
+    {
+      writeEncodedEntry(stream, encodedEntry);
+      return;
+    }
+
     stream.writeStartSequence(OP_TYPE_SEARCH_RESULT_ENTRY);
     stream.writeOctetString(dn.toString());
 
@@ -291,6 +343,27 @@ public class SearchResultEntryProtocolOp
 
 
 
+  private static void writeEncodedEntry(ASN1Writer stream, EncodedEntry encodedEntry) throws IOException
+  {
+    stream.writeStartSequence(OP_TYPE_SEARCH_RESULT_ENTRY);
+    stream.writeOctetString(encodedEntry.getNameBytes());
+
+    stream.writeStartSequence();
+    try
+    {
+      encodedEntry.writeUserAttributes(stream);
+    }
+    catch (DirectoryException e)
+    {
+      throw new IOException(e.getMessage(), e);
+    }
+    stream.writeEndSequence();
+
+    stream.writeEndSequence();
+  }
+
+
+
   /**
    * Appends a string representation of this LDAP protocol op to the provided
    * buffer.
@@ -301,7 +374,7 @@ public class SearchResultEntryProtocolOp
   public void toString(StringBuilder buffer)
   {
     buffer.append("SearchResultEntry(dn=");
-    buffer.append(dn);
+    buffer.append(getDN());
     buffer.append(", attrs={");
 
     LinkedList<LDAPAttribute> tmp = getAttributes();
@@ -345,7 +418,7 @@ public class SearchResultEntryProtocolOp
 
     buffer.append(indentBuf);
     buffer.append("  DN:  ");
-    buffer.append(dn);
+    buffer.append(getDN());
     buffer.append(EOL);
 
     buffer.append("  Attributes:");
@@ -368,7 +441,7 @@ public class SearchResultEntryProtocolOp
   public void toLDIF(StringBuilder buffer, int wrapColumn)
   {
     // Add the DN to the buffer.
-    String dnString = dn.toString();
+    String dnString = getDN().toString();
     int    colsRemaining;
     if (needsBase64Encoding(dnString))
     {
@@ -0,0 +1,408 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2006-2010 Sun Microsystems, Inc.
+ * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+
+/**
+ * Channel that writes the contents of the provided buffers to the client
+ * through an output queue, so that worker threads are not blocked by clients
+ * slowly reading their responses. <BR>
+ *
+ * Data is written immediately when nothing is queued for the connection.
+ * Otherwise, or when the client does not accept all the data, the remaining
+ * data is appended to the output queue and the request handler of the
+ * connection flushes the queue with gathering writes as soon as the client
+ * channel becomes writable. As TLS and SASL security providers write their
+ * encrypted records through this channel, these records are coalesced the
+ * same way. <BR>
+ *
+ * Threads writing to the connection only block when the queued data exceeds
+ * the maximum queued write size of the connection handler, or when the
+ * connection is not registered with a request handler yet. They then write
+ * the whole queue, throwing an exception if the write is unsuccessful for too
+ * long (e.g., if the client is unresponsive or there is a network problem).
+ * If possible, it will attempt to use the selector returned by the
+ * {@link #getWriteSelector()} method, but it is capable of working even if
+ * that method returns {@code null}. <BR>
+ *
+ * Once the connection is being closed, writes no longer block and the data
+ * which the client does not accept right away is discarded.
+ */
+abstract class TimeoutWriteByteChannel implements ByteChannel
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Maximum number of queued buffers written by a single gathering write. */
+  private static final int MAX_GATHERED_BUFFERS = 64;
+
+  private final SocketChannel clientChannel;
+  /** The statistics updated with the bytes read and written, or {@code null} if statistics are not kept. */
+  private final LDAPStatistics statTracker;
+
+  /** Synchronize concurrent writes to the same connection. */
+  private final Lock writeLock = new ReentrantLock();
+  /** The data waiting to be written to the client, guarded by the write lock. */
+  private final ArrayDeque<ByteBuffer> queuedBuffers = new ArrayDeque<>();
+  /** The number of bytes waiting to be written to the client. */
+  private final AtomicLong queuedBytes = new AtomicLong();
+  /** Indicates whether the request handler has been asked to flush the queued data. */
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  /** Indicates whether the connection is being closed, in which case writes no longer block. */
+  private volatile boolean closing;
+
+  /**
+   * Creates a new channel writing to the provided client channel.
+   *
+   * @param clientChannel
+   *          The socket channel of the client connection, in non-blocking mode.
+   * @param statTracker
+   *          The statistics updated with the bytes read and written, or
+   *          {@code null} if statistics are not kept.
+   */
+  TimeoutWriteByteChannel(SocketChannel clientChannel, LDAPStatistics statTracker)
+  {
+    this.clientChannel = clientChannel;
+    this.statTracker = statTracker;
+  }
+
+  /**
+   * Indicates whether the connection is registered with a request handler
+   * which can flush the queued data.
+   *
+   * @return {@code true} if the queued data can be flushed by a request handler
+   */
+  abstract boolean canScheduleFlush();
+
+  /**
+   * Asks the request handler of the connection to call {@link #flushQueue()}
+   * as soon as the client channel becomes writable.
+   */
+  abstract void scheduleFlush();
+
+  /**
+   * Returns the maximum number of bytes which can be queued before the
+   * writing threads block.
+   *
+   * @return the maximum number of queued bytes
+   */
+  abstract long getMaxQueuedWriteSize();
+
+  /**
+   * Returns the maximum length of time in milliseconds that a writing thread
+   * may be blocked, or zero or less for the default time limit.
+   *
+   * @return the maximum length of time a writing thread may be blocked
+   */
+  abstract long getMaxBlockedWriteTimeLimit();
+
+  /**
+   * Returns the selector used to wait for the client channel to be writable.
+   *
+   * @return the selector, or {@code null} if none is available
+   */
+  abstract Selector getWriteSelector();
+
+  @Override
+  public int read(ByteBuffer byteBuffer) throws IOException
+  {
+    int bytesRead = clientChannel.read(byteBuffer);
+    if (bytesRead > 0 && statTracker != null)
+    {
+      statTracker.updateBytesRead(bytesRead);
+    }
+    return bytesRead;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return clientChannel.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    clientChannel.close();
+  }
+
+  @Override
+  public int write(ByteBuffer byteBuffer) throws IOException
+  {
+    final int bytesToWrite = byteBuffer.remaining();
+    writeLock.lock();
+    try
+    {
+      if (queuedBuffers.isEmpty())
+      {
+        int bytesWritten = clientChannel.write(byteBuffer);
+        if (bytesWritten > 0 && statTracker != null)
+        {
+          statTracker.updateBytesWritten(bytesWritten);
+        }
+        if (!byteBuffer.hasRemaining())
+        {
+          return bytesToWrite;
+        }
+      }
+
+      // Keep the data in order behind the data already queued.
+      final ByteBuffer copy = ByteBuffer.allocate(byteBuffer.remaining());
+      copy.put(byteBuffer);
+      copy.flip();
+      queuedBuffers.addLast(copy);
+      final long pendingBytes = queuedBytes.addAndGet(copy.remaining());
+
+      if (!closing && (!canScheduleFlush() || pendingBytes > getMaxQueuedWriteSize()))
+      {
+        writeQueuedBuffers();
+      }
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+    scheduleFlushIfNeeded();
+    return bytesToWrite;
+  }
+
+  /**
+   * Returns the number of bytes waiting to be written to the client.
+   *
+   * @return the number of queued bytes
+   */
+  long getQueuedBytes()
+  {
+    return queuedBytes.get();
+  }
+
+  /**
+   * Writes the queued data that the client accepts without blocking, on
+   * behalf of the request handler which detected that the client channel is
+   * writable.
+   *
+   * @return {@code true} if the request handler no longer needs to watch the
+   *         client channel for writability.
+   * @throws IOException
+   *           If the queued data could not be written.
+   */
+  boolean flushQueue() throws IOException
+  {
+    flushScheduled.set(false);
+    if (!writeLock.tryLock())
+    {
+      // The thread holding the lock will schedule a new flush when releasing
+      // it if some data is still queued.
+      return true;
+    }
+    try
+    {
+      if (writeQueuedBuffersNonBlocking())
+      {
+        return true;
+      }
+      flushScheduled.set(true);
+      return false;
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Prepares the channel for the closure of the connection: from now on,
+   * writes no longer block, so that a notice of disconnection can be sent
+   * without delaying the thread closing the connection.
+   */
+  void startClosing()
+  {
+    closing = true;
+  }
+
+  /**
+   * Writes the queued data that the client accepts without blocking, and
+   * discards the rest, as the connection is being closed. If another thread
+   * is currently writing to the client, the queued data is left to it and
+   * counted as discarded, since the connection is about to be closed.
+   *
+   * @return the number of bytes which could not be written to the client
+   */
+  long discardQueue()
+  {
+    closing = true;
+    if (!writeLock.tryLock())
+    {
+      return queuedBytes.get();
+    }
+    try
+    {
+      try
+      {
+        writeQueuedBuffersNonBlocking();
+      }
+      catch (IOException e)
+      {
+        logger.traceException(e);
+      }
+      queuedBuffers.clear();
+      return queuedBytes.getAndSet(0);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  private void scheduleFlushIfNeeded()
+  {
+    if (!closing && queuedBytes.get() > 0 && canScheduleFlush() && flushScheduled.compareAndSet(false, true))
+    {
+      scheduleFlush();
+    }
+  }
+
+  /**
+   * Writes the queued data with gathering writes until the queue is empty or
+   * the client does not accept more data. Must be called with the write lock
+   * held.
+   *
+   * @return {@code true} if the queue is empty.
+   */
+  private boolean writeQueuedBuffersNonBlocking() throws IOException
+  {
+    while (!queuedBuffers.isEmpty())
+    {
+      final ByteBuffer[] buffers = new ByteBuffer[Math.min(queuedBuffers.size(), MAX_GATHERED_BUFFERS)];
+      final Iterator<ByteBuffer> iterator = queuedBuffers.iterator();
+      for (int i = 0; i < buffers.length; i++)
+      {
+        buffers[i] = iterator.next();
+      }
+
+      final long bytesWritten = clientChannel.write(buffers);
+      if (bytesWritten < 0)
+      {
+        // The client connection has been closed.
+        throw new ClosedChannelException();
+      }
+      if (bytesWritten > 0 && statTracker != null)
+      {
+        statTracker.updateBytesWritten((int) bytesWritten);
+      }
+      queuedBytes.addAndGet(-bytesWritten);
+
+      while (!queuedBuffers.isEmpty() && !queuedBuffers.peekFirst().hasRemaining())
+      {
+        queuedBuffers.removeFirst();
+      }
+      if (buffers[buffers.length - 1].hasRemaining())
+      {
+        // The client does not accept more data for now.
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes all the queued data, blocking until it is written. Must be called
+   * with the write lock held.
+   */
+  private void writeQueuedBuffers() throws IOException
+  {
+    if (writeQueuedBuffersNonBlocking())
+    {
+      return;
+    }
+
+    long startTime = System.currentTimeMillis();
+    long waitTime = getMaxBlockedWriteTimeLimit();
+    if (waitTime <= 0)
+    {
+      // We won't support an infinite time limit, so fall back to using
+      // five minutes, which is a very long timeout given that we're
+      // blocking a worker thread.
+      waitTime = 300000L;
+    }
+    long stopTime = startTime + waitTime;
+
+    Selector selector = getWriteSelector();
+    if (selector == null)
+    {
+      // The client connection does not provide a selector, so we'll
+      // fall back to a more inefficient way that will work without a
+      // selector.
+      while (!writeQueuedBuffersNonBlocking())
+      {
+        if (System.currentTimeMillis() >= stopTime)
+        {
+          // If we've gotten here, then the write timed out.
+          throw new ClosedChannelException();
+        }
+      }
+      return;
+    }
+
+    // Register with the selector for handling write operations.
+    SelectionKey key = clientChannel.register(selector,
+        SelectionKey.OP_WRITE);
+    try
+    {
+      while (true)
+      {
+        selector.select(waitTime);
+        selector.selectedKeys().clear();
+        if (writeQueuedBuffersNonBlocking())
+        {
+          return;
+        }
+
+        long currentTime = System.currentTimeMillis();
+        if (currentTime >= stopTime)
+        {
+          // We've been blocked for too long.
+          throw new ClosedChannelException();
+        }
+        waitTime = stopTime - currentTime;
+      }
+    }
+    finally
+    {
+      if (key.isValid())
+      {
+        key.cancel();
+        selector.selectNow();
+      }
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -90,6 +91,14 @@ public class EntryHistorical
    */
   private long purgeDelayInMillisec = -1;
 
+  /**
+   * Whether the historical information is encoded in the compact binary form
+   * rather than in the String form.
+   *
+   * @see HistoricalAttributeValue
+   */
+  private boolean compactEncoding;
+
   /**
    * The oldest CSN stored in this entry historical attribute.
    * null when this historical object has been created from
@@ -259,10 +268,27 @@ public class EntryHistorical
    * @param addOperation The Operation to which the historical attribute will be added.
    */
   public static void setHistoricalAttrToOperation(PreOperationAddOperation addOperation)
+  {
+    setHistoricalAttrToOperation(addOperation, false);
+  }
+
+  /**
+   * Generate an attribute containing the historical information
+   * from the replication context attached to the provided operation
+   * and set this attribute in the operation.
+   *
+   * @param addOperation The Operation to which the historical attribute will be added.
+   * @param compactEncoding whether the historical attribute must use the compact binary encoding
+   * @see #setHistoricalAttrToOperation(PreOperationAddOperation)
+   */
+  public static void setHistoricalAttrToOperation(PreOperationAddOperation addOperation, boolean compactEncoding)
   {
     Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
     AttributeType attrType = schema.getAttributeType(HISTORICAL_ATTRIBUTE_NAME);
-    String attrValue = encodeHistorical(OperationContext.getCSN(addOperation), "add");
+    CSN csn = OperationContext.getCSN(addOperation);
+    ByteString attrValue = compactEncoding
+        ? HistoricalAttributeValue.encodeEntryOperation(csn, false)
+        : ByteString.valueOfUtf8(encodeHistorical(csn, "add"));
     List<Attribute> attrs = Attributes.createAsList(attrType, attrValue);
     addOperation.setAttribute(attrType, attrs);
   }
@@ -334,7 +360,7 @@ public class EntryHistorical
    * purge it from the values older than the purge delay.
    *
    * @return The historical information encoded in an operational attribute.
-   * @see HistoricalAttributeValue#HistoricalAttributeValue(String) the decode
+   * @see HistoricalAttributeValue#valueOf(ByteString) the decode
    *      operation in HistoricalAttributeValue
    */
   public Attribute encodeAndPurge()
@@ -355,6 +381,7 @@ public class EntryHistorical
     {
       AttributeDescription attrDesc = mapEntry.getKey();
       String options = attrDesc.toString();
+      ByteString compactOptions = compactEncoding ? ByteString.valueOfUtf8(options) : null;
       AttrHistorical attrHist = mapEntry.getValue();
 
       CSN deleteTime = attrHist.getDeleteTime();
@@ -373,8 +400,8 @@ public class EntryHistorical
             // this hist must be purged now, so skip its encoding
             continue;
           }
-          String strValue = encode(DEL, options, attrValHist.getValueDeleteTime(), value);
-          builder.add(strValue);
+          ByteString encodedValue = encode(DEL, options, compactOptions, attrValHist.getValueDeleteTime(), value);
+          builder.add(encodedValue);
         }
         else if (attrValHist.getValueUpdateTime() != null)
         {
@@ -384,27 +411,27 @@ public class EntryHistorical
             continue;
           }
 
-          String strValue;
+          ByteString encodedValue;
           final CSN updateTime = attrValHist.getValueUpdateTime();
           // FIXME very suspicious use of == in the next if statement,
           // unit tests do not like changing it
           if (attrDel && updateTime == deleteTime && value != null)
           {
-            strValue = encode(REPL, options, updateTime, value);
+            encodedValue = encode(REPL, options, compactOptions, updateTime, value);
             attrDel = false;
           }
           else if (value != null)
           {
-            strValue = encode(ADD, options, updateTime, value);
+            encodedValue = encode(ADD, options, compactOptions, updateTime, value);
           }
           else
           {
             // "add" without any value is suspicious. Tests never go there.
             // Is this used to encode "add" with an empty string?
-            strValue = encode(ADD, options, updateTime);
+            encodedValue = encode(ADD, options, compactOptions, updateTime);
           }
 
-          builder.add(strValue);
+          builder.add(encodedValue);
         }
       }
 
@@ -415,7 +442,7 @@ public class EntryHistorical
           // this hist must be purged now, so skip its encoding
           continue;
         }
-        builder.add(encode(ATTRDEL, options, deleteTime));
+        builder.add(encode(ATTRDEL, options, compactOptions, deleteTime));
       }
     }
 
@@ -423,14 +450,14 @@ public class EntryHistorical
     {
       // Encode the historical information for the ADD Operation.
       // Stores the ADDDate when not older than the purge delay
-      builder.add(encodeHistorical(entryADDDate, "add"));
+      builder.add(encodeEntryOperation(entryADDDate, false));
     }
 
     if (entryMODDNDate != null && !needsPurge(entryMODDNDate, purgeDate))
     {
       // Encode the historical information for the MODDN Operation.
       // Stores the MODDNDate when not older than the purge delay
-      builder.add(encodeHistorical(entryMODDNDate, "moddn"));
+      builder.add(encodeEntryOperation(entryMODDNDate, true));
     }
 
     return builder.toAttribute();
@@ -447,14 +474,33 @@ public class EntryHistorical
     return needsPurge;
   }
 
-  private String encode(HistAttrModificationKey modKey, String options, CSN changeTime)
+  private ByteString encode(HistAttrModificationKey modKey, String options, ByteString compactOptions,
+      CSN changeTime)
   {
-    return options + ":" + changeTime + ":" + modKey;
+    if (compactEncoding)
+    {
+      return HistoricalAttributeValue.encode(compactOptions, changeTime, modKey, null);
+    }
+    return ByteString.valueOfUtf8(options + ":" + changeTime + ":" + modKey);
   }
 
-  private String encode(HistAttrModificationKey modKey, String options, CSN changeTime, ByteString value)
+  private ByteString encode(HistAttrModificationKey modKey, String options, ByteString compactOptions,
+      CSN changeTime, ByteString value)
   {
-    return options + ":" + changeTime + ":" + modKey + ":" + value;
+    if (compactEncoding)
+    {
+      return HistoricalAttributeValue.encode(compactOptions, changeTime, modKey, value);
+    }
+    return ByteString.valueOfUtf8(options + ":" + changeTime + ":" + modKey + ":" + value);
+  }
+
+  private ByteString encodeEntryOperation(CSN csn, boolean isModDN)
+  {
+    if (compactEncoding)
+    {
+      return HistoricalAttributeValue.encodeEntryOperation(csn, isModDN);
+    }
+    return ByteString.valueOfUtf8(encodeHistorical(csn, isModDN ? "moddn" : "add"));
   }
 
   /**
@@ -468,6 +514,18 @@ public class EntryHistorical
     this.purgeDelayInMillisec = purgeDelay;
   }
 
+  /**
+   * Set whether the historical information is encoded in the compact binary form
+   * the next time it is encoded. Both forms are always accepted when decoding,
+   * so the historical of an entry switches form on its next update.
+   *
+   * @param compactEncoding {@code true} to use the compact binary form
+   */
+  public void setCompactEncoding(boolean compactEncoding)
+  {
+    this.compactEncoding = compactEncoding;
+  }
+
   /**
    * Indicates if the Entry was renamed or added after the CSN that is given as
    * a parameter.
@@ -541,50 +599,7 @@ public class EntryHistorical
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
           // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
-          final CSN csn = histVal.getCSN();
-
-          // update the oldest CSN stored in the new entry historical
-          newHistorical.updateOldestCSN(csn);
-
-          if (histVal.isADDOperation())
-          {
-            newHistorical.entryADDDate = csn;
-          }
-          else if (histVal.isMODDNOperation())
-          {
-            newHistorical.entryMODDNDate = csn;
-          }
-          else
-          {
-            final AttributeDescription attrDesc = histVal.getAttributeDescription();
-            if (attrDesc == null)
-            {
-              /*
-               * This attribute is unknown from the schema
-               * Just skip it, the modification will be processed but no
-               * historical information is going to be kept.
-               * Log information for the repair tool.
-               */
-              logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), histVal.getAttrString());
-              continue;
-            }
-
-            /* if attribute type does not match we create new
-             *   AttrInfoWithOptions and AttrInfo
-             *   we also add old AttrInfoWithOptions into histObj.attributesInfo
-             * if attribute type match but options does not match we create new
-             *   AttrInfo that we add to AttrInfoWithOptions
-             * if both match we keep everything
-             */
-            AttrHistorical attrInfo = newHistorical.attributesHistorical.get(attrDesc);
-            if (attrInfo == null)
-            {
-              attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
-              newHistorical.attributesHistorical.put(attrDesc, attrInfo);
-            }
-            attrInfo.assign(histVal);
-          }
+          newHistorical.assign(entry.getName(), HistoricalAttributeValue.valueOf(histAttrValueFromEntry));
         }
       }
     } catch (Exception e)
@@ -599,6 +614,83 @@ public class EntryHistorical
     return newHistorical;
   }
 
+  /**
+   * Construct an Historical object from already decoded values of the historical attribute.
+   *
+   * @param entryDN the DN of the entry the historical values were read from
+   * @param histVals the decoded values of the historical attribute of the entry
+   * @return The constructed Historical information object
+   */
+  static EntryHistorical newInstance(DN entryDN, Iterable<HistoricalAttributeValue> histVals)
+  {
+    final EntryHistorical newHistorical = new EntryHistorical();
+    try
+    {
+      for (HistoricalAttributeValue histVal : histVals)
+      {
+        newHistorical.assign(entryDN, histVal);
+      }
+    }
+    catch (Exception e)
+    {
+      logger.error(ERR_BAD_HISTORICAL, entryDN);
+    }
+    return newHistorical;
+  }
+
+  /**
+   * Adds a decoded value of the historical attribute to this historical information.
+   *
+   * @param entryDN the DN of the entry the historical value was read from
+   * @param histVal the decoded value of the historical attribute
+   */
+  private void assign(DN entryDN, HistoricalAttributeValue histVal)
+  {
+    final CSN csn = histVal.getCSN();
+
+    // update the oldest CSN stored in the new entry historical
+    updateOldestCSN(csn);
+
+    if (histVal.isADDOperation())
+    {
+      entryADDDate = csn;
+    }
+    else if (histVal.isMODDNOperation())
+    {
+      entryMODDNDate = csn;
+    }
+    else
+    {
+      final AttributeDescription attrDesc = histVal.getAttributeDescription();
+      if (attrDesc == null)
+      {
+        /*
+         * This attribute is unknown from the schema
+         * Just skip it, the modification will be processed but no
+         * historical information is going to be kept.
+         * Log information for the repair tool.
+         */
+        logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entryDN, histVal.getAttrString());
+        return;
+      }
+
+      /* if attribute type does not match we create new
+       *   AttrInfoWithOptions and AttrInfo
+       *   we also add old AttrInfoWithOptions into histObj.attributesInfo
+       * if attribute type match but options does not match we create new
+       *   AttrInfo that we add to AttrInfoWithOptions
+       * if both match we keep everything
+       */
+      AttrHistorical attrInfo = attributesHistorical.get(attrDesc);
+      if (attrInfo == null)
+      {
+        attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
+        attributesHistorical.put(attrDesc, attrInfo);
+      }
+      attrInfo.assign(histVal);
+    }
+  }
+
   /**
    * Use this historical information to generate fake operations that would
    * result in this historical information.
@@ -615,7 +707,7 @@ public class EntryHistorical
     {
       for (ByteString val : attr)
       {
-        HistoricalAttributeValue histVal = new HistoricalAttributeValue(val.toString());
+        HistoricalAttributeValue histVal = HistoricalAttributeValue.valueOf(val);
         if (histVal.isADDOperation())
         {
           // Found some historical information indicating that this entry was just added.
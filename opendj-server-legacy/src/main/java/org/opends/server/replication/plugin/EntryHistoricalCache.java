@@ -0,0 +1,130 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+
+/**
+ * Keeps the decoded values of the historical attribute of the entries recently
+ * replayed by a replication domain, so that replaying another modification on
+ * the same entry only needs to decode the historical values added since.
+ * <p>
+ * Decoded values are looked up by their encoded form, hence an
+ * {@link EntryHistorical} built by this cache is always equivalent to the one
+ * built by {@link EntryHistorical#newInstanceFromEntry(Entry)}, and a new
+ * instance is returned on each call because conflict resolution updates it.
+ * Entries are invalidated when they are written locally so that the cache only
+ * holds the entries that are being replayed.
+ */
+final class EntryHistoricalCache
+{
+  /** The maximum number of entries whose historical is kept. */
+  private final int maxEntries;
+  /** Decoded historical values of each cached entry, least recently used first. */
+  private final Map<DN, Map<ByteString, HistoricalAttributeValue>> entries;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param maxEntries
+   *          the maximum number of entries whose historical is kept
+   */
+  EntryHistoricalCache(final int maxEntries)
+  {
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<DN, Map<ByteString, HistoricalAttributeValue>>(16, 0.75f, true)
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<DN, Map<ByteString, HistoricalAttributeValue>> eldest)
+      {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the historical information of the provided entry, reusing the
+   * values decoded the last time this entry was seen.
+   *
+   * @param entry
+   *          the entry whose historical information must be loaded
+   * @return a new historical information object for the entry
+   */
+  EntryHistorical getEntryHistorical(Entry entry)
+  {
+    final DN entryDN = entry.getName();
+    final Map<ByteString, HistoricalAttributeValue> previousValues;
+    synchronized (entries)
+    {
+      previousValues = entries.remove(entryDN);
+    }
+
+    final Map<ByteString, HistoricalAttributeValue> histVals = new LinkedHashMap<>();
+    try
+    {
+      for (Attribute histAttr : EntryHistorical.getHistoricalAttr(entry))
+      {
+        for (ByteString value : histAttr)
+        {
+          HistoricalAttributeValue histVal = previousValues != null ? previousValues.get(value) : null;
+          histVals.put(value, histVal != null ? histVal : HistoricalAttributeValue.valueOf(value));
+        }
+      }
+    }
+    catch (Exception e)
+    {
+      // Badly encoded historical: let the usual code path report it
+      return EntryHistorical.newInstanceFromEntry(entry);
+    }
+
+    synchronized (entries)
+    {
+      entries.put(entryDN, histVals);
+    }
+    return EntryHistorical.newInstance(entryDN, histVals.values());
+  }
+
+  /**
+   * Removes the historical information of the provided entry from this cache.
+   *
+   * @param entryDN
+   *          the DN of the entry
+   */
+  void invalidate(DN entryDN)
+  {
+    synchronized (entries)
+    {
+      entries.remove(entryDN);
+    }
+  }
+
+  /** Removes all the entries from this cache. */
+  void clear()
+  {
+    synchronized (entries)
+    {
+      entries.clear();
+    }
+  }
+}
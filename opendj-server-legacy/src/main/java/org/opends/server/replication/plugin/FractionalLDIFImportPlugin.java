@@ -13,6 +13,7 @@
  *
  * Copyright 2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -59,6 +60,8 @@ import org.opends.server.types.LDIFImportConfig;
  * - perform filtering according to fractional configuration of the domain
  * - flush the fractional configuration of the domain in the root entry
  *  (if no one already present)
+ * - when the server is online, compute the generation ID of the imported
+ *  entries so that the domain does not need to export them to compute it
  */
 public final class FractionalLDIFImportPlugin
   extends DirectoryServerPlugin<FractionalLDIFImportPluginCfg>
@@ -87,17 +90,22 @@ public final class FractionalLDIFImportPlugin
     private FractionalConfig fractionalConfig;
     /** The local domain object (may stay null if server is offline). */
     private LDAPReplicationDomain domain;
+    /** The generation ID of the imported entries (null if server is offline). */
+    private GenerationIdCalculator generationIdCalculator;
 
     /**
      * Constructor.
      * @param fractionalConfig The fractional configuration.
      * @param domain The replication domain.
+     * @param generationIdCalculator The generation ID of the imported entries.
      */
     public ImportFractionalContext(FractionalConfig fractionalConfig,
-      LDAPReplicationDomain domain)
+      LDAPReplicationDomain domain,
+      GenerationIdCalculator generationIdCalculator)
     {
       this.fractionalConfig = fractionalConfig;
       this.domain = domain;
+      this.generationIdCalculator = generationIdCalculator;
     }
 
     /**
@@ -117,6 +125,15 @@ public final class FractionalLDIFImportPlugin
     {
       return domain;
     }
+
+    /**
+     * Getter for the generation ID calculator.
+     * @return the generationIdCalculator
+     */
+    public GenerationIdCalculator getGenerationIdCalculator()
+    {
+      return generationIdCalculator;
+    }
   }
 
   /**
@@ -214,9 +231,20 @@ public final class FractionalLDIFImportPlugin
   public final void doLDIFImportEnd(LDIFImportConfig importConfig)
   {
     // Remove the cookie of this import session
+    ImportFractionalContext importFractionalContext;
     synchronized(importSessionContexts)
     {
-      importSessionContexts.remove(importConfig);
+      importFractionalContext = importSessionContexts.remove(importConfig);
+    }
+
+    // Hand the generation ID of the imported entries to the domain, which
+    // loads its data state again once the import is complete
+    if (importFractionalContext != null
+        && importFractionalContext.getDomain() != null
+        && !importConfig.isCancelled())
+    {
+      importFractionalContext.getDomain().setImportedGenerationId(
+          importFractionalContext.getGenerationIdCalculator());
     }
   }
 
@@ -288,8 +316,14 @@ public final class FractionalLDIFImportPlugin
             localFractionalConfig = domain.getFractionalConfig();
           }
           // Create context and store it
-          importFractionalContext =
-            new ImportFractionalContext(localFractionalConfig, domain);
+          GenerationIdCalculator generationIdCalculator = null;
+          if (domain != null)
+          {
+            generationIdCalculator = new GenerationIdCalculator(
+                domain.getBaseDN(), getServerContext().getSchema());
+          }
+          importFractionalContext = new ImportFractionalContext(
+              localFractionalConfig, domain, generationIdCalculator);
           importSessionContexts.put(importConfig, importFractionalContext);
         }
       }
@@ -303,6 +337,27 @@ public final class FractionalLDIFImportPlugin
       return PluginResult.ImportLDIF.continueEntryProcessing();
     }
 
+    PluginResult.ImportLDIF result =
+      filterEntry(importFractionalContext, localFractionalConfig, entry);
+    GenerationIdCalculator generationIdCalculator =
+      importFractionalContext.getGenerationIdCalculator();
+    if (generationIdCalculator != null && result.continueProcessing())
+    {
+      generationIdCalculator.addEntry(entry);
+    }
+    return result;
+  }
+
+  /**
+   * Checks the fractional configuration of the root entry of the domain and
+   * removes the attributes which are not replicated from the imported entry.
+   */
+  private PluginResult.ImportLDIF filterEntry(
+    ImportFractionalContext importFractionalContext,
+    FractionalConfig localFractionalConfig, Entry entry)
+  {
+    DN entryDn = entry.getName();
+
     /**
      * At this point, either the domain instance has been found and we  use its
      * fractional configuration, or the server is offline and we use the parsed
@@ -0,0 +1,207 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.AVA;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDIFExportConfig;
+import org.opends.server.util.LDIFException;
+
+/**
+ * This class computes the generation ID of a replication domain from the
+ * entries imported into it, so that the domain does not have to export its
+ * data again to compute it once the import is complete.
+ * <p>
+ * The generation ID is the checksum of the number of entries of the domain
+ * followed by the LDIF representation of the stable attributes of its first
+ * entries in export order. The checksum does not depend on the order of the
+ * entries, so the value computed here is only the one an export would compute
+ * when all the entries of the domain are part of the checksum and when they are
+ * stored exactly as the import plugins saw them. Otherwise
+ * {@link #getGenerationId(long)} tells the caller to fall back to an export.
+ */
+final class GenerationIdCalculator
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum number of entries whose content is part of the generation ID. */
+  static final int MAX_CHECKSUM_ENTRIES = 1000;
+
+  /** The attributes whose values are part of the generation ID. */
+  private static final String[] STABLE_ATTRIBUTES = { "objectclass", "sn", "cn", "entryuuid" };
+
+  private final DN baseDN;
+  private final AttributeType entryUUIDType;
+  private final GenerationIdChecksum checksum = new GenerationIdChecksum();
+  private final LDIFExportConfig exportConfig;
+
+  /** The number of imported entries below the base DN. */
+  private long entryCount;
+  /** Whether the checksum still matches the one an export of the imported entries would compute. */
+  private boolean exact = true;
+
+  /**
+   * Creates a new generation ID calculator.
+   *
+   * @param baseDN
+   *          The base DN of the replication domain.
+   * @param schema
+   *          The schema of the server.
+   */
+  GenerationIdCalculator(DN baseDN, Schema schema)
+  {
+    this.baseDN = baseDN;
+    this.entryUUIDType = schema.getAttributeType("entryuuid");
+    this.exportConfig = new LDIFExportConfig(new OutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+        checksum.update(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len)
+      {
+        checksum.update(b, off, len);
+      }
+    });
+    exportConfig.setIncludeAttributes(getStableAttributes(schema));
+  }
+
+  /**
+   * Returns the attributes whose values are part of the generation ID.
+   *
+   * @param schema
+   *          The schema of the server.
+   * @return the attributes whose values are part of the generation ID
+   */
+  static Set<AttributeType> getStableAttributes(Schema schema)
+  {
+    Set<AttributeType> attributes = new HashSet<>();
+    for (String attrName : STABLE_ATTRIBUTES)
+    {
+      attributes.add(schema.getAttributeType(attrName));
+    }
+    return attributes;
+  }
+
+  /**
+   * Adds an imported entry to the generation ID. Entries which are not below
+   * the base DN of the domain are ignored.
+   *
+   * @param entry
+   *          The imported entry, as it will be stored in the backend.
+   */
+  synchronized void addEntry(Entry entry)
+  {
+    if (!entry.getName().isSubordinateOrEqualTo(baseDN))
+    {
+      return;
+    }
+
+    entryCount++;
+    if (!exact)
+    {
+      return;
+    }
+    if (entryCount > MAX_CHECKSUM_ENTRIES || !isStoredAsImported(entry))
+    {
+      exact = false;
+      return;
+    }
+
+    try
+    {
+      entry.toLDIF(exportConfig);
+      exportConfig.getWriter().flush();
+    }
+    catch (IOException | LDIFException e)
+    {
+      logger.traceException(e);
+      exact = false;
+    }
+  }
+
+  /**
+   * Returns whether the stable attributes of the provided entry will not be
+   * completed by the entryUUID plugin or by the schema checks of the import
+   * after the import plugins have been invoked.
+   */
+  private boolean isStoredAsImported(Entry entry)
+  {
+    if (!entry.hasAttribute(entryUUIDType))
+    {
+      return false;
+    }
+
+    Map<ObjectClass, String> objectClasses = entry.getObjectClasses();
+    for (ObjectClass objectClass : objectClasses.keySet())
+    {
+      for (ObjectClass superiorClass : objectClass.getSuperiorClasses())
+      {
+        if (!objectClasses.containsKey(superiorClass))
+        {
+          return false;
+        }
+      }
+    }
+
+    for (AVA ava : entry.getName().rdn())
+    {
+      if (!entry.hasValue(ava.getAttributeType(), ava.getAttributeValue()))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the generation ID of the imported entries.
+   *
+   * @param numberOfEntries
+   *          The number of entries stored in the backend below the base DN,
+   *          which tells whether some of the imported entries were rejected
+   *          after the import plugins were invoked.
+   * @return the generation ID of the imported entries, or -1 if it must be
+   *         computed from an export of the domain
+   */
+  synchronized long getGenerationId(long numberOfEntries)
+  {
+    if (!exact || numberOfEntries != entryCount)
+    {
+      return -1;
+    }
+
+    // The export writes the number of entries before the entries themselves
+    GenerationIdChecksum countChecksum = new GenerationIdChecksum();
+    byte[] countBytes = Long.toString(entryCount).getBytes();
+    countChecksum.update(countBytes, 0, countBytes.length);
+    return entryCount > 0 ? countChecksum.getValue() + checksum.getValue() : countChecksum.getValue();
+  }
+}
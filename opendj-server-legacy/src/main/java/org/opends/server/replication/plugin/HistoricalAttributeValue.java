@@ -13,15 +13,23 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.schema.Schema;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.AttributeBuilder;
@@ -58,16 +66,60 @@ import org.opends.server.types.Modification;
  *  options are stored with the attribute names using; as a separator
  *  example :
  *  description;FR;France:00000108b3a65541000000000001:add:added_value
+ *
+ * The same information can also be stored in a compact binary form which
+ * avoids building and splitting Strings when the historical is loaded:
+ *  marker byte (0x00, which can never start an attribute description)
+ *  CSN, in its 14 bytes binary form
+ *  type byte, with the high bit set when a value follows
+ *  compact length of the attribute description, followed by its UTF-8 bytes
+ *  attribute value bytes, if any
+ * Both forms are always accepted when decoding.
  */
 class HistoricalAttributeValue
 {
+  /** The first byte of the values using the compact encoding. */
+  private static final byte COMPACT_MARKER = 0x00;
+  /** Offset of the CSN in the values using the compact encoding. */
+  private static final int COMPACT_CSN_OFFSET = 1;
+  private static final int COMPACT_TYPE_OFFSET = COMPACT_CSN_OFFSET + CSN.BYTE_ENCODING_LENGTH;
+  private static final byte TYPE_ADD = 1;
+  private static final byte TYPE_DEL = 2;
+  private static final byte TYPE_REPL = 3;
+  private static final byte TYPE_ATTRDEL = 4;
+  private static final byte TYPE_ENTRY_ADD = 5;
+  private static final byte TYPE_ENTRY_MODDN = 6;
+  private static final byte HAS_VALUE = (byte) 0x80;
+  private static final ByteString DN_DESCRIPTION = ByteString.valueOfUtf8("dn");
+  /** Upper bound on the number of decoded attribute descriptions kept in {@link #descriptions}. */
+  private static final int MAX_CACHED_DESCRIPTIONS = 1024;
+
+  /**
+   * The attribute descriptions decoded from compact values, so that decoding
+   * them does not require parsing Strings. Cleared when the schema changes.
+   */
+  private static final Map<ByteString, DecodedDescription> descriptions = new ConcurrentHashMap<>();
+  private static volatile Schema descriptionsSchema;
+
+  /** An attribute description decoded from a compact value along with its lowercase name. */
+  private static final class DecodedDescription
+  {
+    private final AttributeDescription attrDesc;
+    private final String attrString;
+
+    private DecodedDescription(AttributeDescription attrDesc)
+    {
+      this.attrDesc = attrDesc;
+      this.attrString = toLowerCase(attrDesc.getNameOrOID());
+    }
+  }
+
   private final AttributeDescription attrDesc;
   /** The lowercase attribute string representation. */
   private final String attrString;
   private final ByteString attributeValue;
   private final CSN csn;
   private final HistAttrModificationKey histKey;
-  private final String stringValue;
   private boolean attrTypeIsNull;
   /**
    * This flag indicates that this value was generated to store the last date
@@ -96,26 +148,175 @@ class HistoricalAttributeValue
 
     csn = new CSN(token[1]);
     histKey = HistAttrModificationKey.decodeKey(token[2]);
-    if (histKey != ATTRDEL)
+    if (histKey != ATTRDEL && token.length == 4)
     {
-      if (token.length == 4)
-      {
-        stringValue = token[3];
-        attributeValue = ByteString.valueOfUtf8(stringValue);
-      }
-      else
-      {
-        stringValue = null;
-        attributeValue = null;
-      }
+      attributeValue = ByteString.valueOfUtf8(token[3]);
     }
     else
     {
-      stringValue = null;
       attributeValue = null;
     }
   }
 
+  /**
+   * Create a new object from the compact encoded form.
+   *
+   * @param value The compact encoded form of historical attribute value.
+   * @see #encode(ByteString, CSN, HistAttrModificationKey, ByteString)
+   */
+  private HistoricalAttributeValue(ByteString value)
+  {
+    ByteSequenceReader reader = value.asReader();
+    reader.skip(COMPACT_CSN_OFFSET);
+    csn = CSN.valueOf(reader.readByteSequence(CSN.BYTE_ENCODING_LENGTH));
+    byte type = reader.readByte();
+    ByteSequence descBytes = reader.readByteSequence(reader.readCompactUnsignedInt());
+    boolean hasValue = (type & HAS_VALUE) != 0;
+    type &= ~HAS_VALUE;
+
+    attrTypeIsNull = type == TYPE_ENTRY_ADD || type == TYPE_ENTRY_MODDN;
+    isModDN = type == TYPE_ENTRY_MODDN;
+    DecodedDescription decoded = decodeDescription(attrTypeIsNull ? DN_DESCRIPTION : descBytes.toByteString());
+    attrDesc = decoded.attrDesc;
+    attrString = decoded.attrString;
+    histKey = decodeType(type);
+    attributeValue = hasValue && histKey != ATTRDEL ? reader.readByteString(reader.remaining()) : null;
+  }
+
+  /**
+   * Decodes a value of the historical attribute, whichever form it is stored in.
+   *
+   * @param value The encoded form of historical attribute value.
+   * @return the decoded historical attribute value
+   */
+  static HistoricalAttributeValue valueOf(ByteString value)
+  {
+    if (isCompact(value))
+    {
+      return new HistoricalAttributeValue(value);
+    }
+    return new HistoricalAttributeValue(value.toString());
+  }
+
+  /**
+   * Indicates whether the provided value of the historical attribute uses the compact encoding.
+   *
+   * @param value a value of the historical attribute
+   * @return {@code true} if the value uses the compact encoding
+   */
+  static boolean isCompact(ByteSequence value)
+  {
+    return value.length() > COMPACT_TYPE_OFFSET && value.byteAt(0) == COMPACT_MARKER;
+  }
+
+  /**
+   * Returns the binary form of the CSN of a value using the compact encoding.
+   *
+   * @param value a value of the historical attribute using the compact encoding
+   * @return the CSN of the value, in the form returned by {@link CSN#toByteString()}
+   */
+  static ByteSequence getCompactCSNBytes(ByteSequence value)
+  {
+    return value.subSequence(COMPACT_CSN_OFFSET, COMPACT_TYPE_OFFSET);
+  }
+
+  /**
+   * Encodes a modification of an attribute in the compact form.
+   *
+   * @param attrDesc the UTF-8 bytes of the attribute description, including the options
+   * @param csn the CSN of the modification
+   * @param modKey the type of modification
+   * @param value the attribute value, may be {@code null}
+   * @return the compact encoded form
+   */
+  static ByteString encode(ByteString attrDesc, CSN csn, HistAttrModificationKey modKey, ByteString value)
+  {
+    return encode(attrDesc, csn, encodeType(modKey), value);
+  }
+
+  /**
+   * Encodes the date when the entry was added or renamed in the compact form.
+   *
+   * @param csn the CSN of the operation
+   * @param isModDN {@code true} for a MODIFYDN operation, {@code false} for an ADD operation
+   * @return the compact encoded form
+   */
+  static ByteString encodeEntryOperation(CSN csn, boolean isModDN)
+  {
+    return encode(ByteString.empty(), csn, isModDN ? TYPE_ENTRY_MODDN : TYPE_ENTRY_ADD, null);
+  }
+
+  private static ByteString encode(ByteString attrDesc, CSN csn, byte type, ByteString value)
+  {
+    int length = COMPACT_TYPE_OFFSET + 6 + attrDesc.length() + (value != null ? value.length() : 0);
+    ByteStringBuilder builder = new ByteStringBuilder(length);
+    builder.appendByte(COMPACT_MARKER);
+    csn.toByteString(builder);
+    builder.appendByte((byte) (value != null ? type | HAS_VALUE : type));
+    builder.appendCompactUnsigned(attrDesc.length());
+    builder.appendBytes(attrDesc);
+    if (value != null)
+    {
+      builder.appendBytes(value);
+    }
+    return builder.toByteString();
+  }
+
+  private static byte encodeType(HistAttrModificationKey modKey)
+  {
+    switch (modKey)
+    {
+    case ADD:
+      return TYPE_ADD;
+    case DEL:
+      return TYPE_DEL;
+    case REPL:
+      return TYPE_REPL;
+    default:
+      return TYPE_ATTRDEL;
+    }
+  }
+
+  private static HistAttrModificationKey decodeType(byte type)
+  {
+    switch (type)
+    {
+    case TYPE_ADD:
+    case TYPE_ENTRY_ADD:
+      return ADD;
+    case TYPE_DEL:
+      return DEL;
+    case TYPE_REPL:
+      return REPL;
+    case TYPE_ATTRDEL:
+      return ATTRDEL;
+    default:
+      // same as the "moddn" String form
+      return null;
+    }
+  }
+
+  private static DecodedDescription decodeDescription(ByteString descBytes)
+  {
+    Schema schema = Schema.getDefaultSchema();
+    if (descriptionsSchema != schema)
+    {
+      descriptions.clear();
+      descriptionsSchema = schema;
+    }
+    DecodedDescription decoded = descriptions.get(descBytes);
+    if (decoded == null)
+    {
+      decoded = new DecodedDescription(AttributeDescription.valueOf(descBytes.toString(), schema));
+      if (descriptions.size() >= MAX_CACHED_DESCRIPTIONS)
+      {
+        descriptions.clear();
+      }
+      descriptions.put(descBytes, decoded);
+    }
+    return decoded;
+  }
+
   /**
    * Get the String form of the attribute type.
    *
@@ -224,9 +425,9 @@ class HistoricalAttributeValue
     final StringBuilder sb = new StringBuilder();
     sb.append(attrDesc);
     sb.append(":").append(csn).append(":").append(getModificationType());
-    if (stringValue != null)
+    if (attributeValue != null)
     {
-      sb.append(":").append(stringValue);
+      sb.append(":").append(attributeValue);
     }
     return sb.toString();
   }
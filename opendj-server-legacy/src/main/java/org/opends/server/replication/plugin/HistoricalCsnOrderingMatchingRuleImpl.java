@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -81,6 +82,15 @@ public final class HistoricalCsnOrderingMatchingRuleImpl implements MatchingRule
      */
     try
     {
+      if (HistoricalAttributeValue.isCompact(value))
+      {
+        ByteSequence csn = HistoricalAttributeValue.getCompactCSNBytes(value);
+        return new ByteStringBuilder(14)
+            .appendBytes(csn.subSequence(8, 10))
+            .appendBytes(csn.subSequence(0, 8))
+            .appendBytes(csn.subSequence(10, 14))
+            .toByteString();
+      }
       int csnIndex = value.toString().indexOf(':') + 1;
       String csn = value.subSequence(csnIndex, csnIndex + 28).toString();
       return new ByteStringBuilder(14)
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -29,6 +30,7 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
@@ -66,6 +68,7 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.AVA;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.ModificationType;
@@ -80,6 +83,9 @@ import org.forgerock.opendj.server.config.server.ExternalChangelogDomainCfg;
 import org.forgerock.opendj.server.config.server.ReplicationDomainCfg;
 import org.opends.server.api.AlertGenerator;
 import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.EntryStreamable;
+import org.opends.server.api.EntryStreamable.EntryHandler;
+import org.opends.server.api.EntryStreamable.EntryStream;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.LocalBackend.BackendOperation;
 import org.opends.server.api.LocalBackendInitializationListener;
@@ -116,6 +122,7 @@ import org.opends.server.replication.protocol.AddContext;
 import org.opends.server.replication.protocol.AddMsg;
 import org.opends.server.replication.protocol.DeleteContext;
 import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.InitializeRequestMsg;
 import org.opends.server.replication.protocol.LDAPUpdateMsg;
 import org.opends.server.replication.protocol.ModifyContext;
 import org.opends.server.replication.protocol.ModifyDNMsg;
@@ -125,6 +132,7 @@ import org.opends.server.replication.protocol.OperationContext;
 import org.opends.server.replication.protocol.RoutableMsg;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.replication.service.DSRSShutdownSync;
+import org.opends.server.replication.service.EntryRecordReader;
 import org.opends.server.replication.service.ReplicationBroker;
 import org.opends.server.replication.service.ReplicationDomain;
 import org.opends.server.tasks.PurgeConflictsHistoricalTask;
@@ -136,6 +144,7 @@ import org.opends.server.types.Attributes;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
+import org.opends.server.types.EntryEncodeConfig;
 import org.opends.server.types.ExistingFileBehavior;
 import org.opends.server.types.LDAPException;
 import org.opends.server.types.LDIFExportConfig;
@@ -332,6 +341,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   private final RemotePendingChanges remotePendingChanges;
   private boolean solveConflictFlag = true;
 
+  /** The maximum number of replayed entries whose decoded historical is cached. */
+  private static final int HISTORICAL_CACHE_SIZE = 1000;
+  /** The decoded historical of the entries recently modified by replayed operations. */
+  private final EntryHistoricalCache historicalCache = new EntryHistoricalCache(HISTORICAL_CACHE_SIZE);
+
   private final InternalClientConnection conn = getRootConnection();
   private final AtomicBoolean shutdown = new AtomicBoolean();
   private volatile boolean disabled;
@@ -391,6 +405,12 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    * the fractional replication ldif import plugin.
    */
   private int importErrorMessageId = -1;
+  /**
+   * The generation ID computed by the fractional replication ldif import
+   * plugin during the last import, used instead of an export when the imported
+   * data do not carry a generation ID.
+   */
+  private volatile GenerationIdCalculator importedGenerationId;
   /** LocalizableMessage type for ERR_FULL_UPDATE_IMPORT_FRACTIONAL_BAD_REMOTE. */
   static final int IMPORT_ERROR_MESSAGE_BAD_REMOTE = 1;
   /** LocalizableMessage type for ERR_FULL_UPDATE_IMPORT_FRACTIONAL_REMOTE_IS_FRACTIONAL. */
@@ -624,6 +644,16 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     this.importErrorMessageId = importErrorMessageId;
   }
 
+  /**
+   * Sets the generation ID computed by the fractional replication ldif import
+   * plugin from the entries of the import which just completed.
+   * @param calculator The generation ID of the imported entries.
+   */
+  void setImportedGenerationId(GenerationIdCalculator calculator)
+  {
+    this.importedGenerationId = calculator;
+  }
+
   /**
    * This flag is used by the fractional replication ldif import plugin to stop
    * the (online) import process if a fractional configuration inconsistency is
@@ -1473,18 +1503,30 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    */
   @Override
   protected byte[] receiveEntryBytes()
+  {
+    return followImport() ? super.receiveEntryBytes() : null;
+  }
+
+  /**
+   * Indicates whether the next entry of the (online) import is allowed to be
+   * read, storing the error of the import when the fractional ldif import
+   * plugin is stopping it.
+   *
+   * @return true when the next entry is allowed to be read.
+   */
+  private boolean followImport()
   {
     if (isFollowImport())
     {
       // Ok, next entry is allowed to be received
-      return super.receiveEntryBytes();
+      return true;
     }
 
     // Fractional ldif import plugin detected inconsistency between local and
     // remote server fractional configuration and is stopping the import
     // process:
     // This is an error termination during the import
-    // The error is stored and the import is ended by returning null
+    // The error is stored and the import is ended by returning false
     final ImportExportContext ieCtx = getImportExportContext();
     LocalizableMessage msg = null;
     switch (importErrorMessageId)
@@ -1497,7 +1539,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       break;
     }
     ieCtx.setException(new DirectoryException(UNWILLING_TO_PERFORM, msg));
-    return null;
+    return false;
   }
 
   /**
@@ -1510,7 +1552,8 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    */
   @Override
   protected void initializeRemote(int target, int requestorID,
-    Task initTask, int initWindow) throws DirectoryException
+    Task initTask, int initWindow, InitializeRequestMsg initRequestMsg)
+    throws DirectoryException
   {
     if (target == RoutableMsg.ALL_SERVERS && fractionalConfig.isFractional())
     {
@@ -1518,7 +1561,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, msg);
     }
 
-    super.initializeRemote(target, requestorID, initTask, initWindow);
+    super.initializeRemote(target, requestorID, initTask, initWindow, initRequestMsg);
   }
 
   /**
@@ -1940,7 +1983,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
 
       // Solve the conflicts between modify operations
       EntryHistorical historicalInformation =
-        EntryHistorical.newInstanceFromEntry(modifiedEntry);
+        historicalCache.getEntryHistorical(modifiedEntry);
       modifyOperation.setAttachment(EntryHistorical.HISTORICAL,
                                     historicalInformation);
 
@@ -2410,6 +2453,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
                *  Note: When msg is a DeleteMsg, the DeleteOperation is properly
                *  created with subtreeDelete request control when needed.
                */
+              remotePendingChanges.reindex(msg);
               nextOp = msg.createOperation(conn);
             }
           }
@@ -3184,12 +3228,24 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
   /**
    * Compute the data generationId associated with the current data present
    * in the backend for this domain.
+   * The generationId computed while importing the data is used when it is
+   * known to match the data, otherwise the data are exported to compute it.
    * @return The computed generationId.
    * @throws DirectoryException When an error occurs.
    */
   private long computeGenerationId() throws DirectoryException
   {
-    final long genId = exportBackend(null, true);
+    final GenerationIdCalculator calculator = importedGenerationId;
+    importedGenerationId = null;
+    long genId = -1;
+    if (calculator != null)
+    {
+      genId = calculator.getGenerationId(getBackend().getNumberOfEntriesInBaseDN(getBaseDN()));
+    }
+    if (genId == -1)
+    {
+      genId = exportBackend(null, true);
+    }
     if (logger.isTraceEnabled())
     {
       logger.trace("Computed generationId: generationId=" + genId);
@@ -3197,6 +3253,25 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     return genId;
   }
 
+  /**
+   * Computes again the generationId from the data of this domain and stores it.
+   * The stored generationId is otherwise only computed when the domain data
+   * do not carry one, after they have been imported.
+   *
+   * @return The new generationId.
+   * @throws DirectoryException When an error occurs.
+   */
+  public long recomputeGenerationId() throws DirectoryException
+  {
+    generationId = exportBackend(null, true);
+    ResultCode result = saveGenerationId(generationId);
+    if (result != ResultCode.SUCCESS)
+    {
+      throw new DirectoryException(result, ERR_UPDATING_GENERATION_ID.get(getBaseDN(), result.getName()));
+    }
+    return generationId;
+  }
+
   /**
    * Run a modify operation to update the entry whose DN is given as
    * a parameter with the generationID information.
@@ -3391,31 +3466,10 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
       throws DirectoryException
   {
     LocalBackend<?> backend = getBackend();
-
-    //  Acquire a shared lock for the backend.
-    try
-    {
-      String lockFile = LockFileManager.getBackendLockFileName(backend);
-      StringBuilder failureReason = new StringBuilder();
-      if (! LockFileManager.acquireSharedLock(lockFile, failureReason))
-      {
-        LocalizableMessage message =
-            ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(), failureReason);
-        logger.error(message);
-        throw new DirectoryException(ResultCode.OTHER, message);
-      }
-    }
-    catch (Exception e)
-    {
-      LocalizableMessage message =
-          ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(),
-              stackTraceToSingleLineString(e));
-      logger.error(message);
-      throw new DirectoryException(ResultCode.OTHER, message);
-    }
+    acquireExportLock(backend);
 
     long numberOfEntries = backend.getNumberOfEntriesInBaseDN(getBaseDN());
-    long entryCount = Math.min(numberOfEntries, 1000);
+    long entryCount = Math.min(numberOfEntries, GenerationIdCalculator.MAX_CHECKSUM_ENTRIES);
     OutputStream os;
     ReplLDIFOutputStream ros = null;
     if (checksumOutput)
@@ -3443,13 +3497,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     // For the checksum computing mode, only consider the 'stable' attributes
     if (checksumOutput)
     {
-      String includeAttributeStrings[] = { "objectclass", "sn", "cn", "entryuuid" };
-      Set<AttributeType> includeAttributes = new HashSet<>();
-      for (String attrName : includeAttributeStrings)
-      {
-        includeAttributes.add(getServerContext().getSchema().getAttributeType(attrName));
-      }
-      exportConfig.setIncludeAttributes(includeAttributes);
+      exportConfig.setIncludeAttributes(GenerationIdCalculator.getStableAttributes(getServerContext().getSchema()));
     }
 
     //  Launch the export.
@@ -3484,29 +3532,139 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
         genID = ros.getChecksumValue();
       }
 
-      //  Release the shared lock on the backend.
-      try
+      releaseExportLock(backend);
+    }
+    return genID;
+  }
+
+  /**
+   * Acquires a shared lock on the backend for an export.
+   *
+   * @param backend The backend to export.
+   * @throws DirectoryException If the lock could not be acquired.
+   */
+  private void acquireExportLock(LocalBackend<?> backend) throws DirectoryException
+  {
+    try
+    {
+      String lockFile = LockFileManager.getBackendLockFileName(backend);
+      StringBuilder failureReason = new StringBuilder();
+      if (! LockFileManager.acquireSharedLock(lockFile, failureReason))
       {
-        String lockFile = LockFileManager.getBackendLockFileName(backend);
-        StringBuilder failureReason = new StringBuilder();
-        if (! LockFileManager.releaseLock(lockFile, failureReason))
-        {
-          LocalizableMessage message =
-              WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(), failureReason);
-          logger.warn(message);
-          throw new DirectoryException(ResultCode.OTHER, message);
-        }
+        LocalizableMessage message =
+            ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(), failureReason);
+        logger.error(message);
+        throw new DirectoryException(ResultCode.OTHER, message);
       }
-      catch (Exception e)
+    }
+    catch (Exception e)
+    {
+      LocalizableMessage message =
+          ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(),
+              stackTraceToSingleLineString(e));
+      logger.error(message);
+      throw new DirectoryException(ResultCode.OTHER, message);
+    }
+  }
+
+  /**
+   * Releases the shared lock acquired on the backend for an export.
+   *
+   * @param backend The exported backend.
+   * @throws DirectoryException If the lock could not be released.
+   */
+  private void releaseExportLock(LocalBackend<?> backend) throws DirectoryException
+  {
+    try
+    {
+      String lockFile = LockFileManager.getBackendLockFileName(backend);
+      StringBuilder failureReason = new StringBuilder();
+      if (! LockFileManager.releaseLock(lockFile, failureReason))
       {
         LocalizableMessage message =
-            WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(),
-                stackTraceToSingleLineString(e));
+            WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(), failureReason);
         logger.warn(message);
         throw new DirectoryException(ResultCode.OTHER, message);
       }
     }
-    return genID;
+    catch (Exception e)
+    {
+      LocalizableMessage message =
+          WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(),
+              stackTraceToSingleLineString(e));
+      logger.warn(message);
+      throw new DirectoryException(ResultCode.OTHER, message);
+    }
+  }
+
+  /**
+   * Indicates whether the entries of this domain can be read by range and
+   * imported from streams by the provided backend. The entries of a
+   * fractional domain must go through the fractional ldif import plugin, so
+   * they are always exported and imported as LDIF.
+   *
+   * @param backend The backend of this domain.
+   * @return true when the entries can be exported and imported as entry records.
+   */
+  private boolean isEntryStreamingSupported(LocalBackend<?> backend)
+  {
+    return !fractionalConfig.isFractional()
+        && backend instanceof EntryStreamable
+        && ((EntryStreamable) backend).isEntryStreamingSupported(getBaseDN());
+  }
+
+  @Override
+  protected long[] getEntryIDRanges(int maxRanges)
+  {
+    final LocalBackend<?> backend = getBackend();
+    if (!isEntryStreamingSupported(backend))
+    {
+      return null;
+    }
+    try
+    {
+      return ((EntryStreamable) backend).getEntryIDRanges(getBaseDN(), maxRanges);
+    }
+    catch (DirectoryException e)
+    {
+      // Fall back to an LDIF export
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  @Override
+  protected void exportEntryRecords(long lowestID, long highestID, final EntryRecordHandler handler)
+      throws DirectoryException
+  {
+    final LocalBackend<?> backend = getBackend();
+    if (!isEntryStreamingSupported(backend))
+    {
+      super.exportEntryRecords(lowestID, highestID, handler);
+      return;
+    }
+
+    acquireExportLock(backend);
+    try
+    {
+      final EntryEncodeConfig encodeConfig = new EntryEncodeConfig();
+      final ByteStringBuilder buffer = new ByteStringBuilder();
+      ((EntryStreamable) backend).readEntries(getBaseDN(), lowestID, highestID, new EntryHandler()
+      {
+        @Override
+        public boolean handleEntry(long entryID, Entry entry) throws DirectoryException
+        {
+          buffer.clear();
+          entry.encode(buffer, encodeConfig);
+          handler.handleRecord(entryID, buffer);
+          return true;
+        }
+      });
+    }
+    finally
+    {
+      releaseExportLock(backend);
+    }
   }
 
   /**
@@ -3532,6 +3690,9 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     {
       LocalizableMessage message = ERR_INIT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(), failureReason);
       logger.error(message);
+      // The import will not take place, leave the backend as it was
+      ignoreBackendInitializationEvent = false;
+      TaskUtils.enableBackend(backend.getBackendID());
       throw new DirectoryException(ResultCode.OTHER, message);
     }
   }
@@ -3549,6 +3710,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
     LDIFImportConfig importConfig = null;
     ImportExportContext ieCtx = getImportExportContext();
+    boolean importStarted = false;
     try
     {
       if (!backend.supports(BackendOperation.LDIF_IMPORT))
@@ -3575,6 +3737,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
       // Process import
       preBackendImport(backend);
+      importStarted = true;
       backend.importLDIF(importConfig, getServerContext());
     }
     catch(Exception e)
@@ -3584,38 +3747,57 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     }
     finally
     {
-      try
+      if (importConfig != null)
       {
-        // Cleanup
-        if (importConfig != null)
-        {
-          importConfig.close();
-          closeBackendImport(backend); // Re-enable backend
-          backend = getBackend();
-        }
+        importConfig.close();
+      }
+      endBackendImport(backend, importStarted, ieCtx);
+    }
 
-        loadDataState();
+    if (ieCtx.getException() != null)
+    {
+      throw ieCtx.getException();
+    }
+  }
 
-        if (ieCtx.getException() != null)
-        {
-          // When an error occurred during an import, most of times
-          // the generationId coming in the root entry of the imported data,
-          // is not valid anymore (partial data in the backend).
-          generationId = computeGenerationId();
-          saveGenerationId(generationId);
-        }
-      }
-      catch (DirectoryException fe)
-      {
-        // If we already catch an Exception it's quite possible
-        // that the loadDataState() and setGenerationId() fail
-        // so we don't bother about the new Exception.
-        // However if there was no Exception before we want
-        // to return this Exception to the task creator.
-        ieCtx.setExceptionIfNoneSet(new DirectoryException(
-            ResultCode.OTHER,
-            ERR_INIT_IMPORT_FAILURE.get(stackTraceToSingleLineString(fe))));
-      }
+  /**
+   * Imports the entry records received during an initialization. The entry
+   * records are directly imported by the backends supporting it, and are
+   * provided as LDIF to the other ones.
+   */
+  @Override
+  protected void importEntryRecords(List<EntryRecordReader> readers) throws DirectoryException
+  {
+    final LocalBackend<?> backend = getBackend();
+    if (!isEntryStreamingSupported(backend))
+    {
+      importBackend(new EntryRecordsLDIFInputStream(readers));
+      return;
+    }
+
+    final List<EntryStream> streams = new ArrayList<>(readers.size());
+    for (EntryRecordReader reader : readers)
+    {
+      streams.add(new EntryRecordStream(reader));
+    }
+
+    ImportExportContext ieCtx = getImportExportContext();
+    boolean importStarted = false;
+    try
+    {
+      // Process import
+      preBackendImport(backend);
+      importStarted = true;
+      ((EntryStreamable) backend).importEntries(getBaseDN(), streams, getServerContext());
+    }
+    catch(Exception e)
+    {
+      ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
+          ERR_INIT_IMPORT_FAILURE.get(stackTraceToSingleLineString(e))));
+    }
+    finally
+    {
+      endBackendImport(backend, importStarted, ieCtx);
     }
 
     if (ieCtx.getException() != null)
@@ -3624,6 +3806,50 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     }
   }
 
+  /**
+   * Make the cleanup operations of an import, and reload the state of the
+   * domain from the imported data.
+   *
+   * @param backend The backend implied in the import.
+   * @param importStarted Whether the backend has been prepared for the import.
+   * @param ieCtx The context of the import.
+   */
+  private void endBackendImport(LocalBackend<?> backend, boolean importStarted, ImportExportContext ieCtx)
+  {
+    // The imported entries replace the cached ones
+    historicalCache.clear();
+    try
+    {
+      // Cleanup
+      if (importStarted)
+      {
+        closeBackendImport(backend); // Re-enable backend
+      }
+
+      loadDataState();
+
+      if (ieCtx.getException() != null)
+      {
+        // When an error occurred during an import, most of times
+        // the generationId coming in the root entry of the imported data,
+        // is not valid anymore (partial data in the backend).
+        generationId = computeGenerationId();
+        saveGenerationId(generationId);
+      }
+    }
+    catch (DirectoryException fe)
+    {
+      // If we already catch an Exception it's quite possible
+      // that the loadDataState() and setGenerationId() fail
+      // so we don't bother about the new Exception.
+      // However if there was no Exception before we want
+      // to return this Exception to the task creator.
+      ieCtx.setExceptionIfNoneSet(new DirectoryException(
+          ResultCode.OTHER,
+          ERR_INIT_IMPORT_FAILURE.get(stackTraceToSingleLineString(fe))));
+    }
+  }
+
   /**
    * Make post import operations.
    * @param backend The backend implied in the import.
@@ -3650,6 +3876,116 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
   }
 
+  /** Adapts the entry records of a range to the stream of entries imported by the backend. */
+  private static final class EntryRecordStream implements EntryStream
+  {
+    private final EntryRecordReader reader;
+
+    private EntryRecordStream(EntryRecordReader reader)
+    {
+      this.reader = reader;
+    }
+
+    @Override
+    public Entry readEntry() throws IOException
+    {
+      final ByteString record = reader.readRecord();
+      if (record == null)
+      {
+        return null;
+      }
+      try
+      {
+        return Entry.decode(record.asReader());
+      }
+      catch (DirectoryException e)
+      {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      reader.close();
+    }
+  }
+
+  /**
+   * Provides the entry records of all the ranges as LDIF, for the imports
+   * which must be done through the fractional ldif import plugin or by a
+   * backend unable to import them directly.
+   */
+  private final class EntryRecordsLDIFInputStream extends InputStream
+  {
+    private final Iterator<EntryRecordReader> readers;
+    private EntryRecordReader reader;
+    private byte[] bytes = new byte[0];
+    private int pos;
+
+    private EntryRecordsLDIFInputStream(List<EntryRecordReader> readers)
+    {
+      this.readers = readers.iterator();
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      if (len == 0)
+      {
+        return 0;
+      }
+      while (pos == bytes.length)
+      {
+        if (!readNextEntry())
+        {
+          return -1;
+        }
+      }
+      final int length = Math.min(len, bytes.length - pos);
+      System.arraycopy(bytes, pos, b, off, length);
+      pos += length;
+      return length;
+    }
+
+    private boolean readNextEntry() throws IOException
+    {
+      if (!followImport())
+      {
+        return false;
+      }
+
+      ByteString record = reader != null ? reader.readRecord() : null;
+      while (record == null)
+      {
+        if (!readers.hasNext())
+        {
+          return false;
+        }
+        reader = readers.next();
+        record = reader.readRecord();
+      }
+
+      try
+      {
+        bytes = getBytes(Entry.decode(record.asReader()).toLDIFString() + EOL);
+        pos = 0;
+        return true;
+      }
+      catch (DirectoryException e)
+      {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
+
   /**
    * Retrieves a replication domain based on the baseDN.
    *
@@ -4306,6 +4642,9 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     attributes.add("remote-pending-changes-size", remotePendingChanges.getQueueSize());
     attributes.add("dependent-changes-size", remotePendingChanges.getDependentChangesSize());
     attributes.add("changes-in-progress-size", remotePendingChanges.changesInProgressSize());
+    attributes.add("replay-queue-size", updateToReplayQueue.size());
+    attributes.add("dependency-waits", remotePendingChanges.getNumDependencyWaits());
+    attributes.add("replay-lag", remotePendingChanges.getReplayLag());
   }
 
   /**
@@ -4901,6 +5240,26 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     return config.getConflictsHistoricalPurgeDelay() * 60 * 1000;
   }
 
+  /**
+   * Indicates whether the historical information is written in the compact binary form.
+   *
+   * @return {@code true} if the historical information is written in the compact binary form.
+   */
+  boolean isCompactHistorical()
+  {
+    return config.isCompactHistorical();
+  }
+
+  /**
+   * Removes the cached historical information of an entry which is written locally.
+   *
+   * @param entryDN the DN of the entry
+   */
+  void invalidateHistorical(DN entryDN)
+  {
+    historicalCache.invalidate(entryDN);
+  }
+
   /**
    * Check and purge the historical attribute on all eligible entries under this domain.
    *
@@ -4981,6 +5340,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
         CSN latestOldCSN = entryHist.getOldestCSN();
         entryHist.setPurgeDelay(getHistoricalPurgeDelay());
+        entryHist.setCompactEncoding(isCompactHistorical());
         Attribute attr = entryHist.encodeAndPurge();
 
         if(entryHist.getLastPurgedValuesCount() > 0)
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -29,9 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -98,8 +97,8 @@ public class MultimasterReplication
   private ReplicationServerListener replicationServerListener;
   private static final Map<DN, LDAPReplicationDomain> domains = new ConcurrentHashMap<>(4);
   private static final DSRSShutdownSync dsrsShutdownSync = new DSRSShutdownSync();
-  /** The queue of received update messages, to be treated by the ReplayThread threads. */
-  private static final BlockingQueue<UpdateToReplay> updateToReplayQueue = new LinkedBlockingQueue<>(10000);
+  /** The queues of received update messages of each domain, to be treated by the ReplayThread threads. */
+  private static final ReplayQueues replayQueues = new ReplayQueues();
   /** The list of ReplayThread threads. */
   private static final List<ReplayThread> replayThreads = new ArrayList<>();
   /** The configurable number of replay threads. */
@@ -191,10 +190,11 @@ public class MultimasterReplication
       ReplicationDomainCfg configuration)
       throws ConfigException
   {
+    final DN baseDN = configuration.getBaseDN();
     try
     {
       final LDAPReplicationDomain domain = new LDAPReplicationDomain(
-          configuration, updateToReplayQueue, dsrsShutdownSync);
+          configuration, replayQueues.addDomain(baseDN), dsrsShutdownSync);
       if (domains.isEmpty())
       {
         // Create the threads that will process incoming update messages
@@ -206,6 +206,7 @@ public class MultimasterReplication
     }
     catch (ConfigException e)
     {
+      replayQueues.removeDomain(baseDN);
       logger.error(ERR_COULD_NOT_START_REPLICATION, configuration.dn(),
           e.getLocalizedMessage() + " " + stackTraceToSingleLineString(e));
     }
@@ -246,6 +247,7 @@ public class MultimasterReplication
     {
       domain.delete();
     }
+    replayQueues.removeDomain(dn);
 
     // No replay threads running if no replication need
     if (domains.isEmpty()) {
@@ -301,10 +303,9 @@ public class MultimasterReplication
   {
     replayThreads.clear();
 
-    ReentrantLock switchQueueLock = new ReentrantLock();
     for (int i = 0; i < replayThreadNumber; i++)
     {
-      ReplayThread replayThread = new ReplayThread(updateToReplayQueue, switchQueueLock);
+      ReplayThread replayThread = new ReplayThread(replayQueues);
       replayThread.start();
       replayThreads.add(replayThread);
     }
@@ -447,6 +448,10 @@ public class MultimasterReplication
   {
     DN operationDN = modifyOperation.getEntryDN();
     LDAPReplicationDomain domain = findDomain(operationDN, modifyOperation);
+    if (domain != null && !modifyOperation.isSynchronizationOperation())
+    {
+      domain.invalidateHistorical(operationDN);
+    }
 
     if (domain == null || !domain.solveConflict())
     {
@@ -463,6 +468,7 @@ public class MultimasterReplication
           historicalInformation);
     }
     historicalInformation.setPurgeDelay(domain.getHistoricalPurgeDelay());
+    historicalInformation.setCompactEncoding(domain.isCompactHistorical());
     historicalInformation.setHistoricalAttrToOperation(modifyOperation);
 
     if (modifyOperation.getModifications().isEmpty())
@@ -482,6 +488,11 @@ public class MultimasterReplication
   public SynchronizationProviderResult doPreOperation(
          PreOperationDeleteOperation deleteOperation) throws DirectoryException
   {
+    LDAPReplicationDomain domain = findDomain(deleteOperation.getEntryDN(), deleteOperation);
+    if (domain != null)
+    {
+      domain.invalidateHistorical(deleteOperation.getEntryDN());
+    }
     return new SynchronizationProviderResult.ContinueProcessing();
   }
 
@@ -492,6 +503,10 @@ public class MultimasterReplication
   {
     DN operationDN = modifyDNOperation.getEntryDN();
     LDAPReplicationDomain domain = findDomain(operationDN, modifyDNOperation);
+    if (domain != null)
+    {
+      domain.invalidateHistorical(operationDN);
+    }
 
     if (domain == null || !domain.solveConflict())
     {
@@ -512,6 +527,7 @@ public class MultimasterReplication
           historicalInformation);
     }
     historicalInformation.setPurgeDelay(domain.getHistoricalPurgeDelay());
+    historicalInformation.setCompactEncoding(domain.isCompactHistorical());
 
     // Add to the operation the historical attribute : "dn:changeNumber:moddn"
     historicalInformation.setHistoricalAttrToOperation(modifyDNOperation);
@@ -538,7 +554,7 @@ public class MultimasterReplication
     }
 
     // Add to the operation the historical attribute : "dn:changeNumber:add"
-    EntryHistorical.setHistoricalAttrToOperation(addOperation);
+    EntryHistorical.setHistoricalAttrToOperation(addOperation, domain.isCompactHistorical());
 
     return new SynchronizationProviderResult.ContinueProcessing();
   }
@@ -13,22 +13,32 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import net.jcip.annotations.GuardedBy;
 
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.RDN;
 import org.opends.server.core.AddOperation;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.ModifyDNOperationBasis;
@@ -41,6 +51,7 @@ import org.opends.server.replication.protocol.LDAPUpdateMsg;
 import org.opends.server.replication.protocol.ModifyDNMsg;
 import org.opends.server.replication.protocol.OperationContext;
 import org.opends.server.types.Operation;
+import org.opends.server.util.TimeThread;
 
 /**
  * This class is used to store the list of remote changes received
@@ -50,6 +61,12 @@ import org.opends.server.types.Operation;
  * It is used to know when the ServerState must be updated and to compute
  * the dependencies between operations.
  *
+ * The changes in progress are indexed by the DN of their target entry, so
+ * that the dependencies of a change are found by looking up its DN, the DNs
+ * of its ancestors or its subtree instead of scanning all the changes in
+ * progress. A change depending on older changes only waits for these ones to
+ * be committed: it is then handed out by {@link #getNextUpdate()}.
+ *
  * One of this object is instantiated for each ReplicationDomain.
  */
 final class RemotePendingChanges
@@ -58,27 +75,82 @@ final class RemotePendingChanges
   @GuardedBy("pendingChangesLock")
   private final SortedMap<CSN, PendingChange> pendingChanges = new TreeMap<>();
 
-  /**
-   * A sorted set containing the list of PendingChanges that have
-   * not been replayed correctly because they are dependent on
-   * another change to be completed.
-   */
-  @GuardedBy("dependentChangesLock")
-  private final SortedSet<PendingChange> dependentChanges = new TreeSet<>();
-  /**
-   * {@code activeAndDependentChanges} also contains changes discovered to be dependent
-   * on currently in progress changes.
-   */
-  private final ConcurrentSkipListSet<PendingChange> activeAndDependentChanges = new ConcurrentSkipListSet<>();
-
   private final ReentrantReadWriteLock pendingChangesLock = new ReentrantReadWriteLock(true);
   private final ReentrantReadWriteLock.ReadLock pendingChangesReadLock = pendingChangesLock.readLock();
   private final ReentrantReadWriteLock.WriteLock pendingChangesWriteLock = pendingChangesLock.writeLock();
-  private final ReentrantLock dependentChangesLock = new ReentrantLock();
+
+  /**
+   * The changes marked in progress by a replay thread and not committed yet,
+   * including the ones waiting for their dependencies to be committed.
+   */
+  @GuardedBy("dependencyLock")
+  private final Map<CSN, InProgressChange> inProgressChanges = new HashMap<>();
+  /** The ADD, DELETE and MODDN changes in progress, indexed by the DN of their target entry. */
+  @GuardedBy("dependencyLock")
+  private final NavigableMap<DN, Set<InProgressChange>> changesByDN = new TreeMap<>();
+  /** The MODDN changes in progress, indexed by the new DN of their target entry. */
+  @GuardedBy("dependencyLock")
+  private final Map<DN, Set<InProgressChange>> modDNsByNewDN = new HashMap<>();
+  /** The dependent changes whose dependencies have all been committed. */
+  @GuardedBy("dependencyLock")
+  private final TreeSet<InProgressChange> readyChanges = new TreeSet<>();
+  /** The number of changes waiting for their dependencies or to be replayed again. */
+  @GuardedBy("dependencyLock")
+  private int nbDependentChanges;
+  private final ReentrantLock dependencyLock = new ReentrantLock();
+
+  /** The number of times a change had to wait for the changes it depends on. */
+  private final AtomicLong numDependencyWaits = new AtomicLong();
 
   /** The ServerState that will be updated when LDAPUpdateMsg are fully replayed. */
   private final ServerState state;
 
+  /**
+   * A change in progress: it is a node of the graph of the dependencies
+   * between the changes in progress.
+   */
+  private static final class InProgressChange implements Comparable<InProgressChange>
+  {
+    private final PendingChange change;
+    /** The DN under which this change is indexed in changesByDN, null if it is not indexed. */
+    private DN dn;
+    /** The DN under which this change is indexed in modDNsByNewDN, null if it is not indexed. */
+    private DN newDN;
+    /** The older changes which must be committed before this one can be replayed. */
+    private final Set<InProgressChange> predecessors = new HashSet<>();
+    /** The newer changes waiting for this one to be committed. */
+    private final Set<InProgressChange> dependents = new HashSet<>();
+    /** Whether this change is counted in nbDependentChanges. */
+    private boolean dependent;
+
+    private InProgressChange(PendingChange change)
+    {
+      this.change = change;
+    }
+
+    private CSN getCSN()
+    {
+      return change.getCSN();
+    }
+
+    private LDAPUpdateMsg getMsg()
+    {
+      return change.getLDAPUpdateMsg();
+    }
+
+    @Override
+    public int compareTo(InProgressChange o)
+    {
+      return change.compareTo(o.change);
+    }
+
+    @Override
+    public String toString()
+    {
+      return change.toString();
+    }
+  }
+
   /**
    * Creates a new RemotePendingChanges using the provided ServerState.
    *
@@ -115,7 +187,15 @@ final class RemotePendingChanges
    */
   public int changesInProgressSize()
   {
-    return activeAndDependentChanges.size();
+    dependencyLock.lock();
+    try
+    {
+      return inProgressChanges.size();
+    }
+    finally
+    {
+      dependencyLock.unlock();
+    }
   }
 
   /**
@@ -125,14 +205,49 @@ final class RemotePendingChanges
    */
   public int getDependentChangesSize()
   {
-    dependentChangesLock.lock();
+    dependencyLock.lock();
     try
     {
-      return dependentChanges.size();
+      return nbDependentChanges;
     }
     finally
     {
-      dependentChangesLock.unlock();
+      dependencyLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of times a change could not be replayed immediately
+   * because it depended on older changes still in progress.
+   *
+   * @return the number of times a change waited for its dependencies.
+   */
+  public long getNumDependencyWaits()
+  {
+    return numDependencyWaits.get();
+  }
+
+  /**
+   * Returns how late the replay is, computed from the time of the oldest
+   * change which has been received and not replayed yet.
+   *
+   * @return the replay lag in milliseconds, 0 if all the received changes
+   *         have been replayed.
+   */
+  public long getReplayLag()
+  {
+    pendingChangesReadLock.lock();
+    try
+    {
+      if (pendingChanges.isEmpty())
+      {
+        return 0;
+      }
+      return Math.max(0, TimeThread.getTime() - pendingChanges.firstKey().getTime());
+    }
+    finally
+    {
+      pendingChangesReadLock.unlock();
     }
   }
 
@@ -176,7 +291,6 @@ final class RemotePendingChanges
         throw new NoSuchElementException();
       }
       curChange.setCommitted(true);
-      activeAndDependentChanges.remove(curChange);
 
       final Iterator<PendingChange> it = pendingChanges.values().iterator();
       while (it.hasNext())
@@ -197,64 +311,179 @@ final class RemotePendingChanges
     {
       pendingChangesWriteLock.unlock();
     }
+
+    releaseDependents(csn);
+  }
+
+  /**
+   * Removes a committed change from the changes in progress and makes ready
+   * the changes which were only waiting for this one.
+   */
+  private void releaseDependents(CSN csn)
+  {
+    dependencyLock.lock();
+    try
+    {
+      final InProgressChange change = inProgressChanges.remove(csn);
+      if (change == null)
+      {
+        return;
+      }
+      unindex(change);
+      for (InProgressChange dependent : change.dependents)
+      {
+        dependent.predecessors.remove(change);
+        if (dependent.predecessors.isEmpty())
+        {
+          readyChanges.add(dependent);
+        }
+      }
+      // Should not happen, but do not leave dangling edges behind
+      for (InProgressChange predecessor : change.predecessors)
+      {
+        predecessor.dependents.remove(change);
+      }
+      readyChanges.remove(change);
+      if (change.dependent)
+      {
+        nbDependentChanges--;
+      }
+    }
+    finally
+    {
+      dependencyLock.unlock();
+    }
   }
 
+  /**
+   * Marks the specified message as the one currently processed by a replay
+   * thread.
+   *
+   * @param msg
+   *          the message being processed
+   */
   public void markInProgress(LDAPUpdateMsg msg)
   {
-    pendingChangesReadLock.lock();
+    final PendingChange change = getPendingChange(msg.getCSN());
+    if (change == null)
+    {
+      return;
+    }
+
+    dependencyLock.lock();
     try
     {
-      activeAndDependentChanges.add(pendingChanges.get(msg.getCSN()));
+      final InProgressChange inProgress = new InProgressChange(change);
+      inProgressChanges.put(inProgress.getCSN(), inProgress);
+      index(inProgress);
     }
     finally
     {
-      pendingChangesReadLock.unlock();
+      dependencyLock.unlock();
     }
   }
+
   /**
-   * Get the first update in the list that have some dependencies cleared.
+   * Updates the DNs under which a change in progress is indexed, after the
+   * resolution of a naming conflict modified its message.
    *
-   * @return The LDAPUpdateMsg to be handled.
+   * @param msg
+   *          the message which was modified
    */
-  public LDAPUpdateMsg getNextUpdate()
+  public void reindex(LDAPUpdateMsg msg)
   {
-    pendingChangesReadLock.lock();
-    dependentChangesLock.lock();
+    dependencyLock.lock();
     try
     {
-      if (!dependentChanges.isEmpty())
+      final InProgressChange change = inProgressChanges.get(msg.getCSN());
+      if (change != null)
       {
-        PendingChange firstDependentChange = dependentChanges.first();
-        if (pendingChanges.firstKey().isNewerThanOrEqualTo(firstDependentChange.getCSN()))
-        {
-          dependentChanges.remove(firstDependentChange);
-          return firstDependentChange.getLDAPUpdateMsg();
-        }
+        unindex(change);
+        index(change);
       }
-      return null;
     }
     finally
     {
-      dependentChangesLock.unlock();
-      pendingChangesReadLock.unlock();
+      dependencyLock.unlock();
+    }
+  }
+
+  @GuardedBy("dependencyLock")
+  private void index(InProgressChange change)
+  {
+    final LDAPUpdateMsg msg = change.getMsg();
+    if (msg instanceof AddMsg || msg instanceof DeleteMsg || msg instanceof ModifyDNMsg)
+    {
+      change.dn = msg.getDN();
+      addToIndex(changesByDN, change.dn, change);
+    }
+    if (msg instanceof ModifyDNMsg)
+    {
+      change.newDN = ((ModifyDNMsg) msg).getNewDN();
+      if (change.newDN != null)
+      {
+        addToIndex(modDNsByNewDN, change.newDN, change);
+      }
+    }
+  }
+
+  @GuardedBy("dependencyLock")
+  private void unindex(InProgressChange change)
+  {
+    if (change.dn != null)
+    {
+      removeFromIndex(changesByDN, change.dn, change);
+      change.dn = null;
+    }
+    if (change.newDN != null)
+    {
+      removeFromIndex(modDNsByNewDN, change.newDN, change);
+      change.newDN = null;
+    }
+  }
+
+  private static void addToIndex(Map<DN, Set<InProgressChange>> index, DN dn, InProgressChange change)
+  {
+    Set<InProgressChange> changes = index.get(dn);
+    if (changes == null)
+    {
+      changes = new HashSet<>();
+      index.put(dn, changes);
+    }
+    changes.add(change);
+  }
+
+  private static void removeFromIndex(Map<DN, Set<InProgressChange>> index, DN dn, InProgressChange change)
+  {
+    final Set<InProgressChange> changes = index.get(dn);
+    if (changes != null && changes.remove(change) && changes.isEmpty())
+    {
+      index.remove(dn);
     }
   }
 
   /**
-   * Mark the first pendingChange as dependent on the second PendingChange.
-   * @param dependentChange The PendingChange that depend on the second
-   *                        PendingChange.
+   * Get the first update in the list that have some dependencies cleared.
+   *
+   * @return The LDAPUpdateMsg to be handled.
    */
-  private void addDependency(PendingChange dependentChange)
+  public LDAPUpdateMsg getNextUpdate()
   {
-    dependentChangesLock.lock();
+    dependencyLock.lock();
     try
     {
-      dependentChanges.add(dependentChange);
+      final InProgressChange next = readyChanges.pollFirst();
+      if (next == null)
+      {
+        return null;
+      }
+      next.dependent = false;
+      nbDependentChanges--;
+      return next.getMsg();
     }
     finally
     {
-      dependentChangesLock.unlock();
+      dependencyLock.unlock();
     }
   }
 
@@ -271,6 +500,82 @@ final class RemotePendingChanges
     }
   }
 
+  /**
+   * Collects the changes older than the provided CSN among the provided
+   * changes of the index.
+   *
+   * @param predecessors
+   *          where to add the older changes
+   * @param changes
+   *          the changes found in the index, can be null
+   * @param csn
+   *          the CSN of the change whose dependencies are computed
+   * @param msgType
+   *          the type of the changes to collect
+   */
+  private static void collectOlder(Collection<InProgressChange> predecessors, Set<InProgressChange> changes,
+      CSN csn, Class<? extends LDAPUpdateMsg> msgType)
+  {
+    if (changes != null)
+    {
+      for (InProgressChange change : changes)
+      {
+        if (change.getCSN().isOlderThan(csn) && msgType.isInstance(change.getMsg()))
+        {
+          predecessors.add(change);
+        }
+      }
+    }
+  }
+
+  /** Collects the older changes indexed under the provided DN or under one of its ancestors. */
+  private static void collectOlderOnSuperiors(Collection<InProgressChange> predecessors,
+      Map<DN, Set<InProgressChange>> index, DN dn, CSN csn, Class<? extends LDAPUpdateMsg> msgType)
+  {
+    for (DN superior = dn; superior != null && !superior.isRootDN(); superior = superior.parent())
+    {
+      collectOlder(predecessors, index.get(superior), csn, msgType);
+    }
+  }
+
+  /** Collects the older changes indexed under the provided DN or under one of its descendants. */
+  @GuardedBy("dependencyLock")
+  private void collectOlderOnSubtree(Collection<InProgressChange> predecessors, DN dn, CSN csn,
+      Class<? extends LDAPUpdateMsg> msgType)
+  {
+    for (Set<InProgressChange> changes : changesByDN.subMap(dn, true, dn.child(RDN.maxValue()), false).values())
+    {
+      collectOlder(predecessors, changes, csn, msgType);
+    }
+  }
+
+  /**
+   * Records that the provided change must wait for its predecessors to be
+   * committed.
+   *
+   * @return whether the change has some dependencies
+   */
+  @GuardedBy("dependencyLock")
+  private boolean addDependencies(InProgressChange change, Collection<InProgressChange> predecessors)
+  {
+    if (predecessors.isEmpty())
+    {
+      return false;
+    }
+    for (InProgressChange predecessor : predecessors)
+    {
+      change.predecessors.add(predecessor);
+      predecessor.dependents.add(change);
+    }
+    if (!change.dependent)
+    {
+      change.dependent = true;
+      nbDependentChanges++;
+    }
+    numDependencyWaits.incrementAndGet();
+    return true;
+  }
+
   /**
    * Check if the given AddOperation has some dependencies on any
    * currently running previous operation.
@@ -290,61 +595,31 @@ final class RemotePendingChanges
   public boolean checkDependencies(AddOperation op)
   {
     final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-      return false;
-    }
-
-    boolean hasDependencies = false;
     final DN targetDN = op.getEntryDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+
+    dependencyLock.lock();
+    try
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
+      final InProgressChange change = inProgressChanges.get(csn);
+      if (change == null)
       {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          // it is a deleteOperation on the same DN
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof AddMsg)
-      {
-        if (pendingMsg.getDN().isSuperiorOrEqualTo(targetDN))
-        {
-          // it is an addOperation on a parent of the current AddOperation
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
-      {
-        // it is a ModifyDnOperation with the same target DN as the ADD DN
-        // or a ModifyDnOperation with new DN equals to the ADD DN parent?
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-        else
-        {
-          final ModifyDNMsg pendingModDn = (ModifyDNMsg) pendingMsg;
-          if (pendingModDn.newDNIsParent(targetDN))
-          {
-            hasDependencies = true;
-            addDependency(change);
-          }
-        }
+        return false;
       }
+
+      final List<InProgressChange> predecessors = new ArrayList<>();
+      // a deleteOperation or a ModifyDnOperation on the same DN
+      collectOlder(predecessors, changesByDN.get(targetDN), csn, DeleteMsg.class);
+      collectOlder(predecessors, changesByDN.get(targetDN), csn, ModifyDNMsg.class);
+      // an addOperation on a parent of the current AddOperation
+      collectOlderOnSuperiors(predecessors, changesByDN, targetDN, csn, AddMsg.class);
+      // a ModifyDnOperation with new DN equals to the ADD DN parent
+      collectOlderOnSuperiors(predecessors, modDNsByNewDN, targetDN, csn, ModifyDNMsg.class);
+      return addDependencies(change, predecessors);
+    }
+    finally
+    {
+      dependencyLock.unlock();
     }
-    return hasDependencies;
   }
 
   /**
@@ -364,41 +639,26 @@ final class RemotePendingChanges
   public boolean checkDependencies(ModifyOperation op)
   {
     final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-        return false;
-    }
 
-    boolean hasDependencies = false;
-    final DN targetDN = change.getLDAPUpdateMsg().getDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+    dependencyLock.lock();
+    try
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
+      final InProgressChange change = inProgressChanges.get(csn);
+      if (change == null)
       {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof AddMsg)
-      {
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          // it is an addOperation on a same DN
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
-      {
-        if (((ModifyDNMsg) pendingMsg).newDNIsEqual(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
+        return false;
       }
+
+      final DN targetDN = change.getMsg().getDN();
+      final List<InProgressChange> predecessors = new ArrayList<>();
+      collectOlder(predecessors, changesByDN.get(targetDN), csn, AddMsg.class);
+      collectOlder(predecessors, modDNsByNewDN.get(targetDN), csn, ModifyDNMsg.class);
+      return addDependencies(change, predecessors);
+    }
+    finally
+    {
+      dependencyLock.unlock();
     }
-    return hasDependencies;
   }
 
   /**
@@ -422,60 +682,52 @@ final class RemotePendingChanges
   public boolean checkDependencies(ModifyDNMsg msg)
   {
     final CSN csn = msg.getCSN();
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-      return false;
-    }
+    final DN newDN = msg.getNewDN();
+    final DN newSuperiorDN = toDN(msg.getNewSuperior());
 
-    boolean hasDependencies = false;
-    final DN targetDN = change.getLDAPUpdateMsg().getDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+    dependencyLock.lock();
+    try
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
+      final InProgressChange change = inProgressChanges.get(csn);
+      if (change == null)
       {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-        // Check if the target of the Delete is the same
-        // as the new DN of this ModifyDN
-        if (msg.newDNIsEqual(pendingMsg.getDN()))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
+        return false;
       }
-      else if (pendingMsg instanceof AddMsg)
+
+      final DN targetDN = change.getMsg().getDN();
+      final List<InProgressChange> predecessors = new ArrayList<>();
+      if (newDN != null)
       {
-        // Check if the Add Operation was done on the new parent of
-        // the MODDN  operation
-        if (msg.newParentIsEqual(pendingMsg.getDN()))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-        // Check if the AddOperation was done on the same DN as the
-        // target DN of the MODDN operation
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
+        // a DeleteOperation or a ModifyDNOperation done on the new DN of the MODDN operation
+        collectOlder(predecessors, changesByDN.get(newDN), csn, DeleteMsg.class);
+        collectOlder(predecessors, changesByDN.get(newDN), csn, ModifyDNMsg.class);
       }
-      else if (pendingMsg instanceof ModifyDNMsg)
+      if (newSuperiorDN != null)
       {
-        if (msg.newDNIsEqual(pendingMsg.getDN()))
-        {
-          // the ModifyDNOperation was done from the new DN of the MODDN operation
-          hasDependencies = true;
-          addDependency(change);
-        }
+        // an AddOperation done on the new parent of the MODDN operation
+        collectOlder(predecessors, changesByDN.get(newSuperiorDN), csn, AddMsg.class);
       }
+      // an AddOperation done on the same DN as the target DN of the MODDN operation
+      collectOlder(predecessors, changesByDN.get(targetDN), csn, AddMsg.class);
+      return addDependencies(change, predecessors);
+    }
+    finally
+    {
+      dependencyLock.unlock();
+    }
+  }
+
+  private static DN toDN(String dn)
+  {
+    try
+    {
+      return dn != null ? DN.valueOf(dn) : null;
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      // The DN was not a correct DN, and therefore does not match any change
+      return null;
     }
-    return hasDependencies;
   }
 
   /**
@@ -497,61 +749,31 @@ final class RemotePendingChanges
   public boolean checkDependencies(DeleteOperation op)
   {
     final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-      return false;
-    }
-
-    boolean hasDependencies = false;
     final DN targetDN = op.getEntryDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+
+    dependencyLock.lock();
+    try
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
-      {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-          /*
-           * Check if the operation to be run is a deleteOperation on a
-           * children of the current DeleteOperation.
-           */
-        if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof AddMsg)
-      {
-          /*
-           * Check if the operation to be run is an addOperation on a
-           * parent of the current DeleteOperation.
-           */
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
+      final InProgressChange change = inProgressChanges.get(csn);
+      if (change == null)
       {
-        final ModifyDNMsg pendingModDn = (ModifyDNMsg) pendingMsg;
-          /*
-           * Check if the operation to be run is an ModifyDNOperation
-           * on a children of the current DeleteOperation
-           */
-        if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN) || pendingModDn.newDNIsParent(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
+        return false;
       }
+
+      final List<InProgressChange> predecessors = new ArrayList<>();
+      // a deleteOperation or a ModifyDNOperation on a children of the current DeleteOperation
+      collectOlderOnSubtree(predecessors, targetDN, csn, DeleteMsg.class);
+      collectOlderOnSubtree(predecessors, targetDN, csn, ModifyDNMsg.class);
+      // an addOperation on the same DN
+      collectOlder(predecessors, changesByDN.get(targetDN), csn, AddMsg.class);
+      // a ModifyDNOperation whose new DN is a parent of the current DeleteOperation
+      collectOlderOnSuperiors(predecessors, modDNsByNewDN, targetDN, csn, ModifyDNMsg.class);
+      return addDependencies(change, predecessors);
+    }
+    finally
+    {
+      dependencyLock.unlock();
     }
-    return hasDependencies;
   }
 
   /**
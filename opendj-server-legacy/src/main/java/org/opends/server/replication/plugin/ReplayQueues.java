@@ -0,0 +1,195 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.opendj.ldap.DN;
+
+/**
+ * The queues of the updates to replay, polled by the {@link ReplayThread}s.
+ * <p>
+ * Each replication domain has its own bounded queue, so that a burst of
+ * updates received for one domain neither blocks the listener threads of the
+ * other domains nor delays the replay of their updates: the replay threads
+ * poll the queues of all the domains in turn.
+ */
+final class ReplayQueues
+{
+  /** The capacity of the queue of each domain. */
+  private static final int QUEUE_CAPACITY = 10000;
+
+  private final Map<DN, DomainQueue> queuesByBaseDN = new HashMap<>();
+  /** Copy of the values of queuesByBaseDN, iterated without locking by the replay threads. */
+  private volatile DomainQueue[] queues = new DomainQueue[0];
+  /** Roughly counts the queued updates, to let idle replay threads wait for new ones. */
+  private final Semaphore queuedUpdates = new Semaphore(0);
+  private final AtomicInteger nextQueue = new AtomicInteger();
+
+  /** The queue of updates to replay of one domain. */
+  private final class DomainQueue extends LinkedBlockingQueue<UpdateToReplay>
+  {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Ensures updates are marked in progress in the order they were queued,
+     * which is the order of their CSNs.
+     */
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    private DomainQueue()
+    {
+      super(QUEUE_CAPACITY);
+    }
+
+    @Override
+    public boolean offer(UpdateToReplay update)
+    {
+      return signalIfQueued(super.offer(update));
+    }
+
+    @Override
+    public boolean offer(UpdateToReplay update, long timeout, TimeUnit unit) throws InterruptedException
+    {
+      return signalIfQueued(super.offer(update, timeout, unit));
+    }
+
+    @Override
+    public void put(UpdateToReplay update) throws InterruptedException
+    {
+      super.put(update);
+      signalIfQueued(true);
+    }
+
+    private boolean signalIfQueued(boolean queued)
+    {
+      if (queued)
+      {
+        queuedUpdates.release();
+      }
+      return queued;
+    }
+
+    private UpdateToReplay pollAndMarkInProgress()
+    {
+      if (isEmpty())
+      {
+        return null;
+      }
+      pollLock.lock();
+      try
+      {
+        final UpdateToReplay update = poll();
+        if (update != null)
+        {
+          update.getReplicationDomain().markInProgress(update.getUpdateMessage());
+        }
+        return update;
+      }
+      finally
+      {
+        pollLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Creates the queue of the updates to replay for a replication domain.
+   *
+   * @param baseDN
+   *          the base DN of the replication domain
+   * @return the queue where the replication domain must put the updates to
+   *         replay
+   */
+  synchronized BlockingQueue<UpdateToReplay> addDomain(DN baseDN)
+  {
+    final DomainQueue queue = new DomainQueue();
+    queuesByBaseDN.put(baseDN, queue);
+    queues = queuesByBaseDN.values().toArray(new DomainQueue[queuesByBaseDN.size()]);
+    return queue;
+  }
+
+  /**
+   * Removes the queue of the updates to replay of a replication domain.
+   *
+   * @param baseDN
+   *          the base DN of the replication domain
+   */
+  synchronized void removeDomain(DN baseDN)
+  {
+    if (queuesByBaseDN.remove(baseDN) != null)
+    {
+      queues = queuesByBaseDN.values().toArray(new DomainQueue[queuesByBaseDN.size()]);
+    }
+  }
+
+  /**
+   * Retrieves an update to replay from the queue of any domain, waiting if
+   * necessary for an update to be queued, and marks it as in progress in its
+   * replication domain.
+   *
+   * @param timeout
+   *          how long to wait before giving up
+   * @param unit
+   *          the unit of the timeout parameter
+   * @return the update to replay, or {@code null} if no update was queued
+   *         before the timeout elapsed
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  UpdateToReplay poll(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    final UpdateToReplay update = pollAnyQueue();
+    if (update != null)
+    {
+      // Consume the permit of this update, unless it is about to be released
+      queuedUpdates.tryAcquire();
+      return update;
+    }
+    if (queuedUpdates.tryAcquire(timeout, unit))
+    {
+      return pollAnyQueue();
+    }
+    return null;
+  }
+
+  private UpdateToReplay pollAnyQueue()
+  {
+    final DomainQueue[] snapshot = queues;
+    if (snapshot.length == 0)
+    {
+      return null;
+    }
+    // Start from a different queue each time, so that no domain is favored
+    final int start = (nextQueue.getAndIncrement() & Integer.MAX_VALUE) % snapshot.length;
+    for (int i = 0; i < snapshot.length; i++)
+    {
+      final UpdateToReplay update = snapshot[(start + i) % snapshot.length].pollAndMarkInProgress();
+      if (update != null)
+      {
+        return update;
+      }
+    }
+    return null;
+  }
+}
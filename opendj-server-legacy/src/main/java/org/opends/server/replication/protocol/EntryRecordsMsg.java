@@ -0,0 +1,173 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.protocol;
+
+import java.util.zip.DataFormatException;
+
+/**
+ * This message is part of the replication protocol.
+ * This message is sent by a server to one or several other servers during
+ * a total update sent as entry records. It contains a batch of binary
+ * encoded entries read from one of the entry ID ranges of the exporter.
+ * <p>
+ * The records are opaque to the protocol: each record is written as a 4 bytes
+ * length followed by the encoded entry, and the whole batch is transported as
+ * is so that the importer can spool it without decoding it.
+ *
+ * @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V10}
+ */
+public class EntryRecordsMsg extends RoutableMsg
+{
+  /** Message counter shared with the other initialization messages, for flow control. */
+  private final int msgId;
+  /** Index of the entry ID range the records were read from. */
+  private final int streamId;
+  /** The entry ID following the last record of this message in its range. */
+  private final long nextEntryID;
+  /** The number of records contained in this message. */
+  private final int entryCount;
+  /** The length prefixed entry records. */
+  private final byte[] records;
+
+  /**
+   * Creates a new EntryRecordsMsg.
+   *
+   * @param serverID    The sender of this message.
+   * @param destination The destination of this message.
+   * @param msgId       Message counter.
+   * @param streamId    Index of the entry ID range the records were read from.
+   * @param nextEntryID The entry ID from which the range must be resumed after this message.
+   * @param entryCount  The number of records contained in this message.
+   * @param records     The length prefixed entry records.
+   */
+  public EntryRecordsMsg(int serverID, int destination, int msgId, int streamId, long nextEntryID, int entryCount,
+      byte[] records)
+  {
+    super(serverID, destination);
+    this.msgId = msgId;
+    this.streamId = streamId;
+    this.nextEntryID = nextEntryID;
+    this.entryCount = entryCount;
+    this.records = records;
+  }
+
+  /**
+   * Creates a new EntryRecordsMsg from its encoded form.
+   *
+   * @param in The byte array containing the encoded form of the message.
+   * @throws DataFormatException If the byte array does not contain a valid
+   *                             encoded form of the message.
+   */
+  EntryRecordsMsg(byte[] in) throws DataFormatException
+  {
+    final ByteArrayScanner scanner = new ByteArrayScanner(in);
+    if (scanner.nextByte() != MSG_TYPE_ENTRY_RECORDS)
+    {
+      throw new DataFormatException("input is not a valid "
+          + getClass().getCanonicalName());
+    }
+    senderID = scanner.nextIntUTF8();
+    destination = scanner.nextIntUTF8();
+    msgId = scanner.nextIntUTF8();
+    streamId = scanner.nextIntUTF8();
+    nextEntryID = scanner.nextLongUTF8();
+    entryCount = scanner.nextIntUTF8();
+    records = scanner.remainingBytes();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public byte[] getBytes(short protocolVersion)
+  {
+    if (protocolVersion < ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      return null;
+    }
+    final ByteArrayBuilder builder = new ByteArrayBuilder(records.length + 64);
+    builder.appendByte(MSG_TYPE_ENTRY_RECORDS);
+    builder.appendIntUTF8(senderID);
+    builder.appendIntUTF8(destination);
+    builder.appendIntUTF8(msgId);
+    builder.appendIntUTF8(streamId);
+    builder.appendLongUTF8(nextEntryID);
+    builder.appendIntUTF8(entryCount);
+    builder.appendByteArray(records);
+    return builder.toByteArray();
+  }
+
+  /**
+   * Returns the msg id.
+   *
+   * @return The msg id.
+   */
+  public int getMsgId()
+  {
+    return msgId;
+  }
+
+  /**
+   * Returns the index of the entry ID range the records were read from.
+   *
+   * @return The index of the entry ID range the records were read from.
+   */
+  public int getStreamId()
+  {
+    return streamId;
+  }
+
+  /**
+   * Returns the entry ID from which the range must be resumed after this message.
+   *
+   * @return The entry ID from which the range must be resumed after this message.
+   */
+  public long getNextEntryID()
+  {
+    return nextEntryID;
+  }
+
+  /**
+   * Returns the number of records contained in this message.
+   *
+   * @return The number of records contained in this message.
+   */
+  public int getEntryCount()
+  {
+    return entryCount;
+  }
+
+  /**
+   * Returns the length prefixed entry records.
+   *
+   * @return The length prefixed entry records.
+   */
+  public byte[] getRecords()
+  {
+    return records;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "=[" +
+      " sender=" + senderID +
+      " destination=" + destination +
+      " msgID=" + msgId +
+      " streamId=" + streamId +
+      " nextEntryID=" + nextEntryID +
+      " entryCount=" + entryCount + "]";
+  }
+}
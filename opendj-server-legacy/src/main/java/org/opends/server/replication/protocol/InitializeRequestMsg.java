@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -31,6 +32,14 @@ public class InitializeRequestMsg extends RoutableMsg
   private final DN baseDN;
   private int initWindow;
 
+  /**
+   * The lowest (inclusive) entry IDs of the ranges of an interrupted total
+   * update that the requester asks to resume, or an empty array.
+   */
+  private final long[] resumeStarts;
+  /** The highest (exclusive) entry IDs of the ranges to resume. */
+  private final long[] resumeEnds;
+
   /**
    * Creates a InitializeRequestMsg message.
    *
@@ -41,10 +50,28 @@ public class InitializeRequestMsg extends RoutableMsg
    */
   public InitializeRequestMsg(DN baseDN, int serverID, int destination,
       int initWindow)
+  {
+    this(baseDN, serverID, destination, initWindow, new long[0], new long[0]);
+  }
+
+  /**
+   * Creates a InitializeRequestMsg message resuming an interrupted total update.
+   *
+   * @param baseDN       the base DN of the replication domain.
+   * @param serverID     serverID of the server that will send this message
+   * @param destination  destination of this message
+   * @param initWindow   initialization window for flow control
+   * @param resumeStarts the lowest (inclusive) entry IDs of the ranges to resume
+   * @param resumeEnds   the highest (exclusive) entry IDs of the ranges to resume
+   */
+  public InitializeRequestMsg(DN baseDN, int serverID, int destination, int initWindow, long[] resumeStarts,
+      long[] resumeEnds)
   {
     super(serverID, destination);
     this.baseDN = baseDN;
     this.initWindow = initWindow; // V4
+    this.resumeStarts = resumeStarts; // V10
+    this.resumeEnds = resumeEnds; // V10
   }
 
   /**
@@ -71,6 +98,23 @@ public class InitializeRequestMsg extends RoutableMsg
     {
       initWindow = scanner.nextIntUTF8();
     }
+
+    if (version >= ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      final int nbRanges = scanner.nextIntUTF8();
+      resumeStarts = new long[nbRanges];
+      resumeEnds = new long[nbRanges];
+      for (int i = 0; i < nbRanges; i++)
+      {
+        resumeStarts[i] = scanner.nextLongUTF8();
+        resumeEnds[i] = scanner.nextLongUTF8();
+      }
+    }
+    else
+    {
+      resumeStarts = new long[0];
+      resumeEnds = new long[0];
+    }
   }
 
   /**
@@ -83,6 +127,36 @@ public class InitializeRequestMsg extends RoutableMsg
     return baseDN;
   }
 
+  /**
+   * Returns the lowest (inclusive) entry IDs of the ranges to resume.
+   *
+   * @return the lowest entry IDs of the ranges to resume, empty when no resume is requested
+   */
+  public long[] getResumeStarts()
+  {
+    return resumeStarts;
+  }
+
+  /**
+   * Returns the highest (exclusive) entry IDs of the ranges to resume.
+   *
+   * @return the highest entry IDs of the ranges to resume, empty when no resume is requested
+   */
+  public long[] getResumeEnds()
+  {
+    return resumeEnds;
+  }
+
+  /**
+   * Indicates whether this request asks to resume an interrupted total update.
+   *
+   * @return true if this request asks to resume an interrupted total update
+   */
+  public boolean isResumeRequested()
+  {
+    return resumeStarts.length > 0;
+  }
+
   // ============
   // Msg encoding
   // ============
@@ -100,6 +174,15 @@ public class InitializeRequestMsg extends RoutableMsg
     {
       builder.appendIntUTF8(initWindow);
     }
+    if (version >= ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      builder.appendIntUTF8(resumeStarts.length);
+      for (int i = 0; i < resumeStarts.length; i++)
+      {
+        builder.appendLongUTF8(resumeStarts[i]);
+        builder.appendLongUTF8(resumeEnds[i]);
+      }
+    }
     return builder.toByteArray();
   }
 
@@ -111,7 +194,8 @@ public class InitializeRequestMsg extends RoutableMsg
   public String toString()
   {
     return "InitializeRequestMessage: baseDN=" + baseDN + " senderId="
-       + senderID + " destination=" + destination + " initWindow=" + initWindow;
+       + senderID + " destination=" + destination + " initWindow=" + initWindow
+       + " resumedRanges=" + resumeStarts.length;
   }
 
   /**
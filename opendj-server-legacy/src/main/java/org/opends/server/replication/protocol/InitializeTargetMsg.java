@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -41,6 +42,16 @@ public class InitializeTargetMsg extends RoutableMsg
 
   private int initWindow;
 
+  /**
+   * The lowest (inclusive) entry IDs of the ranges sent as entry records, or
+   * an empty array when the entries are sent in LDIF.
+   */
+  private final long[] rangeStarts;
+  /** The highest (exclusive) entry IDs of the ranges sent as entry records. */
+  private final long[] rangeEnds;
+  /** Whether the ranges resume a total update previously interrupted. */
+  private final boolean resumed;
+
   /**
    * Creates a InitializeTargetMsg.
    *
@@ -53,12 +64,34 @@ public class InitializeTargetMsg extends RoutableMsg
    */
   public InitializeTargetMsg(DN baseDN, int serverID,
       int destination, int requestorID, long entryCount, int initWindow)
+  {
+    this(baseDN, serverID, destination, requestorID, entryCount, initWindow, new long[0], new long[0], false);
+  }
+
+  /**
+   * Creates a InitializeTargetMsg announcing entries sent as entry records.
+   *
+   * @param baseDN     The base DN for which the InitializeMessage is created.
+   * @param serverID   The serverID of the server that sends this message.
+   * @param destination     The destination of this message.
+   * @param requestorID    The server that initiates this export.
+   * @param entryCount The count of entries that will be sent.
+   * @param initWindow the initialization window.
+   * @param rangeStarts The lowest (inclusive) entry IDs of the ranges that will be sent.
+   * @param rangeEnds   The highest (exclusive) entry IDs of the ranges that will be sent.
+   * @param resumed    Whether the ranges resume a total update previously interrupted.
+   */
+  public InitializeTargetMsg(DN baseDN, int serverID, int destination, int requestorID, long entryCount,
+      int initWindow, long[] rangeStarts, long[] rangeEnds, boolean resumed)
   {
     super(serverID, destination);
     this.requestorID = requestorID;
     this.baseDN = baseDN;
     this.entryCount = entryCount;
     this.initWindow = initWindow; // V4
+    this.rangeStarts = rangeStarts; // V10
+    this.rangeEnds = rangeEnds; // V10
+    this.resumed = resumed; // V10
   }
 
   /**
@@ -87,6 +120,25 @@ public class InitializeTargetMsg extends RoutableMsg
     {
       initWindow = scanner.nextIntUTF8();
     }
+
+    if (version >= ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      final int nbRanges = scanner.nextIntUTF8();
+      rangeStarts = new long[nbRanges];
+      rangeEnds = new long[nbRanges];
+      for (int i = 0; i < nbRanges; i++)
+      {
+        rangeStarts[i] = scanner.nextLongUTF8();
+        rangeEnds[i] = scanner.nextLongUTF8();
+      }
+      resumed = scanner.nextBoolean();
+    }
+    else
+    {
+      rangeStarts = new long[0];
+      rangeEnds = new long[0];
+      resumed = false;
+    }
   }
 
   /**
@@ -130,6 +182,46 @@ public class InitializeTargetMsg extends RoutableMsg
     return this.initWindow;
   }
 
+  /**
+   * Returns the lowest (inclusive) entry IDs of the ranges sent as entry records.
+   *
+   * @return the lowest entry IDs of the ranges, empty when the entries are sent in LDIF
+   */
+  public long[] getRangeStarts()
+  {
+    return rangeStarts;
+  }
+
+  /**
+   * Returns the highest (exclusive) entry IDs of the ranges sent as entry records.
+   *
+   * @return the highest entry IDs of the ranges, empty when the entries are sent in LDIF
+   */
+  public long[] getRangeEnds()
+  {
+    return rangeEnds;
+  }
+
+  /**
+   * Indicates whether the entries are sent as entry records instead of LDIF.
+   *
+   * @return true if the entries are sent as entry records
+   */
+  public boolean isEntryRecords()
+  {
+    return rangeStarts.length > 0;
+  }
+
+  /**
+   * Indicates whether the ranges resume a total update previously interrupted.
+   *
+   * @return true if the ranges resume a total update previously interrupted
+   */
+  public boolean isResumed()
+  {
+    return resumed;
+  }
+
   // ============
   // Msg encoding
   // ============
@@ -149,6 +241,16 @@ public class InitializeTargetMsg extends RoutableMsg
     {
       builder.appendIntUTF8(initWindow);
     }
+    if (version >= ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      builder.appendIntUTF8(rangeStarts.length);
+      for (int i = 0; i < rangeStarts.length; i++)
+      {
+        builder.appendLongUTF8(rangeStarts[i]);
+        builder.appendLongUTF8(rangeEnds[i]);
+      }
+      builder.appendBoolean(resumed);
+    }
     return builder.toByteArray();
   }
 
@@ -0,0 +1,315 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Queue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Frames the encoded replication messages written to and read from a
+ * {@link Session}.
+ * <p>
+ * Two kinds of frames can be found on the wire:
+ * <ul>
+ * <li>a single message prefixed with its length written as 8 ASCII hexadecimal
+ * digits. This is the only frame understood by peers older than
+ * {@link ProtocolVersion#REPLICATION_PROTOCOL_V9}.</li>
+ * <li>a batch of messages, starting with a marker byte which can never be an
+ * hexadecimal digit, followed by the binary length of the batch. Each message
+ * of the batch is prefixed with its binary length. When the marker carries the
+ * compressed flag, the batch is deflated by a compression stream shared by all
+ * the compressed batches of the session, so that later batches benefit from the
+ * dictionary built by the earlier ones.</li>
+ * </ul>
+ * Frames describe themselves, so the reader accepts both kinds whatever the
+ * protocol version negotiated with the peer.
+ * <p>
+ * The write methods must only be called by one thread at a time, and so must
+ * the read methods.
+ */
+final class MessageBatchCodec
+{
+  /** Marker of a batch frame: it is outside of the range of ASCII characters. */
+  static final int BATCH_MARKER = 0x80;
+  /** Flag set on the batch marker when the batch is compressed. */
+  static final int COMPRESSED_FLAG = 0x01;
+  /** Batches smaller than this are never compressed, the gain would not pay for the CPU. */
+  static final int MIN_COMPRESSED_BATCH_LENGTH = 512;
+
+  /** Length of the binary lengths written in batch frames. */
+  private static final int INT_LENGTH = 4;
+
+  /*
+   * Scratch buffers are never shared by the write and read methods, since they
+   * are called concurrently by the sending and the receiving threads.
+   */
+  private final byte[] legacyLengthBuf = new byte[8];
+  private final byte[] writeIntBuf = new byte[INT_LENGTH];
+  private final byte[] readIntBuf = new byte[INT_LENGTH];
+  private final byte[] deflateBuf = new byte[8192];
+  private final byte[] extraInflateBuf = new byte[1];
+
+  /** Lazily created, because most batches of encrypted sessions are never compressed. */
+  private Deflater deflater;
+  private Inflater inflater;
+  private boolean ended;
+
+  /**
+   * Writes a single message prefixed with its ASCII hexadecimal length.
+   *
+   * @param output
+   *          the stream where to write the message
+   * @param message
+   *          the encoded message
+   * @throws IOException
+   *           if the message could not be written
+   */
+  void writeMessage(OutputStream output, byte[] message) throws IOException
+  {
+    output.write(String.format("%08x", message.length).getBytes());
+    output.write(message);
+  }
+
+  /**
+   * Writes several messages as a single batch frame.
+   *
+   * @param output
+   *          the stream where to write the batch
+   * @param messages
+   *          the encoded messages
+   * @param compress
+   *          whether the batch may be compressed. Batches shorter than
+   *          {@link #MIN_COMPRESSED_BATCH_LENGTH} are never compressed.
+   * @throws IOException
+   *           if the batch could not be written
+   */
+  void writeBatch(OutputStream output, List<byte[]> messages, boolean compress) throws IOException
+  {
+    int length = 0;
+    for (byte[] message : messages)
+    {
+      length += INT_LENGTH + message.length;
+    }
+    final ByteArrayBuilder builder = new ByteArrayBuilder(length);
+    for (byte[] message : messages)
+    {
+      builder.appendInt(message.length);
+      builder.appendByteArray(message);
+    }
+    final byte[] batch = builder.toByteArray();
+
+    if (compress && batch.length >= MIN_COMPRESSED_BATCH_LENGTH)
+    {
+      final byte[] deflated = deflate(batch);
+      output.write(BATCH_MARKER | COMPRESSED_FLAG);
+      writeInt(output, deflated.length);
+      writeInt(output, batch.length);
+      output.write(deflated);
+    }
+    else
+    {
+      output.write(BATCH_MARKER);
+      writeInt(output, batch.length);
+      output.write(batch);
+    }
+  }
+
+  private synchronized byte[] deflate(byte[] batch) throws IOException
+  {
+    if (deflater == null)
+    {
+      ensureNotEnded();
+      deflater = new Deflater(Deflater.BEST_SPEED);
+    }
+    deflater.setInput(batch);
+    final ByteArrayOutputStream deflated = new ByteArrayOutputStream(batch.length / 2);
+    int length;
+    do
+    {
+      // SYNC_FLUSH ends the batch on a byte boundary without resetting the dictionary
+      length = deflater.deflate(deflateBuf, 0, deflateBuf.length, Deflater.SYNC_FLUSH);
+      deflated.write(deflateBuf, 0, length);
+    }
+    while (length == deflateBuf.length);
+    return deflated.toByteArray();
+  }
+
+  private void writeInt(OutputStream output, int i) throws IOException
+  {
+    writeIntBuf[0] = (byte) (i >>> 24);
+    writeIntBuf[1] = (byte) (i >>> 16);
+    writeIntBuf[2] = (byte) (i >>> 8);
+    writeIntBuf[3] = (byte) i;
+    output.write(writeIntBuf);
+  }
+
+  /**
+   * Reads the next frame and appends the messages it contains to the provided
+   * queue.
+   *
+   * @param input
+   *          the stream where to read the frame from
+   * @param messages
+   *          the queue where to append the encoded messages read
+   * @throws IOException
+   *           if the frame could not be read
+   * @throws DataFormatException
+   *           if the frame is not correctly encoded
+   */
+  void readFrame(InputStream input, Queue<byte[]> messages) throws IOException, DataFormatException
+  {
+    final int marker = input.read();
+    if (marker == -1)
+    {
+      throw new IOException("no more data");
+    }
+
+    if ((marker & ~COMPRESSED_FLAG) != BATCH_MARKER)
+    {
+      legacyLengthBuf[0] = (byte) marker;
+      read(input, legacyLengthBuf, 1);
+      final int length = Integer.parseInt(new String(legacyLengthBuf), 16);
+      messages.add(read(input, allocate(length), 0));
+      return;
+    }
+
+    final int length = readLength(input);
+    final byte[] batch;
+    if ((marker & COMPRESSED_FLAG) != 0)
+    {
+      final int inflatedLength = readLength(input);
+      batch = inflate(read(input, allocate(length), 0), allocate(inflatedLength));
+    }
+    else
+    {
+      batch = read(input, allocate(length), 0);
+    }
+
+    final ByteArrayScanner scanner = new ByteArrayScanner(batch);
+    int remaining = batch.length;
+    while (remaining > 0)
+    {
+      final int messageLength = remaining >= INT_LENGTH ? scanner.nextInt() : -1;
+      remaining -= INT_LENGTH;
+      if (messageLength < 0 || messageLength > remaining)
+      {
+        throw new DataFormatException("Invalid message length " + messageLength + " in a batch of "
+            + batch.length + " bytes");
+      }
+      messages.add(scanner.nextByteArray(messageLength));
+      remaining -= messageLength;
+    }
+  }
+
+  private synchronized byte[] inflate(byte[] deflated, byte[] batch) throws IOException, DataFormatException
+  {
+    if (inflater == null)
+    {
+      ensureNotEnded();
+      inflater = new Inflater();
+    }
+    inflater.setInput(deflated);
+    int length = 0;
+    while (length < batch.length)
+    {
+      final int inflated = inflater.inflate(batch, length, batch.length - length);
+      if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflater.finished()))
+      {
+        throw new DataFormatException("Compressed batch is shorter than its announced length " + batch.length);
+      }
+      length += inflated;
+    }
+    // Consume the end of the flushed block, which does not produce any data
+    while (!inflater.needsInput() && !inflater.finished())
+    {
+      if (inflater.inflate(extraInflateBuf) != 0)
+      {
+        throw new DataFormatException("Compressed batch is longer than its announced length " + batch.length);
+      }
+    }
+    return batch;
+  }
+
+  private int readLength(InputStream input) throws IOException, DataFormatException
+  {
+    read(input, readIntBuf, 0);
+    final int length = ((readIntBuf[0] & 0xFF) << 24) | ((readIntBuf[1] & 0xFF) << 16)
+        | ((readIntBuf[2] & 0xFF) << 8) | (readIntBuf[3] & 0xFF);
+    if (length < 0)
+    {
+      throw new DataFormatException("Invalid batch length " + length);
+    }
+    return length;
+  }
+
+  private byte[] allocate(int length) throws IOException
+  {
+    try
+    {
+      return new byte[length];
+    }
+    catch (final OutOfMemoryError e)
+    {
+      throw new IOException("Packet too large, can't allocate " + length + " bytes.");
+    }
+  }
+
+  private byte[] read(InputStream input, byte[] buffer, int offset) throws IOException
+  {
+    int length = offset;
+    while (length < buffer.length)
+    {
+      final int read = input.read(buffer, length, buffer.length - length);
+      if (read == -1)
+      {
+        throw new IOException("no more data");
+      }
+      length += read;
+    }
+    return buffer;
+  }
+
+  private void ensureNotEnded() throws IOException
+  {
+    if (ended)
+    {
+      throw new IOException("The session is closed");
+    }
+  }
+
+  /** Releases the native resources held by the compression streams. */
+  synchronized void end()
+  {
+    ended = true;
+    if (deflater != null)
+    {
+      deflater.end();
+      deflater = null;
+    }
+    if (inflater != null)
+    {
+      inflater.end();
+      inflater = null;
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -84,6 +85,9 @@ public abstract class ReplicationMsg
   /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V8} */
   static final byte MSG_TYPE_REPLICA_OFFLINE = 37;
 
+  /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V10} */
+  static final byte MSG_TYPE_ENTRY_RECORDS = 38;
+
   // Adding a new type of message here probably requires to
   // change accordingly generateMsg method below
 
@@ -202,6 +206,8 @@ public abstract class ReplicationMsg
       return new InitializeRcvAckMsg(buffer);
     case MSG_TYPE_REPLICA_OFFLINE:
       return new ReplicaOfflineMsg(buffer);
+    case MSG_TYPE_ENTRY_RECORDS:
+      return new EntryRecordsMsg(buffer);
     default:
       throw new DataFormatException("received message with unknown type");
     }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -26,6 +27,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -48,11 +55,16 @@ public final class Session extends DirectoryThread implements Closeable
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Maximum number of queued messages sent in a single batch by the session thread. */
+  private static final int MAX_BATCH_MESSAGES = 256;
+
   private final Socket plainSocket;
   private final SSLSocket secureSocket;
   private final InputStream plainInput;
   private final OutputStream plainOutput;
-  private final byte[] rcvLengthBuf = new byte[8];
+  private final MessageBatchCodec codec = new MessageBatchCodec();
+  /** Messages of the last received batch which have not been returned by receive() yet. */
+  private final Queue<byte[]> receivedMessages = new ArrayDeque<>();
   private final String readableRemoteAddress;
   private final HostPort remoteAddress;
   private final HostPort localUrl;
@@ -82,6 +94,14 @@ public final class Session extends DirectoryThread implements Closeable
    * initial single threaded handshake.
    */
   private short protocolVersion = ProtocolVersion.getCurrentVersion();
+  /**
+   * Only enabled once the peer has announced it understands batch frames.
+   * Volatile because it is set by the thread performing the handshake while
+   * the session thread may already be sending.
+   */
+  private volatile boolean useBatchFrames;
+  /** Whether batches sent on this session may be compressed, when it is not encrypted. */
+  private volatile boolean batchCompressionEnabled;
   /** Initially encrypted. */
   private boolean isEncrypted = true;
 
@@ -201,6 +221,7 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     StaticUtils.close(plainSocket, secureSocket);
+    codec.end();
   }
 
 
@@ -334,30 +355,43 @@ public final class Session extends DirectoryThread implements Closeable
     }
     else
     {
-      send(buffer);
+      send(Collections.singletonList(buffer));
     }
   }
 
-  /** Sends a replication message already encoded to the socket.
+  /**
+   * Sends replication messages already encoded to the socket, flushing them
+   * only once.
+   * <p>
+   * When the peer supports it, the messages are sent as a single batch frame
+   * which is compressed if batch compression is enabled and the session is no
+   * longer encrypted: compressing before encrypting would leak information
+   * about the content.
    *
-   * @param buffer
-   *          the encoded buffer
-   * @throws IOException if the message could not be sent
+   * @param buffers
+   *          the encoded buffers
+   * @throws IOException if the messages could not be sent
    */
-  private void send(final byte[] buffer) throws IOException
+  private void send(final List<byte[]> buffers) throws IOException
   {
-    final String str = String.format("%08x", buffer.length);
-    final byte[] sendLengthBuf = str.getBytes();
-
     publishLock.lock();
     try
     {
       /*
-       * The buffered output stream ensures that the message is usually sent as
-       * a single TCP packet.
+       * The buffered output stream ensures that the messages are usually sent
+       * as a single TCP packet.
        */
-      output.write(sendLengthBuf);
-      output.write(buffer);
+      if (useBatchFrames)
+      {
+        codec.writeBatch(output, buffers, batchCompressionEnabled && !isEncrypted);
+      }
+      else
+      {
+        for (byte[] buffer : buffers)
+        {
+          codec.writeMessage(output, buffer);
+        }
+      }
       output.flush();
     } catch (final IOException e) {
       setSessionError(e);
@@ -393,69 +427,62 @@ public final class Session extends DirectoryThread implements Closeable
   {
     try
     {
-      /*
-       * Let's start the stop-watch before waiting on read for the heartbeat
-       * check to be operational.
-       */
-      lastReceiveTime = System.currentTimeMillis();
-
-      // Read the first 8 bytes containing the packet length.
-      read(rcvLengthBuf);
-      final int totalLength = Integer.parseInt(new String(rcvLengthBuf), 16);
-
-      try
+      if (receivedMessages.isEmpty())
       {
-        final byte[] buffer = new byte[totalLength];
-        read(buffer);
-
         /*
-         * We do not want the heartbeat to close the session when we are
-         * processing a message even a time consuming one.
+         * Let's start the stop-watch before waiting on read for the heartbeat
+         * check to be operational.
          */
-        lastReceiveTime = 0;
-        return ReplicationMsg.generateMsg(buffer, protocolVersion);
-      }
-      catch (final OutOfMemoryError e)
-      {
-        throw new IOException("Packet too large, can't allocate "
-            + totalLength + " bytes.");
+        lastReceiveTime = System.currentTimeMillis();
+        codec.readFrame(input, receivedMessages);
       }
+
+      /*
+       * We do not want the heartbeat to close the session when we are
+       * processing a message even a time consuming one.
+       */
+      lastReceiveTime = 0;
+      return ReplicationMsg.generateMsg(receivedMessages.remove(), protocolVersion);
     }
     catch (final IOException | DataFormatException | NotSupportedOldVersionPDUException | RuntimeException e)
     {
-      setSessionError(e);
-      throw e;
-    }
-  }
-
-  private void read(byte[] buffer) throws IOException
-  {
-    final int totalLength = buffer.length;
-    int length = 0;
-    while (length < totalLength)
-    {
-      final int read = input.read(buffer, length, totalLength - length);
-      if (read == -1)
+      if (!(e instanceof SocketTimeoutException))
       {
         lastReceiveTime = 0;
-        throw new IOException("no more data");
       }
-      length += read;
+      setSessionError(e);
+      throw e;
     }
   }
 
   /**
    * This method is called at the establishment of the session and can
    * be used to record the version of the protocol that is currently used.
+   * <p>
+   * It is called once the start message of the peer has been received, so
+   * from then on messages are sent in batch frames if the peer supports them.
    *
    * @param version The version of the protocol that is currently used.
    */
   public void setProtocolVersion(final short version)
   {
     protocolVersion = version;
+    useBatchFrames = version >= ProtocolVersion.REPLICATION_PROTOCOL_V9;
   }
 
 
+  /**
+   * Sets whether the batches of messages sent on this session may be compressed.
+   * Batches are never compressed while the session is encrypted.
+   *
+   * @param enabled
+   *          {@code true} if the batches may be compressed
+   */
+  public void setBatchCompressionEnabled(final boolean enabled)
+  {
+    batchCompressionEnabled = enabled;
+  }
+
   /**
    * Returns the version of the protocol that is currently used.
    *
@@ -521,7 +548,8 @@ public final class Session extends DirectoryThread implements Closeable
 
   /**
    * Run method for the Session.
-   * Loops waiting for buffers from the queue and sends them when available.
+   * Loops waiting for buffers from the queue and sends them in batches when
+   * available.
    */
   @Override
   public void run()
@@ -533,26 +561,29 @@ public final class Session extends DirectoryThread implements Closeable
       logger.trace(getName() + " starting.");
     }
     boolean needClosing = false;
+    final List<byte[]> buffers = new ArrayList<>(MAX_BATCH_MESSAGES);
     while (!closeInitiated)
     {
-      byte[] buffer;
       try
       {
-        buffer = sendQueue.take();
+        buffers.add(sendQueue.take());
       }
       catch (InterruptedException ie)
       {
         break;
       }
+      // Send the messages queued in the meantime along with the first one
+      sendQueue.drainTo(buffers, MAX_BATCH_MESSAGES - 1);
       try
       {
-        send(buffer);
+        send(buffers);
       }
       catch (IOException e)
       {
         setSessionError(e);
         needClosing = true;
       }
+      buffers.clear();
     }
     isRunning.set(false);
     if (needClosing)
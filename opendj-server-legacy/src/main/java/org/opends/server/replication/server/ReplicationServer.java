@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -245,6 +246,7 @@ public class ReplicationServer
           {
             continue;
           }
+          session.setBatchCompressionEnabled(config.isBatchCompressionEnabled());
         }
         catch (Exception e)
         {
@@ -404,6 +406,7 @@ public class ReplicationServer
       int timeoutMS = MultimasterReplication.getConnectionTimeoutMS();
       socket.connect(remoteServerAddress.toInetSocketAddress(), timeoutMS);
       session = replSessionSecurity.createClientSession(socket, timeoutMS);
+      session.setBatchCompressionEnabled(config.isBatchCompressionEnabled());
 
       ReplicationServerHandler rsHandler = new ReplicationServerHandler(
           session, config.getQueueSize(), this, config.getWindowSize());
@@ -888,6 +891,14 @@ public class ReplicationServer
       }
     }
 
+    if (config.isChangelogGroupCommitEnabled() != oldConfig.isChangelogGroupCommitEnabled()
+        || config.getChangelogGroupCommitMaxDelay() != oldConfig.getChangelogGroupCommitMaxDelay()
+        || config.getChangelogGroupCommitMaxSize() != oldConfig.getChangelogGroupCommitMaxSize())
+    {
+      this.changelogDB.setGroupCommit(config.isChangelogGroupCommitEnabled(),
+          config.getChangelogGroupCommitMaxDelay(), config.getChangelogGroupCommitMaxSize());
+    }
+
     cryptoSuite.newParameters(config.getCipherTransformation(), config.getCipherKeyLength(),
         config.isConfidentialityEnabled());
 
@@ -1068,6 +1079,38 @@ public class ReplicationServer
     return this.config.getAssuredTimeout();
   }
 
+  /**
+   * Returns whether updates are persisted to the changelog using group commit.
+   *
+   * @return true if changelog group commit is enabled
+   */
+  public boolean isChangelogGroupCommitEnabled()
+  {
+    return this.config.isChangelogGroupCommitEnabled();
+  }
+
+  /**
+   * Get the maximum time (in milliseconds) updates are accumulated before a
+   * changelog group commit.
+   *
+   * @return The changelog group commit maximum delay.
+   */
+  public long getChangelogGroupCommitMaxDelay()
+  {
+    return this.config.getChangelogGroupCommitMaxDelay();
+  }
+
+  /**
+   * Get the maximum number of bytes accumulated before a changelog group
+   * commit.
+   *
+   * @return The changelog group commit maximum size.
+   */
+  public long getChangelogGroupCommitMaxSize()
+  {
+    return this.config.getChangelogGroupCommitMaxSize();
+  }
+
   /**
    * Get The replication server group id.
    * @return The replication server group id.
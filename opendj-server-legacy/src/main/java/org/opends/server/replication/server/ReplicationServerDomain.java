@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -327,6 +328,13 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       return;
     }
 
+    if (preparedAssuredInfo != null && preparedAssuredInfo.ackOnPublish)
+    {
+      // The update is now stored in the changelog (and persisted to the file
+      // system when group commit is enabled): the source can be acknowledged
+      sourceHandler.send(new AckMsg(updateMsg.getCSN()));
+    }
+
     final List<Integer> assuredServers = getAssuredServers(updateMsg, preparedAssuredInfo);
 
     /**
@@ -573,6 +581,12 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
        * received. Null if expectedServers is null.
        */
       public ExpectedAcksInfo expectedAcksInfo;
+
+      /**
+       * Whether the ack must be sent back to the source server as soon as the
+       * update is stored in the changelog, without waiting for other acks.
+       */
+      public boolean ackOnPublish;
   }
 
   /**
@@ -660,7 +674,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
 
   /**
    * Process a just received assured update message in Safe Data mode. If the
-   * ack can be sent immediately, it is done here. This will also determine to
+   * ack can be sent as soon as the update is stored, it is flagged here. This will also determine to
    * which suitable servers an ack should be requested from, and which ones are
    * not eligible for an ack request.
    * This method is an helper method for the put method. Have a look at the put
@@ -678,6 +692,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   {
     CSN csn = update.getCSN();
     boolean interestedInAcks = false;
+    boolean ackOnPublish = false;
     byte safeDataLevel = update.getSafeDataLevel();
     byte groupId = localReplicationServer.getGroupId();
     byte sourceGroupId = sourceHandler.getGroupId();
@@ -696,11 +711,11 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
           if (safeDataLevel == (byte) 1)
           {
             /**
-             * Immediately return the ack for an assured message in safe data
-             * mode with safe data level 1, coming from a DS. No need to wait
-             * for more acks
+             * Return the ack for an assured message in safe data mode with
+             * safe data level 1, coming from a DS, as soon as it is stored.
+             * No need to wait for more acks
              */
-            sourceHandler.send(new AckMsg(csn));
+            ackOnPublish = true;
           } else
           {
             /**
@@ -720,7 +735,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
            */
           if (safeDataLevel > (byte) 1)
           {
-            sourceHandler.send(new AckMsg(csn));
+            ackOnPublish = true;
           }
         }
     }
@@ -733,6 +748,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
 
     // Return computed structures
     PreparedAssuredInfo preparedAssuredInfo = new PreparedAssuredInfo();
+    preparedAssuredInfo.ackOnPublish = ackOnPublish;
     int nExpectedServers = expectedServers.size();
     if (interestedInAcks) // interestedInAcks so level > 1
     {
@@ -754,8 +770,8 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       } else
       {
         // level > 1 and source is a DS but no eligible servers found, send the
-        // ack immediately
-        sourceHandler.send(new AckMsg(csn));
+        // ack as soon as the update is stored
+        preparedAssuredInfo.ackOnPublish = true;
       }
     }
 
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.api;
 
@@ -58,6 +59,23 @@ public interface ChangelogDB
   void setComputeChangeNumber(boolean computeChangeNumber)
       throws ChangelogException;
 
+  /**
+   * Sets the group commit parameters of the replication database. Can be
+   * called while the database is running.
+   * <p>
+   * When group commit is enabled, publishing an update returns only once the
+   * update is persisted to the file system, and updates published concurrently
+   * are persisted together by a single synchronization.
+   *
+   * @param enabled
+   *          whether group commit is enabled
+   * @param maxDelayInMillis
+   *          the maximum time updates are accumulated before being persisted
+   * @param maxSizeInBytes
+   *          the maximum number of bytes accumulated before being persisted
+   */
+  void setGroupCommit(boolean enabled, long maxDelayInMillis, long maxSizeInBytes);
+
   /**
    * Shutdown the replication database.
    *
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -24,6 +25,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -44,6 +46,10 @@ import org.opends.server.util.StaticUtils;
  * <p>
  * The reader provides both sequential access, using the {@code readRecord()} method,
  * and reasonably fast random access, using the {@code seekToRecord(K, boolean)} method.
+ * <p>
+ * The log file is read either with positional reads on a {@code RandomAccessFile}, or
+ * from a buffer mapping the whole file in memory. Memory mapping is only suitable for
+ * files which are no longer written, and avoids a system call for each read.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -69,7 +75,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
 
   private final RecordParser<K, V> parser;
 
-  private final RandomAccessFile reader;
+  private final LogFileInput reader;
 
   private final File file;
 
@@ -91,7 +97,28 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReader(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser)
   {
-    return new BlockLogReader<>(file, reader, parser, BLOCK_SIZE);
+    return new BlockLogReader<>(file, new RandomAccessFileInput(reader), parser, BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a reader for the provided file, memory mapped content and parser.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param file
+   *          The log file to read, which must not be written anymore.
+   * @param mappedFile
+   *          The buffer mapping the whole log file. It is not modified by the reader.
+   * @param parser
+   *          The parser to decode the records read.
+   * @return a new log reader
+   */
+  static <K extends Comparable<K>, V> BlockLogReader<K, V> newMappedReader(
+      final File file, final ByteBuffer mappedFile, final RecordParser<K, V> parser)
+  {
+    return new BlockLogReader<>(file, new MappedFileInput(file, mappedFile), parser, BLOCK_SIZE);
   }
 
   /**
@@ -117,11 +144,37 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReaderForTests(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, int blockSize)
   {
-    return new BlockLogReader<>(file, reader, parser, blockSize);
+    return new BlockLogReader<>(file, reader != null ? new RandomAccessFileInput(reader) : null, parser, blockSize);
+  }
+
+  /**
+   * Creates a reader for the provided file, memory mapped content, parser and block size.
+   * <p>
+   * This method is intended for tests only, to allow tuning of the block size.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param file
+   *          The log file to read.
+   * @param mappedFile
+   *          The buffer mapping the whole log file.
+   * @param parser
+   *          The parser to decode the records read.
+   * @param blockSize
+   *          The size of each block, or frequency at which the record offset is
+   *          present in the log file.
+   * @return a new log reader
+   */
+  static <K extends Comparable<K>, V> BlockLogReader<K, V> newMappedReaderForTests(
+      final File file, final ByteBuffer mappedFile, final RecordParser<K, V> parser, int blockSize)
+  {
+    return new BlockLogReader<>(file, new MappedFileInput(file, mappedFile), parser, blockSize);
   }
 
   private BlockLogReader(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, final int blockSize)
+      final File file, final LogFileInput reader, final RecordParser<K, V> parser, final int blockSize)
   {
     this.file = file;
     this.reader = reader;
@@ -265,9 +318,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     reader.seek(blockStartPosition);
     if (blockStartPosition > 0)
     {
-      final byte[] offsetData = new byte[SIZE_OF_BLOCK_OFFSET];
-      reader.readFully(offsetData);
-      final int offsetToRecord = ByteString.wrap(offsetData).toInt();
+      final int offsetToRecord = reader.readInt();
       if (offsetToRecord > 0)
       {
         reader.seek(blockStartPosition - offsetToRecord);
@@ -305,7 +356,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       {
         if (distanceToBlockStart != 0)
         {
-          recordBytes.appendBytes(reader, distanceToBlockStart);
+          reader.readFully(recordBytes, distanceToBlockStart);
         }
         // skip the offset
         reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
@@ -318,7 +369,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       if (remainingBytesToRead > 0)
       {
         // last bytes of the record
-        recordBytes.appendBytes(reader, remainingBytesToRead);
+        reader.readFully(recordBytes, remainingBytesToRead);
       }
       return recordBytes.toByteString();
     }
@@ -354,24 +405,21 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   /** Read the length of a record. */
   private int readRecordLength(final int distanceToBlockStart) throws IOException
   {
-    final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
     if (distanceToBlockStart > 0 && distanceToBlockStart < SIZE_OF_RECORD_SIZE)
     {
-      lengthBytes.appendBytes(reader, distanceToBlockStart);
+      final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
+      reader.readFully(lengthBytes, distanceToBlockStart);
       // skip the offset
       reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      reader.readFully(lengthBytes, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      return lengthBytes.toByteString().toInt();
     }
-    else
+    if (distanceToBlockStart == 0)
     {
-      if (distanceToBlockStart == 0)
-      {
-        // skip the offset
-        reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      }
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE);
+      // skip the offset
+      reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
     }
-    return lengthBytes.toByteString().toInt();
+    return reader.readInt();
   }
 
   /**
@@ -639,4 +687,164 @@ Record<K, V> getNewestRecord() throws ChangelogException
      throw new ChangelogException(ERR_CHANGELOG_CANNOT_READ_NEWEST_RECORD.get(file.getPath()), e);
    }
  }
+
+  /** Random access to the content of a log file. */
+  private interface LogFileInput extends Closeable
+  {
+    long length() throws IOException;
+
+    long getFilePointer() throws IOException;
+
+    void seek(long position) throws IOException;
+
+    /** Skips up to the provided number of bytes, stopping at the end of file. */
+    void skipBytes(int length) throws IOException;
+
+    /** Reads a big-endian int, throwing an {@code EOFException} if the end of file is reached. */
+    int readInt() throws IOException;
+
+    /** Appends the provided number of bytes, throwing an {@code EOFException} if the end of file is reached. */
+    void readFully(ByteStringBuilder builder, int length) throws IOException;
+  }
+
+  /** Reads a log file with positional reads, as needed for the file still being written. */
+  private static final class RandomAccessFileInput implements LogFileInput
+  {
+    private final RandomAccessFile file;
+
+    private RandomAccessFileInput(RandomAccessFile file)
+    {
+      this.file = file;
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+      return file.length();
+    }
+
+    @Override
+    public long getFilePointer() throws IOException
+    {
+      return file.getFilePointer();
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      file.seek(position);
+    }
+
+    @Override
+    public void skipBytes(int length) throws IOException
+    {
+      file.skipBytes(length);
+    }
+
+    @Override
+    public int readInt() throws IOException
+    {
+      return file.readInt();
+    }
+
+    @Override
+    public void readFully(ByteStringBuilder builder, int length) throws IOException
+    {
+      builder.appendBytes(file, length);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      file.close();
+    }
+
+    @Override
+    public String toString()
+    {
+      return file.toString();
+    }
+  }
+
+  /**
+   * Reads a log file from a buffer mapping the whole file, without any system call.
+   * Each input has its own view of the mapped buffer, so that the positions of
+   * concurrent readers are independent.
+   */
+  private static final class MappedFileInput implements LogFileInput
+  {
+    private final File file;
+    private final ByteBuffer buffer;
+
+    private MappedFileInput(File file, ByteBuffer mappedFile)
+    {
+      this.file = file;
+      this.buffer = mappedFile.duplicate();
+      this.buffer.clear();
+    }
+
+    @Override
+    public long length()
+    {
+      return buffer.limit();
+    }
+
+    @Override
+    public long getFilePointer()
+    {
+      return buffer.position();
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      if (position < 0)
+      {
+        throw new IOException("Negative seek offset");
+      }
+      // Same as RandomAccessFile, seeking past the end of file is allowed: next reads hit the end of file
+      buffer.position((int) Math.min(position, buffer.limit()));
+    }
+
+    @Override
+    public void skipBytes(int length)
+    {
+      buffer.position(Math.min(buffer.position() + length, buffer.limit()));
+    }
+
+    @Override
+    public int readInt() throws IOException
+    {
+      ensureRemaining(4);
+      return buffer.getInt();
+    }
+
+    @Override
+    public void readFully(ByteStringBuilder builder, int length) throws IOException
+    {
+      ensureRemaining(length);
+      builder.appendBytes(buffer, length);
+    }
+
+    private void ensureRemaining(int length) throws EOFException
+    {
+      if (buffer.remaining() < length)
+      {
+        buffer.position(buffer.limit());
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public void close()
+    {
+      // The mapping is shared by all the readers of the file, it is released by the pool.
+    }
+
+    @Override
+    public String toString()
+    {
+      return "MappedFileInput(" + file + ")";
+    }
+  }
 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -160,6 +161,9 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
 
   /**
    * Writes the provided byte string to the log file.
+   * <p>
+   * The record and the block offsets it spans are first assembled in memory, so that the record
+   * costs a single write to the underlying file.
    *
    * @param record
    *            The value to write.
@@ -179,6 +183,8 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
     int dataPosition = 0;
     int dataRemaining = data.length();
     final int dataSizeForOneBlock = blockSize - SIZE_OF_BLOCK_OFFSET;
+    final ByteStringBuilder output =
+        new ByteStringBuilder(data.length() + SIZE_OF_BLOCK_OFFSET * (1 + data.length() / dataSizeForOneBlock));
 
     while (distanceToBlockStart < dataRemaining)
     {
@@ -186,19 +192,20 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
       {
         // append part of record
         final int dataEndPosition = dataPosition + distanceToBlockStart;
-        writer.write(data.subSequence(dataPosition, dataEndPosition));
+        output.appendBytes(data.subSequence(dataPosition, dataEndPosition));
         dataPosition = dataEndPosition;
         dataRemaining -= distanceToBlockStart;
       }
       // append the offset to the record
-      writer.write(ByteString.valueOfInt(cumulatedDistanceToBeginning));
+      output.appendInt(cumulatedDistanceToBeginning);
 
       // next step
       distanceToBlockStart = dataSizeForOneBlock;
       cumulatedDistanceToBeginning += blockSize;
     }
     // append the remaining bytes to finish the record
-    writer.write(data.subSequence(dataPosition, data.length()));
+    output.appendBytes(data.subSequence(dataPosition, data.length()));
+    output.copyTo(writer);
   }
 
 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -283,6 +284,8 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     try
     {
       replicationEnv = new ReplicationEnvironment(dbDirectory.getAbsolutePath(), replicationServer, TimeService.SYSTEM);
+      setGroupCommit(replicationServer.isChangelogGroupCommitEnabled(),
+          replicationServer.getChangelogGroupCommitMaxDelay(), replicationServer.getChangelogGroupCommitMaxSize());
       final ChangelogState changelogState = replicationEnv.getChangelogState();
       initializeToChangelogState(changelogState);
       if (replicationServer.isChangeNumberEnabled())
@@ -579,6 +582,15 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     }
   }
 
+  @Override
+  public void setGroupCommit(final boolean enabled, final long maxDelayInMillis, final long maxSizeInBytes)
+  {
+    if (replicationEnv != null)
+    {
+      replicationEnv.setGroupCommit(enabled, maxDelayInMillis, maxSizeInBytes);
+    }
+  }
+
   private void startCNPurger()
   {
     final ChangelogDBPurger newPurger = new ChangelogDBPurger();
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -32,6 +33,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -185,6 +187,12 @@ final class Log<K extends Comparable<K>, V> implements Closeable
    */
   private final ReplicationEnvironment replicationEnv;
 
+  /** The number of bytes appended to this log since it was opened, used as position for group commit. */
+  private final AtomicLong appendedBytes = new AtomicLong();
+
+  /** The thread persisting appended records when group commit is enabled, {@code null} otherwise. */
+  private volatile LogSyncer syncer;
+
   /**
    * Open a log with the provided log path, record parser and maximum size per
    * log file.
@@ -407,14 +415,31 @@ final class Log<K extends Comparable<K>, V> implements Closeable
    * <p>
    * In order to ensure that record is written out of buffers and persisted
    * to file system, it is necessary to explicitly call the
-   * {@code syncToFileSystem()} method.
+   * {@code syncToFileSystem()} method, unless group commit is enabled: this
+   * method then returns once the record is persisted.
    *
    * @param record
    *          The record to add.
    * @throws ChangelogException
    *           If an error occurs while adding the record to the log.
+   * @see #setGroupCommit(boolean, long, long)
    */
   public void append(final Record<K, V> record) throws ChangelogException
+  {
+    final long position = doAppend(record);
+    final LogSyncer logSyncer = syncer;
+    if (position > 0 && logSyncer != null)
+    {
+      logSyncer.awaitDurable(position);
+    }
+  }
+
+  /**
+   * Adds the provided record at the end of this log.
+   *
+   * @return the position reached in this log by the record, or 0 if the record was not appended
+   */
+  private long doAppend(final Record<K, V> record) throws ChangelogException
   {
     // Fast-path - assume that no rotation is needed and use shared lock.
     sharedLock.lock();
@@ -422,13 +447,12 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     {
       if (isClosed)
       {
-        return;
+        return 0;
       }
       LogFile<K, V> headLogFile = getHeadLogFile();
       if (!mustRotate(headLogFile))
       {
-        headLogFile.append(record);
-        return;
+        return toPosition(headLogFile.append(record));
       }
     }
     finally
@@ -442,13 +466,13 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     {
       if (isClosed)
       {
-        return;
+        return 0;
       }
       LogFile<K, V> headLogFile = getHeadLogFile();
       if (headLogFile.appendWouldBreakKeyOrdering(record))
       {
         // abort rotation
-        return;
+        return 0;
       }
       if (mustRotate(headLogFile))
       {
@@ -457,7 +481,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
         rotateHeadLogFile();
         headLogFile = getHeadLogFile();
       }
-      headLogFile.append(record);
+      return toPosition(headLogFile.append(record));
     }
     finally
     {
@@ -465,6 +489,11 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  private long toPosition(final long bytesWritten)
+  {
+    return bytesWritten > 0 ? appendedBytes.addAndGet(bytesWritten) : 0;
+  }
+
   private boolean mustRotate(LogFile<K, V> headLogFile)
   {
     if (headLogFile.getNewestRecord() == null)
@@ -516,6 +545,78 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Synchronize the head log file with the file system without blocking
+   * concurrent appends. Read-only log files are synchronized when the head log
+   * file is rotated.
+   *
+   * @return the position in this log up to which records are persisted
+   * @throws ChangelogException
+   *           If the synchronization fails.
+   */
+  long syncHeadLogFile() throws ChangelogException
+  {
+    // Shared lock prevents the head log file from being rotated or closed concurrently
+    sharedLock.lock();
+    try
+    {
+      final long position = appendedBytes.get();
+      if (!isClosed)
+      {
+        getHeadLogFile().syncToFileSystem();
+      }
+      return position;
+    }
+    finally
+    {
+      sharedLock.unlock();
+    }
+  }
+
+  /**
+   * Enables or disables group commit on this log.
+   * <p>
+   * When group commit is enabled, {@link #append(Record)} returns once the
+   * record is persisted to the file system, and records appended concurrently
+   * are persisted together by a single synchronization.
+   *
+   * @param enabled
+   *          Whether group commit is enabled.
+   * @param maxDelayInMillis
+   *          Maximum time records are accumulated before being persisted.
+   * @param maxSizeInBytes
+   *          Maximum number of bytes accumulated before being persisted.
+   */
+  void setGroupCommit(final boolean enabled, final long maxDelayInMillis, final long maxSizeInBytes)
+  {
+    exclusiveLock.lock();
+    try
+    {
+      final LogSyncer oldSyncer = syncer;
+      if (isClosed || (enabled && oldSyncer != null && oldSyncer.hasParameters(maxDelayInMillis, maxSizeInBytes)))
+      {
+        return;
+      }
+      if (enabled)
+      {
+        syncer = new LogSyncer(this, maxDelayInMillis, maxSizeInBytes);
+        syncer.start();
+      }
+      else
+      {
+        syncer = null;
+      }
+      if (oldSyncer != null)
+      {
+        oldSyncer.shutdown();
+      }
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
+  }
+
   /**
    * Returns a cursor that allows to retrieve the records from this log,
    * starting at the first position.
@@ -929,6 +1030,12 @@ final class Log<K extends Comparable<K>, V> implements Closeable
       }
       StaticUtils.close(logFiles.values());
       isClosed = true;
+      if (syncer != null)
+      {
+        // log files were synchronized when closed, waiting writers are released by the syncer
+        syncer.shutdown();
+        syncer = null;
+      }
     }
     finally
     {
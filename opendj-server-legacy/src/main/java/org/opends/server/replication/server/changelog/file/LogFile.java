@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -36,6 +37,8 @@ import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.file.Log.RepositionableCursor;
 import org.opends.server.util.StaticUtils;
 
+import com.forgerock.opendj.util.OperatingSystem;
+
 /**
  * A log file, containing part of a {@code Log}. The log file may be:
  * <ul>
@@ -108,7 +111,9 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     sharedLock = rwLock.readLock();
     createLogFileIfNotExists();
 
-    readerPool = new LogReaderPool<>(logfile, parser);
+    // Files which are not written anymore are memory mapped, except on Windows
+    // where a file cannot be deleted by a purge while it is mapped.
+    readerPool = new LogReaderPool<>(logfile, parser, !isWriteEnabled && !OperatingSystem.isWindows());
     if (isWriteEnabled)
     {
       ensureLogFileIsValid(parser);
@@ -242,10 +247,11 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    *
    * @param record
    *          The record to add.
+   * @return the number of bytes written to the log file, or 0 if the record was not added
    * @throws ChangelogException
    *           If the record can't be added to the log.
    */
-  void append(final Record<K, V> record) throws ChangelogException
+  long append(final Record<K, V> record) throws ChangelogException
   {
     checkLogIsEnabledForWrite();
     exclusiveLock.lock();
@@ -253,10 +259,12 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     {
       if (appendWouldBreakKeyOrdering(record))
       {
-        return;
+        return 0;
       }
+      final long bytesWrittenBefore = writer.getBytesWritten();
       writer.write(record);
       newestRecord = record;
+      return writer.getBytesWritten() - bytesWrittenBefore;
     }
     finally
     {
@@ -314,6 +322,10 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    * <p>
    * After a successful call to this method, it is guaranteed that all records
    * added to the log are persisted to the file system.
+   * <p>
+   * Records can be appended while the synchronization is in progress, so that
+   * they can be persisted by the next one. Callers must ensure this log file is
+   * not closed concurrently.
    *
    * @throws ChangelogException
    *           If the synchronization fails.
@@ -321,7 +333,6 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
   void syncToFileSystem() throws ChangelogException
   {
     checkLogIsEnabledForWrite();
-    sharedLock.lock();
     try
     {
       writer.sync();
@@ -330,10 +341,6 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     {
       throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_SYNC.get(getPath()), e);
     }
-    finally
-    {
-      sharedLock.unlock();
-    }
   }
 
   /**
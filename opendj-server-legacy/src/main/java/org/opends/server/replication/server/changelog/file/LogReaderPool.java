@@ -12,11 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
@@ -25,7 +30,9 @@ import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A Pool of readers to a log file.
-
+ * <p>
+ * Readers on a log file which is not written anymore may read it from a single
+ * memory mapping shared by all the readers, instead of using positional reads.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -40,8 +47,14 @@ class LogReaderPool<K extends Comparable<K>, V>
 
   private final RecordParser<K, V> parser;
 
+  /** Indicates whether the file should be read from a memory mapping. Guarded by this. */
+  private boolean isMemoryMapped;
+
+  /** The memory mapping of the whole file, created on first read. Guarded by this. */
+  private ByteBuffer mappedFile;
+
   /**
-   * Creates a pool of readers for provided file.
+   * Creates a pool of readers for provided file, using positional reads.
    *
    * @param file
    *          The file to read.
@@ -49,9 +62,26 @@ class LogReaderPool<K extends Comparable<K>, V>
    *          The parser to decode the records read.
    */
   LogReaderPool(File file, RecordParser<K, V> parser)
+  {
+    this(file, parser, false);
+  }
+
+  /**
+   * Creates a pool of readers for provided file.
+   *
+   * @param file
+   *          The file to read.
+   * @param parser
+   *          The parser to decode the records read.
+   * @param isMemoryMapped
+   *          Indicates whether the file should be read from a memory mapping.
+   *          This must only be used for files which are not written anymore.
+   */
+  LogReaderPool(File file, RecordParser<K, V> parser, boolean isMemoryMapped)
   {
     this.file = file;
     this.parser = parser;
+    this.isMemoryMapped = isMemoryMapped;
   }
 
   /**
@@ -66,7 +96,34 @@ class LogReaderPool<K extends Comparable<K>, V>
    */
   BlockLogReader<K, V> get() throws ChangelogException
   {
-    return getReader(file);
+    final ByteBuffer mapping = getMappedFile();
+    return mapping != null ? BlockLogReader.newMappedReader(file, mapping, parser) : getReader(file);
+  }
+
+  /** Returns the memory mapping of the file, or {@code null} if the file must be read with positional reads. */
+  private synchronized ByteBuffer getMappedFile() throws ChangelogException
+  {
+    if (isMemoryMapped && mappedFile == null)
+    {
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+          FileChannel channel = randomAccessFile.getChannel())
+      {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+        {
+          // A buffer cannot map more than 2GB
+          isMemoryMapped = false;
+          return null;
+        }
+        // The mapping remains valid once the channel is closed
+        mappedFile = channel.map(MapMode.READ_ONLY, 0, size);
+      }
+      catch (IOException e)
+      {
+        throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+      }
+    }
+    return mappedFile;
   }
 
   /**
@@ -100,9 +157,11 @@ class LogReaderPool<K extends Comparable<K>, V>
    * Shutdown this pool, releasing all files handles opened
    * on the file.
    */
-  void shutdown()
+  synchronized void shutdown()
   {
-    // Nothing to do yet as no file handle is kept opened.
+    // No file handle is kept opened. The mapping is released by the garbage collector
+    // once the readers still using it are released.
+    mappedFile = null;
   }
 
 }
@@ -0,0 +1,261 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+
+/**
+ * Thread implementing group commit for a log: records appended concurrently to the log are
+ * persisted together by a single synchronization of the head log file with the file system.
+ * <p>
+ * Positions are expressed as the number of bytes appended to the log since it was opened. A writer
+ * which appended a record waits in {@link #awaitDurable(long)} until the position reached by its
+ * record is persisted. The first waiter opens a batch, which is synchronized once the max delay has
+ * elapsed or once the pending bytes reach the max size, whichever comes first. Writers arriving
+ * while a synchronization is in progress form the next batch.
+ */
+final class LogSyncer extends DirectoryThread
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The log to synchronize. */
+  private final Log<?, ?> log;
+
+  /** Maximum time a batch stays open before it is synchronized. */
+  private final long maxDelayInNanos;
+
+  /** Maximum number of pending bytes before a batch is synchronized. */
+  private final long maxSizeInBytes;
+
+  /** The highest position waited for by a writer. */
+  @GuardedBy("this")
+  private long requestedPosition;
+
+  /** The highest position known to be persisted. */
+  @GuardedBy("this")
+  private long durablePosition;
+
+  /** The highest position for which the last synchronization failed. */
+  @GuardedBy("this")
+  private long failedPosition;
+
+  /** The cause of the last failed synchronization. */
+  @GuardedBy("this")
+  private ChangelogException failure;
+
+  /** Time in nanoseconds at which the pending batch was opened. */
+  @GuardedBy("this")
+  private long batchStartTime;
+
+  /** Indicates if this thread has stopped, in which case writers must synchronize by themselves. */
+  @GuardedBy("this")
+  private boolean stopped;
+
+  /**
+   * Creates a new group commit thread for the provided log.
+   *
+   * @param log
+   *          The log to synchronize.
+   * @param maxDelayInMillis
+   *          Maximum time a batch stays open before it is synchronized.
+   * @param maxSizeInBytes
+   *          Maximum number of pending bytes before a batch is synchronized.
+   */
+  LogSyncer(final Log<?, ?> log, final long maxDelayInMillis, final long maxSizeInBytes)
+  {
+    super("Changelog group commit " + log.getPath().getPath());
+    this.log = log;
+    this.maxDelayInNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayInMillis);
+    this.maxSizeInBytes = maxSizeInBytes;
+    setDaemon(true);
+  }
+
+  /**
+   * Indicates if this thread uses the provided parameters.
+   *
+   * @param maxDelayInMillis
+   *          Maximum time a batch stays open before it is synchronized.
+   * @param maxSizeInBytes
+   *          Maximum number of pending bytes before a batch is synchronized.
+   * @return {@code true} if the parameters are the ones of this thread
+   */
+  boolean hasParameters(final long maxDelayInMillis, final long maxSizeInBytes)
+  {
+    return maxDelayInNanos == TimeUnit.MILLISECONDS.toNanos(maxDelayInMillis) && this.maxSizeInBytes == maxSizeInBytes;
+  }
+
+  /**
+   * Waits until all the bytes appended to the log up to the provided position are persisted to the
+   * file system.
+   *
+   * @param position
+   *          The position reached by the record appended by the caller.
+   * @throws ChangelogException
+   *           If the synchronization of the batch containing the position failed.
+   */
+  void awaitDurable(final long position) throws ChangelogException
+  {
+    synchronized (this)
+    {
+      if (!stopped)
+      {
+        if (requestedPosition <= getHandledPosition())
+        {
+          batchStartTime = System.nanoTime();
+        }
+        requestedPosition = Math.max(requestedPosition, position);
+        notifyAll();
+
+        boolean interrupted = false;
+        while (durablePosition < position && !stopped)
+        {
+          if (position <= failedPosition)
+          {
+            restoreInterruptStatus(interrupted);
+            throw new ChangelogException(failure.getMessageObject(), failure);
+          }
+          try
+          {
+            wait();
+          }
+          catch (InterruptedException e)
+          {
+            // the record is already in the log, it must be persisted before returning
+            interrupted = true;
+          }
+        }
+        restoreInterruptStatus(interrupted);
+        if (durablePosition >= position)
+        {
+          return;
+        }
+      }
+    }
+    // group commit was stopped concurrently
+    log.syncHeadLogFile();
+  }
+
+  private void restoreInterruptStatus(final boolean interrupted)
+  {
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @GuardedBy("this")
+  private long getHandledPosition()
+  {
+    return Math.max(durablePosition, failedPosition);
+  }
+
+  /**
+   * Stops this thread. Pending batches are synchronized before the thread exits, and writers
+   * waiting after that synchronize the log by themselves.
+   */
+  void shutdown()
+  {
+    initiateShutdown();
+    synchronized (this)
+    {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void run()
+  {
+    try
+    {
+      while (waitForBatch())
+      {
+        sync();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      synchronized (this)
+      {
+        stopped = true;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until the pending batch must be synchronized.
+   *
+   * @return {@code true} if the pending batch must be synchronized, {@code false} if the thread
+   *         must stop
+   */
+  private synchronized boolean waitForBatch() throws InterruptedException
+  {
+    while (true)
+    {
+      final boolean hasPendingBatch = requestedPosition > getHandledPosition();
+      if (isShutdownInitiated())
+      {
+        return hasPendingBatch;
+      }
+      if (!hasPendingBatch)
+      {
+        wait();
+        continue;
+      }
+      final long remainingNanos = maxDelayInNanos - (System.nanoTime() - batchStartTime);
+      if (remainingNanos <= 0 || requestedPosition - getHandledPosition() >= maxSizeInBytes)
+      {
+        return true;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+    }
+  }
+
+  /** Synchronizes the head log file and releases the writers of the batch. */
+  private void sync()
+  {
+    try
+    {
+      final long position = log.syncHeadLogFile();
+      synchronized (this)
+      {
+        durablePosition = Math.max(durablePosition, position);
+        batchStartTime = System.nanoTime();
+        notifyAll();
+      }
+    }
+    catch (ChangelogException e)
+    {
+      logger.traceException(e);
+      synchronized (this)
+      {
+        failedPosition = requestedPosition;
+        failure = e;
+        notifyAll();
+      }
+    }
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -249,6 +250,15 @@ class ReplicationEnvironment implements ChangelogStateProvider
    * It is persisted to file each time it changes and read at server start. */
   private long cnIndexDBLastRotationTime;
 
+  /** For replica DBs, whether group commit is enabled. It can be modified at any time. */
+  private volatile boolean groupCommitEnabled;
+
+  /** For replica DBs, the maximum time records are accumulated before a group commit. */
+  private volatile long groupCommitMaxDelay;
+
+  /** For replica DBs, the maximum number of bytes accumulated before a group commit. */
+  private volatile long groupCommitMaxSize;
+
   /**
    * Creates the replication environment.
    *
@@ -286,6 +296,27 @@ class ReplicationEnvironment implements ChangelogStateProvider
     }
   }
 
+  /**
+   * Sets the group commit parameters of the replica DBs.
+   *
+   * @param enabled
+   *          whether group commit is enabled.
+   * @param maxDelayInMillis
+   *          maximum time records are accumulated before being persisted.
+   * @param maxSizeInBytes
+   *          maximum number of bytes accumulated before being persisted.
+   */
+  void setGroupCommit(boolean enabled, long maxDelayInMillis, long maxSizeInBytes)
+  {
+    groupCommitMaxDelay = maxDelayInMillis;
+    groupCommitMaxSize = maxSizeInBytes;
+    groupCommitEnabled = enabled;
+    for (Log<CSN, UpdateMsg> log : logsReplicaDB)
+    {
+      log.setGroupCommit(enabled, maxDelayInMillis, maxSizeInBytes);
+    }
+  }
+
   /**
    * Returns the state of the replication changelog.
    *
@@ -368,8 +399,10 @@ class ReplicationEnvironment implements ChangelogStateProvider
         ensureGenerationIdFileExists(generationIdPath);
         changelogState.setDomainGenerationId(domainDN, generationId);
 
-        return openLog(serverIdPath, FileReplicaDB.newReplicaDBParser(cryptoSuite),
+        final Log<CSN, UpdateMsg> log = openLog(serverIdPath, FileReplicaDB.newReplicaDBParser(cryptoSuite),
             new LogRotationParameters(REPLICA_DB_MAX_LOG_FILE_SIZE_IN_BYTES, 0, 0), logsReplicaDB);
+        log.setGroupCommit(groupCommitEnabled, groupCommitMaxDelay, groupCommitMaxSize);
+        return log;
       }
     }
     catch (Exception e)
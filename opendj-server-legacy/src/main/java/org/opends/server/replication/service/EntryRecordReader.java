@@ -0,0 +1,81 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.service;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.forgerock.opendj.ldap.ByteString;
+
+/**
+ * Reads the entry records received for one entry ID range during a total
+ * update sent as entry records. The records are read in the order they were
+ * sent by the exporter, which is the increasing entry ID order of the exporter.
+ */
+public final class EntryRecordReader implements Closeable
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataInputStream input;
+
+  /**
+   * Creates a reader of the records stored in the provided file.
+   *
+   * @param file
+   *          the file where the records of the range are stored
+   * @throws IOException
+   *           If the file cannot be opened
+   */
+  EntryRecordReader(File file) throws IOException
+  {
+    this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+  }
+
+  /**
+   * Reads the next record, which is an entry encoded with the default entry
+   * encoding configuration.
+   *
+   * @return the next record, or {@code null} when all the records have been read
+   * @throws IOException
+   *           If the record cannot be read
+   */
+  public ByteString readRecord() throws IOException
+  {
+    final int length;
+    try
+    {
+      length = input.readInt();
+    }
+    catch (EOFException e)
+    {
+      return null;
+    }
+    final byte[] record = new byte[length];
+    input.readFully(record);
+    return ByteString.wrap(record);
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    input.close();
+  }
+}
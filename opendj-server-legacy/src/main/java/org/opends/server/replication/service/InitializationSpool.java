@@ -0,0 +1,361 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.service;
+
+import static java.nio.file.StandardCopyOption.*;
+
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.protocol.EntryRecordsMsg;
+
+/**
+ * Stores on disk the entry records received during a total update, so that
+ * the backend is only replaced once all of them have been received, and so
+ * that an interrupted total update can be resumed from its last checkpoint.
+ * <p>
+ * The records of each entry ID range are appended to their own file. The
+ * checkpoint file records, for each range, the entry ID from which the range
+ * must be resumed and the length of its file at that point. Any record written
+ * after the last checkpoint is discarded when resuming.
+ * <p>
+ * This class is not thread safe: it is only used by the thread receiving the
+ * total update.
+ */
+final class InitializationSpool
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+  private static final String RANGE_FILE_PREFIX = "range-";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File directory;
+
+  private DN baseDN;
+  private int exporterId;
+  private long generationId;
+  /** The entry ID from which each range must be resumed. */
+  private long[] nextIDs;
+  /** The highest (exclusive) entry ID of each range. */
+  private long[] rangeEnds;
+  /** The number of bytes written in the file of each range. */
+  private long[] lengths;
+  private OutputStream[] outputs;
+  /** The files underlying the outputs, synced to disk before each checkpoint. */
+  private FileOutputStream[] files;
+
+  /**
+   * Creates a spool stored in the provided directory.
+   *
+   * @param directory
+   *          the directory holding the files of the spool
+   */
+  InitializationSpool(File directory)
+  {
+    this.directory = directory;
+  }
+
+  /**
+   * Loads the last checkpoint of a total update of the provided domain, if it
+   * was received from the provided exporter with the provided generation ID.
+   *
+   * @param baseDN
+   *          the base DN of the domain
+   * @param exporterId
+   *          the server ID of the exporter
+   * @param generationId
+   *          the generation ID of the exporter
+   * @return {@code true} if the total update can be resumed from the loaded checkpoint
+   */
+  boolean load(DN baseDN, int exporterId, long generationId)
+  {
+    final File checkpointFile = new File(directory, CHECKPOINT_FILE_NAME);
+    if (!checkpointFile.isFile())
+    {
+      return false;
+    }
+
+    final Properties checkpoint = new Properties();
+    try (InputStream input = new FileInputStream(checkpointFile))
+    {
+      checkpoint.load(input);
+    }
+    catch (IOException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+
+    try
+    {
+      if (!baseDN.toString().equals(checkpoint.getProperty("base-dn"))
+          || exporterId != Integer.parseInt(checkpoint.getProperty("exporter-id"))
+          || generationId != Long.parseLong(checkpoint.getProperty("generation-id")))
+      {
+        return false;
+      }
+
+      final int nbRanges = Integer.parseInt(checkpoint.getProperty("ranges"));
+      final long[] loadedNextIDs = new long[nbRanges];
+      final long[] loadedRangeEnds = new long[nbRanges];
+      final long[] loadedLengths = new long[nbRanges];
+      for (int i = 0; i < nbRanges; i++)
+      {
+        loadedNextIDs[i] = Long.parseLong(checkpoint.getProperty("range." + i + ".next"));
+        loadedRangeEnds[i] = Long.parseLong(checkpoint.getProperty("range." + i + ".end"));
+        loadedLengths[i] = Long.parseLong(checkpoint.getProperty("range." + i + ".length"));
+        if (getRangeFile(i).length() < loadedLengths[i])
+        {
+          // Records acknowledged by the checkpoint have been lost
+          return false;
+        }
+      }
+
+      this.baseDN = baseDN;
+      this.exporterId = exporterId;
+      this.generationId = generationId;
+      this.nextIDs = loadedNextIDs;
+      this.rangeEnds = loadedRangeEnds;
+      this.lengths = loadedLengths;
+      return true;
+    }
+    catch (NumberFormatException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the entry ID from which each range must be resumed.
+   *
+   * @return the entry ID from which each range must be resumed
+   */
+  long[] getNextIDs()
+  {
+    return nextIDs.clone();
+  }
+
+  /**
+   * Returns the highest (exclusive) entry ID of each range.
+   *
+   * @return the highest entry ID of each range
+   */
+  long[] getRangeEnds()
+  {
+    return rangeEnds.clone();
+  }
+
+  /**
+   * Indicates whether the provided ranges are the ones remaining at the last checkpoint.
+   *
+   * @param rangeStarts
+   *          the lowest (inclusive) entry IDs of the ranges
+   * @param rangeEnds
+   *          the highest (exclusive) entry IDs of the ranges
+   * @return {@code true} if the provided ranges are the ones remaining at the last checkpoint
+   */
+  boolean isResumedBy(long[] rangeStarts, long[] rangeEnds)
+  {
+    return Arrays.equals(nextIDs, rangeStarts) && Arrays.equals(this.rangeEnds, rangeEnds);
+  }
+
+  /**
+   * Starts spooling a new total update, discarding the content of any previous one.
+   *
+   * @param baseDN
+   *          the base DN of the domain
+   * @param exporterId
+   *          the server ID of the exporter
+   * @param generationId
+   *          the generation ID of the exporter
+   * @param rangeStarts
+   *          the lowest (inclusive) entry IDs of the ranges sent by the exporter
+   * @param rangeEnds
+   *          the highest (exclusive) entry IDs of the ranges sent by the exporter
+   * @throws IOException
+   *           If the spool cannot be created
+   */
+  void create(DN baseDN, int exporterId, long generationId, long[] rangeStarts, long[] rangeEnds)
+      throws IOException
+  {
+    delete();
+    if (!directory.mkdirs())
+    {
+      throw new IOException("Cannot create directory " + directory);
+    }
+    this.baseDN = baseDN;
+    this.exporterId = exporterId;
+    this.generationId = generationId;
+    this.nextIDs = rangeStarts.clone();
+    this.rangeEnds = rangeEnds.clone();
+    this.lengths = new long[rangeStarts.length];
+    openOutputs();
+    checkpoint();
+  }
+
+  /**
+   * Resumes spooling the ranges from the last checkpoint loaded by
+   * {@link #load(DN, int, long)}.
+   *
+   * @throws IOException
+   *           If the files of the spool cannot be opened
+   */
+  void resume() throws IOException
+  {
+    for (int i = 0; i < lengths.length; i++)
+    {
+      try (RandomAccessFile file = new RandomAccessFile(getRangeFile(i), "rw"))
+      {
+        file.setLength(lengths[i]);
+      }
+    }
+    openOutputs();
+  }
+
+  private void openOutputs() throws IOException
+  {
+    outputs = new OutputStream[lengths.length];
+    files = new FileOutputStream[lengths.length];
+    for (int i = 0; i < outputs.length; i++)
+    {
+      files[i] = new FileOutputStream(getRangeFile(i), true);
+      outputs[i] = new BufferedOutputStream(files[i], BUFFER_SIZE);
+    }
+  }
+
+  /**
+   * Appends the records of the provided message to the file of their range.
+   *
+   * @param msg
+   *          the message received from the exporter
+   * @throws IOException
+   *           If the records cannot be written
+   */
+  void append(EntryRecordsMsg msg) throws IOException
+  {
+    final int rangeIndex = msg.getStreamId();
+    if (rangeIndex < 0 || rangeIndex >= outputs.length)
+    {
+      throw new IOException("Received entry records for unknown range " + rangeIndex);
+    }
+    final byte[] records = msg.getRecords();
+    outputs[rangeIndex].write(records);
+    lengths[rangeIndex] += records.length;
+    nextIDs[rangeIndex] = msg.getNextEntryID();
+  }
+
+  /**
+   * Writes a checkpoint recording the records appended so far. The records are
+   * synced to disk before the checkpoint, so that a checkpoint never refers to
+   * records lost by a crash.
+   *
+   * @throws IOException
+   *           If the checkpoint cannot be written
+   */
+  void checkpoint() throws IOException
+  {
+    for (int i = 0; i < outputs.length; i++)
+    {
+      outputs[i].flush();
+      files[i].getFD().sync();
+    }
+
+    final Properties checkpoint = new Properties();
+    checkpoint.setProperty("base-dn", baseDN.toString());
+    checkpoint.setProperty("exporter-id", Integer.toString(exporterId));
+    checkpoint.setProperty("generation-id", Long.toString(generationId));
+    checkpoint.setProperty("ranges", Integer.toString(nextIDs.length));
+    for (int i = 0; i < nextIDs.length; i++)
+    {
+      checkpoint.setProperty("range." + i + ".next", Long.toString(nextIDs[i]));
+      checkpoint.setProperty("range." + i + ".end", Long.toString(rangeEnds[i]));
+      checkpoint.setProperty("range." + i + ".length", Long.toString(lengths[i]));
+    }
+
+    final File tmpFile = new File(directory, CHECKPOINT_FILE_NAME + ".tmp");
+    try (FileOutputStream output = new FileOutputStream(tmpFile))
+    {
+      checkpoint.store(output, null);
+      output.getFD().sync();
+    }
+    Files.move(tmpFile.toPath(), new File(directory, CHECKPOINT_FILE_NAME).toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+  }
+
+  /** Closes the files of the spool, without writing a new checkpoint. */
+  void closeFiles()
+  {
+    if (outputs != null)
+    {
+      close(outputs);
+      outputs = null;
+      files = null;
+    }
+  }
+
+  /**
+   * Opens a reader on the records of each range, in the order of the ranges.
+   *
+   * @return a reader on the records of each range
+   * @throws IOException
+   *           If the files of the spool cannot be opened
+   */
+  List<EntryRecordReader> openReaders() throws IOException
+  {
+    final List<EntryRecordReader> readers = new ArrayList<>(lengths.length);
+    try
+    {
+      for (int i = 0; i < lengths.length; i++)
+      {
+        readers.add(new EntryRecordReader(getRangeFile(i)));
+      }
+      return readers;
+    }
+    catch (IOException e)
+    {
+      close(readers);
+      throw e;
+    }
+  }
+
+  /** Closes and deletes the files of the spool. */
+  void delete()
+  {
+    closeFiles();
+    recursiveDelete(directory);
+  }
+
+  private File getRangeFile(int rangeIndex)
+  {
+    return new File(directory, RANGE_FILE_PREFIX + rangeIndex);
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -21,12 +22,15 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.common.AssuredMode.*;
 import static org.opends.server.replication.common.StatusMachine.*;
 import static org.opends.server.util.CollectionUtils.*;
+import static org.opends.server.util.StaticUtils.*;
 
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -48,6 +52,8 @@ import net.jcip.annotations.Immutable;
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.server.config.meta.ReplicationDomainCfgDefn.AssuredType;
@@ -68,6 +74,7 @@ import org.opends.server.replication.protocol.AckMsg;
 import org.opends.server.replication.protocol.ChangeStatusMsg;
 import org.opends.server.replication.protocol.DoneMsg;
 import org.opends.server.replication.protocol.EntryMsg;
+import org.opends.server.replication.protocol.EntryRecordsMsg;
 import org.opends.server.replication.protocol.ErrorMsg;
 import org.opends.server.replication.protocol.HeartbeatMsg;
 import org.opends.server.replication.protocol.InitializeRcvAckMsg;
@@ -231,6 +238,13 @@ public abstract class ReplicationDomain
   private ServerStatus status = ServerStatus.NOT_CONNECTED_STATUS;
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The maximum number of entry records streams exported in parallel during an initialization. */
+  private static final int MAX_ENTRY_RECORDS_STREAMS = 8;
+  /** The size above which a batch of entry records is sent to the importer. */
+  private static final int ENTRY_RECORDS_BATCH_SIZE = 32 * 1024;
+  /** The name of the directory holding the entry records received during an initialization. */
+  private static final String INITIALIZATION_SPOOL_DIR = "import-tmp";
+
   /** The configuration of the replication domain. */
   protected volatile ReplicationDomainCfg config;
   /**
@@ -877,8 +891,7 @@ public abstract class ReplicationDomain
       if (initReqMsg != null)
       {
         // Do this work in a thread to allow replay thread continue working
-        ExportThread exportThread = new ExportThread(
-            initReqMsg.getSenderID(), initReqMsg.getInitWindow());
+        ExportThread exportThread = new ExportThread(initReqMsg);
         exportThread.start();
       }
     }
@@ -1039,22 +1052,22 @@ public abstract class ReplicationDomain
     /** Id of server that will be initialized. */
     private final int serverIdToInitialize;
     private final int initWindow;
+    /** The request received from the server that will be initialized. */
+    private final InitializeRequestMsg initRequestMsg;
 
     /**
      * Constructor for the ExportThread.
      *
-     * @param serverIdToInitialize
-     *          serverId of server that will receive entries
-     * @param initWindow
-     *          The value of the initialization window for flow control between
-     *          the importer and the exporter.
+     * @param initRequestMsg
+     *          The request received from the server that will receive entries
      */
-    public ExportThread(int serverIdToInitialize, int initWindow)
+    public ExportThread(InitializeRequestMsg initRequestMsg)
     {
       super("Export thread from serverId=" + getServerId() + " to serverId="
-          + serverIdToInitialize);
-      this.serverIdToInitialize = serverIdToInitialize;
-      this.initWindow = initWindow;
+          + initRequestMsg.getSenderID());
+      this.serverIdToInitialize = initRequestMsg.getSenderID();
+      this.initWindow = initRequestMsg.getInitWindow();
+      this.initRequestMsg = initRequestMsg;
     }
 
     @Override
@@ -1067,7 +1080,7 @@ public abstract class ReplicationDomain
       try
       {
         initializeRemote(serverIdToInitialize, serverIdToInitialize, null,
-            initWindow);
+            initWindow, initRequestMsg);
       } catch (DirectoryException de)
       {
         /*
@@ -1298,7 +1311,7 @@ public abstract class ReplicationDomain
      */
     public void setExceptionIfNoneSet(DirectoryException exception)
     {
-      if (exception == null)
+      if (this.exception == null)
       {
         this.exception = exception;
       }
@@ -1404,7 +1417,7 @@ public abstract class ReplicationDomain
    */
   public void initializeRemote(int target, Task initTask) throws DirectoryException
   {
-    initializeRemote(target, getServerId(), initTask, getInitWindow());
+    initializeRemote(target, getServerId(), initTask, getInitWindow(), null);
   }
 
   /**
@@ -1420,12 +1433,15 @@ public abstract class ReplicationDomain
    * following a request coming from a remote server (task is remote).
    * @param initWindow The value of the initialization window for flow control
    * between the importer and the exporter.
+   * @param initRequestMsg The request received from the server to initialize,
+   * or null when the export is not done following such a request.
    *
    * @exception DirectoryException When an error occurs. No exception raised
    * means success.
    */
   protected void initializeRemote(int serverToInitialize,
-      int serverRunningTheTask, Task initTask, int initWindow)
+      int serverRunningTheTask, Task initTask, int initWindow,
+      InitializeRequestMsg initRequestMsg)
   throws DirectoryException
   {
     final ImportExportContext ieCtx = acquireIEContext(false);
@@ -1494,10 +1510,34 @@ public abstract class ReplicationDomain
         ieCtx.initNumLostConnections = broker.getNumLostConnections();
         ieCtx.initWindow = initWindow;
 
+        // Choose between entry records and LDIF, resuming if asked and possible
+        long[] rangeStarts = new long[0];
+        long[] rangeEnds = new long[0];
+        boolean resumed = false;
+        if (canExportEntryRecords(serverToInitialize))
+        {
+          if (attempt == 1 && initRequestMsg != null && initRequestMsg.isResumeRequested())
+          {
+            rangeStarts = initRequestMsg.getResumeStarts();
+            rangeEnds = initRequestMsg.getResumeEnds();
+            resumed = true;
+          }
+          else
+          {
+            final long[] entryIDRanges = getEntryIDRanges(getEntryRecordsStreamCount());
+            if (entryIDRanges != null && entryIDRanges.length > 0)
+            {
+              rangeStarts = entryIDRanges;
+              rangeEnds = getRangeEnds(entryIDRanges);
+            }
+          }
+        }
+
         // Send start message to the peer
         InitializeTargetMsg initTargetMsg = new InitializeTargetMsg(
             getBaseDN(), getServerId(), serverToInitialize,
-            serverRunningTheTask, ieCtx.entryCount, initWindow);
+            serverRunningTheTask, ieCtx.entryCount, initWindow,
+            rangeStarts, rangeEnds, resumed);
 
         broker.publish(initTargetMsg);
 
@@ -1513,7 +1553,14 @@ public abstract class ReplicationDomain
               ERR_INIT_NO_SUCCESS_START_FROM_SERVERS.get(getBaseDN(), ieCtx.failureList));
         }
 
-        exportBackend(new BufferedOutputStream(new ReplOutputStream(this)));
+        if (initTargetMsg.isEntryRecords())
+        {
+          exportEntryRecordStreams(ieCtx, rangeStarts, rangeEnds);
+        }
+        else
+        {
+          exportBackend(new BufferedOutputStream(new ReplOutputStream(this)));
+        }
 
         // Notify the peer of the success
         broker.publish(
@@ -1868,6 +1915,20 @@ public abstract class ReplicationDomain
    * @return The bytes. Null when the Done or Err message has been received
    */
   protected byte[] receiveEntryBytes()
+  {
+    final ReplicationMsg msg = receiveInitializationMsg();
+    return msg instanceof EntryMsg ? ((EntryMsg) msg).getEntryBytes() : null;
+  }
+
+  /**
+   * Receives the next message carrying entries in the context of an import to
+   * initialize the domain.
+   *
+   * @return The {@link EntryMsg} or {@link EntryRecordsMsg} received, the
+   *         {@link DoneMsg} at the normal end of the import, or null when the
+   *         import failed or the server is shutting down.
+   */
+  private ReplicationMsg receiveInitializationMsg()
   {
     ReplicationMsg msg;
     while (true)
@@ -1886,7 +1947,7 @@ public abstract class ReplicationDomain
         {
           logger.trace("[IE] In "
               + broker.getReplicationMonitorInstanceName()
-              + ", receiveEntryBytes " + msg);
+              + ", receiveInitializationMsg " + msg);
         }
 
         if (msg == null)
@@ -1910,43 +1971,22 @@ public abstract class ReplicationDomain
         if (msg instanceof EntryMsg)
         {
           EntryMsg entryMsg = (EntryMsg)msg;
-          byte[] entryBytes = entryMsg.getEntryBytes();
-          ieCtx.updateCounters(countEntryLimits(entryBytes));
-
-          if (ieCtx.exporterProtocolVersion >=
-            ProtocolVersion.REPLICATION_PROTOCOL_V4)
-          {
-            // check the msgCnt of the msg received to check ordering
-            if (++ieCtx.msgCnt != entryMsg.getMsgId())
-            {
-              ieCtx.setExceptionIfNoneSet(new DirectoryException(
-                  ResultCode.OTHER, ERR_INIT_BAD_MSG_ID_SEQ_DURING_IMPORT.get(ieCtx.msgCnt, entryMsg.getMsgId())));
-              return null;
-            }
-
-            // send the ack of flow control mgmt
-            if ((ieCtx.msgCnt % (ieCtx.initWindow/2)) == 0)
-            {
-              final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
-                  getServerId(), entryMsg.getSenderID(), ieCtx.msgCnt);
-              broker.publish(amsg, false);
-              if (logger.isTraceEnabled())
-              {
-                logger.trace("[IE] In "
-                    + broker.getReplicationMonitorInstanceName()
-                    + ", publish InitializeRcvAckMsg" + amsg);
-              }
-            }
-          }
-          return entryBytes;
+          ieCtx.updateCounters(countEntryLimits(entryMsg.getEntryBytes()));
+          return acknowledgeInitializationMsg(ieCtx, entryMsg.getSenderID(), entryMsg.getMsgId()) ? msg : null;
+        }
+        else if (msg instanceof EntryRecordsMsg)
+        {
+          EntryRecordsMsg recordsMsg = (EntryRecordsMsg) msg;
+          ieCtx.updateCounters(recordsMsg.getEntryCount());
+          return acknowledgeInitializationMsg(ieCtx, recordsMsg.getSenderID(), recordsMsg.getMsgId()) ? msg : null;
         }
         else if (msg instanceof DoneMsg)
         {
           /*
           This is the normal termination of the import
-          No error is stored and the import is ended by returning null
+          No error is stored and the import is ended by returning the DoneMsg
           */
-          return null;
+          return msg;
         }
         else if (msg instanceof ErrorMsg)
         {
@@ -1988,6 +2028,41 @@ public abstract class ReplicationDomain
     }
   }
 
+  /**
+   * Checks the ordering of a message received during an import, and sends
+   * the acknowledgment used by the exporter for the flow control.
+   *
+   * @return false when the message was not received in order.
+   */
+  private boolean acknowledgeInitializationMsg(ImportExportContext ieCtx, int senderID, int msgId)
+  {
+    if (ieCtx.exporterProtocolVersion >= ProtocolVersion.REPLICATION_PROTOCOL_V4)
+    {
+      // check the msgCnt of the msg received to check ordering
+      if (++ieCtx.msgCnt != msgId)
+      {
+        ieCtx.setExceptionIfNoneSet(new DirectoryException(
+            ResultCode.OTHER, ERR_INIT_BAD_MSG_ID_SEQ_DURING_IMPORT.get(ieCtx.msgCnt, msgId)));
+        return false;
+      }
+
+      // send the ack of flow control mgmt
+      if ((ieCtx.msgCnt % (ieCtx.initWindow/2)) == 0)
+      {
+        final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
+            getServerId(), senderID, ieCtx.msgCnt);
+        broker.publish(amsg, false);
+        if (logger.isTraceEnabled())
+        {
+          logger.trace("[IE] In "
+              + broker.getReplicationMonitorInstanceName()
+              + ", publish InitializeRcvAckMsg" + amsg);
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Count the number of entries in the provided byte[].
    * This is based on the hypothesis that the entries are separated
@@ -2048,6 +2123,25 @@ public abstract class ReplicationDomain
         getServerId(), ieCtx.getExportTarget(), lDIFEntry, pos, length,
         ++ieCtx.msgCnt);
 
+    waitForSlowestImporter(ieCtx);
+
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("[IE] Entering exportLDIFEntry pub entry=" + Arrays.toString(lDIFEntry));
+    }
+
+    publishExportMsg(ieCtx, entryMessage, countEntryLimits(lDIFEntry, pos, length));
+  }
+
+  /**
+   * Waits until the slowest importer is close enough to the last message
+   * exported for another message to be published.
+   *
+   * @param ieCtx The context of the export.
+   * @throws IOException when the export must be abandoned.
+   */
+  private void waitForSlowestImporter(ImportExportContext ieCtx) throws IOException
+  {
     // Waiting the slowest loop
     while (!broker.shuttingDown())
     {
@@ -2076,7 +2170,7 @@ public abstract class ReplicationDomain
 
       if (logger.isTraceEnabled())
       {
-        logger.trace("[IE] Entering exportLDIFEntry waiting " +
+        logger.trace("[IE] Entering waitForSlowestImporter waiting " +
             " our=" + ourLastExportedCnt + " slowest=" + slowestCnt);
       }
 
@@ -2084,7 +2178,7 @@ public abstract class ReplicationDomain
       {
         if (logger.isTraceEnabled())
         {
-          logger.trace("[IE] Entering exportLDIFEntry waiting");
+          logger.trace("[IE] Entering waitForSlowestImporter waiting");
         }
 
         // our export is too far beyond the slowest importer - let's wait
@@ -2112,13 +2206,20 @@ public abstract class ReplicationDomain
         break;
       }
     } // Waiting the slowest loop
+  }
 
-    if (logger.isTraceEnabled())
-    {
-      logger.trace("[IE] Entering exportLDIFEntry pub entry=" + Arrays.toString(lDIFEntry));
-    }
-
-    boolean sent = broker.publish(entryMessage, false);
+  /**
+   * Publishes a message of the export and updates the export counters.
+   *
+   * @param ieCtx      The context of the export.
+   * @param msg        The message to publish.
+   * @param nbEntries  The number of entries contained in the message.
+   * @throws IOException when the export must be abandoned.
+   */
+  private void publishExportMsg(ImportExportContext ieCtx, ReplicationMsg msg, int nbEntries)
+      throws IOException
+  {
+    boolean sent = broker.publish(msg, false);
 
     // process any publish error
     if (!sent
@@ -2136,7 +2237,7 @@ public abstract class ReplicationDomain
     // publish succeeded
     try
     {
-      ieCtx.updateCounters(countEntryLimits(lDIFEntry, pos, length));
+      ieCtx.updateCounters(nbEntries);
     }
     catch (DirectoryException de)
     {
@@ -2146,6 +2247,206 @@ public abstract class ReplicationDomain
     }
   }
 
+  /**
+   * Returns whether the entries can be exported as entry records to the
+   * provided server(s), which requires all of them as well as the replication
+   * server to understand the {@link EntryRecordsMsg}.
+   *
+   * @param serverToInitialize The server(s) that will be initialized.
+   * @return true when the entries can be exported as entry records.
+   */
+  private boolean canExportEntryRecords(int serverToInitialize)
+  {
+    if (broker.getProtocolVersion() < ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      return false;
+    }
+    for (DSInfo dsi : getReplicaInfos().values())
+    {
+      if ((serverToInitialize == RoutableMsg.ALL_SERVERS || dsi.getDsId() == serverToInitialize)
+          && dsi.getProtocolVersion() < ProtocolVersion.REPLICATION_PROTOCOL_V10)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of entry records streams exported in parallel.
+   *
+   * @return the number of entry records streams exported in parallel.
+   */
+  private static int getEntryRecordsStreamCount()
+  {
+    return Math.min(MAX_ENTRY_RECORDS_STREAMS, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  }
+
+  /**
+   * Returns the upper bounds of the provided entry ID ranges: each range ends
+   * where the next one starts, and the last one is unbounded.
+   *
+   * @param rangeStarts The lower bounds of the ranges.
+   * @return The upper bounds of the ranges.
+   */
+  private static long[] getRangeEnds(long[] rangeStarts)
+  {
+    final long[] rangeEnds = new long[rangeStarts.length];
+    for (int i = 0; i < rangeStarts.length - 1; i++)
+    {
+      rangeEnds[i] = rangeStarts[i + 1];
+    }
+    rangeEnds[rangeEnds.length - 1] = Long.MAX_VALUE;
+    return rangeEnds;
+  }
+
+  /**
+   * Exports the entries of the provided ranges as entry records, one stream
+   * per range, the streams sharing the flow control of the export.
+   *
+   * @param ieCtx       The context of the export.
+   * @param rangeStarts The lower bounds of the entry ID ranges to export.
+   * @param rangeEnds   The upper bounds of the entry ID ranges to export.
+   * @throws DirectoryException when the export failed.
+   */
+  private void exportEntryRecordStreams(ImportExportContext ieCtx, long[] rangeStarts, long[] rangeEnds)
+      throws DirectoryException
+  {
+    final List<EntryRecordsSender> senders = new ArrayList<>(rangeStarts.length);
+    for (int i = 0; i < rangeStarts.length; i++)
+    {
+      // Ranges already complete on the importer side when resuming are empty
+      if (rangeStarts[i] < rangeEnds[i])
+      {
+        final EntryRecordsSender sender = new EntryRecordsSender(ieCtx, i, rangeStarts[i], rangeEnds[i]);
+        senders.add(sender);
+        sender.start();
+      }
+    }
+
+    try
+    {
+      for (EntryRecordsSender sender : senders)
+      {
+        sender.join();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      failExport(ieCtx, new DirectoryException(ResultCode.OTHER, LocalizableMessage.raw(e.toString()), e));
+    }
+
+    if (ieCtx.getException() != null)
+    {
+      throw ieCtx.getException();
+    }
+  }
+
+  /**
+   * Stores the first failure of an export, making the other streams abandon
+   * the export.
+   */
+  private static void failExport(ImportExportContext ieCtx, DirectoryException e)
+  {
+    synchronized (ieCtx)
+    {
+      ieCtx.setExceptionIfNoneSet(e);
+    }
+  }
+
+  /**
+   * Publishes a batch of entry records. The message ID, the flow control and
+   * the publication are done atomically so that the importer receives the
+   * messages of all the streams in the sequence of their message IDs.
+   */
+  private void publishEntryRecords(ImportExportContext ieCtx, int streamId, long nextEntryID, int entryCount,
+      byte[] records) throws DirectoryException
+  {
+    synchronized (ieCtx)
+    {
+      try
+      {
+        final EntryRecordsMsg msg = new EntryRecordsMsg(getServerId(), ieCtx.getExportTarget(),
+            ++ieCtx.msgCnt, streamId, nextEntryID, entryCount, records);
+        waitForSlowestImporter(ieCtx);
+        publishExportMsg(ieCtx, msg, entryCount);
+      }
+      catch (IOException e)
+      {
+        if (ieCtx.getException() != null)
+        {
+          throw ieCtx.getException();
+        }
+        throw new DirectoryException(ResultCode.OTHER, LocalizableMessage.raw(e.getMessage()), e);
+      }
+    }
+  }
+
+  /** Thread exporting the entries of one entry ID range as a stream of entry records. */
+  private class EntryRecordsSender extends DirectoryThread implements EntryRecordHandler
+  {
+    private final ImportExportContext ieCtx;
+    private final int streamId;
+    private final long lowestID;
+    private final long highestID;
+    private final ByteStringBuilder buffer = new ByteStringBuilder(ENTRY_RECORDS_BATCH_SIZE);
+    private int entryCount;
+
+    private EntryRecordsSender(ImportExportContext ieCtx, int streamId, long lowestID, long highestID)
+    {
+      super("Entry records export thread " + streamId + " from serverId=" + getServerId()
+          + " to serverId=" + ieCtx.getExportTarget());
+      this.ieCtx = ieCtx;
+      this.streamId = streamId;
+      this.lowestID = lowestID;
+      this.highestID = highestID;
+    }
+
+    @Override
+    public void run()
+    {
+      try
+      {
+        exportEntryRecords(lowestID, highestID, this);
+        // Always sent, it tells the importer the stream is complete
+        flush(highestID);
+      }
+      catch (DirectoryException e)
+      {
+        failExport(ieCtx, e);
+      }
+      catch (RuntimeException e)
+      {
+        logger.traceException(e);
+        failExport(ieCtx, new DirectoryException(ResultCode.OTHER, LocalizableMessage.raw(e.toString()), e));
+      }
+    }
+
+    @Override
+    public void handleRecord(long entryID, ByteSequence record) throws DirectoryException
+    {
+      if (ieCtx.getException() != null)
+      {
+        throw ieCtx.getException();
+      }
+      if (entryCount > 0 && buffer.length() + 4 + record.length() > ENTRY_RECORDS_BATCH_SIZE)
+      {
+        flush(entryID);
+      }
+      buffer.appendInt(record.length());
+      buffer.appendBytes(record);
+      entryCount++;
+    }
+
+    private void flush(long nextEntryID) throws DirectoryException
+    {
+      publishEntryRecords(ieCtx, streamId, nextEntryID, entryCount, buffer.toByteArray());
+      buffer.clear();
+      entryCount = 0;
+    }
+  }
+
   /**
    * Initializes asynchronously this domain from a remote source server.
    * Before returning from this call, for the provided task :
@@ -2200,8 +2501,7 @@ public abstract class ReplicationDomain
       final ImportExportContext ieCtx = acquireIEContext(true);
       ieCtx.initializeTask = initTask;
       ieCtx.attemptCnt = 0;
-      ieCtx.initReqMsgSent = new InitializeRequestMsg(
-          getBaseDN(), getServerId(), source, getInitWindow());
+      ieCtx.initReqMsgSent = newInitializeRequestMsg(source);
       broker.publish(ieCtx.initReqMsgSent);
 
       /*
@@ -2282,7 +2582,16 @@ public abstract class ReplicationDomain
       initFromTask = (InitializeTask) ieCtx.initializeTask;
 
       // Launch the import
-      importBackend(new ReplInputStream(this));
+      if (initTargetMsgReceived.isEntryRecords())
+      {
+        receiveEntryRecords(ieCtx, initTargetMsgReceived);
+      }
+      else
+      {
+        // The entry records of an interrupted initialization are now useless
+        newInitializationSpool().delete();
+        importBackend(new ReplInputStream(this));
+      }
     }
     catch (DirectoryException e)
     {
@@ -2329,6 +2638,8 @@ public abstract class ReplicationDomain
             logger.info(NOTE_RESENDING_INIT_FROM_REMOTE_REQUEST,
                 ieCtx.getException().getLocalizedMessage());
 
+            // Ask again to resume from the entry records received so far
+            ieCtx.initReqMsgSent = newInitializeRequestMsg(ieCtx.initReqMsgSent.getDestination());
             broker.publish(ieCtx.initReqMsgSent);
 
             ieCtx.initializeCounters(0);
@@ -2392,6 +2703,123 @@ public abstract class ReplicationDomain
     } // finally
   }
 
+  /**
+   * Returns a request for the initialization of this domain from the provided
+   * source server, asking to resume the initialization when the entry records
+   * of an interrupted initialization from this source have been kept.
+   *
+   * @param source The server-id of the source from which to initialize.
+   * @return A request for the initialization of this domain.
+   */
+  private InitializeRequestMsg newInitializeRequestMsg(int source)
+  {
+    final InitializationSpool spool = newInitializationSpool();
+    final DSInfo dsInfo = getReplicaInfos().get(source);
+    if (dsInfo != null && spool.load(getBaseDN(), source, dsInfo.getGenerationId()))
+    {
+      return new InitializeRequestMsg(getBaseDN(), getServerId(), source,
+          getInitWindow(), spool.getNextIDs(), spool.getRangeEnds());
+    }
+    return new InitializeRequestMsg(getBaseDN(), getServerId(), source, getInitWindow());
+  }
+
+  /**
+   * Returns the spool holding the entry records received during an
+   * initialization of this domain.
+   *
+   * @return the spool holding the entry records received.
+   */
+  private InitializationSpool newInitializationSpool()
+  {
+    final String name = "replication-" + getServerId() + "-"
+        + Integer.toHexString(getBaseDN().toNormalizedUrlSafeString().hashCode());
+    return new InitializationSpool(new File(getFileForPath(INITIALIZATION_SPOOL_DIR), name));
+  }
+
+  /**
+   * Receives the entry records sent by the exporter, then imports them.
+   * <p>
+   * The records are first stored in the initialization spool, so that the
+   * local data is only replaced once all of them have been received, and so
+   * that an interrupted initialization can be resumed from the last
+   * checkpoint of the spool instead of starting over.
+   *
+   * @param ieCtx The context of the import.
+   * @param initTargetMsg The message received from the exporter.
+   * @throws DirectoryException If the initialization failed.
+   */
+  private void receiveEntryRecords(ImportExportContext ieCtx, InitializeTargetMsg initTargetMsg)
+      throws DirectoryException
+  {
+    final int source = initTargetMsg.getSenderID();
+    final InitializationSpool spool = newInitializationSpool();
+    try
+    {
+      final DSInfo dsInfo = getReplicaInfos().get(source);
+      final long generationId = dsInfo != null ? dsInfo.getGenerationId() : -1;
+      if (initTargetMsg.isResumed())
+      {
+        if (!spool.load(getBaseDN(), source, generationId)
+            || !spool.isResumedBy(initTargetMsg.getRangeStarts(), initTargetMsg.getRangeEnds()))
+        {
+          spool.delete();
+          throw new DirectoryException(ResultCode.OTHER, ERR_INIT_CANNOT_RESUME.get(getBaseDN(), source));
+        }
+        logger.info(NOTE_FULL_UPDATE_RESUMED, getBaseDN(), source, getServerId());
+        spool.resume();
+      }
+      else
+      {
+        spool.create(getBaseDN(), source, generationId, initTargetMsg.getRangeStarts(), initTargetMsg.getRangeEnds());
+      }
+
+      ReplicationMsg msg;
+      try
+      {
+        while ((msg = receiveInitializationMsg()) instanceof EntryRecordsMsg)
+        {
+          spool.append((EntryRecordsMsg) msg);
+          // Checkpoint at the pace of the acknowledgments sent to the exporter
+          if ((ieCtx.msgCnt % (ieCtx.initWindow / 2)) == 0)
+          {
+            spool.checkpoint();
+          }
+        }
+        spool.checkpoint();
+      }
+      finally
+      {
+        spool.closeFiles();
+      }
+
+      if (!(msg instanceof DoneMsg))
+      {
+        if (ieCtx.getException() != null)
+        {
+          throw ieCtx.getException();
+        }
+        throw new DirectoryException(ResultCode.OTHER, ERR_INIT_ENTRY_RECORDS_INCOMPLETE.get(getBaseDN(), source));
+      }
+
+      final List<EntryRecordReader> readers = spool.openReaders();
+      try
+      {
+        importEntryRecords(readers);
+      }
+      finally
+      {
+        close(readers);
+      }
+      spool.delete();
+    }
+    catch (IOException e)
+    {
+      logger.traceException(e);
+      throw new DirectoryException(ResultCode.OTHER, ERR_INIT_SPOOL_FAILURE.get(
+          getBaseDN(), getFileForPath(INITIALIZATION_SPOOL_DIR), stackTraceToSingleLineString(e)), e);
+    }
+  }
+
   /**
    * Return the protocol version of the DS related to the provided serverId.
    * Returns -1 when the protocol version is not known.
@@ -3131,6 +3559,65 @@ public abstract class ReplicationDomain
   protected abstract void importBackend(InputStream input)
            throws DirectoryException;
 
+  /**
+   * Returns the lower bounds of the entry ID ranges in which the entries of
+   * this domain can be exported as entry records, each range ending where the
+   * next one starts and the last one being unbounded.
+   * <p>
+   * The entries are exported as entry records, one stream per range, to the
+   * servers supporting them only when this method returns a non null value.
+   * The default implementation returns null.
+   *
+   * @param maxRanges The maximum number of ranges to return.
+   * @return The lower bounds of the ranges, or null when this domain cannot
+   *         export its entries as entry records.
+   */
+  protected long[] getEntryIDRanges(int maxRanges)
+  {
+    return null;
+  }
+
+  /**
+   * Exports as entry records the entries having an entry ID in the provided
+   * range, in increasing entry ID order. This method is called concurrently
+   * for the different ranges returned by {@link #getEntryIDRanges(int)}.
+   *
+   * @param lowestID The lowest (inclusive) entry ID of the range.
+   * @param highestID The highest (exclusive) entry ID of the range.
+   * @param handler The handler the entry records must be provided to.
+   * @throws DirectoryException If the export failed.
+   */
+  protected void exportEntryRecords(long lowestID, long highestID, EntryRecordHandler handler)
+      throws DirectoryException
+  {
+    throw new DirectoryException(UNWILLING_TO_PERFORM, ERR_INIT_ENTRY_RECORDS_NOT_SUPPORTED.get(getBaseDN()));
+  }
+
+  /**
+   * Imports the entry records received from the exporter, replacing the
+   * content of this domain. The readers are closed by the caller.
+   *
+   * @param readers The readers of the entry records of each range.
+   * @throws DirectoryException If the import failed.
+   */
+  protected void importEntryRecords(List<EntryRecordReader> readers) throws DirectoryException
+  {
+    throw new DirectoryException(UNWILLING_TO_PERFORM, ERR_INIT_ENTRY_RECORDS_NOT_SUPPORTED.get(getBaseDN()));
+  }
+
+  /** Handler of the entry records exported by {@link #exportEntryRecords(long, long, EntryRecordHandler)}. */
+  protected interface EntryRecordHandler
+  {
+    /**
+     * Handles an exported entry record.
+     *
+     * @param entryID The entry ID of the entry in the exporting backend.
+     * @param record The entry, encoded with the default entry encoding configuration.
+     * @throws DirectoryException If the export must be abandoned.
+     */
+    void handleRecord(long entryID, ByteSequence record) throws DirectoryException;
+  }
+
   /**
    * This method should return the total number of objects in the
    * replicated domain.
@@ -0,0 +1,101 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.tasks;
+
+import static org.opends.messages.TaskMessages.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.api.LocalBackend;
+import org.opends.server.backends.pluggable.BackendImpl;
+import org.opends.server.backends.pluggable.RootContainer;
+import org.opends.server.backends.task.Task;
+import org.opends.server.backends.task.TaskState;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Operation;
+import org.opends.server.types.Privilege;
+
+/**
+ * This class provides an implementation of a Directory Server task that can be used to train a new
+ * compression dictionary for a pluggable backend from a sample of its entries. Entries written
+ * afterwards are compressed with the new dictionary when dictionary compression is enabled.
+ */
+public class TrainCompressionDictionaryTask extends Task
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private String backendID;
+
+  @Override
+  public LocalizableMessage getDisplayName()
+  {
+    return INFO_TASK_TRAIN_COMPRESSION_DICTIONARY_NAME.get();
+  }
+
+  @Override
+  public void initializeTask() throws DirectoryException
+  {
+    // If the client connection is available, then make sure the associated
+    // client has the LDIF_IMPORT privilege, as for rebuilding indexes.
+    Operation operation = getOperation();
+    if (operation != null)
+    {
+      ClientConnection clientConnection = operation.getClientConnection();
+      if (!clientConnection.hasPrivilege(Privilege.LDIF_IMPORT, operation))
+      {
+        throw new DirectoryException(ResultCode.INSUFFICIENT_ACCESS_RIGHTS,
+            ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_INSUFFICIENT_PRIVILEGES.get());
+      }
+    }
+
+    backendID = TaskUtils.getSingleValueString(
+        getTaskEntry().getAllAttributes(ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_BACKEND_ID));
+  }
+
+  @Override
+  protected TaskState runTask()
+  {
+    LocalBackend<?> backend = getServerContext().getBackendConfigManager().getLocalBackendById(backendID);
+    RootContainer rootContainer = backend instanceof BackendImpl ? ((BackendImpl<?>) backend).getRootContainer() : null;
+    if (rootContainer == null)
+    {
+      logger.error(ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_NO_BACKEND, backendID);
+      return TaskState.STOPPED_BY_ERROR;
+    }
+
+    try
+    {
+      rootContainer.trainCompressionDictionary();
+      return TaskState.COMPLETED_SUCCESSFULLY;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_FAILED, backendID, e.getMessageObject());
+      return TaskState.STOPPED_BY_ERROR;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_FAILED, backendID, getExceptionMessage(e));
+      return TaskState.STOPPED_BY_ERROR;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.core.DirectoryServer.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.CoreSchema;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.opends.server.api.CompressedSchema;
+import org.opends.server.core.DirectoryServer;
+
+/**
+ * An entry kept in the encoding produced by
+ * {@link Entry#encode(org.forgerock.opendj.ldap.ByteStringBuilder, EntryEncodeConfig)},
+ * which can be returned to a client without being decoded.
+ * <p>
+ * Only the DN and the object classes of the entry are decoded. The user
+ * attributes are transcoded on the fly to the LDAP partial attribute list
+ * encoding by {@link #writeUserAttributes(ASN1Writer)}: the attribute
+ * description tokens are expanded with the compressed schema and the values
+ * are copied as is, so no {@link Attribute} is ever built. The operational
+ * attributes are not read.
+ */
+@org.opends.server.types.PublicAPI(
+     stability=org.opends.server.types.StabilityLevel.PRIVATE,
+     mayInstantiate=false,
+     mayExtend=false,
+     mayInvoke=true)
+public final class EncodedEntry
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private final ByteString encodedEntry;
+  private final CompressedSchema compressedSchema;
+  private final byte version;
+  private final EntryEncodeConfig config;
+  private final ByteString nameBytes;
+  private final Map<ObjectClass, String> objectClasses;
+  /** The position of the user attributes in the encoded entry. */
+  private final int userAttributesPosition;
+  /** The DN of the entry, decoded on demand. */
+  private DN name;
+
+  private EncodedEntry(ByteString encodedEntry, CompressedSchema compressedSchema, byte version,
+      EntryEncodeConfig config, ByteString nameBytes, Map<ObjectClass, String> objectClasses,
+      int userAttributesPosition)
+  {
+    this.encodedEntry = encodedEntry;
+    this.compressedSchema = compressedSchema;
+    this.version = version;
+    this.config = config;
+    this.nameBytes = nameBytes;
+    this.objectClasses = objectClasses;
+    this.userAttributesPosition = userAttributesPosition;
+  }
+
+  /**
+   * Decodes the DN and the object classes of the provided encoded entry.
+   *
+   * @param  encodedEntry      The entry encoded with
+   *                           {@link Entry#encode(org.forgerock.opendj.ldap.ByteStringBuilder, EntryEncodeConfig)}.
+   * @param  compressedSchema  The compressed schema manager to use
+   *                           when decoding tokenized schema
+   *                           elements.
+   *
+   * @return  The encoded entry, or {@code null} if the encoding does
+   *          not include the DN of the entry.
+   *
+   * @throws  DirectoryException  If the provided bytes cannot be
+   *                              decoded as an entry.
+   */
+  public static EncodedEntry decode(ByteString encodedEntry, CompressedSchema compressedSchema)
+      throws DirectoryException
+  {
+    try
+    {
+      final ByteSequenceReader reader = encodedEntry.asReader();
+      final byte version = reader.readByte();
+      if (version != 0x03 && version != 0x02 && version != 0x01)
+      {
+        throw new DirectoryException(getCoreConfigManager().getServerErrorResultCode(),
+            ERR_ENTRY_DECODE_UNRECOGNIZED_VERSION.get(byteToHex(version)));
+      }
+
+      final EntryEncodeConfig config;
+      if (version != 0x01)
+      {
+        final int configLength = reader.readBERLength();
+        config = EntryEncodeConfig.decode(reader, configLength, compressedSchema);
+      }
+      else
+      {
+        config = EntryEncodeConfig.DEFAULT_CONFIG;
+      }
+      if (config.excludeDN())
+      {
+        return null;
+      }
+
+      final ByteString nameBytes = reader.readByteSequence(reader.readBERLength()).toByteString();
+      final Map<ObjectClass, String> objectClasses = Entry.decodeObjectClasses(version, reader, config);
+      return new EncodedEntry(
+          encodedEntry, compressedSchema, version, config, nameBytes, objectClasses, reader.position());
+    }
+    catch (DirectoryException de)
+    {
+      throw de;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      throw new DirectoryException(getCoreConfigManager().getServerErrorResultCode(),
+          ERR_ENTRY_DECODE_EXCEPTION.get(getExceptionMessage(e)), e);
+    }
+  }
+
+  /**
+   * Retrieves the DN of this entry.
+   *
+   * @return  The DN of this entry.
+   */
+  public DN getName()
+  {
+    if (name == null)
+    {
+      name = DN.valueOf(nameBytes);
+    }
+    return name;
+  }
+
+  /**
+   * Retrieves the UTF-8 encoded string representation of the DN of
+   * this entry, as it was stored.
+   *
+   * @return  The string representation of the DN of this entry.
+   */
+  public ByteString getNameBytes()
+  {
+    return nameBytes;
+  }
+
+  /**
+   * Retrieves the object classes of this entry.
+   *
+   * @return  The object classes of this entry, mapped to their
+   *          user-provided names.
+   */
+  public Map<ObjectClass, String> getObjectClasses()
+  {
+    return objectClasses;
+  }
+
+  /**
+   * Indicates whether this entry has the provided object class.
+   *
+   * @param  objectClassName  The name of the object class.
+   *
+   * @return  {@code true} if this entry has the provided object class,
+   *          {@code false} otherwise.
+   */
+  public boolean hasObjectClass(String objectClassName)
+  {
+    final ObjectClass oc = getSchema().getObjectClass(objectClassName);
+    if (!oc.isPlaceHolder())
+    {
+      return objectClasses.containsKey(oc);
+    }
+    for (String ocName : objectClasses.values())
+    {
+      if (objectClassName.equalsIgnoreCase(ocName))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes the objectClass attribute and the real user attributes of
+   * this entry as LDAP partial attributes, in the order in which they
+   * were stored. The caller is responsible for writing the enclosing
+   * sequence.
+   *
+   * @param  writer  The ASN.1 writer to write the attributes to.
+   *
+   * @throws  IOException  If a problem occurs while writing the
+   *                       attributes.
+   * @throws  DirectoryException  If the attributes cannot be decoded.
+   */
+  public void writeUserAttributes(ASN1Writer writer) throws IOException, DirectoryException
+  {
+    if (!objectClasses.isEmpty())
+    {
+      writer.writeStartSequence();
+      writer.writeOctetString(CoreSchema.getObjectClassAttributeType().getNameOrOID());
+      writer.writeStartSet();
+      for (String ocName : objectClasses.values())
+      {
+        writer.writeOctetString(ocName);
+      }
+      writer.writeEndSequence();
+      writer.writeEndSequence();
+    }
+
+    final ByteSequenceReader reader = encodedEntry.asReader();
+    reader.position(userAttributesPosition);
+    final int nbAttributes = reader.readBERLength();
+    for (int i = 0; i < nbAttributes; i++)
+    {
+      writer.writeStartSequence();
+      if (config.compressAttributeDescriptions())
+      {
+        if (version < 0x03)
+        {
+          // Version 2 includes a total attribute length
+          reader.readBERLength();
+        }
+        writer.writeOctetString(config.getCompressedSchema().decodeAttributeDescription(reader).toString());
+      }
+      else
+      {
+        // The attribute description is zero-terminated
+        final int startPos = reader.position();
+        while (reader.readByte() != 0x00)
+        {
+          // Look for the end of the attribute description.
+        }
+        final int endPos = reader.position() - 1;
+        reader.position(startPos);
+        writer.writeOctetString(reader.readByteSequence(endPos - startPos));
+        reader.skip(1);
+      }
+
+      writer.writeStartSet();
+      final int nbValues = reader.readBERLength();
+      for (int j = 0; j < nbValues; j++)
+      {
+        writer.writeOctetString(reader.readByteSequence(reader.readBERLength()));
+      }
+      writer.writeEndSequence();
+      writer.writeEndSequence();
+    }
+  }
+
+  /**
+   * Decodes this entry, and adds its virtual attributes as it is done
+   * for the entries read from backends.
+   *
+   * @return  The decoded entry.
+   *
+   * @throws  DirectoryException  If this entry cannot be decoded.
+   */
+  public Entry decodeEntry() throws DirectoryException
+  {
+    final Entry entry = Entry.decode(encodedEntry.asReader(), compressedSchema);
+    entry.processVirtualAttributes();
+    return entry;
+  }
+
+  private static Schema getSchema()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "EncodedEntry(dn=" + nameBytes.toString() + ", objectClasses=" + objectClasses.values() + ")";
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -3438,7 +3439,7 @@ public class Entry
    * @throws  DirectoryException  If a problem occurs while attempting
    *                              to encode the entry.
    */
-  private static Map<ObjectClass,String> decodeObjectClasses(
+  static Map<ObjectClass,String> decodeObjectClasses(
       byte ver, ByteSequenceReader entryBuffer,
       EntryEncodeConfig config) throws DirectoryException
   {
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -19,9 +20,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import net.jcip.annotations.GuardedBy;
+
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.util.Reject;
 
@@ -98,6 +103,18 @@ import org.forgerock.util.Reject;
  * Locks are dereferenced when they are unlocked, when they are evicted from a thread local cache,
  * and when a child lock's reference count reaches zero. A lock is completely removed from the lock
  * table once its reference count reaches zero.
+ * <p>
+ * The {@link Implementation#STRIPED striped} implementation replaces the buckets and the thread
+ * local cache with a fixed number of stripes, each stripe being an open-addressed hash table using
+ * linear probing. Looking up a lock which is already in the table does not take any lock: the
+ * stripe is probed and the reference count of the lock is incremented using a compare-and-set,
+ * which fails if the lock is being removed. Only adding and removing locks require the stripe's
+ * monitor, and removed locks are kept in a small per-stripe pool in order to be reused for other
+ * DNs, so that acquiring a lock does not allocate any lock holder in the steady state.
+ * <p>
+ * Both implementations maintain contention statistics which are exposed by the lock manager
+ * monitor: the number of lock attempts which had to wait, the number of lock attempts which timed
+ * out, and the maximum length of the bucket list or probe sequence seen when adding a lock.
  */
 @org.opends.server.types.PublicAPI(stability = org.opends.server.types.StabilityLevel.UNCOMMITTED,
     mayInstantiate = false, mayExtend = false, mayInvoke = true)
@@ -154,9 +171,10 @@ public final class LockManager
   private final class DNLockHolder
   {
     private final AtomicInteger refCount = new AtomicInteger();
-    private final DNLockHolder parent;
-    private final DN dn;
-    private final int dnHashCode;
+    /** The following fields are reset when the holder is reused by the striped lock table. */
+    private DNLockHolder parent;
+    private DN dn;
+    private int dnHashCode;
     private final ReentrantReadWriteLock subtreeLock = new ReentrantReadWriteLock();
     private final ReentrantReadWriteLock entryLock = new ReentrantReadWriteLock();
 
@@ -167,6 +185,12 @@ public final class LockManager
       this.dnHashCode = dnHashCode;
     }
 
+    /** Indicates if this holder is for the provided DN. */
+    boolean isFor(final DN dn, final int dnHashCode)
+    {
+      return this.dnHashCode == dnHashCode && dn.equals(this.dn);
+    }
+
     @Override
     public String toString()
     {
@@ -245,7 +269,18 @@ public final class LockManager
     {
       try
       {
-        return lock.tryLock(lockTimeout, lockTimeoutUnits);
+        // A zero timeout does not barge ahead of queued writers, unlike tryLock()
+        if (lock.tryLock(0, TimeUnit.NANOSECONDS))
+        {
+          return true;
+        }
+        lockWaits.incrementAndGet();
+        if (lock.tryLock(lockTimeout, lockTimeoutUnits))
+        {
+          return true;
+        }
+        lockTimeouts.incrementAndGet();
+        return false;
       }
       catch (final InterruptedException e)
       {
@@ -261,14 +296,34 @@ public final class LockManager
   private static final int MINIMUM_NUMBER_OF_BUCKETS = 64;
   private static final int THREAD_LOCAL_CACHE_SIZE = 8;
 
+  private static final int MINIMUM_NUMBER_OF_STRIPES = 16;
+
+  private final Implementation implementation;
   private final int numberOfBuckets;
   private final LinkedList<DNLockHolder>[] lockTable;
+  private final StripedLockTable stripedLockTable;
   private final long lockTimeout;
   private final TimeUnit lockTimeoutUnits;
 
+  /** The number of lock attempts which could not be satisfied immediately. */
+  private final AtomicLong lockWaits = new AtomicLong();
+  /** The number of lock attempts which timed out. */
+  private final AtomicLong lockTimeouts = new AtomicLong();
+  /** The maximum length of a bucket list or probe sequence seen when adding a lock to the table. */
+  private final AtomicInteger maxChainLength = new AtomicInteger();
+
   /** Avoid sub-classing in order to workaround class leaks in app servers. */
   private final ThreadLocal<LinkedList<DNLockHolder>> threadLocalCache = new ThreadLocal<>();
 
+  /** The lock table implementations which can be used by a lock manager. */
+  public enum Implementation
+  {
+    /** Linked list buckets, with a thread local cache of recently used locks. */
+    BUCKETS,
+    /** Open-addressed stripes with lock-free lookups and pooled lock holders. */
+    STRIPED
+  }
+
   /**
    * Creates a new lock manager with a lock timeout of 9 seconds and an automatically chosen number
    * of lock table buckets based on the number of processors.
@@ -278,6 +333,18 @@ public final class LockManager
     this(DEFAULT_LOCK_TIMEOUT, DEFAULT_LOCK_TIMEOUT_UNITS);
   }
 
+  /**
+   * Creates a new lock manager with a lock timeout of 9 seconds using the provided lock table
+   * implementation.
+   *
+   * @param implementation
+   *          The lock table implementation.
+   */
+  public LockManager(final Implementation implementation)
+  {
+    this(DEFAULT_LOCK_TIMEOUT, DEFAULT_LOCK_TIMEOUT_UNITS, implementation);
+  }
+
   /**
    * Creates a new lock manager with the specified lock timeout and an automatically chosen number
    * of lock table buckets based on the number of processors.
@@ -289,7 +356,24 @@ public final class LockManager
    */
   public LockManager(final long lockTimeout, final TimeUnit lockTimeoutUnit)
   {
-    this(lockTimeout, lockTimeoutUnit, Runtime.getRuntime().availableProcessors() * 8);
+    this(lockTimeout, lockTimeoutUnit, Implementation.BUCKETS);
+  }
+
+  /**
+   * Creates a new lock manager with the specified lock timeout and lock table implementation, and
+   * an automatically chosen number of lock table buckets or stripes based on the number of
+   * processors.
+   *
+   * @param lockTimeout
+   *          The lock timeout.
+   * @param lockTimeoutUnit
+   *          The lock timeout units.
+   * @param implementation
+   *          The lock table implementation.
+   */
+  public LockManager(final long lockTimeout, final TimeUnit lockTimeoutUnit, final Implementation implementation)
+  {
+    this(lockTimeout, lockTimeoutUnit, Runtime.getRuntime().availableProcessors() * 8, implementation);
   }
 
   /**
@@ -301,27 +385,46 @@ public final class LockManager
    *          The lock timeout units.
    * @param numberOfBuckets
    *          The number of buckets to use in the lock table. The minimum number of buckets is 64.
+   * @param implementation
+   *          The lock table implementation.
    */
   @SuppressWarnings("unchecked")
-  private LockManager(final long lockTimeout, final TimeUnit lockTimeoutUnit, final int numberOfBuckets)
+  private LockManager(final long lockTimeout, final TimeUnit lockTimeoutUnit, final int numberOfBuckets,
+      final Implementation implementation)
   {
     Reject.ifFalse(lockTimeout >= 0, "lockTimeout must be a non-negative integer");
     Reject.ifNull(lockTimeoutUnit, "lockTimeoutUnit must be non-null");
     Reject.ifFalse(numberOfBuckets > 0, "numberOfBuckets must be a positive integer");
+    Reject.ifNull(implementation, "implementation must be non-null");
 
+    this.implementation = implementation;
     this.lockTimeout = lockTimeout;
     this.lockTimeoutUnits = lockTimeoutUnit;
-    this.numberOfBuckets = getNumberOfBuckets(numberOfBuckets);
-    this.lockTable = new LinkedList[this.numberOfBuckets];
-    for (int i = 0; i < this.numberOfBuckets; i++)
+    if (implementation == Implementation.STRIPED)
     {
-      this.lockTable[i] = new LinkedList<>();
+      this.numberOfBuckets = 0;
+      this.lockTable = null;
+      this.stripedLockTable = new StripedLockTable(Math.max(numberOfBuckets / 2, MINIMUM_NUMBER_OF_STRIPES));
+    }
+    else
+    {
+      this.numberOfBuckets = getNumberOfBuckets(numberOfBuckets);
+      this.lockTable = new LinkedList[this.numberOfBuckets];
+      for (int i = 0; i < this.numberOfBuckets; i++)
+      {
+        this.lockTable[i] = new LinkedList<>();
+      }
+      this.stripedLockTable = null;
     }
   }
 
   @Override
   public String toString()
   {
+    if (stripedLockTable != null)
+    {
+      return stripedLockTable.toString();
+    }
     final StringBuilder builder = new StringBuilder();
     for (int i = 0; i < numberOfBuckets; i++)
     {
@@ -348,7 +451,7 @@ public final class LockManager
    */
   public DNLock tryReadLockEntry(final DN entry)
   {
-    return acquireLockFromCache(entry).tryReadLockEntry();
+    return acquireLock(entry).tryReadLockEntry();
   }
 
   /**
@@ -361,7 +464,7 @@ public final class LockManager
    */
   public DNLock tryWriteLockEntry(final DN entry)
   {
-    return acquireLockFromCache(entry).tryWriteLockEntry();
+    return acquireLock(entry).tryWriteLockEntry();
   }
 
   /**
@@ -375,12 +478,81 @@ public final class LockManager
    */
   public DNLock tryWriteLockSubtree(final DN subtree)
   {
-    return acquireLockFromCache(subtree).tryWriteLockSubtree();
+    return acquireLock(subtree).tryWriteLockSubtree();
+  }
+
+  /**
+   * Returns the lock table implementation used by this lock manager.
+   *
+   * @return The lock table implementation.
+   */
+  public Implementation getImplementation()
+  {
+    return implementation;
+  }
+
+  /**
+   * Returns the number of lock attempts which could not be satisfied immediately and had to wait
+   * for another thread to release a lock.
+   *
+   * @return The number of lock attempts which had to wait.
+   */
+  public long getLockWaitCount()
+  {
+    return lockWaits.get();
+  }
+
+  /**
+   * Returns the number of lock attempts which timed out.
+   *
+   * @return The number of lock attempts which timed out.
+   */
+  public long getLockTimeoutCount()
+  {
+    return lockTimeouts.get();
+  }
+
+  /**
+   * Returns the maximum length of a bucket list, or of a probe sequence for the striped
+   * implementation, seen when adding a lock to the lock table.
+   *
+   * @return The maximum lock table chain length.
+   */
+  public int getMaxChainLength()
+  {
+    return maxChainLength.get();
+  }
+
+  /**
+   * Returns the number of locks currently held in the lock table, including unlocked locks which
+   * are still referenced by a child lock or by a thread local cache.
+   *
+   * @return The number of locks in the lock table.
+   */
+  public int getLockTableSize()
+  {
+    if (stripedLockTable != null)
+    {
+      return stripedLockTable.size();
+    }
+    int size = 0;
+    for (final LinkedList<DNLockHolder> bucket : lockTable)
+    {
+      synchronized (bucket)
+      {
+        size += bucket.size();
+      }
+    }
+    return size;
   }
 
   /** For unit testing. */
   int getLockTableRefCountFor(final DN dn)
   {
+    if (stripedLockTable != null)
+    {
+      return stripedLockTable.getRefCountFor(dn);
+    }
     final int dnHashCode = dn.hashCode();
     final LinkedList<DNLockHolder> bucket = getBucket(dnHashCode);
     synchronized (bucket)
@@ -415,6 +587,11 @@ public final class LockManager
     return -1;
   }
 
+  private DNLockHolder acquireLock(final DN dn)
+  {
+    return stripedLockTable != null ? stripedLockTable.acquire(dn) : acquireLockFromCache(dn);
+  }
+
   private DNLockHolder acquireLockFromCache(final DN dn)
   {
     LinkedList<DNLockHolder> cache = threadLocalCache.get();
@@ -470,6 +647,7 @@ public final class LockManager
         }
         bucket.addFirst(lock); // optimize for LRU
         lock.refCount.incrementAndGet();
+        updateMaxChainLength(bucket.size());
         return lock;
       }
     }
@@ -482,9 +660,22 @@ public final class LockManager
     }
   }
 
+  private void updateMaxChainLength(final int chainLength)
+  {
+    int max = maxChainLength.get();
+    while (chainLength > max && !maxChainLength.compareAndSet(max, chainLength))
+    {
+      max = maxChainLength.get();
+    }
+  }
+
   private void dereference(final DNLockHolder lock)
   {
-    if (lock.refCount.decrementAndGet() <= 0)
+    if (stripedLockTable != null)
+    {
+      stripedLockTable.release(lock);
+    }
+    else if (lock.refCount.decrementAndGet() <= 0)
     {
       final LinkedList<DNLockHolder> bucket = getBucket(lock.dnHashCode);
       boolean lockWasRemoved = false;
@@ -544,4 +735,344 @@ public final class LockManager
     }
     return null;
   }
+
+  /**
+   * Lock table made of open-addressed stripes. Locks are looked up without locking the stripe, and
+   * retained by incrementing their reference count if it is not negative. A lock whose reference
+   * count drops to zero is marked as removed by setting its reference count to {@link #REMOVED},
+   * after which it cannot be retained anymore, and is then removed from its stripe and returned to
+   * the stripe's pool. Since a pooled lock may be reused for another DN, lookups check the DN again
+   * once the lock has been retained.
+   */
+  private final class StripedLockTable
+  {
+    private static final int REMOVED = Integer.MIN_VALUE;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+    private static final int MAXIMUM_POOL_SIZE = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeBits;
+
+    StripedLockTable(final int numberOfStripes)
+    {
+      int powerOf2 = 1;
+      while (powerOf2 < numberOfStripes)
+      {
+        powerOf2 <<= 1;
+      }
+      this.stripes = new Stripe[powerOf2];
+      for (int i = 0; i < powerOf2; i++)
+      {
+        this.stripes[i] = new Stripe();
+      }
+      this.stripeMask = powerOf2 - 1;
+      this.stripeBits = Integer.numberOfTrailingZeros(powerOf2);
+    }
+
+    DNLockHolder acquire(final DN dn)
+    {
+      final int dnHashCode = dn.hashCode();
+      final int hash = spread(dnHashCode);
+      final Stripe stripe = stripes[hash & stripeMask];
+      final DNLockHolder lock = stripe.tryRetain(dn, dnHashCode, hash >>> stripeBits);
+      return lock != null ? lock : acquireSlow(stripe, dn, dnHashCode, hash >>> stripeBits);
+    }
+
+    private DNLockHolder acquireSlow(final Stripe stripe, final DN dn, final int dnHashCode, final int slotHash)
+    {
+      // Acquire the parent lock outside of the stripe lock in order to avoid deadlocks between stripes.
+      final DN parentDN = dn.parent();
+      final DNLockHolder parentLock = parentDN != null ? acquire(parentDN) : null;
+      boolean parentLockWasUsed = false;
+      try
+      {
+        synchronized (stripe)
+        {
+          DNLockHolder lock = stripe.retainLive(dn, dnHashCode, slotHash);
+          if (lock == null)
+          {
+            lock = stripe.insert(parentLock, dn, dnHashCode, slotHash);
+            parentLockWasUsed = true;
+          }
+          return lock;
+        }
+      }
+      finally
+      {
+        if (!parentLockWasUsed && parentLock != null)
+        {
+          release(parentLock);
+        }
+      }
+    }
+
+    void release(final DNLockHolder lock)
+    {
+      if (lock.refCount.decrementAndGet() == 0 && lock.refCount.compareAndSet(0, REMOVED))
+      {
+        // The lock can no longer be retained: read its fields before it is reused.
+        final DNLockHolder parentLock = lock.parent;
+        final Stripe stripe = stripes[spread(lock.dnHashCode) & stripeMask];
+        synchronized (stripe)
+        {
+          stripe.remove(lock, spread(lock.dnHashCode) >>> stripeBits);
+        }
+
+        // Release the parent outside of the stripe lock to avoid deadlocks between stripes.
+        if (parentLock != null)
+        {
+          release(parentLock);
+        }
+      }
+    }
+
+    int size()
+    {
+      int size = 0;
+      for (final Stripe stripe : stripes)
+      {
+        synchronized (stripe)
+        {
+          size += stripe.size;
+        }
+      }
+      return size;
+    }
+
+    /** For unit testing. */
+    int getRefCountFor(final DN dn)
+    {
+      final int dnHashCode = dn.hashCode();
+      final int hash = spread(dnHashCode);
+      final Stripe stripe = stripes[hash & stripeMask];
+      synchronized (stripe)
+      {
+        final AtomicReferenceArray<DNLockHolder> slots = stripe.slots;
+        final int mask = slots.length() - 1;
+        for (int i = (hash >>> stripeBits) & mask;; i = (i + 1) & mask)
+        {
+          final DNLockHolder lock = slots.get(i);
+          if (lock == null)
+          {
+            return -1;
+          }
+          if (lock.refCount.get() >= 0 && lock.isFor(dn, dnHashCode))
+          {
+            return lock.refCount.get();
+          }
+        }
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      final StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < stripes.length; i++)
+      {
+        final Stripe stripe = stripes[i];
+        synchronized (stripe)
+        {
+          for (int j = 0; j < stripe.slots.length(); j++)
+          {
+            final DNLockHolder lock = stripe.slots.get(j);
+            if (lock != null)
+            {
+              builder.append(lock);
+              builder.append(' ');
+            }
+          }
+        }
+      }
+      return builder.toString();
+    }
+
+    private int spread(final int dnHashCode)
+    {
+      return (dnHashCode ^ (dnHashCode >>> 16)) * 0x9E3779B9;
+    }
+
+    /**
+     * A stripe of the striped lock table: an open-addressed hash table using linear probing. The
+     * slots may be read without holding the stripe's monitor, but they are only modified while
+     * holding it. Removals use backward-shift deletion so that probe sequences never contain holes.
+     */
+    private final class Stripe
+    {
+      private volatile AtomicReferenceArray<DNLockHolder> slots =
+          new AtomicReferenceArray<>(INITIAL_STRIPE_CAPACITY);
+      @GuardedBy("this")
+      private int size;
+      @GuardedBy("this")
+      private final DNLockHolder[] pool = new DNLockHolder[MAXIMUM_POOL_SIZE];
+      @GuardedBy("this")
+      private int poolSize;
+
+      /** Lock-free lookup, returns {@code null} if the lock must be looked up while holding the monitor. */
+      DNLockHolder tryRetain(final DN dn, final int dnHashCode, final int slotHash)
+      {
+        final AtomicReferenceArray<DNLockHolder> slots = this.slots;
+        final int mask = slots.length() - 1;
+        for (int i = slotHash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++)
+        {
+          final DNLockHolder lock = slots.get(i);
+          if (lock == null)
+          {
+            return null;
+          }
+          if (lock.dnHashCode == dnHashCode && lock.dn != null && lock.dn.equals(dn))
+          {
+            if (!retain(lock))
+            {
+              return null;
+            }
+            if (lock.isFor(dn, dnHashCode))
+            {
+              return lock;
+            }
+            // The lock was reused for another DN concurrently.
+            release(lock);
+            return null;
+          }
+        }
+        return null;
+      }
+
+      @GuardedBy("this")
+      DNLockHolder retainLive(final DN dn, final int dnHashCode, final int slotHash)
+      {
+        final int mask = slots.length() - 1;
+        for (int i = slotHash & mask;; i = (i + 1) & mask)
+        {
+          final DNLockHolder lock = slots.get(i);
+          if (lock == null)
+          {
+            return null;
+          }
+          // Skip locks which are being removed: they will be removed as soon as we release the monitor.
+          if (lock.isFor(dn, dnHashCode) && retain(lock))
+          {
+            return lock;
+          }
+        }
+      }
+
+      @GuardedBy("this")
+      DNLockHolder insert(final DNLockHolder parentLock, final DN dn, final int dnHashCode, final int slotHash)
+      {
+        if ((size + 1) * 2 > slots.length())
+        {
+          resize();
+        }
+        final DNLockHolder lock;
+        if (poolSize > 0)
+        {
+          lock = pool[--poolSize];
+          pool[poolSize] = null;
+          lock.parent = parentLock;
+          lock.dn = dn;
+          lock.dnHashCode = dnHashCode;
+        }
+        else
+        {
+          lock = new DNLockHolder(parentLock, dn, dnHashCode);
+        }
+        // Publishes the fields above to lock-free readers which retain the lock.
+        lock.refCount.set(1);
+
+        final AtomicReferenceArray<DNLockHolder> slots = this.slots;
+        final int mask = slots.length() - 1;
+        int probes = 1;
+        int i = slotHash & mask;
+        while (slots.get(i) != null)
+        {
+          i = (i + 1) & mask;
+          probes++;
+        }
+        slots.set(i, lock);
+        size++;
+        updateMaxChainLength(probes);
+        return lock;
+      }
+
+      @GuardedBy("this")
+      void remove(final DNLockHolder lock, final int slotHash)
+      {
+        final AtomicReferenceArray<DNLockHolder> slots = this.slots;
+        final int mask = slots.length() - 1;
+        int i = slotHash & mask;
+        while (slots.get(i) != lock)
+        {
+          i = (i + 1) & mask;
+        }
+
+        // Backward-shift the following locks of the probe sequence into the hole.
+        int hole = i;
+        for (int j = (hole + 1) & mask;; j = (j + 1) & mask)
+        {
+          final DNLockHolder next = slots.get(j);
+          if (next == null)
+          {
+            break;
+          }
+          final int home = (spread(next.dnHashCode) >>> stripeBits) & mask;
+          // Move next into the hole unless its home slot lies cyclically in (hole, j].
+          if (((j - home) & mask) >= ((j - hole) & mask))
+          {
+            // Write the new slot before clearing the old one, so lock-free readers can only miss it.
+            slots.set(hole, next);
+            hole = j;
+          }
+        }
+        slots.set(hole, null);
+        size--;
+
+        lock.parent = null;
+        lock.dn = null;
+        if (poolSize < pool.length)
+        {
+          pool[poolSize++] = lock;
+        }
+      }
+
+      @GuardedBy("this")
+      private void resize()
+      {
+        final AtomicReferenceArray<DNLockHolder> oldSlots = slots;
+        final AtomicReferenceArray<DNLockHolder> newSlots = new AtomicReferenceArray<>(oldSlots.length() * 2);
+        final int mask = newSlots.length() - 1;
+        for (int j = 0; j < oldSlots.length(); j++)
+        {
+          final DNLockHolder lock = oldSlots.get(j);
+          if (lock != null)
+          {
+            int i = (spread(lock.dnHashCode) >>> stripeBits) & mask;
+            while (newSlots.get(i) != null)
+            {
+              i = (i + 1) & mask;
+            }
+            newSlots.set(i, lock);
+          }
+        }
+        slots = newSlots;
+      }
+
+      private boolean retain(final DNLockHolder lock)
+      {
+        for (;;)
+        {
+          final int refCount = lock.refCount.get();
+          if (refCount < 0)
+          {
+            return false;
+          }
+          if (lock.refCount.compareAndSet(refCount, refCount + 1))
+          {
+            return true;
+          }
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.TestCaseUtils.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.Collections;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
+import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the copy-on-write snapshots and the attribute indexes of the memory backend. */
+@SuppressWarnings("javadoc")
+public class MemoryBackendSnapshotTestCase extends BackendTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("o=memory");
+
+  private MemoryBackendIndex cnIndex;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+
+    BackendIndexCfg indexCfg = mock(BackendIndexCfg.class);
+    when(indexCfg.getAttribute()).thenReturn(getServerContext().getSchema().getAttributeType("cn"));
+    when(indexCfg.getIndexType()).thenReturn(newTreeSet(IndexType.EQUALITY, IndexType.PRESENCE, IndexType.SUBSTRING));
+    when(indexCfg.getIndexEntryLimit()).thenReturn(0);
+    when(indexCfg.getSubstringLength()).thenReturn(6);
+    cnIndex = new MemoryBackendIndex(indexCfg);
+  }
+
+  @Test
+  public void testBuilderDoesNotChangeSnapshot() throws Exception
+  {
+    MemoryBackendSnapshot empty = MemoryBackendSnapshot.empty(Collections.singleton(cnIndex));
+    MemoryBackendSnapshot.Builder builder = empty.builder();
+    builder.add(null, baseEntry());
+    builder.add(BASE_DN, person("alice"));
+    MemoryBackendSnapshot populated = builder.build();
+
+    assertThat(empty.getEntryCount()).isEqualTo(0);
+    assertThat(empty.getChildren(BASE_DN)).isNull();
+    assertThat(populated.getEntryCount()).isEqualTo(2);
+    assertThat(populated.getChildren(BASE_DN)).containsOnly(dn("alice"));
+
+    MemoryBackendSnapshot.Builder builder2 = populated.builder();
+    builder2.add(BASE_DN, person("bob"));
+    builder2.remove(BASE_DN, dn("alice"));
+    MemoryBackendSnapshot updated = builder2.build();
+
+    assertThat(populated.containsEntry(dn("alice"))).isTrue();
+    assertThat(populated.containsEntry(dn("bob"))).isFalse();
+    assertThat(populated.getChildren(BASE_DN)).containsOnly(dn("alice"));
+    assertThat(populated.getCandidates(filter("(cn=alice)"))).containsOnly(dn("alice"));
+    assertThat(updated.containsEntry(dn("alice"))).isFalse();
+    assertThat(updated.getChildren(BASE_DN)).containsOnly(dn("bob"));
+    assertThat(updated.getCandidates(filter("(cn=alice)"))).isEmpty();
+    assertThat(updated.getCandidates(filter("(cn=bob)"))).containsOnly(dn("bob"));
+  }
+
+  @Test
+  public void testIndexedCandidates() throws Exception
+  {
+    MemoryBackendSnapshot snapshot = populate(MemoryBackendSnapshot.empty(Collections.singleton(cnIndex)));
+
+    assertThat(snapshot.getCandidates(filter("(cn=carol)"))).containsOnly(dn("carol"));
+    assertThat(snapshot.getCandidates(filter("(cn=*)"))).containsOnly(dn("alice"), dn("bob"), dn("carol"));
+    assertThat(snapshot.getCandidates(filter("(cn=ali*)"))).containsOnly(dn("alice"));
+    assertThat(snapshot.getCandidates(filter("(|(cn=alice)(cn=bob))"))).containsOnly(dn("alice"), dn("bob"));
+    assertThat(snapshot.getCandidates(filter("(&(cn=alice)(sn=unindexed))"))).containsOnly(dn("alice"));
+
+    // Filters which cannot be evaluated with the indexes
+    assertThat(snapshot.getCandidates(filter("(sn=alice)"))).isNull();
+    assertThat(snapshot.getCandidates(filter("(|(cn=alice)(sn=bob))"))).isNull();
+    assertThat(snapshot.getCandidates(filter("(!(cn=alice))"))).isNull();
+  }
+
+  @Test
+  public void testReplaceUpdatesIndexes() throws Exception
+  {
+    MemoryBackendSnapshot snapshot = populate(MemoryBackendSnapshot.empty(Collections.singleton(cnIndex)));
+
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    builder.replace(makeEntry(
+        "dn: " + dn("bob"),
+        "objectClass: top",
+        "objectClass: person",
+        "cn: bob",
+        "cn: robert",
+        "sn: bob"));
+    MemoryBackendSnapshot updated = builder.build();
+
+    assertThat(updated.getCandidates(filter("(cn=bob)"))).containsOnly(dn("bob"));
+    assertThat(updated.getCandidates(filter("(cn=robert)"))).containsOnly(dn("bob"));
+    assertThat(snapshot.getCandidates(filter("(cn=robert)"))).isEmpty();
+  }
+
+  @Test
+  public void testWithIndexesRebuildsIndexes() throws Exception
+  {
+    MemoryBackendSnapshot unindexed =
+        populate(MemoryBackendSnapshot.empty(Collections.<MemoryBackendIndex> emptySet()));
+    assertThat(unindexed.getCandidates(filter("(cn=alice)"))).isNull();
+
+    MemoryBackendSnapshot indexed = unindexed.withIndexes(Collections.singleton(cnIndex));
+    assertThat(indexed.getEntryCount()).isEqualTo(unindexed.getEntryCount());
+    assertThat(indexed.getCandidates(filter("(cn=alice)"))).containsOnly(dn("alice"));
+  }
+
+  private MemoryBackendSnapshot populate(MemoryBackendSnapshot snapshot) throws Exception
+  {
+    MemoryBackendSnapshot.Builder builder = snapshot.builder();
+    builder.add(null, baseEntry());
+    builder.add(BASE_DN, person("alice"));
+    builder.add(BASE_DN, person("bob"));
+    builder.add(BASE_DN, person("carol"));
+    return builder.build();
+  }
+
+  private static Entry baseEntry() throws Exception
+  {
+    return makeEntry(
+        "dn: o=memory",
+        "objectClass: top",
+        "objectClass: organization",
+        "o: memory");
+  }
+
+  private static Entry person(String name) throws Exception
+  {
+    return makeEntry(
+        "dn: " + dn(name),
+        "objectClass: top",
+        "objectClass: person",
+        "cn: " + name,
+        "sn: " + name);
+  }
+
+  private static DN dn(String name)
+  {
+    return BASE_DN.child("cn", name);
+  }
+
+  private static SearchFilter filter(String filter) throws Exception
+  {
+    return SearchFilter.createFilterFromString(filter);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" })
+public class BloomFilterTest extends DirectoryServerTestCase
+{
+  private static final int NB_KEYS = 10 * BloomFilter.MIN_CAPACITY;
+
+  @Test
+  public void testEmptyFilter()
+  {
+    final BloomFilter bloomFilter = new BloomFilter();
+    assertThat(bloomFilter.mightContain(key(0))).isFalse();
+    assertThat(bloomFilter.getDefiniteMissCount()).isEqualTo(1);
+    assertThat(bloomFilter.getNbKeys()).isEqualTo(0);
+  }
+
+  @Test
+  public void testAddedKeysAreAlwaysFound()
+  {
+    final BloomFilter bloomFilter = new BloomFilter();
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      bloomFilter.add(key(i));
+    }
+    assertContainsKeys(bloomFilter);
+    assertThat(bloomFilter.getDefiniteMissCount()).isEqualTo(0);
+    assertThat(bloomFilter.getNbKeys()).isBetween(NB_KEYS - NB_KEYS / 100L, (long) NB_KEYS);
+    assertFalsePositiveRateIsLow(bloomFilter);
+  }
+
+  @Test
+  public void testSizedForExpectedKeys()
+  {
+    final BloomFilter bloomFilter = new BloomFilter(NB_KEYS);
+    final long sizeInBytes = bloomFilter.getSizeInBytes();
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      bloomFilter.add(key(i));
+    }
+    assertContainsKeys(bloomFilter);
+    assertFalsePositiveRateIsLow(bloomFilter);
+    // The keys fit in the filter as it was sized
+    assertThat(bloomFilter.getSizeInBytes()).isEqualTo(sizeInBytes);
+  }
+
+  @Test
+  public void testGrowsBeyondExpectedKeys()
+  {
+    final BloomFilter bloomFilter = new BloomFilter(NB_KEYS / 4);
+    final long sizeInBytes = bloomFilter.getSizeInBytes();
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      bloomFilter.add(key(i));
+    }
+    assertContainsKeys(bloomFilter);
+    assertFalsePositiveRateIsLow(bloomFilter);
+    assertThat(bloomFilter.getSizeInBytes()).isGreaterThan(sizeInBytes);
+  }
+
+  @Test
+  public void testEncodeDecode()
+  {
+    final BloomFilter bloomFilter = new BloomFilter();
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      bloomFilter.add(key(i));
+    }
+    final ByteStringBuilder encodedFilter = new ByteStringBuilder();
+    bloomFilter.encode(encodedFilter);
+
+    final BloomFilter decodedFilter = BloomFilter.decode(encodedFilter.asReader());
+    assertThat(decodedFilter).isNotNull();
+    assertThat(decodedFilter.getNbKeys()).isEqualTo(bloomFilter.getNbKeys());
+    assertThat(decodedFilter.getSizeInBytes()).isEqualTo(bloomFilter.getSizeInBytes());
+    assertContainsKeys(decodedFilter);
+  }
+
+  @Test
+  public void testDecodeUnsupportedVersion()
+  {
+    assertThat(BloomFilter.decode(ByteString.valueOfBytes(new byte[] { 0x7f }).asReader())).isNull();
+  }
+
+  private static void assertContainsKeys(BloomFilter bloomFilter)
+  {
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      assertThat(bloomFilter.mightContain(key(i))).as("key " + i).isTrue();
+    }
+  }
+
+  private static void assertFalsePositiveRateIsLow(BloomFilter bloomFilter)
+  {
+    int nbFalsePositives = 0;
+    for (int i = NB_KEYS; i < 2 * NB_KEYS; i++)
+    {
+      if (bloomFilter.mightContain(key(i)))
+      {
+        nbFalsePositives++;
+      }
+    }
+    assertThat(nbFalsePositives).isLessThan(NB_KEYS / 20);
+  }
+
+  private static ByteString key(int i)
+  {
+    return ByteString.valueOfUtf8("uid=user." + i + ",ou=people,dc=example,dc=com");
+  }
+}
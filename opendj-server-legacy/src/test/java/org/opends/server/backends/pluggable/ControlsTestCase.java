@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -284,6 +285,14 @@ public class ControlsTestCase extends DirectoryServerTestCase
         USERS_BY_SORT_ORDER_2.subList(9, 9),            // nothing
         expectedPosition(10)
       },
+      {
+        SORT_ORDER_2,
+        beforeCount(3),
+        afterCount(0),
+        assertion("a"),                                 // after all
+        USERS_BY_SORT_ORDER_2.subList(9, 9),            // nothing
+        expectedPosition(10)
+      },
     };
     // @formatter:on
   }
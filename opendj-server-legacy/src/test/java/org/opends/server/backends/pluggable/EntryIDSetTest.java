@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -290,9 +291,114 @@ public class EntryIDSetTest extends DirectoryServerTestCase
     assertIdsEquals(retained, 1, 3, 5, 7, 9);
   }
 
+  @Test
+  public void testBitmapAddRemove()
+  {
+    final EntryIDSet set = newBitmapSet(6, 8, 10, 12);
+
+    assertThat(set.add(id(4))).isTrue();
+    assertThat(set.add(id(70000))).isTrue();
+    assertThat(set.add(id(10))).isFalse();
+    assertIdsEquals(set, 4, 6, 8, 10, 12, 70000);
+
+    assertThat(set.remove(id(70000))).isTrue();
+    assertThat(set.remove(id(9))).isFalse();
+    assertIdsEquals(set, 4, 6, 8, 10, 12);
+
+    assertThat(set.contains(id(8))).isTrue();
+    assertThat(set.contains(id(9))).isFalse();
+  }
+
+  @Test
+  public void testBitmapAddAllRemoveAll()
+  {
+    final EntryIDSet set = newBitmapSet(10, 12);
+
+    set.addAll(newDefinedSet(2, 4, 6, 8, 9));
+    assertIdsEquals(set, 2, 4, 6, 8, 9, 10, 12);
+
+    set.addAll(newBitmapSet(13, 14, 100000));
+    assertIdsEquals(set, 2, 4, 6, 8, 9, 10, 12, 13, 14, 100000);
+
+    set.removeAll(newDefinedSet(1, 2, 9));
+    assertIdsEquals(set, 4, 6, 8, 10, 12, 13, 14, 100000);
+
+    set.removeAll(newBitmapSet(13, 100000, 100001));
+    assertIdsEquals(set, 4, 6, 8, 10, 12, 14);
+  }
+
+  @Test
+  public void testBitmapSetOperationsMatchDefinedSets()
+  {
+    final long[] ids1 = newSequence(0, 200000, 3);
+    final long[] ids2 = newSequence(50000, 300000, 2);
+
+    final EntryIDSet definedUnion = newSetFromUnion(Arrays.asList(newDefinedSet(ids1), newDefinedSet(ids2)));
+    final EntryIDSet bitmapUnion = newSetFromUnion(Arrays.asList(newBitmapSet(ids1), newBitmapSet(ids2)));
+    assertThat(bitmapUnion.toLongArray()).isEqualTo(definedUnion.toLongArray());
+
+    final EntryIDSet definedIntersection = newDefinedSet(ids1);
+    definedIntersection.retainAll(newDefinedSet(ids2));
+    final EntryIDSet bitmapIntersection = newBitmapSet(ids1);
+    bitmapIntersection.retainAll(newBitmapSet(ids2));
+    assertThat(bitmapIntersection.toLongArray()).isEqualTo(definedIntersection.toLongArray());
+    final EntryIDSet mixedIntersection = newDefinedSet(ids1);
+    mixedIntersection.retainAll(newBitmapSet(ids2));
+    assertThat(mixedIntersection.toLongArray()).isEqualTo(definedIntersection.toLongArray());
+
+    final EntryIDSet definedDifference = newDefinedSet(ids1);
+    definedDifference.removeAll(newDefinedSet(ids2));
+    final EntryIDSet bitmapDifference = newBitmapSet(ids1);
+    bitmapDifference.removeAll(newBitmapSet(ids2));
+    assertThat(bitmapDifference.toLongArray()).isEqualTo(definedDifference.toLongArray());
+  }
+
+  @Test
+  public void testBitmapRetainAllFromUndefined()
+  {
+    final EntryIDSet retained = newUndefinedSet();
+    retained.retainAll(newBitmapSet(1, 3, 5, 7, 9));
+    assertThat(retained.isDefined()).isTrue();
+    assertIdsEquals(retained, 1, 3, 5, 7, 9);
+  }
+
+  @Test
+  public void testCodecV4DecodesLegacyValues()
+  {
+    assertIdsEquals(CODEC_V4.decode(KEY, CODEC_V2.encode(newDefinedSet(4, 6, 8))), 4, 6, 8);
+    assertThat(CODEC_V4.decode(KEY, CODEC_V2.encode(newUndefinedSet())).isDefined()).isFalse();
+
+    final EntryIDSetCodec codec = new EntryIDSetCodecV4(CODEC_V1);
+    assertIdsEquals(codec.decode(KEY, CODEC_V1.encode(newDefinedSet(4, 6, 8))), 4, 6, 8);
+    assertThat(codec.decode(KEY, CODEC_V1.encode(newUndefinedSet())).isDefined()).isFalse();
+  }
+
+  @Test
+  public void testCodecV4CompressesLargeSets()
+  {
+    final long[] ids = newSequence(1, 1000001, 1);
+    final ByteString encoded = CODEC_V4.encode(newDefinedSet(ids));
+    assertThat(encoded.length()).isLessThan(1000);
+    assertThat(encoded.length()).isLessThan(CODEC_V2.encode(newDefinedSet(ids)).length() / 100);
+
+    final EntryIDSet decoded = CODEC_V4.decode(KEY, encoded);
+    assertThat(decoded.size()).isEqualTo(ids.length);
+    assertThat(decoded.toLongArray()).isEqualTo(ids);
+  }
+
+  private static long[] newSequence(long from, long to, int step)
+  {
+    final long[] ids = new long[(int) ((to - from + step - 1) / step)];
+    for (int i = 0; i < ids.length; i++)
+    {
+      ids[i] = from + i * step;
+    }
+    return ids;
+  }
+
   @DataProvider(name = "codecs")
   public static Object[][] codecs() {
-     return new Object[][] { { CODEC_V1 }, { CODEC_V2 } };
+     return new Object[][] { { CODEC_V1 }, { CODEC_V2 }, { CODEC_V4 } };
   }
 
 }
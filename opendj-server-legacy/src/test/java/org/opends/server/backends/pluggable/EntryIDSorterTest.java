@@ -0,0 +1,144 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class EntryIDSorterTest extends DirectoryServerTestCase
+{
+  private File tempDir;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    tempDir = TestCaseUtils.createTemporaryDirectory("entryidsorter");
+  }
+
+  @AfterClass
+  public void tearDown()
+  {
+    recursiveDelete(tempDir);
+  }
+
+  @Test
+  public void testExternalSorterInMemory()
+  {
+    try (final EntryIDSorter sorter = EntryIDSorter.newExternalSorter(tempDir))
+    {
+      final List<Long> expected = addShuffledIDs(sorter, 1000);
+      assertThat(sorter.size()).isEqualTo(1000);
+      assertThat(toList(sorter.toLongArray())).isEqualTo(expected);
+    }
+    assertThat(tempDir.list()).isEmpty();
+  }
+
+  @Test
+  public void testExternalSorterSpillsToDisk()
+  {
+    // Enough entries to exceed the sort buffer several times
+    final int nbEntries = 3 * EntryIDSorter.SORT_BUFFER_SIZE / 100;
+    try (final EntryIDSorter sorter = EntryIDSorter.newExternalSorter(tempDir))
+    {
+      final List<Long> expected = addShuffledIDs(sorter, nbEntries);
+      assertThat(tempDir.list()).hasSize(1);
+      assertThat(sorter.size()).isEqualTo(nbEntries);
+      assertThat(toList(sorter.toLongArray())).isEqualTo(expected);
+    }
+    assertThat(tempDir.list()).isEmpty();
+  }
+
+  @Test
+  public void testLowestKeysSorter()
+  {
+    try (final EntryIDSorter sorter = EntryIDSorter.newLowestKeysSorter(10))
+    {
+      final List<Long> expected = addShuffledIDs(sorter, 1000);
+      assertThat(sorter.size()).isEqualTo(1000);
+      assertThat(toList(sorter.toLongArray())).isEqualTo(expected.subList(0, 10));
+    }
+  }
+
+  @Test
+  public void testHighestKeysSorter()
+  {
+    try (final EntryIDSorter sorter = EntryIDSorter.newHighestKeysSorter(10))
+    {
+      final List<Long> expected = addShuffledIDs(sorter, 1000);
+      assertThat(sorter.size()).isEqualTo(1000);
+      assertThat(toList(sorter.toLongArray())).isEqualTo(expected.subList(990, 1000));
+    }
+  }
+
+  @Test
+  public void testEmptyBoundedSorterOnlyCounts()
+  {
+    try (final EntryIDSorter sorter = EntryIDSorter.newLowestKeysSorter(0))
+    {
+      addShuffledIDs(sorter, 100);
+      assertThat(sorter.size()).isEqualTo(100);
+      assertThat(sorter.toLongArray()).isEmpty();
+    }
+  }
+
+  /** Adds the IDs in random order, sorted in reverse order of their IDs, and returns the expected sorted IDs. */
+  private static List<Long> addShuffledIDs(EntryIDSorter sorter, int nbEntries)
+  {
+    final List<Long> ids = new ArrayList<>(nbEntries);
+    for (long id = 1; id <= nbEntries; id++)
+    {
+      ids.add(id);
+    }
+    Collections.shuffle(ids, new Random(0));
+    for (Long id : ids)
+    {
+      sorter.add(sortKey(id), new EntryID(id));
+    }
+    Collections.sort(ids, Collections.reverseOrder());
+    return ids;
+  }
+
+  private static ByteString sortKey(long id)
+  {
+    return new ByteStringBuilder().appendUtf8("sn=user").appendLong(Long.MAX_VALUE - id).appendLong(id).toByteString();
+  }
+
+  private static List<Long> toList(long[] array)
+  {
+    final List<Long> list = new ArrayList<>(array.length);
+    for (long value : array)
+    {
+      list.add(value);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.TestCaseUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class ID2EntryTest extends DirectoryServerTestCase
+{
+  private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+  private static final int CIPHER_KEY_LENGTH = 128;
+  private static final int DICTIONARY_VERSION = 1;
+
+  private final TreeName id2EntryTreeName = new TreeName("base-dn", "id2entry");
+  private List<Entry> entries;
+  private byte[] dictionary;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    getServerContext().getCryptoManager().ensureCipherKeyIsAvailable(CIPHER_TRANSFORMATION, CIPHER_KEY_LENGTH);
+
+    entries = new ArrayList<>();
+    final List<byte[]> samples = new ArrayList<>();
+    final ID2Entry id2Entry = new ID2Entry(id2EntryTreeName, new DataConfig.Builder().build());
+    for (int i = 0; i < PersistentCompressionDictionary.MIN_SAMPLES * 2; i++)
+    {
+      final Entry entry = makeEntry(
+          "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+          "objectClass: top",
+          "objectClass: person",
+          "objectClass: organizationalPerson",
+          "objectClass: inetOrgPerson",
+          "uid: user." + i,
+          "cn: Given" + i + " Surname" + i,
+          "sn: Surname" + i,
+          "mail: user." + i + "@example.com",
+          "description: This is the description for user." + i);
+      entries.add(entry);
+      samples.add(id2Entry.encodeUncompressed(entry).toByteArray());
+    }
+    dictionary = PersistentCompressionDictionary.train(samples, PersistentCompressionDictionary.MAX_DICTIONARY_SIZE);
+    assertThat(dictionary).isNotEmpty();
+  }
+
+  @DataProvider
+  public Object[][] encryption()
+  {
+    return new Object[][] { { false }, { true } };
+  }
+
+  @Test(dataProvider = "encryption")
+  public void testDictionaryCompressedEntryRoundTrip(boolean encrypted) throws Exception
+  {
+    final PersistentCompressionDictionary dictionaries = newDictionaries(dictionary);
+    final DataConfig dataConfig = newDataConfig(dictionaries, encrypted);
+    final ID2Entry id2Entry = new ID2Entry(id2EntryTreeName, dataConfig);
+
+    for (Entry entry : entries)
+    {
+      final ByteString bytes = id2Entry.entryToDatabase(entry, dataConfig);
+      final Entry decoded = id2Entry.entryFromDatabase(bytes, DirectoryServer.getDefaultCompressedSchema());
+      assertThat(decoded.toLDIFString()).isEqualTo(entry.toLDIFString());
+    }
+    verify(dictionaries, atLeastOnce()).getDictionary(DICTIONARY_VERSION);
+  }
+
+  @Test(dataProvider = "encryption", expectedExceptions = DecodeException.class)
+  public void testDecodeWithMismatchingDictionaryFails(boolean encrypted) throws Exception
+  {
+    final DataConfig dataConfig = newDataConfig(newDictionaries(dictionary), encrypted);
+    final ByteString bytes = new ID2Entry(id2EntryTreeName, dataConfig).entryToDatabase(entries.get(0), dataConfig);
+
+    final byte[] otherDictionary = dictionary.clone();
+    otherDictionary[0] ^= 0xff;
+    final DataConfig otherDataConfig = newDataConfig(newDictionaries(otherDictionary), encrypted);
+    new ID2Entry(id2EntryTreeName, otherDataConfig).entryFromDatabase(
+        bytes, DirectoryServer.getDefaultCompressedSchema());
+  }
+
+  private static PersistentCompressionDictionary newDictionaries(byte[] bytes)
+  {
+    final PersistentCompressionDictionary dictionaries = mock(PersistentCompressionDictionary.class);
+    when(dictionaries.getCurrentDictionary()).thenReturn(
+        new PersistentCompressionDictionary.Dictionary(DICTIONARY_VERSION, bytes));
+    when(dictionaries.getDictionary(DICTIONARY_VERSION)).thenReturn(bytes);
+    return dictionaries;
+  }
+
+  private static DataConfig newDataConfig(PersistentCompressionDictionary dictionaries, boolean encrypted)
+  {
+    return new DataConfig.Builder()
+        .compress(true)
+        .compressWithDictionary(true)
+        .compressionDictionary(dictionaries)
+        .encrypt(encrypted)
+        .cryptoSuite(getServerContext().getCryptoManager().newCryptoSuite(
+            CIPHER_TRANSFORMATION, CIPHER_KEY_LENGTH, encrypted))
+        .build();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class IndexStatisticsTest extends DirectoryServerTestCase
+{
+  @Test
+  public void testNothingRecorded()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    assertThat(statistics.getKeySize(key("Paris"))).isEqualTo(UNKNOWN_SIZE);
+    assertThat(statistics.getAverageSize()).isEqualTo(UNKNOWN_SIZE);
+  }
+
+  @Test
+  public void testLargestRecordedSizeIsKept()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.recordSize(key("Paris"), 3000);
+    statistics.recordSize(key("Paris"), 1000);
+    statistics.recordSize(key("42"), 1);
+    assertThat(statistics.getKeySize(key("Paris"))).isEqualTo(3000);
+    assertThat(statistics.getKeySize(key("42"))).isEqualTo(1);
+    assertThat(statistics.getAverageSize()).isEqualTo((3000 + 1000 + 1) / 3);
+  }
+
+  @Test
+  public void testLimitExceeded()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.recordSize(key("Paris"), LIMIT_EXCEEDED_SIZE);
+    statistics.recordSize(key("42"), 1);
+    assertThat(statistics.getKeySize(key("Paris"))).isEqualTo(LIMIT_EXCEEDED_SIZE);
+    assertThat(statistics.getAverageSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEstimatesNeverUnderestimate()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    final int nbKeys = 10000;
+    for (int i = 1; i <= nbKeys; i++)
+    {
+      statistics.recordSize(key("key" + i), i);
+    }
+    for (int i = 1; i <= nbKeys; i++)
+    {
+      assertThat(statistics.getKeySize(key("key" + i))).isGreaterThanOrEqualTo(i);
+    }
+  }
+
+  @Test
+  public void testClear()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.recordSize(key("Paris"), 3000);
+    statistics.clear();
+    assertThat(statistics.getKeySize(key("Paris"))).isEqualTo(UNKNOWN_SIZE);
+    assertThat(statistics.getAverageSize()).isEqualTo(UNKNOWN_SIZE);
+  }
+
+  @Test
+  public void testCostOrdersUnknownSizesBetweenKnownAndExceededSizes()
+  {
+    assertThat(getCost(1)).isLessThan(getCost(1000000));
+    assertThat(getCost(1000000)).isLessThan(getCost(UNKNOWN_SIZE));
+    assertThat(getCost(UNKNOWN_SIZE)).isLessThan(getCost(LIMIT_EXCEEDED_SIZE));
+  }
+
+  private static ByteString key(String value)
+  {
+    return ByteString.valueOfUtf8(value);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class PersistentCompressionDictionaryTest extends DirectoryServerTestCase
+{
+  private static final int NB_SAMPLES = 500;
+
+  @Test
+  public void testDictionaryImprovesCompressionOfSmallEntries() throws Exception
+  {
+    final List<byte[]> samples = newSamples(new Random(0));
+    final byte[] dictionary = PersistentCompressionDictionary.train(samples,
+        PersistentCompressionDictionary.MAX_DICTIONARY_SIZE);
+    assertThat(dictionary.length).isGreaterThan(0).isLessThanOrEqualTo(
+        PersistentCompressionDictionary.MAX_DICTIONARY_SIZE);
+
+    long plainSize = 0;
+    long dictionarySize = 0;
+    for (byte[] sample : newSamples(new Random(1)))
+    {
+      plainSize += deflate(sample, null).length;
+      final byte[] compressed = deflate(sample, dictionary);
+      dictionarySize += compressed.length;
+      assertThat(inflate(compressed, dictionary, sample.length)).isEqualTo(sample);
+    }
+    assertThat(dictionarySize).isLessThan(plainSize / 2);
+  }
+
+  @Test
+  public void testDictionaryIsBoundedBySize() throws Exception
+  {
+    final byte[] dictionary = PersistentCompressionDictionary.train(newSamples(new Random(0)), 1024);
+    assertThat(dictionary.length).isGreaterThan(0).isLessThanOrEqualTo(1024);
+  }
+
+  @Test
+  public void testNothingInCommonGivesEmptyDictionary() throws Exception
+  {
+    final Random random = new Random(0);
+    final List<byte[]> samples = new ArrayList<>();
+    for (int i = 0; i < NB_SAMPLES; i++)
+    {
+      final byte[] sample = new byte[100];
+      random.nextBytes(sample);
+      samples.add(sample);
+    }
+    assertThat(PersistentCompressionDictionary.train(samples,
+        PersistentCompressionDictionary.MAX_DICTIONARY_SIZE)).isEmpty();
+  }
+
+  private static List<byte[]> newSamples(Random random)
+  {
+    final String[] titles = { "Engineer", "Manager", "Director", "Administrator" };
+    final List<byte[]> samples = new ArrayList<>();
+    for (int i = 0; i < NB_SAMPLES; i++)
+    {
+      final String entry = "uid=user." + i + ",ou=People,dc=example,dc=com"
+          + " objectClass person organizationalPerson inetOrgPerson top"
+          + " givenName Given" + random.nextInt(1000) + " sn Surname" + random.nextInt(1000)
+          + " mail user." + i + "@example.com telephoneNumber +1 408 555 " + random.nextInt(10000)
+          + " title " + titles[random.nextInt(titles.length)]
+          + " description This is the description for user." + i
+          + " l Springfield st CA postalCode 9" + random.nextInt(10000);
+      samples.add(entry.getBytes(StandardCharsets.UTF_8));
+    }
+    return samples;
+  }
+
+  private static byte[] deflate(byte[] data, byte[] dictionary)
+  {
+    final Deflater deflater = new Deflater();
+    try
+    {
+      if (dictionary != null)
+      {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(data);
+      deflater.finish();
+      final byte[] buffer = new byte[data.length + 64];
+      final int length = deflater.deflate(buffer);
+      final byte[] compressed = new byte[length];
+      System.arraycopy(buffer, 0, compressed, 0, length);
+      return compressed;
+    }
+    finally
+    {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] compressed, byte[] dictionary, int length) throws DataFormatException
+  {
+    final Inflater inflater = new Inflater();
+    try
+    {
+      inflater.setInput(compressed);
+      final byte[] data = new byte[length];
+      int position = 0;
+      while (position < length)
+      {
+        final int inflatedBytes = inflater.inflate(data, position, length - position);
+        if (inflatedBytes == 0)
+        {
+          assertThat(inflater.needsDictionary()).isTrue();
+          inflater.setDictionary(dictionary);
+        }
+        position += inflatedBytes;
+      }
+      return data;
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -66,6 +67,7 @@ import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.TreeName;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.controls.PagedResultsControl;
 import org.opends.server.core.AddOperation;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.ModifyDNOperation;
@@ -77,6 +79,7 @@ import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.types.BackupConfig;
 import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.LDIFExportConfig;
@@ -868,6 +871,166 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat(searchOperation.getEntriesSent()).isEqualTo(0);
   }
 
+  @Test
+  public void testParallelSearchReturnsEntriesInCandidateOrder() throws Exception
+  {
+    final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)");
+    final List<DN> expectedDNs = getDNs(runSearch(request, false));
+    assertThat(expectedDNs).isNotEmpty();
+
+    final int batchSize = EntryContainer.parallelSearchBatchSize;
+    EntryContainer.parallelSearchBatchSize = 1;
+    setParallelSearch(2, 1);
+    try
+    {
+      assertThat(getDNs(runSearch(request, false))).isEqualTo(expectedDNs);
+    }
+    finally
+    {
+      EntryContainer.parallelSearchBatchSize = batchSize;
+      setParallelSearch(0, 1);
+    }
+  }
+
+  @Test
+  public void testParallelSearchWithPagedResults() throws Exception
+  {
+    final List<DN> expectedDNs =
+        getDNs(runSearch(newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)"), false));
+
+    final int batchSize = EntryContainer.parallelSearchBatchSize;
+    EntryContainer.parallelSearchBatchSize = 1;
+    setParallelSearch(2, 1);
+    try
+    {
+      final List<DN> pagedDNs = new ArrayList<>();
+      ByteString cookie = ByteString.empty();
+      do
+      {
+        final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)")
+            .addControl(new PagedResultsControl(true, 2, cookie));
+        final InternalSearchOperation search = new InternalSearchOperation(getRootConnection(), -1, -1, request);
+        backend.search(new LocalBackendSearchOperation(search));
+
+        assertThat(search.getSearchEntries().size()).isLessThanOrEqualTo(2);
+        pagedDNs.addAll(getDNs(search.getSearchEntries()));
+        cookie = getPagedResultsCookie(search);
+      }
+      while (cookie.length() > 0);
+
+      assertThat(pagedDNs).isEqualTo(expectedDNs);
+    }
+    finally
+    {
+      EntryContainer.parallelSearchBatchSize = batchSize;
+      setParallelSearch(0, 1);
+    }
+  }
+
+  @Test
+  public void testParallelSearchWithSizeLimit() throws Exception
+  {
+    final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)");
+    final List<DN> expectedDNs = getDNs(runSearch(request, false));
+    assertThat(expectedDNs.size()).isGreaterThan(2);
+
+    final int batchSize = EntryContainer.parallelSearchBatchSize;
+    EntryContainer.parallelSearchBatchSize = 1;
+    setParallelSearch(2, 1);
+    try
+    {
+      request.setSizeLimit(2);
+      final InternalSearchOperation search = new InternalSearchOperation(getRootConnection(), -1, -1, request);
+      backend.search(new LocalBackendSearchOperation(search));
+
+      assertThat(search.getResultCode()).isEqualTo(ResultCode.SIZE_LIMIT_EXCEEDED);
+      assertThat(getDNs(search.getSearchEntries())).isEqualTo(expectedDNs.subList(0, 2));
+    }
+    finally
+    {
+      EntryContainer.parallelSearchBatchSize = batchSize;
+      setParallelSearch(0, 1);
+    }
+  }
+
+  @Test
+  public void testParallelSearchSurvivesConfigurationChange() throws Exception
+  {
+    final List<DN> expectedDNs =
+        getDNs(runSearch(newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)"), false));
+
+    final int batchSize = EntryContainer.parallelSearchBatchSize;
+    EntryContainer.parallelSearchBatchSize = 1;
+    setParallelSearch(2, 1);
+    try
+    {
+      // Changing the number of threads shuts down the pool used by the search in progress
+      final List<Entry> returnedEntries = new ArrayList<>();
+      final SearchOperation searchOp =
+          createSearchOperation(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)", returnedEntries);
+      doAnswer(new Answer<Boolean>()
+      {
+        @Override
+        public Boolean answer(InvocationOnMock invocation) throws Throwable
+        {
+          if (returnedEntries.isEmpty())
+          {
+            setParallelSearch(3, 1);
+          }
+          returnedEntries.add(invocation.getArgumentAt(0, Entry.class));
+          return true;
+        }
+      }).when(searchOp).returnEntry(any(Entry.class), any(List.class));
+      backend.search(searchOp);
+
+      assertThat(getEntryDNs(returnedEntries)).isEqualTo(expectedDNs);
+      // The next searches use the new pool
+      assertThat(getDNs(runSearch(newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)"), false)))
+          .isEqualTo(expectedDNs);
+    }
+    finally
+    {
+      EntryContainer.parallelSearchBatchSize = batchSize;
+      setParallelSearch(0, 1);
+    }
+  }
+
+  private void setParallelSearch(int nbThreads, int threshold)
+  {
+    final C backendCfg = createBackendCfg();
+    when(backendCfg.getParallelSearchThreads()).thenReturn(nbThreads);
+    when(backendCfg.getParallelSearchThreshold()).thenReturn(threshold);
+    backend.getRootContainer().applyConfigurationChange(backendCfg);
+  }
+
+  private ByteString getPagedResultsCookie(InternalSearchOperation search)
+  {
+    for (Control control : search.getResponseControls())
+    {
+      if (control instanceof PagedResultsControl)
+      {
+        return ((PagedResultsControl) control).getCookie();
+      }
+    }
+    fail("Missing paged results response control");
+    return null;
+  }
+
+  private List<DN> getDNs(List<SearchResultEntry> searchEntries)
+  {
+    return getEntryDNs(new ArrayList<Entry>(searchEntries));
+  }
+
+  private List<DN> getEntryDNs(List<Entry> entries)
+  {
+    final List<DN> dns = new ArrayList<>(entries.size());
+    for (Entry entry : entries)
+    {
+      dns.add(entry.getName());
+    }
+    return dns;
+  }
+
   private void subTreeSearch(boolean useInternalConnection) throws Exception
   {
     SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "objectclass=*");
@@ -0,0 +1,215 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.config.ConfigurationMock.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.PDBBackendCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pdb.PDBStorage;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.MemoryQuota;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.opends.server.types.DirectoryException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class VLVCheckpointsTest extends DirectoryServerTestCase
+{
+  private final TreeName vlvTreeName = new TreeName("base-dn", "vlv.test");
+  private final TreeName checkpointsTreeName = new TreeName("base-dn", "checkpoint.vlv.test");
+  private final Random random = new Random(0);
+  private final TreeSet<ByteString> expectedKeys = new TreeSet<>();
+  private VLVCheckpoints checkpoints;
+  private PDBStorage storage;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getMemoryQuota()).thenReturn(new MemoryQuota());
+    when(serverContext.getDiskSpaceMonitor()).thenReturn(mock(DiskSpaceMonitor.class));
+
+    storage = new PDBStorage(createBackendCfg(), serverContext);
+    storage.open(AccessMode.READ_WRITE);
+    checkpoints = new VLVCheckpoints(checkpointsTreeName);
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(vlvTreeName, true);
+        checkpoints.open(txn, true);
+      }
+    });
+    expectedKeys.clear();
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    storage.close();
+    storage.removeStorageFiles();
+  }
+
+  @Test
+  public void testEmptyIndex() throws Exception
+  {
+    assertPositions();
+  }
+
+  @Test
+  public void testAddedKeysAreLocated() throws Exception
+  {
+    for (int i = 0; i < 40; i++)
+    {
+      update(randomKeys(100), Collections.<ByteString> emptySet());
+    }
+    assertPositions();
+  }
+
+  @Test
+  public void testAddedAndDeletedKeysAreLocated() throws Exception
+  {
+    for (int i = 0; i < 40; i++)
+    {
+      final TreeSet<ByteString> deletedKeys = new TreeSet<>();
+      for (ByteString key : expectedKeys)
+      {
+        if (random.nextInt(4) == 0)
+        {
+          deletedKeys.add(key);
+        }
+      }
+      update(randomKeys(200), deletedKeys);
+    }
+    assertPositions();
+  }
+
+  private TreeSet<ByteString> randomKeys(int nbKeys)
+  {
+    final TreeSet<ByteString> keys = new TreeSet<>();
+    while (keys.size() < nbKeys)
+    {
+      final byte[] key = new byte[8];
+      random.nextBytes(key);
+      keys.add(ByteString.wrap(key));
+    }
+    keys.removeAll(expectedKeys);
+    return keys;
+  }
+
+  private void update(final Collection<ByteString> addedKeys, final Collection<ByteString> deletedKeys) throws Exception
+  {
+    expectedKeys.addAll(addedKeys);
+    expectedKeys.removeAll(deletedKeys);
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (ByteString key : addedKeys)
+        {
+          txn.put(vlvTreeName, key, ByteString.empty());
+        }
+        for (ByteString key : deletedKeys)
+        {
+          txn.delete(vlvTreeName, key);
+        }
+        checkpoints.update(txn, vlvTreeName, addedKeys, deletedKeys);
+      }
+    });
+  }
+
+  private void assertPositions() throws Exception
+  {
+    final List<ByteString> keys = new ArrayList<>(expectedKeys);
+    storage.read(new ReadOperation<Void>()
+    {
+      @Override
+      public Void run(ReadableTransaction txn) throws Exception
+      {
+        for (int i = 0; i < keys.size(); i += 7)
+        {
+          try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+          {
+            assertThat(checkpoints.positionToIndex(txn, cursor, i)).isTrue();
+            assertThat(cursor.getKey()).isEqualTo(keys.get(i));
+            assertThat(checkpoints.getPosition(txn, cursor, keys.get(i))).isEqualTo(i);
+          }
+        }
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+        {
+          assertThat(checkpoints.positionToIndex(txn, cursor, keys.size())).isFalse();
+          final byte[] highestKey = new byte[9];
+          Arrays.fill(highestKey, (byte) 0xff);
+          assertThat(checkpoints.getPosition(txn, cursor, ByteString.wrap(highestKey))).isEqualTo(keys.size());
+          assertThat(checkpoints.getPosition(txn, cursor, ByteString.empty())).isEqualTo(0);
+        }
+        return null;
+      }
+    });
+  }
+
+  private PDBBackendCfg createBackendCfg() throws ConfigException, DirectoryException
+  {
+    String homeDirName = "pdb_test";
+    PDBBackendCfg backendCfg = mockCfg(PDBBackendCfg.class);
+
+    when(backendCfg.getBackendId()).thenReturn("persTest" + homeDirName);
+    when(backendCfg.getDBDirectory()).thenReturn(homeDirName);
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    when(backendCfg.getDBCacheSize()).thenReturn(0L);
+    when(backendCfg.getDBCachePercent()).thenReturn(20);
+    when(backendCfg.getBaseDN()).thenReturn(newTreeSet(DN.valueOf("dc=test,dc=com")));
+    when(backendCfg.dn()).thenReturn(DN.valueOf("dc=test,dc=com"));
+    when(backendCfg.listBackendIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+    return backendCfg;
+  }
+}
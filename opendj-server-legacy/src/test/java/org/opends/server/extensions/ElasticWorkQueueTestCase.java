@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.config.ConfigurationMock;
+import org.forgerock.opendj.server.config.server.ElasticWorkQueueCfg;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Operation;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** A set of test cases for the elastic work queue. */
+@SuppressWarnings("javadoc")
+public class ElasticWorkQueueTestCase extends ExtensionsTestCase
+{
+  private MonitorProvider<?> serverWorkQueueMonitor;
+  private ElasticWorkQueue workQueue;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void saveWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    // The elastic work queue registers a monitor with the same name as the server's work queue monitor
+    DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+  }
+
+  private ElasticWorkQueue newWorkQueue(int maxWorkerThreads, int maxCapacity) throws Exception
+  {
+    ElasticWorkQueueCfg cfg = ConfigurationMock.mockCfg(ElasticWorkQueueCfg.class);
+    when(cfg.getMaxWorkerThreads()).thenReturn(maxWorkerThreads);
+    when(cfg.getMaxWorkQueueCapacity()).thenReturn(maxCapacity);
+    workQueue = new ElasticWorkQueue();
+    workQueue.initializeWorkQueue(cfg);
+    return workQueue;
+  }
+
+  private Operation newOperation(final CountDownLatch started, final CountDownLatch release)
+  {
+    Operation operation = mock(Operation.class);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  @Test
+  public void testSlowOperationsDoNotStarveFastOperations() throws Exception
+  {
+    ElasticWorkQueue queue = newWorkQueue(16, 10);
+    int nbSlowOperations = 8;
+    CountDownLatch slowStarted = new CountDownLatch(nbSlowOperations);
+    CountDownLatch releaseSlow = new CountDownLatch(1);
+    int nbFastOperations = 20;
+    CountDownLatch fastDone = new CountDownLatch(nbFastOperations);
+    try
+    {
+      for (int i = 0; i < nbSlowOperations; i++)
+      {
+        queue.submitOperation(newOperation(slowStarted, releaseSlow));
+      }
+      assertThat(slowStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queue.getOpsInProgress()).isEqualTo(nbSlowOperations);
+
+      for (int i = 0; i < nbFastOperations; i++)
+      {
+        queue.submitOperation(newOperation(fastDone, new CountDownLatch(0)));
+      }
+      assertThat(fastDone.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queue.isIdle()).isFalse();
+    }
+    finally
+    {
+      releaseSlow.countDown();
+    }
+
+    assertThat(queue.waitUntilIdle(10000)).isTrue();
+    assertThat(queue.getOpsSubmitted()).isEqualTo(nbSlowOperations + nbFastOperations);
+    assertThat(queue.getOpsCompleted()).isEqualTo(nbSlowOperations + nbFastOperations);
+    assertThat(queue.getLargestWorkerThreads()).isLessThanOrEqualTo(16);
+  }
+
+  @Test
+  public void testTrySubmitRejectsWhenFull() throws Exception
+  {
+    ElasticWorkQueue queue = newWorkQueue(1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try
+    {
+      queue.submitOperation(newOperation(started, release));
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+      CountDownLatch noLatch = new CountDownLatch(0);
+      assertThat(queue.trySubmitOperation(newOperation(noLatch, noLatch))).isTrue();
+      assertThat(queue.size()).isEqualTo(1);
+      assertThat(queue.trySubmitOperation(newOperation(noLatch, noLatch))).isFalse();
+      assertThat(queue.getOpsRejectedDueToQueueFull()).isEqualTo(1);
+    }
+    finally
+    {
+      release.countDown();
+    }
+    assertThat(queue.waitUntilIdle(10000)).isTrue();
+  }
+}
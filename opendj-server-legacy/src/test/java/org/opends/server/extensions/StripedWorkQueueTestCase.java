@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.config.ConfigurationMock;
+import org.forgerock.opendj.server.config.server.StripedWorkQueueCfg;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Operation;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** A set of test cases for the striped work queue. */
+@SuppressWarnings("javadoc")
+public class StripedWorkQueueTestCase extends ExtensionsTestCase
+{
+  private MonitorProvider<?> serverWorkQueueMonitor;
+  private StripedWorkQueue workQueue;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void saveWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    // The striped work queue registers a monitor with the same name as the server's work queue monitor
+    DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+  }
+
+  private StripedWorkQueue newWorkQueue(int numWorkerThreads, int maxCapacity) throws Exception
+  {
+    StripedWorkQueueCfg cfg = ConfigurationMock.mockCfg(StripedWorkQueueCfg.class);
+    when(cfg.getNumWorkerThreads()).thenReturn(numWorkerThreads);
+    when(cfg.getMaxWorkQueueCapacity()).thenReturn(maxCapacity);
+    workQueue = new StripedWorkQueue();
+    workQueue.initializeWorkQueue(cfg);
+    return workQueue;
+  }
+
+  private Operation newOperation(long connectionID, final CountDownLatch started, final CountDownLatch release)
+  {
+    Operation operation = mock(Operation.class);
+    when(operation.getConnectionID()).thenReturn(connectionID);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  @Test
+  public void testProcessesOperationsFromAllConnections() throws Exception
+  {
+    StripedWorkQueue queue = newWorkQueue(4, 100);
+    int nbOperations = 50;
+    CountDownLatch processed = new CountDownLatch(nbOperations);
+    CountDownLatch release = new CountDownLatch(0);
+    for (int i = 0; i < nbOperations; i++)
+    {
+      queue.submitOperation(newOperation(i, processed, release));
+    }
+
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(queue.waitUntilIdle(10000)).isTrue();
+    assertThat(queue.getOpsSubmitted()).isEqualTo(nbOperations);
+    assertThat(queue.size()).isZero();
+    assertThat(queue.getShardSizes()).hasSize(4);
+  }
+
+  @Test
+  public void testIdleWorkersStealFromBusyShard() throws Exception
+  {
+    StripedWorkQueue queue = newWorkQueue(4, 100);
+    CountDownLatch blockingStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocking = new CountDownLatch(1);
+    // All the operations come from the same connection, hence they all go to the same shard.
+    queue.submitOperation(newOperation(0, blockingStarted, releaseBlocking));
+    assertThat(blockingStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    int nbOperations = 10;
+    CountDownLatch processed = new CountDownLatch(nbOperations);
+    for (int i = 0; i < nbOperations; i++)
+    {
+      queue.submitOperation(newOperation(0, processed, new CountDownLatch(0)));
+    }
+
+    try
+    {
+      assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queue.getOpsStolen()).isGreaterThan(0);
+    }
+    finally
+    {
+      releaseBlocking.countDown();
+    }
+  }
+
+  @Test
+  public void testTrySubmitRejectsWhenAllShardsAreFull() throws Exception
+  {
+    StripedWorkQueue queue = newWorkQueue(1, 2);
+    CountDownLatch blockingStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocking = new CountDownLatch(1);
+    try
+    {
+      queue.submitOperation(newOperation(0, blockingStarted, releaseBlocking));
+      assertThat(blockingStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+      CountDownLatch noLatch = new CountDownLatch(0);
+      assertThat(queue.trySubmitOperation(newOperation(1, noLatch, noLatch))).isTrue();
+      assertThat(queue.trySubmitOperation(newOperation(2, noLatch, noLatch))).isTrue();
+      assertThat(queue.trySubmitOperation(newOperation(3, noLatch, noLatch))).isFalse();
+      assertThat(queue.getOpsRejectedDueToQueueFull()).isEqualTo(1);
+    }
+    finally
+    {
+      releaseBlocking.countDown();
+    }
+    assertThat(queue.waitUntilIdle(10000)).isTrue();
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.loggers;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.FilePermission;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class LogEventRingBufferTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void testConcurrentEventsAreAllWritten() throws Exception
+  {
+    final File logFile = File.createTempFile("ring-buffer", ".log");
+    final MultifileTextWriter writer = newWriter(logFile);
+    final LogEventRingBuffer ringBuffer = new LogEventRingBuffer("Ring Buffer Test Writer",
+        "Ring Buffer Test 1", 8192, false, writer, new SimpleFormatter(null));
+    try
+    {
+      final int nbThreads = 4;
+      final int nbEvents = 1000;
+      final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+      for (int i = 0; i < nbThreads; i++)
+      {
+        final int thread = i;
+        executor.submit(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            for (int j = 0; j < nbEvents; j++)
+            {
+              assertThat(ringBuffer.publish(thread, j, "event", null, null)).isTrue();
+            }
+          }
+        });
+      }
+      executor.shutdown();
+      assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+      ringBuffer.shutdown();
+
+      final List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+      assertThat(lines).hasSize(nbThreads * nbEvents);
+      assertThat(new HashSet<>(lines)).hasSize(nbThreads * nbEvents);
+      assertThat(ringBuffer.getPublishedCount()).isEqualTo(nbThreads * nbEvents);
+      assertThat(ringBuffer.getDroppedCount()).isEqualTo(0);
+      assertThat(ringBuffer.getBacklog()).isEqualTo(0);
+    }
+    finally
+    {
+      ringBuffer.shutdown();
+      writer.shutdown();
+      logFile.delete();
+    }
+  }
+
+  @Test
+  public void testEventsAreDroppedWhenFull() throws Exception
+  {
+    final File logFile = File.createTempFile("ring-buffer", ".log");
+    final MultifileTextWriter writer = newWriter(logFile);
+    final CountDownLatch stalled = new CountDownLatch(1);
+    final LogEventRingBuffer ringBuffer = new LogEventRingBuffer("Ring Buffer Test Writer",
+        "Ring Buffer Test 2", 3, false, writer, new SimpleFormatter(stalled));
+    try
+    {
+      assertThat(ringBuffer.getCapacity()).isEqualTo(4);
+      // The writer thread stalls while formatting the first event, which keeps its slot busy
+      for (int i = 0; i < 4; i++)
+      {
+        assertThat(ringBuffer.publish(0, i, "event", null, null)).isTrue();
+      }
+      assertThat(ringBuffer.publish(0, 4, "event", null, null)).isFalse();
+      assertThat(ringBuffer.publish(0, 5, "event", null, null)).isFalse();
+      assertThat(ringBuffer.getDroppedCount()).isEqualTo(2);
+
+      stalled.countDown();
+      ringBuffer.shutdown();
+      assertThat(ringBuffer.publish(0, 6, "event", null, null)).isFalse();
+
+      final List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+      assertThat(lines).containsExactly("event 0 0", "event 0 1", "event 0 2", "event 0 3");
+      assertThat(ringBuffer.getPublishedCount()).isEqualTo(4);
+    }
+    finally
+    {
+      stalled.countDown();
+      ringBuffer.shutdown();
+      writer.shutdown();
+      logFile.delete();
+    }
+  }
+
+  private MultifileTextWriter newWriter(final File logFile) throws Exception
+  {
+    return new MultifileTextWriter("Ring Buffer Test Multifile Writer", 5000, new TimeStampNaming(logFile),
+        FilePermission.decodeUNIXMode("600"), new LogPublisherErrorHandler(DN.valueOf("cn=test")), "UTF-8",
+        false, false, 0);
+  }
+
+  /** Formats an event as its source, its type and its time, optionally stalling on the first event. */
+  private static final class SimpleFormatter implements LogEventRingBuffer.EventFormatter
+  {
+    private final CountDownLatch stalled;
+
+    private SimpleFormatter(final CountDownLatch stalled)
+    {
+      this.stalled = stalled;
+    }
+
+    @Override
+    public void appendRecord(int type, long time, Object source, Object arg1, Object arg2, StringBuilder buffer)
+    {
+      if (stalled != null)
+      {
+        try
+        {
+          stalled.await();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+      buffer.append(source).append(' ').append(type).append(' ').append(time);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTestCase extends LdapTestCase
+{
+  @Test
+  public void testEmptyHistogram()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getPercentiles(0.5, 0.99)).containsExactly(0, 0);
+    assertThat(histogram.getMax()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSmallValuesAreExact()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++)
+    {
+      histogram.record(i);
+    }
+    assertThat(histogram.getPercentiles(0.1, 0.5, 0.9, 1.0)).containsExactly(1, 5, 9, 10);
+    assertThat(histogram.getMax()).isEqualTo(10);
+  }
+
+  @Test
+  public void testPercentilesAreWithinPrecision()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int nbValues = 100000;
+    for (int i = 1; i <= nbValues; i++)
+    {
+      histogram.record(i);
+    }
+    final double[] fractions = { 0.5, 0.9, 0.99, 0.999 };
+    final long[] percentiles = histogram.getPercentiles(fractions);
+    for (int i = 0; i < fractions.length; i++)
+    {
+      final long expected = (long) (fractions[i] * nbValues);
+      assertThat(percentiles[i]).isGreaterThanOrEqualTo(expected);
+      assertThat(percentiles[i]).isLessThanOrEqualTo(expected + expected / 16);
+    }
+    assertThat(histogram.getMax()).isEqualTo(nbValues);
+  }
+
+  @Test
+  public void testPercentilesAreBoundedByMax()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+    histogram.record(Long.MAX_VALUE);
+    assertThat(histogram.getPercentiles(0.5)[0]).isBetween(1000L, 1000L + 1000L / 16);
+    assertThat(histogram.getPercentiles(1.0)[0]).isEqualTo(Long.MAX_VALUE);
+    assertThat(histogram.getMax()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testConcurrentRecords() throws Exception
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++)
+    {
+      threads[t] = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          for (int i = 0; i < 10000; i++)
+          {
+            histogram.record(7);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads)
+    {
+      thread.join();
+    }
+    assertThat(histogram.getPercentiles(0.001, 1.0)).containsExactly(7, 7);
+  }
+
+  @Test
+  public void testReset()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(42);
+    histogram.reset();
+    assertThat(histogram.getPercentiles(0.5)).containsExactly(0);
+    assertThat(histogram.getMax()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class TimeoutWriteByteChannelTestCase extends LdapTestCase
+{
+  /** Small socket buffers, so that the client quickly stops accepting data when it does not read. */
+  private static final int SOCKET_BUFFER_SIZE = 8192;
+  private static final int LARGE_WRITE_SIZE = 1024 * 1024;
+
+  private ServerSocketChannel serverChannel;
+  /** The client side of the connection, reading the data written by the tested channel. */
+  private SocketChannel clientSide;
+  /** The server side of the connection, written by the tested channel. */
+  private SocketChannel serverSide;
+  private Selector selector;
+
+  /** Channel with configurable limits, counting the flushes asked to the request handler. */
+  private final class TestChannel extends TimeoutWriteByteChannel
+  {
+    private final boolean hasRequestHandler;
+    private final long maxQueuedWriteSize;
+    private final long maxBlockedWriteTimeLimit;
+    private final Selector writeSelector;
+    private final AtomicInteger scheduledFlushes = new AtomicInteger();
+
+    private TestChannel(boolean hasRequestHandler, long maxQueuedWriteSize, long maxBlockedWriteTimeLimit,
+        Selector writeSelector)
+    {
+      super(serverSide, null);
+      this.hasRequestHandler = hasRequestHandler;
+      this.maxQueuedWriteSize = maxQueuedWriteSize;
+      this.maxBlockedWriteTimeLimit = maxBlockedWriteTimeLimit;
+      this.writeSelector = writeSelector;
+    }
+
+    @Override
+    boolean canScheduleFlush()
+    {
+      return hasRequestHandler;
+    }
+
+    @Override
+    void scheduleFlush()
+    {
+      scheduledFlushes.incrementAndGet();
+    }
+
+    @Override
+    long getMaxQueuedWriteSize()
+    {
+      return maxQueuedWriteSize;
+    }
+
+    @Override
+    long getMaxBlockedWriteTimeLimit()
+    {
+      return maxBlockedWriteTimeLimit;
+    }
+
+    @Override
+    Selector getWriteSelector()
+    {
+      return writeSelector;
+    }
+  }
+
+  @BeforeMethod
+  public void openConnection() throws Exception
+  {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    clientSide = SocketChannel.open();
+    clientSide.socket().setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+    clientSide.connect(serverChannel.socket().getLocalSocketAddress());
+    serverSide = serverChannel.accept();
+    serverSide.socket().setSendBufferSize(SOCKET_BUFFER_SIZE);
+    serverSide.configureBlocking(false);
+    selector = Selector.open();
+  }
+
+  @AfterMethod
+  public void closeConnection()
+  {
+    close(selector, serverSide, clientSide, serverChannel);
+  }
+
+  @Test
+  public void testWriteIsImmediateWhenClientKeepsUp() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, Long.MAX_VALUE, 0, null);
+    final byte[] data = newData(100, 0);
+
+    assertThat(channel.write(ByteBuffer.wrap(data))).isEqualTo(data.length);
+
+    assertThat(channel.getQueuedBytes()).isEqualTo(0);
+    assertThat(channel.scheduledFlushes.get()).isEqualTo(0);
+    assertThat(drain(channel, data.length)).isEqualTo(data);
+  }
+
+  @Test(timeOut = 60000)
+  public void testPartialWriteIsQueued() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, Long.MAX_VALUE, 0, null);
+    final byte[] data = newData(LARGE_WRITE_SIZE, 0);
+
+    // The client does not read, the write must not block
+    assertThat(channel.write(ByteBuffer.wrap(data))).isEqualTo(data.length);
+
+    assertThat(channel.getQueuedBytes()).isGreaterThan(0).isLessThan(data.length);
+    assertThat(channel.scheduledFlushes.get()).isEqualTo(1);
+    assertThat(drain(channel, data.length)).isEqualTo(data);
+  }
+
+  @Test(timeOut = 60000)
+  public void testQueueBacklogKeepsWriteOrder() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, Long.MAX_VALUE, 0, null);
+    final byte[] data = newData(LARGE_WRITE_SIZE, 0);
+    final int smallWriteSize = 1000;
+    final int nbSmallWrites = 10;
+
+    final ByteBuffer expected = ByteBuffer.allocate(data.length + nbSmallWrites * smallWriteSize);
+    channel.write(ByteBuffer.wrap(data));
+    expected.put(data);
+    final long queuedBytes = channel.getQueuedBytes();
+    for (int i = 1; i <= nbSmallWrites; i++)
+    {
+      final byte[] smallData = newData(smallWriteSize, i);
+      assertThat(channel.write(ByteBuffer.wrap(smallData))).isEqualTo(smallWriteSize);
+      expected.put(smallData);
+    }
+
+    // Nothing is written directly while data is queued, and a single flush is scheduled
+    assertThat(channel.getQueuedBytes()).isEqualTo(queuedBytes + nbSmallWrites * smallWriteSize);
+    assertThat(channel.scheduledFlushes.get()).isEqualTo(1);
+    assertThat(drain(channel, expected.capacity())).isEqualTo(expected.array());
+  }
+
+  @Test(timeOut = 60000)
+  public void testWriteBlocksWhenQueueIsFull() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, 64 * 1024, 30000, null);
+    final byte[] data = newData(LARGE_WRITE_SIZE, 0);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<byte[]> received = executor.submit(new Callable<byte[]>()
+      {
+        @Override
+        public byte[] call() throws Exception
+        {
+          return read(data.length);
+        }
+      });
+
+      // The queue limit is exceeded, so the write returns once the client has read everything
+      assertThat(channel.write(ByteBuffer.wrap(data))).isEqualTo(data.length);
+      assertThat(channel.getQueuedBytes()).isEqualTo(0);
+      assertThat(received.get()).isEqualTo(data);
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 60000, expectedExceptions = ClosedChannelException.class)
+  public void testWriteTimesOutWhenClientDoesNotRead() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, 0, 100, selector);
+    channel.write(ByteBuffer.wrap(newData(LARGE_WRITE_SIZE, 0)));
+  }
+
+  @Test(timeOut = 60000, expectedExceptions = ClosedChannelException.class)
+  public void testWriteTimesOutWithoutRequestHandler() throws Exception
+  {
+    final TestChannel channel = new TestChannel(false, Long.MAX_VALUE, 100, null);
+    channel.write(ByteBuffer.wrap(newData(LARGE_WRITE_SIZE, 0)));
+  }
+
+  @Test(timeOut = 60000)
+  public void testDisconnectDiscardsQueuedData() throws Exception
+  {
+    final TestChannel channel = new TestChannel(false, 0, 100, selector);
+    final TestChannel asyncChannel = new TestChannel(true, Long.MAX_VALUE, 100, selector);
+    final byte[] data = newData(LARGE_WRITE_SIZE, 0);
+    asyncChannel.write(ByteBuffer.wrap(data));
+    final long queuedBytes = asyncChannel.getQueuedBytes();
+    assertThat(queuedBytes).isGreaterThan(0);
+
+    assertThat(asyncChannel.discardQueue()).isGreaterThan(0).isLessThanOrEqualTo(queuedBytes);
+    assertThat(asyncChannel.getQueuedBytes()).isEqualTo(0);
+
+    // Once closing, writes neither block nor schedule flushes, even without request handler
+    channel.startClosing();
+    assertThat(channel.write(ByteBuffer.wrap(data))).isEqualTo(data.length);
+    assertThat(channel.scheduledFlushes.get()).isEqualTo(0);
+    assertThat(channel.discardQueue()).isGreaterThan(0).isLessThanOrEqualTo(data.length);
+    assertThat(channel.getQueuedBytes()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisconnectWithoutQueuedData() throws Exception
+  {
+    final TestChannel channel = new TestChannel(true, Long.MAX_VALUE, 0, null);
+    channel.write(ByteBuffer.wrap(newData(100, 0)));
+
+    assertThat(channel.discardQueue()).isEqualTo(0);
+  }
+
+  /** Reads the data written to the client while flushing the queue as the request handler would. */
+  private byte[] drain(TestChannel channel, int length) throws IOException
+  {
+    clientSide.configureBlocking(false);
+    final ByteBuffer received = ByteBuffer.allocate(length);
+    while (received.hasRemaining())
+    {
+      channel.flushQueue();
+      clientSide.read(received);
+    }
+    assertThat(channel.flushQueue()).isTrue();
+    assertThat(channel.getQueuedBytes()).isEqualTo(0);
+    return received.array();
+  }
+
+  private byte[] read(int length) throws IOException
+  {
+    final ByteBuffer received = ByteBuffer.allocate(length);
+    while (received.hasRemaining())
+    {
+      if (clientSide.read(received) < 0)
+      {
+        break;
+      }
+    }
+    return received.array();
+  }
+
+  private static byte[] newData(int length, int seed)
+  {
+    final byte[] data = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      data[i] = (byte) (i * 31 + seed);
+    }
+    return data;
+  }
+}
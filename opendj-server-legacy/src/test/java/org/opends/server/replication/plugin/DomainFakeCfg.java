@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -326,6 +327,18 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     return 1440;
   }
 
+  @Override
+  public boolean isCompactHistorical()
+  {
+    return false;
+  }
+
+  @Override
+  public boolean isBatchCompressionEnabled()
+  {
+    return false;
+  }
+
   @Override
   public String toString()
   {
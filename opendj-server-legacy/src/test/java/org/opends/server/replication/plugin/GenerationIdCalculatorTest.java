@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.TestCaseUtils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDIFExportConfig;
+import org.testng.annotations.Test;
+
+/** Tests the generation IDs computed by {@link GenerationIdCalculator} from imported entries. */
+@SuppressWarnings("javadoc")
+public class GenerationIdCalculatorTest extends ReplicationTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("ou=people,dc=example,dc=com");
+
+  @Test
+  public void testEmptyImport() throws Exception
+  {
+    GenerationIdCalculator calculator = newCalculator();
+
+    assertThat(calculator.getGenerationId(0)).isEqualTo(GenerationIdChecksum.EMPTY_BACKEND_GENERATION_ID);
+    assertThat(calculator.getGenerationId(0)).isEqualTo(exportedGenerationId());
+  }
+
+  @Test
+  public void testMatchesExportedGenerationId() throws Exception
+  {
+    List<Entry> entries = Arrays.asList(
+        entry("dn: " + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people"),
+        entry("dn: cn=alice," + BASE_DN, "objectClass: top", "objectClass: person", "cn: alice", "sn: A",
+            "description: not part of the generation ID"),
+        entry("dn: cn=bob," + BASE_DN, "objectClass: top", "objectClass: person", "cn: bob", "sn: B"));
+
+    GenerationIdCalculator calculator = newCalculator();
+    // The order of the imported entries does not matter
+    for (int i = entries.size() - 1; i >= 0; i--)
+    {
+      calculator.addEntry(entries.get(i));
+    }
+    // Entries outside the domain are ignored
+    calculator.addEntry(entry("dn: cn=carol,dc=example,dc=com", "objectClass: top", "objectClass: person",
+        "cn: carol", "sn: C"));
+
+    assertThat(calculator.getGenerationId(entries.size())).isEqualTo(exportedGenerationId(entries));
+  }
+
+  @Test
+  public void testRejectedEntries() throws Exception
+  {
+    GenerationIdCalculator calculator = newCalculator();
+    calculator.addEntry(entry("dn: " + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people"));
+    calculator.addEntry(entry("dn: cn=alice," + BASE_DN, "objectClass: top", "objectClass: person", "cn: alice",
+        "sn: A"));
+
+    // the backend holds fewer entries than the import plugins saw
+    assertThat(calculator.getGenerationId(1)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testEntriesCompletedAfterImportPlugins() throws Exception
+  {
+    GenerationIdCalculator missingEntryUUID = newCalculator();
+    missingEntryUUID.addEntry(makeEntry("dn: " + BASE_DN, "objectClass: top", "objectClass: organizationalUnit",
+        "ou: people"));
+    assertThat(missingEntryUUID.getGenerationId(1)).isEqualTo(-1);
+
+    GenerationIdCalculator missingSuperiorClass = newCalculator();
+    missingSuperiorClass.addEntry(entry("dn: " + BASE_DN, "objectClass: organizationalUnit", "ou: people"));
+    assertThat(missingSuperiorClass.getGenerationId(1)).isEqualTo(-1);
+
+    GenerationIdCalculator missingRDNValue = newCalculator();
+    missingRDNValue.addEntry(entry("dn: " + BASE_DN, "objectClass: top", "objectClass: organizationalUnit"));
+    assertThat(missingRDNValue.getGenerationId(1)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testTooManyEntries() throws Exception
+  {
+    GenerationIdCalculator calculator = newCalculator();
+    int nbEntries = GenerationIdCalculator.MAX_CHECKSUM_ENTRIES + 1;
+    for (int i = 0; i < nbEntries; i++)
+    {
+      calculator.addEntry(entry("dn: cn=user" + i + "," + BASE_DN, "objectClass: top", "objectClass: person",
+          "cn: user" + i, "sn: user"));
+    }
+
+    // The entries part of the checksum depend on the export order
+    assertThat(calculator.getGenerationId(nbEntries)).isEqualTo(-1);
+  }
+
+  private GenerationIdCalculator newCalculator()
+  {
+    return new GenerationIdCalculator(BASE_DN, getServerContext().getSchema());
+  }
+
+  private static Entry entry(String... ldifLines) throws Exception
+  {
+    Entry entry = makeEntry(ldifLines);
+    entry.addAttribute(Attributes.create("entryUUID", UUID.randomUUID().toString()), new ArrayList<ByteString>());
+    return entry;
+  }
+
+  /** Computes the generation ID of the provided entries the way an export of the domain does. */
+  private long exportedGenerationId(Entry... entries) throws Exception
+  {
+    return exportedGenerationId(Arrays.asList(entries));
+  }
+
+  private long exportedGenerationId(List<Entry> entries) throws Exception
+  {
+    ReplLDIFOutputStream os =
+        new ReplLDIFOutputStream(Math.min(entries.size(), GenerationIdCalculator.MAX_CHECKSUM_ENTRIES));
+    os.write(Integer.toString(entries.size()).getBytes());
+    LDIFExportConfig exportConfig = new LDIFExportConfig(os);
+    exportConfig.setIncludeAttributes(GenerationIdCalculator.getStableAttributes(getServerContext().getSchema()));
+    for (Entry entry : entries)
+    {
+      entry.toLDIF(exportConfig);
+    }
+    exportConfig.close();
+    return os.getChecksumValue();
+  }
+}
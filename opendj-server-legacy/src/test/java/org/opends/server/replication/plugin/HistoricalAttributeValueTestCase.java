@@ -12,11 +12,15 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
 import org.assertj.core.api.Assertions;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.schema.Schema;
 import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -47,4 +51,57 @@ public class HistoricalAttributeValueTestCase extends ReplicationTestCase
     HistoricalAttributeValue val = new HistoricalAttributeValue(strVal);
     Assertions.assertThat(strVal).isEqualTo(val.toString());
   }
+
+  @Test(dataProvider = "values")
+  public void testCompactEncoding(String strVal)
+  {
+    HistoricalAttributeValue val = HistoricalAttributeValue.valueOf(ByteString.valueOfUtf8(strVal));
+    ByteString compact = toCompact(val);
+    Assertions.assertThat(HistoricalAttributeValue.isCompact(compact)).isTrue();
+
+    HistoricalAttributeValue compactVal = HistoricalAttributeValue.valueOf(compact);
+    Assertions.assertThat(compactVal.toString()).isEqualTo(strVal);
+    Assertions.assertThat(compactVal.getCSN()).isEqualTo(val.getCSN());
+    Assertions.assertThat(compactVal.getHistKey()).isEqualTo(val.getHistKey());
+    Assertions.assertThat(compactVal.getAttrString()).isEqualTo(val.getAttrString());
+    Assertions.assertThat(compactVal.isADDOperation()).isEqualTo(val.isADDOperation());
+    Assertions.assertThat(compactVal.isMODDNOperation()).isEqualTo(val.isMODDNOperation());
+  }
+
+  @Test(dataProvider = "values")
+  public void testCompactEncodingOrdering(String strVal) throws Exception
+  {
+    ByteString value = ByteString.valueOfUtf8(strVal);
+    ByteString compact = toCompact(HistoricalAttributeValue.valueOf(value));
+
+    HistoricalCsnOrderingMatchingRuleImpl rule = new HistoricalCsnOrderingMatchingRuleImpl();
+    Schema schema = Schema.getDefaultSchema();
+    Assertions.assertThat(rule.normalizeAttributeValue(schema, compact))
+        .isEqualTo(rule.normalizeAttributeValue(schema, value));
+  }
+
+  @Test
+  public void testCompactEncodingKeepsBinaryValues()
+  {
+    ByteString binaryValue = ByteString.wrap(new byte[] { 0, ':', (byte) 0xff, 0x7f });
+    CSN csn = new CSN(0x14f2d0c9f53L, 1, 1);
+    ByteString compact =
+        HistoricalAttributeValue.encode(ByteString.valueOfUtf8("description"), csn, HistAttrModificationKey.ADD,
+            binaryValue);
+
+    HistoricalAttributeValue val = HistoricalAttributeValue.valueOf(compact);
+    Assertions.assertThat(val.getCSN()).isEqualTo(csn);
+    Assertions.assertThat(val.getHistKey()).isEqualTo(HistAttrModificationKey.ADD);
+    Assertions.assertThat(val.getAttributeValue()).isEqualTo(binaryValue);
+  }
+
+  private static ByteString toCompact(HistoricalAttributeValue val)
+  {
+    if (val.isADDOperation() || val.isMODDNOperation())
+    {
+      return HistoricalAttributeValue.encodeEntryOperation(val.getCSN(), val.isMODDNOperation());
+    }
+    ByteString attrDesc = ByteString.valueOfUtf8(val.getAttributeDescription().toString());
+    return HistoricalAttributeValue.encode(attrDesc, val.getCSN(), val.getHistKey(), val.getAttributeValue());
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.CSNGenerator;
+import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the dependencies computed by {@link RemotePendingChanges} between the changes being replayed. */
+@SuppressWarnings("javadoc")
+public class RemotePendingChangesTest extends ReplicationTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("ou=people,dc=example,dc=com");
+
+  private CSNGenerator csnGen;
+  private ServerState state;
+  private RemotePendingChanges pendingChanges;
+
+  @BeforeMethod
+  public void createPendingChanges()
+  {
+    csnGen = new CSNGenerator(1025, System.currentTimeMillis());
+    state = new ServerState();
+    pendingChanges = new RemotePendingChanges(state);
+  }
+
+  @Test
+  public void testAddDependsOnAddOfParent() throws Exception
+  {
+    LDAPUpdateMsg addParent = inProgress(addMsg(BASE_DN.child("ou", "a")));
+    LDAPUpdateMsg addChild = inProgress(addMsg(BASE_DN.child("ou", "a").child("cn", "child")));
+    LDAPUpdateMsg addOther = inProgress(addMsg(BASE_DN.child("ou", "b").child("cn", "other")));
+
+    assertThat(hasDependencies(addParent)).isFalse();
+    assertThat(hasDependencies(addChild)).isTrue();
+    assertThat(hasDependencies(addOther)).isFalse();
+    assertThat(pendingChanges.getDependentChangesSize()).isEqualTo(1);
+    assertThat(pendingChanges.getNumDependencyWaits()).isEqualTo(1);
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+
+    pendingChanges.commit(addParent.getCSN());
+    assertThat(pendingChanges.getNextUpdate()).isSameAs(addChild);
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+    assertThat(pendingChanges.getDependentChangesSize()).isEqualTo(0);
+    assertThat(hasDependencies(addChild)).isFalse();
+  }
+
+  @Test
+  public void testDependentChangeOnlyWaitsForItsPredecessors() throws Exception
+  {
+    LDAPUpdateMsg addParent = inProgress(addMsg(BASE_DN.child("ou", "a")));
+    LDAPUpdateMsg addOther = inProgress(addMsg(BASE_DN.child("ou", "b")));
+    LDAPUpdateMsg addChild = inProgress(addMsg(BASE_DN.child("ou", "a").child("cn", "child")));
+
+    assertThat(hasDependencies(addChild)).isTrue();
+    pendingChanges.commit(addParent.getCSN());
+
+    // the unrelated older change is still in progress
+    assertThat(pendingChanges.getNextUpdate()).isSameAs(addChild);
+    assertThat(pendingChanges.changesInProgressSize()).isEqualTo(2);
+
+    pendingChanges.commit(addChild.getCSN());
+    assertThat(state.getCSN(addOther.getCSN().getServerId())).isEqualTo(addParent.getCSN());
+    pendingChanges.commit(addOther.getCSN());
+    assertThat(state.getCSN(addOther.getCSN().getServerId())).isEqualTo(addChild.getCSN());
+    assertThat(pendingChanges.changesInProgressSize()).isEqualTo(0);
+    assertThat(pendingChanges.getQueueSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDeleteDependsOnChangesInSubtree() throws Exception
+  {
+    DN parentDN = BASE_DN.child("ou", "a");
+    LDAPUpdateMsg deleteChild = inProgress(new DeleteMsg(parentDN.child("cn", "child"), csnGen.newCSN(), "uuid1"));
+    LDAPUpdateMsg renameGrandChild = inProgress(new ModifyDNMsg(parentDN.child("cn", "c2").child("cn", "gc"),
+        csnGen.newCSN(), "uuid2", null, true, null, "cn=gc2"));
+    LDAPUpdateMsg deleteSibling = inProgress(new DeleteMsg(BASE_DN.child("ou", "b"), csnGen.newCSN(), "uuid3"));
+    LDAPUpdateMsg deleteParent = inProgress(new DeleteMsg(parentDN, csnGen.newCSN(), "uuid4"));
+
+    assertThat(hasDependencies(deleteParent)).isTrue();
+    pendingChanges.commit(deleteSibling.getCSN());
+    pendingChanges.commit(deleteChild.getCSN());
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+    pendingChanges.commit(renameGrandChild.getCSN());
+    assertThat(pendingChanges.getNextUpdate()).isSameAs(deleteParent);
+  }
+
+  @Test
+  public void testAddDependsOnRenameToItsParent() throws Exception
+  {
+    LDAPUpdateMsg rename = inProgress(new ModifyDNMsg(BASE_DN.child("ou", "old"),
+        csnGen.newCSN(), "uuid1", null, true, null, "ou=new"));
+    LDAPUpdateMsg addChild = inProgress(addMsg(BASE_DN.child("ou", "new").child("cn", "child")));
+    LDAPUpdateMsg addOldChild = inProgress(addMsg(BASE_DN.child("ou", "old").child("cn", "child")));
+
+    assertThat(hasDependencies(addChild)).isTrue();
+    assertThat(hasDependencies(addOldChild)).isFalse();
+  }
+
+  @Test
+  public void testReindexAfterConflictResolution() throws Exception
+  {
+    AddMsg add = (AddMsg) inProgress(addMsg(BASE_DN.child("ou", "a")));
+    LDAPUpdateMsg addChild = inProgress(addMsg(BASE_DN.child("ou", "renamed").child("cn", "child")));
+    assertThat(hasDependencies(addChild)).isFalse();
+
+    add.setDN(BASE_DN.child("ou", "renamed"));
+    pendingChanges.reindex(add);
+    assertThat(hasDependencies(addChild)).isTrue();
+  }
+
+  private LDAPUpdateMsg inProgress(LDAPUpdateMsg msg)
+  {
+    assertThat(pendingChanges.putRemoteUpdate(msg)).isTrue();
+    pendingChanges.markInProgress(msg);
+    return msg;
+  }
+
+  private boolean hasDependencies(LDAPUpdateMsg msg) throws Exception
+  {
+    return pendingChanges.checkDependencies(msg.createOperation(getRootConnection()), msg);
+  }
+
+  private AddMsg addMsg(DN dn) throws Exception
+  {
+    Entry entry = TestCaseUtils.makeEntry(
+        "dn: " + dn,
+        "objectClass: top",
+        "objectClass: organizationalUnit");
+    CSN csn = csnGen.newCSN();
+    return new AddMsg(csn, dn, "uuid-" + csn, "parent-uuid",
+        entry.getObjectClassAttribute(), entry.getAllAttributes(), null);
+  }
+}
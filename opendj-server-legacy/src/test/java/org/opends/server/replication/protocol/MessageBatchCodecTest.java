@@ -0,0 +1,208 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+/** Tests the frames written and read by {@link MessageBatchCodec}. */
+@SuppressWarnings("javadoc")
+public class MessageBatchCodecTest extends DirectoryServerTestCase
+{
+  @Test
+  public void testLegacyFrame() throws Exception
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MessageBatchCodec().writeMessage(out, message(1, 20));
+
+    final byte[] wire = out.toByteArray();
+    assertThat(new String(wire, 0, 8)).isEqualTo("00000014");
+
+    final Queue<byte[]> received = readAll(new MessageBatchCodec(), wire);
+    assertThat(received).hasSize(1);
+    assertThat(received.remove()).isEqualTo(message(1, 20));
+  }
+
+  @Test
+  public void testUncompressedBatch() throws Exception
+  {
+    final List<byte[]> messages = messages(10, 10);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MessageBatchCodec().writeBatch(out, messages, true);
+
+    final byte[] wire = out.toByteArray();
+    // too small to be compressed
+    assertThat(wire[0] & 0xFF).isEqualTo(MessageBatchCodec.BATCH_MARKER);
+    assertReceived(readAll(new MessageBatchCodec(), wire), messages);
+  }
+
+  @Test
+  public void testCompressedBatchesShareDictionary() throws Exception
+  {
+    final MessageBatchCodec writer = new MessageBatchCodec();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final List<byte[]> messages = messages(50, 100);
+    writer.writeBatch(out, messages, true);
+    final int firstBatchLength = out.size();
+    writer.writeBatch(out, messages, true);
+    final int secondBatchLength = out.size() - firstBatchLength;
+
+    final byte[] wire = out.toByteArray();
+    assertThat(wire[0] & 0xFF).isEqualTo(MessageBatchCodec.BATCH_MARKER | MessageBatchCodec.COMPRESSED_FLAG);
+    assertThat(firstBatchLength).isLessThan(50 * 100);
+    assertThat(secondBatchLength).isLessThan(firstBatchLength);
+
+    final MessageBatchCodec reader = new MessageBatchCodec();
+    final InputStream in = new ByteArrayInputStream(wire);
+    final Queue<byte[]> received = new ArrayDeque<>();
+    reader.readFrame(in, received);
+    assertReceived(received, messages);
+    received.clear();
+    reader.readFrame(in, received);
+    assertReceived(received, messages);
+    assertThat(in.available()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMixedFrames() throws Exception
+  {
+    final MessageBatchCodec writer = new MessageBatchCodec();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.writeMessage(out, message(1, 30));
+    writer.writeBatch(out, messages(20, 100), true);
+    writer.writeBatch(out, Arrays.asList(message(2, 5)), false);
+    writer.writeMessage(out, message(3, 0));
+
+    final List<byte[]> expected = new ArrayList<>();
+    expected.add(message(1, 30));
+    expected.addAll(messages(20, 100));
+    expected.add(message(2, 5));
+    expected.add(message(3, 0));
+    assertReceived(readAll(new MessageBatchCodec(), out.toByteArray()), expected);
+  }
+
+  /** A session writes with the sending thread and reads with the receiving thread using the same codec. */
+  @Test
+  public void testConcurrentWriteAndRead() throws Exception
+  {
+    final int nbBatches = 2000;
+    final List<byte[]> messages = messages(3, 10);
+    final ByteArrayOutputStream peerOut = new ByteArrayOutputStream();
+    final MessageBatchCodec peer = new MessageBatchCodec();
+    for (int i = 0; i < nbBatches; i++)
+    {
+      peer.writeBatch(peerOut, messages, false);
+    }
+
+    final MessageBatchCodec codec = new MessageBatchCodec();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<Void> writes = executor.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          for (int i = 0; i < nbBatches; i++)
+          {
+            codec.writeBatch(out, messages, false);
+          }
+          return null;
+        }
+      });
+      final Queue<byte[]> received = readAll(codec, peerOut.toByteArray());
+      writes.get();
+
+      assertThat(received).hasSize(nbBatches * messages.size());
+      assertThat(readAll(new MessageBatchCodec(), out.toByteArray())).hasSize(nbBatches * messages.size());
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expectedExceptions = DataFormatException.class)
+  public void testInvalidMessageLengthInBatch() throws Exception
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MessageBatchCodec().writeBatch(out, Arrays.asList(message(1, 10)), false);
+    final byte[] wire = out.toByteArray();
+    // announce more bytes than the batch contains for its message
+    wire[8] = 20;
+
+    readAll(new MessageBatchCodec(), wire);
+  }
+
+  private static Queue<byte[]> readAll(MessageBatchCodec codec, byte[] wire) throws Exception
+  {
+    final InputStream in = new ByteArrayInputStream(wire);
+    final Queue<byte[]> received = new ArrayDeque<>();
+    while (in.available() > 0)
+    {
+      codec.readFrame(in, received);
+    }
+    return received;
+  }
+
+  private static void assertReceived(Queue<byte[]> received, List<byte[]> expected)
+  {
+    assertThat(received).hasSize(expected.size());
+    for (byte[] message : expected)
+    {
+      assertThat(received.remove()).isEqualTo(message);
+    }
+  }
+
+  private static List<byte[]> messages(int nbMessages, int length)
+  {
+    final List<byte[]> messages = new ArrayList<>(nbMessages);
+    for (int i = 0; i < nbMessages; i++)
+    {
+      messages.add(message(i, length));
+    }
+    return messages;
+  }
+
+  /** Builds a message which looks like a replicated modification, with a lot of redundancy. */
+  private static byte[] message(int seed, int length)
+  {
+    final byte[] pattern = ("replace: description\ndescription: value " + seed + "\n").getBytes();
+    final byte[] message = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      message[i] = pattern[i % pattern.length];
+    }
+    return message;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -1133,6 +1134,69 @@ public class SynchronizationMsgTest extends ReplicationTestCase
     assertEquals(TEST_ROOT_DN, newMsg.getBaseDN());
   }
 
+  /** Test that InitializeTargetMsg announcing entry records encoding and decoding works. */
+  @Test
+  public void initializeTargetMsgEntryRecordsTest() throws Exception
+  {
+    long[] rangeStarts = { 1, 1000, 2000 };
+    long[] rangeEnds = { 1000, 2000, Long.MAX_VALUE };
+    InitializeTargetMsg msg = new InitializeTargetMsg(
+        TEST_ROOT_DN, 45678, 2, 3, 4, 100, rangeStarts, rangeEnds, true);
+
+    InitializeTargetMsg newMsg = new InitializeTargetMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertTrue(newMsg.isEntryRecords());
+    assertTrue(newMsg.isResumed());
+    assertEquals(newMsg.getRangeStarts(), rangeStarts);
+    assertEquals(newMsg.getRangeEnds(), rangeEnds);
+    assertEquals(newMsg.getInitWindow(), 100);
+
+    // Peers older than V10 do not know about entry records
+    InitializeTargetMsg v9Msg =
+        new InitializeTargetMsg(msg.getBytes(REPLICATION_PROTOCOL_V9), REPLICATION_PROTOCOL_V9);
+    assertFalse(v9Msg.isEntryRecords());
+    assertEquals(v9Msg.getEntryCount(), 4);
+  }
+
+  /** Test that InitializeRequestMsg asking to resume an initialization encoding and decoding works. */
+  @Test
+  public void initializeRequestMsgResumeTest() throws Exception
+  {
+    long[] resumeStarts = { 512, 2000 };
+    long[] resumeEnds = { 1000, Long.MAX_VALUE };
+    InitializeRequestMsg msg = new InitializeRequestMsg(TEST_ROOT_DN, 1, 56789, 100, resumeStarts, resumeEnds);
+
+    InitializeRequestMsg newMsg = new InitializeRequestMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertTrue(newMsg.isResumeRequested());
+    assertEquals(newMsg.getResumeStarts(), resumeStarts);
+    assertEquals(newMsg.getResumeEnds(), resumeEnds);
+
+    InitializeRequestMsg v9Msg =
+        new InitializeRequestMsg(msg.getBytes(REPLICATION_PROTOCOL_V9), REPLICATION_PROTOCOL_V9);
+    assertFalse(v9Msg.isResumeRequested());
+    assertEquals(v9Msg.getBaseDN(), TEST_ROOT_DN);
+  }
+
+  /** Test that EntryRecordsMsg encoding and decoding works. */
+  @Test
+  public void entryRecordsMsgTest() throws Exception
+  {
+    byte[] records = { 0, 0, 0, 3, 'a', 'b', 'c', 0, 0, 0, 1, 'd' };
+    EntryRecordsMsg msg = new EntryRecordsMsg(1, 2, 42, 3, 1234L, 2, records);
+
+    ReplicationMsg generatedMsg = ReplicationMsg.generateMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    Assertions.assertThat(generatedMsg).isInstanceOf(EntryRecordsMsg.class);
+    EntryRecordsMsg newMsg = (EntryRecordsMsg) generatedMsg;
+    assertEquals(newMsg.getSenderID(), 1);
+    assertEquals(newMsg.getDestination(), 2);
+    assertEquals(newMsg.getMsgId(), 42);
+    assertEquals(newMsg.getStreamId(), 3);
+    assertEquals(newMsg.getNextEntryID(), 1234L);
+    assertEquals(newMsg.getEntryCount(), 2);
+    assertEquals(newMsg.getRecords(), records);
+
+    assertNull(msg.getBytes(REPLICATION_PROTOCOL_V9));
+  }
+
   /**
    * Test that DoneMsg encoding and decoding works.
    */
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -272,6 +273,30 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
     this.computeChangenumber = computeChangenumber;
   }
 
+  @Override
+  public boolean isChangelogGroupCommitEnabled()
+  {
+    return false;
+  }
+
+  @Override
+  public long getChangelogGroupCommitMaxDelay()
+  {
+    return 5;
+  }
+
+  @Override
+  public long getChangelogGroupCommitMaxSize()
+  {
+    return 1024 * 1024;
+  }
+
+  @Override
+  public boolean isBatchCompressionEnabled()
+  {
+    return false;
+  }
+
   public void setConfidentialityEnabled(boolean confidentialityEnabled)
   {
     this.confidentialityEnabled = confidentialityEnabled;
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -25,6 +26,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -114,6 +117,24 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     }
   }
 
+  @Test(dataProvider="recordsData")
+  public void testWriteThenReadMemoryMapped(int blockSize, int expectedSizeOfFile,
+      List<Record<Integer, Integer>> records) throws Exception
+  {
+    writeRecords(blockSize, records);
+
+    try (BlockLogReader<Integer, Integer> reader = newMappedReader(blockSize))
+    {
+      for (int i = 0; i < records.size(); i++)
+      {
+         Record<Integer, Integer> record = reader.readRecord();
+         assertThat(record).isEqualTo(records.get(i));
+      }
+      assertThat(reader.readRecord()).isNull();
+      assertThat(reader.getFilePosition()).isEqualTo(expectedSizeOfFile);
+    }
+  }
+
   @DataProvider(name = "recordsForSeek")
   Object[][] recordsForSeek()
   {
@@ -251,6 +272,35 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     }
   }
 
+  @Test(dataProvider = "recordsForSeek")
+  public void testSeekToRecordMemoryMapped(int blockSize, List<Record<Integer, Integer>> records, int key,
+      KeyMatchingStrategy matchingStrategy, PositionStrategy positionStrategy, Record<Integer, Integer> expectedRecord,
+      boolean shouldBeFound) throws Exception
+  {
+    writeRecords(blockSize, records);
+
+    try (BlockLogReader<Integer, Integer> reader = newMappedReader(blockSize))
+    {
+      Pair<Boolean, Record<Integer, Integer>> result = reader.seekToRecord(key, matchingStrategy, positionStrategy);
+
+      final SoftAssertions softly = new SoftAssertions();
+      softly.assertThat(result.getFirst()).isEqualTo(shouldBeFound);
+      softly.assertThat(result.getSecond()).isEqualTo(expectedRecord);
+      softly.assertAll();
+    }
+  }
+
+  @Test(dataProvider="recordsForNewest")
+  public void testGetNewestRecordMemoryMapped(int blockSize, List<Record<Integer, Integer>> records) throws Exception
+  {
+    writeRecords(blockSize, records);
+
+    try (BlockLogReader<Integer, Integer> reader = newMappedReader(blockSize))
+    {
+      assertThat(reader.getNewestRecord()).isEqualTo(records.get(records.size()-1));
+    }
+  }
+
   @Test
   public void testGetClosestBlockStartBeforeOrAtPosition() throws Exception
   {
@@ -470,6 +520,49 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     }
   }
 
+  /**
+   * This test is intended to be run only manually to compare the throughput of a cursor
+   * reading a whole file with positional reads and from a memory mapping.
+   */
+  @Test(enabled=false)
+  public void readPerformanceComparison() throws Exception
+  {
+    // You may change these values
+    long fileSizeInBytes = 100*1024*1024;
+    int blockSize = 256;
+    int numberOfRuns = 5;
+
+    writeRecordsToReachFileSize(blockSize, fileSizeInBytes);
+    final long numberOfRecords = fileSizeInBytes / INT_RECORD_SIZE;
+    System.out.println("File size: " + TEST_FILE.length() + " bytes");
+    for (int run = 0; run < numberOfRuns; run++)
+    {
+      try (BlockLogReader<Integer, Integer> reader = newReader(blockSize))
+      {
+        printReadThroughput("positional reads", reader, numberOfRecords);
+      }
+      try (BlockLogReader<Integer, Integer> reader = newMappedReader(blockSize))
+      {
+        printReadThroughput("memory mapped", reader, numberOfRecords);
+      }
+    }
+  }
+
+  private void printReadThroughput(String readMode, BlockLogReader<Integer, Integer> reader, long expectedRecords)
+      throws ChangelogException
+  {
+    final long t0 = System.nanoTime();
+    long count = 0;
+    while (reader.readRecord() != null)
+    {
+      count++;
+    }
+    final long timeInMillis = Math.max(1, (System.nanoTime() - t0) / 1000000);
+    assertThat(count).isEqualTo(expectedRecords);
+    System.out.println(readMode + ": " + count + " records in " + timeInMillis + " milliseconds ("
+        + count * 1000 / timeInMillis + " records/s)");
+  }
+
   /** Write provided records with the provided block size. */
   private void writeRecords(int blockSize, List<Record<Integer, Integer>> records) throws ChangelogException
   {
@@ -518,6 +611,16 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
         RECORD_PARSER, blockSize);
   }
 
+  private BlockLogReader<Integer, Integer> newMappedReader(int blockSize) throws IOException
+  {
+    try (RandomAccessFile file = new RandomAccessFile(TEST_FILE, "r");
+        FileChannel channel = file.getChannel())
+    {
+      return BlockLogReader.newMappedReaderForTests(TEST_FILE, channel.map(MapMode.READ_ONLY, 0, channel.size()),
+          RECORD_PARSER, blockSize);
+    }
+  }
+
   private BlockLogReader<Integer, Integer> newReaderWithNullFile(int blockSize) throws FileNotFoundException
   {
     return BlockLogReader.newReaderForTests(null, null, RECORD_PARSER, blockSize);
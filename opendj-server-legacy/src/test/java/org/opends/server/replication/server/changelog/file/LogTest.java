@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -22,6 +23,13 @@ import static org.opends.server.replication.server.changelog.api.DBCursor.Positi
 import static org.opends.server.replication.server.changelog.file.LogFileTest.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opends.server.DirectoryServerTestCase;
 import org.opends.server.TestCaseUtils;
@@ -336,6 +344,80 @@ public class LogTest extends DirectoryServerTestCase
     }
   }
 
+  @Test
+  public void testWriteWithGroupCommit() throws Exception
+  {
+    try (Log<String, String> log = openLog(LogFileTest.RECORD_PARSER))
+    {
+      log.setGroupCommit(true, 1, 1024);
+      // add new records to ensure the head log file is rotated while group commit is enabled
+      for (int i = 11; i <= 20; i++)
+      {
+        log.append(Record.from(String.format("key%03d", i), "value" + i));
+      }
+      log.setGroupCommit(false, 0, 0);
+      for (int i = 21; i <= 25; i++)
+      {
+        log.append(Record.from(String.format("key%03d", i), "value" + i));
+      }
+
+      try (DBCursor<Record<String, String>> cursor = log.getCursor())
+      {
+        assertThatCursorCanBeFullyReadFromStart(cursor, 1, 25);
+      }
+    }
+  }
+
+  @Test(timeOut = 60000)
+  public void testConcurrentWritesWithGroupCommit() throws Exception
+  {
+    final int nbThreads = 4;
+    final int nbRecordsPerThread = 50;
+    final AtomicInteger keyGenerator = new AtomicInteger(10);
+    final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+    try (final Log<String, String> log = openLog(LogFileTest.RECORD_PARSER))
+    {
+      log.setGroupCommit(true, 5, 1024 * 1024);
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < nbThreads; t++)
+      {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            for (int i = 0; i < nbRecordsPerThread; i++)
+            {
+              // records appended out of order are filtered out by the log
+              final int key = keyGenerator.incrementAndGet();
+              log.append(Record.from(String.format("key%03d", key), "value" + key));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures)
+      {
+        future.get();
+      }
+
+      try (DBCursor<Record<String, String>> cursor = log.getCursor("key010"))
+      {
+        String previousKey = "key009";
+        while (cursor.next())
+        {
+          assertThat(cursor.getRecord().getKey().compareTo(previousKey)).isPositive();
+          previousKey = cursor.getRecord().getKey();
+        }
+        assertThat(previousKey.compareTo("key010")).isPositive();
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void testClear() throws Exception
   {
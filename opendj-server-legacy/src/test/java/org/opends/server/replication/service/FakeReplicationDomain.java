@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -22,11 +23,13 @@ import static org.forgerock.opendj.ldap.ResultCode.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.concurrent.BlockingQueue;
 
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ByteString;
 import org.opends.server.replication.plugin.DomainFakeCfg;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.types.DirectoryException;
@@ -45,6 +48,12 @@ public class FakeReplicationDomain extends ReplicationDomain
   /** A StringBuilder that will be used to build a new String should the import be called. */
   private StringBuilder importString;
   private int exportedEntryCount;
+  /** The records exported as entry records, the record of entry ID n being at index n - 1. */
+  private List<ByteString> exportedRecords;
+  /** The number of entry ID ranges the records are exported from. */
+  private int exportedRanges;
+  /** The list where the imported entry records are added, in the order of the ranges. */
+  private List<ByteString> importedRecords;
 
   private FakeReplicationDomain(DN baseDN, int serverID,
       SortedSet<String> replicationServers, int window, long heartbeatInterval,
@@ -97,6 +106,18 @@ public class FakeReplicationDomain extends ReplicationDomain
     this.exportedEntryCount = exportedEntryCount;
   }
 
+  public void initEntryRecordsExport(List<ByteString> exportedRecords, int exportedRanges)
+  {
+    this.exportedRecords = exportedRecords;
+    this.exportedRanges = exportedRanges;
+    this.exportedEntryCount = exportedRecords.size();
+  }
+
+  public void initEntryRecordsImport(List<ByteString> importedRecords)
+  {
+    this.importedRecords = importedRecords;
+  }
+
   @Override
   public long countEntries() throws DirectoryException
   {
@@ -141,6 +162,57 @@ public class FakeReplicationDomain extends ReplicationDomain
     while (ret >= 0);
   }
 
+  @Override
+  protected long[] getEntryIDRanges(int maxRanges)
+  {
+    if (exportedRecords == null)
+    {
+      return null;
+    }
+    final int nbRanges = Math.min(maxRanges, exportedRanges);
+    final long[] rangeStarts = new long[nbRanges];
+    for (int i = 0; i < nbRanges; i++)
+    {
+      rangeStarts[i] = 1 + (long) i * exportedRecords.size() / nbRanges;
+    }
+    return rangeStarts;
+  }
+
+  @Override
+  protected void exportEntryRecords(long lowestID, long highestID, EntryRecordHandler handler)
+      throws DirectoryException
+  {
+    for (long entryID = lowestID; entryID < highestID && entryID <= exportedRecords.size(); entryID++)
+    {
+      handler.handleRecord(entryID, exportedRecords.get((int) entryID - 1));
+    }
+  }
+
+  @Override
+  protected void importEntryRecords(List<EntryRecordReader> readers) throws DirectoryException
+  {
+    if (importedRecords == null)
+    {
+      super.importEntryRecords(readers);
+      return;
+    }
+    try
+    {
+      for (EntryRecordReader reader : readers)
+      {
+        ByteString record;
+        while ((record = reader.readRecord()) != null)
+        {
+          importedRecords.add(record);
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      throw new DirectoryException(OPERATIONS_ERROR, raw("IOException during importEntryRecords"), e);
+    }
+  }
+
   @Override
   public boolean processUpdate(UpdateMsg updateMsg)
   {
@@ -0,0 +1,214 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.protocol.EntryRecordsMsg;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class InitializationSpoolTest extends ReplicationTestCase
+{
+  private static final int EXPORTER_ID = 1;
+  private static final long GENERATION_ID = 42;
+  private static final long[] RANGE_STARTS = { 1, 100 };
+  private static final long[] RANGE_ENDS = { 100, Long.MAX_VALUE };
+
+  private final DN baseDN = DN.valueOf("o=test");
+  private File directory;
+
+  @BeforeMethod
+  public void createDirectory() throws Exception
+  {
+    directory = new File(TestCaseUtils.createTemporaryDirectory("initspool"), "spool");
+  }
+
+  @AfterMethod
+  public void deleteDirectory()
+  {
+    recursiveDelete(directory.getParentFile());
+  }
+
+  @Test
+  public void testCreateAppendAndRead() throws Exception
+  {
+    final InitializationSpool spool = new InitializationSpool(directory);
+    spool.create(baseDN, EXPORTER_ID, GENERATION_ID, RANGE_STARTS, RANGE_ENDS);
+    spool.append(newMsg(0, 1, 3));
+    spool.append(newMsg(1, 100, 2));
+    spool.append(newMsg(0, 4, 1));
+    spool.checkpoint();
+    spool.closeFiles();
+
+    assertThat(readRecords(spool, 0)).containsExactly(record(1), record(2), record(3), record(4));
+    assertThat(readRecords(spool, 1)).containsExactly(record(100), record(101));
+
+    spool.delete();
+    assertThat(directory).doesNotExist();
+  }
+
+  @Test
+  public void testLoadCheckpoint() throws Exception
+  {
+    final InitializationSpool spool = new InitializationSpool(directory);
+    spool.create(baseDN, EXPORTER_ID, GENERATION_ID, RANGE_STARTS, RANGE_ENDS);
+    spool.append(newMsg(0, 1, 10));
+    spool.append(newMsg(1, 100, 5));
+    spool.checkpoint();
+    spool.closeFiles();
+
+    final InitializationSpool loadedSpool = new InitializationSpool(directory);
+    assertThat(loadedSpool.load(baseDN, EXPORTER_ID, GENERATION_ID)).isTrue();
+    assertThat(loadedSpool.getNextIDs()).containsExactly(11, 105);
+    assertThat(loadedSpool.getRangeEnds()).containsExactly(RANGE_ENDS);
+    assertThat(loadedSpool.isResumedBy(new long[] { 11, 105 }, RANGE_ENDS)).isTrue();
+    assertThat(loadedSpool.isResumedBy(RANGE_STARTS, RANGE_ENDS)).isFalse();
+
+    // The checkpoint only applies to the same total update
+    assertThat(new InitializationSpool(directory).load(DN.valueOf("o=other"), EXPORTER_ID, GENERATION_ID)).isFalse();
+    assertThat(new InitializationSpool(directory).load(baseDN, EXPORTER_ID + 1, GENERATION_ID)).isFalse();
+    assertThat(new InitializationSpool(directory).load(baseDN, EXPORTER_ID, GENERATION_ID + 1)).isFalse();
+  }
+
+  @Test
+  public void testLoadWithoutCheckpoint() throws Exception
+  {
+    assertThat(new InitializationSpool(directory).load(baseDN, EXPORTER_ID, GENERATION_ID)).isFalse();
+  }
+
+  @Test
+  public void testLoadFailsWhenCheckpointedRecordsAreLost() throws Exception
+  {
+    final InitializationSpool spool = new InitializationSpool(directory);
+    spool.create(baseDN, EXPORTER_ID, GENERATION_ID, RANGE_STARTS, RANGE_ENDS);
+    spool.append(newMsg(0, 1, 10));
+    spool.checkpoint();
+    spool.closeFiles();
+
+    try (RandomAccessFile file = new RandomAccessFile(new File(directory, "range-0"), "rw"))
+    {
+      file.setLength(file.length() - 1);
+    }
+    assertThat(new InitializationSpool(directory).load(baseDN, EXPORTER_ID, GENERATION_ID)).isFalse();
+  }
+
+  @Test
+  public void testResumeAfterInterruption() throws Exception
+  {
+    final InitializationSpool spool = new InitializationSpool(directory);
+    spool.create(baseDN, EXPORTER_ID, GENERATION_ID, RANGE_STARTS, RANGE_ENDS);
+    spool.append(newMsg(0, 1, 10));
+    spool.append(newMsg(1, 100, 5));
+    spool.checkpoint();
+    // Received after the last checkpoint, then the connection is lost
+    spool.append(newMsg(0, 11, 10));
+    spool.append(newMsg(1, 105, 5));
+    spool.closeFiles();
+
+    final InitializationSpool resumedSpool = new InitializationSpool(directory);
+    assertThat(resumedSpool.load(baseDN, EXPORTER_ID, GENERATION_ID)).isTrue();
+    assertThat(resumedSpool.getNextIDs()).containsExactly(11, 105);
+    resumedSpool.resume();
+    // The exporter sends again the records following the checkpoint
+    resumedSpool.append(newMsg(0, 11, 20));
+    resumedSpool.append(newMsg(1, 105, 10));
+    resumedSpool.checkpoint();
+    resumedSpool.closeFiles();
+
+    assertThat(readRecords(resumedSpool, 0)).isEqualTo(records(1, 30));
+    assertThat(readRecords(resumedSpool, 1)).isEqualTo(records(100, 15));
+  }
+
+  @Test
+  public void testCreateDiscardsPreviousSpool() throws Exception
+  {
+    final InitializationSpool spool = new InitializationSpool(directory);
+    spool.create(baseDN, EXPORTER_ID, GENERATION_ID, RANGE_STARTS, RANGE_ENDS);
+    spool.append(newMsg(0, 1, 10));
+    spool.checkpoint();
+    spool.closeFiles();
+
+    final InitializationSpool newSpool = new InitializationSpool(directory);
+    newSpool.create(baseDN, EXPORTER_ID, GENERATION_ID + 1, new long[] { 1 }, new long[] { Long.MAX_VALUE });
+    newSpool.checkpoint();
+    newSpool.closeFiles();
+
+    assertThat(new InitializationSpool(directory).load(baseDN, EXPORTER_ID, GENERATION_ID)).isFalse();
+    assertThat(readRecords(newSpool, 0)).isEmpty();
+  }
+
+  /** Builds the message of a range holding the records of the provided consecutive entry IDs. */
+  private EntryRecordsMsg newMsg(int rangeIndex, long firstEntryID, int nbRecords)
+  {
+    final ByteStringBuilder records = new ByteStringBuilder();
+    for (long entryID = firstEntryID; entryID < firstEntryID + nbRecords; entryID++)
+    {
+      final ByteString record = record(entryID);
+      records.appendInt(record.length());
+      records.appendBytes(record);
+    }
+    return new EntryRecordsMsg(EXPORTER_ID, 2, 1, rangeIndex, firstEntryID + nbRecords, nbRecords,
+        records.toByteArray());
+  }
+
+  private static ByteString record(long entryID)
+  {
+    return ByteString.valueOfUtf8("entry " + entryID);
+  }
+
+  private static List<ByteString> records(long firstEntryID, int nbRecords)
+  {
+    final List<ByteString> records = new ArrayList<>(nbRecords);
+    for (long entryID = firstEntryID; entryID < firstEntryID + nbRecords; entryID++)
+    {
+      records.add(record(entryID));
+    }
+    return records;
+  }
+
+  private static List<ByteString> readRecords(InitializationSpool spool, int rangeIndex) throws Exception
+  {
+    final List<EntryRecordReader> readers = spool.openReaders();
+    try
+    {
+      final List<ByteString> records = new ArrayList<>();
+      ByteString record;
+      while ((record = readers.get(rangeIndex).readRecord()) != null)
+      {
+        records.add(record);
+      }
+      return records;
+    }
+    finally
+    {
+      close(readers);
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -20,6 +21,9 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.util.CollectionUtils.*;
 import static org.testng.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.concurrent.BlockingQueue;
@@ -28,6 +32,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.backends.task.Task;
 import org.opends.server.replication.ReplicationTestCase;
@@ -366,6 +371,88 @@ public class ReplicationDomainTest extends ReplicationTestCase
     }
   }
 
+  /**
+   * Test that a ReplicationDomain is able to export and import its database
+   * as entry records, sent in parallel streams.
+   */
+  @Test
+  public void exportAndImportEntryRecords() throws Exception
+  {
+    final int ENTRYCOUNT = 5000;
+    DN testService = DN.valueOf("o=test");
+    ReplicationServer replServer = null;
+    FakeReplicationDomain domain1 = null;
+    FakeReplicationDomain domain2 = null;
+
+    try
+    {
+      int replServerPort = TestCaseUtils.findFreePort();
+      replServer = createReplicationServer(11, replServerPort, "exportAndImportEntryRecords", 100);
+      SortedSet<String> servers = newTreeSet("localhost:" + replServerPort);
+
+      List<ByteString> exportedRecords = buildExportedRecords(ENTRYCOUNT);
+      domain1 = new FakeReplicationDomain(testService, 1, servers, 0, null, null, 0);
+      domain1.initEntryRecordsExport(exportedRecords, 4);
+
+      StringBuilder importedData = new StringBuilder();
+      List<ByteString> importedRecords = Collections.synchronizedList(new ArrayList<ByteString>());
+      domain2 = new FakeReplicationDomain(testService, 2, servers, 0, null, importedData, 0);
+      domain2.initEntryRecordsImport(importedRecords);
+
+      assertTrue(initializeFromRemote(domain2));
+      waitEndImport(importedRecords, ENTRYCOUNT);
+
+      // The records of each range are imported in the order of the ranges
+      assertEquals(importedRecords, exportedRecords);
+      assertEquals(importedData.length(), 0, "Entry records must not be sent as LDIF");
+      assertEquals(getLeftEntryCount(domain1), 0, "Wrong LeftEntryCount for export");
+    }
+    finally
+    {
+      disable(domain1, domain2);
+      remove(replServer);
+    }
+  }
+
+  /**
+   * Test that the entries are still exported as LDIF when the exporter cannot
+   * export them as entry records, even if the importer can import them.
+   */
+  @Test
+  public void exportAndImportFallsBackToLDIF() throws Exception
+  {
+    final int ENTRYCOUNT = 5000;
+    DN testService = DN.valueOf("o=test");
+    ReplicationServer replServer = null;
+    FakeReplicationDomain domain1 = null;
+    FakeReplicationDomain domain2 = null;
+
+    try
+    {
+      int replServerPort = TestCaseUtils.findFreePort();
+      replServer = createReplicationServer(11, replServerPort, "exportAndImportFallsBackToLDIF", 100);
+      SortedSet<String> servers = newTreeSet("localhost:" + replServerPort);
+
+      String exportedData = buildExportedData(ENTRYCOUNT);
+      domain1 = new FakeReplicationDomain(testService, 1, servers, 0, exportedData, null, ENTRYCOUNT);
+
+      StringBuilder importedData = new StringBuilder();
+      List<ByteString> importedRecords = Collections.synchronizedList(new ArrayList<ByteString>());
+      domain2 = new FakeReplicationDomain(testService, 2, servers, 0, null, importedData, 0);
+      domain2.initEntryRecordsImport(importedRecords);
+
+      assertTrue(initializeFromRemote(domain2));
+      waitEndExport(exportedData, importedData);
+      assertExportSucessful(domain1, domain2, exportedData, importedData);
+      assertTrue(importedRecords.isEmpty());
+    }
+    finally
+    {
+      disable(domain1, domain2);
+      remove(replServer);
+    }
+  }
+
   private boolean initializeFromRemote(ReplicationDomain domain) throws DirectoryException
   {
     for (DSInfo remoteDS : domain.getReplicaInfos().values())
@@ -439,6 +526,26 @@ public class ReplicationDomainTest extends ReplicationTestCase
     return sb.toString();
   }
 
+  private List<ByteString> buildExportedRecords(final int ENTRYCOUNT)
+  {
+    final List<ByteString> records = new ArrayList<>(ENTRYCOUNT);
+    for (int i = 0; i < ENTRYCOUNT; i++)
+    {
+      records.add(ByteString.valueOfUtf8("key : value" + i));
+    }
+    return records;
+  }
+
+  private void waitEndImport(List<ByteString> importedRecords, int expectedCount) throws Exception
+  {
+    int count = 0;
+    while (importedRecords.size() < expectedCount && count < 500)
+    {
+      count ++;
+      Thread.sleep(100);
+    }
+  }
+
   private void waitEndExport(String exportedData, StringBuilder importedData) throws Exception
   {
     int count = 0;
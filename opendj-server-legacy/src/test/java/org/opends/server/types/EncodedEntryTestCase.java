@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.mockito.ArgumentCaptor;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.SearchOperation;
+import org.opends.server.protocols.ldap.SearchResultEntryProtocolOp;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class EncodedEntryTestCase extends TypesTestCase
+{
+  private Entry entry;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    entry = TestCaseUtils.makeEntry(
+        "dn: uid=user.1,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.1",
+        "cn: Aaron Atp",
+        "cn: Aaron",
+        "sn: Atp",
+        "description: first",
+        "description;lang-fr: premier",
+        "telephoneNumber: +1 685 622 6202",
+        "createTimestamp: 20260101000000Z");
+  }
+
+  @DataProvider
+  public Object[][] encodeConfigs()
+  {
+    return new Object[][] {
+      { new EntryEncodeConfig(false, false, false) },
+      { new EntryEncodeConfig(false, true, false) },
+      { new EntryEncodeConfig(false, false, true) },
+      { new EntryEncodeConfig(false, true, true) },
+    };
+  }
+
+  @Test(dataProvider = "encodeConfigs")
+  public void testDecodeHeader(EntryEncodeConfig config) throws Exception
+  {
+    final EncodedEntry encodedEntry = encode(config);
+
+    assertThat(encodedEntry.getName()).isEqualTo(entry.getName());
+    assertThat(encodedEntry.getNameBytes().toString()).isEqualTo(entry.getName().toString());
+    assertThat(encodedEntry.getObjectClasses()).isEqualTo(entry.getObjectClasses());
+    assertThat(encodedEntry.hasObjectClass("inetOrgPerson")).isTrue();
+    assertThat(encodedEntry.hasObjectClass("referral")).isFalse();
+    assertThat(encodedEntry.decodeEntry()).isEqualTo(entry);
+  }
+
+  @Test(dataProvider = "encodeConfigs")
+  public void testWriteIsSameAsDecodedEntry(EntryEncodeConfig config) throws Exception
+  {
+    final EncodedEntry encodedEntry = encode(config);
+    final SearchResultEntry searchEntry =
+        new SearchResultEntry(entry.filterEntry(Collections.<String> emptySet(), false, false, false));
+
+    assertThat(write(new SearchResultEntryProtocolOp(encodedEntry)))
+        .isEqualTo(write(new SearchResultEntryProtocolOp(searchEntry, 3)));
+  }
+
+  @Test
+  public void testAttributesOfEncodedProtocolOp() throws Exception
+  {
+    final SearchResultEntry searchEntry =
+        new SearchResultEntry(entry.filterEntry(Collections.<String> emptySet(), false, false, false));
+    final SearchResultEntryProtocolOp protocolOp =
+        new SearchResultEntryProtocolOp(encode(new EntryEncodeConfig(false, true, true)));
+
+    assertThat(protocolOp.getDN()).isEqualTo(entry.getName());
+    assertThat(protocolOp.toString()).isEqualTo(new SearchResultEntryProtocolOp(searchEntry, 3).toString());
+    // The protocol op can still be written once its attributes have been decoded
+    assertThat(write(protocolOp)).isEqualTo(write(new SearchResultEntryProtocolOp(searchEntry, 3)));
+  }
+
+  @Test
+  public void testDefaultSendEncodedSearchEntrySendsDecodedEntry() throws Exception
+  {
+    final ClientConnection connection = mock(ClientConnection.class);
+    doCallRealMethod().when(connection).sendEncodedSearchEntry(any(SearchOperation.class), any(EncodedEntry.class));
+    final SearchOperation searchOperation = mock(SearchOperation.class);
+    final EncodedEntry encodedEntry = encode(new EntryEncodeConfig(false, true, true));
+
+    connection.sendEncodedSearchEntry(searchOperation, encodedEntry);
+
+    final ArgumentCaptor<SearchResultEntry> searchEntry = ArgumentCaptor.forClass(SearchResultEntry.class);
+    verify(connection).sendSearchEntry(same(searchOperation), searchEntry.capture());
+    assertThat(write(new SearchResultEntryProtocolOp(searchEntry.getValue(), 3)))
+        .isEqualTo(write(new SearchResultEntryProtocolOp(encodedEntry)));
+  }
+
+  @Test
+  public void testExcludedDN() throws Exception
+  {
+    final ByteStringBuilder buffer = new ByteStringBuilder();
+    entry.encode(buffer, new EntryEncodeConfig(true, true, true));
+    assertThat(EncodedEntry.decode(buffer.toByteString(), DirectoryServer.getDefaultCompressedSchema())).isNull();
+  }
+
+  private EncodedEntry encode(EntryEncodeConfig config) throws Exception
+  {
+    final ByteStringBuilder buffer = new ByteStringBuilder();
+    entry.encode(buffer, config);
+    return EncodedEntry.decode(buffer.toByteString(), DirectoryServer.getDefaultCompressedSchema());
+  }
+
+  private ByteString write(SearchResultEntryProtocolOp protocolOp) throws Exception
+  {
+    final ByteStringBuilder buffer = new ByteStringBuilder();
+    protocolOp.write(ASN1.getWriter(buffer));
+    return buffer.toByteString();
+  }
+}
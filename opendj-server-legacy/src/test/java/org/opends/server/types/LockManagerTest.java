@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -29,6 +30,7 @@ import java.util.concurrent.TimeoutException;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.types.LockManager.DNLock;
+import org.opends.server.types.LockManager.Implementation;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -95,6 +97,20 @@ public class LockManagerTest extends TypesTestCase
     unlockUsingThread(thread1, lock1);
   }
 
+  @Test
+  public void testStripedLockTimeout() throws Exception
+  {
+    final LockManager lockManager = new LockManager(100, TimeUnit.MILLISECONDS, Implementation.STRIPED);
+    DNLock lock1 = lockUsingThread(thread1, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    DNLock lock2 = lockUsingThread(thread2, lockManager, LockType.WRITE_ENTRY, dnABC).get();
+    assertThat(lock1).isNotNull();
+    assertThat(lock2).isNull(); // Timed out.
+    assertThat(lockManager.getLockWaitCount()).isEqualTo(1);
+    assertThat(lockManager.getLockTimeoutCount()).isEqualTo(1);
+    unlockUsingThread(thread1, lock1);
+    assertThat(lockManager.getLockTableSize()).isEqualTo(0);
+  }
+
   @DataProvider
   private Object[][] multiThreadedLockCombinationsWhichShouldBlock()
   {
@@ -147,6 +163,34 @@ public class LockManagerTest extends TypesTestCase
     assertThat(lockManager.getLockTableRefCountFor(dn2)).isGreaterThan(0);
   }
 
+  @Test(dataProvider = "multiThreadedLockCombinationsWhichShouldBlock")
+  public void testStripedMultiThreadedLockCombinationsWhichShouldBlock(final LockType lock1Type, final DN dn1,
+      final LockType lock2Type, final DN dn2) throws Exception
+  {
+    final LockManager lockManager = new LockManager(Implementation.STRIPED);
+    final DNLock lock1 = lockUsingThread(thread1, lockManager, lock1Type, dn1).get();
+    final Future<DNLock> lock2Future = lockUsingThread(thread2, lockManager, lock2Type, dn2);
+
+    try
+    {
+      lock2Future.get(10, TimeUnit.MILLISECONDS);
+    }
+    catch (final TimeoutException e)
+    {
+      // Ignore: we'll check the state of the future instead.
+    }
+    assertThat(lock2Future.isDone()).isFalse();
+    unlockUsingThread(thread1, lock1);
+    final DNLock lock2 = lock2Future.get();
+    unlockUsingThread(thread2, lock2);
+
+    // There is no thread local cache: unused locks are removed from the lock table.
+    assertThat(lockManager.getLockWaitCount()).isEqualTo(1);
+    assertThat(lockManager.getLockTableRefCountFor(dn1)).isLessThan(0);
+    assertThat(lockManager.getLockTableRefCountFor(dn2)).isLessThan(0);
+    assertThat(lockManager.getLockTableSize()).isEqualTo(0);
+  }
+
   @DataProvider
   private Object[][] multiThreadedLockCombinationsWhichShouldNotBlock()
   {
@@ -228,6 +272,55 @@ public class LockManagerTest extends TypesTestCase
     assertThat(lockManager.getLockTableRefCountFor(dnA)).isGreaterThan(0);
   }
 
+  @Test(dataProvider = "reentrantLockCombinationsWhichShouldNotBlock")
+  public void testStripedReentrantLockCombinationsWhichShouldNotBlock(final LockType lock1Type,
+      final LockType lock2Type)
+  {
+    final LockManager lockManager = new LockManager(Implementation.STRIPED);
+    final DNLock lock1 = lock1Type.lock(lockManager, dnA);
+    final DNLock lock2 = lock2Type.lock(lockManager, dnA);
+
+    assertThat(lock1).isNotSameAs(lock2);
+    assertThat(lock1.refCount()).isEqualTo(2);
+    assertThat(lock2.refCount()).isEqualTo(2);
+
+    lock1.unlock();
+    assertThat(lock1.refCount()).isEqualTo(1);
+    assertThat(lock2.refCount()).isEqualTo(1);
+
+    lock2.unlock();
+    assertThat(lockManager.getThreadLocalCacheRefCountFor(dnA)).isLessThan(0);
+    assertThat(lockManager.getLockTableRefCountFor(dnA)).isLessThan(0);
+    assertThat(lockManager.getLockWaitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testStripedLocksAreRemovedAndReused() throws Exception
+  {
+    final LockManager lockManager = new LockManager(Implementation.STRIPED);
+    for (int round = 0; round < 3; round++)
+    {
+      final LinkedList<DNLock> locks = new LinkedList<>();
+      for (int i = 0; i < 1000; i++)
+      {
+        locks.add(lockManager.tryWriteLockEntry(dn(round * 1000 + i)));
+      }
+
+      // Entry locks reference the locks of their parents, up to the root DN.
+      assertThat(lockManager.getLockTableSize()).isEqualTo(1000 + 4);
+      assertThat(lockManager.getLockTableRefCountFor(dn(round * 1000))).isEqualTo(1);
+      assertThat(lockManager.getLockTableRefCountFor(DN.valueOf("ou=people,dc=example,dc=com"))).isEqualTo(1000);
+
+      for (final DNLock lock : locks)
+      {
+        lock.unlock();
+      }
+      assertThat(lockManager.getLockTableSize()).isEqualTo(0);
+      assertThat(lockManager.getLockTableRefCountFor(dn(round * 1000))).isLessThan(0);
+    }
+    assertThat(lockManager.getMaxChainLength()).isGreaterThan(0);
+  }
+
   @Test
   public void testThreadLocalCacheEviction() throws Exception
   {
@@ -269,7 +362,19 @@ public class LockManagerTest extends TypesTestCase
   @Test(description = "OPENDJ-1984")
   public void stressTestForDeadlocks() throws Exception
   {
-    final LockManager lockManager = new LockManager();
+    stressTestForDeadlocks(new LockManager());
+  }
+
+  @Test
+  public void stressTestForDeadlocksStriped() throws Exception
+  {
+    final LockManager lockManager = new LockManager(Implementation.STRIPED);
+    stressTestForDeadlocks(lockManager);
+    assertThat(lockManager.getLockTableSize()).isEqualTo(0);
+  }
+
+  private void stressTestForDeadlocks(final LockManager lockManager) throws Exception
+  {
     final int threadCount = Runtime.getRuntime().availableProcessors();
     final ExecutorService threadPool = Executors.newFixedThreadPool(threadCount);
     for (int i = 0; i < threadCount; i++)